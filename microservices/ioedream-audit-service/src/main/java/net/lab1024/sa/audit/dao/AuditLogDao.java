@@ -3,6 +3,7 @@ package net.lab1024.sa.audit.dao;
 import net.lab1024.sa.audit.domain.entity.AuditLogEntity;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -103,6 +104,31 @@ public interface AuditLogDao {
             @Param("keyword") String keyword
     );
 
+    /**
+     * 流式查询审计日志（导出用），数据库游标逐行回调，不限制条数
+     *
+     * @param userId 用户ID（可选）
+     * @param moduleName 模块名称（可选）
+     * @param operationType 操作类型（可选）
+     * @param resultStatus 结果状态（可选）
+     * @param startTime 开始时间（可选）
+     * @param endTime 结束时间（可选）
+     * @param clientIp 客户端IP（可选）
+     * @param keyword 关键词（可选）
+     * @param handler 逐行回调
+     */
+    void streamByCondition(
+            @Param("userId") Long userId,
+            @Param("moduleName") String moduleName,
+            @Param("operationType") Integer operationType,
+            @Param("resultStatus") Integer resultStatus,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime,
+            @Param("clientIp") String clientIp,
+            @Param("keyword") String keyword,
+            ResultHandler<AuditLogEntity> handler
+    );
+
     /**
      * 根据用户ID查询审计日志
      *
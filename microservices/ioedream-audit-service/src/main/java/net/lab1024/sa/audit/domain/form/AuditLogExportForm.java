@@ -56,7 +56,7 @@ public class AuditLogExportForm {
     private String keyword;
 
     /**
-     * 导出格式：EXCEL, CSV, PDF
+     * 导出格式：CSV, CSV.GZ（流式导出，CSV带BOM可直接用Excel打开）
      */
-    private String exportFormat = "EXCEL";
+    private String exportFormat = "CSV";
 }
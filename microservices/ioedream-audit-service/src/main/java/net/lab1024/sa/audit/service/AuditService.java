@@ -73,10 +73,10 @@ public interface AuditService {
     ResponseDTO<ComplianceReportVO> generateComplianceReport(ComplianceReportQueryForm queryForm);
 
     /**
-     * 导出审计日志
+     * 导出审计日志（数据库游标流式写出CSV文件）
      *
      * @param exportForm 导出表单
-     * @return 导出任务ID
+     * @return 导出任务ID、导出行数及文件路径
      */
     ResponseDTO<String> exportAuditLogs(AuditLogExportForm exportForm);
 
@@ -1,5 +1,9 @@
 package net.lab1024.sa.audit.service.impl;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -11,6 +15,7 @@ import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -75,6 +80,11 @@ public class AuditServiceImpl implements AuditService {
     private static final String AUDIT_CACHE_PREFIX = "audit:cache:";
     private static final String AUDIT_STATS_PREFIX = "audit:stats:";
     private static final long CACHE_EXPIRE_TIME = 30; // 30分钟
+    private static final String EXPORT_FORMAT_CSV = "CSV";
+    private static final String EXPORT_FORMAT_CSV_GZ = "CSV.GZ";
+
+    @Value("${audit.export.path:./export/audit}")
+    private String exportPath;
 
     @Override
     @Async
@@ -354,48 +364,51 @@ public class AuditServiceImpl implements AuditService {
 
     @Override
     public ResponseDTO<String> exportAuditLogs(AuditLogExportForm exportForm) {
+        String exportFormat = exportForm.getExportFormat() == null
+                ? EXPORT_FORMAT_CSV : exportForm.getExportFormat().toUpperCase();
+        if (!EXPORT_FORMAT_CSV.equals(exportFormat) && !EXPORT_FORMAT_CSV_GZ.equals(exportFormat)) {
+            return ResponseDTO.error("审计日志导出仅支持 CSV、CSV.GZ 格式");
+        }
+        String exportTaskId = UUID.randomUUID().toString();
+        boolean gzip = EXPORT_FORMAT_CSV_GZ.equals(exportFormat);
+        Path filePath = Paths.get(exportPath).resolve("audit_log_" + exportTaskId + (gzip ? ".csv.gz" : ".csv"));
         try {
-            log.info("开始导出审计日志, 导出格式: {}", exportForm.getExportFormat());
+            log.info("开始导出审计日志, taskId: {}, 导出格式: {}", exportTaskId, exportFormat);
+            Files.createDirectories(filePath.getParent());
+
+            // 数据库游标逐行写出，不分页、不限制条数
+            long totalCount;
+            try (AuditLogCsvExporter exporter = new AuditLogCsvExporter(Files.newOutputStream(filePath), gzip)) {
+                auditLogDao.streamByCondition(
+                        exportForm.getUserId(),
+                        exportForm.getModuleName(),
+                        exportForm.getOperationType(),
+                        exportForm.getResultStatus(),
+                        exportForm.getStartTime(),
+                        exportForm.getEndTime(),
+                        exportForm.getClientIp(),
+                        exportForm.getKeyword(),
+                        exporter);
+                totalCount = exporter.getRowCount();
+            }
 
-            // 构建查询条件（不分页）
-            List<AuditLogEntity> auditLogs = auditLogDao.selectByPage(
-                    exportForm.getUserId(),
-                    exportForm.getModuleName(),
-                    exportForm.getOperationType(),
-                    exportForm.getResultStatus(),
-                    exportForm.getStartTime(),
-                    exportForm.getEndTime(),
-                    exportForm.getClientIp(),
-                    exportForm.getKeyword(),
-                    0,
-                    10000 // 最大导出数量限制
-            );
-
-            if (auditLogs.isEmpty()) {
+            if (totalCount == 0) {
+                Files.deleteIfExists(filePath);
                 return ResponseDTO.error("没有符合条件的审计日志可导出");
             }
-
-            // 转换为导出数据
-            List<Map<String, Object>> exportData = auditLogs.stream()
-                    .map(this::convertToExportData)
-                    .collect(Collectors.toList());
-
-            // TODO: 实际的导出逻辑（Excel、CSV等）
-            // 这里返回一个导出任务的ID
-            String exportTaskId = UUID.randomUUID().toString();
-
-            // 异步执行导出任务
-            asyncExportData(exportTaskId, exportData, exportForm.getExportFormat());
+            log.info("审计日志导出完成, taskId: {}, 数据量: {}", exportTaskId, totalCount);
 
             Map<String, Object> result = new HashMap<>();
             result.put("exportTaskId", exportTaskId);
-            result.put("totalCount", exportData.size());
-            result.put("exportFormat", exportForm.getExportFormat());
+            result.put("totalCount", totalCount);
+            result.put("exportFormat", exportFormat);
+            result.put("filePath", filePath.toString());
 
             return ResponseDTO.ok(objectMapper.writeValueAsString(result));
 
         } catch (Exception e) {
-            log.error("导出审计日志失败", e);
+            log.error("导出审计日志失败, taskId: {}", exportTaskId, e);
+            deleteQuietly(filePath);
             return ResponseDTO.error("导出审计日志失败");
         }
     }
@@ -437,28 +450,6 @@ public class AuditServiceImpl implements AuditService {
         return vo;
     }
 
-    /**
-     * 转换为导出数据
-     */
-    private Map<String, Object> convertToExportData(AuditLogEntity entity) {
-        Map<String, Object> data = new HashMap<>();
-        data.put("审计ID", entity.getAuditId());
-        data.put("用户ID", entity.getUserId());
-        data.put("用户名", entity.getUsername());
-        data.put("操作类型", entity.getOperationTypeText());
-        data.put("模块名称", entity.getModuleName());
-        data.put("功能名称", entity.getFunctionName());
-        data.put("操作描述", entity.getDescription());
-        data.put("请求方法", entity.getRequestMethod());
-        data.put("请求URL", entity.getRequestUrl());
-        data.put("操作结果", entity.getResultStatusText());
-        data.put("执行时长(ms)", entity.getExecutionTime());
-        data.put("客户端IP", entity.getClientIp());
-        data.put("操作时间", entity.getOperationTime());
-        data.put("风险等级", entity.getRiskLevelText());
-        return data;
-    }
-
     /**
      * 清除审计缓存
      */
@@ -762,24 +753,13 @@ public class AuditServiceImpl implements AuditService {
     }
 
     /**
-     * 异步导出数据
+     * 删除导出文件，失败只记录日志
      */
-    @Async
-    private void asyncExportData(String exportTaskId, List<Map<String, Object>> exportData, String exportFormat) {
+    private void deleteQuietly(Path filePath) {
         try {
-            log.info("开始异步导出审计日志, taskId: {}, format: {}, 数据量: {}",
-                    exportTaskId, exportFormat, exportData.size());
-
-            // TODO: 实际的导出逻辑
-            // 1. 根据格式生成文件（Excel、CSV、PDF等）
-            // 2. 上传到文件存储服务
-            // 3. 更新导出任务状态
-            // 4. 发送完成通知
-
-            log.info("审计日志导出完成, taskId: {}", exportTaskId);
-
-        } catch (Exception e) {
-            log.error("异步导出审计日志失败, taskId: {}", exportTaskId, e);
+            Files.deleteIfExists(filePath);
+        } catch (IOException e) {
+            log.warn("删除导出文件失败: {}", filePath, e);
         }
     }
 }
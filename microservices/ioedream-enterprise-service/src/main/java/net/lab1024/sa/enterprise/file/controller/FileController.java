@@ -7,19 +7,20 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.lab1024.sa.common.domain.ResponseDTO;
 import net.lab1024.sa.common.util.SmartRequestUtil;
+import net.lab1024.sa.enterprise.file.domain.form.FileChunkUploadInitForm;
+import net.lab1024.sa.enterprise.file.domain.vo.FileUploadSessionVO;
 import net.lab1024.sa.enterprise.file.entity.FileEntity;
 import net.lab1024.sa.enterprise.file.service.FileService;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import net.lab1024.sa.enterprise.file.storage.FileRangeWriter;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -39,6 +40,8 @@ public class FileController {
 
     private final FileService fileService;
 
+    private final FileRangeWriter fileRangeWriter;
+
     @Operation(summary = "单文件上传")
     @PostMapping("/upload")
     public ResponseDTO<FileEntity> uploadFile(
@@ -70,28 +73,65 @@ public class FileController {
         return ResponseDTO.ok(fileEntities);
     }
 
-    @Operation(summary = "文件下载")
-    @GetMapping("/download/{fileId}")
-    public ResponseEntity<Resource> downloadFile(
-            @Parameter(description = "文件ID", required = true) @PathVariable @NotNull Long fileId,
+    @Operation(summary = "初始化分片上传")
+    @PostMapping("/upload/chunked/init")
+    public ResponseDTO<FileUploadSessionVO> initChunkedUpload(
+            @Parameter(description = "分片上传信息", required = true) @RequestBody @Validated FileChunkUploadInitForm form,
             HttpServletRequest request) {
 
         Long userId = SmartRequestUtil.getUserId(request);
-        log.info("用户{}下载文件: {}", userId, fileId);
+        log.info("用户{}初始化分片上传: {}, {}字节", userId, form.getFileName(), form.getFileSize());
 
-        FileEntity fileEntity = fileService.getFileInfo(fileId);
-        if (fileEntity == null) {
-            return ResponseEntity.notFound().build();
-        }
+        return ResponseDTO.ok(fileService.initChunkedUpload(form, userId));
+    }
+
+    @Operation(summary = "上传分片", description = "请求体为分片原始字节（application/octet-stream）")
+    @PutMapping("/upload/chunked/{uploadId}/{chunkIndex}")
+    public ResponseDTO<FileUploadSessionVO> uploadChunk(
+            @Parameter(description = "上传会话ID", required = true) @PathVariable @NotNull String uploadId,
+            @Parameter(description = "分片序号，从0开始", required = true) @PathVariable @NotNull Integer chunkIndex,
+            HttpServletRequest request) throws IOException {
+
+        return ResponseDTO.ok(fileService.uploadChunk(uploadId, chunkIndex, request.getInputStream()));
+    }
+
+    @Operation(summary = "查询分片上传进度")
+    @GetMapping("/upload/chunked/{uploadId}")
+    public ResponseDTO<FileUploadSessionVO> getChunkedUpload(
+            @Parameter(description = "上传会话ID", required = true) @PathVariable @NotNull String uploadId) {
 
-        byte[] fileContent = fileService.downloadFile(fileId, userId);
-        ByteArrayResource resource = new ByteArrayResource(fileContent);
+        return ResponseDTO.ok(fileService.getChunkedUpload(uploadId));
+    }
+
+    @Operation(summary = "完成分片上传")
+    @PostMapping("/upload/chunked/{uploadId}/complete")
+    public ResponseDTO<FileEntity> completeChunkedUpload(
+            @Parameter(description = "上传会话ID", required = true) @PathVariable @NotNull String uploadId) {
+
+        return ResponseDTO.ok(fileService.completeChunkedUpload(uploadId));
+    }
+
+    @Operation(summary = "取消分片上传")
+    @DeleteMapping("/upload/chunked/{uploadId}")
+    public ResponseDTO<String> abortChunkedUpload(
+            @Parameter(description = "上传会话ID", required = true) @PathVariable @NotNull String uploadId) {
+
+        fileService.abortChunkedUpload(uploadId);
+        return ResponseDTO.ok("已取消上传");
+    }
+
+    @Operation(summary = "文件下载", description = "支持 Range 断点续传")
+    @GetMapping("/download/{fileId}")
+    public void downloadFile(
+            @Parameter(description = "文件ID", required = true) @PathVariable @NotNull Long fileId,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        Long userId = SmartRequestUtil.getUserId(request);
+        log.info("用户{}下载文件: {}", userId, fileId);
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + fileEntity.getOriginalFilename() + "\"")
-                .body(resource);
+        FileEntity fileEntity = fileService.openDownload(fileId, userId, FileRangeWriter.isInitialRequest(request));
+        fileRangeWriter.write(request, response, Paths.get(fileEntity.getFilePath()),
+                fileEntity.getOriginalFilename(), fileEntity.getFileType(), fileEntity.getFileMd5());
     }
 
     @Operation(summary = "获取文件信息")
@@ -0,0 +1,73 @@
+package net.lab1024.sa.enterprise.file.domain.form;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * 分片上传初始化表单
+ *
+ * @author 老王
+ * @since 2025-11-30
+ */
+@Data
+@Schema(description = "分片上传初始化表单")
+public class FileChunkUploadInitForm {
+
+    /**
+     * 原始文件名
+     */
+    @Schema(description = "原始文件名", example = "监控录像.mp4")
+    @NotBlank(message = "文件名不能为空")
+    @Size(max = 255, message = "文件名长度不能超过255个字符")
+    private String fileName;
+
+    /**
+     * 文件大小（字节）
+     */
+    @Schema(description = "文件大小（字节）", example = "524288000")
+    @NotNull(message = "文件大小不能为空")
+    @Positive(message = "文件大小必须大于0")
+    private Long fileSize;
+
+    /**
+     * 分片大小（字节），为空时使用服务端默认值
+     */
+    @Schema(description = "分片大小（字节）", example = "8388608")
+    private Integer chunkSize;
+
+    /**
+     * 文件内容SHA-256（小写十六进制），提供时服务端已有相同内容则直接完成上传，合并时校验
+     */
+    @Schema(description = "文件内容SHA-256")
+    @Pattern(regexp = "[0-9a-f]{64}", message = "SHA-256格式不正确")
+    private String sha256;
+
+    /**
+     * 文件类型（MIME）
+     */
+    @Schema(description = "文件类型", example = "video/mp4")
+    private String contentType;
+
+    /**
+     * 业务模块
+     */
+    @Schema(description = "业务模块")
+    private String businessModule;
+
+    /**
+     * 业务ID
+     */
+    @Schema(description = "业务ID")
+    private String businessId;
+
+    /**
+     * 文件描述
+     */
+    @Schema(description = "文件描述")
+    private String fileDescription;
+}
@@ -0,0 +1,60 @@
+package net.lab1024.sa.enterprise.file.domain.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import net.lab1024.sa.enterprise.file.entity.FileEntity;
+
+import java.util.List;
+
+/**
+ * 分片上传会话VO
+ *
+ * @author 老王
+ * @since 2025-11-30
+ */
+@Data
+@Schema(description = "分片上传会话VO")
+public class FileUploadSessionVO {
+
+    /**
+     * 上传会话ID，秒传完成时为空
+     */
+    @Schema(description = "上传会话ID")
+    private String uploadId;
+
+    /**
+     * 文件大小（字节）
+     */
+    @Schema(description = "文件大小（字节）")
+    private Long fileSize;
+
+    /**
+     * 分片大小（字节）
+     */
+    @Schema(description = "分片大小（字节）")
+    private Integer chunkSize;
+
+    /**
+     * 分片总数
+     */
+    @Schema(description = "分片总数")
+    private Integer chunkCount;
+
+    /**
+     * 已上传的分片序号，断点续传时只需上传其余分片
+     */
+    @Schema(description = "已上传的分片序号")
+    private List<Integer> uploadedChunks;
+
+    /**
+     * 是否已完成（服务端已有相同内容时初始化即完成）
+     */
+    @Schema(description = "是否已完成")
+    private Boolean completed;
+
+    /**
+     * 完成后的文件信息
+     */
+    @Schema(description = "文件信息")
+    private FileEntity file;
+}
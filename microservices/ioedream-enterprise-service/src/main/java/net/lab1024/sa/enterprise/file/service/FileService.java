@@ -1,8 +1,11 @@
 package net.lab1024.sa.enterprise.file.service;
 
+import net.lab1024.sa.enterprise.file.domain.form.FileChunkUploadInitForm;
+import net.lab1024.sa.enterprise.file.domain.vo.FileUploadSessionVO;
 import net.lab1024.sa.enterprise.file.entity.FileEntity;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -25,10 +28,42 @@ public interface FileService {
     List<FileEntity> uploadFiles(List<MultipartFile> files, String businessModule, String businessId);
 
     /**
-     * 下载文件
+     * 初始化分片上传，服务端已有相同内容时直接完成（秒传）
+     */
+    FileUploadSessionVO initChunkedUpload(FileChunkUploadInitForm form, Long userId);
+
+    /**
+     * 上传分片，可乱序、重复上传
+     */
+    FileUploadSessionVO uploadChunk(String uploadId, Integer chunkIndex, InputStream inputStream);
+
+    /**
+     * 查询分片上传进度，用于断点续传
+     */
+    FileUploadSessionVO getChunkedUpload(String uploadId);
+
+    /**
+     * 合并分片并保存文件信息
+     */
+    FileEntity completeChunkedUpload(String uploadId);
+
+    /**
+     * 取消分片上传
+     */
+    void abortChunkedUpload(String uploadId);
+
+    /**
+     * 下载文件（整个文件读入内存，仅适用于小文件；HTTP下载使用 {@link #openDownload}）
      */
     byte[] downloadFile(Long fileId, Long userId);
 
+    /**
+     * 获取待下载的文件并校验物理文件存在
+     *
+     * @param countDownload 是否计入下载次数，断点续传的后续请求不计
+     */
+    FileEntity openDownload(Long fileId, Long userId, boolean countDownload);
+
     /**
      * 获取文件信息
      */
@@ -6,26 +6,36 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import lombok.extern.slf4j.Slf4j;
 import net.lab1024.sa.common.exception.BusinessException;
 import net.lab1024.sa.common.util.SmartBeanUtil;
-import net.lab1024.sa.common.util.SmartMd5Util;
 import net.lab1024.sa.common.util.SmartStringUtil;
 import net.lab1024.sa.enterprise.file.dao.FileDao;
+import net.lab1024.sa.enterprise.file.domain.form.FileChunkUploadInitForm;
+import net.lab1024.sa.enterprise.file.domain.vo.FileUploadSessionVO;
 import net.lab1024.sa.enterprise.file.entity.FileEntity;
 import net.lab1024.sa.enterprise.file.service.FileService;
+import net.lab1024.sa.enterprise.file.storage.ChunkedUploadStore;
+import net.lab1024.sa.enterprise.file.storage.ContentAddressedFileStore;
+import net.lab1024.sa.enterprise.file.storage.StoredBlob;
+import net.lab1024.sa.enterprise.file.storage.UploadSession;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
 /**
  * 文件管理服务实现类
+ * <p>
+ * 文件内容按SHA-256存储在 {@link ContentAddressedFileStore}，相同内容只存一份，每次上传仍各自保存一条文件记录；
+ * 上传与下载全程流式处理，不把文件读入堆内存。历史上按日期目录保存的文件仍按原路径读取
  *
  * @author 老王
  * @since 2025-11-30
@@ -36,17 +46,39 @@ public class FileServiceImpl implements FileService {
 
     private final FileDao fileDao;
 
+    private final ContentAddressedFileStore fileStore;
+
+    private final ChunkedUploadStore chunkedUploadStore;
+
     @Value("${file.upload.path:/uploads}")
     private String uploadPath;
 
     @Value("${file.upload.max-size:104857600}") // 100MB
     private Long maxFileSize;
 
+    @Value("${file.upload.chunked-max-size:10737418240}") // 10GB
+    private Long maxChunkedFileSize;
+
+    @Value("${file.upload.chunk-size:8388608}") // 8MB
+    private Integer defaultChunkSize;
+
+    @Value("${file.upload.session-ttl-hours:24}")
+    private Long uploadSessionTtlHours;
+
+    /**
+     * 内容被复用后至少保留的分钟数，需大于上传从复用内容到文件记录提交的最长耗时
+     */
+    @Value("${file.gc.grace-minutes:60}")
+    private Long gcGraceMinutes;
+
     @Value("${file.base-url:http://localhost:8080/files}")
     private String baseUrl;
 
-    public FileServiceImpl(FileDao fileDao) {
+    public FileServiceImpl(FileDao fileDao, ContentAddressedFileStore fileStore,
+                           ChunkedUploadStore chunkedUploadStore) {
         this.fileDao = fileDao;
+        this.fileStore = fileStore;
+        this.chunkedUploadStore = chunkedUploadStore;
     }
 
     @Override
@@ -61,52 +93,14 @@ public class FileServiceImpl implements FileService {
         }
 
         try {
-            // 计算文件MD5
-            String fileMd5 = SmartMd5Util.md5(file.getBytes());
-
-            // 检查文件是否已存在
-            FileEntity existFile = fileDao.selectByMd5(fileMd5, 0);
-            if (existFile != null) {
-                log.info("文件已存在，返回现有文件信息: {}", existFile.getFileId());
-                return existFile;
+            // 流式存储并计算摘要，相同内容复用已有存储
+            StoredBlob blob = fileStore.put(file);
+            if (blob.deduplicated()) {
+                log.info("文件内容已存在，复用存储: {}", blob.sha256());
             }
 
-            // 生成文件信息
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = SmartStringUtil.getExtension(originalFilename);
-            String fileName = UUID.randomUUID().toString() + (fileExtension != null ? "." + fileExtension : "");
-
-            // 创建存储目录
-            String datePath = LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-            String filePath = Paths.get(uploadPath, datePath, fileName).toString();
-
-            Path directory = Paths.get(uploadPath, datePath);
-            if (!Files.exists(directory)) {
-                Files.createDirectories(directory);
-            }
-
-            // 保存文件
-            Files.write(Paths.get(filePath), file.getBytes());
-
-            // 保存文件信息到数据库
-            FileEntity fileEntity = new FileEntity();
-            fileEntity.setFileName(fileName);
-            fileEntity.setOriginalFilename(originalFilename);
-            fileEntity.setFilePath(filePath);
-            fileEntity.setFileSize(file.getSize());
-            fileEntity.setFileType(file.getContentType());
-            fileEntity.setFileExtension(fileExtension);
-            fileEntity.setFileMd5(fileMd5);
-            fileEntity.setStorageType("LOCAL");
-            fileEntity.setFileUrl(baseUrl + "/" + datePath + "/" + fileName);
-            fileEntity.setBusinessModule(businessModule);
-            fileEntity.setBusinessId(businessId);
-            fileEntity.setFileDescription(fileDescription);
-            fileEntity.setFileStatus(0);
-            fileEntity.setDownloadCount(0);
-            fileEntity.setIsPublic(0);
-
-            fileDao.insert(fileEntity);
+            FileEntity fileEntity = saveFileRecord(blob, file.getOriginalFilename(), file.getContentType(),
+                    businessModule, businessId, fileDescription, null);
 
             log.info("文件上传成功: {}", fileEntity.getFileId());
             return fileEntity;
@@ -129,32 +123,147 @@ public class FileServiceImpl implements FileService {
     }
 
     @Override
-    public byte[] downloadFile(Long fileId, Long userId) {
-        FileEntity fileEntity = fileDao.selectById(fileId);
-        if (fileEntity == null || fileEntity.getFileStatus() == 1) {
-            throw new BusinessException("文件不存在或已删除");
+    public FileUploadSessionVO initChunkedUpload(FileChunkUploadInitForm form, Long userId) {
+        if (form.getFileSize() > maxChunkedFileSize) {
+            throw new BusinessException("文件大小超过限制");
         }
 
         try {
-            // 更新下载次数
-            fileEntity.setDownloadCount(fileEntity.getDownloadCount() + 1);
-            fileEntity.setLastDownloadTime(LocalDateTime.now());
-            fileDao.updateDownloadCount(fileId, fileEntity.getDownloadCount(), fileEntity.getLastDownloadTime());
+            // 秒传：服务端已有相同内容
+            if (form.getSha256() != null && fileStore.retain(form.getSha256())) {
+                Path path = fileStore.resolve(form.getSha256());
+                if (Files.size(path) == form.getFileSize()) {
+                    StoredBlob blob = new StoredBlob(form.getSha256(), md5Of(path), form.getFileSize(), path, true);
+                    FileEntity fileEntity = saveFileRecord(blob, form.getFileName(), form.getContentType(),
+                            form.getBusinessModule(), form.getBusinessId(), form.getFileDescription(), userId);
+                    log.info("文件秒传成功: {}", fileEntity.getFileId());
+
+                    FileUploadSessionVO vo = new FileUploadSessionVO();
+                    vo.setFileSize(form.getFileSize());
+                    vo.setCompleted(true);
+                    vo.setFile(fileEntity);
+                    return vo;
+                }
+            }
+
+            Map<String, String> attributes = new HashMap<>();
+            putIfNotNull(attributes, "fileName", form.getFileName());
+            putIfNotNull(attributes, "contentType", form.getContentType());
+            putIfNotNull(attributes, "businessModule", form.getBusinessModule());
+            putIfNotNull(attributes, "businessId", form.getBusinessId());
+            putIfNotNull(attributes, "fileDescription", form.getFileDescription());
+            putIfNotNull(attributes, "uploadUserId", userId == null ? null : String.valueOf(userId));
+            int chunkSize = form.getChunkSize() != null ? form.getChunkSize() : defaultChunkSize;
+
+            UploadSession session = chunkedUploadStore.create(form.getFileSize(), chunkSize, form.getSha256(),
+                    attributes);
+            log.info("分片上传会话创建: uploadId={}, fileSize={}, chunkCount={}", session.uploadId(),
+                    session.fileSize(), session.chunkCount());
+            return toSessionVO(session, new BitSet());
+
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        } catch (IOException e) {
+            log.error("创建分片上传会话失败", e);
+            throw new BusinessException("创建分片上传会话失败: " + e.getMessage());
+        }
+    }
 
-            // 读取文件内容
-            Path filePath = Paths.get(fileEntity.getFilePath());
-            if (!Files.exists(filePath)) {
-                throw new BusinessException("文件物理文件不存在");
+    @Override
+    public FileUploadSessionVO uploadChunk(String uploadId, Integer chunkIndex, InputStream inputStream) {
+        try {
+            BitSet received = chunkedUploadStore.writeChunk(uploadId, chunkIndex, inputStream);
+            return toSessionVO(chunkedUploadStore.get(uploadId), received);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        } catch (IOException e) {
+            log.error("分片上传失败: uploadId={}, chunkIndex={}", uploadId, chunkIndex, e);
+            throw new BusinessException("分片上传失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public FileUploadSessionVO getChunkedUpload(String uploadId) {
+        try {
+            UploadSession session = chunkedUploadStore.get(uploadId);
+            if (session == null) {
+                throw new BusinessException("上传会话不存在或已过期");
             }
+            return toSessionVO(session, chunkedUploadStore.receivedChunks(uploadId));
+        } catch (IOException e) {
+            log.error("查询分片上传进度失败: uploadId={}", uploadId, e);
+            throw new BusinessException("查询分片上传进度失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public FileEntity completeChunkedUpload(String uploadId) {
+        try {
+            UploadSession session = chunkedUploadStore.get(uploadId);
+            if (session == null) {
+                throw new BusinessException("上传会话不存在或已过期");
+            }
+            StoredBlob blob = chunkedUploadStore.complete(uploadId);
+
+            Map<String, String> attributes = session.attributes();
+            String uploadUserId = attributes.get("uploadUserId");
+            FileEntity fileEntity = saveFileRecord(blob, attributes.get("fileName"), attributes.get("contentType"),
+                    attributes.get("businessModule"), attributes.get("businessId"),
+                    attributes.get("fileDescription"), uploadUserId == null ? null : Long.valueOf(uploadUserId));
+
+            log.info("分片上传完成: uploadId={}, fileId={}", uploadId, fileEntity.getFileId());
+            return fileEntity;
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new BusinessException(e.getMessage());
+        } catch (IOException e) {
+            log.error("合并分片失败: uploadId={}", uploadId, e);
+            throw new BusinessException("合并分片失败: " + e.getMessage());
+        }
+    }
 
-            return Files.readAllBytes(filePath);
+    @Override
+    public void abortChunkedUpload(String uploadId) {
+        try {
+            chunkedUploadStore.abort(uploadId);
+        } catch (IOException e) {
+            log.error("取消分片上传失败: uploadId={}", uploadId, e);
+            throw new BusinessException("取消分片上传失败: " + e.getMessage());
+        }
+    }
 
+    @Override
+    public byte[] downloadFile(Long fileId, Long userId) {
+        FileEntity fileEntity = openDownload(fileId, userId, true);
+        try {
+            return Files.readAllBytes(Paths.get(fileEntity.getFilePath()));
         } catch (IOException e) {
             log.error("文件下载失败: {}", fileId, e);
             throw new BusinessException("文件下载失败: " + e.getMessage());
         }
     }
 
+    @Override
+    public FileEntity openDownload(Long fileId, Long userId, boolean countDownload) {
+        FileEntity fileEntity = fileDao.selectById(fileId);
+        if (fileEntity == null || fileEntity.getFileStatus() == 1) {
+            throw new BusinessException("文件不存在或已删除");
+        }
+
+        if (!Files.exists(Paths.get(fileEntity.getFilePath()))) {
+            throw new BusinessException("文件物理文件不存在");
+        }
+
+        // 更新下载次数
+        if (countDownload) {
+            fileEntity.setDownloadCount(fileEntity.getDownloadCount() + 1);
+            fileEntity.setLastDownloadTime(LocalDateTime.now());
+            fileDao.updateDownloadCount(fileId, fileEntity.getDownloadCount(), fileEntity.getLastDownloadTime());
+        }
+        return fileEntity;
+    }
+
     @Override
     public FileEntity getFileInfo(Long fileId) {
         return fileDao.selectById(fileId);
@@ -274,21 +383,41 @@ public class FileServiceImpl implements FileService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int cleanExpiredFiles() {
+        int expiredSessions = chunkedUploadStore.cleanExpired(Duration.ofHours(uploadSessionTtlHours));
+        if (expiredSessions > 0) {
+            log.info("清理过期分片上传会话: {}", expiredSessions);
+        }
+
         List<FileEntity> expiredFiles = fileDao.selectExpiredFiles(LocalDateTime.now());
         if (expiredFiles.isEmpty()) {
             return 0;
         }
 
+        try {
+            int recovered = fileStore.recoverTombstones();
+            if (recovered > 0) {
+                log.warn("恢复上次中断清理的文件内容: {}", recovered);
+            }
+        } catch (IOException e) {
+            log.warn("恢复中断清理的文件内容失败", e);
+        }
+
         List<Long> fileIds = new ArrayList<>();
         for (FileEntity file : expiredFiles) {
             fileIds.add(file.getFileId());
-
-            // 删除物理文件
+        }
+        Duration grace = Duration.ofMinutes(gcGraceMinutes);
+        for (FileEntity file : expiredFiles) {
+            // 删除物理文件，内容存储中的文件仍被其他记录引用或宽限期内被上传复用时保留
             try {
                 Path filePath = Paths.get(file.getFilePath());
-                if (Files.exists(filePath)) {
-                    Files.delete(filePath);
+                String sha256 = fileStore.sha256Of(filePath);
+                if (sha256 != null) {
+                    fileStore.deleteIfUnreferenced(sha256, grace,
+                            blob -> isReferenced(file.getFilePath(), fileIds));
+                    continue;
                 }
+                Files.deleteIfExists(filePath);
             } catch (IOException e) {
                 log.warn("删除过期文件失败: {}", file.getFilePath(), e);
             }
@@ -330,4 +459,81 @@ public class FileServiceImpl implements FileService {
         return statistics;
     }
 
-}
\ No newline at end of file
+    /**
+     * 保存文件记录，相同内容的多次上传各自保存一条记录，指向同一存储文件
+     */
+    private FileEntity saveFileRecord(StoredBlob blob, String originalFilename, String contentType,
+                                      String businessModule, String businessId, String fileDescription,
+                                      Long uploadUserId) {
+        String fileExtension = SmartStringUtil.getExtension(originalFilename);
+        String relativePath = Paths.get(uploadPath).toAbsolutePath().normalize().relativize(blob.path())
+                .toString().replace('\\', '/');
+
+        FileEntity fileEntity = new FileEntity();
+        fileEntity.setFileName(blob.sha256());
+        fileEntity.setOriginalFilename(originalFilename);
+        fileEntity.setFilePath(blob.path().toString());
+        fileEntity.setFileSize(blob.size());
+        fileEntity.setFileType(contentType);
+        fileEntity.setFileExtension(fileExtension);
+        fileEntity.setFileMd5(blob.md5());
+        fileEntity.setStorageType("LOCAL");
+        fileEntity.setFileUrl(baseUrl + "/" + relativePath);
+        fileEntity.setUploadUserId(uploadUserId);
+        fileEntity.setBusinessModule(businessModule);
+        fileEntity.setBusinessId(businessId);
+        fileEntity.setFileDescription(fileDescription);
+        fileEntity.setFileStatus(0);
+        fileEntity.setDownloadCount(0);
+        fileEntity.setIsPublic(0);
+
+        fileDao.insert(fileEntity);
+        return fileEntity;
+    }
+
+    /**
+     * 存储文件是否仍被 excludeIds 以外的有效记录引用
+     */
+    private boolean isReferenced(String filePath, List<Long> excludeIds) {
+        LambdaQueryWrapper<FileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(FileEntity::getFilePath, filePath)
+                .eq(FileEntity::getFileStatus, 0)
+                .notIn(FileEntity::getFileId, excludeIds);
+        return fileDao.selectCount(queryWrapper) > 0;
+    }
+
+    /**
+     * 秒传时复用已有记录的MD5，没有记录时读取文件计算
+     */
+    private String md5Of(Path path) throws IOException {
+        LambdaQueryWrapper<FileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(FileEntity::getFileMd5)
+                .eq(FileEntity::getFilePath, path.toString())
+                .last("LIMIT 1");
+        FileEntity existFile = fileDao.selectOne(queryWrapper);
+        if (existFile != null && existFile.getFileMd5() != null) {
+            return existFile.getFileMd5();
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return DigestUtils.md5DigestAsHex(in);
+        }
+    }
+
+    private FileUploadSessionVO toSessionVO(UploadSession session, BitSet received) {
+        FileUploadSessionVO vo = new FileUploadSessionVO();
+        vo.setUploadId(session.uploadId());
+        vo.setFileSize(session.fileSize());
+        vo.setChunkSize(session.chunkSize());
+        vo.setChunkCount(session.chunkCount());
+        vo.setUploadedChunks(received.stream().boxed().toList());
+        vo.setCompleted(false);
+        return vo;
+    }
+
+    private static void putIfNotNull(Map<String, String> map, String key, String value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
+}
@@ -0,0 +1,314 @@
+package net.lab1024.sa.enterprise.file.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 可断点续传的分片上传
+ * <p>
+ * 每个会话对应 {uploadPath}/chunks/{uploadId} 目录：
+ * - session.properties 会话信息
+ * - data.part 按分片偏移直接写入的数据文件，分片可乱序、并发、重复上传
+ * - received.bitmap 已接收分片位图，更新时加文件锁，多实例共享存储目录时同样可用
+ * <p>
+ * 全部分片到齐后合并：读取一遍 data.part 计算摘要并移入 {@link ContentAddressedFileStore}，不再复制数据
+ *
+ * @author 老王
+ * @since 2025-11-30
+ */
+@Slf4j
+@Component
+public class ChunkedUploadStore {
+
+    public static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    public static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("[0-9a-f]{32}");
+
+    private static final String SESSION_FILE = "session.properties";
+
+    private static final String DATA_FILE = "data.part";
+
+    private static final String BITMAP_FILE = "received.bitmap";
+
+    private static final String ATTRIBUTE_PREFIX = "attr.";
+
+    private final ContentAddressedFileStore fileStore;
+
+    private final Path sessionRoot;
+
+    /**
+     * 会话信息不可变，缓存以免每个分片都读取 session.properties；同时作为同一JVM内更新位图的锁对象
+     */
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public ChunkedUploadStore(ContentAddressedFileStore fileStore,
+                              @Value("${file.upload.path:/uploads}") String uploadPath) {
+        this.fileStore = fileStore;
+        this.sessionRoot = Paths.get(uploadPath).toAbsolutePath().normalize().resolve("chunks");
+    }
+
+    /**
+     * 创建上传会话
+     *
+     * @throws IllegalArgumentException 文件大小或分片大小不合法
+     */
+    public UploadSession create(long fileSize, int chunkSize, String sha256, Map<String, String> attributes)
+            throws IOException {
+        if (fileSize <= 0) {
+            throw new IllegalArgumentException("文件大小必须大于0");
+        }
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("分片大小必须在" + MIN_CHUNK_SIZE + "到" + MAX_CHUNK_SIZE + "字节之间");
+        }
+        if ((fileSize + chunkSize - 1) / chunkSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("分片数量过多");
+        }
+        if (sha256 != null) {
+            fileStore.resolve(sha256);
+        }
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        UploadSession session = new UploadSession(uploadId, fileSize, chunkSize, sha256,
+                attributes == null ? Map.of() : Map.copyOf(attributes), System.currentTimeMillis());
+
+        Path directory = sessionRoot.resolve(uploadId);
+        Files.createDirectories(directory);
+        Properties properties = new Properties();
+        properties.setProperty("fileSize", String.valueOf(fileSize));
+        properties.setProperty("chunkSize", String.valueOf(chunkSize));
+        properties.setProperty("createTime", String.valueOf(session.createTime()));
+        if (sha256 != null) {
+            properties.setProperty("sha256", sha256);
+        }
+        session.attributes().forEach((key, value) -> properties.setProperty(ATTRIBUTE_PREFIX + key, value));
+        try (Writer writer = Files.newBufferedWriter(directory.resolve(SESSION_FILE), StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        sessions.put(uploadId, session);
+        return session;
+    }
+
+    /**
+     * 查询会话，不存在时返回null
+     */
+    public UploadSession get(String uploadId) throws IOException {
+        if (uploadId == null || !UPLOAD_ID.matcher(uploadId).matches()) {
+            return null;
+        }
+        UploadSession cached = sessions.get(uploadId);
+        if (cached != null) {
+            return cached;
+        }
+        UploadSession loaded = load(uploadId);
+        return loaded == null ? null : sessions.computeIfAbsent(uploadId, k -> loaded);
+    }
+
+    /**
+     * 写入一个分片，长度必须与会话约定一致；重复上传同一分片会覆盖原数据
+     *
+     * @return 写入后已接收的分片
+     * @throws IllegalArgumentException 会话不存在、分片序号越界或分片长度不符
+     */
+    public BitSet writeChunk(String uploadId, int index, InputStream in) throws IOException {
+        UploadSession session = require(uploadId);
+        if (index < 0 || index >= session.chunkCount()) {
+            throw new IllegalArgumentException("分片序号越界: " + index);
+        }
+        long length = session.chunkLength(index);
+        Path data = sessionRoot.resolve(uploadId).resolve(DATA_FILE);
+        long written;
+        try (FileChannel out = FileChannel.open(data, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            written = ContentAddressedFileStore.copy(Channels.newChannel(in), out, session.chunkOffset(index), length,
+                    null);
+        }
+        if (written != length || in.read() >= 0) {
+            throw new IllegalArgumentException("分片" + index + "长度不正确，应为" + length + "字节");
+        }
+        return markReceived(session, index);
+    }
+
+    /**
+     * 已接收的分片
+     */
+    public BitSet receivedChunks(String uploadId) throws IOException {
+        require(uploadId);
+        Path bitmap = sessionRoot.resolve(uploadId).resolve(BITMAP_FILE);
+        try {
+            return BitSet.valueOf(Files.readAllBytes(bitmap));
+        } catch (NoSuchFileException e) {
+            return new BitSet();
+        }
+    }
+
+    /**
+     * 合并分片并移入内容存储，成功后删除会话
+     *
+     * @throws IllegalStateException    仍有分片未上传
+     * @throws IllegalArgumentException 会话不存在，或内容与声明的SHA-256不一致（此时会话被删除，需要重新上传）
+     */
+    public StoredBlob complete(String uploadId) throws IOException {
+        UploadSession session = require(uploadId);
+        synchronized (session) {
+            BitSet received = receivedChunks(uploadId);
+            int missing = session.chunkCount() - received.cardinality();
+            if (missing > 0) {
+                throw new IllegalStateException("还有" + missing + "个分片未上传");
+            }
+            StoredBlob blob;
+            try {
+                blob = fileStore.putFile(sessionRoot.resolve(uploadId).resolve(DATA_FILE), session.sha256());
+            } catch (IllegalArgumentException e) {
+                delete(uploadId);
+                throw e;
+            }
+            delete(uploadId);
+            return blob;
+        }
+    }
+
+    /**
+     * 取消上传并删除已上传的分片
+     */
+    public void abort(String uploadId) throws IOException {
+        if (get(uploadId) != null) {
+            delete(uploadId);
+        }
+    }
+
+    /**
+     * 删除超过 ttl 没有新分片写入的会话
+     *
+     * @return 删除的会话数
+     */
+    public int cleanExpired(Duration ttl) {
+        if (!Files.isDirectory(sessionRoot)) {
+            return 0;
+        }
+        long deadline = System.currentTimeMillis() - ttl.toMillis();
+        int cleaned = 0;
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(sessionRoot)) {
+            for (Path directory : directories) {
+                String uploadId = directory.getFileName().toString();
+                try {
+                    if (UPLOAD_ID.matcher(uploadId).matches() && lastActivity(directory) < deadline) {
+                        delete(uploadId);
+                        cleaned++;
+                    }
+                } catch (IOException e) {
+                    log.warn("清理过期上传会话失败: {}", uploadId, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("扫描上传会话目录失败: {}", sessionRoot, e);
+        }
+        return cleaned;
+    }
+
+    private UploadSession require(String uploadId) throws IOException {
+        UploadSession session = get(uploadId);
+        if (session == null) {
+            throw new IllegalArgumentException("上传会话不存在或已过期: " + uploadId);
+        }
+        return session;
+    }
+
+    /**
+     * 标记分片已接收；同一JVM内按会话加锁，跨进程用文件锁
+     */
+    private BitSet markReceived(UploadSession session, int index) throws IOException {
+        Path bitmap = sessionRoot.resolve(session.uploadId()).resolve(BITMAP_FILE);
+        synchronized (session) {
+            try (FileChannel channel = FileChannel.open(bitmap, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                BitSet received = BitSet.valueOf(buffer.array());
+                received.set(index);
+                // 位图只增不减，覆盖写入即可
+                ByteBuffer bytes = ByteBuffer.wrap(received.toByteArray());
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes, bytes.position());
+                }
+                return received;
+            }
+        }
+    }
+
+    private UploadSession load(String uploadId) throws IOException {
+        Path file = sessionRoot.resolve(uploadId).resolve(SESSION_FILE);
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        Map<String, String> attributes = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(ATTRIBUTE_PREFIX)) {
+                attributes.put(key.substring(ATTRIBUTE_PREFIX.length()), properties.getProperty(key));
+            }
+        }
+        return new UploadSession(uploadId,
+                Long.parseLong(properties.getProperty("fileSize")),
+                Integer.parseInt(properties.getProperty("chunkSize")),
+                properties.getProperty("sha256"),
+                Map.copyOf(attributes),
+                Long.parseLong(properties.getProperty("createTime")));
+    }
+
+    private void delete(String uploadId) throws IOException {
+        sessions.remove(uploadId);
+        Path directory = sessionRoot.resolve(uploadId);
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static long lastActivity(Path directory) throws IOException {
+        long last = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                last = Math.max(last, Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        return Math.max(last, Files.getLastModifiedTime(directory).toMillis());
+    }
+}
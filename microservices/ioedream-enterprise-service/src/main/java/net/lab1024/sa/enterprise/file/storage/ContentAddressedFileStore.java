@@ -0,0 +1,355 @@
+package net.lab1024.sa.enterprise.file.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * 按内容寻址的本地文件存储
+ * <p>
+ * 文件按内容SHA-256存放在 {uploadPath}/blobs/ab/cd/{sha256}，相同内容只保存一份。
+ * 写入先落到 {uploadPath}/tmp 下的临时文件，边读边计算摘要，完成后原子移动到存储地址，
+ * 并发上传相同内容时不会出现半写文件。
+ * <p>
+ * 复用已有内容与清理并发时的约定（多个实例共享上传目录时同样成立）：
+ * - 复用方先更新内容文件的修改时间，更新失败（文件已被清理方移走）时按新内容写入
+ * - 清理方先把内容文件原子改名为墓碑，再检查修改时间与引用：宽限期内被复用过或仍被引用则改回原名，否则删除；
+ *   改名之后复用方无法再更新原路径，改名之前的复用一定体现在修改时间上
+ * - 进程在改名与删除之间退出留下的墓碑，在下次清理开始时恢复
+ *
+ * @author 老王
+ * @since 2025-11-30
+ */
+@Slf4j
+@Component
+public class ContentAddressedFileStore {
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String TOMBSTONE_SUFFIX = ".gc";
+
+    private final Path blobRoot;
+
+    private final Path tempRoot;
+
+    public ContentAddressedFileStore(@Value("${file.upload.path:/uploads}") String uploadPath) {
+        Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        this.blobRoot = root.resolve("blobs");
+        this.tempRoot = root.resolve("tmp");
+    }
+
+    /**
+     * 保存上传文件
+     * <p>
+     * 容器已落盘的上传文件通过 Part.write 移动到临时目录（同一文件系统时为重命名，不复制数据），再读取一遍计算摘要。
+     * 注意 transferTo(Path) 是流复制，这里使用 transferTo(File)
+     */
+    public StoredBlob put(MultipartFile file) throws IOException {
+        // 部分容器实现在目标文件已存在时无法移动，这里只生成路径
+        Files.createDirectories(tempRoot);
+        Path temp = tempRoot.resolve("upload-" + UUID.randomUUID() + ".tmp");
+        try {
+            file.transferTo(temp.toFile());
+            Digests digests = new Digests();
+            long size = digests.update(temp);
+            return commit(temp, digests, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 保存输入流，复制的同时计算摘要，数据只经过一次
+     */
+    public StoredBlob put(InputStream in) throws IOException {
+        Path temp = createTempFile();
+        try {
+            Digests digests = new Digests();
+            long size;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                size = copy(Channels.newChannel(in), out, 0, Long.MAX_VALUE, digests);
+            }
+            return commit(temp, digests, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 将已写好的文件计算摘要后移入存储，成功后源文件被移动或删除；IO异常时保留源文件以便重试
+     *
+     * @param expectedSha256 期望的内容SHA-256，为空时不校验
+     * @throws IllegalArgumentException 内容与期望摘要不一致，此时源文件被删除
+     */
+    public StoredBlob putFile(Path source, String expectedSha256) throws IOException {
+        Digests digests = new Digests();
+        long size = digests.update(source);
+        String sha256 = digests.sha256();
+        if (expectedSha256 != null && !expectedSha256.equals(sha256)) {
+            Files.deleteIfExists(source);
+            throw new IllegalArgumentException("文件内容校验失败，期望" + expectedSha256 + "，实际" + sha256);
+        }
+        StoredBlob blob = commit(source, sha256, digests.md5(), size);
+        Files.deleteIfExists(source);
+        return blob;
+    }
+
+    /**
+     * 摘要已知时直接移入存储，source 必须与摘要对应
+     */
+    private StoredBlob commit(Path source, Digests digests, long size) throws IOException {
+        return commit(source, digests.sha256(), digests.md5(), size);
+    }
+
+    private StoredBlob commit(Path source, String sha256, String md5, long size) throws IOException {
+        Path target = resolve(sha256);
+        if (touch(target)) {
+            return new StoredBlob(sha256, md5, size, target, true);
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            touch(target);
+            return new StoredBlob(sha256, md5, size, target, true);
+        }
+        log.debug("文件内容已存储: sha256={}, size={}", sha256, size);
+        return new StoredBlob(sha256, md5, size, target, false);
+    }
+
+    /**
+     * 内容存储路径
+     *
+     * @throws IllegalArgumentException sha256 格式错误
+     */
+    public Path resolve(String sha256) {
+        if (sha256 == null || !SHA256.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("无效的内容摘要: " + sha256);
+        }
+        return blobRoot.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    public boolean exists(String sha256) {
+        return Files.exists(resolve(sha256));
+    }
+
+    /**
+     * 准备复用已有内容：存在时更新修改时间，使宽限期内的清理保留该内容
+     *
+     * @return 内容是否存在
+     */
+    public boolean retain(String sha256) throws IOException {
+        return touch(resolve(sha256));
+    }
+
+    /**
+     * 清理不再被引用的内容
+     * <p>
+     * 先改名为墓碑再判断，宽限期内被复用过（修改时间较新）或 referenced 返回true时恢复
+     *
+     * @param grace      宽限期，需大于上传从复用内容到文件记录提交的最长耗时
+     * @param referenced 内容路径是否仍被有效文件记录引用
+     * @return 是否已删除
+     */
+    public boolean deleteIfUnreferenced(String sha256, Duration grace, Predicate<Path> referenced)
+            throws IOException {
+        Path target = resolve(sha256);
+        Files.createDirectories(tempRoot);
+        // 墓碑名带随机后缀，多个清理方处理同一内容时互不覆盖
+        Path tombstone = tempRoot.resolve(sha256 + "." + UUID.randomUUID() + TOMBSTONE_SUFFIX);
+        try {
+            Files.move(target, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        long retainedAt = Files.getLastModifiedTime(tombstone).toMillis();
+        if (System.currentTimeMillis() - retainedAt < grace.toMillis() || referenced.test(target)) {
+            restore(tombstone, target);
+            return false;
+        }
+        Files.deleteIfExists(tombstone);
+        log.debug("文件内容已清理: sha256={}", sha256);
+        return true;
+    }
+
+    /**
+     * 恢复上次清理中断留下的墓碑
+     *
+     * @return 恢复的个数
+     */
+    public int recoverTombstones() throws IOException {
+        if (!Files.isDirectory(tempRoot)) {
+            return 0;
+        }
+        int recovered = 0;
+        try (DirectoryStream<Path> tombstones = Files.newDirectoryStream(tempRoot, "*" + TOMBSTONE_SUFFIX)) {
+            for (Path tombstone : tombstones) {
+                String name = tombstone.getFileName().toString();
+                int end = name.indexOf('.');
+                String sha256 = end < 0 ? name : name.substring(0, end);
+                if (SHA256.matcher(sha256).matches()) {
+                    restore(tombstone, resolve(sha256));
+                    recovered++;
+                }
+            }
+        }
+        return recovered;
+    }
+
+    private void restore(Path tombstone, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(tombstone, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // 清理期间已有上传重新写入相同内容
+            Files.deleteIfExists(tombstone);
+        }
+    }
+
+    /**
+     * 更新修改时间
+     *
+     * @return 文件是否存在
+     */
+    private static boolean touch(Path path) throws IOException {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 路径是否位于内容存储目录下
+     */
+    public boolean isBlob(Path path) {
+        return path.toAbsolutePath().normalize().startsWith(blobRoot);
+    }
+
+    /**
+     * 由存储路径得到内容SHA-256，不在存储目录下时返回null
+     */
+    public String sha256Of(Path path) {
+        if (!isBlob(path)) {
+            return null;
+        }
+        String name = path.getFileName().toString();
+        return SHA256.matcher(name).matches() ? name : null;
+    }
+
+    /**
+     * 在临时目录创建空文件，与存储目录位于同一文件系统，保证移动是原子的
+     */
+    Path createTempFile() throws IOException {
+        Files.createDirectories(tempRoot);
+        return Files.createTempFile(tempRoot, "upload-", ".tmp");
+    }
+
+    /**
+     * 从 in 读取最多 limit 字节写入 out 的 position 处，同时更新摘要
+     *
+     * @param digests 可为空
+     * @return 复制的字节数
+     */
+    static long copy(ReadableByteChannel in, FileChannel out, long position, long limit, Digests digests)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long copied = 0;
+        while (copied < limit) {
+            buffer.clear();
+            if (limit - copied < buffer.capacity()) {
+                buffer.limit((int) (limit - copied));
+            }
+            int n = in.read(buffer);
+            if (n < 0) {
+                break;
+            }
+            if (digests != null) {
+                digests.update(buffer.array(), 0, n);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                copied += out.write(buffer, position + copied);
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * 同时计算SHA-256与MD5
+     */
+    static final class Digests {
+
+        private final MessageDigest sha256;
+
+        private final MessageDigest md5;
+
+        Digests() {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+                md5 = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void update(byte[] bytes, int offset, int length) {
+            sha256.update(bytes, offset, length);
+            md5.update(bytes, offset, length);
+        }
+
+        /**
+         * 顺序读取文件更新摘要
+         *
+         * @return 文件字节数
+         */
+        long update(Path file) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long size = 0;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                int n;
+                while ((n = channel.read(buffer)) >= 0) {
+                    update(buffer.array(), 0, n);
+                    size += n;
+                    buffer.clear();
+                }
+            }
+            return size;
+        }
+
+        String sha256() {
+            return HexFormat.of().formatHex(sha256.digest());
+        }
+
+        String md5() {
+            return HexFormat.of().formatHex(md5.digest());
+        }
+    }
+}
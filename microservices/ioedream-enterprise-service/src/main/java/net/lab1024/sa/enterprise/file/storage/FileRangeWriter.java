@@ -0,0 +1,155 @@
+package net.lab1024.sa.enterprise.file.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 文件下载输出，支持 HTTP Range 断点续传
+ * <p>
+ * - 支持单个字节区间（bytes=a-b / bytes=a- / bytes=-n），多个区间时按 RFC 7233 返回完整内容
+ * - If-Range 与 ETag 不一致时忽略 Range，避免续传拼接到已变化的文件
+ * - 容器支持 sendfile（Tomcat NIO 默认开启）时交给容器零拷贝发送，否则通过 FileChannel.transferTo 分段写出，不把文件读入堆内存
+ * <p>
+ * 经过会缓存或改写响应体的过滤器时，需配置 file.download.sendfile=false
+ *
+ * @author 老王
+ * @since 2025-11-30
+ */
+@Component
+public class FileRangeWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String BYTES_PREFIX = "bytes=";
+
+    @Value("${file.download.sendfile:true}")
+    private boolean sendfileEnabled = true;
+
+    /**
+     * 是否从文件开头下载（无 Range 或 Range 从0开始），用于只对一次完整下载计数
+     */
+    public static boolean isInitialRequest(HttpServletRequest request) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        return range == null || range.startsWith(BYTES_PREFIX + "0-");
+    }
+
+    /**
+     * 输出文件内容
+     *
+     * @param etag 内容标识（如MD5），可为空
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, Path file, String fileName,
+                      String contentType, String etag) throws IOException {
+        long size = Files.size(file);
+        String quotedEtag = etag == null ? null : "\"" + etag + "\"";
+        long[] range = null;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null || ifRange.equals(quotedEtag)) {
+            try {
+                range = parseRange(request.getHeader(HttpHeaders.RANGE), size);
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+        }
+        long start = range == null ? 0 : range[0];
+        long end = range == null ? size - 1 : range[1];
+        long length = end - start + 1;
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (quotedEtag != null) {
+            response.setHeader(HttpHeaders.ETAG, quotedEtag);
+        }
+        response.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        response.setContentLengthLong(length);
+        if (length == 0 || "HEAD".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+
+        if (sendfileEnabled && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    throw new IOException("文件在下载过程中被截断: " + file);
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * 解析单个字节区间
+     *
+     * @return [起始, 结束]（均包含），无 Range、格式无法识别或包含多个区间时返回null
+     * @throws IllegalArgumentException 区间无法满足（起始位置超出文件大小）
+     */
+    static long[] parseRange(String header, long size) {
+        if (header == null || !header.startsWith(BYTES_PREFIX)) {
+            return null;
+        }
+        String spec = header.substring(BYTES_PREFIX.length()).trim();
+        int dash = spec.indexOf('-');
+        if (spec.indexOf(',') >= 0 || dash < 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    throw new IllegalArgumentException("区间无法满足: " + header);
+                }
+                return new long[] {Math.max(0, size - suffix), size - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Long.parseLong(last);
+            if (start < 0 || (!last.isEmpty() && end < start)) {
+                return null;
+            }
+            if (start >= size) {
+                throw new IllegalArgumentException("区间无法满足: " + header);
+            }
+            return new long[] {start, Math.min(end, size - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
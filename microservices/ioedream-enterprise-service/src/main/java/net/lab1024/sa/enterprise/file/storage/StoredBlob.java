@@ -0,0 +1,17 @@
+package net.lab1024.sa.enterprise.file.storage;
+
+import java.nio.file.Path;
+
+/**
+ * 已存储的文件内容
+ *
+ * @param sha256       内容SHA-256（十六进制），即存储地址
+ * @param md5          内容MD5（十六进制）
+ * @param size         字节数
+ * @param path         存储路径
+ * @param deduplicated 相同内容已存在，本次未写入新文件
+ * @author 老王
+ * @since 2025-11-30
+ */
+public record StoredBlob(String sha256, String md5, long size, Path path, boolean deduplicated) {
+}
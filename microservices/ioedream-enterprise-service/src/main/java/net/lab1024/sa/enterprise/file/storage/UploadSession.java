@@ -0,0 +1,31 @@
+package net.lab1024.sa.enterprise.file.storage;
+
+import java.util.Map;
+
+/**
+ * 分片上传会话
+ *
+ * @param uploadId   会话ID
+ * @param fileSize   文件总字节数
+ * @param chunkSize  分片字节数，最后一片可以更小
+ * @param sha256     客户端声明的内容SHA-256，合并时校验，可为空
+ * @param attributes 业务属性（文件名、业务模块等），合并完成后由调用方使用
+ * @param createTime 创建时间（毫秒）
+ * @author 老王
+ * @since 2025-11-30
+ */
+public record UploadSession(String uploadId, long fileSize, int chunkSize, String sha256,
+                            Map<String, String> attributes, long createTime) {
+
+    public int chunkCount() {
+        return (int) ((fileSize + chunkSize - 1) / chunkSize);
+    }
+
+    public long chunkOffset(int index) {
+        return (long) index * chunkSize;
+    }
+
+    public long chunkLength(int index) {
+        return Math.min(chunkSize, fileSize - chunkOffset(index));
+    }
+}
@@ -0,0 +1,155 @@
+package net.lab1024.sa.enterprise.file.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分片上传合并测试
+ *
+ * @author 老王
+ * @since 2025-11-30
+ */
+public class ChunkedUploadStoreTest {
+
+    private static final int CHUNK_SIZE = ChunkedUploadStore.MIN_CHUNK_SIZE;
+
+    @TempDir
+    Path uploadPath;
+
+    private ContentAddressedFileStore fileStore;
+
+    private ChunkedUploadStore chunkedUploadStore;
+
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() {
+        fileStore = new ContentAddressedFileStore(uploadPath.toString());
+        chunkedUploadStore = new ChunkedUploadStore(fileStore, uploadPath.toString());
+        content = new byte[CHUNK_SIZE * 2 + 100];
+        new Random(42).nextBytes(content);
+    }
+
+    @Test
+    @DisplayName("分片乱序、重复上传后合并为原文件")
+    void testOutOfOrderChunks() throws Exception {
+        UploadSession session = chunkedUploadStore.create(content.length, CHUNK_SIZE, sha256(content), Map.of());
+        assertEquals(3, session.chunkCount());
+
+        writeChunk(session, 2);
+        writeChunk(session, 0);
+        writeChunk(session, 0);
+        assertThrows(IllegalStateException.class, () -> chunkedUploadStore.complete(session.uploadId()));
+        assertEquals(2, chunkedUploadStore.receivedChunks(session.uploadId()).cardinality());
+
+        writeChunk(session, 1);
+        StoredBlob blob = chunkedUploadStore.complete(session.uploadId());
+
+        assertEquals(sha256(content), blob.sha256());
+        assertEquals(content.length, blob.size());
+        assertFalse(blob.deduplicated());
+        assertArrayEquals(content, Files.readAllBytes(blob.path()));
+        assertNull(chunkedUploadStore.get(session.uploadId()));
+    }
+
+    @Test
+    @DisplayName("相同内容再次上传时复用已有内容")
+    void testDeduplicated() throws Exception {
+        StoredBlob first = upload(sha256(content));
+        StoredBlob second = upload(null);
+
+        assertTrue(second.deduplicated());
+        assertEquals(first.path(), second.path());
+        assertArrayEquals(content, Files.readAllBytes(second.path()));
+    }
+
+    @Test
+    @DisplayName("分片长度不符或序号越界时拒绝")
+    void testInvalidChunk() throws Exception {
+        UploadSession session = chunkedUploadStore.create(content.length, CHUNK_SIZE, null, Map.of());
+
+        assertThrows(IllegalArgumentException.class, () -> chunkedUploadStore.writeChunk(session.uploadId(), 0,
+                new ByteArrayInputStream(content, 0, CHUNK_SIZE - 1)));
+        assertThrows(IllegalArgumentException.class, () -> chunkedUploadStore.writeChunk(session.uploadId(), 2,
+                new ByteArrayInputStream(content, 0, CHUNK_SIZE)));
+        assertThrows(IllegalArgumentException.class, () -> chunkedUploadStore.writeChunk(session.uploadId(), 3,
+                new ByteArrayInputStream(content, 0, 100)));
+        assertTrue(chunkedUploadStore.receivedChunks(session.uploadId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("内容与声明的SHA-256不一致时删除会话")
+    void testChecksumMismatch() throws Exception {
+        byte[] other = Arrays.copyOf(content, content.length);
+        other[0] ^= 1;
+        UploadSession session = chunkedUploadStore.create(content.length, CHUNK_SIZE, sha256(other), Map.of());
+        for (int i = 0; i < session.chunkCount(); i++) {
+            writeChunk(session, i);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> chunkedUploadStore.complete(session.uploadId()));
+        assertNull(chunkedUploadStore.get(session.uploadId()));
+        assertFalse(fileStore.exists(sha256(content)));
+    }
+
+    @Test
+    @DisplayName("清理时保留宽限期内复用或仍被引用的内容")
+    void testDeleteIfUnreferenced() throws Exception {
+        StoredBlob blob = upload(null);
+        String sha256 = blob.sha256();
+
+        assertFalse(fileStore.deleteIfUnreferenced(sha256, Duration.ofHours(1), path -> false));
+        assertTrue(fileStore.exists(sha256));
+
+        assertFalse(fileStore.deleteIfUnreferenced(sha256, Duration.ZERO, path -> true));
+        assertTrue(fileStore.exists(sha256));
+
+        assertTrue(fileStore.deleteIfUnreferenced(sha256, Duration.ZERO, path -> false));
+        assertFalse(fileStore.exists(sha256));
+        assertFalse(fileStore.retain(sha256));
+    }
+
+    @Test
+    @DisplayName("恢复清理中断留下的墓碑")
+    void testRecoverTombstones() throws Exception {
+        StoredBlob blob = upload(null);
+        Path tombstone = uploadPath.resolve("tmp").resolve(blob.sha256() + ".interrupted.gc");
+        Files.move(blob.path(), tombstone);
+
+        assertEquals(1, fileStore.recoverTombstones());
+        assertFalse(Files.exists(tombstone));
+        assertArrayEquals(content, Files.readAllBytes(blob.path()));
+    }
+
+    private StoredBlob upload(String sha256) throws Exception {
+        UploadSession session = chunkedUploadStore.create(content.length, CHUNK_SIZE, sha256, Map.of());
+        for (int i = 0; i < session.chunkCount(); i++) {
+            writeChunk(session, i);
+        }
+        return chunkedUploadStore.complete(session.uploadId());
+    }
+
+    private void writeChunk(UploadSession session, int index) throws Exception {
+        int offset = (int) session.chunkOffset(index);
+        int length = (int) session.chunkLength(index);
+        chunkedUploadStore.writeChunk(session.uploadId(), index, new ByteArrayInputStream(content, offset, length));
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
@@ -0,0 +1,60 @@
+package net.lab1024.sa.enterprise.file.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Range 请求头解析测试
+ *
+ * @author 老王
+ * @since 2025-11-30
+ */
+public class FileRangeWriterTest {
+
+    private static final long SIZE = 1000;
+
+    @Test
+    @DisplayName("闭区间，结束位置超出文件大小时截断")
+    void testClosedRange() {
+        assertArrayEquals(new long[] {0, 499}, FileRangeWriter.parseRange("bytes=0-499", SIZE));
+        assertArrayEquals(new long[] {500, 999}, FileRangeWriter.parseRange("bytes=500-5000", SIZE));
+        assertArrayEquals(new long[] {10, 10}, FileRangeWriter.parseRange("bytes= 10 - 10 ", SIZE));
+    }
+
+    @Test
+    @DisplayName("开放区间到文件末尾")
+    void testOpenEndedRange() {
+        assertArrayEquals(new long[] {100, 999}, FileRangeWriter.parseRange("bytes=100-", SIZE));
+        assertArrayEquals(new long[] {999, 999}, FileRangeWriter.parseRange("bytes=999-", SIZE));
+    }
+
+    @Test
+    @DisplayName("后缀区间取最后n字节，n超过文件大小时返回整个文件")
+    void testSuffixRange() {
+        assertArrayEquals(new long[] {900, 999}, FileRangeWriter.parseRange("bytes=-100", SIZE));
+        assertArrayEquals(new long[] {0, 999}, FileRangeWriter.parseRange("bytes=-5000", SIZE));
+    }
+
+    @Test
+    @DisplayName("无法识别或多个区间时忽略 Range")
+    void testIgnoredRange() {
+        assertNull(FileRangeWriter.parseRange(null, SIZE));
+        assertNull(FileRangeWriter.parseRange("items=0-10", SIZE));
+        assertNull(FileRangeWriter.parseRange("bytes=10", SIZE));
+        assertNull(FileRangeWriter.parseRange("bytes=a-b", SIZE));
+        assertNull(FileRangeWriter.parseRange("bytes=20-10", SIZE));
+        assertNull(FileRangeWriter.parseRange("bytes=0-10,20-30", SIZE));
+        assertNull(FileRangeWriter.parseRange("bytes=-", SIZE));
+    }
+
+    @Test
+    @DisplayName("区间无法满足时抛出异常")
+    void testUnsatisfiableRange() {
+        assertThrows(IllegalArgumentException.class, () -> FileRangeWriter.parseRange("bytes=1000-", SIZE));
+        assertThrows(IllegalArgumentException.class, () -> FileRangeWriter.parseRange("bytes=2000-3000", SIZE));
+        assertThrows(IllegalArgumentException.class, () -> FileRangeWriter.parseRange("bytes=-0", SIZE));
+        assertThrows(IllegalArgumentException.class, () -> FileRangeWriter.parseRange("bytes=-10", 0));
+    }
+}
@@ -7,10 +7,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.common.workflow.ConditionExpression;
+import net.lab1024.sa.common.workflow.WorkflowTaskIndex;
 
 /**
  * 工作流引擎
@@ -212,7 +215,7 @@ public class WorkflowEngine {
      * 工作流任务
      */
     @Data
-    public static class WorkflowTask {
+    public static class WorkflowTask implements WorkflowTaskIndex.IndexedTask {
         private String taskId;
         private String instanceId;
         private String nodeId;
@@ -231,6 +234,7 @@ public class WorkflowEngine {
         private Map<String, Object> outputData;
         private List<String> attachments;
         private Integer retryCount;
+        private List<String> candidateGroups; // 候选组，组内成员均可处理
     }
 
     /**
@@ -268,12 +272,32 @@ public class WorkflowEngine {
         private Long executionTimeMs;
     }
 
+    /**
+     * 已编译的转换：条件在定义加载时编译，语法错误的条件记录日志并视为不满足
+     */
+    @Data
+    public static class CompiledTransition {
+        private final WorkflowTransition transition;
+        private final ConditionExpression condition; // 为null表示无条件
+        private final boolean invalid;
+    }
+
     /**
      * 工作流存储（模拟）
      */
     private Map<Long, WorkflowDefinition> workflowDefinitions = new ConcurrentHashMap<>();
     private Map<String, WorkflowInstance> workflowInstances = new ConcurrentHashMap<>();
-    private Map<String, List<WorkflowTask>> taskStorage = new ConcurrentHashMap<>();
+    private WorkflowTaskIndex<WorkflowTask> taskIndex = new WorkflowTaskIndex<>();
+
+    /**
+     * 实例、任务ID序号，任务按ID全局索引，同一毫秒内创建的ID不能重复
+     */
+    private AtomicLong idSequence = new AtomicLong();
+
+    /**
+     * 按工作流、起始节点分组的已编译转换，定义加载时构建
+     */
+    private Map<Long, Map<String, List<CompiledTransition>>> compiledTransitions = new ConcurrentHashMap<>();
 
     /**
      * 统计信息
@@ -298,23 +322,52 @@ public class WorkflowEngine {
     private void loadWorkflowDefinitions() {
         // 文档审批工作流
         WorkflowDefinition documentApprovalWorkflow = createDocumentApprovalWorkflow();
-        workflowDefinitions.put(documentApprovalWorkflow.getWorkflowId(), documentApprovalWorkflow);
+        registerWorkflowDefinition(documentApprovalWorkflow);
 
         // 请假申请工作流
         WorkflowDefinition leaveApplicationWorkflow = createLeaveApplicationWorkflow();
-        workflowDefinitions.put(leaveApplicationWorkflow.getWorkflowId(), leaveApplicationWorkflow);
+        registerWorkflowDefinition(leaveApplicationWorkflow);
 
         // 费用报销工作流
         WorkflowDefinition expenseReimbursementWorkflow = createExpenseReimbursementWorkflow();
-        workflowDefinitions.put(expenseReimbursementWorkflow.getWorkflowId(), expenseReimbursementWorkflow);
+        registerWorkflowDefinition(expenseReimbursementWorkflow);
 
         // 合同审批工作流
         WorkflowDefinition contractApprovalWorkflow = createContractApprovalWorkflow();
-        workflowDefinitions.put(contractApprovalWorkflow.getWorkflowId(), contractApprovalWorkflow);
+        registerWorkflowDefinition(contractApprovalWorkflow);
 
         log.debug("加载了{}个工作流定义", workflowDefinitions.size());
     }
 
+    /**
+     * 注册工作流定义：转换按起始节点分组，条件编译为语法树
+     */
+    public void registerWorkflowDefinition(WorkflowDefinition workflowDefinition) {
+        Map<String, List<CompiledTransition>> byFromNode = new HashMap<>();
+        if (workflowDefinition.getTransitions() != null) {
+            for (WorkflowTransition transition : workflowDefinition.getTransitions()) {
+                byFromNode.computeIfAbsent(transition.getFromNodeId(), k -> new ArrayList<>())
+                        .add(compileTransition(workflowDefinition, transition));
+            }
+        }
+        compiledTransitions.put(workflowDefinition.getWorkflowId(), byFromNode);
+        workflowDefinitions.put(workflowDefinition.getWorkflowId(), workflowDefinition);
+    }
+
+    private CompiledTransition compileTransition(WorkflowDefinition workflowDefinition, WorkflowTransition transition) {
+        String condition = transition.getCondition();
+        if (condition == null || condition.trim().isEmpty()) {
+            return new CompiledTransition(transition, null, false);
+        }
+        try {
+            return new CompiledTransition(transition, ConditionExpression.compile(condition), false);
+        } catch (IllegalArgumentException e) {
+            log.error("转换条件编译失败：工作流={}, 转换={}, 条件={}", workflowDefinition.getWorkflowCode(),
+                    transition.getLabel(), condition, e);
+            return new CompiledTransition(transition, null, true);
+        }
+    }
+
     /**
      * 创建文档审批工作流
      */
@@ -743,7 +796,7 @@ public class WorkflowEngine {
         }
 
         WorkflowInstance instance = new WorkflowInstance();
-        instance.setInstanceId("INST_" + System.currentTimeMillis() + "_" + (int) (Math.random() * 1000));
+        instance.setInstanceId("INST_" + System.currentTimeMillis() + "_" + idSequence.incrementAndGet());
         instance.setWorkflowId(workflowId);
         instance.setWorkflowName(workflowDefinition.getWorkflowName());
         instance.setWorkflowType(workflowDefinition.getWorkflowType());
@@ -768,6 +821,13 @@ public class WorkflowEngine {
         // 存储实例
         workflowInstances.put(instance.getInstanceId(), instance);
 
+        // 开始节点不生成任务，直接流转到第一个处理节点
+        String firstNodeId = findNextNode(workflowDefinition, instance.getCurrentNodeId(), new ApprovalAction(),
+                instance);
+        if (firstNodeId != null) {
+            instance.setCurrentNodeId(firstNodeId);
+        }
+
         // 创建开始任务
         createTaskForNode(instance, instance.getCurrentNodeId());
 
@@ -809,7 +869,7 @@ public class WorkflowEngine {
         }
 
         WorkflowTask task = new WorkflowTask();
-        task.setTaskId("TASK_" + System.currentTimeMillis() + "_" + nodeId + "_" + (int) (Math.random() * 1000));
+        task.setTaskId("TASK_" + System.currentTimeMillis() + "_" + nodeId + "_" + idSequence.incrementAndGet());
         task.setInstanceId(instance.getInstanceId());
         task.setNodeId(nodeId);
         task.setTaskName(node.getNodeName());
@@ -830,12 +890,16 @@ public class WorkflowEngine {
             task.setAssigneeName(instance.getInitiatorName());
         }
 
+        if (node.getAssignedTo() != null && !node.getAssignedTo().trim().isEmpty()) {
+            task.setCandidateGroups(Arrays.asList(node.getAssignedTo().trim()));
+        }
+
         task.setCreateTime(LocalDateTime.now());
         task.setTimeoutMinutes(node.getTimeoutMinutes());
         task.setRetryCount(0);
 
         // 存储任务
-        taskStorage.computeIfAbsent(instance.getInstanceId(), k -> new ArrayList<>()).add(task);
+        taskIndex.add(task);
 
         log.debug("为节点创建任务：实例ID={}, 节点ID={}, 任务ID={}",
                 instance.getInstanceId(), nodeId, task.getTaskId());
@@ -915,9 +979,16 @@ public class WorkflowEngine {
                 task.setCompleteTime(LocalDateTime.now());
             }
 
+            taskIndex.update(task);
+
             // 添加到已完成任务
             result.getCompletedTasks().add(task.getTaskId());
 
+            // 更新实例变量，本次提交的数据参与转换条件判断
+            if (action.getData() != null) {
+                instance.getVariables().putAll(action.getData());
+            }
+
             // 获取下一个节点
             String nextNodeId = findNextNode(workflowDefinition, task.getNodeId(), action, instance);
 
@@ -930,7 +1001,7 @@ public class WorkflowEngine {
                 createTaskForNode(instance, nextNodeId);
 
                 // 添加到待处理任务
-                List<WorkflowTask> nextNodeTasks = taskStorage.get(instance.getInstanceId()).stream()
+                List<WorkflowTask> nextNodeTasks = taskIndex.getInstanceTasks(instance.getInstanceId()).stream()
                         .filter(t -> nextNodeId.equals(t.getNodeId()))
                         .collect(Collectors.toList());
                 result.getPendingTasks()
@@ -948,11 +1019,6 @@ public class WorkflowEngine {
                 sendWorkflowNotification(instance, "WORKFLOW_COMPLETED", "工作流已完成");
             }
 
-            // 更新实例变量
-            if (action.getData() != null) {
-                instance.getVariables().putAll(action.getData());
-            }
-
             // 添加审批记录到实例
             if (instance.getComments() == null) {
                 instance.setComments(new ArrayList<>());
@@ -983,70 +1049,57 @@ public class WorkflowEngine {
      * 查找任务
      */
     private WorkflowTask findTaskById(String instanceId, String taskId) {
-        List<WorkflowTask> tasks = taskStorage.get(instanceId);
-        if (tasks == null) {
-            return null;
-        }
-
-        return tasks.stream()
-                .filter(task -> taskId.equals(task.getTaskId()))
-                .findFirst()
-                .orElse(null);
+        return taskIndex.get(instanceId, taskId);
     }
 
     /**
      * 查找下一个节点
+     * <p>
+     * 按定义顺序取第一个条件满足的有条件转换，其次取第一个无条件转换，都没有时取默认转换
      */
     private String findNextNode(WorkflowDefinition workflowDefinition, String currentNodeId, ApprovalAction action,
             WorkflowInstance instance) {
-        WorkflowNode currentNode = findNodeById(workflowDefinition, currentNodeId);
-        if (currentNode == null) {
+        Map<String, List<CompiledTransition>> byFromNode = compiledTransitions.get(workflowDefinition.getWorkflowId());
+        List<CompiledTransition> transitions = byFromNode != null ? byFromNode.get(currentNodeId) : null;
+        if (transitions == null) {
             return null;
         }
 
-        // 查找从当前节点出发的转换
-        List<WorkflowTransition> transitions = workflowDefinition.getTransitions().stream()
-                .filter(transition -> transition.getFromNodeId().equals(instance.getCurrentNodeId()))
-                .collect(Collectors.toList());
-
-        for (WorkflowTransition transition : transitions) {
-            // 检查转换条件
-            if (evaluateCondition(transition.getCondition(), instance)) {
-                // 检查审批动作
-                if (evaluateApprovalAction(transition.getAction(), action)) {
-                    return transition.getToNodeId();
+        CompiledTransition unconditional = null;
+        CompiledTransition fallback = null;
+        for (CompiledTransition compiled : transitions) {
+            WorkflowTransition transition = compiled.getTransition();
+            if (fallback == null && Boolean.TRUE.equals(transition.getIsDefault())) {
+                fallback = compiled;
+            }
+            if (!evaluateApprovalAction(transition.getAction(), action)) {
+                continue;
+            }
+            if (compiled.getCondition() == null) {
+                if (unconditional == null && !compiled.isInvalid()) {
+                    unconditional = compiled;
                 }
-            } else if (transition.getIsDefault()) {
+            } else if (evaluateCondition(compiled, instance)) {
                 return transition.getToNodeId();
             }
         }
-
-        return null;
+        if (unconditional != null) {
+            return unconditional.getTransition().getToNodeId();
+        }
+        return fallback != null ? fallback.getTransition().getToNodeId() : null;
     }
 
     /**
      * 评估转换条件
      */
-    private boolean evaluateCondition(String condition, WorkflowInstance instance) {
-        if (condition == null || condition.trim().isEmpty()) {
-            return true;
+    private boolean evaluateCondition(CompiledTransition compiled, WorkflowInstance instance) {
+        if (compiled.isInvalid()) {
+            return false;
         }
-
-        // 简化的条件评估逻辑
-        // 实际应该使用表达式引擎
         try {
-            // 替换变量占位符
-            String evaluatedCondition = condition;
-            for (Map.Entry<String, Object> entry : instance.getVariables().entrySet()) {
-                evaluatedCondition = evaluatedCondition.replace("${" + entry.getKey() + "}",
-                        entry.getValue().toString());
-            }
-
-            // 简单的条件评估
-            return evaluateSimpleCondition(evaluatedCondition);
-
+            return compiled.getCondition().evaluate(instance.getVariables());
         } catch (Exception e) {
-            log.error("条件评估失败：{}", condition, e);
+            log.error("条件评估失败：{}", compiled.getCondition(), e);
             return false;
         }
     }
@@ -1072,60 +1125,6 @@ public class WorkflowEngine {
         return true;
     }
 
-    /**
-     * 简单条件评估
-     */
-    private boolean evaluateSimpleCondition(String condition) {
-        // 这里应该使用真正的表达式引擎
-        // 为了简化，只做一些基本的模式匹配
-
-        // 处理大于比较
-        if (condition.contains(">")) {
-            String[] parts = condition.split(">");
-            if (parts.length == 2) {
-                try {
-                    double left = Double.parseDouble(parts[0].trim());
-                    double right = Double.parseDouble(parts[1].trim());
-                    return left > right;
-                } catch (NumberFormatException e) {
-                    return false;
-                }
-            }
-        }
-
-        // 处理小于比较
-        if (condition.contains("<")) {
-            String[] parts = condition.split("<");
-            if (parts.length == 2) {
-                try {
-                    double left = Double.parseDouble(parts[0].trim());
-                    double right = Double.parseDouble(parts[1].trim());
-                    return left < right;
-                } catch (NumberFormatException e) {
-                    return false;
-                }
-            }
-        }
-
-        // 处理等于比较
-        if (condition.contains("==")) {
-            String[] parts = condition.split("==");
-            if (parts.length == 2) {
-                return parts[0].trim().equals(parts[1].trim());
-            }
-        }
-
-        // 处理不等于比较
-        if (condition.contains("!=")) {
-            String[] parts = condition.split("!=");
-            if (parts.length == 2) {
-                return !parts[0].trim().equals(parts[1].trim());
-            }
-        }
-
-        return true;
-    }
-
     /**
      * 发送工作流通知
      */
@@ -1163,10 +1162,17 @@ public class WorkflowEngine {
      * @return 任务列表
      */
     public List<WorkflowTask> getUserTasks(String userId) {
-        return taskStorage.values().stream()
-                .flatMap(List::stream)
-                .filter(task -> userId.equals(task.getAssigneeId()))
-                .collect(Collectors.toList());
+        return taskIndex.getAssignedTasks(userId);
+    }
+
+    /**
+     * 获取候选组内待处理的任务
+     *
+     * @param groups 用户所在的候选组（与节点assignedTo一致）
+     * @return 任务列表
+     */
+    public List<WorkflowTask> getCandidateTasks(List<String> groups) {
+        return taskIndex.getCandidateTasks(groups);
     }
 
     /**
@@ -1190,7 +1196,7 @@ public class WorkflowEngine {
         Map<String, Object> stats = new HashMap<>(statistics);
         stats.put("totalWorkflows", workflowDefinitions.size());
         stats.put("totalInstances", workflowInstances.size());
-        stats.put("totalTasks", taskStorage.values().stream().mapToInt(List::size).sum());
+        stats.put("totalTasks", taskIndex.size());
         stats.put("activeInstances", workflowInstances.values().stream()
                 .filter(instance -> WorkflowStatus.ACTIVE.equals(instance.getStatus())).count());
         stats.put("completedInstances", workflowInstances.values().stream()
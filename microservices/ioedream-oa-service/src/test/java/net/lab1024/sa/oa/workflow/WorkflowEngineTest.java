@@ -0,0 +1,95 @@
+package net.lab1024.sa.oa.workflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.lab1024.sa.oa.workflow.WorkflowEngine.ApprovalAction;
+import net.lab1024.sa.oa.workflow.WorkflowEngine.WorkflowExecutionResult;
+import net.lab1024.sa.oa.workflow.WorkflowEngine.WorkflowInstance;
+import net.lab1024.sa.oa.workflow.WorkflowEngine.WorkflowTask;
+
+/**
+ * 工作流引擎流转与任务查询测试
+ *
+ * @author IOE-DREAM Team
+ * @version 1.0.0
+ * @date 2025-11-28
+ */
+public class WorkflowEngineTest {
+
+    private static final long DOCUMENT_APPROVAL = 1L;
+
+    private static final long LEAVE_APPLICATION = 2L;
+
+    private WorkflowEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new WorkflowEngine();
+        engine.initializeEngine();
+    }
+
+    @Test
+    @DisplayName("启动后流转到第一个审批节点，按条件选择下一节点")
+    void testConditionalRouting() {
+        WorkflowInstance shortLeave = engine.startWorkflowInstance(LEAVE_APPLICATION, "u1", "张三", "请假", null,
+                Map.of("leaveDays", 3));
+        assertEquals("SUPERVISOR_APPROVAL", shortLeave.getCurrentNodeId());
+        assertEquals("END", approve(shortLeave, null).getNextNodeId());
+
+        WorkflowInstance longLeave = engine.startWorkflowInstance(LEAVE_APPLICATION, "u1", "张三", "请假", null,
+                Map.of("leaveDays", 7));
+        assertEquals("HR_APPROVAL", approve(longLeave, null).getNextNodeId());
+    }
+
+    @Test
+    @DisplayName("本次提交的数据参与转换条件判断")
+    void testSubmittedDataRouting() {
+        WorkflowInstance rejected = engine.startWorkflowInstance(DOCUMENT_APPROVAL, "u1", "张三", "文档", null,
+                Map.of("amount", 500));
+        assertEquals("SUBMITTER_REVIEW", rejected.getCurrentNodeId());
+        assertEquals("END", approve(rejected, Map.of("submitterAction", "REJECT")).getNextNodeId());
+
+        WorkflowInstance approved = engine.startWorkflowInstance(DOCUMENT_APPROVAL, "u1", "张三", "文档", null,
+                Map.of("amount", 500));
+        assertEquals("MANAGER_APPROVAL", approve(approved, null).getNextNodeId());
+        assertEquals("NOTIFICATION", approve(approved, Map.of("managerAction", "APPROVE")).getNextNodeId());
+    }
+
+    @Test
+    @DisplayName("用户任务通过处理人索引查询")
+    void testUserTasks() {
+        engine.startWorkflowInstance(LEAVE_APPLICATION, "u1", "张三", "请假", null, Map.of("leaveDays", 3));
+        engine.startWorkflowInstance(LEAVE_APPLICATION, "u1", "张三", "请假", null, Map.of("leaveDays", 3));
+        engine.startWorkflowInstance(LEAVE_APPLICATION, "u2", "李四", "请假", null, Map.of("leaveDays", 3));
+
+        assertEquals(2, engine.getUserTasks("u1").size());
+        assertEquals(1, engine.getUserTasks("u2").size());
+        assertTrue(engine.getUserTasks("u3").isEmpty());
+        assertEquals(3, engine.getStatistics().get("totalTasks"));
+    }
+
+    private WorkflowExecutionResult approve(WorkflowInstance instance, Map<String, Object> data) {
+        List<WorkflowTask> tasks = engine.getUserTasks(instance.getInitiatorId());
+        WorkflowTask task = tasks.stream()
+                .filter(t -> t.getInstanceId().equals(instance.getInstanceId()) && "PENDING".equals(t.getStatus()))
+                .findFirst()
+                .orElseThrow();
+        ApprovalAction action = new ApprovalAction();
+        action.setInstanceId(instance.getInstanceId());
+        action.setTaskId(task.getTaskId());
+        action.setApproverId(instance.getInitiatorId());
+        action.setApproverName(instance.getInitiatorName());
+        action.setAction("APPROVE");
+        action.setData(data);
+        WorkflowExecutionResult result = engine.processApproval(action);
+        assertTrue(result.getSuccess(), result.getMessage());
+        return result;
+    }
+}
@@ -0,0 +1,381 @@
+package net.lab1024.sa.common.workflow;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 流转条件表达式
+ * <p>
+ * 流程定义加载时编译为语法树，流转时直接按流程变量求值，不再对表达式做字符串替换与重复解析。
+ * 支持的语法：
+ * - 逻辑：||、&&、!（也可写作 OR、AND、NOT，不区分大小写），括号
+ * - 变量占位：${变量名}，或整体包裹为 ${...}，与括号等价
+ * - 比较：==、!=、>、>=、<、<=，两侧均为数值时按数值比较，否则按字符串比较
+ * - 操作数：变量名（支持 a.b 访问Map中的嵌套变量）、数字、'字符串'/"字符串"、true/false/null
+ * <p>
+ * 不存在的变量视为null；单独的变量作为条件时，Boolean取其值，其他非null值视为true
+ *
+ * @author IOE-DREAM Team
+ * @version 1.0.0
+ * @date 2025-11-28
+ */
+public final class ConditionExpression {
+
+    private final String source;
+
+    private final Node root;
+
+    private ConditionExpression(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * 编译条件表达式
+     *
+     * @throws IllegalArgumentException 表达式语法错误
+     */
+    public static ConditionExpression compile(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("条件表达式为空");
+        }
+        Parser parser = new Parser(expression.trim());
+        Node root = parser.parseOr();
+        parser.expectEnd();
+        return new ConditionExpression(expression, root);
+    }
+
+    public boolean evaluate(Map<String, Object> variables) {
+        return truthy(root.eval(variables != null ? variables : Map.of()));
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    // ========== 语法树 ==========
+
+    private interface Node {
+
+        Object eval(Map<String, Object> variables);
+    }
+
+    private record Literal(Object value) implements Node {
+
+        @Override
+        public Object eval(Map<String, Object> variables) {
+            return value;
+        }
+    }
+
+    private record Variable(String[] path) implements Node {
+
+        @Override
+        public Object eval(Map<String, Object> variables) {
+            Object value = variables.get(path[0]);
+            for (int i = 1; i < path.length && value != null; i++) {
+                value = value instanceof Map<?, ?> map ? map.get(path[i]) : null;
+            }
+            return value;
+        }
+    }
+
+    private record Not(Node operand) implements Node {
+
+        @Override
+        public Object eval(Map<String, Object> variables) {
+            return !truthy(operand.eval(variables));
+        }
+    }
+
+    private record And(Node left, Node right) implements Node {
+
+        @Override
+        public Object eval(Map<String, Object> variables) {
+            return truthy(left.eval(variables)) && truthy(right.eval(variables));
+        }
+    }
+
+    private record Or(Node left, Node right) implements Node {
+
+        @Override
+        public Object eval(Map<String, Object> variables) {
+            return truthy(left.eval(variables)) || truthy(right.eval(variables));
+        }
+    }
+
+    private record Compare(String operator, Node left, Node right) implements Node {
+
+        @Override
+        public Object eval(Map<String, Object> variables) {
+            Object l = left.eval(variables);
+            Object r = right.eval(variables);
+            switch (operator) {
+                case "==":
+                    return equalsValue(l, r);
+                case "!=":
+                    return !equalsValue(l, r);
+                default:
+                    if (l == null || r == null) {
+                        return false;
+                    }
+                    int cmp = compareValue(l, r);
+                    switch (operator) {
+                        case ">":
+                            return cmp > 0;
+                        case ">=":
+                            return cmp >= 0;
+                        case "<":
+                            return cmp < 0;
+                        default:
+                            return cmp <= 0;
+                    }
+            }
+        }
+    }
+
+    private static boolean truthy(Object value) {
+        if (value instanceof Boolean b) {
+            return b;
+        }
+        return value != null;
+    }
+
+    private static boolean equalsValue(Object l, Object r) {
+        if (l == null || r == null) {
+            return l == r;
+        }
+        BigDecimal ln = toNumber(l);
+        BigDecimal rn = toNumber(r);
+        if (ln != null && rn != null) {
+            return ln.compareTo(rn) == 0;
+        }
+        if (l instanceof Boolean || r instanceof Boolean) {
+            return String.valueOf(l).equalsIgnoreCase(String.valueOf(r));
+        }
+        return Objects.equals(String.valueOf(l), String.valueOf(r));
+    }
+
+    private static int compareValue(Object l, Object r) {
+        BigDecimal ln = toNumber(l);
+        BigDecimal rn = toNumber(r);
+        if (ln != null && rn != null) {
+            return ln.compareTo(rn);
+        }
+        return String.valueOf(l).compareTo(String.valueOf(r));
+    }
+
+    /**
+     * 数值或可解析为数值的字符串（表单提交的金额、天数常为字符串）
+     */
+    private static BigDecimal toNumber(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        if (value instanceof String text && !text.isEmpty()) {
+            char first = text.charAt(0);
+            if (Character.isDigit(first) || first == '-' || first == '.') {
+                try {
+                    return new BigDecimal(text.trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    // ========== 递归下降解析 ==========
+
+    private static final class Parser {
+
+        private final String text;
+
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node parseOr() {
+            Node left = parseAnd();
+            while (accept("||") || acceptKeyword("OR")) {
+                left = new Or(left, parseAnd());
+            }
+            return left;
+        }
+
+        Node parseAnd() {
+            Node left = parseUnary();
+            while (accept("&&") || acceptKeyword("AND")) {
+                left = new And(left, parseUnary());
+            }
+            return left;
+        }
+
+        Node parseUnary() {
+            skipSpaces();
+            if (peek() == '!' && peekAt(1) != '=') {
+                pos++;
+                return new Not(parseUnary());
+            }
+            if (acceptKeyword("NOT")) {
+                return new Not(parseUnary());
+            }
+            return parseComparison();
+        }
+
+        Node parseComparison() {
+            Node left = parsePrimary();
+            skipSpaces();
+            for (String operator : new String[] {"==", "!=", ">=", "<=", ">", "<"}) {
+                if (accept(operator)) {
+                    return new Compare(operator, left, parsePrimary());
+                }
+            }
+            return left;
+        }
+
+        Node parsePrimary() {
+            skipSpaces();
+            char c = peek();
+            if (c == '(') {
+                pos++;
+                Node inner = parseOr();
+                if (!accept(")")) {
+                    throw error("缺少右括号");
+                }
+                return inner;
+            }
+            if (c == '$' && peekAt(1) == '{') {
+                pos += 2;
+                Node inner = parseOr();
+                if (!accept("}")) {
+                    throw error("缺少右花括号");
+                }
+                return inner;
+            }
+            if (c == '\'' || c == '"') {
+                return new Literal(readString(c));
+            }
+            if (Character.isDigit(c) || (c == '-' && Character.isDigit(peekAt(1)))) {
+                return new Literal(readNumber());
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                String name = readIdentifier();
+                switch (name) {
+                    case "true":
+                        return new Literal(Boolean.TRUE);
+                    case "false":
+                        return new Literal(Boolean.FALSE);
+                    case "null":
+                        return new Literal(null);
+                    default:
+                        return new Variable(name.split("\\."));
+                }
+            }
+            throw error(c == 0 ? "表达式不完整" : "无法识别的字符 '" + c + "'");
+        }
+
+        void expectEnd() {
+            skipSpaces();
+            if (pos < text.length()) {
+                throw error("多余的内容");
+            }
+        }
+
+        private boolean accept(String token) {
+            skipSpaces();
+            if (text.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 关键字需完整匹配，AND 不会匹配 ANDROID 这样的变量名
+         */
+        private boolean acceptKeyword(String keyword) {
+            skipSpaces();
+            int end = pos + keyword.length();
+            if (text.regionMatches(true, pos, keyword, 0, keyword.length())
+                    && (end >= text.length() || !Character.isJavaIdentifierPart(text.charAt(end)))) {
+                pos = end;
+                return true;
+            }
+            return false;
+        }
+
+        private String readString(char quote) {
+            StringBuilder builder = new StringBuilder();
+            pos++;
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == quote) {
+                    return builder.toString();
+                }
+                if (c == '\\' && pos < text.length()) {
+                    c = text.charAt(pos++);
+                }
+                builder.append(c);
+            }
+            throw error("字符串未闭合");
+        }
+
+        private BigDecimal readNumber() {
+            int start = pos;
+            if (peek() == '-') {
+                pos++;
+            }
+            while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            try {
+                return new BigDecimal(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("数字格式错误");
+            }
+        }
+
+        private String readIdentifier() {
+            int start = pos;
+            while (pos < text.length()
+                    && (Character.isJavaIdentifierPart(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            return text.substring(start, pos);
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char peek() {
+            return peekAt(0);
+        }
+
+        private char peekAt(int offset) {
+            int index = pos + offset;
+            return index < text.length() ? text.charAt(index) : 0;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("条件表达式错误（位置" + pos + "）：" + message + "，表达式：" + text);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package net.lab1024.sa.common.workflow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 工作流任务索引
+ * <p>
+ * 替代按实例分组的任务列表，按实例、处理人、候选组建立索引，查询用户任务时只访问该用户相关的任务，与任务总量无关：
+ * - 实例索引：实例下的全部任务，按创建顺序
+ * - 处理人索引：指派给该用户的全部任务（含已处理），与原有 getUserTasks 语义一致
+ * - 候选组索引：只保存待处理（PENDING）的任务，任务处理后调用 {@link #update} 移出
+ * <p>
+ * 线程安全；同一任务的并发更新由调用方按实例串行。各服务的任务类型实现 {@link IndexedTask} 即可使用
+ *
+ * @param <T> 任务类型
+ *
+ * @author IOE-DREAM Team
+ * @version 1.0.0
+ * @date 2025-11-28
+ */
+public class WorkflowTaskIndex<T extends WorkflowTaskIndex.IndexedTask> {
+
+    private static final String PENDING = "PENDING";
+
+    /**
+     * 索引所需的任务属性
+     */
+    public interface IndexedTask {
+
+        String getTaskId();
+
+        String getInstanceId();
+
+        String getAssigneeId();
+
+        /**
+         * PENDING 表示待处理
+         */
+        String getStatus();
+
+        List<String> getCandidateGroups();
+    }
+
+    private final Map<String, T> tasks = new ConcurrentHashMap<>();
+
+    private final Map<String, List<T>> byInstance = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> byAssignee = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> byCandidateGroup = new ConcurrentHashMap<>();
+
+    /**
+     * 加入新任务
+     */
+    public void add(T task) {
+        if (task == null || task.getTaskId() == null) {
+            return;
+        }
+        tasks.put(task.getTaskId(), task);
+        byInstance.computeIfAbsent(task.getInstanceId(), k -> Collections.synchronizedList(new ArrayList<>()))
+                .add(task);
+        if (task.getAssigneeId() != null) {
+            link(byAssignee, task.getAssigneeId(), task.getTaskId());
+        }
+        if (PENDING.equals(task.getStatus()) && task.getCandidateGroups() != null) {
+            for (String group : task.getCandidateGroups()) {
+                link(byCandidateGroup, group, task.getTaskId());
+            }
+        }
+    }
+
+    /**
+     * 任务状态变化后调用，非待处理的任务移出候选组索引
+     */
+    public void update(T task) {
+        if (task == null || PENDING.equals(task.getStatus()) || task.getCandidateGroups() == null) {
+            return;
+        }
+        for (String group : task.getCandidateGroups()) {
+            unlink(byCandidateGroup, group, task.getTaskId());
+        }
+    }
+
+    public T get(String instanceId, String taskId) {
+        T task = taskId != null ? tasks.get(taskId) : null;
+        return task != null && task.getInstanceId().equals(instanceId) ? task : null;
+    }
+
+    /**
+     * 实例下的任务，按创建顺序
+     */
+    public List<T> getInstanceTasks(String instanceId) {
+        List<T> instanceTasks = instanceId != null ? byInstance.get(instanceId) : null;
+        if (instanceTasks == null) {
+            return new ArrayList<>();
+        }
+        synchronized (instanceTasks) {
+            return new ArrayList<>(instanceTasks);
+        }
+    }
+
+    /**
+     * 指派给该用户的任务
+     */
+    public List<T> getAssignedTasks(String userId) {
+        return collect(userId != null ? byAssignee.get(userId) : null);
+    }
+
+    /**
+     * 候选组内待处理的任务
+     */
+    public List<T> getCandidateTasks(Collection<String> groups) {
+        if (groups == null || groups.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<String> taskIds = new LinkedHashSet<>();
+        for (String group : groups) {
+            Set<String> ids = byCandidateGroup.get(group);
+            if (ids != null) {
+                taskIds.addAll(ids);
+            }
+        }
+        return collect(taskIds);
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    private List<T> collect(Set<String> taskIds) {
+        if (taskIds == null || taskIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<T> result = new ArrayList<>(taskIds.size());
+        for (String taskId : taskIds) {
+            T task = tasks.get(taskId);
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 增删都在compute中完成，避免与移除空集合并发时丢失
+     */
+    private static void link(Map<String, Set<String>> index, String key, String taskId) {
+        index.compute(key, (k, ids) -> {
+            Set<String> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            result.add(taskId);
+            return result;
+        });
+    }
+
+    private static void unlink(Map<String, Set<String>> index, String key, String taskId) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(taskId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
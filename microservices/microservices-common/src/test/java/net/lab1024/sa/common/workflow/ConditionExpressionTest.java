@@ -0,0 +1,105 @@
+package net.lab1024.sa.common.workflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 流转条件表达式测试
+ *
+ * @author IOE-DREAM Team
+ * @version 1.0.0
+ * @date 2025-11-28
+ */
+public class ConditionExpressionTest {
+
+    @Test
+    @DisplayName("数值比较：整数、小数、数字字符串按数值比较")
+    void numericComparison() {
+        ConditionExpression expression = ConditionExpression.compile("${amount > 1000}");
+        assertTrue(expression.evaluate(Map.of("amount", 1500)));
+        assertTrue(expression.evaluate(Map.of("amount", new BigDecimal("1000.01"))));
+        assertTrue(expression.evaluate(Map.of("amount", "2000")));
+        assertFalse(expression.evaluate(Map.of("amount", 1000L)));
+        assertFalse(expression.evaluate(Map.of("amount", 999.5d)));
+        // 变量不存在时比较结果为false
+        assertFalse(expression.evaluate(Map.of()));
+
+        assertTrue(ConditionExpression.compile("days >= 3").evaluate(Map.of("days", 3)));
+        assertTrue(ConditionExpression.compile("days <= -1").evaluate(Map.of("days", -2)));
+        assertTrue(ConditionExpression.compile("rate == 1.50").evaluate(Map.of("rate", 1.5d)));
+    }
+
+    @Test
+    @DisplayName("字符串、布尔与null比较")
+    void stringBooleanAndNull() {
+        assertTrue(ConditionExpression.compile("${outcome == 'approve'}").evaluate(Map.of("outcome", "approve")));
+        assertTrue(ConditionExpression.compile("dept != \"HR\"").evaluate(Map.of("dept", "IT")));
+        assertTrue(ConditionExpression.compile("urgent == true").evaluate(Map.of("urgent", true)));
+        assertTrue(ConditionExpression.compile("urgent").evaluate(Map.of("urgent", Boolean.TRUE)));
+        assertFalse(ConditionExpression.compile("urgent").evaluate(Map.of("urgent", Boolean.FALSE)));
+        assertTrue(ConditionExpression.compile("remark == null").evaluate(Map.of()));
+        assertTrue(ConditionExpression.compile("name == 'O\\'Neil'").evaluate(Map.of("name", "O'Neil")));
+    }
+
+    @Test
+    @DisplayName("逻辑运算优先级与括号")
+    void logicalPrecedence() {
+        ConditionExpression expression = ConditionExpression.compile(
+                "${amount > 5000 || dept == 'FIN' && !(level < 3)}");
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("amount", 100);
+        variables.put("dept", "FIN");
+        variables.put("level", 3);
+        assertTrue(expression.evaluate(variables));
+
+        variables.put("level", 2);
+        assertFalse(expression.evaluate(variables));
+
+        variables.put("amount", 6000);
+        assertTrue(expression.evaluate(variables));
+    }
+
+    @Test
+    @DisplayName("嵌套变量按Map路径取值")
+    void nestedVariables() {
+        Map<String, Object> form = Map.of("leaveType", "ANNUAL", "days", 5);
+        ConditionExpression expression = ConditionExpression.compile("form.leaveType == 'ANNUAL' && form.days > 3");
+        assertTrue(expression.evaluate(Map.of("form", form)));
+        assertFalse(expression.evaluate(Map.of("form", "not-a-map")));
+    }
+
+    @Test
+    @DisplayName("语法错误在编译时抛出")
+    void compileErrors() {
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile(""));
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("${amount >}"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("(a == 1"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("a == 'x"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("a == 1 b"));
+    }
+
+    @Test
+    @DisplayName("变量占位、AND/OR/NOT关键字与数值字符串比较")
+    void keywordsAndPlaceholders() {
+        ConditionExpression condition = ConditionExpression
+                .compile("${amount} <= 10000 AND ${managerAction} == 'APPROVE'");
+        assertTrue(condition.evaluate(Map.of("amount", "500", "managerAction", "APPROVE")));
+        assertFalse(condition.evaluate(Map.of("amount", 20000, "managerAction", "APPROVE")));
+        assertFalse(condition.evaluate(Map.of("amount", 500)));
+
+        ConditionExpression or = ConditionExpression.compile("${financeAction} == 'APPROVE' || ${financeAction} == 'SKIP'");
+        assertTrue(or.evaluate(Map.of("financeAction", "SKIP")));
+        assertFalse(or.evaluate(Map.of()));
+
+        assertTrue(ConditionExpression.compile("${leaveDays > 5}").evaluate(Map.of("leaveDays", 7)));
+        assertTrue(ConditionExpression.compile("NOT ${android}").evaluate(Map.of("android", false)));
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("${amount} >"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("${amount > 5"));
+    }
+}
@@ -0,0 +1,127 @@
+package net.lab1024.sa.common.workflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 工作流任务索引测试
+ *
+ * @author IOE-DREAM Team
+ * @version 1.0.0
+ * @date 2025-11-28
+ */
+public class WorkflowTaskIndexTest {
+
+    @Test
+    @DisplayName("实例任务按创建顺序返回，按任务ID查询须匹配实例")
+    void instanceTasks() {
+        WorkflowTaskIndex<Task> index = new WorkflowTaskIndex<>();
+        index.add(new Task("t1", "i1", "u1", "PENDING", null));
+        index.add(new Task("t2", "i1", "u2", "PENDING", null));
+        index.add(new Task("t3", "i2", "u1", "PENDING", null));
+
+        List<Task> tasks = index.getInstanceTasks("i1");
+        assertEquals(List.of("t1", "t2"), tasks.stream().map(Task::getTaskId).toList());
+        assertTrue(index.getInstanceTasks("missing").isEmpty());
+        assertNotNull(index.get("i1", "t1"));
+        assertNull(index.get("i2", "t1"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("处理人索引包含已处理任务")
+    void assignedTasks() {
+        WorkflowTaskIndex<Task> index = new WorkflowTaskIndex<>();
+        Task task = new Task("t1", "i1", "u1", "PENDING", null);
+        index.add(task);
+        index.add(new Task("t2", "i2", "u1", "PENDING", null));
+        index.add(new Task("t3", "i3", "u2", "PENDING", null));
+
+        task.status = "COMPLETED";
+        index.update(task);
+
+        assertEquals(2, index.getAssignedTasks("u1").size());
+        assertEquals(1, index.getAssignedTasks("u2").size());
+        assertTrue(index.getAssignedTasks("u3").isEmpty());
+        assertTrue(index.getAssignedTasks(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("候选组索引只保留待处理任务，多组命中同一任务时去重")
+    void candidateTasks() {
+        WorkflowTaskIndex<Task> index = new WorkflowTaskIndex<>();
+        Task shared = new Task("t1", "i1", null, "PENDING", List.of("hr", "finance"));
+        index.add(shared);
+        index.add(new Task("t2", "i2", null, "PENDING", List.of("hr")));
+        index.add(new Task("t3", "i3", null, "COMPLETED", List.of("hr")));
+
+        assertEquals(2, index.getCandidateTasks(List.of("hr", "finance")).size());
+        assertEquals(1, index.getCandidateTasks(List.of("finance")).size());
+
+        shared.status = "COMPLETED";
+        index.update(shared);
+        assertTrue(index.getCandidateTasks(List.of("finance")).isEmpty());
+        assertEquals(List.of("t2"), index.getCandidateTasks(List.of("hr")).stream().map(Task::getTaskId).toList());
+        assertTrue(index.getCandidateTasks(List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("缺少任务ID的任务不入索引")
+    void ignoresTaskWithoutId() {
+        WorkflowTaskIndex<Task> index = new WorkflowTaskIndex<>();
+        index.add(null);
+        index.add(new Task(null, "i1", "u1", "PENDING", null));
+        assertEquals(0, index.size());
+        assertTrue(index.getAssignedTasks("u1").isEmpty());
+    }
+
+    private static final class Task implements WorkflowTaskIndex.IndexedTask {
+
+        private final String taskId;
+
+        private final String instanceId;
+
+        private final String assigneeId;
+
+        private String status;
+
+        private final List<String> candidateGroups;
+
+        Task(String taskId, String instanceId, String assigneeId, String status, List<String> candidateGroups) {
+            this.taskId = taskId;
+            this.instanceId = instanceId;
+            this.assigneeId = assigneeId;
+            this.status = status;
+            this.candidateGroups = candidateGroups;
+        }
+
+        @Override
+        public String getTaskId() {
+            return taskId;
+        }
+
+        @Override
+        public String getInstanceId() {
+            return instanceId;
+        }
+
+        @Override
+        public String getAssigneeId() {
+            return assigneeId;
+        }
+
+        @Override
+        public String getStatus() {
+            return status;
+        }
+
+        @Override
+        public List<String> getCandidateGroups() {
+            return candidateGroups;
+        }
+    }
+}
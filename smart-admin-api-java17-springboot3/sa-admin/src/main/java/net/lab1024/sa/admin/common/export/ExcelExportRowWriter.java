@@ -0,0 +1,89 @@
+package net.lab1024.sa.admin.common.export;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import cn.idev.excel.ExcelWriter;
+import cn.idev.excel.FastExcel;
+import cn.idev.excel.write.metadata.WriteSheet;
+
+/**
+ * Excel逐行写出
+ * <p>
+ * 基于FastExcel流式写（底层SXSSF只在内存保留滑动窗口内的行），每攒满一小批写一次；
+ * 单个Sheet超过 {@link #MAX_ROWS_PER_SHEET} 行时自动新建Sheet
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+final class ExcelExportRowWriter implements ExportRowWriter {
+
+    static final int MAX_ROWS_PER_SHEET = 1_000_000;
+
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private final ExcelWriter excelWriter;
+
+    private final List<List<Object>> buffer = new ArrayList<>(WRITE_BATCH_SIZE);
+
+    private WriteSheet sheet;
+
+    private int sheetNo;
+
+    private int sheetRows;
+
+    private boolean sheetWritten;
+
+    ExcelExportRowWriter(OutputStream out, List<String> headers) {
+        List<List<String>> head = new ArrayList<>(headers.size());
+        for (String header : headers) {
+            head.add(Collections.singletonList(header));
+        }
+        this.excelWriter = FastExcel.write(out).head(head).autoCloseStream(false).build();
+        this.sheet = newSheet(0);
+    }
+
+    @Override
+    public void writeRow(List<Object> values) {
+        if (sheetRows == MAX_ROWS_PER_SHEET) {
+            flushBuffer();
+            sheet = newSheet(++sheetNo);
+            sheetRows = 0;
+            sheetWritten = false;
+        }
+        List<Object> cells = new ArrayList<>(values.size());
+        for (Object value : values) {
+            cells.add(value instanceof Number || value instanceof Boolean ? value : ExportRowWriter.text(value));
+        }
+        buffer.add(cells);
+        sheetRows++;
+        if (buffer.size() >= WRITE_BATCH_SIZE) {
+            flushBuffer();
+        }
+    }
+
+    @Override
+    public void finish() {
+        flushBuffer();
+        if (!sheetWritten) {
+            // 无数据时仍输出表头
+            excelWriter.write(Collections.emptyList(), sheet);
+        }
+        excelWriter.finish();
+    }
+
+    private void flushBuffer() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        excelWriter.write(buffer, sheet);
+        buffer.clear();
+        sheetWritten = true;
+    }
+
+    private static WriteSheet newSheet(int sheetNo) {
+        return FastExcel.writerSheet(sheetNo, "Sheet" + (sheetNo + 1)).build();
+    }
+}
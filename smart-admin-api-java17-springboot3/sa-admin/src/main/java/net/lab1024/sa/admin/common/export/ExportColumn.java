@@ -0,0 +1,34 @@
+package net.lab1024.sa.admin.common.export;
+
+import java.util.function.Function;
+
+/**
+ * 导出列定义
+ *
+ * @param <T> 行数据类型
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public final class ExportColumn<T> {
+
+    private final String header;
+
+    private final Function<? super T, ?> extractor;
+
+    private ExportColumn(String header, Function<? super T, ?> extractor) {
+        this.header = header;
+        this.extractor = extractor;
+    }
+
+    public static <T> ExportColumn<T> of(String header, Function<? super T, ?> extractor) {
+        return new ExportColumn<>(header, extractor);
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public Object extract(T row) {
+        return extractor.apply(row);
+    }
+}
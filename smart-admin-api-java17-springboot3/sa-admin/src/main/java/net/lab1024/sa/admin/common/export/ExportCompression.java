@@ -0,0 +1,54 @@
+package net.lab1024.sa.admin.common.export;
+
+/**
+ * 导出压缩方式（边写边压缩）
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public enum ExportCompression {
+
+    NONE("", null),
+
+    GZIP(".gz", "application/gzip"),
+
+    ZIP(".zip", "application/zip");
+
+    private final String suffix;
+
+    private final String contentType;
+
+    ExportCompression(String suffix, String contentType) {
+        this.suffix = suffix;
+        this.contentType = contentType;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * 压缩后的内容类型，不压缩时为null
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 解析导出格式参数中的压缩后缀，形如 csv.gz、xlsx.zip
+     */
+    public static ExportCompression of(String format) {
+        if (format == null) {
+            return NONE;
+        }
+        int dot = format.indexOf('.');
+        if (dot < 0) {
+            return NONE;
+        }
+        String suffix = format.substring(dot + 1);
+        if ("gz".equalsIgnoreCase(suffix) || "gzip".equalsIgnoreCase(suffix)) {
+            return GZIP;
+        }
+        return "zip".equalsIgnoreCase(suffix) ? ZIP : NONE;
+    }
+}
@@ -0,0 +1,43 @@
+package net.lab1024.sa.admin.common.export;
+
+/**
+ * 导出文件格式
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public enum ExportFormat {
+
+    CSV("csv", "text/csv"),
+
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final String extension;
+
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 解析导出格式参数，形如 csv、xlsx、csv.gz、xlsx.zip，无法识别时默认CSV
+     */
+    public static ExportFormat of(String format) {
+        if (format == null) {
+            return CSV;
+        }
+        int dot = format.indexOf('.');
+        String name = dot >= 0 ? format.substring(0, dot) : format;
+        return "xlsx".equalsIgnoreCase(name) || "excel".equalsIgnoreCase(name) ? XLSX : CSV;
+    }
+}
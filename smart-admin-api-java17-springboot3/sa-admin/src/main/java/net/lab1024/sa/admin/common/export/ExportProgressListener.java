@@ -0,0 +1,20 @@
+package net.lab1024.sa.admin.common.export;
+
+/**
+ * 导出进度回调
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@FunctionalInterface
+public interface ExportProgressListener {
+
+    ExportProgressListener NONE = (rowCount, finished) -> {
+    };
+
+    /**
+     * @param rowCount 已写出行数
+     * @param finished 是否已全部写完
+     */
+    void onProgress(long rowCount, boolean finished);
+}
@@ -0,0 +1,45 @@
+package net.lab1024.sa.admin.common.export;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 逐行写出器，实现不得缓存全部行
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+interface ExportRowWriter {
+
+    DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    void writeRow(List<Object> values) throws IOException;
+
+    /**
+     * 写出尾部并刷新，不关闭底层流
+     */
+    void finish() throws IOException;
+
+    /**
+     * 单元格文本
+     */
+    static String text(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).format(DATE_TIME_FORMATTER);
+        }
+        if (value instanceof LocalDate) {
+            return value.toString();
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,176 @@
+package net.lab1024.sa.admin.common.export;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+
+/**
+ * 流式导出器
+ * <p>
+ * 逐行写出CSV/Excel，可选边写边gzip/zip压缩，内存占用与行数无关。
+ * 实现了MyBatis {@link ResultHandler}，可直接传给DAO的流式查询方法（fetchSize=Integer.MIN_VALUE），
+ * 数据库游标读一行写一行；非数据库来源调用 {@link #write} 即可
+ * <p>
+ * 关闭时写出文件尾并关闭目标流；每写出 progressInterval 行及结束时回调进度
+ *
+ * @param <T> 行数据类型
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class StreamingExporter<T> implements ResultHandler<T>, Closeable {
+
+    public static final int DEFAULT_PROGRESS_INTERVAL = 10_000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<ExportColumn<T>> columns;
+
+    private final ExportProgressListener listener;
+
+    private final int progressInterval;
+
+    private final OutputStream output;
+
+    private final ExportRowWriter rowWriter;
+
+    private ZipOutputStream zipOutput;
+
+    private GZIPOutputStream gzipOutput;
+
+    private long rowCount;
+
+    private boolean closed;
+
+    /**
+     * @param out         目标流（文件或HTTP响应），关闭导出器时一并关闭
+     * @param entryName   ZIP压缩时包内文件名
+     * @param format      导出格式
+     * @param compression 压缩方式
+     * @param columns     列定义
+     * @param listener    进度回调
+     */
+    public StreamingExporter(OutputStream out, String entryName, ExportFormat format, ExportCompression compression,
+                             List<ExportColumn<T>> columns, ExportProgressListener listener) throws IOException {
+        this(out, entryName, format, compression, columns, listener, DEFAULT_PROGRESS_INTERVAL);
+    }
+
+    public StreamingExporter(OutputStream out, String entryName, ExportFormat format, ExportCompression compression,
+                             List<ExportColumn<T>> columns, ExportProgressListener listener, int progressInterval)
+            throws IOException {
+        this.columns = columns;
+        this.listener = listener != null ? listener : ExportProgressListener.NONE;
+        this.progressInterval = Math.max(1, progressInterval);
+        this.output = new BufferedOutputStream(out, BUFFER_SIZE);
+
+        OutputStream sink;
+        switch (compression) {
+            case GZIP:
+                gzipOutput = new GZIPOutputStream(output, BUFFER_SIZE);
+                sink = gzipOutput;
+                break;
+            case ZIP:
+                zipOutput = new ZipOutputStream(output);
+                zipOutput.putNextEntry(new ZipEntry(entryName));
+                sink = zipOutput;
+                break;
+            default:
+                sink = output;
+        }
+
+        List<String> headers = new ArrayList<>(columns.size());
+        for (ExportColumn<T> column : columns) {
+            headers.add(column.getHeader());
+        }
+        this.rowWriter = format == ExportFormat.XLSX
+                ? new ExcelExportRowWriter(sink, headers)
+                : new CsvExportRowWriter(sink, headers);
+    }
+
+    /**
+     * 导出到文件
+     */
+    public static <T> StreamingExporter<T> toFile(Path file, ExportFormat format, ExportCompression compression,
+                                                  List<ExportColumn<T>> columns, ExportProgressListener listener)
+            throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        return new StreamingExporter<>(Files.newOutputStream(file), entryName(file.getFileName().toString(),
+                compression), format, compression, columns, listener);
+    }
+
+    /**
+     * 导出文件名：基础名 + 格式扩展名 + 压缩后缀
+     */
+    public static String fileName(String baseName, ExportFormat format, ExportCompression compression) {
+        return baseName + "." + format.getExtension() + compression.getSuffix();
+    }
+
+    private static String entryName(String fileName, ExportCompression compression) {
+        String suffix = compression.getSuffix();
+        return !suffix.isEmpty() && fileName.endsWith(suffix)
+                ? fileName.substring(0, fileName.length() - suffix.length())
+                : fileName;
+    }
+
+    /**
+     * 写出一行
+     */
+    public void write(T row) {
+        if (closed) {
+            throw new IllegalStateException("导出已结束");
+        }
+        List<Object> values = new ArrayList<>(columns.size());
+        for (ExportColumn<T> column : columns) {
+            values.add(column.extract(row));
+        }
+        try {
+            rowWriter.writeRow(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowCount++;
+        if (rowCount % progressInterval == 0) {
+            listener.onProgress(rowCount, false);
+        }
+    }
+
+    @Override
+    public void handleResult(ResultContext<? extends T> resultContext) {
+        write(resultContext.getResultObject());
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            rowWriter.finish();
+            if (zipOutput != null) {
+                zipOutput.closeEntry();
+                zipOutput.finish();
+            } else if (gzipOutput != null) {
+                gzipOutput.finish();
+            }
+        } finally {
+            output.close();
+        }
+        listener.onProgress(rowCount, true);
+    }
+}
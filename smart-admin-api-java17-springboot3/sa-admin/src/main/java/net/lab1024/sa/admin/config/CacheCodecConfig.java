@@ -0,0 +1,43 @@
+package net.lab1024.sa.admin.config;
+
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import net.lab1024.sa.admin.module.access.domain.entity.AccessAreaEntity;
+import net.lab1024.sa.admin.module.access.domain.entity.AccessRecordEntity;
+import net.lab1024.sa.admin.module.attendance.domain.entity.AttendanceRecordEntity;
+import net.lab1024.sa.admin.module.attendance.domain.entity.AttendanceRuleEntity;
+import net.lab1024.sa.admin.module.attendance.domain.entity.AttendanceScheduleEntity;
+import net.lab1024.sa.admin.module.consume.domain.entity.AccountBalanceEntity;
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+import net.lab1024.sa.admin.module.smart.biometric.domain.entity.BiometricTemplateEntity;
+import net.lab1024.sa.base.common.cache.SmileCacheCodec;
+
+/**
+ * 缓存值二进制编码的类别名表
+ * <p>
+ * 别名随缓存值写入Redis，已发布的别名不能修改或改指其他类，新增实体只能追加
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Configuration
+public class CacheCodecConfig {
+
+    @Resource
+    private SmileCacheCodec smileCacheCodec;
+
+    @PostConstruct
+    public void registerClassTable() {
+        smileCacheCodec
+                .register("AccessArea", AccessAreaEntity.class)
+                .register("AccessRecord", AccessRecordEntity.class)
+                .register("AttendanceRecord", AttendanceRecordEntity.class)
+                .register("AttendanceRule", AttendanceRuleEntity.class)
+                .register("AttendanceSchedule", AttendanceScheduleEntity.class)
+                .register("AccountBalance", AccountBalanceEntity.class)
+                .register("ConsumeRecord", ConsumeRecordEntity.class)
+                .register("BiometricTemplate", BiometricTemplateEntity.class);
+    }
+}
@@ -74,8 +74,9 @@ public class AccessRecordController {
     @SaCheckPermission("access:verify")
     public ResponseDTO<Boolean> verifyAccessPermission(
             @RequestParam @NotNull Long userId,
-            @RequestParam @NotNull Long deviceId) {
+            @RequestParam @NotNull Long deviceId,
+            @RequestParam(required = false) Integer direction) {
 
-        return accessRecordService.verifyAccessPermission(userId, deviceId);
+        return accessRecordService.verifyAccessPermission(userId, deviceId, direction);
     }
 }
\ No newline at end of file
@@ -4,7 +4,11 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import net.lab1024.sa.admin.module.access.domain.entity.AccessEventEntity;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -198,4 +202,19 @@ public interface AccessEventDao extends BaseMapper<AccessEventEntity> {
      * @return 删除数量
      */
     int deleteExpiredEvents(@Param("cutoffTime") LocalDateTime cutoffTime);
-}
\ No newline at end of file
+
+    /**
+     * 流式查询指定时间之后的有效通行（验证成功且方向为进/出），按事件时间升序逐行回调
+     * 用于启动时重建区域在场状态，MySQL驱动在 fetchSize=Integer.MIN_VALUE 时逐行读取结果集
+     *
+     * @param startTime 开始时间
+     * @param handler 逐行回调
+     */
+    @Select("SELECT user_id, area_id, direction, event_time FROM t_smart_access_event " +
+            "WHERE event_time >= #{startTime} AND verify_result = 0 AND direction IN (0, 1) " +
+            "AND user_id IS NOT NULL AND area_id IS NOT NULL " +
+            "ORDER BY event_time ASC")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    void streamPassagesSince(@Param("startTime") LocalDateTime startTime,
+                             ResultHandler<AccessEventEntity> handler);
+}
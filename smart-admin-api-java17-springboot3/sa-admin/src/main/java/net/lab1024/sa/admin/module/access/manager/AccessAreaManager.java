@@ -92,24 +92,20 @@ public class AccessAreaManager {
         }
 
         try {
-            // 先从统一缓存获取
-            AccessAreaEntity area = accessCacheService.getArea(areaId);
-            if (area != null) {
-                log.debug("区域信息统一缓存命中: areaId={}", areaId);
-                return area;
-            }
-
-            // 缓存未命中，从数据库查询
-            area = accessAreaDao.selectById(areaId);
-            if (area != null && area.getDeletedFlag() == 0) {
+            // 统一缓存读取，未命中时并发请求合并为一次数据库查询
+            AccessAreaEntity area = accessCacheService.getArea(areaId, () -> {
+                AccessAreaEntity loaded = accessAreaDao.selectById(areaId);
+                if (loaded == null || loaded.getDeletedFlag() != 0) {
+                    return null;
+                }
                 log.debug("区域信息数据库查找: areaId={}", areaId);
-                // 写入统一缓存
-                accessCacheService.cacheArea(area);
-                return area;
-            }
+                return loaded;
+            });
 
-            log.debug("区域信息不存在: areaId={}", areaId);
-            return null;
+            if (area == null) {
+                log.debug("区域信息不存在: areaId={}", areaId);
+            }
+            return area;
 
         } catch (Exception e) {
             log.error("获取区域缓存失败: areaId={}", areaId, e);
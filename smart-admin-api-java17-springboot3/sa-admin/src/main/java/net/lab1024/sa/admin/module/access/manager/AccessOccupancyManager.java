@@ -0,0 +1,378 @@
+package net.lab1024.sa.admin.module.access.manager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.access.dao.AccessEventDao;
+import net.lab1024.sa.admin.module.access.dao.SmartAreaAccessExtensionDao;
+import net.lab1024.sa.admin.module.access.domain.entity.AccessEventEntity;
+import net.lab1024.sa.admin.module.access.domain.entity.SmartAreaAccessExtensionEntity;
+import net.lab1024.sa.admin.module.access.domain.vo.AccessAreaCapacityVO;
+import net.lab1024.sa.admin.module.access.occupancy.AreaOccupancyStore;
+import net.lab1024.sa.admin.module.access.occupancy.AreaOccupancyStore.Admission;
+import net.lab1024.sa.admin.module.access.occupancy.AreaOccupancyStore.Passage;
+import net.lab1024.sa.admin.module.access.occupancy.LocalAreaOccupancyStore;
+import net.lab1024.sa.admin.module.access.occupancy.RedisAreaOccupancyStore;
+
+/**
+ * 门禁区域在场状态管理器
+ * <p>
+ * 在场状态由 {@link AreaOccupancyStore} 保存，按 access.occupancy.store 选择：
+ * - redis（默认）：所有节点共享同一份，判定与记录在Lua脚本内原子完成
+ * - local：进程内分片存储，无网络往返，仅适用于单节点部署
+ * <p>
+ * 通行判定在放行时即预占在场名额，判定与计数一次完成，并发进入不会超出容量；
+ * 设备随后上报的通行事件认领预占状态，不重复计数
+ * <p>
+ * 重建：状态未就绪（首次启动或Redis数据丢失）时清空状态后回放最近 rebuild-hours 小时的通行事件，
+ * 完成后标记就绪；就绪前不做反潜与容量拦截，避免状态不全时误拦
+ * <p>
+ * 配置项（access.occupancy.*）：store、local-shards、maintain-interval-ms、rebuild-hours、stale-hours
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class AccessOccupancyManager {
+
+    /**
+     * 通行方向，与 t_smart_access_event.direction 一致
+     */
+    public static final int DIRECTION_IN = AreaOccupancyStore.DIRECTION_IN;
+
+    public static final int DIRECTION_OUT = AreaOccupancyStore.DIRECTION_OUT;
+
+    private static final String STORE_LOCAL = "local";
+
+    /** 区域配置刷新间隔（分钟） */
+    private static final long POLICY_REFRESH_MINUTES = 5L;
+
+    /** 未配置告警阈值时的默认值 */
+    private static final double DEFAULT_ALERT_THRESHOLD = 0.85D;
+
+    private static final double CRITICAL_THRESHOLD = 0.95D;
+
+    private static final int VERIFY_RESULT_SUCCESS = 0;
+
+    @Resource
+    private AccessEventDao accessEventDao;
+
+    @Resource
+    private SmartAreaAccessExtensionDao smartAreaAccessExtensionDao;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${access.occupancy.store:redis}")
+    private String storeType;
+
+    @Value("${access.occupancy.local-shards:64}")
+    private int localShards;
+
+    @Value("${access.occupancy.maintain-interval-ms:10000}")
+    private long maintainIntervalMs;
+
+    @Value("${access.occupancy.rebuild-hours:24}")
+    private long rebuildHours;
+
+    /** 超过该时长无通行记录的人员视为已离开 */
+    @Value("${access.occupancy.stale-hours:24}")
+    private long staleHours;
+
+    private AreaOccupancyStore store;
+
+    private volatile Map<Long, AreaPolicy> areaPolicies = Map.of();
+
+    private volatile boolean ready;
+
+    private volatile LocalDate lastExpireDate;
+
+    private final AtomicLong violationCount = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "access-occupancy");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        store = STORE_LOCAL.equalsIgnoreCase(storeType)
+                ? new LocalAreaOccupancyStore(localShards, ZoneId.systemDefault())
+                : new RedisAreaOccupancyStore(stringRedisTemplate, ZoneId.systemDefault());
+        scheduler.scheduleWithFixedDelay(this::refreshAreaPolicies, 0, POLICY_REFRESH_MINUTES, TimeUnit.MINUTES);
+        scheduler.scheduleWithFixedDelay(this::maintain, 0, maintainIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("门禁区域在场状态存储: {}", store.getClass().getSimpleName());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 在场状态是否已就绪（已完成重建）
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 处理一条通行事件，非验证成功或方向未知的事件忽略
+     */
+    public void onEvent(AccessEventEntity event) {
+        Passage passage = toPassage(event);
+        if (passage == null) {
+            return;
+        }
+        try {
+            store.apply(passage);
+        } catch (Exception e) {
+            log.warn("更新门禁区域在场状态失败: userId={}, areaId={}", event.getUserId(), event.getAreaId(), e);
+        }
+    }
+
+    /**
+     * 批量处理通行事件，共享存储下一批一次往返
+     */
+    public void onEvents(List<AccessEventEntity> events) {
+        List<Passage> passages = new ArrayList<>(events.size());
+        for (AccessEventEntity event : events) {
+            Passage passage = toPassage(event);
+            if (passage != null) {
+                passages.add(passage);
+            }
+        }
+        try {
+            store.applyAll(passages);
+        } catch (Exception e) {
+            log.warn("批量更新门禁区域在场状态失败: size={}", passages.size(), e);
+        }
+    }
+
+    /**
+     * 反潜回与容量判定，放行时即预占在场名额
+     * <p>
+     * 区域未启用反潜且未配置容量、状态未就绪或存储不可用时放行，由权限判定决定
+     */
+    public Admission admit(Long userId, Long areaId, Integer direction) {
+        if (!ready || userId == null || areaId == null || direction == null
+                || (direction != DIRECTION_IN && direction != DIRECTION_OUT)) {
+            return Admission.ACCEPTED;
+        }
+        AreaPolicy policy = areaPolicies.get(areaId);
+        if (policy == null || (!policy.antiPassback() && policy.capacity() <= 0)) {
+            return Admission.ACCEPTED;
+        }
+        Admission admission;
+        try {
+            admission = store.admit(userId, areaId, direction, System.currentTimeMillis(), policy.capacity(),
+                    policy.antiPassback());
+        } catch (Exception e) {
+            log.warn("门禁区域在场判定失败，放行由权限判定决定: userId={}, areaId={}", userId, areaId, e);
+            return Admission.ACCEPTED;
+        }
+        if (admission == Admission.ANTI_PASSBACK) {
+            violationCount.incrementAndGet();
+        }
+        return admission;
+    }
+
+    public int getOccupancy(Long areaId) {
+        if (areaId == null) {
+            return 0;
+        }
+        return store.getOccupancies(List.of(areaId)).getOrDefault(areaId, 0);
+    }
+
+    /**
+     * 区域实时容量，未加载到容量或反潜配置的区域返回null
+     */
+    public AccessAreaCapacityVO getCapacity(Long areaId) {
+        AreaPolicy policy = areaId != null ? areaPolicies.get(areaId) : null;
+        return policy != null ? buildCapacities(List.of(policy)).get(0) : null;
+    }
+
+    /**
+     * 当前达到告警阈值的区域，按利用率降序
+     */
+    public List<AccessAreaCapacityVO> getCapacityAlerts() {
+        List<AccessAreaCapacityVO> alerts = new ArrayList<>();
+        for (AccessAreaCapacityVO capacity : buildCapacities(new ArrayList<>(areaPolicies.values()))) {
+            if (Boolean.TRUE.equals(capacity.getCapacityAlert())) {
+                alerts.add(capacity);
+            }
+        }
+        alerts.sort((a, b) -> Double.compare(b.getCapacityUtilizationRate(), a.getCapacityUtilizationRate()));
+        return alerts;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("ready", ready);
+        try {
+            stats.put("personCount", store.personCount());
+        } catch (Exception e) {
+            log.warn("读取门禁在场人员数失败", e);
+        }
+        stats.put("areaPolicyCount", areaPolicies.size());
+        stats.put("passbackViolations", violationCount.get());
+        return stats;
+    }
+
+    /**
+     * 一次读取所有区域的在场人数与当日进入次数
+     */
+    private List<AccessAreaCapacityVO> buildCapacities(List<AreaPolicy> policies) {
+        List<Long> areaIds = new ArrayList<>(policies.size());
+        for (AreaPolicy policy : policies) {
+            areaIds.add(policy.areaId());
+        }
+        Map<Long, Integer> occupancies = store.getOccupancies(areaIds);
+        Map<Long, Long> entries = store.getEntries(areaIds, LocalDate.now());
+
+        List<AccessAreaCapacityVO> capacities = new ArrayList<>(policies.size());
+        for (AreaPolicy policy : policies) {
+            capacities.add(buildCapacity(policy, occupancies.getOrDefault(policy.areaId(), 0),
+                    entries.getOrDefault(policy.areaId(), 0L).intValue()));
+        }
+        return capacities;
+    }
+
+    private AccessAreaCapacityVO buildCapacity(AreaPolicy policy, int occupancy, int entryCount) {
+        double utilization = policy.capacity() > 0 ? (double) occupancy / policy.capacity() : 0.0D;
+        String alertLevel;
+        if (policy.capacity() <= 0 || utilization < policy.alertThreshold()) {
+            alertLevel = "NORMAL";
+        } else if (utilization >= 1.0D) {
+            alertLevel = "EMERGENCY";
+        } else if (utilization >= Math.max(CRITICAL_THRESHOLD, policy.alertThreshold())) {
+            alertLevel = "CRITICAL";
+        } else {
+            alertLevel = "WARNING";
+        }
+
+        AccessAreaCapacityVO capacity = new AccessAreaCapacityVO();
+        capacity.setAreaId(policy.areaId());
+        capacity.setDesignCapacity(policy.capacity());
+        capacity.setCurrentOccupancy(occupancy);
+        capacity.setCurrentEntryCount(entryCount);
+        capacity.setCapacityUtilizationRate(utilization);
+        capacity.setCapacityAlert(!"NORMAL".equals(alertLevel));
+        capacity.setAlertLevel(alertLevel);
+        capacity.setLastUpdateTime(LocalDateTime.now());
+        return capacity;
+    }
+
+    /**
+     * 周期维护：检查就绪状态，未就绪时尝试重建；每天清理一次长时间无记录的人员
+     */
+    private void maintain() {
+        try {
+            ready = store.isReady();
+            if (!ready) {
+                rebuild();
+                return;
+            }
+            LocalDate today = LocalDate.now();
+            if (!today.equals(lastExpireDate)) {
+                lastExpireDate = today;
+                int expired = store.expireBefore(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(staleHours));
+                log.info("门禁区域在场状态清理完成: expired={}", expired);
+            }
+        } catch (Exception e) {
+            log.error("门禁区域在场状态维护失败", e);
+        }
+    }
+
+    /**
+     * 清空状态后回放最近的通行事件
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        AtomicLong replayed = new AtomicLong();
+        try {
+            boolean rebuilt = store.rebuild(sink -> accessEventDao.streamPassagesSince(
+                    LocalDateTime.now().minusHours(rebuildHours), context -> {
+                        Passage passage = toPassage(context.getResultObject());
+                        if (passage != null) {
+                            sink.accept(passage);
+                            replayed.incrementAndGet();
+                        }
+                    }));
+            if (rebuilt) {
+                ready = true;
+                log.info("门禁区域在场状态重建完成: replayed={}, cost={}ms", replayed.get(),
+                        System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            log.error("门禁区域在场状态重建失败，下个维护周期重试", e);
+        }
+    }
+
+    private void refreshAreaPolicies() {
+        try {
+            Map<Long, AreaPolicy> policies = new HashMap<>();
+            for (SmartAreaAccessExtensionEntity area : smartAreaAccessExtensionDao.selectCapacityMonitoringAreas()) {
+                policies.put(area.getAreaId(), AreaPolicy.of(area));
+            }
+            for (SmartAreaAccessExtensionEntity area : smartAreaAccessExtensionDao.selectAntiPassbackAreas()) {
+                policies.putIfAbsent(area.getAreaId(), AreaPolicy.of(area));
+            }
+            areaPolicies = policies;
+        } catch (Exception e) {
+            log.error("加载门禁区域容量与反潜配置失败", e);
+        }
+    }
+
+    /**
+     * 验证成功且方向已知的事件转为通行，其余返回null
+     */
+    private static Passage toPassage(AccessEventEntity event) {
+        if (event == null || event.getUserId() == null || event.getAreaId() == null
+                || event.getDirection() == null || event.getEventTime() == null
+                || !Integer.valueOf(VERIFY_RESULT_SUCCESS).equals(event.getVerifyResult())) {
+            return null;
+        }
+        int direction = event.getDirection();
+        if (direction != DIRECTION_IN && direction != DIRECTION_OUT) {
+            return null;
+        }
+        return new Passage(event.getUserId(), event.getAreaId(), direction,
+                event.getEventTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * 区域容量与反潜配置
+     */
+    private record AreaPolicy(long areaId, int capacity, double alertThreshold, boolean antiPassback) {
+
+        static AreaPolicy of(SmartAreaAccessExtensionEntity area) {
+            boolean capacityEnabled = Integer.valueOf(1).equals(area.getCapacityMonitoringEnabled());
+            int capacity = capacityEnabled && area.getMaxConcurrentPersons() != null
+                    ? area.getMaxConcurrentPersons() : 0;
+            double threshold = area.getAlertCapacityThreshold() != null
+                    ? area.getAlertCapacityThreshold() : DEFAULT_ALERT_THRESHOLD;
+            return new AreaPolicy(area.getAreaId(), capacity, threshold,
+                    Integer.valueOf(1).equals(area.getAntiPassbackEnabled()));
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package net.lab1024.sa.admin.module.access.manager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.access.dao.AccessAreaDao;
+import net.lab1024.sa.admin.module.access.dao.AccessDeviceDao;
+import net.lab1024.sa.admin.module.access.domain.entity.AccessAreaEntity;
+import net.lab1024.sa.admin.module.access.domain.entity.AccessDeviceEntity;
+import net.lab1024.sa.admin.module.access.permission.AccessPermissionMatrix;
+import net.lab1024.sa.admin.module.access.permission.LongObjectHashMap;
+import net.lab1024.sa.base.common.cache.CacheInvalidationBus;
+import net.lab1024.sa.base.module.area.dao.PersonAreaRelationDao;
+import net.lab1024.sa.base.module.area.domain.entity.PersonAreaRelationEntity;
+import net.lab1024.sa.base.module.area.event.AreaChangeEvent;
+import net.lab1024.sa.base.module.area.event.PersonAreaChangeEvent;
+
+/**
+ * 门禁权限矩阵管理器
+ * <p>
+ * 维护 {@link AccessPermissionMatrix} 的当前快照：
+ * - 启动时全量构建
+ * - 人员区域关联变更：合并变更人员后增量替换（默认1秒合并一次）
+ * - 区域层级/设备归属变更：重载拓扑并重编译
+ * - 周期性全量重建，兜底处理授权到期等时间驱动的变化，以及广播丢失的变更
+ * <p>
+ * 变更事件在事务提交后处理（无事务时立即处理），避免在提交前读到旧数据；
+ * 本节点处理的同时经 {@link CacheInvalidationBus}（Redis pub/sub）广播，其他节点收到后标记同样的变更
+ * <p>
+ * 所有构建在单线程刷新器中串行执行，读路径只读取volatile快照引用
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class AccessPermissionMatrixManager {
+
+    /** 增量变更合并间隔（毫秒） */
+    private static final long APPLY_INTERVAL_MS = 1000L;
+
+    /** 全量重建间隔（分钟） */
+    private static final long FULL_REBUILD_INTERVAL_MINUTES = 10L;
+
+    /** 按人员批量加载授权的分批大小 */
+    private static final int PERSON_BATCH_SIZE = 500;
+
+    /** 人员区域关联启用状态 */
+    private static final int RELATION_STATUS_ENABLED = 1;
+
+    /** 人员授权变更广播区域，键为人员ID */
+    private static final String PERSON_REGION = "access:permission:person";
+
+    /** 区域拓扑变更广播区域，不带键 */
+    private static final String TOPOLOGY_REGION = "access:permission:topology";
+
+    @Resource
+    private AccessAreaDao accessAreaDao;
+
+    @Resource
+    private AccessDeviceDao accessDeviceDao;
+
+    @Resource
+    private PersonAreaRelationDao personAreaRelationDao;
+
+    @Resource
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /** 当前快照，构建完成前为null */
+    private volatile AccessPermissionMatrix matrix;
+
+    /** 待增量刷新的人员 */
+    private final Set<Long> pendingPersons = ConcurrentHashMap.newKeySet();
+
+    /** 区域拓扑是否待刷新 */
+    private final AtomicBoolean pendingTopology = new AtomicBoolean(false);
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "access-permission-matrix");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        cacheInvalidationBus.subscribe(PERSON_REGION, key -> {
+            if (key != null) {
+                markPersonChanged(Long.valueOf(key));
+            }
+        });
+        cacheInvalidationBus.subscribe(TOPOLOGY_REGION, key -> markTopologyChanged());
+        refresher.execute(this::rebuildAll);
+        refresher.scheduleWithFixedDelay(this::applyPendingChanges, APPLY_INTERVAL_MS, APPLY_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+        refresher.scheduleWithFixedDelay(this::rebuildAll, FULL_REBUILD_INTERVAL_MINUTES,
+                FULL_REBUILD_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * 权限矩阵是否已可用
+     */
+    public boolean isReady() {
+        return matrix != null;
+    }
+
+    /**
+     * 通行判定
+     *
+     * @return 判定结果，矩阵未就绪时返回null，由调用方回退到原有逻辑
+     */
+    public AccessPermissionMatrix.Decision check(Long userId, Long deviceId) {
+        AccessPermissionMatrix current = matrix;
+        if (current == null || userId == null || deviceId == null) {
+            return null;
+        }
+        return current.check(userId, deviceId);
+    }
+
+    /**
+     * 设备所在区域ID，矩阵未就绪或设备未绑定门禁区域时返回null
+     */
+    public Long areaOf(Long deviceId) {
+        AccessPermissionMatrix current = matrix;
+        return current != null && deviceId != null ? current.areaOf(deviceId) : null;
+    }
+
+    /**
+     * 标记本节点人员授权变化，不广播；业务变更应发布 {@link PersonAreaChangeEvent}
+     */
+    public void markPersonChanged(Long personId) {
+        if (personId != null) {
+            pendingPersons.add(personId);
+        }
+    }
+
+    /**
+     * 标记本节点区域拓扑或设备归属变化，不广播；业务变更应发布 {@link AreaChangeEvent}
+     */
+    public void markTopologyChanged() {
+        pendingTopology.set(true);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPersonAreaChange(PersonAreaChangeEvent event) {
+        if (event.getPersonId() == null) {
+            return;
+        }
+        markPersonChanged(event.getPersonId());
+        cacheInvalidationBus.publish(PERSON_REGION, String.valueOf(event.getPersonId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAreaChange(AreaChangeEvent event) {
+        markTopologyChanged();
+        cacheInvalidationBus.publish(TOPOLOGY_REGION, null);
+    }
+
+    /**
+     * 获取矩阵统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        AccessPermissionMatrix current = matrix;
+        stats.put("ready", current != null);
+        if (current != null) {
+            stats.put("personCount", current.personCount());
+            stats.put("areaCount", current.areaCount());
+            stats.put("deviceCount", current.deviceCount());
+        }
+        stats.put("pendingPersons", pendingPersons.size());
+        return stats;
+    }
+
+    // ================================
+    // 构建逻辑（仅在refresher线程执行）
+    // ================================
+
+    private void rebuildAll() {
+        long startTime = System.currentTimeMillis();
+        try {
+            pendingTopology.set(false);
+            pendingPersons.clear();
+            LongObjectHashMap<long[]> assignments = groupByPerson(personAreaRelationDao.selectList(activeRelationWrapper()));
+            matrix = AccessPermissionMatrix.build(loadAreas(), loadDevices(), assignments);
+            log.info("门禁权限矩阵全量构建完成: persons={}, areas={}, devices={}, 耗时={}ms",
+                    matrix.personCount(), matrix.areaCount(), matrix.deviceCount(),
+                    System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("门禁权限矩阵全量构建失败", e);
+        }
+    }
+
+    private void applyPendingChanges() {
+        AccessPermissionMatrix current = matrix;
+        if (current == null) {
+            return;
+        }
+        try {
+            if (pendingTopology.getAndSet(false)) {
+                current = current.withTopology(loadAreas(), loadDevices());
+                matrix = current;
+                log.info("门禁权限矩阵拓扑重编译完成: areas={}, devices={}", current.areaCount(), current.deviceCount());
+            }
+
+            if (pendingPersons.isEmpty()) {
+                return;
+            }
+            List<Long> personIds = new ArrayList<>(pendingPersons);
+            pendingPersons.removeAll(personIds);
+
+            LongObjectHashMap<long[]> changes = new LongObjectHashMap<>(personIds.size());
+            for (int from = 0; from < personIds.size(); from += PERSON_BATCH_SIZE) {
+                List<Long> batch = personIds.subList(from, Math.min(from + PERSON_BATCH_SIZE, personIds.size()));
+                LambdaQueryWrapper<PersonAreaRelationEntity> wrapper = activeRelationWrapper();
+                wrapper.in(PersonAreaRelationEntity::getPersonId, batch);
+                LongObjectHashMap<long[]> loaded = groupByPerson(personAreaRelationDao.selectList(wrapper));
+                for (Long personId : batch) {
+                    long[] areaIds = loaded.get(personId);
+                    changes.put(personId, areaIds != null ? areaIds : new long[0]);
+                }
+            }
+            matrix = current.withPersons(changes);
+            log.debug("门禁权限矩阵增量刷新完成: persons={}", personIds.size());
+        } catch (Exception e) {
+            log.error("门禁权限矩阵增量刷新失败，转为全量重建", e);
+            rebuildAll();
+        }
+    }
+
+    private List<AccessAreaEntity> loadAreas() {
+        return accessAreaDao.selectList(new LambdaQueryWrapper<AccessAreaEntity>()
+                .select(AccessAreaEntity::getAreaId, AccessAreaEntity::getParentId, AccessAreaEntity::getPath)
+                .eq(AccessAreaEntity::getDeletedFlag, 0));
+    }
+
+    private List<AccessDeviceEntity> loadDevices() {
+        return accessDeviceDao.selectList(new LambdaQueryWrapper<AccessDeviceEntity>()
+                .eq(AccessDeviceEntity::getDeletedFlag, 0));
+    }
+
+    /**
+     * 当前生效的人员区域关联：启用、未删除、处于有效期内
+     */
+    private LambdaQueryWrapper<PersonAreaRelationEntity> activeRelationWrapper() {
+        LocalDateTime now = LocalDateTime.now();
+        LambdaQueryWrapper<PersonAreaRelationEntity> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(PersonAreaRelationEntity::getPersonId, PersonAreaRelationEntity::getAreaId)
+                .eq(PersonAreaRelationEntity::getStatus, RELATION_STATUS_ENABLED)
+                .eq(PersonAreaRelationEntity::getDeletedFlag, 0)
+                .and(w -> w.isNull(PersonAreaRelationEntity::getEffectiveTime)
+                        .or().le(PersonAreaRelationEntity::getEffectiveTime, now))
+                .and(w -> w.isNull(PersonAreaRelationEntity::getExpireTime)
+                        .or().gt(PersonAreaRelationEntity::getExpireTime, now));
+        return wrapper;
+    }
+
+    private LongObjectHashMap<long[]> groupByPerson(List<PersonAreaRelationEntity> relations) {
+        Map<Long, List<Long>> grouped = new HashMap<>();
+        for (PersonAreaRelationEntity relation : relations) {
+            if (relation.getPersonId() != null && relation.getAreaId() != null) {
+                grouped.computeIfAbsent(relation.getPersonId(), k -> new ArrayList<>()).add(relation.getAreaId());
+            }
+        }
+        LongObjectHashMap<long[]> result = new LongObjectHashMap<>(grouped.size());
+        grouped.forEach((personId, areaIds) -> result.put(personId, AccessPermissionMatrix.toAreaIdArray(areaIds)));
+        return result;
+    }
+}
@@ -1,6 +1,7 @@
 package net.lab1024.sa.admin.module.access.manager;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -14,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import net.lab1024.sa.admin.module.access.dao.AccessRecordDao;
 import net.lab1024.sa.admin.module.access.domain.entity.AccessRecordEntity;
+import net.lab1024.sa.admin.module.access.permission.AccessPermissionMatrix;
 import net.lab1024.sa.admin.module.access.service.AccessCacheService;
 
 /**
@@ -28,7 +30,8 @@ import net.lab1024.sa.admin.module.access.service.AccessCacheService;
  *
  * 核心职责:
  * - 门禁记录缓存管理
- * - 用户权限缓存
+ * - 用户权限判定（预编译权限矩阵，未就绪时回退到缓存+查询）
+ * - 通行判定（权限 + 区域反潜回 + 区域容量，均为内存判定）
  * - 访问统计分析
  * - 实时门禁状态监控
  *
@@ -53,6 +56,19 @@ public class AccessRecordManager {
     @Resource
     private AccessCacheService accessCacheService;
 
+    @Resource
+    private AccessPermissionMatrixManager accessPermissionMatrixManager;
+
+    @Resource
+    private AccessOccupancyManager accessOccupancyManager;
+
+    // 权限矩阵判定的固定结果（不可变，热路径零分配）
+    private static final Map<String, Object> PERMISSION_ALLOWED = Map.of("allowed", true, "reason", "权限验证通过");
+    private static final Map<String, Object> PERMISSION_DENIED = Map.of("allowed", false, "reason", "无访问权限");
+    private static final Map<String, Object> PERMISSION_UNKNOWN_DEVICE = Map.of("allowed", false, "reason", "设备未绑定门禁区域");
+    private static final Map<String, Object> PASSAGE_ANTI_PASSBACK = Map.of("allowed", false, "reason", "违反反潜回规则");
+    private static final Map<String, Object> PASSAGE_AREA_FULL = Map.of("allowed", false, "reason", "区域人数已满");
+
     // 实时访问统计缓存（内存缓存，用于高频更新）
     private final Map<String, Long> accessStatsCache = new ConcurrentHashMap<>();
 
@@ -74,9 +90,6 @@ public class AccessRecordManager {
         if (record != null) {
             // 缓存查询结果
             accessCacheService.cacheAccessRecord(record);
-
-            // 更新相关统计缓存
-            updateAccessStats(record);
         }
 
         return record;
@@ -90,10 +103,27 @@ public class AccessRecordManager {
     public void cacheAccessRecord(AccessRecordEntity record) {
         if (record != null && record.getRecordId() != null) {
             accessCacheService.cacheAccessRecord(record);
+        }
+    }
 
-            // 更新相关统计缓存
-            updateAccessStats(record);
+    /**
+     * 通行记录写库后增量更新统计
+     * <p>
+     * 由 {@link AccessWriteBehindManager} 的刷写线程按批调用：同一日期的增量先在本地合并，
+     * 再对已存在的计数和统计缓存做一次读改写，不再清除缓存迫使下次查询全量重算
+     *
+     * @param records 已写库的通行记录
+     */
+    public void onRecordsPersisted(List<AccessRecordEntity> records) {
+        Map<String, StatsDelta> deltas = new HashMap<>();
+        for (AccessRecordEntity record : records) {
+            if (record.getAccessTime() == null) {
+                continue;
+            }
+            String date = record.getAccessTime().toLocalDate().toString();
+            deltas.computeIfAbsent(date, k -> new StatsDelta()).add(record);
         }
+        deltas.forEach(this::updateAccessStats);
     }
 
     /**
@@ -270,6 +300,30 @@ public class AccessRecordManager {
         return stats;
     }
 
+    /**
+     * 检查用户通行：在权限判定之后叠加区域反潜回与容量限制，放行时即预占区域在场名额
+     *
+     * @param userId    用户ID
+     * @param deviceId  设备ID
+     * @param areaId    设备所在区域ID
+     * @param direction 通行方向（0进 1出）
+     * @return 通行检查结果
+     */
+    public Map<String, Object> checkUserPassage(Long userId, Long deviceId, Long areaId, Integer direction) {
+        Map<String, Object> permission = checkUserPermission(userId, deviceId);
+        if (!Boolean.TRUE.equals(permission.get("allowed"))) {
+            return permission;
+        }
+        switch (accessOccupancyManager.admit(userId, areaId, direction)) {
+            case ANTI_PASSBACK:
+                return PASSAGE_ANTI_PASSBACK;
+            case AREA_FULL:
+                return PASSAGE_AREA_FULL;
+            default:
+                return permission;
+        }
+    }
+
     /**
      * 检查用户访问权限
      *
@@ -278,7 +332,20 @@ public class AccessRecordManager {
      * @return 权限检查结果
      */
     public Map<String, Object> checkUserPermission(Long userId, Long deviceId) {
-        // 先从统一缓存获取权限信息
+        // 优先使用预编译权限矩阵（内存位图判定）
+        AccessPermissionMatrix.Decision decision = accessPermissionMatrixManager.check(userId, deviceId);
+        if (decision != null) {
+            switch (decision) {
+                case ALLOWED:
+                    return PERMISSION_ALLOWED;
+                case UNKNOWN_DEVICE:
+                    return PERMISSION_UNKNOWN_DEVICE;
+                default:
+                    return PERMISSION_DENIED;
+            }
+        }
+
+        // 矩阵未就绪时回退：先从统一缓存获取权限信息
         Map<String, Object> cachedPermission = accessCacheService.checkUserPermission(userId, deviceId);
         if (!cachedPermission.isEmpty()) {
             return cachedPermission;
@@ -326,26 +393,71 @@ public class AccessRecordManager {
     }
 
     /**
-     * 更新访问统计
+     * 增量更新访问统计
+     * <p>
+     * 实时计数只在已有基线时累加，没有基线说明尚未被查询过，由查询时从数据库初始化
      *
-     * @param record 门禁记录
+     * @param date  日期 yyyy-MM-dd
+     * @param delta 当日增量
      */
-    private void updateAccessStats(AccessRecordEntity record) {
-        String date = record.getAccessTime() != null ? record.getAccessTime().toLocalDate().toString()
-                : null;
-        if (date != null) {
-            // 更新当日统计计数
-            String totalKey = "today_total_" + date;
-            accessStatsCache.compute(totalKey, (k, v) -> v == null ? 1L : v + 1L);
+    private void updateAccessStats(String date, StatsDelta delta) {
+        accessStatsCache.computeIfPresent("today_total_" + date, (k, v) -> v + delta.total);
+        if (delta.success > 0) {
+            accessStatsCache.computeIfPresent("today_success_" + date, (k, v) -> v + delta.success);
+        }
 
-            if ("SUCCESS".equals(record.getAccessResult())) {
-                String successKey = "today_success_" + date;
-                accessStatsCache.compute(successKey, (k, v) -> v == null ? 1L : v + 1L);
+        try {
+            Map<String, Object> cachedStats = accessCacheService.getAccessStats(date);
+            if (cachedStats.isEmpty() || cachedStats.containsKey("error")) {
+                return;
+            }
+            long totalCount = toLong(cachedStats.get("totalCount")) + delta.total;
+            long successCount = toLong(cachedStats.get("successCount")) + delta.success;
+            Map<String, Object> stats = new ConcurrentHashMap<>(cachedStats);
+            stats.put("totalCount", totalCount);
+            stats.put("successCount", successCount);
+            stats.put("failCount", totalCount - successCount);
+            double successRate = totalCount > 0 ? (double) successCount / totalCount * 100 : 0;
+            stats.put("successRate", Math.round(successRate * 100.0) / 100.0);
+
+            Map<String, Long> accessTypeStats = new ConcurrentHashMap<>();
+            if (cachedStats.get("accessTypeStats") instanceof Map<?, ?> cachedTypeStats) {
+                cachedTypeStats.forEach((type, count) -> accessTypeStats.put(String.valueOf(type), toLong(count)));
             }
+            delta.byType.forEach((type, count) -> accessTypeStats.merge(type, count, Long::sum));
+            stats.put("accessTypeStats", accessTypeStats);
+
+            accessCacheService.cacheAccessStats(date, stats);
+        } catch (Exception e) {
+            // 增量失败时退回清除缓存，由下次查询重算
+            log.warn("增量更新访问统计失败，清除统计缓存: date={}", date, e);
+            removeCache(buildCacheKey("stats", ":" + date));
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    /**
+     * 单日统计增量
+     */
+    private static final class StatsDelta {
 
-            // 清除当日统计缓存，强制重新计算
-            String statsKey = buildCacheKey("stats", ":" + date);
-            removeCache(statsKey);
+        private long total;
+
+        private long success;
+
+        private final Map<String, Long> byType = new HashMap<>();
+
+        private void add(AccessRecordEntity record) {
+            total++;
+            if ("SUCCESS".equals(record.getAccessResult())) {
+                success++;
+            }
+            if (record.getAccessType() != null) {
+                byType.merge(record.getAccessType(), 1L, Long::sum);
+            }
         }
     }
 
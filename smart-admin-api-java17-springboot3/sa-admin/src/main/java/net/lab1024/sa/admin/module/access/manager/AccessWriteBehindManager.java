@@ -0,0 +1,177 @@
+package net.lab1024.sa.admin.module.access.manager;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.access.dao.AccessEventDao;
+import net.lab1024.sa.admin.module.access.dao.AccessRecordDao;
+import net.lab1024.sa.admin.module.access.domain.entity.AccessEventEntity;
+import net.lab1024.sa.admin.module.access.domain.entity.AccessRecordEntity;
+import net.lab1024.sa.admin.module.access.writebehind.WriteBehindBuffer;
+import net.lab1024.sa.admin.module.access.writebehind.WriteBehindOptions;
+
+/**
+ * 门禁通行数据异步写入管理器
+ * <p>
+ * 通行记录与通行事件不再在请求线程逐条INSERT，统一提交到 {@link WriteBehindBuffer}，
+ * 由后台线程在事务内调用 MyBatis-Plus 批量插入（配合 rewriteBatchedStatements 合并为多值INSERT）。
+ * 记录写库成功后通知 {@link AccessRecordManager} 增量更新统计计数；
+ * 事件被缓冲接收后即更新 {@link AccessOccupancyManager} 的区域在场状态，不等待写库；未被接收的事件不计入在场状态
+ * <p>
+ * 提交接口只表示数据已被接收（进入缓冲或已落盘），不表示已写库
+ * <p>
+ * 配置项（access.write-behind.*）：capacity、batch-size、flush-interval-ms、offer-timeout-ms、
+ * retry-backoff-ms、spill-dir（必填，须为持久化磁盘，未配置时启动失败）
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class AccessWriteBehindManager {
+
+    @Resource
+    private AccessRecordDao accessRecordDao;
+
+    @Resource
+    private AccessEventDao accessEventDao;
+
+    @Resource
+    private AccessRecordManager accessRecordManager;
+
+    @Resource
+    private AccessOccupancyManager accessOccupancyManager;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Resource
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${access.write-behind.capacity:65536}")
+    private int capacity;
+
+    @Value("${access.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${access.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${access.write-behind.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${access.write-behind.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    @Value("${access.write-behind.spill-dir:}")
+    private String spillDir;
+
+    private WriteBehindBuffer<AccessRecordEntity> recordBuffer;
+
+    private WriteBehindBuffer<AccessEventEntity> eventBuffer;
+
+    @PostConstruct
+    public void init() {
+        if (!StringUtils.hasText(spillDir)) {
+            throw new IllegalStateException("未配置门禁通行数据落盘目录 access.write-behind.spill-dir，"
+                    + "写库失败时数据无处持久化，须配置为持久化磁盘上的目录");
+        }
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        WriteBehindOptions options = buildOptions();
+
+        recordBuffer = new WriteBehindBuffer<>("record", AccessRecordEntity.class,
+                batch -> transactionTemplate.executeWithoutResult(status -> accessRecordDao.insert(batch)),
+                accessRecordManager::onRecordsPersisted, options, meterRegistry);
+        eventBuffer = new WriteBehindBuffer<>("event", AccessEventEntity.class,
+                batch -> transactionTemplate.executeWithoutResult(status -> accessEventDao.insert(batch)),
+                batch -> { }, options, meterRegistry);
+
+        recordBuffer.start();
+        eventBuffer.start();
+        log.info("门禁通行数据异步写入已启动: batchSize={}, flushIntervalMs={}, capacity={}, spillDir={}",
+                batchSize, flushIntervalMs, capacity, spillDir);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        recordBuffer.shutdown();
+        eventBuffer.shutdown();
+    }
+
+    /**
+     * 提交通行记录
+     *
+     * @return 是否已接收（尚未写库）
+     */
+    public boolean submitRecord(AccessRecordEntity record) {
+        return recordBuffer.submit(record);
+    }
+
+    /**
+     * 提交通行事件
+     *
+     * @return 是否已接收（尚未写库）
+     */
+    public boolean submitEvent(AccessEventEntity event) {
+        if (event == null) {
+            return false;
+        }
+        if (!eventBuffer.submit(event)) {
+            return false;
+        }
+        accessOccupancyManager.onEvent(event);
+        return true;
+    }
+
+    /**
+     * 批量提交通行事件
+     *
+     * @return 已接收的条数
+     */
+    public int submitEvents(List<AccessEventEntity> events) {
+        List<AccessEventEntity> accepted = new ArrayList<>(events.size());
+        for (AccessEventEntity event : events) {
+            if (event != null && eventBuffer.submit(event)) {
+                accepted.add(event);
+            }
+        }
+        accessOccupancyManager.onEvents(accepted);
+        return accepted.size();
+    }
+
+    /**
+     * 获取异步写入统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("record", recordBuffer.getStatistics());
+        stats.put("event", eventBuffer.getStatistics());
+        return stats;
+    }
+
+    private WriteBehindOptions buildOptions() {
+        WriteBehindOptions options = new WriteBehindOptions();
+        options.setCapacity(capacity);
+        options.setBatchSize(batchSize);
+        options.setFlushIntervalMs(flushIntervalMs);
+        options.setOfferTimeoutMs(offerTimeoutMs);
+        options.setRetryBackoffMs(retryBackoffMs);
+        options.setSpillDir(Paths.get(spillDir));
+        return options;
+    }
+}
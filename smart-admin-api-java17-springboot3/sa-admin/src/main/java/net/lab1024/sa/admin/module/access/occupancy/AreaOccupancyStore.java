@@ -0,0 +1,105 @@
+package net.lab1024.sa.admin.module.access.occupancy;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 区域在场状态存储
+ * <p>
+ * - 人员状态：最近一次通行的区域、方向、时间，以及该状态是否由通行判定预占（尚未收到对应事件）
+ * - 区域计数：在场人数、按日期的进出次数
+ * <p>
+ * 同一人员的事件按时间单调处理，不晚于已记录时间的事件视为重复或乱序直接忽略，
+ * 因此重建时回放通行事件与实时事件并发写入也是幂等的。
+ * 区域按平面处理：人员同一时刻只在一个区域内，进入新区域即视为离开原区域
+ * <p>
+ * 通行判定 {@link #admit} 在放行时即更新在场人数并把人员状态标记为预占，判定与计数一次完成，
+ * 并发进入不会超出容量；随后到达的同区域同方向事件认领预占状态，只补记进出次数，不重复计数
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public interface AreaOccupancyStore {
+
+    /**
+     * 通行方向，与 t_smart_access_event.direction 一致
+     */
+    int DIRECTION_IN = 0;
+
+    int DIRECTION_OUT = 1;
+
+    /**
+     * 通行判定结果
+     */
+    enum Admission {
+        /** 放行，在场状态已更新 */
+        ACCEPTED,
+        /** 违反反潜回规则 */
+        ANTI_PASSBACK,
+        /** 区域人数已满 */
+        AREA_FULL
+    }
+
+    /**
+     * 一次通行
+     */
+    record Passage(long personId, long areaId, int direction, long timestamp) {
+    }
+
+    /**
+     * 通行判定，放行时在同一原子操作内更新在场状态
+     *
+     * @param capacity     区域最大容量，0为不限
+     * @param antiPassback 是否启用反潜回
+     */
+    Admission admit(long personId, long areaId, int direction, long timestamp, int capacity, boolean antiPassback);
+
+    /**
+     * 记录已发生的通行，不晚于已记录时间的忽略
+     *
+     * @return 是否已处理
+     */
+    boolean apply(Passage passage);
+
+    /**
+     * 批量记录已发生的通行
+     *
+     * @return 已处理的条数
+     */
+    int applyAll(List<Passage> passages);
+
+    /**
+     * 清理最近通行早于截止时间的人员（长时间无记录，视为已离开且不再参与反潜判定）
+     *
+     * @return 清理人数
+     */
+    int expireBefore(long cutoffTimestamp);
+
+    /**
+     * 在场人数，未出现过的区域为0
+     */
+    Map<Long, Integer> getOccupancies(Collection<Long> areaIds);
+
+    /**
+     * 指定日期的进入次数，未出现过的区域为0
+     */
+    Map<Long, Long> getEntries(Collection<Long> areaIds, LocalDate date);
+
+    long personCount();
+
+    /**
+     * 状态是否完整（已完成重建）
+     */
+    boolean isReady();
+
+    /**
+     * 清空状态后回放通行，完成后标记就绪；已有其他重建在进行时直接返回
+     *
+     * @param replay 向传入的接收方依次提交待回放的通行
+     * @return 是否执行了重建
+     */
+    boolean rebuild(Consumer<Consumer<Passage>> replay);
+}
@@ -0,0 +1,324 @@
+package net.lab1024.sa.admin.module.access.occupancy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Redis区域在场状态存储，所有节点共享同一份，判定与记录均在Lua脚本内原子完成
+ * <p>
+ * - 人员状态：哈希 persons，人员ID -> "区域ID:方向:时间戳:是否预占"
+ * - 区域在场人数：哈希 areas，区域ID -> 人数
+ * - 当日进出次数：按日期的哈希 flow:{yyyy-MM-dd}，字段 "区域ID:in" / "区域ID:out"，保留2天
+ * <p>
+ * 批量记录通过管道发送，一批事件一次往返
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class RedisAreaOccupancyStore implements AreaOccupancyStore {
+
+    /** 哈希标签保证脚本涉及的键在集群中落在同一槽 */
+    private static final String KEY_PREFIX = "access:occupancy:{state}:";
+
+    private static final String PERSONS_KEY = KEY_PREFIX + "persons";
+
+    private static final String AREAS_KEY = KEY_PREFIX + "areas";
+
+    private static final String FLOW_KEY_PREFIX = KEY_PREFIX + "flow:";
+
+    private static final String READY_KEY = KEY_PREFIX + "ready";
+
+    private static final String REBUILD_LOCK_KEY = "access:occupancy:rebuild-lock";
+
+    private static final String EXPIRE_LOCK_KEY = "access:occupancy:expire-lock";
+
+    /** 进出计数保留时间（秒） */
+    private static final long FLOW_TTL_SECONDS = TimeUnit.DAYS.toSeconds(2);
+
+    private static final long REBUILD_LOCK_MINUTES = 30L;
+
+    /** 重建回放每批提交的事件数 */
+    private static final int REPLAY_BATCH_SIZE = 500;
+
+    /**
+     * 通行判定，放行时更新在场人数并把人员状态标记为预占
+     * KEYS: persons, areas；ARGV: 人员ID, 区域ID, 方向, 时间戳, 是否反潜(1/0), 最大容量(0为不限)
+     * 返回0放行，1违反反潜回，2区域已满
+     */
+    private static final RedisScript<Long> ADMIT_SCRIPT = RedisScript.of(
+            "local prev = redis.call('HGET', KEYS[1], ARGV[1]) "
+                    + "local area = ARGV[2] "
+                    + "local dir = ARGV[3] "
+                    + "local ts = ARGV[4] "
+                    + "local pArea, pDir, pTs "
+                    + "if prev then pArea, pDir, pTs = string.match(prev, '^(%d+):(%d+):(%d+)') end "
+                    + "if ARGV[5] == '1' and pArea == area and pDir == dir then return 1 end "
+                    + "local inside = pDir == '0' "
+                    + "local function dec(a) "
+                    + "  if redis.call('HINCRBY', KEYS[2], a, -1) < 0 then redis.call('HSET', KEYS[2], a, 0) end "
+                    + "end "
+                    + "if dir == '0' then "
+                    + "  if not (inside and pArea == area) then "
+                    + "    local capacity = tonumber(ARGV[6]) "
+                    + "    if capacity > 0 and tonumber(redis.call('HGET', KEYS[2], area) or '0') >= capacity then "
+                    + "      return 2 "
+                    + "    end "
+                    + "    if inside then dec(pArea) end "
+                    + "    redis.call('HINCRBY', KEYS[2], area, 1) "
+                    + "  end "
+                    + "elseif inside then "
+                    + "  dec(pArea) "
+                    + "end "
+                    + "if pTs and tonumber(pTs) > tonumber(ts) then ts = pTs end "
+                    + "redis.call('HSET', KEYS[1], ARGV[1], area .. ':' .. dir .. ':' .. ts .. ':1') "
+                    + "return 0", Long.class);
+
+    /**
+     * 记录一次已发生的通行；同区域同方向的预占状态由事件认领，只补记进出次数
+     * KEYS: persons, areas, flow；ARGV: 人员ID, 区域ID, 方向, 时间戳, 进出计数保留秒数
+     * 返回0表示事件不晚于已记录状态被忽略，1表示已处理
+     */
+    private static final RedisScript<Long> APPLY_SCRIPT = RedisScript.of(
+            "local prev = redis.call('HGET', KEYS[1], ARGV[1]) "
+                    + "local area = ARGV[2] "
+                    + "local dir = ARGV[3] "
+                    + "local ts = ARGV[4] "
+                    + "local pArea, pDir, pTs, pPending "
+                    + "if prev then "
+                    + "  pArea, pDir, pTs, pPending = string.match(prev, '^(%d+):(%d+):(%d+):?(%d*)$') "
+                    + "end "
+                    + "if pPending == '1' and pArea == area and pDir == dir then "
+                    + "  if tonumber(pTs) > tonumber(ts) then ts = pTs end "
+                    + "else "
+                    + "  if pTs and tonumber(pTs) >= tonumber(ts) then return 0 end "
+                    + "  local inside = pDir == '0' "
+                    + "  local function dec(a) "
+                    + "    if redis.call('HINCRBY', KEYS[2], a, -1) < 0 then redis.call('HSET', KEYS[2], a, 0) end "
+                    + "  end "
+                    + "  if dir == '0' then "
+                    + "    if not (inside and pArea == area) then "
+                    + "      if inside then dec(pArea) end "
+                    + "      redis.call('HINCRBY', KEYS[2], area, 1) "
+                    + "    end "
+                    + "  elseif inside then "
+                    + "    dec(pArea) "
+                    + "  end "
+                    + "end "
+                    + "redis.call('HSET', KEYS[1], ARGV[1], area .. ':' .. dir .. ':' .. ts .. ':0') "
+                    + "redis.call('HINCRBY', KEYS[3], area .. (dir == '0' and ':in' or ':out'), 1) "
+                    + "redis.call('EXPIRE', KEYS[3], ARGV[5]) "
+                    + "return 1", Long.class);
+
+    /**
+     * 清理长时间无记录的人员，期间有新事件写入则保留
+     * KEYS: persons, areas；ARGV: 人员ID, 截止时间戳
+     */
+    private static final RedisScript<Long> EXPIRE_SCRIPT = RedisScript.of(
+            "local prev = redis.call('HGET', KEYS[1], ARGV[1]) "
+                    + "if not prev then return 0 end "
+                    + "local pArea, pDir, pTs = string.match(prev, '^(%d+):(%d+):(%d+)') "
+                    + "if pTs and tonumber(pTs) >= tonumber(ARGV[2]) then return 0 end "
+                    + "redis.call('HDEL', KEYS[1], ARGV[1]) "
+                    + "if pDir == '0' and redis.call('HINCRBY', KEYS[2], pArea, -1) < 0 then "
+                    + "  redis.call('HSET', KEYS[2], pArea, 0) "
+                    + "end "
+                    + "return 1", Long.class);
+
+    /**
+     * 仅持有者可释放锁
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final byte[] APPLY_SCRIPT_BYTES = APPLY_SCRIPT.getScriptAsString()
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final ZoneId zone;
+
+    public RedisAreaOccupancyStore(StringRedisTemplate stringRedisTemplate, ZoneId zone) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.zone = zone;
+    }
+
+    @Override
+    public Admission admit(long personId, long areaId, int direction, long timestamp, int capacity,
+                           boolean antiPassback) {
+        Long result = stringRedisTemplate.execute(ADMIT_SCRIPT, List.of(PERSONS_KEY, AREAS_KEY),
+                String.valueOf(personId), String.valueOf(areaId), String.valueOf(direction),
+                String.valueOf(timestamp), antiPassback ? "1" : "0", String.valueOf(Math.max(0, capacity)));
+        if (result != null && result == 1L) {
+            return Admission.ANTI_PASSBACK;
+        }
+        return result != null && result == 2L ? Admission.AREA_FULL : Admission.ACCEPTED;
+    }
+
+    @Override
+    public boolean apply(Passage passage) {
+        Long result = stringRedisTemplate.execute(APPLY_SCRIPT,
+                List.of(PERSONS_KEY, AREAS_KEY, flowKey(passage.timestamp())),
+                String.valueOf(passage.personId()), String.valueOf(passage.areaId()),
+                String.valueOf(passage.direction()), String.valueOf(passage.timestamp()),
+                String.valueOf(FLOW_TTL_SECONDS));
+        return result != null && result == 1L;
+    }
+
+    @Override
+    public int applyAll(List<Passage> passages) {
+        if (passages.isEmpty()) {
+            return 0;
+        }
+        if (passages.size() == 1) {
+            return apply(passages.get(0)) ? 1 : 0;
+        }
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Passage passage : passages) {
+                eval(connection, passage);
+            }
+            return null;
+        });
+        int applied = 0;
+        for (Object result : results) {
+            if (result instanceof Long value && value == 1L) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public int expireBefore(long cutoffTimestamp) {
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(EXPIRE_LOCK_KEY, "1",
+                1, TimeUnit.HOURS))) {
+            return 0;
+        }
+        List<String> stale = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().count(1000).build();
+        try (Cursor<Map.Entry<Object, Object>> cursor = stringRedisTemplate.opsForHash().scan(PERSONS_KEY,
+                options)) {
+            while (cursor.hasNext()) {
+                Map.Entry<Object, Object> entry = cursor.next();
+                String[] parts = entry.getValue().toString().split(":");
+                if (parts.length >= 3 && Long.parseLong(parts[2]) < cutoffTimestamp) {
+                    stale.add(entry.getKey().toString());
+                }
+            }
+        }
+        int expired = 0;
+        for (String personId : stale) {
+            Long removed = stringRedisTemplate.execute(EXPIRE_SCRIPT, List.of(PERSONS_KEY, AREAS_KEY), personId,
+                    String.valueOf(cutoffTimestamp));
+            expired += removed != null ? removed.intValue() : 0;
+        }
+        return expired;
+    }
+
+    @Override
+    public Map<Long, Integer> getOccupancies(Collection<Long> areaIds) {
+        List<Long> ids = new ArrayList<>(areaIds);
+        List<Object> fields = new ArrayList<>(ids.size());
+        for (Long areaId : ids) {
+            fields.add(String.valueOf(areaId));
+        }
+        List<Object> values = stringRedisTemplate.opsForHash().multiGet(AREAS_KEY, fields);
+        Map<Long, Integer> result = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object value = values.get(i);
+            result.put(ids.get(i), value != null ? Integer.parseInt(value.toString()) : 0);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Long, Long> getEntries(Collection<Long> areaIds, LocalDate date) {
+        List<Long> ids = new ArrayList<>(areaIds);
+        List<Object> fields = new ArrayList<>(ids.size());
+        for (Long areaId : ids) {
+            fields.add(areaId + ":in");
+        }
+        List<Object> values = stringRedisTemplate.opsForHash().multiGet(FLOW_KEY_PREFIX + date, fields);
+        Map<Long, Long> result = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object value = values.get(i);
+            result.put(ids.get(i), value != null ? Long.parseLong(value.toString()) : 0L);
+        }
+        return result;
+    }
+
+    @Override
+    public long personCount() {
+        Long size = stringRedisTemplate.opsForHash().size(PERSONS_KEY);
+        return size != null ? size : 0L;
+    }
+
+    @Override
+    public boolean isReady() {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(READY_KEY));
+    }
+
+    /**
+     * 同一时间只有一个节点执行；进出次数随回放重新累计
+     */
+    @Override
+    public boolean rebuild(Consumer<Consumer<Passage>> replay) {
+        String lockValue = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(REBUILD_LOCK_KEY, lockValue,
+                REBUILD_LOCK_MINUTES, TimeUnit.MINUTES))) {
+            return false;
+        }
+        try {
+            LocalDate today = LocalDate.now(zone);
+            stringRedisTemplate.delete(List.of(PERSONS_KEY, AREAS_KEY, FLOW_KEY_PREFIX + today,
+                    FLOW_KEY_PREFIX + today.minusDays(1)));
+            List<Passage> batch = new ArrayList<>(REPLAY_BATCH_SIZE);
+            replay.accept(passage -> {
+                batch.add(passage);
+                if (batch.size() >= REPLAY_BATCH_SIZE) {
+                    applyAll(batch);
+                    batch.clear();
+                }
+            });
+            applyAll(batch);
+            stringRedisTemplate.opsForValue().set(READY_KEY, String.valueOf(System.currentTimeMillis()));
+            return true;
+        } finally {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(REBUILD_LOCK_KEY), lockValue);
+        }
+    }
+
+    private void eval(RedisConnection connection, Passage passage) {
+        connection.scriptingCommands().eval(APPLY_SCRIPT_BYTES, ReturnType.INTEGER, 3,
+                bytes(PERSONS_KEY), bytes(AREAS_KEY), bytes(flowKey(passage.timestamp())),
+                bytes(String.valueOf(passage.personId())), bytes(String.valueOf(passage.areaId())),
+                bytes(String.valueOf(passage.direction())), bytes(String.valueOf(passage.timestamp())),
+                bytes(String.valueOf(FLOW_TTL_SECONDS)));
+    }
+
+    private String flowKey(long timestamp) {
+        return FLOW_KEY_PREFIX + Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,311 @@
+package net.lab1024.sa.admin.module.access.permission;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import net.lab1024.sa.admin.module.access.domain.entity.AccessDeviceEntity;
+import net.lab1024.sa.base.module.area.domain.entity.AreaEntity;
+
+/**
+ * 门禁预编译权限矩阵（不可变快照）
+ * <p>
+ * 构建时将区域层级（AreaEntity.path + parentId）展开为"区域 -> 自身及全部子孙区域"位图，
+ * 人员直接授权的区域经过并集后得到"人员 -> 可通行区域"位图，设备映射到所属区域。
+ * 一次通行判定 = 两次long键哈希查找 + 一次位图contains，无装箱、无对象分配。
+ * <p>
+ * 区域统一映射为稠密int下标后写入RoaringBitmap，避免区域ID超出int范围。
+ * 变更通过 {@link #withPersons} / {@link #withTopology} 生成新快照，旧快照对并发读者保持有效
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public final class AccessPermissionMatrix {
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * 通行判定结果
+     */
+    public enum Decision {
+        /** 有权限 */
+        ALLOWED,
+        /** 无权限 */
+        NO_PERMISSION,
+        /** 设备未绑定门禁区域 */
+        UNKNOWN_DEVICE
+    }
+
+    /** 区域ID -> 稠密下标 */
+    private final LongObjectHashMap<Integer> areaIndex;
+
+    /** 稠密下标 -> 自身及子孙区域位图 */
+    private final RoaringBitmap[] subtrees;
+
+    /** 设备ID -> 区域稠密下标 */
+    private final LongObjectHashMap<Integer> deviceArea;
+
+    /** 区域稠密下标 -> 区域ID */
+    private final long[] areaIds;
+
+    /** 人员ID -> 直接授权区域ID（原始数据，拓扑变化时据此重算） */
+    private final LongObjectHashMap<long[]> assignments;
+
+    /** 人员ID -> 可通行区域位图 */
+    private final LongObjectHashMap<RoaringBitmap> personAreas;
+
+    private AccessPermissionMatrix(LongObjectHashMap<Integer> areaIndex, RoaringBitmap[] subtrees,
+                                   LongObjectHashMap<Integer> deviceArea, long[] areaIds,
+                                   LongObjectHashMap<long[]> assignments,
+                                   LongObjectHashMap<RoaringBitmap> personAreas) {
+        this.areaIndex = areaIndex;
+        this.subtrees = subtrees;
+        this.deviceArea = deviceArea;
+        this.areaIds = areaIds;
+        this.assignments = assignments;
+        this.personAreas = personAreas;
+    }
+
+    /**
+     * 全量构建
+     *
+     * @param areas       全部区域
+     * @param devices     全部门禁设备
+     * @param assignments 人员ID -> 直接授权区域ID
+     */
+    public static AccessPermissionMatrix build(List<? extends AreaEntity> areas, List<AccessDeviceEntity> devices,
+                                               LongObjectHashMap<long[]> assignments) {
+        Topology topology = Topology.compile(areas, devices);
+        LongObjectHashMap<RoaringBitmap> personAreas = new LongObjectHashMap<>(assignments.size());
+        assignments.forEach((personId, areaIds) -> {
+            RoaringBitmap bitmap = topology.expand(areaIds);
+            if (bitmap != null) {
+                personAreas.put(personId, bitmap);
+            }
+        });
+        return new AccessPermissionMatrix(topology.areaIndex, topology.subtrees, topology.deviceArea,
+                topology.areaIds, assignments, personAreas);
+    }
+
+    /**
+     * 通行判定（热路径，无分配）
+     */
+    public Decision check(long personId, long deviceId) {
+        Integer area = deviceArea.get(deviceId);
+        if (area == null) {
+            return Decision.UNKNOWN_DEVICE;
+        }
+        RoaringBitmap allowed = personAreas.get(personId);
+        return allowed != null && allowed.contains(area) ? Decision.ALLOWED : Decision.NO_PERMISSION;
+    }
+
+    /**
+     * 设备所在区域ID，设备未绑定门禁区域时返回null
+     */
+    public Long areaOf(long deviceId) {
+        Integer area = deviceArea.get(deviceId);
+        return area != null ? areaIds[area] : null;
+    }
+
+    /**
+     * 人员是否可进入区域（含上级授权继承）
+     */
+    public boolean canEnterArea(long personId, long areaId) {
+        Integer area = areaIndex.get(areaId);
+        if (area == null) {
+            return false;
+        }
+        RoaringBitmap allowed = personAreas.get(personId);
+        return allowed != null && allowed.contains(area);
+    }
+
+    /**
+     * 增量替换部分人员的授权
+     *
+     * @param changes 人员ID -> 最新直接授权区域ID，空数组表示撤销全部授权
+     * @return 新快照
+     */
+    public AccessPermissionMatrix withPersons(LongObjectHashMap<long[]> changes) {
+        LongObjectHashMap<long[]> newAssignments = assignments.copy();
+        LongObjectHashMap<RoaringBitmap> newPersonAreas = personAreas.copy();
+        Topology topology = new Topology(areaIndex, subtrees, deviceArea, areaIds);
+        changes.forEach((personId, areaIds) -> {
+            if (areaIds.length == 0) {
+                newAssignments.remove(personId);
+                newPersonAreas.remove(personId);
+                return;
+            }
+            newAssignments.put(personId, areaIds);
+            RoaringBitmap bitmap = topology.expand(areaIds);
+            if (bitmap == null) {
+                newPersonAreas.remove(personId);
+            } else {
+                newPersonAreas.put(personId, bitmap);
+            }
+        });
+        return new AccessPermissionMatrix(areaIndex, subtrees, deviceArea, areaIds, newAssignments,
+                newPersonAreas);
+    }
+
+    /**
+     * 区域层级或设备归属变化后重编译，人员授权沿用当前数据
+     */
+    public AccessPermissionMatrix withTopology(List<? extends AreaEntity> areas, List<AccessDeviceEntity> devices) {
+        return build(areas, devices, assignments);
+    }
+
+    public int personCount() {
+        return personAreas.size();
+    }
+
+    public int areaCount() {
+        return subtrees.length;
+    }
+
+    public int deviceCount() {
+        return deviceArea.size();
+    }
+
+    /**
+     * 人员直接授权区域ID数组工具方法
+     */
+    public static long[] toAreaIdArray(List<Long> areaIds) {
+        if (areaIds == null || areaIds.isEmpty()) {
+            return EMPTY;
+        }
+        return areaIds.stream().filter(id -> id != null).distinct().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 区域拓扑编译结果
+     */
+    private static final class Topology {
+
+        private final LongObjectHashMap<Integer> areaIndex;
+
+        private final RoaringBitmap[] subtrees;
+
+        private final LongObjectHashMap<Integer> deviceArea;
+
+        private final long[] areaIds;
+
+        private Topology(LongObjectHashMap<Integer> areaIndex, RoaringBitmap[] subtrees,
+                         LongObjectHashMap<Integer> deviceArea, long[] areaIds) {
+            this.areaIndex = areaIndex;
+            this.subtrees = subtrees;
+            this.deviceArea = deviceArea;
+            this.areaIds = areaIds;
+        }
+
+        private static Topology compile(List<? extends AreaEntity> areas, List<AccessDeviceEntity> devices) {
+            // 1. 区域ID稠密化
+            LongObjectHashMap<Integer> areaIndex = new LongObjectHashMap<>(areas.size());
+            LongObjectHashMap<Long> parents = new LongObjectHashMap<>(areas.size());
+            List<AreaEntity> indexed = new ArrayList<>(areas.size());
+            for (AreaEntity area : areas) {
+                if (area.getAreaId() == null || areaIndex.get(area.getAreaId()) != null) {
+                    continue;
+                }
+                areaIndex.put(area.getAreaId(), indexed.size());
+                indexed.add(area);
+                if (area.getParentId() != null) {
+                    parents.put(area.getAreaId(), area.getParentId());
+                }
+            }
+
+            // 2. 展开祖先链：每个区域加入自身及全部祖先的子树位图
+            RoaringBitmap[] subtrees = new RoaringBitmap[indexed.size()];
+            for (int i = 0; i < subtrees.length; i++) {
+                subtrees[i] = new RoaringBitmap();
+            }
+            for (int i = 0; i < indexed.size(); i++) {
+                AreaEntity area = indexed.get(i);
+                subtrees[i].add(i);
+                for (long ancestorId : ancestorsOf(area, parents)) {
+                    Integer ancestor = areaIndex.get(ancestorId);
+                    if (ancestor != null && ancestor != i) {
+                        subtrees[ancestor].add(i);
+                    }
+                }
+            }
+            for (RoaringBitmap subtree : subtrees) {
+                subtree.runOptimize();
+            }
+
+            // 3. 设备归属区域
+            LongObjectHashMap<Integer> deviceArea = new LongObjectHashMap<>(devices.size());
+            for (AccessDeviceEntity device : devices) {
+                Long deviceId = device.getDeviceId() != null ? device.getDeviceId() : device.getId();
+                Long areaId = device.getAccessAreaId() != null ? device.getAccessAreaId() : device.getAreaId();
+                if (deviceId == null || areaId == null) {
+                    continue;
+                }
+                Integer area = areaIndex.get(areaId);
+                if (area != null) {
+                    deviceArea.put(deviceId, area);
+                }
+            }
+            long[] areaIds = new long[indexed.size()];
+            for (int i = 0; i < areaIds.length; i++) {
+                areaIds[i] = indexed.get(i).getAreaId();
+            }
+            return new Topology(areaIndex, subtrees, deviceArea, areaIds);
+        }
+
+        /**
+         * 祖先区域ID：优先解析path（逗号分隔的ID链），再沿parentId补全
+         */
+        private static List<Long> ancestorsOf(AreaEntity area, LongObjectHashMap<Long> parents) {
+            List<Long> ancestors = new ArrayList<>();
+            String path = area.getPath();
+            if (path != null && !path.isEmpty()) {
+                for (String token : path.split(",")) {
+                    String trimmed = token.trim();
+                    if (trimmed.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        long id = Long.parseLong(trimmed);
+                        if (id != area.getAreaId()) {
+                            ancestors.add(id);
+                        }
+                    } catch (NumberFormatException e) {
+                        // 非法节点忽略，由parentId链兜底
+                    }
+                }
+            }
+            Long parentId = parents.get(area.getAreaId());
+            int depth = 0;
+            while (parentId != null && parentId != 0L && depth++ < parents.size()) {
+                if (!ancestors.contains(parentId)) {
+                    ancestors.add(parentId);
+                }
+                parentId = parents.get(parentId);
+            }
+            return ancestors;
+        }
+
+        /**
+         * 直接授权区域并集展开，无有效区域时返回null
+         */
+        private RoaringBitmap expand(long[] areaIds) {
+            RoaringBitmap result = null;
+            for (long areaId : areaIds) {
+                Integer area = areaIndex.get(areaId);
+                if (area == null) {
+                    continue;
+                }
+                if (result == null) {
+                    result = subtrees[area].clone();
+                } else {
+                    result.or(subtrees[area]);
+                }
+            }
+            if (result != null) {
+                result.runOptimize();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package net.lab1024.sa.admin.module.access.permission;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * long键开放寻址哈希表
+ * <p>
+ * 线性探测 + 删除时后移回填（无墓碑），get不产生装箱与对象分配。
+ * 非线程安全：权限矩阵以"写时复制"方式使用，发布后只读
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class LongObjectHashMap<V> {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    private int mask;
+
+    public LongObjectHashMap() {
+        this(16);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(4, (int) (expectedSize / LOAD_FACTOR) + 1));
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 查询，不存在返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = mix(key) & mask;
+        while (true) {
+            Object value = values[index];
+            if (value == null) {
+                return null;
+            }
+            if (keys[index] == key) {
+                return (V) value;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * 写入，value不能为null
+     *
+     * @return 旧值
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value不能为null");
+        }
+        int index = mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V old = (V) values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > (mask + 1) * LOAD_FACTOR) {
+            resize((mask + 1) << 1);
+        }
+        return null;
+    }
+
+    /**
+     * 删除
+     *
+     * @return 被删除的值
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V old = (V) values[index];
+                shiftBack(index);
+                size--;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 遍历全部键值
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<Long, V> action) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * 浅拷贝，用于写时复制
+     */
+    public LongObjectHashMap<V> copy() {
+        LongObjectHashMap<V> copy = new LongObjectHashMap<>(4);
+        copy.keys = Arrays.copyOf(keys, keys.length);
+        copy.values = Arrays.copyOf(values, values.length);
+        copy.size = size;
+        copy.mask = mask;
+        return copy;
+    }
+
+    private void shiftBack(int hole) {
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == null) {
+                break;
+            }
+            int home = mix(keys[index]) & mask;
+            // 判断当前元素的理想位置是否落在 (hole, index] 区间之外，是则回填到空位
+            boolean movable = hole <= index ? (home <= hole || home > index) : (home <= hole && home > index);
+            if (movable) {
+                keys[hole] = keys[index];
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+        keys[hole] = 0L;
+        values[hole] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = mix(oldKeys[i]) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(capacity - 1);
+        return n < 0 ? 1 : n + 1;
+    }
+}
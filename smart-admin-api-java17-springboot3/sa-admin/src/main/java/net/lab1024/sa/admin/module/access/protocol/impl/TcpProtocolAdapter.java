@@ -4,15 +4,21 @@ package net.lab1024.sa.admin.module.access.protocol.impl;
 import net.lab1024.sa.admin.module.access.domain.entity.AccessDeviceEntity;
 import net.lab1024.sa.admin.module.access.protocol.DeviceProtocolAdapter;
 import net.lab1024.sa.admin.module.access.protocol.DeviceProtocolException;
+import net.lab1024.sa.admin.module.access.protocol.tcp.TcpConnectionPool;
+import net.lab1024.sa.admin.module.access.protocol.tcp.TcpFraming;
+import net.lab1024.sa.admin.module.access.protocol.tcp.TcpPoolOptions;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.*;
-import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,7 +29,7 @@ import java.util.concurrent.TimeUnit;
  * - 完整的异常处理和日志记录
  * - 超时控制和重试机制
  * <p>
- * 支持TCP/IP协议的门禁设备通信
+ * 支持TCP/IP协议的门禁设备通信，按设备IP:端口复用长连接（见 {@link TcpConnectionPool}）
  *
  * @author IOE-DREAM Team
  * @since 2025-11-19
@@ -55,6 +61,60 @@ public class TcpProtocolAdapter implements DeviceProtocolAdapter {
             "熵基科技", "ZKTeco", "海康威视", "大华", "宇视", "通用TCP设备"
     );
 
+    @Value("${access.protocol.tcp.max-connections-per-device:2}")
+    private int maxConnectionsPerDevice;
+
+    @Value("${access.protocol.tcp.connect-timeout-ms:" + DEFAULT_CONNECT_TIMEOUT + "}")
+    private int connectTimeoutMs;
+
+    @Value("${access.protocol.tcp.read-timeout-ms:" + DEFAULT_READ_TIMEOUT + "}")
+    private int readTimeoutMs;
+
+    @Value("${access.protocol.tcp.idle-timeout-ms:60000}")
+    private long idleTimeoutMs;
+
+    @Value("${access.protocol.tcp.buffer-size:1024}")
+    private int bufferSize;
+
+    /** 响应帧分隔符，指令末尾同样追加 */
+    @Value("${access.protocol.tcp.frame-delimiter:\r\n}")
+    private String frameDelimiter;
+
+    /** 长度前缀字节数，大于0时按长度前缀分帧，忽略分隔符 */
+    @Value("${access.protocol.tcp.length-prefix-bytes:0}")
+    private int lengthPrefixBytes;
+
+    private TcpConnectionPool connectionPool;
+
+    @PostConstruct
+    public void init() {
+        TcpPoolOptions options = new TcpPoolOptions();
+        options.setMaxConnectionsPerDevice(maxConnectionsPerDevice);
+        options.setConnectTimeoutMs(connectTimeoutMs);
+        options.setReadTimeoutMs(readTimeoutMs);
+        options.setBorrowTimeoutMs(connectTimeoutMs);
+        options.setIdleTimeoutMs(idleTimeoutMs);
+        options.setBufferSize(bufferSize);
+        options.setFraming(lengthPrefixBytes > 0 ? TcpFraming.lengthPrefixed(lengthPrefixBytes)
+                : TcpFraming.delimiter(frameDelimiter));
+        connectionPool = new TcpConnectionPool(options);
+        log.info("TCP设备连接池初始化完成，单设备最大连接数：{}，空闲回收：{}ms", maxConnectionsPerDevice, idleTimeoutMs);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.shutdown();
+        }
+    }
+
+    /**
+     * 连接池统计（设备数、空闲/活动连接数、新建/复用/回收/失效次数）
+     */
+    public Map<String, Object> getConnectionPoolStats() {
+        return connectionPool.getStats();
+    }
+
     @Override
     public ProtocolType getProtocolType() {
         return ProtocolType.TCP;
@@ -183,15 +243,12 @@ public class TcpProtocolAdapter implements DeviceProtocolAdapter {
                 device.getAccessDeviceId(), device.getIpAddress(), device.getPort());
 
         try {
-            // 尝试建立TCP连接
-            try (Socket socket = new Socket()) {
-                socket.connect(
-                        new java.net.InetSocketAddress(device.getIpAddress(), device.getPort()),
-                        DEFAULT_CONNECT_TIMEOUT
-                );
-                socket.setSoTimeout(DEFAULT_READ_TIMEOUT);
-                return socket.isConnected() && !socket.isClosed();
+            // 有空闲长连接时探测该连接，否则新建连接并放入连接池供后续指令复用
+            boolean connected = connectionPool.isReachable(device.getIpAddress(), device.getPort());
+            if (!connected) {
+                log.warn("TCP协议检查设备连接失败，deviceId: {}", device.getAccessDeviceId());
             }
+            return connected;
 
         } catch (Exception e) {
             log.warn("TCP协议检查设备连接失败，deviceId: {}", device.getAccessDeviceId(), e);
@@ -237,6 +294,8 @@ public class TcpProtocolAdapter implements DeviceProtocolAdapter {
 
     /**
      * 发送TCP指令（单次）
+     * <p>
+     * 从连接池借用该设备的长连接，发送后读取一次响应，连接异常时由连接池关闭
      *
      * @param device 设备实体
      * @param command 指令数据
@@ -244,32 +303,7 @@ public class TcpProtocolAdapter implements DeviceProtocolAdapter {
      * @throws IOException IO异常
      */
     private byte[] sendCommandOnce(AccessDeviceEntity device, byte[] command) throws IOException {
-        try (Socket socket = new Socket()) {
-            // 设置连接超时
-            socket.connect(
-                    new java.net.InetSocketAddress(device.getIpAddress(), device.getPort()),
-                    DEFAULT_CONNECT_TIMEOUT
-            );
-            socket.setSoTimeout(DEFAULT_READ_TIMEOUT);
-
-            // 发送指令
-            OutputStream out = socket.getOutputStream();
-            out.write(command);
-            out.flush();
-
-            // 接收响应
-            InputStream in = socket.getInputStream();
-            byte[] buffer = new byte[1024];
-            int bytesRead = in.read(buffer);
-            
-            if (bytesRead > 0) {
-                byte[] response = new byte[bytesRead];
-                System.arraycopy(buffer, 0, response, 0, bytesRead);
-                return response;
-            } else {
-                return new byte[0];
-            }
-        }
+        return connectionPool.exchange(device.getIpAddress(), device.getPort(), command);
     }
 
     /**
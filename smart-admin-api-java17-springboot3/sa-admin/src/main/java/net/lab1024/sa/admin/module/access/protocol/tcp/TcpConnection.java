@@ -0,0 +1,172 @@
+package net.lab1024.sa.admin.module.access.protocol.tcp;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * 连接池中的单条设备长连接
+ * <p>
+ * 同一时刻只被一个调用方持有（由连接池保证），响应缓冲区在连接内复用，按 {@link TcpFraming} 读取完整的一帧响应
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+final class TcpConnection {
+
+    private final Socket socket;
+
+    private final InputStream in;
+
+    private final OutputStream out;
+
+    private final byte[] buffer;
+
+    private final TcpFraming framing;
+
+    private final int readTimeoutMs;
+
+    private final long createdAt;
+
+    private volatile long lastUsedAt;
+
+    /**
+     * 是否为复用的连接（非本次新建）
+     */
+    private boolean reused;
+
+    /**
+     * 上一次响应之后是否还读到了多余数据，有则不可复用
+     */
+    private boolean trailingData;
+
+    private TcpConnection(Socket socket, TcpPoolOptions options) throws IOException {
+        this.socket = socket;
+        this.in = socket.getInputStream();
+        this.out = socket.getOutputStream();
+        this.buffer = new byte[options.getBufferSize()];
+        this.framing = options.getFraming();
+        this.readTimeoutMs = options.getReadTimeoutMs();
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    static TcpConnection open(InetSocketAddress address, TcpPoolOptions options) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setKeepAlive(true);
+            socket.setTcpNoDelay(true);
+            socket.connect(address, options.getConnectTimeoutMs());
+            socket.setSoTimeout(options.getReadTimeoutMs());
+            return new TcpConnection(socket, options);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(socket);
+            throw e;
+        }
+    }
+
+    /**
+     * 发送一条指令并读取一帧响应
+     *
+     * @return 响应数据（不含帧边界）；设备未应答即关闭连接时返回null
+     * @throws EOFException 响应不完整时设备关闭连接
+     */
+    byte[] exchange(byte[] request) throws IOException {
+        out.write(framing.encode(request));
+        out.flush();
+        int length = 0;
+        int frameLength;
+        while ((frameLength = framing.frameLength(buffer, length)) < 0) {
+            if (length == buffer.length) {
+                throw new IOException("设备响应超过缓冲区大小（" + buffer.length + "字节）");
+            }
+            int bytesRead = in.read(buffer, length, buffer.length - length);
+            if (bytesRead < 0) {
+                if (length == 0) {
+                    return null;
+                }
+                throw new EOFException("设备响应不完整即关闭连接，已读取" + length + "字节");
+            }
+            length += bytesRead;
+        }
+        trailingData = length > frameLength;
+        return framing.payload(buffer, frameLength);
+    }
+
+    /**
+     * 上一次响应后是否多读到了数据
+     */
+    boolean hasTrailingData() {
+        return trailingData;
+    }
+
+    /**
+     * 是否有未读取的数据（上一次请求的迟到响应或设备主动推送），不阻塞
+     */
+    boolean hasUnreadData() {
+        try {
+            return in.available() > 0;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 探测连接是否仍可用：设备已关闭连接或残留未读数据（上一次请求的迟到响应）均视为不可用
+     */
+    boolean probe() {
+        if (socket.isClosed() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            return false;
+        }
+        try {
+            socket.setSoTimeout(1);
+            try {
+                // 读到数据或EOF都说明连接已不可复用，只有读超时才表示连接空闲正常
+                in.read(buffer);
+                return false;
+            } catch (SocketTimeoutException e) {
+                return true;
+            } finally {
+                socket.setSoTimeout(readTimeoutMs);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    void touch() {
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    long idleMillis(long now) {
+        return now - lastUsedAt;
+    }
+
+    long ageMillis(long now) {
+        return now - createdAt;
+    }
+
+    boolean isReused() {
+        return reused;
+    }
+
+    void markReused() {
+        reused = true;
+    }
+
+    void close() {
+        closeQuietly(socket);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // 关闭失败无需处理
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package net.lab1024.sa.admin.module.access.protocol.tcp;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按设备（IP:端口）分组的TCP长连接池
+ * <p>
+ * - 每台设备最多 maxConnectionsPerDevice 条连接，满时等待空闲连接，超时抛出 {@link SocketTimeoutException}
+ * - 空闲连接后进先出复用，每次借出前检查是否有未读数据（迟到的响应），有则丢弃该连接；
+ *   空闲超过 validateAfterIdleMs 的连接另外探测是否已被设备关闭
+ * - 响应按 {@link TcpFraming} 读满一帧，帧后还有多余数据的连接用完即关闭
+ * - 后台任务回收空闲超时和超过最长存活时间的连接，设备长期无连接时移除其分组
+ * - 复用连接在发送后被设备关闭或重置（未应答）时，立即在新连接上重发一次；新建连接上设备未应答即关闭按无响应返回空数据
+ * - 任一IO异常都关闭该连接，不放回池中，避免后续请求读到迟到的响应
+ * <p>
+ * 现有设备协议没有请求编号，响应无法与请求对应，因此同一连接上一次只有一个请求在途，不做管道化
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+public class TcpConnectionPool {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final TcpPoolOptions options;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService evictor;
+
+    private final AtomicLong created = new AtomicLong();
+
+    private final AtomicLong reused = new AtomicLong();
+
+    private final AtomicLong evicted = new AtomicLong();
+
+    private final AtomicLong broken = new AtomicLong();
+
+    private volatile boolean closed;
+
+    public TcpConnectionPool(TcpPoolOptions options) {
+        this.options = options;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tcp-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, options.getEvictionIntervalMs(),
+                options.getEvictionIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发送一条指令并读取一帧响应
+     *
+     * @return 响应数据，设备未应答即关闭连接时返回空数组
+     * @throws IOException 连接、读写失败或等待空闲连接超时
+     */
+    public byte[] exchange(String host, int port, byte[] request) throws IOException {
+        Endpoint endpoint = endpoint(host, port);
+        TcpConnection connection = endpoint.borrow(false);
+        boolean healthy = false;
+        try {
+            byte[] response;
+            try {
+                response = connection.exchange(request);
+            } catch (SocketTimeoutException | EOFException e) {
+                // 设备可能已执行指令，不重发
+                throw e;
+            } catch (IOException e) {
+                if (!connection.isReused()) {
+                    throw e;
+                }
+                response = null;
+            }
+            if (response == null && connection.isReused()) {
+                // 设备已关闭空闲连接（如设备端空闲超时），换新连接重发
+                TcpConnection stale = connection;
+                connection = endpoint.open();
+                stale.close();
+                broken.incrementAndGet();
+                response = connection.exchange(request);
+            }
+            healthy = response != null && !connection.hasTrailingData();
+            return response != null ? response : EMPTY;
+        } finally {
+            endpoint.release(connection, healthy);
+        }
+    }
+
+    /**
+     * 检查设备是否可连接：有空闲连接时探测该连接，否则新建连接
+     */
+    public boolean isReachable(String host, int port) {
+        try {
+            Endpoint endpoint = endpoint(host, port);
+            endpoint.release(endpoint.borrow(true), true);
+            return true;
+        } catch (IOException e) {
+            log.debug("设备连接检查失败，{}:{}，{}", host, port, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 连接池统计
+     */
+    public Map<String, Object> getStats() {
+        int idle = 0;
+        int active = 0;
+        for (Endpoint endpoint : endpoints.values()) {
+            idle += endpoint.idle.size();
+            active += options.getMaxConnectionsPerDevice() - endpoint.permits.availablePermits();
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("devices", endpoints.size());
+        stats.put("idleConnections", idle);
+        stats.put("activeConnections", active);
+        stats.put("created", created.get());
+        stats.put("reused", reused.get());
+        stats.put("evicted", evicted.get());
+        stats.put("broken", broken.get());
+        return stats;
+    }
+
+    public void shutdown() {
+        closed = true;
+        evictor.shutdownNow();
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.closeIdle();
+        }
+        endpoints.clear();
+    }
+
+    private Endpoint endpoint(String host, int port) throws IOException {
+        if (closed) {
+            throw new IOException("TCP连接池已关闭");
+        }
+        return endpoints.computeIfAbsent(host + ":" + port, k -> new Endpoint(k, new InetSocketAddress(host, port)));
+    }
+
+    private void evictIdle() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+                Endpoint endpoint = entry.getValue();
+                for (TcpConnection connection : endpoint.idle) {
+                    boolean expired = connection.idleMillis(now) > options.getIdleTimeoutMs()
+                            || connection.ageMillis(now) > options.getMaxLifetimeMs();
+                    // 与借出并发时只有一方能从队列中移除成功
+                    if (expired && endpoint.idle.remove(connection)) {
+                        connection.close();
+                        evicted.incrementAndGet();
+                    }
+                }
+                if (endpoint.idle.isEmpty()
+                        && endpoint.permits.availablePermits() == options.getMaxConnectionsPerDevice()
+                        && endpoints.remove(entry.getKey(), endpoint)) {
+                    endpoint.closeIdle();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("TCP空闲连接回收异常", e);
+        }
+    }
+
+    /**
+     * 单台设备的连接分组
+     */
+    private final class Endpoint {
+
+        private final String key;
+
+        private final InetSocketAddress address;
+
+        private final Semaphore permits = new Semaphore(options.getMaxConnectionsPerDevice());
+
+        private final Deque<TcpConnection> idle = new ConcurrentLinkedDeque<>();
+
+        Endpoint(String key, InetSocketAddress address) {
+            this.key = key;
+            this.address = address;
+        }
+
+        TcpConnection borrow(boolean forceProbe) throws IOException {
+            try {
+                if (!permits.tryAcquire(options.getBorrowTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                    throw new SocketTimeoutException("等待设备空闲连接超时：" + address);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("等待设备空闲连接被中断", e);
+            }
+            try {
+                long now = System.currentTimeMillis();
+                TcpConnection connection;
+                while ((connection = idle.pollFirst()) != null) {
+                    boolean probe = forceProbe || connection.idleMillis(now) > options.getValidateAfterIdleMs();
+                    if (!connection.hasUnreadData() && (!probe || connection.probe())) {
+                        connection.markReused();
+                        reused.incrementAndGet();
+                        return connection;
+                    }
+                    connection.close();
+                    broken.incrementAndGet();
+                }
+                return open();
+            } catch (IOException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        TcpConnection open() throws IOException {
+            TcpConnection connection = TcpConnection.open(address, options);
+            created.incrementAndGet();
+            return connection;
+        }
+
+        void release(TcpConnection connection, boolean healthy) {
+            try {
+                long now = System.currentTimeMillis();
+                if (healthy && !closed && connection.ageMillis(now) <= options.getMaxLifetimeMs()) {
+                    connection.touch();
+                    idle.offerFirst(connection);
+                    // 分组已被回收任务移除（或连接池已关闭）时不再保留连接
+                    if ((closed || endpoints.get(key) != this) && idle.remove(connection)) {
+                        connection.close();
+                    }
+                } else {
+                    connection.close();
+                    if (!healthy) {
+                        broken.incrementAndGet();
+                    }
+                }
+            } finally {
+                permits.release();
+            }
+        }
+
+        void closeIdle() {
+            TcpConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                connection.close();
+            }
+        }
+    }
+}
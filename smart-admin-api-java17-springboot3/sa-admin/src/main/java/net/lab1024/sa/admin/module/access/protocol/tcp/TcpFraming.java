@@ -0,0 +1,131 @@
+package net.lab1024.sa.admin.module.access.protocol.tcp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 设备指令/响应的帧格式
+ * <p>
+ * TCP是字节流，一次read可能只读到半条响应，也可能读到下一条数据，连接上按帧边界读取响应：
+ * - 分隔符：指令末尾追加分隔符，响应读到分隔符为止（不含分隔符）
+ * - 长度前缀：指令前加大端无符号长度头，响应先读长度头再读满指定字节数
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public abstract class TcpFraming {
+
+    /**
+     * 按分隔符分帧
+     */
+    public static TcpFraming delimiter(String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("帧分隔符不能为空");
+        }
+        return new Delimiter(delimiter.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按长度前缀分帧
+     *
+     * @param headerBytes 长度头字节数，1~4
+     */
+    public static TcpFraming lengthPrefixed(int headerBytes) {
+        if (headerBytes < 1 || headerBytes > 4) {
+            throw new IllegalArgumentException("长度头字节数须为1~4：" + headerBytes);
+        }
+        return new LengthPrefixed(headerBytes);
+    }
+
+    /**
+     * 为指令加上帧边界
+     */
+    public abstract byte[] encode(byte[] payload) throws IOException;
+
+    /**
+     * 缓冲区 [0, length) 中第一帧的总长度（含分隔符/长度头）
+     *
+     * @return 数据不足一帧时返回-1
+     */
+    public abstract int frameLength(byte[] buffer, int length) throws IOException;
+
+    /**
+     * 帧内的响应数据
+     */
+    public abstract byte[] payload(byte[] buffer, int frameLength);
+
+    private static final class Delimiter extends TcpFraming {
+
+        private final byte[] delimiter;
+
+        Delimiter(byte[] delimiter) {
+            this.delimiter = delimiter;
+        }
+
+        @Override
+        public byte[] encode(byte[] payload) {
+            byte[] frame = Arrays.copyOf(payload, payload.length + delimiter.length);
+            System.arraycopy(delimiter, 0, frame, payload.length, delimiter.length);
+            return frame;
+        }
+
+        @Override
+        public int frameLength(byte[] buffer, int length) {
+            for (int i = 0; i + delimiter.length <= length; i++) {
+                if (Arrays.equals(buffer, i, i + delimiter.length, delimiter, 0, delimiter.length)) {
+                    return i + delimiter.length;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public byte[] payload(byte[] buffer, int frameLength) {
+            return Arrays.copyOf(buffer, frameLength - delimiter.length);
+        }
+    }
+
+    private static final class LengthPrefixed extends TcpFraming {
+
+        private final int headerBytes;
+
+        LengthPrefixed(int headerBytes) {
+            this.headerBytes = headerBytes;
+        }
+
+        @Override
+        public byte[] encode(byte[] payload) throws IOException {
+            if (headerBytes < 4 && payload.length >= 1L << (headerBytes * 8)) {
+                throw new IOException("指令长度超出长度头范围：" + payload.length);
+            }
+            byte[] frame = new byte[headerBytes + payload.length];
+            for (int i = 0; i < headerBytes; i++) {
+                frame[i] = (byte) (payload.length >>> ((headerBytes - 1 - i) * 8));
+            }
+            System.arraycopy(payload, 0, frame, headerBytes, payload.length);
+            return frame;
+        }
+
+        @Override
+        public int frameLength(byte[] buffer, int length) throws IOException {
+            if (length < headerBytes) {
+                return -1;
+            }
+            long bodyLength = 0;
+            for (int i = 0; i < headerBytes; i++) {
+                bodyLength = (bodyLength << 8) | (buffer[i] & 0xFF);
+            }
+            if (bodyLength > Integer.MAX_VALUE - headerBytes) {
+                throw new IOException("响应长度头无效：" + bodyLength);
+            }
+            int frameLength = headerBytes + (int) bodyLength;
+            return length >= frameLength ? frameLength : -1;
+        }
+
+        @Override
+        public byte[] payload(byte[] buffer, int frameLength) {
+            return Arrays.copyOfRange(buffer, headerBytes, frameLength);
+        }
+    }
+}
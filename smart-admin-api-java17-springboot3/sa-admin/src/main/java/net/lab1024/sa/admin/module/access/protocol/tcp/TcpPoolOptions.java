@@ -0,0 +1,63 @@
+package net.lab1024.sa.admin.module.access.protocol.tcp;
+
+import lombok.Data;
+
+/**
+ * TCP设备连接池配置
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Data
+public class TcpPoolOptions {
+
+    /**
+     * 单台设备（IP:端口）最大连接数，门禁控制器通常只允许少量并发连接
+     */
+    private int maxConnectionsPerDevice = 2;
+
+    /**
+     * 连接超时（毫秒）
+     */
+    private int connectTimeoutMs = 5000;
+
+    /**
+     * 读取响应超时（毫秒）
+     */
+    private int readTimeoutMs = 3000;
+
+    /**
+     * 连接数已满时等待空闲连接的最长时间（毫秒）
+     */
+    private long borrowTimeoutMs = 3000L;
+
+    /**
+     * 空闲超过该时间的连接被回收（毫秒）
+     */
+    private long idleTimeoutMs = 60000L;
+
+    /**
+     * 空闲超过该时间的连接在借出前探测是否已被设备关闭（毫秒）
+     */
+    private long validateAfterIdleMs = 2000L;
+
+    /**
+     * 连接最长存活时间（毫秒），到期后归还时关闭，避免长期连接积累设备端状态
+     */
+    private long maxLifetimeMs = 30 * 60 * 1000L;
+
+    /**
+     * 单个连接的响应缓冲区大小（字节），连接内复用，即单帧响应的最大长度
+     */
+    private int bufferSize = 1024;
+
+    /**
+     * 指令/响应帧格式，默认以CRLF结尾
+     */
+    private TcpFraming framing = TcpFraming.delimiter("\r\n");
+
+    /**
+     * 空闲连接回收任务间隔（毫秒）
+     */
+    private long evictionIntervalMs = 10000L;
+}
@@ -3,6 +3,7 @@ package net.lab1024.sa.admin.module.access.service;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import net.lab1024.sa.admin.module.access.domain.entity.AccessRecordEntity;
 import net.lab1024.sa.admin.module.access.domain.entity.AccessAreaEntity;
@@ -104,6 +105,15 @@ public interface AccessCacheService {
      */
     AccessAreaEntity getArea(Long areaId);
 
+    /**
+     * 获取区域信息，未命中时由loader加载并缓存（并发加载合并、临近过期后台刷新）
+     *
+     * @param areaId 区域ID
+     * @param loader 数据加载函数，返回null表示区域不存在
+     * @return 区域信息
+     */
+    AccessAreaEntity getArea(Long areaId, Supplier<AccessAreaEntity> loader);
+
     /**
      * 缓存区域信息
      *
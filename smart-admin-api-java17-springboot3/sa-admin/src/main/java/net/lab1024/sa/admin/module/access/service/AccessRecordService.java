@@ -45,8 +45,11 @@ public interface AccessRecordService {
 
     /**
      * Verify access permission
+     * 权限判定之后叠加设备所在区域的反潜回与容量限制
+     *
+     * @param direction 通行方向（0进 1出），为空时按进入处理
      */
-    ResponseDTO<Boolean> verifyAccessPermission(Long userId, Long deviceId);
+    ResponseDTO<Boolean> verifyAccessPermission(Long userId, Long deviceId, Integer direction);
 
     // ==================== 增强功能 - OpenSpec Task 2.4 ====================
 
@@ -7,16 +7,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 
+import net.lab1024.sa.base.module.area.event.AreaChangeEvent;
+import net.lab1024.sa.base.module.area.event.PersonAreaChangeEvent;
 import net.lab1024.sa.base.module.area.service.impl.AreaServiceImpl;
 import net.lab1024.sa.base.common.domain.PageParam;
 import net.lab1024.sa.base.common.domain.PageResult;
 import net.lab1024.sa.admin.module.access.service.AccessAreaService;
+import net.lab1024.sa.admin.module.access.manager.AccessOccupancyManager;
 import net.lab1024.sa.admin.module.access.domain.entity.AccessAreaEntity;
 import net.lab1024.sa.admin.module.access.domain.vo.AccessAreaStrategyVO;
 import net.lab1024.sa.admin.module.access.domain.entity.AccessDeviceEntity;
@@ -41,8 +45,14 @@ import net.lab1024.sa.admin.module.access.domain.vo.AccessAreaTreeVO;
 @Service
 public class AccessAreaServiceImpl extends AreaServiceImpl implements AccessAreaService {
 
-    // 依赖注入将在后续完善
-    // @Resource
+    /**
+     * 区域与授权变更事件在事务提交后由门禁权限矩阵处理并广播到其他节点
+     */
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    @Resource
+    private AccessOccupancyManager accessOccupancyManager;
 
     @Override
     public List<AccessAreaTreeVO> getAreaTree(Long parentId, Boolean includeChildren) {
@@ -156,8 +166,14 @@ public class AccessAreaServiceImpl extends AreaServiceImpl implements AccessArea
         log.debug("获取区域容量监控信息，区域ID: {}", areaId);
 
         try {
-            // TODO: 实现实时容量监控
-            return createDefaultCapacityMonitor(areaId);
+            AccessAreaCapacityVO capacity = accessOccupancyManager.getCapacity(areaId);
+            if (capacity != null) {
+                return capacity;
+            }
+            // 未配置容量监控的区域只返回实时在场人数
+            capacity = createDefaultCapacityMonitor(areaId);
+            capacity.setCurrentOccupancy(accessOccupancyManager.getOccupancy(areaId));
+            return capacity;
         } catch (Exception e) {
             log.error("获取区域容量监控信息失败，区域ID: {}", areaId, e);
             return createDefaultCapacityMonitor(areaId);
@@ -169,8 +185,7 @@ public class AccessAreaServiceImpl extends AreaServiceImpl implements AccessArea
         log.debug("获取区域容量告警列表");
 
         try {
-            // TODO: 实现容量告警查询
-            return new ArrayList<>();
+            return accessOccupancyManager.getCapacityAlerts();
         } catch (Exception e) {
             log.error("获取区域容量告警列表失败", e);
             return new ArrayList<>();
@@ -188,6 +203,7 @@ public class AccessAreaServiceImpl extends AreaServiceImpl implements AccessArea
             try {
                 // TODO: 实现权限自动分配逻辑
                 results.put(userId, true);
+                eventPublisher.publishEvent(new PersonAreaChangeEvent(userId));
                 log.debug("自动分配权限成功，用户ID: {}, 区域ID: {}", userId, areaId);
             } catch (Exception e) {
                 log.error("自动分配权限失败，用户ID: {}, 区域ID: {}", userId, areaId, e);
@@ -482,6 +498,7 @@ public class AccessAreaServiceImpl extends AreaServiceImpl implements AccessArea
             // 1. 验证区域ID有效性
             // 2. 更新区域状态
             // 3. 记录操作日志
+            eventPublisher.publishEvent(new AreaChangeEvent(areaId));
             log.info("更新区域状态完成，区域ID: {}", areaId);
             return true;
         } catch (Exception e) {
@@ -501,6 +518,7 @@ public class AccessAreaServiceImpl extends AreaServiceImpl implements AccessArea
             // 2. 检查是否形成循环引用
             // 3. 更新区域的父级关系
             // 4. 记录操作日志
+            eventPublisher.publishEvent(new AreaChangeEvent(areaId));
             log.info("移动区域完成，区域ID: {}", areaId);
             return true;
         } catch (Exception e) {
@@ -541,6 +559,7 @@ public class AccessAreaServiceImpl extends AreaServiceImpl implements AccessArea
             // 3. 删除区域及其子区域
             // 4. 清理相关缓存
             // 5. 记录操作日志
+            eventPublisher.publishEvent(new AreaChangeEvent(null));
             log.info("批量删除区域完成，删除数量: {}", areaIds.size());
             return true;
         } catch (Exception e) {
@@ -561,6 +580,7 @@ public class AccessAreaServiceImpl extends AreaServiceImpl implements AccessArea
             // 3. 删除区域及其子区域
             // 4. 清理相关缓存
             // 5. 记录操作日志
+            eventPublisher.publishEvent(new AreaChangeEvent(areaId));
             log.info("删除区域完成，区域ID: {}", areaId);
             return true;
         } catch (Exception e) {
@@ -581,6 +601,7 @@ public class AccessAreaServiceImpl extends AreaServiceImpl implements AccessArea
             // 3. 更新区域信息
             // 4. 清理相关缓存
             // 5. 记录操作日志
+            eventPublisher.publishEvent(new AreaChangeEvent(areaForm.getAreaId()));
             log.info("更新区域信息完成，区域ID: {}", areaForm.getAreaId());
             return areaForm.getAreaId();
         } catch (Exception e) {
@@ -596,6 +617,7 @@ public class AccessAreaServiceImpl extends AreaServiceImpl implements AccessArea
 
         try {
             // TODO: 实现区域添加逻辑
+            eventPublisher.publishEvent(new AreaChangeEvent(null));
             log.info("添加区域完成，区域名称: {}", areaForm.getAreaName());
             return 1L; // 返回新创建的区域ID
         } catch (Exception e) {
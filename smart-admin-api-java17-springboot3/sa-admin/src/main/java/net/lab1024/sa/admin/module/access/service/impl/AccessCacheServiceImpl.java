@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
@@ -39,6 +40,16 @@ public class AccessCacheServiceImpl implements AccessCacheService {
     @Resource
     private UnifiedCacheManager unifiedCacheManager;
 
+    /**
+     * 成组失效用的标签，随值写入，失效时递增标签代际而不是按模式删除
+     */
+    private static final class CacheTag {
+        public static final String USER = "user:";
+        public static final String DEVICE = "device:";
+        public static final String DATE = "date:";
+        public static final String AREA_TREE = "area:tree";
+    }
+
     // 缓存键命名空间定义
     private static final class CacheKey {
         // 门禁记录
@@ -144,7 +155,7 @@ public class AccessCacheServiceImpl implements AccessCacheService {
         }
 
         String key = buildKey(CacheKey.USER_TODAY_ACCESS, userId.toString(), date);
-        unifiedCacheManager.set(CacheNamespace.ACCESS, key, records);
+        unifiedCacheManager.setWithTags(CacheNamespace.ACCESS, key, records, CacheTag.USER + userId, CacheTag.DATE + date);
 
         log.debug("缓存用户当日访问记录: userId={}, date={}, count={}", userId, date, records.size());
     }
@@ -184,7 +195,7 @@ public class AccessCacheServiceImpl implements AccessCacheService {
         }
 
         String key = buildKey(CacheKey.DEVICE_TODAY_ACCESS, deviceId.toString(), date);
-        unifiedCacheManager.set(CacheNamespace.ACCESS, key, records);
+        unifiedCacheManager.setWithTags(CacheNamespace.ACCESS, key, records, CacheTag.DEVICE + deviceId, CacheTag.DATE + date);
 
         log.debug("缓存设备当日访问记录: deviceId={}, date={}, count={}", deviceId, date, records.size());
     }
@@ -204,6 +215,19 @@ public class AccessCacheServiceImpl implements AccessCacheService {
         return result.isSuccess() ? result.getData() : null;
     }
 
+    @Override
+    public AccessAreaEntity getArea(Long areaId, Supplier<AccessAreaEntity> loader) {
+        if (areaId == null) {
+            return null;
+        }
+
+        String key = buildKey(CacheKey.AREA_INFO, areaId.toString());
+        UnifiedCacheManager.CacheResult<AccessAreaEntity> result =
+            unifiedCacheManager.getOrSet(CacheNamespace.ACCESS, key, loader, AccessAreaEntity.class);
+
+        return result.isSuccess() ? result.getData() : null;
+    }
+
     @Override
     public void cacheArea(AccessAreaEntity area) {
         if (area == null || area.getAreaId() == null) {
@@ -302,7 +326,7 @@ public class AccessCacheServiceImpl implements AccessCacheService {
             parentId != null ? parentId.toString() : "0",
             includeChildren != null ? includeChildren.toString() : "true");
 
-        unifiedCacheManager.set(CacheNamespace.ACCESS, key, treeList);
+        unifiedCacheManager.setWithTags(CacheNamespace.ACCESS, key, treeList, CacheTag.AREA_TREE);
 
         log.debug("缓存区域树: parentId={}, includeChildren={}, size={}", parentId, includeChildren, treeList.size());
     }
@@ -342,7 +366,7 @@ public class AccessCacheServiceImpl implements AccessCacheService {
         }
 
         String key = buildKey(CacheKey.AREA_CHILDREN, parentId.toString());
-        unifiedCacheManager.set(CacheNamespace.ACCESS, key, childrenIds);
+        unifiedCacheManager.setWithTags(CacheNamespace.ACCESS, key, childrenIds, CacheTag.AREA_TREE);
 
         log.debug("缓存子区域ID: parentId={}, count={}", parentId, childrenIds.size());
     }
@@ -381,7 +405,7 @@ public class AccessCacheServiceImpl implements AccessCacheService {
         }
 
         String key = buildKey(CacheKey.ACCESS_STATS, date);
-        unifiedCacheManager.set(CacheNamespace.ACCESS, key, stats);
+        unifiedCacheManager.setWithTags(CacheNamespace.ACCESS, key, stats, CacheTag.DATE + date);
 
         log.debug("缓存访问统计数据: date={}", date);
     }
@@ -491,7 +515,7 @@ public class AccessCacheServiceImpl implements AccessCacheService {
 
         // 简化实现：缓存用户权限信息
         String key = buildKey(CacheKey.USER_PERMISSION, userId.toString(), "general");
-        unifiedCacheManager.set(CacheNamespace.ACCESS, key, permission);
+        unifiedCacheManager.setWithTags(CacheNamespace.ACCESS, key, permission, CacheTag.USER + userId);
 
         log.debug("缓存用户权限: userId={}", userId);
     }
@@ -504,9 +528,8 @@ public class AccessCacheServiceImpl implements AccessCacheService {
             return;
         }
 
-        // 清除用户相关的所有缓存
-        String userPattern = "*:" + userId.toString() + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ACCESS, userPattern);
+        // 清除用户相关的所有缓存（当日记录、权限）
+        unifiedCacheManager.invalidateTag(CacheNamespace.ACCESS, CacheTag.USER + userId);
 
         log.debug("清除用户缓存: userId={}", userId);
     }
@@ -518,8 +541,7 @@ public class AccessCacheServiceImpl implements AccessCacheService {
         }
 
         // 清除设备相关的所有缓存
-        String devicePattern = "*:" + deviceId.toString() + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ACCESS, devicePattern);
+        unifiedCacheManager.invalidateTag(CacheNamespace.ACCESS, CacheTag.DEVICE + deviceId);
 
         log.debug("清除设备缓存: deviceId={}", deviceId);
     }
@@ -530,22 +552,16 @@ public class AccessCacheServiceImpl implements AccessCacheService {
             return;
         }
 
-        // 清除区域相关的所有缓存
-        String areaPattern = CacheKey.AREA_INFO + ":" + areaId.toString() + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ACCESS, areaPattern);
+        // 清除区域信息缓存
+        unifiedCacheManager.delete(CacheNamespace.ACCESS, buildKey(CacheKey.AREA_INFO, areaId.toString()));
 
         log.debug("清除区域缓存: areaId={}", areaId);
     }
 
     @Override
     public void clearAreaTreeCache() {
-        // 清除所有区域树缓存
-        String treePattern = CacheKey.AREA_TREE + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ACCESS, treePattern);
-
-        // 清除所有子区域缓存
-        String childrenPattern = CacheKey.AREA_CHILDREN + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ACCESS, childrenPattern);
+        // 清除所有区域树和子区域缓存
+        unifiedCacheManager.invalidateTag(CacheNamespace.ACCESS, CacheTag.AREA_TREE);
 
         log.debug("清除区域树相关缓存");
     }
@@ -556,13 +572,8 @@ public class AccessCacheServiceImpl implements AccessCacheService {
             return;
         }
 
-        // 清除日期相关的统计缓存
-        String statsPattern = CacheKey.ACCESS_STATS + ":" + date + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ACCESS, statsPattern);
-
-        // 清除日期相关的访问记录缓存
-        String accessPattern = "*:*:" + date;
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ACCESS, accessPattern);
+        // 清除日期相关的统计和访问记录缓存
+        unifiedCacheManager.invalidateTag(CacheNamespace.ACCESS, CacheTag.DATE + date);
 
         log.debug("清除日期相关缓存: date={}", date);
     }
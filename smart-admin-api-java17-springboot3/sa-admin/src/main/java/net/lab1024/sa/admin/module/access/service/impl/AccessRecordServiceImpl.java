@@ -5,9 +5,14 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import net.lab1024.sa.admin.module.access.dao.AccessRecordDao;
 import net.lab1024.sa.admin.module.access.dao.AccessEventDao;
+import net.lab1024.sa.admin.module.access.manager.AccessOccupancyManager;
+import net.lab1024.sa.admin.module.access.manager.AccessPermissionMatrixManager;
+import net.lab1024.sa.admin.module.access.manager.AccessRecordManager;
+import net.lab1024.sa.admin.module.access.manager.AccessWriteBehindManager;
 import net.lab1024.sa.admin.module.access.domain.entity.AccessRecordEntity;
 import net.lab1024.sa.admin.module.access.domain.entity.AccessEventEntity;
 import net.lab1024.sa.admin.module.access.service.AccessRecordService;
+import net.lab1024.sa.base.common.code.SystemErrorCode;
 import net.lab1024.sa.base.common.code.UserErrorCode;
 import net.lab1024.sa.base.common.domain.PageParam;
 import net.lab1024.sa.base.common.domain.PageResult;
@@ -18,7 +23,6 @@ import net.lab1024.sa.base.common.cache.RedisUtil;
 
 import jakarta.annotation.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -65,20 +69,25 @@ public class AccessRecordServiceImpl implements AccessRecordService {
     @Resource
     private RedisUtil redisUtil;
 
+    @Resource
+    private AccessWriteBehindManager accessWriteBehindManager;
+
+    @Resource
+    private AccessRecordManager accessRecordManager;
+
+    @Resource
+    private AccessPermissionMatrixManager accessPermissionMatrixManager;
+
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public ResponseDTO<String> recordAccessEvent(AccessRecordEntity record) {
         try {
-            // Insert access record
-            int result = accessRecordDao.insert(record);
-
-            if (result > 0) {
-                log.info("Access event recorded successfully: userId={}, deviceId={}",
-                        record.getUserId(), record.getDeviceId());
-                return ResponseDTO.ok("Recorded successfully");
-            } else {
-                return ResponseDTO.error("Failed to record access event");
+            // 异步批量写库，请求线程只入缓冲；返回时尚未写库
+            if (!accessWriteBehindManager.submitRecord(record)) {
+                log.error("Access event rejected: userId={}, deviceId={}", record.getUserId(), record.getDeviceId());
+                return ResponseDTO.error(SystemErrorCode.SYSTEM_ERROR, "Access event not accepted");
             }
+            log.debug("Access event accepted: userId={}, deviceId={}", record.getUserId(), record.getDeviceId());
+            return ResponseDTO.ok("Accepted");
         } catch (Exception e) {
             log.error("Failed to record access event", e);
             throw new BusinessException("Failed to record access event: " + e.getMessage());
@@ -128,13 +137,16 @@ public class AccessRecordServiceImpl implements AccessRecordService {
     }
 
     @Override
-    public ResponseDTO<Boolean> verifyAccessPermission(Long userId, Long deviceId) {
+    public ResponseDTO<Boolean> verifyAccessPermission(Long userId, Long deviceId, Integer direction) {
         try {
-            // For now, default to allow access
-            // In actual implementation, this would check user permissions
-            Boolean hasPermission = true;
-
-            return ResponseDTO.ok(hasPermission);
+            Long areaId = accessPermissionMatrixManager.areaOf(deviceId);
+            Map<String, Object> result = accessRecordManager.checkUserPassage(userId, deviceId, areaId,
+                    direction != null ? direction : AccessOccupancyManager.DIRECTION_IN);
+            if (!Boolean.TRUE.equals(result.get("allowed"))) {
+                log.info("门禁通行校验未通过: userId={}, deviceId={}, areaId={}, reason={}", userId, deviceId,
+                        areaId, result.get("reason"));
+            }
+            return ResponseDTO.ok(Boolean.TRUE.equals(result.get("allowed")));
         } catch (Exception e) {
             log.error("Failed to verify access permission", e);
             throw new BusinessException("Failed to verify access permission: " + e.getMessage());
@@ -424,40 +436,23 @@ public class AccessRecordServiceImpl implements AccessRecordService {
     public ResponseDTO<Map<String, Object>> batchProcessEvents(List<AccessEventEntity> events) {
         log.debug("批量处理事件记录: count={}", events.size());
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Map<String, Object> result = new HashMap<>();
-                int successCount = 0;
-                int failureCount = 0;
-
-                for (AccessEventEntity event : events) {
-                    try {
-                        ResponseDTO<String> recordResult = recordAccessEvent(event);
-                        if (recordResult.isSuccess()) {
-                            successCount++;
-                        } else {
-                            failureCount++;
-                        }
-                    } catch (Exception e) {
-                        log.warn("处理事件记录失败: eventId={}", event.getEventId(), e);
-                        failureCount++;
-                    }
-                }
+        try {
+            // 事件统一进入异步写入缓冲，由后台线程批量写库；返回时只表示已接收，尚未写库
+            int accepted = accessWriteBehindManager.submitEvents(events);
 
-                result.put("totalEvents", events.size());
-                result.put("successCount", successCount);
-                result.put("failureCount", failureCount);
-                result.put("processTime", LocalDateTime.now());
+            Map<String, Object> result = new HashMap<>();
+            result.put("totalEvents", events.size());
+            result.put("acceptedCount", accepted);
+            result.put("failureCount", events.size() - accepted);
+            result.put("processTime", LocalDateTime.now());
 
-                log.info("批量处理事件记录完成: total={}, success={}, failure={}",
-                    events.size(), successCount, failureCount);
-                return ResponseDTO.ok(result);
+            log.info("批量处理事件记录完成: total={}, accepted={}", events.size(), accepted);
+            return ResponseDTO.ok(result);
 
-            } catch (Exception e) {
-                log.error("批量处理事件记录失败", e);
-                throw new BusinessException("批量处理事件记录失败: " + e.getMessage());
-            }
-        }, asyncExecutor).join();
+        } catch (Exception e) {
+            log.error("批量处理事件记录失败", e);
+            throw new BusinessException("批量处理事件记录失败: " + e.getMessage());
+        }
     }
 
     @Override
@@ -0,0 +1,441 @@
+package net.lab1024.sa.admin.module.access.writebehind;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.base.common.util.JsonUtil;
+
+/**
+ * 异步写后缓冲（write-behind）
+ * <p>
+ * 请求线程只把实体放入有界环形缓冲，由单个刷写线程攒批后一次性批量写库：
+ * - 攒满 batchSize 或等待 flushIntervalMs 后触发写入
+ * - 缓冲已满时生产者最多阻塞 offerTimeoutMs（背压），仍无空位则直接落盘
+ * - 写库失败的批次整体落盘（JSON Lines，fsync），退避期后由刷写线程回放
+ * <p>
+ * 指标（tag buffer=名称）：
+ * - access.writebehind.queue.depth 缓冲深度
+ * - access.writebehind.batch.size 批大小
+ * - access.writebehind.flush.latency 批量写库耗时
+ * - access.writebehind.spilled / access.writebehind.flush.failures 落盘条数、写库失败次数
+ *
+ * @param <T> 实体类型
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+public class WriteBehindBuffer<T> {
+
+    /**
+     * 批量写库
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+
+        /**
+         * 写入一批实体，抛出异常视为整批失败
+         */
+        void write(List<T> batch) throws Exception;
+    }
+
+    private static final String SPILL_SUFFIX = ".jsonl";
+
+    private final String name;
+
+    private final Class<T> type;
+
+    private final BatchWriter<T> writer;
+
+    private final Consumer<List<T>> onPersisted;
+
+    private final WriteBehindOptions options;
+
+    private final BlockingQueue<T> queue;
+
+    private final ObjectMapper objectMapper = JsonUtil.getObjectMapper();
+
+    private final Thread flusher;
+
+    private volatile boolean running;
+
+    /** 写库失败后的退避截止时间 */
+    private volatile long backoffUntil;
+
+    // ================================
+    // 落盘
+    // ================================
+
+    private final Object spillLock = new Object();
+
+    /** 当前追加中的落盘文件，回放前置空以切换新文件 */
+    private Path currentSpill;
+
+    private final AtomicLong spillSequence = new AtomicLong();
+
+    private final AtomicBoolean spillPending = new AtomicBoolean(false);
+
+    // ================================
+    // 指标
+    // ================================
+
+    private final AtomicLong persistedCount = new AtomicLong();
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Timer flushTimer;
+
+    private final Counter spilledCounter;
+
+    private final Counter failureCounter;
+
+    public WriteBehindBuffer(String name, Class<T> type, BatchWriter<T> writer, Consumer<List<T>> onPersisted,
+                             WriteBehindOptions options, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.type = type;
+        this.writer = writer;
+        this.onPersisted = onPersisted;
+        this.options = options;
+        this.queue = new ArrayBlockingQueue<>(options.getCapacity());
+        this.flusher = new Thread(this::runFlushLoop, "write-behind-" + name);
+        this.flusher.setDaemon(true);
+
+        Gauge.builder("access.writebehind.queue.depth", queue, BlockingQueue::size)
+                .tag("buffer", name)
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("access.writebehind.batch.size")
+                .tag("buffer", name)
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("access.writebehind.flush.latency")
+                .tag("buffer", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.spilledCounter = Counter.builder("access.writebehind.spilled")
+                .tag("buffer", name)
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("access.writebehind.flush.failures")
+                .tag("buffer", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动刷写线程，存在历史落盘文件时安排回放
+     * <p>
+     * 落盘目录是缓冲数据在写库失败时唯一的持久化位置，不可创建或不可写时启动失败
+     */
+    public void start() {
+        try {
+            Files.createDirectories(options.getSpillDir());
+            spillPending.set(!listSpillFiles().isEmpty());
+        } catch (IOException e) {
+            throw new IllegalStateException("写后缓冲落盘目录不可用: buffer=" + name + ", dir=" + options.getSpillDir(), e);
+        }
+        if (!Files.isWritable(options.getSpillDir())) {
+            throw new IllegalStateException("写后缓冲落盘目录不可写: buffer=" + name + ", dir=" + options.getSpillDir());
+        }
+        running = true;
+        flusher.start();
+    }
+
+    /**
+     * 停止并排空缓冲，未能写库的数据落盘
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            flusher.join(options.getFlushIntervalMs() * 2 + 10_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<T> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+        }
+    }
+
+    /**
+     * 提交一条待写入实体
+     * <p>
+     * 缓冲有空位时立即返回；已满时阻塞至多 offerTimeoutMs，超时后同步落盘。
+     * 返回true仅表示已被接收（进入缓冲或已落盘），尚未写库；缓冲中的数据在进程崩溃时可能丢失
+     *
+     * @return 是否已接收，实体为空或落盘失败时返回false
+     */
+    public boolean submit(T entity) {
+        if (entity == null) {
+            return false;
+        }
+        try {
+            if (running && queue.offer(entity, options.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return spill(List.of(entity));
+    }
+
+    /**
+     * 缓冲统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("capacity", options.getCapacity());
+        stats.put("persistedCount", persistedCount.get());
+        stats.put("spilledCount", (long) spilledCounter.count());
+        stats.put("flushFailures", (long) failureCounter.count());
+        stats.put("flushCount", flushTimer.count());
+        stats.put("flushMeanMs", flushTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("spillPending", spillPending.get());
+        return stats;
+    }
+
+    // ================================
+    // 刷写线程
+    // ================================
+
+    private void runFlushLoop() {
+        long nextRecoverAt = 0L;
+        while (running || !queue.isEmpty()) {
+            try {
+                List<T> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                long now = System.currentTimeMillis();
+                if (spillPending.get() && now >= nextRecoverAt && now >= backoffUntil) {
+                    recoverSpill();
+                    nextRecoverAt = now + options.getRetryBackoffMs();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("[写后缓冲] 刷写线程异常: buffer={}", name, e);
+            }
+        }
+    }
+
+    /**
+     * 攒批：等待首条数据，之后在 flushIntervalMs 内尽量凑满 batchSize
+     */
+    private List<T> nextBatch() throws InterruptedException {
+        List<T> batch = new ArrayList<>(options.getBatchSize());
+        T first = queue.poll(options.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getFlushIntervalMs());
+        while (batch.size() < options.getBatchSize()) {
+            if (queue.drainTo(batch, options.getBatchSize() - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                break;
+            }
+            T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void flush(List<T> batch) {
+        if (System.currentTimeMillis() < backoffUntil) {
+            spill(batch);
+            return;
+        }
+        if (writeToDatabase(batch)) {
+            return;
+        }
+        backoffUntil = System.currentTimeMillis() + options.getRetryBackoffMs();
+        spill(batch);
+    }
+
+    private boolean writeToDatabase(List<T> batch) {
+        long startTime = System.nanoTime();
+        try {
+            writer.write(batch);
+        } catch (Exception e) {
+            failureCounter.increment();
+            log.warn("[写后缓冲] 批量写库失败，转为落盘: buffer={}, size={}", name, batch.size(), e);
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+        batchSizeSummary.record(batch.size());
+        persistedCount.addAndGet(batch.size());
+        try {
+            onPersisted.accept(batch);
+        } catch (Exception e) {
+            log.warn("[写后缓冲] 写库后回调异常: buffer={}", name, e);
+        }
+        return true;
+    }
+
+    // ================================
+    // 落盘与回放
+    // ================================
+
+    private boolean spill(List<T> entities) {
+        if (appendToSpill(entities)) {
+            spilledCounter.increment(entities.size());
+            return true;
+        }
+        return false;
+    }
+
+    private boolean appendToSpill(List<T> entities) {
+        synchronized (spillLock) {
+            try {
+                if (currentSpill == null) {
+                    currentSpill = options.getSpillDir().resolve(String.format("%s-%013d-%06d%s", name,
+                            System.currentTimeMillis(), spillSequence.incrementAndGet(), SPILL_SUFFIX));
+                }
+                appendLines(currentSpill, entities);
+                spillPending.set(true);
+                return true;
+            } catch (IOException e) {
+                // 磁盘也不可用时只能记录日志，保留完整内容便于人工补录
+                log.error("[写后缓冲] 落盘失败，数据丢失: buffer={}, size={}, entities={}", name, entities.size(),
+                        JsonUtil.safeToJsonString(entities), e);
+                return false;
+            }
+        }
+    }
+
+    private void appendLines(Path file, List<T> entities) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file.toFile(), true);
+             Writer lineWriter = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            for (T entity : entities) {
+                lineWriter.write(objectMapper.writeValueAsString(entity));
+                lineWriter.write('\n');
+            }
+            lineWriter.flush();
+            out.getFD().sync();
+        }
+    }
+
+    /**
+     * 回放全部落盘文件，任一批失败即停止并保留剩余数据
+     */
+    private void recoverSpill() throws IOException {
+        List<Path> files;
+        synchronized (spillLock) {
+            currentSpill = null;
+            spillPending.set(false);
+            files = listSpillFiles();
+        }
+        for (Path file : files) {
+            if (!replay(file)) {
+                spillPending.set(true);
+                backoffUntil = System.currentTimeMillis() + options.getRetryBackoffMs();
+                return;
+            }
+        }
+    }
+
+    private boolean replay(Path file) throws IOException {
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<T> batch = new ArrayList<>(options.getBatchSize());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(objectMapper.readValue(line, type));
+                } catch (Exception e) {
+                    log.error("[写后缓冲] 落盘记录无法解析，已跳过: buffer={}, file={}, line={}", name, file, line, e);
+                    continue;
+                }
+                if (batch.size() >= options.getBatchSize()) {
+                    if (!writeToDatabase(batch)) {
+                        requeueRemaining(file, batch, reader);
+                        return false;
+                    }
+                    replayed += batch.size();
+                    batch = new ArrayList<>(options.getBatchSize());
+                }
+            }
+            if (!batch.isEmpty()) {
+                if (!writeToDatabase(batch)) {
+                    requeueRemaining(file, batch, reader);
+                    return false;
+                }
+                replayed += batch.size();
+            }
+        }
+        Files.deleteIfExists(file);
+        log.info("[写后缓冲] 落盘数据回放完成: buffer={}, file={}, count={}", name, file.getFileName(), replayed);
+        return true;
+    }
+
+    /**
+     * 回放中途失败：未写入部分另存为新落盘文件后删除原文件，避免已写入部分重复回放
+     */
+    private void requeueRemaining(Path file, List<T> failedBatch, BufferedReader reader) throws IOException {
+        List<T> remaining = new ArrayList<>(failedBatch);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                remaining.add(objectMapper.readValue(line, type));
+            } catch (Exception e) {
+                log.error("[写后缓冲] 落盘记录无法解析，已跳过: buffer={}, file={}, line={}", name, file, line, e);
+            }
+        }
+        synchronized (spillLock) {
+            currentSpill = null;
+            appendToSpill(remaining);
+            currentSpill = null;
+        }
+        Files.deleteIfExists(file);
+    }
+
+    private List<Path> listSpillFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(options.getSpillDir())) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(options.getSpillDir(),
+                name + "-*" + SPILL_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+}
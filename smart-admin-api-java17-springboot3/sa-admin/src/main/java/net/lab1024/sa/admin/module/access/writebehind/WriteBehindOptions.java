@@ -0,0 +1,45 @@
+package net.lab1024.sa.admin.module.access.writebehind;
+
+import java.nio.file.Path;
+
+import lombok.Data;
+
+/**
+ * 异步写后缓冲配置
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Data
+public class WriteBehindOptions {
+
+    /**
+     * 环形缓冲容量
+     */
+    private int capacity = 65536;
+
+    /**
+     * 单批写入条数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 攒批最长等待时间（毫秒），即最大写入延迟
+     */
+    private long flushIntervalMs = 200L;
+
+    /**
+     * 缓冲已满时生产者最长等待时间（毫秒），超时后落盘
+     */
+    private long offerTimeoutMs = 50L;
+
+    /**
+     * 数据库写入失败后的退避时间（毫秒），退避期内新批次直接落盘
+     */
+    private long retryBackoffMs = 5000L;
+
+    /**
+     * 落盘文件目录
+     */
+    private Path spillDir;
+}
@@ -1,9 +1,12 @@
 package net.lab1024.sa.admin.module.attendance.dao;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import net.lab1024.sa.admin.module.attendance.domain.entity.AttendanceRecordEntity;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -324,5 +327,14 @@ public interface AttendanceRecordDao extends BaseMapper<AttendanceRecordEntity>
      * @return 保存结果
      */
     int save(AttendanceRecordEntity entity);
-}
 
+    /**
+     * 流式查询（导出用），数据库游标逐行回调
+     * 自定义SQL不会自动追加逻辑删除条件，调用方需在条件中过滤 deletedFlag
+     *
+     * @param wrapper 查询条件
+     * @param handler 逐行回调
+     */
+    void streamList(@Param(Constants.WRAPPER) Wrapper<AttendanceRecordEntity> wrapper,
+                    ResultHandler<AttendanceRecordEntity> handler);
+}
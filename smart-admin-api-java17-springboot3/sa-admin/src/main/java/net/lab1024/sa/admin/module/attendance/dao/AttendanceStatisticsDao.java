@@ -1,9 +1,15 @@
 package net.lab1024.sa.admin.module.attendance.dao;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import net.lab1024.sa.admin.module.attendance.domain.entity.AttendanceStatisticsEntity;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -515,4 +521,16 @@ public interface AttendanceStatisticsDao extends BaseMapper<AttendanceStatistics
             @Param("year") Integer year,
             @Param("month") Integer month
     );
-}
\ No newline at end of file
+
+    /**
+     * 流式查询（导出用），MySQL驱动在 fetchSize=Integer.MIN_VALUE 时逐行读取结果集
+     * 自定义SQL不会自动追加逻辑删除条件，调用方需在条件中过滤 deletedFlag
+     *
+     * @param wrapper 查询条件
+     * @param handler 逐行回调
+     */
+    @Select("SELECT * FROM t_attendance_statistics ${ew.customSqlSegment}")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    void streamList(@Param(Constants.WRAPPER) Wrapper<AttendanceStatisticsEntity> wrapper,
+                    ResultHandler<AttendanceStatisticsEntity> handler);
+}
@@ -1,18 +1,40 @@
 package net.lab1024.sa.admin.module.attendance.service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+
 import lombok.extern.slf4j.Slf4j;
 import jakarta.annotation.Resource;
+import net.lab1024.sa.admin.common.export.ExportColumn;
+import net.lab1024.sa.admin.common.export.ExportCompression;
+import net.lab1024.sa.admin.common.export.ExportFormat;
+import net.lab1024.sa.admin.common.export.StreamingExporter;
+import net.lab1024.sa.admin.module.attendance.dao.AttendanceRecordDao;
+import net.lab1024.sa.admin.module.attendance.dao.AttendanceStatisticsDao;
+import net.lab1024.sa.admin.module.attendance.domain.entity.AttendanceRecordEntity;
+import net.lab1024.sa.admin.module.attendance.domain.entity.AttendanceStatisticsEntity;
 
 /**
  * 考勤数据导出服务
@@ -26,11 +48,11 @@ import jakarta.annotation.Resource;
  * <p>
  * 功能职责：
  * - Excel导出：支持复杂格式的Excel报表导出
- * - PDF导出：支持PDF格式的报表导出
+ * - PDF导出：暂未接入PDF库，返回不支持
  * - CSV导出：支持CSV格式的数据导出
- * - 模板导出：基于预定义模板的数据导出
+ * - 模板导出：基于预定义模板的数据导出，自定义报表走模板导出
  * - 批量导出：支持大数据量的分批导出
- * - 压缩导出：支持导出文件的压缩打包
+ * - 压缩导出：支持导出文件的zip打包或单文件gzip压缩
  * - 异步导出：支持大数据量的异步导出
  * - 导出历史：管理导出历史和文件
  * </p>
@@ -49,8 +71,26 @@ public class AttendanceExportService {
     @Resource
     private AttendanceCustomReportService attendanceCustomReportService;
 
+    @Resource
+    private AttendanceRecordDao attendanceRecordDao;
+
+    @Resource
+    private AttendanceStatisticsDao attendanceStatisticsDao;
+
+    @Value("${file.storage.local.upload-path:D:/Progect/mart-admin-master/upload/}")
+    private String fileUploadPath;
+
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
 
+    private static final String EXPORT_DIR = "export";
+
+    private static final String CUSTOM_REPORT = "CUSTOM_REPORT";
+
+    private static final Set<String> EXPORT_TYPES = Set.of("EMPLOYEE_DAILY", "EMPLOYEE_MONTHLY", "DEPARTMENT_DAILY",
+            "DEPARTMENT_MONTHLY");
+
+    private static final String STATISTICS_TYPE_MONTHLY = "MONTHLY";
+
     // ===== Excel导出 =====
 
     /**
@@ -72,27 +112,26 @@ public class AttendanceExportService {
                 return ExcelExportResult.failure(validation.getMessage());
             }
 
-            // 2. 获取导出数据
-            List<Map<String, Object>> exportData = getExportData(exportRequest);
+            // 2. 流式写出Excel文件
+            String fileName = generateFileName(exportRequest, ExportFormat.XLSX.getExtension());
+            Path filePath = exportPath(fileName);
+            long rowCount = streamToFile(exportRequest, ExportFormat.XLSX, filePath);
 
-            if (exportData.isEmpty()) {
+            if (rowCount == 0) {
                 return ExcelExportResult.failure("没有找到符合条件的导出数据");
             }
 
-            // 3. 生成Excel文件
-            byte[] excelBytes = generateExcelFile(exportData, exportRequest);
-
-            // 4. 构建导出结果
+            // 3. 构建导出结果
             ExcelExportResult result = new ExcelExportResult();
             result.setSuccess(true);
             result.setMessage("Excel导出成功");
-            result.setFileName(generateFileName(exportRequest, "xlsx"));
-            result.setFileSize(excelBytes.length);
-            result.setFileData(excelBytes);
+            result.setFileName(fileName);
+            result.setFilePath("/" + EXPORT_DIR + "/" + fileName);
+            result.setFileSize(fileSize(filePath));
             result.setExportTime(LocalDateTime.now());
 
             log.info("Excel导出完成: fileName={}, fileSize={}, dataRows={}",
-                    result.getFileName(), result.getFileSize(), exportData.size());
+                    result.getFileName(), result.getFileSize(), rowCount);
 
             return result;
 
@@ -153,29 +192,8 @@ public class AttendanceExportService {
                 return PdfExportResult.failure(validation.getMessage());
             }
 
-            // 2. 获取导出数据
-            List<Map<String, Object>> exportData = getExportData(exportRequest);
-
-            if (exportData.isEmpty()) {
-                return PdfExportResult.failure("没有找到符合条件的导出数据");
-            }
-
-            // 3. 生成PDF文件
-            byte[] pdfBytes = generatePdfFile(exportData, exportRequest);
-
-            // 4. 构建导出结果
-            PdfExportResult result = new PdfExportResult();
-            result.setSuccess(true);
-            result.setMessage("PDF导出成功");
-            result.setFileName(generateFileName(exportRequest, "pdf"));
-            result.setFileSize(pdfBytes.length);
-            result.setFileData(pdfBytes);
-            result.setExportTime(LocalDateTime.now());
-
-            log.info("PDF导出完成: fileName={}, fileSize={}, dataRows={}",
-                    result.getFileName(), result.getFileSize(), exportData.size());
-
-            return result;
+            // 2. PDF需要整体排版，尚未接入PDF库，不加载数据直接返回，避免为空文档物化全部结果
+            return PdfExportResult.failure("暂不支持PDF导出，请使用Excel或CSV导出");
 
         } catch (Exception e) {
             log.error("导出PDF异常", e);
@@ -201,28 +219,27 @@ public class AttendanceExportService {
                 return CsvExportResult.failure(validation.getMessage());
             }
 
-            // 2. 获取导出数据
-            List<Map<String, Object>> exportData = getExportData(exportRequest);
+            // 2. 流式写出CSV文件
+            String fileName = generateFileName(exportRequest, ExportFormat.CSV.getExtension());
+            Path filePath = exportPath(fileName);
+            long rowCount = streamToFile(exportRequest, ExportFormat.CSV, filePath);
 
-            if (exportData.isEmpty()) {
+            if (rowCount == 0) {
                 return CsvExportResult.failure("没有找到符合条件的导出数据");
             }
 
-            // 3. 生成CSV文件
-            byte[] csvBytes = generateCsvFile(exportData, exportRequest);
-
-            // 4. 构建导出结果
+            // 3. 构建导出结果
             CsvExportResult result = new CsvExportResult();
             result.setSuccess(true);
             result.setMessage("CSV导出成功");
-            result.setFileName(generateFileName(exportRequest, "csv"));
-            result.setFileSize(csvBytes.length);
-            result.setFileData(csvBytes);
+            result.setFileName(fileName);
+            result.setFilePath("/" + EXPORT_DIR + "/" + fileName);
+            result.setFileSize(fileSize(filePath));
             result.setExportTime(LocalDateTime.now());
-            result.setTotalRows(exportData.size());
+            result.setTotalRows((int) Math.min(rowCount, Integer.MAX_VALUE));
 
             log.info("CSV导出完成: fileName={}, fileSize={}, dataRows={}",
-                    result.getFileName(), result.getFileSize(), exportData.size());
+                    result.getFileName(), result.getFileSize(), rowCount);
 
             return result;
 
@@ -313,7 +330,17 @@ public class AttendanceExportService {
      */
     public CompressExportResult exportCompressed(CompressExportRequest compressExportRequest) {
         try {
-            log.info("开始压缩导出: fileCount={}", compressExportRequest.getExportRequests().size());
+            log.info("开始压缩导出: fileCount={}, compressionType={}", compressExportRequest.getExportRequests().size(),
+                    compressExportRequest.getCompressionType());
+
+            ExportCompression compression = parseCompressionType(compressExportRequest.getCompressionType());
+            if (compression == null) {
+                return CompressExportResult.failure("不支持的压缩格式：" + compressExportRequest.getCompressionType()
+                        + "，仅支持 zip、gzip");
+            }
+            if (compression == ExportCompression.GZIP && compressExportRequest.getExportRequests().size() > 1) {
+                return CompressExportResult.failure("gzip只能压缩单个文件，多个文件请使用zip");
+            }
 
             // 1. 生成各个导出文件
             List<ExportFile> exportFiles = new ArrayList<>();
@@ -322,7 +349,7 @@ public class AttendanceExportService {
                 if (fileResult.isSuccess()) {
                     ExportFile file = new ExportFile();
                     file.setFileName(fileResult.getFileName());
-                    file.setFileData(fileResult.getFileData());
+                    file.setFilePath(fileResult.getFilePath());
                     exportFiles.add(file);
                 }
             }
@@ -332,18 +359,20 @@ public class AttendanceExportService {
             }
 
             // 2. 压缩文件
-            byte[] compressedData = compressFiles(exportFiles, compressExportRequest.getCompressionType());
+            String fileName = generateCompressedFileName(compression, exportFiles);
+            Path filePath = exportPath(fileName);
+            compressFiles(exportFiles, filePath, compression);
 
             // 3. 构建导出结果
             CompressExportResult result = new CompressExportResult();
             result.setSuccess(true);
             result.setMessage("压缩导出成功");
-            result.setFileName(generateCompressedFileName(compressExportRequest));
-            result.setFileSize(compressedData.length);
-            result.setFileData(compressedData);
+            result.setFileName(fileName);
+            result.setFilePath("/" + EXPORT_DIR + "/" + fileName);
+            result.setFileSize(fileSize(filePath));
             result.setExportTime(LocalDateTime.now());
             result.setFileCount(exportFiles.size());
-            result.setCompressionType(compressExportRequest.getCompressionType());
+            result.setCompressionType(compression.name().toLowerCase());
 
             log.info("压缩导出完成: fileName={}, fileSize={}, fileCount={}",
                     result.getFileName(), result.getFileSize(), result.getFileCount());
@@ -370,6 +399,14 @@ public class AttendanceExportService {
             return ExportValidationResult.failure("导出类型不能为空");
         }
 
+        if (CUSTOM_REPORT.equals(request.getExportType())) {
+            return ExportValidationResult.failure("自定义报表请使用模板导出");
+        }
+
+        if (!EXPORT_TYPES.contains(request.getExportType())) {
+            return ExportValidationResult.failure("不支持的导出类型：" + request.getExportType());
+        }
+
         if (request.getStartDate() != null && request.getEndDate() != null) {
             if (request.getStartDate().isAfter(request.getEndDate())) {
                 return ExportValidationResult.failure("开始日期不能晚于结束日期");
@@ -404,114 +441,182 @@ public class AttendanceExportService {
     }
 
     /**
-     * 获取导出数据
+     * 逐行回调导出数据：日报读考勤记录表，月报读月度统计表，均为数据库游标流式查询
      */
-    private List<Map<String, Object>> getExportData(AttendanceExportRequest request) {
+    private void streamExportData(AttendanceExportRequest request, Consumer<Map<String, Object>> consumer) {
         // 根据导出类型获取相应的数据
         switch (request.getExportType()) {
             case "EMPLOYEE_DAILY":
-                return getEmployeeDailyExportData(request);
+                streamEmployeeDailyExportData(request, consumer);
+                break;
             case "EMPLOYEE_MONTHLY":
-                return getEmployeeMonthlyExportData(request);
+                streamEmployeeMonthlyExportData(request, consumer);
+                break;
             case "DEPARTMENT_DAILY":
-                return getDepartmentDailyExportData(request);
+                streamDepartmentDailyExportData(request, consumer);
+                break;
             case "DEPARTMENT_MONTHLY":
-                return getDepartmentMonthlyExportData(request);
-            case "CUSTOM_REPORT":
-                return getCustomReportExportData(request);
+                streamDepartmentMonthlyExportData(request, consumer);
+                break;
             default:
-                return new ArrayList<>();
+                throw new IllegalArgumentException("不支持的导出类型：" + request.getExportType());
         }
     }
 
     /**
-     * 获取员工日报导出数据
+     * 流式导出到文件
+     * <p>
+     * 列取请求指定的列，未指定时取首行的键；导出器在首行到达时才创建，无数据时不生成文件
+     *
+     * @return 导出行数
      */
-    private List<Map<String, Object>> getEmployeeDailyExportData(AttendanceExportRequest request) {
-        // 简化实现，实际应用中需要调用相应的Service方法
-        return new ArrayList<>();
+    private long streamToFile(AttendanceExportRequest request, ExportFormat format, Path filePath)
+            throws IOException {
+        LazyFileExporter exporter = new LazyFileExporter(filePath, format, request.getColumns());
+        try {
+            streamExportData(request, exporter);
+            exporter.close();
+        } catch (IOException | RuntimeException e) {
+            exporter.closeQuietly();
+            Files.deleteIfExists(filePath);
+            throw e;
+        }
+        return exporter.getRowCount();
+    }
+
+    private Path exportPath(String fileName) {
+        return Paths.get(fileUploadPath, EXPORT_DIR).resolve(fileName);
+    }
+
+    private static int fileSize(Path filePath) throws IOException {
+        return (int) Math.min(Files.size(filePath), Integer.MAX_VALUE);
     }
 
     /**
-     * 获取员工月报导出数据
+     * 员工日报：考勤记录按员工、日期排序
      */
-    private List<Map<String, Object>> getEmployeeMonthlyExportData(AttendanceExportRequest request) {
-        // 简化实现，实际应用中需要调用相应的Service方法
-        return new ArrayList<>();
+    private void streamEmployeeDailyExportData(AttendanceExportRequest request,
+            Consumer<Map<String, Object>> consumer) {
+        LambdaQueryWrapper<AttendanceRecordEntity> wrapper = recordQuery(request)
+                .orderByAsc(AttendanceRecordEntity::getEmployeeId, AttendanceRecordEntity::getAttendanceDate,
+                        AttendanceRecordEntity::getRecordId);
+        attendanceRecordDao.streamList(wrapper, context -> consumer.accept(recordRow(context.getResultObject())));
     }
 
     /**
-     * 获取部门日报导出数据
+     * 员工月报：月度统计按员工、月份排序
      */
-    private List<Map<String, Object>> getDepartmentDailyExportData(AttendanceExportRequest request) {
-        // 简化实现，实际应用中需要调用相应的Service方法
-        return new ArrayList<>();
+    private void streamEmployeeMonthlyExportData(AttendanceExportRequest request,
+            Consumer<Map<String, Object>> consumer) {
+        LambdaQueryWrapper<AttendanceStatisticsEntity> wrapper = monthlyStatisticsQuery(request)
+                .orderByAsc(AttendanceStatisticsEntity::getEmployeeId, AttendanceStatisticsEntity::getStatisticsDate,
+                        AttendanceStatisticsEntity::getStatisticsId);
+        attendanceStatisticsDao.streamList(wrapper,
+                context -> consumer.accept(statisticsRow(context.getResultObject())));
     }
 
     /**
-     * 获取部门月报导出数据
+     * 部门日报：考勤记录按部门、日期、员工排序
      */
-    private List<Map<String, Object>> getDepartmentMonthlyExportData(AttendanceExportRequest request) {
-        // 简化实现，实际应用中需要调用相应的Service方法
-        return new ArrayList<>();
+    private void streamDepartmentDailyExportData(AttendanceExportRequest request,
+            Consumer<Map<String, Object>> consumer) {
+        LambdaQueryWrapper<AttendanceRecordEntity> wrapper = recordQuery(request)
+                .orderByAsc(AttendanceRecordEntity::getDepartmentId, AttendanceRecordEntity::getAttendanceDate,
+                        AttendanceRecordEntity::getEmployeeId, AttendanceRecordEntity::getRecordId);
+        attendanceRecordDao.streamList(wrapper, context -> consumer.accept(recordRow(context.getResultObject())));
     }
 
     /**
-     * 获取自定义报表导出数据
+     * 部门月报：部门内员工的月度统计按部门、月份、员工排序
      */
-    private List<Map<String, Object>> getCustomReportExportData(AttendanceExportRequest request) {
-        // 简化实现，实际应用中需要调用自定义报表服务
-        return new ArrayList<>();
+    private void streamDepartmentMonthlyExportData(AttendanceExportRequest request,
+            Consumer<Map<String, Object>> consumer) {
+        LambdaQueryWrapper<AttendanceStatisticsEntity> wrapper = monthlyStatisticsQuery(request)
+                .orderByAsc(AttendanceStatisticsEntity::getDepartmentId, AttendanceStatisticsEntity::getStatisticsDate,
+                        AttendanceStatisticsEntity::getEmployeeId, AttendanceStatisticsEntity::getStatisticsId);
+        attendanceStatisticsDao.streamList(wrapper,
+                context -> consumer.accept(statisticsRow(context.getResultObject())));
     }
 
     /**
-     * 生成Excel文件
+     * 考勤记录查询条件（流式查询需自行过滤逻辑删除）
      */
-    private byte[] generateExcelFile(List<Map<String, Object>> data, AttendanceExportRequest request)
-            throws IOException {
-        // 这里实现Excel文件生成
-        // 实际应用中可以使用Apache POI或EasyExcel等库
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        // ... Excel生成逻辑
-        return outputStream.toByteArray();
+    private LambdaQueryWrapper<AttendanceRecordEntity> recordQuery(AttendanceExportRequest request) {
+        LambdaQueryWrapper<AttendanceRecordEntity> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(AttendanceRecordEntity::getDeletedFlag, 0)
+                .eq(request.getEmployeeId() != null, AttendanceRecordEntity::getEmployeeId, request.getEmployeeId())
+                .eq(request.getDepartmentId() != null, AttendanceRecordEntity::getDepartmentId,
+                        request.getDepartmentId())
+                .ge(request.getStartDate() != null, AttendanceRecordEntity::getAttendanceDate, request.getStartDate())
+                .le(request.getEndDate() != null, AttendanceRecordEntity::getAttendanceDate, request.getEndDate());
+        return wrapper;
     }
 
     /**
-     * 生成PDF文件
+     * 月度统计查询条件，日期范围按整月对齐
      */
-    private byte[] generatePdfFile(List<Map<String, Object>> data, AttendanceExportRequest request) throws IOException {
-        // 这里实现PDF文件生成
-        // 实际应用中可以使用iText或其他PDF库
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        // ... PDF生成逻辑
-        return outputStream.toByteArray();
+    private LambdaQueryWrapper<AttendanceStatisticsEntity> monthlyStatisticsQuery(AttendanceExportRequest request) {
+        LocalDate startMonth = request.getStartDate() != null ? request.getStartDate().withDayOfMonth(1) : null;
+        LocalDate endMonth = request.getEndDate() != null
+                ? request.getEndDate().with(TemporalAdjusters.lastDayOfMonth()) : null;
+        LambdaQueryWrapper<AttendanceStatisticsEntity> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(AttendanceStatisticsEntity::getDeletedFlag, 0)
+                .eq(AttendanceStatisticsEntity::getStatisticsType, STATISTICS_TYPE_MONTHLY)
+                .eq(request.getEmployeeId() != null, AttendanceStatisticsEntity::getEmployeeId,
+                        request.getEmployeeId())
+                .eq(request.getDepartmentId() != null, AttendanceStatisticsEntity::getDepartmentId,
+                        request.getDepartmentId())
+                .ge(startMonth != null, AttendanceStatisticsEntity::getStatisticsDate, startMonth)
+                .le(endMonth != null, AttendanceStatisticsEntity::getStatisticsDate, endMonth);
+        return wrapper;
     }
 
     /**
-     * 生成CSV文件
+     * 考勤记录导出行，键即表头，请求中的 columns 按表头选列
      */
-    private byte[] generateCsvFile(List<Map<String, Object>> data, AttendanceExportRequest request) throws IOException {
-        // 这里实现CSV文件生成
-        StringBuilder csvContent = new StringBuilder();
-
-        // 简化的CSV生成逻辑
-        if (!data.isEmpty()) {
-            // 添加标题行
-            String[] headers = data.get(0).keySet().toArray(new String[0]);
-            csvContent.append(String.join(",", headers)).append("\n");
-
-            // 添加数据行
-            for (Map<String, Object> row : data) {
-                List<String> values = new ArrayList<>();
-                for (String header : headers) {
-                    Object value = row.get(header);
-                    values.add(value != null ? value.toString() : "");
-                }
-                csvContent.append(String.join(",", values)).append("\n");
-            }
-        }
+    private static Map<String, Object> recordRow(AttendanceRecordEntity record) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("记录ID", record.getRecordId());
+        row.put("员工ID", record.getEmployeeId());
+        row.put("部门ID", record.getDepartmentId());
+        row.put("考勤日期", record.getAttendanceDate());
+        row.put("上班打卡", record.getPunchInTime());
+        row.put("下班打卡", record.getPunchOutTime());
+        row.put("上班打卡地点", record.getPunchInLocation());
+        row.put("下班打卡地点", record.getPunchOutLocation());
+        row.put("工作时长", record.getWorkHours());
+        row.put("加班时长", record.getOvertimeHours());
+        row.put("考勤状态", record.getAttendanceStatus());
+        row.put("异常类型", record.getExceptionType());
+        row.put("异常原因", record.getExceptionReason());
+        row.put("是否已处理", record.getIsProcessed());
+        return row;
+    }
 
-        return csvContent.toString().getBytes("UTF-8");
+    /**
+     * 月度统计导出行，键即表头，请求中的 columns 按表头选列
+     */
+    private static Map<String, Object> statisticsRow(AttendanceStatisticsEntity statistics) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("员工ID", statistics.getEmployeeId());
+        row.put("部门ID", statistics.getDepartmentId());
+        row.put("统计周期", statistics.getStatisticsPeriod());
+        row.put("年份", statistics.getYear());
+        row.put("月份", statistics.getMonth());
+        row.put("应出勤天数", statistics.getWorkDays());
+        row.put("实际出勤天数", statistics.getPresentDays());
+        row.put("缺勤天数", statistics.getAbsentDays());
+        row.put("请假天数", statistics.getLeaveDays());
+        row.put("迟到天数", statistics.getLateDays());
+        row.put("早退天数", statistics.getEarlyLeaveDays());
+        row.put("忘打卡天数", statistics.getForgetPunchDays());
+        row.put("总工作时长", statistics.getTotalWorkHours());
+        row.put("加班时长", statistics.getOvertimeHours());
+        row.put("迟到总分钟", statistics.getLateTotalMinutes());
+        row.put("早退总分钟", statistics.getEarlyLeaveTotalMinutes());
+        row.put("出勤率", statistics.getAttendanceRate());
+        row.put("准时率", statistics.getPunctualityRate());
+        return row;
     }
 
     /**
@@ -533,12 +638,27 @@ public class AttendanceExportService {
     }
 
     /**
-     * 生成压缩文件名
+     * 生成压缩文件名：zip 为 attendance_export_时间.zip，gzip 为包内文件名加 .gz
      */
-    private String generateCompressedFileName(CompressExportRequest request) {
+    private String generateCompressedFileName(ExportCompression compression, List<ExportFile> files) {
+        if (compression == ExportCompression.GZIP) {
+            return files.get(0).getFileName() + compression.getSuffix();
+        }
         String timestamp = LocalDateTime.now().format(DATETIME_FORMATTER);
-        String extension = "zip".equals(request.getCompressionType()) ? "zip" : "rar";
-        return String.format("attendance_export_%s.%s", timestamp, extension);
+        return "attendance_export_" + timestamp + compression.getSuffix();
+    }
+
+    /**
+     * 解析压缩方式：未指定时默认zip，仅支持 zip、gzip（gz）
+     *
+     * @return 不支持的压缩方式返回null
+     */
+    private static ExportCompression parseCompressionType(String compressionType) {
+        if (compressionType == null || compressionType.isBlank()) {
+            return ExportCompression.ZIP;
+        }
+        ExportCompression compression = ExportCompression.of("." + compressionType.trim());
+        return compression == ExportCompression.NONE ? null : compression;
     }
 
     /**
@@ -594,14 +714,94 @@ public class AttendanceExportService {
     }
 
     /**
-     * 压缩文件
+     * 压缩文件：逐个文件流式拷贝进zip或gzip，不在内存中拼装；gzip只能包含单个文件
+     */
+    private void compressFiles(List<ExportFile> files, Path target, ExportCompression compression)
+            throws IOException {
+        try {
+            if (compression == ExportCompression.GZIP) {
+                Path source = exportPath(files.get(0).getFileName());
+                try (GZIPOutputStream gzipOutput = new GZIPOutputStream(Files.newOutputStream(target));
+                     InputStream input = Files.newInputStream(source)) {
+                    input.transferTo(gzipOutput);
+                }
+                return;
+            }
+            try (ZipOutputStream zipOutput = new ZipOutputStream(Files.newOutputStream(target))) {
+                for (ExportFile file : files) {
+                    Path source = exportPath(file.getFileName());
+                    zipOutput.putNextEntry(new ZipEntry(file.getFileName()));
+                    try (InputStream input = Files.newInputStream(source)) {
+                        input.transferTo(zipOutput);
+                    }
+                    zipOutput.closeEntry();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        } finally {
+            for (ExportFile file : files) {
+                Files.deleteIfExists(exportPath(file.getFileName()));
+            }
+        }
+    }
+
+    /**
+     * 首行到达时才创建的文件导出器
      */
-    private byte[] compressFiles(List<ExportFile> files, String compressionType) throws IOException {
-        // 实现文件压缩逻辑
-        // 实际应用中可以使用java.util.zip或第三方压缩库
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        // ... 压缩逻辑
-        return outputStream.toByteArray();
+    private static class LazyFileExporter implements Consumer<Map<String, Object>> {
+
+        private final Path filePath;
+
+        private final ExportFormat format;
+
+        private final List<String> columns;
+
+        private StreamingExporter<Map<String, Object>> exporter;
+
+        private LazyFileExporter(Path filePath, ExportFormat format, List<String> columns) {
+            this.filePath = filePath;
+            this.format = format;
+            this.columns = columns;
+        }
+
+        @Override
+        public void accept(Map<String, Object> row) {
+            if (exporter == null) {
+                List<String> keys = columns != null && !columns.isEmpty()
+                        ? columns : new ArrayList<>(row.keySet());
+                List<ExportColumn<Map<String, Object>>> exportColumns = new ArrayList<>(keys.size());
+                for (String key : keys) {
+                    exportColumns.add(ExportColumn.of(key, data -> data.get(key)));
+                }
+                try {
+                    exporter = StreamingExporter.toFile(filePath, format, ExportCompression.NONE, exportColumns,
+                            null);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            exporter.write(row);
+        }
+
+        private long getRowCount() {
+            return exporter != null ? exporter.getRowCount() : 0;
+        }
+
+        private void close() throws IOException {
+            if (exporter != null) {
+                exporter.close();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                close();
+            } catch (IOException e) {
+                log.warn("关闭导出文件失败: {}", filePath, e);
+            }
+        }
     }
 
     // ===== 内部数据类 =====
@@ -683,6 +883,7 @@ public class AttendanceExportService {
         private boolean success;
         private String message;
         private String fileName;
+        private String filePath;
         private int fileSize;
         private byte[] fileData;
         private LocalDateTime exportTime;
@@ -730,6 +931,14 @@ public class AttendanceExportService {
             this.fileName = fileName;
         }
 
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public void setFilePath(String filePath) {
+            this.filePath = filePath;
+        }
+
         public int getFileSize() {
             return fileSize;
         }
@@ -841,6 +1050,7 @@ public class AttendanceExportService {
         private boolean success;
         private String message;
         private String fileName;
+        private String filePath;
         private int fileSize;
         private byte[] fileData;
         private LocalDateTime exportTime;
@@ -891,6 +1101,14 @@ public class AttendanceExportService {
             this.fileName = fileName;
         }
 
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public void setFilePath(String filePath) {
+            this.filePath = filePath;
+        }
+
         public int getFileSize() {
             return fileSize;
         }
@@ -1134,6 +1352,7 @@ public class AttendanceExportService {
         private boolean success;
         private String message;
         private String fileName;
+        private String filePath;
         private int fileSize;
         private byte[] fileData;
         private LocalDateTime exportTime;
@@ -1206,6 +1425,14 @@ public class AttendanceExportService {
             this.fileName = fileName;
         }
 
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public void setFilePath(String filePath) {
+            this.filePath = filePath;
+        }
+
         public void setFileSize(int fileSize) {
             this.fileSize = fileSize;
         }
@@ -1335,7 +1562,7 @@ public class AttendanceExportService {
 
     public static class ExportFile {
         private String fileName;
-        private byte[] fileData;
+        private String filePath;
 
         // Getters and Setters
         public String getFileName() {
@@ -1346,12 +1573,12 @@ public class AttendanceExportService {
             this.fileName = fileName;
         }
 
-        public byte[] getFileData() {
-            return fileData;
+        public String getFilePath() {
+            return filePath;
         }
 
-        public void setFileData(byte[] fileData) {
-            this.fileData = fileData;
+        public void setFilePath(String filePath) {
+            this.filePath = filePath;
         }
     }
 }
\ No newline at end of file
@@ -38,6 +38,15 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
     @Resource
     private UnifiedCacheManager unifiedCacheManager;
 
+    /**
+     * 成组失效用的标签，随值写入，失效时递增标签代际而不是按模式删除
+     */
+    private static final class CacheTag {
+        public static final String USER = "user:";
+        public static final String DEVICE = "device:";
+        public static final String DATE = "date:";
+    }
+
     // 缓存键命名空间定义
     private static final class CacheKey {
         // 考勤记录
@@ -128,7 +137,7 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
         }
 
         String key = buildKey(CacheKey.USER_TODAY_ATTENDANCE, userId.toString(), date);
-        unifiedCacheManager.set(CacheNamespace.ATTENDANCE, key, records);
+        unifiedCacheManager.setWithTags(CacheNamespace.ATTENDANCE, key, records, CacheTag.USER + userId, CacheTag.DATE + date);
 
         log.debug("缓存用户当日考勤记录: userId={}, date={}, count={}", userId, date, records.size());
     }
@@ -153,7 +162,7 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
         }
 
         String key = buildKey(CacheKey.DEVICE_TODAY_ATTENDANCE, deviceId.toString(), date);
-        unifiedCacheManager.set(CacheNamespace.ATTENDANCE, key, records);
+        unifiedCacheManager.setWithTags(CacheNamespace.ATTENDANCE, key, records, CacheTag.DEVICE + deviceId, CacheTag.DATE + date);
 
         log.debug("缓存设备当日考勤记录: deviceId={}, date={}, count={}", deviceId, date, records.size());
     }
@@ -306,7 +315,7 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
         }
 
         String key = buildKey(CacheKey.USER_SCHEDULES, userId.toString(), startDate, endDate);
-        unifiedCacheManager.set(CacheNamespace.ATTENDANCE, key, schedules);
+        unifiedCacheManager.setWithTags(CacheNamespace.ATTENDANCE, key, schedules, CacheTag.USER + userId);
 
         log.debug("缓存用户排班列表: userId={}, startDate={}, endDate={}, count={}",
                 userId, startDate, endDate, schedules.size());
@@ -332,7 +341,8 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
         }
 
         String key = buildKey(CacheKey.DEVICE_SCHEDULES, deviceId.toString(), date);
-        unifiedCacheManager.set(CacheNamespace.ATTENDANCE, key, schedules);
+        unifiedCacheManager.setWithTags(CacheNamespace.ATTENDANCE, key, schedules,
+                CacheTag.DEVICE + deviceId, CacheTag.DATE + date);
 
         log.debug("缓存设备排班列表: deviceId={}, date={}, count={}", deviceId, date, schedules.size());
     }
@@ -359,7 +369,7 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
         }
 
         String key = buildKey(CacheKey.ATTENDANCE_STATS, date, type);
-        unifiedCacheManager.set(CacheNamespace.ATTENDANCE, key, stats);
+        unifiedCacheManager.setWithTags(CacheNamespace.ATTENDANCE, key, stats, CacheTag.DATE + date);
 
         log.debug("缓存考勤统计数据: date={}, type={}", date, type);
     }
@@ -384,7 +394,7 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
         }
 
         String key = buildKey(CacheKey.USER_STATS, userId.toString(), startDate, endDate);
-        unifiedCacheManager.set(CacheNamespace.ATTENDANCE, key, stats);
+        unifiedCacheManager.setWithTags(CacheNamespace.ATTENDANCE, key, stats, CacheTag.USER + userId);
 
         log.debug("缓存用户考勤统计: userId={}, startDate={}, endDate={}", userId, startDate, endDate);
     }
@@ -397,9 +407,8 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
             return;
         }
 
-        // 清除用户相关的所有缓存
-        String userPattern = "*:" + userId.toString() + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ATTENDANCE, userPattern);
+        // 清除用户相关的所有缓存（当日记录、排班、统计）
+        unifiedCacheManager.invalidateTag(CacheNamespace.ATTENDANCE, CacheTag.USER + userId);
 
         log.debug("清除用户缓存: userId={}", userId);
     }
@@ -411,8 +420,7 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
         }
 
         // 清除设备相关的所有缓存
-        String devicePattern = "*:" + deviceId.toString() + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ATTENDANCE, devicePattern);
+        unifiedCacheManager.invalidateTag(CacheNamespace.ATTENDANCE, CacheTag.DEVICE + deviceId);
 
         log.debug("清除设备缓存: deviceId={}", deviceId);
     }
@@ -423,9 +431,8 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
             return;
         }
 
-        // 清除规则相关的所有缓存
-        String rulePattern = CacheKey.ATTENDANCE_RULE + ":" + ruleId.toString() + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ATTENDANCE, rulePattern);
+        // 清除规则缓存
+        unifiedCacheManager.delete(CacheNamespace.ATTENDANCE, buildKey(CacheKey.ATTENDANCE_RULE, ruleId.toString()));
 
         log.debug("清除规则缓存: ruleId={}", ruleId);
     }
@@ -436,13 +443,8 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
             return;
         }
 
-        // 清除日期相关的统计缓存
-        String statsPattern = CacheKey.ATTENDANCE_STATS + ":" + date + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ATTENDANCE, statsPattern);
-
-        // 清除日期相关的记录缓存
-        String recordPattern = "*:*:" + date;
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ATTENDANCE, recordPattern);
+        // 清除日期相关的统计、记录和排班缓存
+        unifiedCacheManager.invalidateTag(CacheNamespace.ATTENDANCE, CacheTag.DATE + date);
 
         log.debug("清除日期相关缓存: date={}", date);
     }
@@ -453,9 +455,8 @@ public class AttendanceCacheServiceImpl implements AttendanceCacheService {
             return;
         }
 
-        // 清除排班相关的所有缓存
-        String schedulePattern = CacheKey.ATTENDANCE_SCHEDULE + ":" + scheduleId.toString() + ":*";
-        unifiedCacheManager.deleteByPattern(CacheNamespace.ATTENDANCE, schedulePattern);
+        // 清除排班缓存
+        unifiedCacheManager.delete(CacheNamespace.ATTENDANCE, buildKey(CacheKey.ATTENDANCE_SCHEDULE, scheduleId.toString()));
 
         log.debug("清除排班缓存: scheduleId={}", scheduleId);
     }
@@ -57,6 +57,49 @@ public class AsyncConfig {
         return executor;
     }
 
+    /**
+     * 消费前置检查线程池
+     * 用于支付链路上风险检测、权限校验并行执行，队列满时由调用线程执行，退化为串行检查
+     */
+    @Bean("consumeCheckExecutor")
+    public Executor consumeCheckExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 检查以Redis/数据库查询为主，线程数按IO密集配置
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        executor.setMaxPoolSize(Runtime.getRuntime().availableProcessors() * 4);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("consume-check-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setKeepAliveSeconds(60);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 消费后一致性校验线程池
+     * 用于支付提交后的账户一致性校验与修复，不占用支付链路；队列满时直接拒绝，由定时对账兜底
+     */
+    @Bean("consumeVerifyExecutor")
+    public Executor consumeVerifyExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(2000);
+        executor.setThreadNamePrefix("consume-verify-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setKeepAliveSeconds(300);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+
+        executor.initialize();
+        return executor;
+    }
+
     /**
      * 通知发送线程池
      * 用于发送邮件、短信、推送等通知操作
@@ -1,5 +1,6 @@
 package net.lab1024.sa.admin.module.consume.controller;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -12,6 +13,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletResponse;
 import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
 import net.lab1024.sa.admin.module.consume.service.ConsumeService;
 import net.lab1024.sa.base.common.controller.SupportBaseController;
@@ -203,6 +205,24 @@ public class ConsumeController extends SupportBaseController {
         }
     }
 
+    @GetMapping("/export/download")
+    @Operation(summary = "下载消费记录", description = "流式导出消费记录，支持 csv/xlsx 及 .gz/.zip 压缩")
+    @SaCheckLogin
+    @SaCheckPermission("consume:record:export")
+    public void downloadRecords(
+            @RequestParam(required = false) Long personId,
+            @RequestParam(required = false) String orderNo,
+            @RequestParam(required = false) Long deviceId,
+            @RequestParam(required = false) String consumeMode,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) LocalDateTime startTime,
+            @RequestParam(required = false) LocalDateTime endTime,
+            @RequestParam(required = false) String format,
+            HttpServletResponse response) throws IOException {
+        consumeService.downloadRecords(personId, orderNo, deviceId, consumeMode, status, startTime, endTime, format,
+                response);
+    }
+
     @GetMapping("/trend")
     @Operation(summary = "消费趋势", description = "获取消费趋势数据")
     @SaCheckLogin
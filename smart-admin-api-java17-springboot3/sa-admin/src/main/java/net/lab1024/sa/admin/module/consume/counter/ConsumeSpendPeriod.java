@@ -0,0 +1,139 @@
+package net.lab1024.sa.admin.module.consume.counter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * 消费累计计数周期
+ * <p>
+ * 计数器键：consume:spend:{personId}:{周期代码}:{周期起始日期}，金额以分为单位的整数保存
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public enum ConsumeSpendPeriod {
+
+    DAY("D", Duration.ofDays(2)) {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date;
+        }
+    },
+
+    /**
+     * 自然周，周一开始
+     */
+    WEEK("W", Duration.ofDays(8)) {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+    },
+
+    MONTH("M", Duration.ofDays(32)) {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date.withDayOfMonth(1);
+        }
+    };
+
+    public static final String KEY_PREFIX = "consume:spend:";
+
+    private static final DateTimeFormatter KEY_DATE_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final String code;
+
+    /**
+     * 计数器过期时间，覆盖整个周期并留有余量
+     */
+    private final Duration ttl;
+
+    ConsumeSpendPeriod(String code, Duration ttl) {
+        this.code = code;
+        this.ttl = ttl;
+    }
+
+    /**
+     * 日期所在周期的第一天
+     */
+    public abstract LocalDate start(LocalDate date);
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * 周期统计区间起点（含）
+     */
+    public LocalDateTime startTime(LocalDate date) {
+        return start(date).atStartOfDay();
+    }
+
+    /**
+     * 周期统计区间终点（含），与 getConsumeAmountByTimeRange 的闭区间一致
+     */
+    public LocalDateTime endTime(LocalDate date) {
+        LocalDate next = this == DAY ? date.plusDays(1)
+                : this == WEEK ? start(date).plusWeeks(1)
+                : start(date).plusMonths(1);
+        return next.minusDays(1).atTime(LocalTime.MAX);
+    }
+
+    /**
+     * 计数器键
+     */
+    public String key(Long personId, LocalDate date) {
+        return KEY_PREFIX + personId + ":" + code + ":" + start(date).format(KEY_DATE_FORMATTER);
+    }
+
+    /**
+     * 从计数器键解析周期，非本类生成的键返回null
+     */
+    public static ConsumeSpendPeriod ofKey(String key) {
+        String[] parts = key.split(":");
+        if (parts.length != 5) {
+            return null;
+        }
+        for (ConsumeSpendPeriod period : values()) {
+            if (period.code.equals(parts[3])) {
+                return period;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从计数器键解析人员ID
+     */
+    public static Long personIdOfKey(String key) {
+        return Long.valueOf(key.split(":")[2]);
+    }
+
+    /**
+     * 从计数器键解析周期起始日期
+     */
+    public static LocalDate dateOfKey(String key) {
+        return LocalDate.parse(key.split(":")[4], KEY_DATE_FORMATTER);
+    }
+
+    /**
+     * 金额转分
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount == null ? 0L : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * 分转金额
+     */
+    public static BigDecimal ofCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
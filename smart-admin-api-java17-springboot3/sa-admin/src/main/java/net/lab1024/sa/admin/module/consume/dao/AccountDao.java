@@ -2,6 +2,9 @@ package net.lab1024.sa.admin.module.consume.dao;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -34,6 +37,26 @@ public interface AccountDao extends BaseMapper<AccountEntity> {
             @Param("newBalance") BigDecimal newBalance,
             @Param("version") Integer version);
 
+    /**
+     * 条件原子扣减余额
+     * 状态、可用余额（余额 + 信用额度 - 冻结金额）、单次限额的校验与扣减在同一条UPDATE内完成，
+     * 同一账户的并发扣减由行锁串行化，不依赖版本号
+     *
+     * @param accountId 账户ID
+     * @param amount    扣减金额
+     * @return 更新行数，0表示账户不存在、状态非ACTIVE、余额不足或超出单次限额
+     */
+    int deductBalanceAtomic(@Param("accountId") Long accountId,
+            @Param("amount") BigDecimal amount);
+
+    /**
+     * 查询账户当前余额
+     *
+     * @param accountId 账户ID
+     * @return 余额
+     */
+    BigDecimal selectBalance(@Param("accountId") Long accountId);
+
     /**
      * 使用乐观锁增加余额
      *
@@ -136,6 +159,18 @@ public interface AccountDao extends BaseMapper<AccountEntity> {
 @Param("startTime") LocalDateTime startTime,
 @Param("endTime") LocalDateTime endTime);
 
+    /**
+     * 按人员分组汇总指定时间范围内的消费金额
+     *
+     * @param personIds 人员ID
+     * @param startTime 开始时间
+     * @param endTime   结束时间
+     * @return 每个有消费的人员一行：personId、totalAmount
+     */
+    List<Map<String, Object>> sumConsumeAmountByPersons(@Param("personIds") Collection<Long> personIds,
+                                                        @Param("startTime") LocalDateTime startTime,
+                                                        @Param("endTime") LocalDateTime endTime);
+
     /**
      * 获取指定时间范围内的总消费金额（所有账户）
      *
@@ -1,10 +1,20 @@
 package net.lab1024.sa.admin.module.consume.dao;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 @Mapper
 public interface ConsumeRecordDao extends BaseMapper<ConsumeRecordEntity> {
-}
 
+    /**
+     * 流式查询，逐行回调，不在内存中保留结果集（用于大数据量导出）
+     * 自定义SQL不会自动追加逻辑删除条件，调用方需在条件中过滤 deletedFlag
+     */
+    void streamList(@Param(Constants.WRAPPER) Wrapper<ConsumeRecordEntity> wrapper,
+                    ResultHandler<ConsumeRecordEntity> handler);
+}
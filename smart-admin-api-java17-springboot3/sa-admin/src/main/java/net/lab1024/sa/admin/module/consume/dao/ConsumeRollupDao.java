@@ -0,0 +1,93 @@
+package net.lab1024.sa.admin.module.consume.dao;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRollupEntity;
+
+/**
+ * 消费预聚合DAO
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Mapper
+public interface ConsumeRollupDao extends BaseMapper<ConsumeRollupEntity> {
+
+    /**
+     * 批量累加增量（不存在则插入）
+     */
+    int upsertBatch(@Param("list") List<ConsumeRollupEntity> list);
+
+    /**
+     * 查询时间桶 [startTime, endTime)
+     *
+     * @param dimKey 为空时返回该维度全部取值
+     */
+    List<ConsumeRollupEntity> selectBuckets(@Param("granularity") String granularity,
+                                            @Param("dimType") String dimType,
+                                            @Param("dimKey") String dimKey,
+                                            @Param("startTime") LocalDateTime startTime,
+                                            @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 按维度取值合计 [startTime, endTime)
+     */
+    List<ConsumeRollupEntity> sumByKey(@Param("granularity") String granularity,
+                                       @Param("dimType") String dimType,
+                                       @Param("startTime") LocalDateTime startTime,
+                                       @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 删除 [startTime, endTime) 内的全部时间桶
+     */
+    int deleteRange(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 从消费明细重建 [startTime, endTime) 内某维度的时间桶
+     */
+    int rebuildRange(@Param("granularity") String granularity,
+                     @Param("dimType") String dimType,
+                     @Param("startTime") LocalDateTime startTime,
+                     @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 预聚合完整覆盖的起始时间，未完成回填时为null
+     */
+    LocalDateTime selectCoveredFrom();
+
+    int deleteCoveredFrom();
+
+    int insertCoveredFrom(@Param("coveredFrom") LocalDateTime coveredFrom);
+
+    /**
+     * 标记某天需要从明细重建，每次标记版本号加一
+     */
+    int markDirty(@Param("day") LocalDateTime day);
+
+    /**
+     * 某天脏标记的版本号，未标记时为null
+     */
+    Long selectDirtyVersion(@Param("day") LocalDateTime day);
+
+    /**
+     * 版本号未变化时清除脏标记
+     */
+    int deleteDirty(@Param("day") LocalDateTime day, @Param("version") Long version);
+
+    /**
+     * [startTime, endTime) 内的脏天数量
+     */
+    int countDirty(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * [startTime, endTime) 内的脏天，按时间升序
+     */
+    List<LocalDateTime> selectDirtyDays(@Param("startTime") LocalDateTime startTime,
+                                        @Param("endTime") LocalDateTime endTime);
+}
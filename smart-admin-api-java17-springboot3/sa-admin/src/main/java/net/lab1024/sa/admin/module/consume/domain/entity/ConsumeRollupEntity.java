@@ -0,0 +1,57 @@
+package net.lab1024.sa.admin.module.consume.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 消费预聚合实体
+ * <p>
+ * 每行是一个（粒度, 维度, 维度取值, 时间桶）上成功消费的金额与笔数合计
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Data
+@TableName("t_consume_rollup")
+public class ConsumeRollupEntity {
+
+    @TableId(type = IdType.AUTO)
+    private Long rollupId;
+
+    /**
+     * 时间粒度 HOUR/DAY
+     */
+    private String granularity;
+
+    /**
+     * 时间桶起始时间
+     */
+    private LocalDateTime bucketTime;
+
+    /**
+     * 维度类型
+     */
+    private String dimType;
+
+    /**
+     * 维度取值
+     */
+    private String dimKey;
+
+    /**
+     * 金额合计
+     */
+    private BigDecimal totalAmount;
+
+    /**
+     * 笔数合计
+     */
+    private Long totalCount;
+
+    private LocalDateTime updateTime;
+}
@@ -127,6 +127,11 @@ public class AccountValidationResult {
          */
         DAILY_LIMIT_EXCEEDED("DAILY_LIMIT_EXCEEDED", "超出日消费限额"),
 
+        /**
+         * 超出周限额
+         */
+        WEEKLY_LIMIT_EXCEEDED("WEEKLY_LIMIT_EXCEEDED", "超出周消费限额"),
+
         /**
          * 超出月限额
          */
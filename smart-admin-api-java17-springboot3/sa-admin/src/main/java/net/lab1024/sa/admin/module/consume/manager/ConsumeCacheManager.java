@@ -13,6 +13,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.consume.counter.ConsumeSpendPeriod;
 import net.lab1024.sa.admin.module.consume.dao.ConsumeRecordDao;
 import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
 import net.lab1024.sa.base.common.manager.BaseCacheManager;
@@ -47,8 +48,8 @@ public class ConsumeCacheManager extends BaseCacheManager {
     @Resource
     private ConsumeRecordDao consumeRecordDao;
 
-    // 账户余额缓存 (内存缓存，用于实时查询)
-    private final Map<Long, BigDecimal> accountBalanceCache = new ConcurrentHashMap<>();
+    @Resource
+    private ConsumeSpendCounterManager consumeSpendCounterManager;
 
     // 消费限额配置缓存
     private final Map<Long, Map<String, Object>> consumeLimits = new ConcurrentHashMap<>();
@@ -65,8 +66,9 @@ public class ConsumeCacheManager extends BaseCacheManager {
      * @return 账户余额
      */
     public BigDecimal getAccountBalance(Long employeeId) {
-        // 优先从内存缓存获取
-        return accountBalanceCache.computeIfAbsent(employeeId, id -> {
+        // 多级缓存读取，并发未命中合并为一次查询
+        String cacheKey = buildCacheKey(employeeId, ":balance");
+        return getCache(cacheKey, () -> {
             // 从数据库查询最新余额
             LambdaQueryWrapper<ConsumeRecordEntity> latestWrapper = new LambdaQueryWrapper<>();
             latestWrapper.eq(ConsumeRecordEntity::getEmployeeId, employeeId)
@@ -85,9 +87,6 @@ public class ConsumeCacheManager extends BaseCacheManager {
      * @param balance    新余额
      */
     public void updateAccountBalance(Long employeeId, BigDecimal balance) {
-        accountBalanceCache.put(employeeId, balance);
-
-        // 同时缓存到Redis
         String cacheKey = buildCacheKey(employeeId, ":balance");
         setCache(cacheKey, balance);
     }
@@ -191,9 +190,10 @@ public class ConsumeCacheManager extends BaseCacheManager {
         Map<String, Object> result = new ConcurrentHashMap<>();
 
         try {
-            // 获取当日消费总额
-            String today = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
-            BigDecimal dailyTotal = getDailyTotalAmount(employeeId, today);
+            // 获取当日、当月消费累计（计数器，不扫描明细）
+            Map<ConsumeSpendPeriod, BigDecimal> spent = consumeSpendCounterManager.getAmounts(employeeId,
+                    LocalDate.now());
+            BigDecimal dailyTotal = spent.get(ConsumeSpendPeriod.DAY);
 
             // 获取消费限额配置
             Map<String, Object> limits = getConsumeLimits(employeeId);
@@ -209,9 +209,7 @@ public class ConsumeCacheManager extends BaseCacheManager {
             }
 
             // 检查月限额
-            String currentMonth = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM"));
-            Map<String, Object> monthlyStats = getMonthlyStats(employeeId, currentMonth);
-            BigDecimal monthlyTotal = new BigDecimal(monthlyStats.getOrDefault("totalAmount", "0").toString());
+            BigDecimal monthlyTotal = spent.get(ConsumeSpendPeriod.MONTH);
 
             if (monthlyTotal.add(consumeAmount).compareTo(monthlyLimit) > 0) {
                 result.put("allow", false);
@@ -325,9 +323,6 @@ public class ConsumeCacheManager extends BaseCacheManager {
         // 清除余额缓存
         String balanceKey = buildCacheKey(employeeId, ":balance");
         removeCache(balanceKey);
-
-        // 清除内存余额缓存
-        accountBalanceCache.remove(employeeId);
     }
 
     /**
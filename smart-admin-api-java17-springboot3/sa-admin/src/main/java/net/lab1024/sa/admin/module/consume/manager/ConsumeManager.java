@@ -47,6 +47,12 @@ public class ConsumeManager {
     @Resource
     private BaseCacheManager cacheManager;
 
+    @Resource
+    private ConsumeRollupManager consumeRollupManager;
+
+    @Resource
+    private ConsumeSpendCounterManager consumeSpendCounterManager;
+
     /**
      * 执行消费操作
      * 这是一个复杂业务操作，涉及账户验证、余额检查、消费记录创建等多个步骤
@@ -92,6 +98,8 @@ public class ConsumeManager {
 
             // 7. 保存消费记录
             consumeRecordDao.insert(consumeRecord);
+            consumeRollupManager.onConsumeRecorded(consumeRecord);
+            consumeSpendCounterManager.onConsumeRecorded(consumeRecord);
 
             // 8. 更新账户余额（这里应该调用账户服务进行扣款）
             // updateAccountBalance(account.getAccountId(), actualAmount);
@@ -0,0 +1,274 @@
+package net.lab1024.sa.admin.module.consume.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.consume.domain.dto.ConsumeRequestDTO;
+import net.lab1024.sa.admin.module.consume.service.ConsumePermissionService;
+import net.lab1024.sa.base.common.domain.RequestUser;
+import net.lab1024.sa.base.common.domain.ResponseDTO;
+import net.lab1024.sa.base.common.util.SmartRequestUtil;
+
+/**
+ * 消费处理流水线管理器
+ * <p>
+ * 将支付链路拆分为阶段执行：
+ * - 前置检查：风险检测与权限校验互不依赖，在 consumeCheckExecutor 上并行执行，任一拒绝立即返回，不等待另一项
+ * - 数据一致性校验：不再阻塞支付，事务提交后提交到 consumeVerifyExecutor 异步校验，发现错误时尝试修复
+ * <p>
+ * 每个阶段的耗时记录到计时器 consume.pipeline.stage（标签 stage），用于定位支付尾延迟来源
+ * <p>
+ * 配置项（consume.pipeline.*）：check-timeout-ms
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class ConsumePipelineManager {
+
+    public static final String STAGE_TIMER = "consume.pipeline.stage";
+
+    public static final String STAGE_PRE_CHECK = "pre_check";
+
+    public static final String STAGE_RISK = "risk";
+
+    public static final String STAGE_PERMISSION = "permission";
+
+    public static final String STAGE_MODE_ENGINE = "mode_engine";
+
+    public static final String STAGE_PERSIST = "persist";
+
+    public static final String STAGE_CACHE = "cache";
+
+    public static final String STAGE_CONSISTENCY = "consistency";
+
+    public static final String STAGE_TOTAL = "total";
+
+    /**
+     * 异步校验尚未完成，返回给调用方的一致性状态
+     */
+    public static final String CONSISTENCY_PENDING = "PENDING";
+
+    @Resource
+    private AccountSecurityManager accountSecurityManager;
+
+    @Resource
+    private ConsumePermissionService consumePermissionService;
+
+    @Resource
+    private DataConsistencyManager dataConsistencyManager;
+
+    @Resource(name = "consumeCheckExecutor")
+    private Executor consumeCheckExecutor;
+
+    @Resource(name = "consumeVerifyExecutor")
+    private Executor consumeVerifyExecutor;
+
+    @Resource
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${consume.pipeline.check-timeout-ms:500}")
+    private long checkTimeoutMs;
+
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    // ================================
+    // 前置检查
+    // ================================
+
+    /**
+     * 并行执行风险检测与权限校验
+     * <p>
+     * 超时或检查异常均按拒绝处理
+     */
+    public PreCheckResult preCheck(ConsumeRequestDTO request) {
+        // 当前登录用户保存在请求线程的ThreadLocal中，需在提交任务前取出
+        RequestUser requestUser = SmartRequestUtil.getRequestUser();
+
+        CompletableFuture<AccountSecurityManager.RiskDetectionResult> risk = CompletableFuture.supplyAsync(
+                () -> time(STAGE_RISK, () -> accountSecurityManager.detectAnomalousOperation(request.getUserId(),
+                        request.getAmount(), request.getDeviceId())),
+                consumeCheckExecutor);
+        CompletableFuture<ResponseDTO<Boolean>> permission = CompletableFuture.supplyAsync(
+                () -> time(STAGE_PERMISSION, () -> consumePermissionService.checkConsumePermission(
+                        request.getUserId(), request.getDeviceId(), requestUser)),
+                consumeCheckExecutor);
+
+        CompletableFuture<String> rejection = firstRejection(List.of(
+                risk.thenApply(r -> "HIGH".equals(r.getRiskLevel()) ? "检测到高风险交易：" + r.getMessage() : null),
+                permission.thenApply(p -> Boolean.TRUE.equals(p.getOk()) ? null : p.getMsg())));
+
+        String message;
+        try {
+            message = rejection.get(checkTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("消费前置检查超时: userId={}, timeoutMs={}", request.getUserId(), checkTimeoutMs);
+            return PreCheckResult.reject("消费前置检查超时，请重试", null);
+        } catch (ExecutionException e) {
+            log.error("消费前置检查失败: userId={}", request.getUserId(), e.getCause());
+            return PreCheckResult.reject("消费前置检查失败：" + e.getCause().getMessage(), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return PreCheckResult.reject("消费前置检查被中断", null);
+        }
+
+        AccountSecurityManager.RiskDetectionResult riskResult = risk.getNow(null);
+        String riskLevel = riskResult != null ? riskResult.getRiskLevel() : null;
+        return message != null ? PreCheckResult.reject(message, riskLevel) : PreCheckResult.pass(riskLevel);
+    }
+
+    /**
+     * 任一检查给出拒绝原因（非null）即完成；全部通过时以null完成；检查异常时异常完成
+     */
+    static CompletableFuture<String> firstRejection(List<CompletableFuture<String>> checks) {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        List<CompletableFuture<String>> observed = new ArrayList<>(checks.size());
+        for (CompletableFuture<String> check : checks) {
+            observed.add(check.whenComplete((message, e) -> {
+                if (e != null) {
+                    first.completeExceptionally(e);
+                } else if (message != null) {
+                    first.complete(message);
+                }
+            }));
+        }
+        // 依赖回调执行后的阶段，保证拒绝原因先于“全部通过”写入
+        CompletableFuture.allOf(observed.toArray(new CompletableFuture[0]))
+                .whenComplete((v, e) -> first.complete(null));
+        return first;
+    }
+
+    // ================================
+    // 异步一致性校验
+    // ================================
+
+    /**
+     * 事务提交后异步校验账户数据一致性，ERROR时尝试修复
+     * <p>
+     * 线程池满时跳过本次校验，由定时对账兜底
+     */
+    public void verifyAfterCommit(Long accountId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitVerify(accountId);
+                }
+            });
+        } else {
+            submitVerify(accountId);
+        }
+    }
+
+    private void submitVerify(Long accountId) {
+        try {
+            consumeVerifyExecutor.execute(() -> time(STAGE_CONSISTENCY, () -> verify(accountId)));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("consume.pipeline.verify.rejected").increment();
+            log.warn("一致性校验队列已满，跳过本次校验: accountId={}", accountId);
+        }
+    }
+
+    private String verify(Long accountId) {
+        try {
+            DataConsistencyManager.ConsistencyValidationResult validation = dataConsistencyManager
+                    .validateDataConsistency(accountId);
+            if (!"ERROR".equals(validation.getStatus())) {
+                return validation.getStatus();
+            }
+            log.error("数据一致性验证失败: accountId={}, message={}", accountId, validation.getMessage());
+            DataConsistencyManager.ConsistencyRepairResult repair = dataConsistencyManager
+                    .repairDataInconsistency(accountId);
+            if (!"SUCCESS".equals(repair.getStatus())) {
+                log.error("数据一致性修复失败，等待人工处理: accountId={}, message={}", accountId, repair.getMessage());
+            }
+            return repair.getStatus();
+        } catch (Exception e) {
+            log.error("数据一致性异步校验异常: accountId={}", accountId, e);
+            return "ERROR";
+        }
+    }
+
+    // ================================
+    // 计时
+    // ================================
+
+    /**
+     * 执行并记录阶段耗时
+     */
+    public <T> T time(String stage, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            timer(stage).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String stage) {
+        return timers.computeIfAbsent(stage, s -> Timer.builder(STAGE_TIMER)
+                .description("消费处理各阶段耗时")
+                .tag("stage", s)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * 前置检查结果
+     */
+    public static class PreCheckResult {
+
+        private final boolean passed;
+
+        private final String message;
+
+        private final String riskLevel;
+
+        private PreCheckResult(boolean passed, String message, String riskLevel) {
+            this.passed = passed;
+            this.message = message;
+            this.riskLevel = riskLevel;
+        }
+
+        public static PreCheckResult pass(String riskLevel) {
+            return new PreCheckResult(true, null, riskLevel);
+        }
+
+        public static PreCheckResult reject(String message, String riskLevel) {
+            return new PreCheckResult(false, message, riskLevel);
+        }
+
+        public boolean isPassed() { return passed; }
+        public String getMessage() { return message; }
+        public String getRiskLevel() { return riskLevel; }
+    }
+}
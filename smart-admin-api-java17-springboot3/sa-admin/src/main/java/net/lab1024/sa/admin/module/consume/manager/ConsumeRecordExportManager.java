@@ -0,0 +1,136 @@
+package net.lab1024.sa.admin.module.consume.manager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.common.export.ExportColumn;
+import net.lab1024.sa.admin.common.export.ExportCompression;
+import net.lab1024.sa.admin.common.export.ExportFormat;
+import net.lab1024.sa.admin.common.export.ExportProgressListener;
+import net.lab1024.sa.admin.common.export.StreamingExporter;
+import net.lab1024.sa.admin.module.consume.dao.ConsumeRecordDao;
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+
+/**
+ * 消费记录导出管理器
+ * <p>
+ * 通过 {@link ConsumeRecordDao#streamList} 数据库游标逐行读取，交给 {@link StreamingExporter}
+ * 逐行写出到文件或HTTP响应，导出任意行数内存占用恒定
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class ConsumeRecordExportManager {
+
+    private static final DateTimeFormatter FILE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private static final List<ExportColumn<ConsumeRecordEntity>> COLUMNS = List.of(
+            ExportColumn.of("记录ID", ConsumeRecordEntity::getRecordId),
+            ExportColumn.of("订单号", ConsumeRecordEntity::getOrderNo),
+            ExportColumn.of("人员ID", ConsumeRecordEntity::getPersonId),
+            ExportColumn.of("人员姓名", ConsumeRecordEntity::getPersonName),
+            ExportColumn.of("消费金额", ConsumeRecordEntity::getAmount),
+            ExportColumn.of("支付方式", ConsumeRecordEntity::getPayMethod),
+            ExportColumn.of("消费模式", ConsumeRecordEntity::getConsumptionMode),
+            ExportColumn.of("设备ID", ConsumeRecordEntity::getDeviceId),
+            ExportColumn.of("设备名称", ConsumeRecordEntity::getDeviceName),
+            ExportColumn.of("区域", ConsumeRecordEntity::getRegionName),
+            ExportColumn.of("状态", ConsumeRecordEntity::getStatus),
+            ExportColumn.of("支付时间", ConsumeRecordEntity::getPayTime),
+            ExportColumn.of("退款金额", ConsumeRecordEntity::getRefundAmount),
+            ExportColumn.of("备注", ConsumeRecordEntity::getRemark));
+
+    @Resource
+    private ConsumeRecordDao consumeRecordDao;
+
+    @Value("${file.storage.local.upload-path:D:/Progect/mart-admin-master/upload/}")
+    private String fileUploadPath;
+
+    /**
+     * 构建导出查询条件（按支付时间、记录ID排序）
+     */
+    public LambdaQueryWrapper<ConsumeRecordEntity> buildQuery(Long personId, String orderNo, Long deviceId,
+                                                              String consumeMode, String status,
+                                                              LocalDateTime startTime, LocalDateTime endTime) {
+        LambdaQueryWrapper<ConsumeRecordEntity> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(ConsumeRecordEntity::getDeletedFlag, 0)
+                .eq(personId != null, ConsumeRecordEntity::getPersonId, personId)
+                .eq(orderNo != null && !orderNo.isEmpty(), ConsumeRecordEntity::getOrderNo, orderNo)
+                .eq(deviceId != null, ConsumeRecordEntity::getDeviceId, deviceId)
+                .eq(consumeMode != null && !consumeMode.isEmpty(), ConsumeRecordEntity::getConsumptionMode,
+                        consumeMode)
+                .eq(status != null && !status.isEmpty(), ConsumeRecordEntity::getStatus, status)
+                .ge(startTime != null, ConsumeRecordEntity::getPayTime, startTime)
+                .le(endTime != null, ConsumeRecordEntity::getPayTime, endTime)
+                .orderByAsc(ConsumeRecordEntity::getPayTime, ConsumeRecordEntity::getRecordId);
+        return wrapper;
+    }
+
+    /**
+     * 导出到上传目录下的 export 子目录
+     *
+     * @param format 导出格式，形如 csv、xlsx、csv.gz、xlsx.zip
+     * @return 文件访问路径（/export/文件名）
+     */
+    public String exportToFile(LambdaQueryWrapper<ConsumeRecordEntity> wrapper, String format) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        ExportCompression compression = ExportCompression.of(format);
+        String fileName = StreamingExporter.fileName(
+                "consume_record_export_" + LocalDateTime.now().format(FILE_TIME_FORMATTER), exportFormat, compression);
+        Path filePath = Paths.get(fileUploadPath, "export").resolve(fileName);
+
+        boolean success = false;
+        try (StreamingExporter<ConsumeRecordEntity> exporter = StreamingExporter.toFile(filePath, exportFormat,
+                compression, COLUMNS, progressListener(fileName))) {
+            consumeRecordDao.streamList(wrapper, exporter);
+            success = true;
+        } finally {
+            if (!success) {
+                Files.deleteIfExists(filePath);
+            }
+        }
+        return "/export/" + fileName;
+    }
+
+    /**
+     * 直接导出到输出流（HTTP下载）
+     *
+     * @return 导出行数
+     */
+    public long exportTo(OutputStream out, String fileName, LambdaQueryWrapper<ConsumeRecordEntity> wrapper,
+                         String format) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        ExportCompression compression = ExportCompression.of(format);
+        String entryName = fileName + "." + exportFormat.getExtension();
+        try (StreamingExporter<ConsumeRecordEntity> exporter = new StreamingExporter<>(out, entryName, exportFormat,
+                compression, COLUMNS, progressListener(fileName))) {
+            consumeRecordDao.streamList(wrapper, exporter);
+            return exporter.getRowCount();
+        }
+    }
+
+    private ExportProgressListener progressListener(String fileName) {
+        return (rowCount, finished) -> {
+            if (finished) {
+                log.info("消费记录导出完成: fileName={}, rows={}", fileName, rowCount);
+            } else if (rowCount % 100_000 == 0) {
+                log.info("消费记录导出进度: fileName={}, rows={}", fileName, rowCount);
+            }
+        };
+    }
+}
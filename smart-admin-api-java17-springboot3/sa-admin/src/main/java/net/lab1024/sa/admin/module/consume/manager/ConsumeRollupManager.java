@@ -0,0 +1,511 @@
+package net.lab1024.sa.admin.module.consume.manager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.consume.dao.ConsumeRecordDao;
+import net.lab1024.sa.admin.module.consume.dao.ConsumeRollupDao;
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRollupEntity;
+import net.lab1024.sa.admin.module.consume.rollup.ConsumeRollupAggregator;
+import net.lab1024.sa.admin.module.consume.rollup.ConsumeRollupDimension;
+import net.lab1024.sa.admin.module.consume.rollup.ConsumeRollupGranularity;
+
+/**
+ * 消费预聚合管理器
+ * <p>
+ * 写入：消费记录成功落库（事务提交后）时把金额/笔数增量累加到内存，定时批量
+ * INSERT ... ON DUPLICATE KEY UPDATE 到 t_consume_rollup；退款把成功记录移出统计口径时写入负增量。
+ * 多实例部署时各实例独立累加，增量可交换，无需协调
+ * <p>
+ * 封存：某天结束并超过 seal-grace-minutes 后视为封存，重建只针对已封存的天。增量所在天超过
+ * 宽限期一半仍未刷新（或记录本身属于已封存的天）时不再累加，改为给该天打脏标记（META/DIRTY 行，
+ * total_count 为版本号），因此各实例内存中的增量永远不会与重建同时作用于同一天
+ * <p>
+ * 重建：按天删除后从明细 INSERT ... SELECT 重新汇总，同一事务内只清除重建开始时读到的脏标记版本，
+ * 重建期间新打的标记会保留到下一轮。首次回填、每天凌晨的对账（修正进程崩溃丢失的未刷新增量）
+ * 以及脏天清扫都在分布式锁内执行，集群内同一时刻只有一个实例在重建
+ * <p>
+ * 查询：时间范围起点不早于覆盖起始时间且不含脏天时，整桶部分读预聚合，首尾不足一个桶的部分读明细补齐；
+ * 否则返回null，由调用方走明细统计
+ * <p>
+ * 配置项（consume.rollup.*）：enabled、flush-interval-ms、backfill-days、reconcile-cron、
+ * seal-grace-minutes、sweep-interval-ms
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class ConsumeRollupManager {
+
+    private static final String STATUS_SUCCESS = "SUCCESS";
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private static final String REBUILD_LOCK_KEY = "rollup:rebuild";
+
+    @Resource
+    private ConsumeRollupDao consumeRollupDao;
+
+    @Resource
+    private ConsumeRecordDao consumeRecordDao;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Resource
+    private DistributedLockManager distributedLockManager;
+
+    @Value("${consume.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consume.rollup.backfill-days:400}")
+    private int backfillDays;
+
+    @Value("${consume.rollup.seal-grace-minutes:30}")
+    private int sealGraceMinutes;
+
+    /**
+     * 尚未刷新到数据库的增量，键为 {@link ConsumeRollupAggregator#bucketKey}
+     */
+    private final ConcurrentHashMap<String, ConsumeRollupEntity> pending = new ConcurrentHashMap<>();
+
+    private final Object flushLock = new Object();
+
+    /**
+     * 预聚合完整覆盖的起始时间，null表示尚未回填完成
+     */
+    private volatile LocalDateTime coveredFrom;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            coveredFrom = consumeRollupDao.selectCoveredFrom();
+        } catch (Exception e) {
+            log.warn("读取消费预聚合覆盖范围失败，报表将使用明细统计", e);
+            return;
+        }
+        if (coveredFrom == null && backfillDays > 0) {
+            Thread backfill = new Thread(this::backfill, "consume-rollup-backfill");
+            backfill.setDaemon(true);
+            backfill.start();
+        }
+        log.info("消费预聚合已启用: coveredFrom={}", coveredFrom);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    // ================================
+    // 写入
+    // ================================
+
+    /**
+     * 成功消费记录已保存
+     * <p>
+     * 在事务内调用时，增量在事务提交后才生效，回滚不会计入
+     */
+    public void onConsumeRecorded(ConsumeRecordEntity record) {
+        if (record == null || !STATUS_SUCCESS.equals(record.getStatus())) {
+            return;
+        }
+        apply(record, 1);
+    }
+
+    /**
+     * 成功消费记录被移出统计口径（退款等），调用方需确认变更前状态为SUCCESS
+     */
+    public void onConsumeReversed(ConsumeRecordEntity record) {
+        if (record == null) {
+            return;
+        }
+        apply(record, -1);
+    }
+
+    private void apply(ConsumeRecordEntity record, int sign) {
+        if (!enabled) {
+            return;
+        }
+        if (record.getPayTime() != null && isLate(record.getPayTime().toLocalDate(), LocalDateTime.now())) {
+            // 与调用方同一事务打脏标记，回滚则不生效；该天由清扫任务从明细重建
+            consumeRollupDao.markDirty(record.getPayTime().toLocalDate().atStartOfDay());
+            return;
+        }
+        // 立即计算增量，避免事务提交前记录对象被修改
+        Map<String, ConsumeRollupEntity> deltas = new HashMap<>();
+        ConsumeRollupAggregator.accumulate(deltas, record, sign);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mergePending(deltas.values());
+                }
+            });
+        } else {
+            mergePending(deltas.values());
+        }
+    }
+
+    private void mergePending(Iterable<ConsumeRollupEntity> deltas) {
+        for (ConsumeRollupEntity delta : deltas) {
+            pending.merge(ConsumeRollupAggregator.bucketKey(delta), delta, ConsumeRollupAggregator::add);
+        }
+    }
+
+    /**
+     * 刷新内存增量到数据库
+     */
+    @Scheduled(fixedDelayString = "${consume.rollup.flush-interval-ms:5000}")
+    public void flush() {
+        synchronized (flushLock) {
+            doFlush();
+        }
+    }
+
+    /**
+     * @return 是否全部刷新成功
+     */
+    private boolean doFlush() {
+        if (pending.isEmpty()) {
+            return true;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<ConsumeRollupEntity> batch = new ArrayList<>(pending.size());
+        Set<LocalDate> lateDays = new TreeSet<>();
+        for (String key : pending.keySet()) {
+            ConsumeRollupEntity delta = pending.remove(key);
+            if (delta == null || (delta.getTotalCount() == 0 && delta.getTotalAmount().signum() == 0)) {
+                continue;
+            }
+            LocalDate day = delta.getBucketTime().toLocalDate();
+            if (isLate(day, now)) {
+                lateDays.add(day);
+            } else {
+                batch.add(delta);
+            }
+        }
+
+        for (LocalDate day : lateDays) {
+            try {
+                consumeRollupDao.markDirty(day.atStartOfDay());
+            } catch (Exception e) {
+                log.error("标记消费预聚合脏天失败，等待对账修正: date={}", day, e);
+            }
+        }
+
+        int written = 0;
+        try {
+            while (written < batch.size()) {
+                int end = Math.min(written + FLUSH_BATCH_SIZE, batch.size());
+                consumeRollupDao.upsertBatch(batch.subList(written, end));
+                written = end;
+            }
+            return true;
+        } catch (Exception e) {
+            // 未写入的增量放回，下次刷新重试
+            mergePending(batch.subList(written, batch.size()));
+            log.error("刷新消费预聚合失败: 待重试={}", batch.size() - written, e);
+            return false;
+        }
+    }
+
+    // ================================
+    // 重建
+    // ================================
+
+    /**
+     * 从消费明细重建已封存的 [fromDate, toDate]，并在与已覆盖范围连续时向前扩展覆盖起始时间
+     *
+     * @return 集群内另一实例正在重建时返回false
+     */
+    public boolean rebuild(LocalDate fromDate, LocalDate toDate) {
+        LocalDate lastSealed = lastSealedDay(LocalDateTime.now());
+        if (toDate.isAfter(lastSealed)) {
+            throw new IllegalArgumentException("只能重建已封存的日期: " + toDate + " > " + lastSealed);
+        }
+        return withRebuildLock(() -> {
+            rebuildDays(fromDate, toDate);
+            extendCoverage(fromDate, toDate);
+        });
+    }
+
+    private void rebuildDays(LocalDate fromDate, LocalDate toDate) {
+        for (LocalDate day = fromDate; !day.isAfter(toDate); day = day.plusDays(1)) {
+            rebuildDay(day);
+        }
+        log.info("消费预聚合重建完成: {} ~ {}", fromDate, toDate);
+    }
+
+    /**
+     * 调用方需持有重建锁，且该天已封存（不再有内存增量写入）
+     */
+    private void rebuildDay(LocalDate day) {
+        LocalDateTime startTime = day.atStartOfDay();
+        LocalDateTime endTime = startTime.plusDays(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            Long dirtyVersion = consumeRollupDao.selectDirtyVersion(startTime);
+            consumeRollupDao.deleteRange(startTime, endTime);
+            for (ConsumeRollupDimension dimension : ConsumeRollupDimension.values()) {
+                consumeRollupDao.rebuildRange(dimension.getGranularity().name(), dimension.name(),
+                        startTime, endTime);
+            }
+            if (dirtyVersion != null) {
+                // 重建期间又有退款打标记时版本已变化，保留给下一轮清扫
+                consumeRollupDao.deleteDirty(startTime, dirtyVersion);
+            }
+        });
+    }
+
+    private void extendCoverage(LocalDate fromDate, LocalDate toDate) {
+        LocalDateTime from = fromDate.atStartOfDay();
+        LocalDateTime current = consumeRollupDao.selectCoveredFrom();
+        if (current != null && !from.isBefore(current)) {
+            coveredFrom = current;
+            return;
+        }
+        // 首次回填需覆盖到最后一个封存日（之后的天已打脏标记，由清扫任务接续），否则需与已覆盖范围首尾相接
+        boolean contiguous = current == null
+                ? !toDate.isBefore(lastSealedDay(LocalDateTime.now()))
+                : !toDate.plusDays(1).atStartOfDay().isBefore(current);
+        if (!contiguous) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            consumeRollupDao.deleteCoveredFrom();
+            consumeRollupDao.insertCoveredFrom(from);
+        });
+        coveredFrom = from;
+    }
+
+    private void backfill() {
+        try {
+            boolean locked = withRebuildLock(() -> {
+                // 获取锁后再确认，其他实例可能已完成回填
+                coveredFrom = consumeRollupDao.selectCoveredFrom();
+                if (coveredFrom != null) {
+                    return;
+                }
+                LocalDate today = LocalDate.now();
+                LocalDate lastSealed = lastSealedDay(LocalDateTime.now());
+                // 未封存的天此时可能还有其他实例的增量在途，先标记为脏，封存后由清扫任务重建
+                for (LocalDate day = lastSealed.plusDays(1); !day.isAfter(today); day = day.plusDays(1)) {
+                    consumeRollupDao.markDirty(day.atStartOfDay());
+                }
+                LocalDate fromDate = today.minusDays(backfillDays - 1L);
+                if (fromDate.isAfter(lastSealed)) {
+                    fromDate = lastSealed;
+                }
+                rebuildDays(fromDate, lastSealed);
+                extendCoverage(fromDate, lastSealed);
+            });
+            if (!locked) {
+                log.info("其他实例正在回填消费预聚合，本实例等待清扫任务同步覆盖范围");
+            }
+        } catch (Exception e) {
+            log.error("消费预聚合回填失败，报表继续使用明细统计", e);
+        }
+    }
+
+    /**
+     * 每天重建前一天，修正未刷新即丢失的增量
+     */
+    @Scheduled(cron = "${consume.rollup.reconcile-cron:0 30 3 * * ?}")
+    public void reconcile() {
+        if (!enabled || coveredFrom == null) {
+            return;
+        }
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        if (yesterday.isAfter(lastSealedDay(LocalDateTime.now()))) {
+            log.warn("对账时间早于前一天封存时间，跳过: date={}", yesterday);
+            return;
+        }
+        try {
+            if (!withRebuildLock(() -> rebuildDays(yesterday, yesterday))) {
+                log.info("其他实例正在重建消费预聚合，跳过对账: date={}", yesterday);
+            }
+        } catch (Exception e) {
+            log.error("消费预聚合对账失败: date={}", yesterday, e);
+        }
+    }
+
+    /**
+     * 同步其他实例写入的覆盖范围，并重建已封存的脏天
+     */
+    @Scheduled(fixedDelayString = "${consume.rollup.sweep-interval-ms:60000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            coveredFrom = consumeRollupDao.selectCoveredFrom();
+            LocalDateTime sealedEnd = lastSealedDay(LocalDateTime.now()).plusDays(1).atStartOfDay();
+            if (coveredFrom == null || consumeRollupDao.countDirty(coveredFrom, sealedEnd) == 0) {
+                return;
+            }
+            withRebuildLock(() -> {
+                for (LocalDateTime day : consumeRollupDao.selectDirtyDays(coveredFrom, sealedEnd)) {
+                    rebuildDay(day.toLocalDate());
+                }
+            });
+        } catch (Exception e) {
+            log.error("消费预聚合脏天重建失败", e);
+        }
+    }
+
+    /**
+     * 在集群重建锁内执行，锁已被其他实例持有时直接返回false
+     */
+    private boolean withRebuildLock(Runnable action) {
+        // 不指定租期，由看门狗续期直到释放
+        if (!distributedLockManager.tryLock(REBUILD_LOCK_KEY, 0, -1, TimeUnit.SECONDS)) {
+            return false;
+        }
+        try {
+            action.run();
+            return true;
+        } finally {
+            distributedLockManager.unlock(REBUILD_LOCK_KEY);
+        }
+    }
+
+    /**
+     * 最后一个已封存的天：该天结束后超过宽限期
+     */
+    private LocalDate lastSealedDay(LocalDateTime now) {
+        return now.minusMinutes(sealGraceMinutes).toLocalDate().minusDays(1);
+    }
+
+    /**
+     * 该天结束后已超过宽限期一半，增量不再写入预聚合，留出余量保证在封存前全部落库
+     */
+    private boolean isLate(LocalDate day, LocalDateTime now) {
+        return !now.isBefore(day.plusDays(1).atStartOfDay().plusSeconds(sealGraceMinutes * 30L));
+    }
+
+    // ================================
+    // 查询
+    // ================================
+
+    /**
+     * 查询设备/消费模式过滤条件下 [startTime, endTime] 的时间桶
+     *
+     * @return 无法使用预聚合时返回null
+     */
+    public List<ConsumeRollupEntity> queryBuckets(Long deviceId, String consumeMode, LocalDateTime startTime,
+                                                  LocalDateTime endTime) {
+        ConsumeRollupDimension dimension = ConsumeRollupDimension.of(deviceId, consumeMode);
+        ConsumeRollupGranularity granularity = dimension.getGranularity();
+        LocalDateTime[] range = alignedRange(granularity, startTime, endTime);
+        if (range == null) {
+            return null;
+        }
+        List<ConsumeRollupEntity> rows = new ArrayList<>(consumeRollupDao.selectBuckets(granularity.name(),
+                dimension.name(), dimension.keyOf(deviceId, consumeMode), range[0], range[1]));
+        rows.addAll(ConsumeRollupAggregator.rollup(
+                selectEdgeRecords(deviceId, consumeMode, startTime, endTime, range), dimension));
+        return rows;
+    }
+
+    /**
+     * 查询 [startTime, endTime] 内某维度各取值的合计（排行用）
+     *
+     * @return 无法使用预聚合时返回null
+     */
+    public List<ConsumeRollupEntity> queryTotalsByKey(ConsumeRollupDimension dimension, LocalDateTime startTime,
+                                                      LocalDateTime endTime) {
+        ConsumeRollupGranularity granularity = dimension.getGranularity();
+        LocalDateTime[] range = alignedRange(granularity, startTime, endTime);
+        if (range == null) {
+            return null;
+        }
+        List<ConsumeRollupEntity> rows = new ArrayList<>(
+                consumeRollupDao.sumByKey(granularity.name(), dimension.name(), range[0], range[1]));
+        rows.addAll(ConsumeRollupAggregator.rollup(
+                selectEdgeRecords(null, null, startTime, endTime, range), dimension));
+        return ConsumeRollupAggregator.totalsByKey(rows);
+    }
+
+    /**
+     * 范围内完整时间桶 [from, to)，不足一个桶、早于覆盖起始时间或包含脏天时返回null
+     */
+    private LocalDateTime[] alignedRange(ConsumeRollupGranularity granularity, LocalDateTime startTime,
+                                         LocalDateTime endTime) {
+        LocalDateTime covered = coveredFrom;
+        if (!enabled || covered == null || startTime == null || endTime == null || startTime.isBefore(covered)) {
+            return null;
+        }
+        // pay_time 精确到秒，结束时间（闭区间）所在秒之后的第一个桶边界之前的桶都在范围内
+        LocalDateTime from = granularity.ceil(startTime);
+        LocalDateTime to = granularity.floor(endTime.withNano(0).plusSeconds(1));
+        if (!from.isBefore(to)) {
+            return null;
+        }
+        if (consumeRollupDao.countDirty(from.toLocalDate().atStartOfDay(), to) > 0) {
+            return null;
+        }
+        return new LocalDateTime[]{from, to};
+    }
+
+    /**
+     * 首尾不足一个桶的明细：[startTime, from) 与 [to, endTime]
+     */
+    private List<ConsumeRecordEntity> selectEdgeRecords(Long deviceId, String consumeMode, LocalDateTime startTime,
+                                                        LocalDateTime endTime, LocalDateTime[] range) {
+        List<ConsumeRecordEntity> records = new ArrayList<>();
+        if (startTime.isBefore(range[0])) {
+            LambdaQueryWrapper<ConsumeRecordEntity> wrapper = edgeWrapper(deviceId, consumeMode);
+            wrapper.ge(ConsumeRecordEntity::getPayTime, startTime)
+                    .lt(ConsumeRecordEntity::getPayTime, range[0]);
+            records.addAll(consumeRecordDao.selectList(wrapper));
+        }
+        if (!endTime.isBefore(range[1])) {
+            LambdaQueryWrapper<ConsumeRecordEntity> wrapper = edgeWrapper(deviceId, consumeMode);
+            wrapper.ge(ConsumeRecordEntity::getPayTime, range[1])
+                    .le(ConsumeRecordEntity::getPayTime, endTime);
+            records.addAll(consumeRecordDao.selectList(wrapper));
+        }
+        return records;
+    }
+
+    private LambdaQueryWrapper<ConsumeRecordEntity> edgeWrapper(Long deviceId, String consumeMode) {
+        LambdaQueryWrapper<ConsumeRecordEntity> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(ConsumeRecordEntity::getStatus, STATUS_SUCCESS);
+        if (deviceId != null) {
+            wrapper.eq(ConsumeRecordEntity::getDeviceId, deviceId);
+        }
+        if (consumeMode != null && !consumeMode.isEmpty()) {
+            wrapper.eq(ConsumeRecordEntity::getConsumptionMode, consumeMode);
+        }
+        return wrapper;
+    }
+}
@@ -0,0 +1,506 @@
+package net.lab1024.sa.admin.module.consume.manager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.consume.counter.ConsumeSpendPeriod;
+import net.lab1024.sa.admin.module.consume.dao.AccountDao;
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+
+/**
+ * 消费累计计数器管理器
+ * <p>
+ * 每个人员按日/周/月各维护一个Redis计数器（单位：分），限额校验读取计数器即可，
+ * 不再在每笔支付时对消费明细表做SUM：
+ * - 读取：一次MGET取回三个周期；计数器不存在时按索引 (person_id, pay_time, status) 汇总一次后 SET NX 初始化
+ * - 预占：支付在扣款前调用 {@link #reserve}，由Lua脚本一次完成三个周期的限额判断与累加，
+ *   并发支付不会同时通过限额；扣款失败或事务回滚时释放预占
+ * - 写入后调整：不做限额校验的写入路径（退款等）在写库后立即调整已存在的计数器，回滚时反向调整；
+ *   计数器不存在时在同一事务内汇总初始化，汇总结果已包含本次写入
+ * - 进行中标记：预占与调整到事务结束前，人员的进行中计数大于0，对账跳过该人员
+ * - 对账：每天凌晨扫描当天、当前周/月计数器，按批汇总数据库后比较；不一致时仅在计数器值未变且无进行中事务时覆盖
+ * <p>
+ * Redis不可用时退回数据库汇总，限额校验不受影响
+ * <p>
+ * 配置项（consume.spend-counter.*）：enabled、reconcile-cron、reconcile-batch-size
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class ConsumeSpendCounterManager {
+
+    private static final String STATUS_SUCCESS = "SUCCESS";
+
+    private static final String INFLIGHT_SUFFIX = ":inflight";
+
+    /**
+     * 进行中标记过期时间，防止节点宕机后对账一直跳过该人员
+     */
+    private static final long INFLIGHT_TTL_SECONDS = TimeUnit.MINUTES.toSeconds(10);
+
+    private static final ConsumeSpendPeriod[] PERIODS = ConsumeSpendPeriod.values();
+
+    /**
+     * 限额预占
+     * KEYS: 日、周、月计数器，进行中标记；ARGV: 金额（分），日、周、月限额（分，-1不限），进行中标记过期秒数
+     * 返回0已预占，-1计数器未初始化，1/2/3为超出限额的周期序号
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = RedisScript.of(
+            "local values = redis.call('MGET', KEYS[1], KEYS[2], KEYS[3]) "
+                    + "for i = 1, 3 do "
+                    + "  if not values[i] then return -1 end "
+                    + "end "
+                    + "local delta = tonumber(ARGV[1]) "
+                    + "for i = 1, 3 do "
+                    + "  local limit = tonumber(ARGV[i + 1]) "
+                    + "  if limit >= 0 and tonumber(values[i]) + delta > limit then return i end "
+                    + "end "
+                    + "for i = 1, 3 do redis.call('INCRBY', KEYS[i], delta) end "
+                    + "redis.call('INCR', KEYS[4]) "
+                    + "redis.call('EXPIRE', KEYS[4], ARGV[5]) "
+                    + "return 0", Long.class);
+
+    /**
+     * 调整已存在的计数器并增减进行中标记
+     * KEYS: 日、周、月计数器，进行中标记；ARGV: 增量（分），进行中标记增量，进行中标记过期秒数
+     * 返回已调整的计数器个数
+     */
+    private static final RedisScript<Long> ADJUST_SCRIPT = RedisScript.of(
+            "local n = 0 "
+                    + "for i = 1, 3 do "
+                    + "  if redis.call('EXISTS', KEYS[i]) == 1 then "
+                    + "    redis.call('INCRBY', KEYS[i], ARGV[1]) "
+                    + "    n = n + 1 "
+                    + "  end "
+                    + "end "
+                    + "local f = tonumber(ARGV[2]) "
+                    + "if f > 0 then "
+                    + "  redis.call('INCRBY', KEYS[4], f) "
+                    + "  redis.call('EXPIRE', KEYS[4], ARGV[3]) "
+                    + "elseif f < 0 and redis.call('DECRBY', KEYS[4], -f) <= 0 then "
+                    + "  redis.call('DEL', KEYS[4]) "
+                    + "end "
+                    + "return n", Long.class);
+
+    /**
+     * 对账修正：计数器值仍为读取时的值且没有进行中事务时覆盖
+     * KEYS: 计数器，进行中标记；ARGV: 读取时的值，数据库汇总值
+     */
+    private static final RedisScript<Long> CORRECT_SCRIPT = RedisScript.of(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] and not redis.call('GET', KEYS[2]) then "
+                    + "  redis.call('SET', KEYS[1], ARGV[2], 'KEEPTTL') "
+                    + "  return 1 "
+                    + "end "
+                    + "return 0", Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private AccountDao accountDao;
+
+    @Value("${consume.spend-counter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consume.spend-counter.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    // ================================
+    // 读取
+    // ================================
+
+    /**
+     * 今日消费金额
+     */
+    public BigDecimal getTodayAmount(Long personId) {
+        return getAmounts(personId, LocalDate.now()).get(ConsumeSpendPeriod.DAY);
+    }
+
+    /**
+     * 本周消费金额
+     */
+    public BigDecimal getWeeklyAmount(Long personId) {
+        return getAmounts(personId, LocalDate.now()).get(ConsumeSpendPeriod.WEEK);
+    }
+
+    /**
+     * 本月消费金额
+     */
+    public BigDecimal getMonthlyAmount(Long personId) {
+        return getAmounts(personId, LocalDate.now()).get(ConsumeSpendPeriod.MONTH);
+    }
+
+    /**
+     * 一次取回日期所在日/周/月的消费金额
+     */
+    public Map<ConsumeSpendPeriod, BigDecimal> getAmounts(Long personId, LocalDate date) {
+        Map<ConsumeSpendPeriod, BigDecimal> amounts = new EnumMap<>(ConsumeSpendPeriod.class);
+        if (!enabled) {
+            for (ConsumeSpendPeriod period : PERIODS) {
+                amounts.put(period, sumFromDatabase(personId, period, date));
+            }
+            return amounts;
+        }
+
+        List<String> values;
+        try {
+            values = stringRedisTemplate.opsForValue().multiGet(keys(personId, date));
+        } catch (Exception e) {
+            log.warn("读取消费累计计数器失败，使用数据库汇总: personId={}", personId, e);
+            values = null;
+        }
+
+        for (int i = 0; i < PERIODS.length; i++) {
+            String value = values != null ? values.get(i) : null;
+            amounts.put(PERIODS[i], value != null
+                    ? ConsumeSpendPeriod.ofCents(Long.parseLong(value))
+                    : load(personId, PERIODS[i], date, values != null));
+        }
+        return amounts;
+    }
+
+    /**
+     * 从数据库汇总并初始化计数器
+     * <p>
+     * 计数器只在不存在时初始化，存在期间的所有变更都经过预占或写入后调整，
+     * 而二者都要求计数器已存在，因此汇总与 SET NX 之间不会有增量丢失
+     */
+    private BigDecimal load(Long personId, ConsumeSpendPeriod period, LocalDate date, boolean redisAvailable) {
+        BigDecimal amount = sumFromDatabase(personId, period, date);
+        if (!redisAvailable) {
+            return amount;
+        }
+        String key = period.key(personId, date);
+        try {
+            Boolean created = stringRedisTemplate.opsForValue().setIfAbsent(key,
+                    String.valueOf(ConsumeSpendPeriod.toCents(amount)), period.getTtl());
+            if (!Boolean.TRUE.equals(created)) {
+                // 并发读取已先行初始化，以计数器为准
+                String value = stringRedisTemplate.opsForValue().get(key);
+                if (value != null) {
+                    return ConsumeSpendPeriod.ofCents(Long.parseLong(value));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("初始化消费累计计数器失败: key={}", key, e);
+        }
+        return amount;
+    }
+
+    private BigDecimal sumFromDatabase(Long personId, ConsumeSpendPeriod period, LocalDate date) {
+        BigDecimal amount = accountDao.getConsumeAmountByTimeRange(personId, period.startTime(date),
+                period.endTime(date));
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+
+    // ================================
+    // 预占
+    // ================================
+
+    /**
+     * 按限额预占本次消费金额，须在写入消费记录之前调用
+     * <p>
+     * 预占成功后调用方须在写入结束时调用 {@link SpendReservation#complete(boolean)}：
+     * 失败立即释放；成功时若在事务内，提交后确认、回滚时释放
+     *
+     * @param limits 各周期限额，未包含的周期不限
+     */
+    public SpendReservation reserve(Long personId, BigDecimal amount, Map<ConsumeSpendPeriod, BigDecimal> limits) {
+        LocalDate date = LocalDate.now();
+        long cents = ConsumeSpendPeriod.toCents(amount);
+        if (enabled && personId != null) {
+            List<String> keys = keysWithInflight(personId, date);
+            List<String> args = new ArrayList<>(PERIODS.length + 2);
+            args.add(String.valueOf(cents));
+            for (ConsumeSpendPeriod period : PERIODS) {
+                BigDecimal limit = limits.get(period);
+                args.add(String.valueOf(limit != null ? ConsumeSpendPeriod.toCents(limit) : -1L));
+            }
+            args.add(String.valueOf(INFLIGHT_TTL_SECONDS));
+            try {
+                Long result = stringRedisTemplate.execute(RESERVE_SCRIPT, keys, args.toArray());
+                if (result != null && result == -1L) {
+                    // 计数器未初始化：汇总初始化后重试一次，此时本次记录尚未写入，不会重复计入
+                    getAmounts(personId, date);
+                    result = stringRedisTemplate.execute(RESERVE_SCRIPT, keys, args.toArray());
+                }
+                if (result != null && result == 0L) {
+                    return new SpendReservation(this, keys, cents, null);
+                }
+                if (result != null && result > 0L) {
+                    return new SpendReservation(this, keys, cents, PERIODS[result.intValue() - 1]);
+                }
+            } catch (Exception e) {
+                log.warn("消费限额预占失败，使用数据库汇总校验: personId={}", personId, e);
+            }
+        }
+
+        // 计数器不可用：按数据库汇总校验，不预占
+        Map<ConsumeSpendPeriod, BigDecimal> spent = getAmounts(personId, date);
+        for (ConsumeSpendPeriod period : PERIODS) {
+            BigDecimal limit = limits.get(period);
+            if (limit != null && spent.get(period).add(amount).compareTo(limit) > 0) {
+                return new SpendReservation(this, null, cents, period);
+            }
+        }
+        return new SpendReservation(this, null, cents, null);
+    }
+
+    // ================================
+    // 写入后调整
+    // ================================
+
+    /**
+     * 成功消费记录已保存（未经过 {@link #reserve} 的写入路径）
+     * <p>
+     * 在事务内调用时立即计入，回滚时撤销
+     */
+    public void onConsumeRecorded(ConsumeRecordEntity record) {
+        if (record == null || !STATUS_SUCCESS.equals(record.getStatus())) {
+            return;
+        }
+        apply(record, 1);
+    }
+
+    /**
+     * 成功消费记录被移出统计口径（退款等），调用方需确认变更前状态为SUCCESS
+     */
+    public void onConsumeReversed(ConsumeRecordEntity record) {
+        if (record == null) {
+            return;
+        }
+        apply(record, -1);
+    }
+
+    private void apply(ConsumeRecordEntity record, int sign) {
+        if (!enabled || record.getPersonId() == null) {
+            return;
+        }
+        BigDecimal amount = record.getAmount() != null ? record.getAmount() : record.getConsumeAmount();
+        long cents = ConsumeSpendPeriod.toCents(amount);
+        if (cents == 0) {
+            return;
+        }
+        Long personId = record.getPersonId();
+        LocalDate date = (record.getPayTime() != null ? record.getPayTime() : LocalDateTime.now()).toLocalDate();
+        List<String> keys = keysWithInflight(personId, date);
+        long delta = sign * cents;
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+
+        Long adjusted = adjust(keys, delta, inTransaction ? 1 : 0);
+        if (adjusted != null && adjusted < PERIODS.length) {
+            // 同一事务内汇总，已包含本次写入
+            getAmounts(personId, date);
+        }
+        if (inTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    adjust(keys, status == STATUS_COMMITTED ? 0 : -delta, -1);
+                }
+            });
+        }
+    }
+
+    private Long adjust(List<String> keys, long delta, int inflightDelta) {
+        try {
+            return stringRedisTemplate.execute(ADJUST_SCRIPT, keys, String.valueOf(delta),
+                    String.valueOf(inflightDelta), String.valueOf(INFLIGHT_TTL_SECONDS));
+        } catch (Exception e) {
+            log.error("更新消费累计计数器失败，等待对账修正: keys={}, delta={}", keys, delta, e);
+            return null;
+        }
+    }
+
+    private static List<String> keys(Long personId, LocalDate date) {
+        List<String> keys = new ArrayList<>(PERIODS.length);
+        for (ConsumeSpendPeriod period : PERIODS) {
+            keys.add(period.key(personId, date));
+        }
+        return keys;
+    }
+
+    private static List<String> keysWithInflight(Long personId, LocalDate date) {
+        List<String> keys = keys(personId, date);
+        keys.add(inflightKey(personId));
+        return keys;
+    }
+
+    private static String inflightKey(Long personId) {
+        return ConsumeSpendPeriod.KEY_PREFIX + personId + INFLIGHT_SUFFIX;
+    }
+
+    // ================================
+    // 对账
+    // ================================
+
+    /**
+     * 与数据库对账：当天、当前周、月计数器与明细汇总不一致时修正
+     * <p>
+     * 按周期分批，每批一次MGET读取计数器与进行中标记、一次分组汇总查询数据库；
+     * 有进行中事务或读取后计数器已变化的跳过，留待下次对账
+     */
+    @Scheduled(cron = "${consume.spend-counter.reconcile-cron:0 10 3 * * ?}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        Map<ConsumeSpendPeriod, List<Long>> batches = new EnumMap<>(ConsumeSpendPeriod.class);
+        int[] result = new int[3];
+        ScanOptions options = ScanOptions.scanOptions().match(ConsumeSpendPeriod.KEY_PREFIX + "*").count(1000)
+                .build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                ConsumeSpendPeriod period = ConsumeSpendPeriod.ofKey(key);
+                if (period == null || !period.start(today).equals(ConsumeSpendPeriod.dateOfKey(key))) {
+                    continue;
+                }
+                List<Long> batch = batches.computeIfAbsent(period, p -> new ArrayList<>(reconcileBatchSize));
+                batch.add(ConsumeSpendPeriod.personIdOfKey(key));
+                if (batch.size() >= reconcileBatchSize) {
+                    reconcileBatch(period, batch, today, result);
+                    batch.clear();
+                }
+            }
+            for (Map.Entry<ConsumeSpendPeriod, List<Long>> entry : batches.entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    reconcileBatch(entry.getKey(), entry.getValue(), today, result);
+                }
+            }
+        } catch (Exception e) {
+            log.error("消费累计计数器对账失败", e);
+        }
+        log.info("消费累计计数器对账完成: checked={}, corrected={}, skipped={}", result[0], result[1], result[2]);
+    }
+
+    /**
+     * @param result 累计：已检查、已修正、因进行中或并发变更跳过
+     */
+    private void reconcileBatch(ConsumeSpendPeriod period, List<Long> personIds, LocalDate date, int[] result) {
+        List<String> keys = new ArrayList<>(personIds.size() * 2);
+        for (Long personId : personIds) {
+            keys.add(period.key(personId, date));
+        }
+        for (Long personId : personIds) {
+            keys.add(inflightKey(personId));
+        }
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return;
+        }
+
+        Map<Long, Long> expected = new HashMap<>(personIds.size() * 2);
+        for (Map<String, Object> row : accountDao.sumConsumeAmountByPersons(personIds, period.startTime(date),
+                period.endTime(date))) {
+            expected.put(((Number) row.get("personId")).longValue(),
+                    ConsumeSpendPeriod.toCents(new BigDecimal(row.get("totalAmount").toString())));
+        }
+
+        int size = personIds.size();
+        for (int i = 0; i < size; i++) {
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            result[0]++;
+            if (values.get(size + i) != null) {
+                result[2]++;
+                continue;
+            }
+            long database = expected.getOrDefault(personIds.get(i), 0L);
+            if (database == Long.parseLong(value)) {
+                continue;
+            }
+            Long corrected = stringRedisTemplate.execute(CORRECT_SCRIPT, List.of(keys.get(i), keys.get(size + i)),
+                    value, String.valueOf(database));
+            if (corrected != null && corrected == 1L) {
+                log.warn("消费累计计数器与数据库不一致，已修正: key={}, counter={}, database={}", keys.get(i),
+                        ConsumeSpendPeriod.ofCents(Long.parseLong(value)), ConsumeSpendPeriod.ofCents(database));
+                result[1]++;
+            } else {
+                result[2]++;
+            }
+        }
+    }
+
+    /**
+     * 限额预占结果
+     */
+    public static final class SpendReservation {
+
+        private final ConsumeSpendCounterManager manager;
+
+        /**
+         * 已预占的计数器键（含进行中标记），未预占（超限或退回数据库校验）时为null
+         */
+        private final List<String> keys;
+
+        private final long cents;
+
+        private final ConsumeSpendPeriod exceededPeriod;
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private SpendReservation(ConsumeSpendCounterManager manager, List<String> keys, long cents,
+                                 ConsumeSpendPeriod exceededPeriod) {
+            this.manager = manager;
+            this.keys = exceededPeriod == null ? keys : null;
+            this.cents = cents;
+            this.exceededPeriod = exceededPeriod;
+        }
+
+        public boolean isAccepted() {
+            return exceededPeriod == null;
+        }
+
+        /**
+         * 超出限额的周期，预占成功时为null
+         */
+        public ConsumeSpendPeriod getExceededPeriod() {
+            return exceededPeriod;
+        }
+
+        /**
+         * 写入结束：失败立即释放；成功时在事务内等待事务结束，提交确认、回滚释放
+         */
+        public void complete(boolean success) {
+            if (keys == null || !completed.compareAndSet(false, true)) {
+                return;
+            }
+            if (success && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        manager.adjust(keys, status == STATUS_COMMITTED ? 0 : -cents, -1);
+                    }
+                });
+                return;
+            }
+            manager.adjust(keys, success ? 0 : -cents, -1);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package net.lab1024.sa.admin.module.consume.rollup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRollupEntity;
+
+/**
+ * 消费预聚合计算
+ * <p>
+ * 负责两件事：
+ * 1. 把消费记录折算成各维度时间桶的增量（写入路径、边界补齐共用）
+ * 2. 把时间桶合计加工成报表结果，结果结构与按明细统计时完全一致
+ * <p>
+ * 笔数包含金额为空的记录，金额为空按0累加，与明细统计口径一致
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public final class ConsumeRollupAggregator {
+
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private ConsumeRollupAggregator() {
+    }
+
+    // ================================
+    // 记录 -> 时间桶
+    // ================================
+
+    /**
+     * 将记录按指定维度累加到时间桶
+     *
+     * @param target 累加目标，键为 {@link #bucketKey}
+     * @param sign   1 计入，-1 冲减（退款）
+     */
+    public static void accumulate(Map<String, ConsumeRollupEntity> target, ConsumeRecordEntity record,
+                                  ConsumeRollupDimension dimension, int sign) {
+        if (record.getPayTime() == null) {
+            return;
+        }
+        String dimKey = dimension.keyOf(record);
+        if (dimKey == null) {
+            return;
+        }
+        ConsumeRollupGranularity granularity = dimension.getGranularity();
+        ConsumeRollupEntity delta = new ConsumeRollupEntity();
+        delta.setGranularity(granularity.name());
+        delta.setDimType(dimension.name());
+        delta.setDimKey(dimKey);
+        delta.setBucketTime(granularity.floor(record.getPayTime()));
+        BigDecimal amount = record.getAmount() != null ? record.getAmount() : BigDecimal.ZERO;
+        delta.setTotalAmount(sign < 0 ? amount.negate() : amount);
+        delta.setTotalCount((long) sign);
+        target.merge(bucketKey(delta), delta, ConsumeRollupAggregator::add);
+    }
+
+    /**
+     * 将记录累加到全部维度
+     */
+    public static void accumulate(Map<String, ConsumeRollupEntity> target, ConsumeRecordEntity record, int sign) {
+        for (ConsumeRollupDimension dimension : ConsumeRollupDimension.values()) {
+            accumulate(target, record, dimension, sign);
+        }
+    }
+
+    /**
+     * 按指定维度汇总一批记录
+     */
+    public static List<ConsumeRollupEntity> rollup(Collection<ConsumeRecordEntity> records,
+                                                   ConsumeRollupDimension dimension) {
+        Map<String, ConsumeRollupEntity> buckets = new HashMap<>();
+        for (ConsumeRecordEntity record : records) {
+            accumulate(buckets, record, dimension, 1);
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    /**
+     * 时间桶唯一键，与表上唯一索引一致
+     */
+    public static String bucketKey(ConsumeRollupEntity row) {
+        return row.getGranularity() + '|' + row.getDimType() + '|' + row.getDimKey() + '|' + row.getBucketTime();
+    }
+
+    /**
+     * 合并两个同键时间桶，返回新对象
+     */
+    public static ConsumeRollupEntity add(ConsumeRollupEntity left, ConsumeRollupEntity right) {
+        ConsumeRollupEntity merged = new ConsumeRollupEntity();
+        merged.setGranularity(left.getGranularity());
+        merged.setDimType(left.getDimType());
+        merged.setDimKey(left.getDimKey());
+        merged.setBucketTime(left.getBucketTime());
+        merged.setTotalAmount(left.getTotalAmount().add(right.getTotalAmount()));
+        merged.setTotalCount(left.getTotalCount() + right.getTotalCount());
+        return merged;
+    }
+
+    /**
+     * 按维度取值合并（忽略时间桶），用于排行
+     */
+    public static List<ConsumeRollupEntity> totalsByKey(Collection<ConsumeRollupEntity> rows) {
+        Map<String, ConsumeRollupEntity> totals = new HashMap<>();
+        for (ConsumeRollupEntity row : rows) {
+            ConsumeRollupEntity total = totals.computeIfAbsent(row.getDimKey(), key -> {
+                ConsumeRollupEntity entity = new ConsumeRollupEntity();
+                entity.setDimType(row.getDimType());
+                entity.setDimKey(key);
+                entity.setTotalAmount(BigDecimal.ZERO);
+                entity.setTotalCount(0L);
+                return entity;
+            });
+            total.setTotalAmount(total.getTotalAmount().add(nullToZero(row.getTotalAmount())));
+            total.setTotalCount(total.getTotalCount() + nullToZero(row.getTotalCount()));
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    // ================================
+    // 时间桶 -> 报表
+    // ================================
+
+    /**
+     * 消费汇总（totalAmount/totalCount/avgAmount/details）
+     */
+    public static Map<String, Object> summary(List<ConsumeRollupEntity> rows, String timeDimension) {
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        long totalCount = 0;
+        for (ConsumeRollupEntity row : rows) {
+            totalAmount = totalAmount.add(nullToZero(row.getTotalAmount()));
+            totalCount += nullToZero(row.getTotalCount());
+        }
+        BigDecimal avgAmount = totalCount > 0
+                ? totalAmount.divide(new BigDecimal(totalCount), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        Map<String, Object> details = new HashMap<>();
+        if (timeDimension != null) {
+            DateTimeFormatter formatter = null;
+            if ("DAY".equalsIgnoreCase(timeDimension)) {
+                formatter = DAY_FORMATTER;
+            } else if ("MONTH".equalsIgnoreCase(timeDimension)) {
+                formatter = MONTH_FORMATTER;
+            }
+            if (formatter != null) {
+                DateTimeFormatter keyFormatter = formatter;
+                groupBy(rows, row -> row.getBucketTime().format(keyFormatter)).forEach((key, totals) -> {
+                    Map<String, Object> stats = new HashMap<>();
+                    stats.put("amount", totals.amount);
+                    stats.put("count", (int) totals.count);
+                    details.put(key, stats);
+                });
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalAmount", totalAmount);
+        result.put("totalCount", totalCount);
+        result.put("avgAmount", avgAmount);
+        result.put("details", details);
+        return result;
+    }
+
+    /**
+     * 消费趋势（time/value，按时间升序）
+     */
+    public static List<Map<String, Object>> trend(List<ConsumeRollupEntity> rows, String timeDimension,
+                                                  String trendType) {
+        String pattern = "yyyy-MM-dd";
+        if ("MONTH".equalsIgnoreCase(timeDimension)) {
+            pattern = "yyyy-MM";
+        } else if ("YEAR".equalsIgnoreCase(timeDimension)) {
+            pattern = "yyyy";
+        } else if ("HOUR".equalsIgnoreCase(timeDimension)) {
+            pattern = "yyyy-MM-dd HH";
+        }
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+        boolean byAmount = "AMOUNT".equalsIgnoreCase(trendType);
+
+        List<Map<String, Object>> trendData = new ArrayList<>();
+        groupBy(rows, row -> row.getBucketTime().format(formatter)).forEach((key, totals) -> {
+            Map<String, Object> item = new HashMap<>();
+            item.put("time", key);
+            item.put("value", byAmount ? totals.amount : (Object) (int) totals.count);
+            trendData.add(item);
+        });
+        trendData.sort((a, b) -> String.valueOf(a.get("time")).compareTo(String.valueOf(b.get("time"))));
+        return trendData;
+    }
+
+    /**
+     * 24小时分布（hour/hourLabel/amount/count）
+     */
+    public static List<Map<String, Object>> hourDistribution(List<ConsumeRollupEntity> rows) {
+        BigDecimal[] amounts = new BigDecimal[24];
+        long[] counts = new long[24];
+        for (int hour = 0; hour < 24; hour++) {
+            amounts[hour] = BigDecimal.ZERO;
+        }
+        for (ConsumeRollupEntity row : rows) {
+            int hour = row.getBucketTime().getHour();
+            amounts[hour] = amounts[hour].add(nullToZero(row.getTotalAmount()));
+            counts[hour] += nullToZero(row.getTotalCount());
+        }
+
+        List<Map<String, Object>> distribution = new ArrayList<>(24);
+        for (int hour = 0; hour < 24; hour++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("hour", hour);
+            item.put("hourLabel", String.format("%02d:00", hour));
+            item.put("amount", amounts[hour]);
+            item.put("count", (int) counts[hour]);
+            distribution.add(item);
+        }
+        return distribution;
+    }
+
+    /**
+     * 排行（idField/amount/count/rank）
+     *
+     * @param totals  {@link #totalsByKey} 的结果
+     * @param idField 维度取值输出字段名（deviceId/userId）
+     */
+    public static List<Map<String, Object>> ranking(List<ConsumeRollupEntity> totals, String idField,
+                                                    String rankingType, Integer limit) {
+        List<ConsumeRollupEntity> sorted = new ArrayList<>();
+        for (ConsumeRollupEntity total : totals) {
+            if (nullToZero(total.getTotalCount()) > 0) {
+                sorted.add(total);
+            }
+        }
+        if ("AMOUNT".equalsIgnoreCase(rankingType)) {
+            sorted.sort((a, b) -> nullToZero(b.getTotalAmount()).compareTo(nullToZero(a.getTotalAmount())));
+        } else {
+            sorted.sort((a, b) -> Long.compare(nullToZero(b.getTotalCount()), nullToZero(a.getTotalCount())));
+        }
+        if (limit != null && limit > 0 && sorted.size() > limit) {
+            sorted = sorted.subList(0, limit);
+        }
+
+        List<Map<String, Object>> ranking = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            ConsumeRollupEntity total = sorted.get(i);
+            Map<String, Object> item = new HashMap<>();
+            item.put(idField, Long.valueOf(total.getDimKey()));
+            item.put("amount", nullToZero(total.getTotalAmount()));
+            item.put("count", (int) nullToZero(total.getTotalCount()));
+            item.put("rank", i + 1);
+            ranking.add(item);
+        }
+        return ranking;
+    }
+
+    /**
+     * 按时间键分组合计，丢弃冲减后笔数为0的分组（与明细统计只输出有记录的分组一致）
+     */
+    private static Map<String, Totals> groupBy(List<ConsumeRollupEntity> rows,
+                                               Function<ConsumeRollupEntity, String> keyFunction) {
+        Map<String, Totals> grouped = new HashMap<>();
+        for (ConsumeRollupEntity row : rows) {
+            Totals totals = grouped.computeIfAbsent(keyFunction.apply(row), key -> new Totals());
+            totals.amount = totals.amount.add(nullToZero(row.getTotalAmount()));
+            totals.count += nullToZero(row.getTotalCount());
+        }
+        grouped.values().removeIf(totals -> totals.count <= 0);
+        return grouped;
+    }
+
+    private static BigDecimal nullToZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static final class Totals {
+
+        private BigDecimal amount = BigDecimal.ZERO;
+
+        private long count;
+    }
+}
@@ -0,0 +1,99 @@
+package net.lab1024.sa.admin.module.consume.rollup;
+
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+
+/**
+ * 消费预聚合维度
+ * <p>
+ * 维度取值与 t_consume_rollup.dim_key 及重建SQL中的表达式保持一致，记录缺少该维度字段时不计入该维度
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public enum ConsumeRollupDimension {
+
+    /**
+     * 全量
+     */
+    ALL(ConsumeRollupGranularity.HOUR),
+
+    /**
+     * 设备
+     */
+    DEVICE(ConsumeRollupGranularity.HOUR),
+
+    /**
+     * 消费模式
+     */
+    MODE(ConsumeRollupGranularity.HOUR),
+
+    /**
+     * 设备 + 消费模式
+     */
+    DEVICE_MODE(ConsumeRollupGranularity.HOUR),
+
+    /**
+     * 区域
+     */
+    AREA(ConsumeRollupGranularity.HOUR),
+
+    /**
+     * 人员（人员基数大，只按天汇总）
+     */
+    PERSON(ConsumeRollupGranularity.DAY);
+
+    public static final String ALL_KEY = "*";
+
+    private final ConsumeRollupGranularity granularity;
+
+    ConsumeRollupDimension(ConsumeRollupGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public ConsumeRollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * 报表的设备/消费模式过滤条件对应的维度
+     */
+    public static ConsumeRollupDimension of(Long deviceId, String consumeMode) {
+        boolean hasMode = consumeMode != null && !consumeMode.isEmpty();
+        if (deviceId != null) {
+            return hasMode ? DEVICE_MODE : DEVICE;
+        }
+        return hasMode ? MODE : ALL;
+    }
+
+    /**
+     * 过滤条件对应的维度取值
+     */
+    public String keyOf(Long deviceId, String consumeMode) {
+        switch (this) {
+            case ALL:
+                return ALL_KEY;
+            case DEVICE:
+                return deviceId != null ? String.valueOf(deviceId) : null;
+            case MODE:
+                return consumeMode;
+            case DEVICE_MODE:
+                return deviceId != null && consumeMode != null ? deviceId + ":" + consumeMode : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 消费记录在该维度上的取值，缺少维度字段时返回null
+     */
+    public String keyOf(ConsumeRecordEntity record) {
+        switch (this) {
+            case AREA:
+                return record.getRegionId();
+            case PERSON:
+                return record.getPersonId() != null ? String.valueOf(record.getPersonId()) : null;
+            default:
+                return keyOf(record.getDeviceId(), record.getConsumptionMode());
+        }
+    }
+}
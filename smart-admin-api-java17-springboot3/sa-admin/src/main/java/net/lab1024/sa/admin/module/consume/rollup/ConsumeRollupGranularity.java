@@ -0,0 +1,38 @@
+package net.lab1024.sa.admin.module.consume.rollup;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 消费预聚合时间粒度
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public enum ConsumeRollupGranularity {
+
+    HOUR(ChronoUnit.HOURS),
+
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    ConsumeRollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * 所在时间桶的起始时间
+     */
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * 不早于给定时间的第一个桶边界
+     */
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+}
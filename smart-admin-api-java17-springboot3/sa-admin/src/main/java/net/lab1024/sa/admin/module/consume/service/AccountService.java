@@ -50,6 +50,18 @@ public interface AccountService {
      */
     boolean deductBalance(Long accountId, BigDecimal amount, String orderNo);
 
+    /**
+     * 原子扣减账户余额
+     * 状态、可用余额、单次限额校验与扣减由一条条件UPDATE完成，同一账户多终端并发扣款不会因版本冲突被拒；
+     * 行锁等待超时或死锁时有限次自动重试，每次尝试为独立事务；在调用方事务内调用时不重试，异常直接抛出
+     *
+     * @param accountId 账户ID
+     * @param amount    扣减金额
+     * @param orderNo   订单号
+     * @return 扣减后余额，扣减失败（账户不存在/状态异常/余额不足/超出单次限额）返回null
+     */
+    BigDecimal deductBalanceAtomic(Long accountId, BigDecimal amount, String orderNo);
+
     /**
      * 增加账户余额
      * 原子性操作，用于充值
@@ -1,5 +1,6 @@
 package net.lab1024.sa.admin.module.consume.service;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -7,6 +8,8 @@ import java.util.Map;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import jakarta.servlet.http.HttpServletResponse;
+
 import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
 import net.lab1024.sa.base.common.domain.PageParam;
 import net.lab1024.sa.base.common.domain.PageResult;
@@ -113,6 +116,16 @@ public interface ConsumeService extends IService<ConsumeRecordEntity> {
     String exportRecords(Long personId, String orderNo, Long deviceId, String consumeMode,
             String status, LocalDateTime startTime, LocalDateTime endTime, String format);
 
+    /**
+     * 流式下载消费记录（边查边写到响应，不落盘）
+     *
+     * @param format   导出格式，形如 csv、xlsx、csv.gz、xlsx.zip
+     * @param response HTTP响应
+     */
+    void downloadRecords(Long personId, String orderNo, Long deviceId, String consumeMode,
+            String status, LocalDateTime startTime, LocalDateTime endTime, String format,
+            HttpServletResponse response) throws IOException;
+
     /**
      * 获取消费趋势
      *
@@ -24,6 +24,8 @@ import net.lab1024.sa.admin.module.consume.domain.dto.RefundResultDTO;
 import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
 import net.lab1024.sa.admin.module.consume.domain.entity.RefundRecordEntity;
 import net.lab1024.sa.admin.module.consume.domain.enums.RefundStatusEnum;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeRollupManager;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeSpendCounterManager;
 import net.lab1024.sa.admin.module.consume.manager.RefundManager;
 import net.lab1024.sa.base.common.code.SystemErrorCode;
 import net.lab1024.sa.base.common.code.UserErrorCode;
@@ -50,6 +52,12 @@ public class RefundService {
     @Resource
     private ConsumeRecordDao consumeRecordDao;
 
+    @Resource
+    private ConsumeRollupManager consumeRollupManager;
+
+    @Resource
+    private ConsumeSpendCounterManager consumeSpendCounterManager;
+
     @Resource
     private HeartBeatManager heartBeatManager;
 
@@ -334,6 +342,8 @@ public class RefundService {
         try {
             ConsumeRecordEntity consumeRecord = consumeRecordDao.selectById(consumeRecordId);
             if (consumeRecord != null) {
+                boolean wasSuccess = "SUCCESS".equals(consumeRecord.getStatus());
+
                 // 更新退款金额
                 BigDecimal currentRefundAmount = consumeRecord.getRefundAmount() != null
                         ? consumeRecord.getRefundAmount()
@@ -349,6 +359,12 @@ public class RefundService {
 
                 consumeRecord.setRefundTime(LocalDateTime.now());
                 consumeRecordDao.updateById(consumeRecord);
+
+                // 退款后记录不再计入成功消费统计
+                if (wasSuccess) {
+                    consumeRollupManager.onConsumeReversed(consumeRecord);
+                    consumeSpendCounterManager.onConsumeReversed(consumeRecord);
+                }
             }
         } catch (Exception e) {
             log.error("更新消费记录退款状态失败: 消费记录ID={}", consumeRecordId, e);
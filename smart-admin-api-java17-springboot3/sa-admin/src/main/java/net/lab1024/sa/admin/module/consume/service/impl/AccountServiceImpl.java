@@ -6,20 +6,22 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -35,6 +37,7 @@ import net.lab1024.sa.admin.module.consume.domain.form.AccountUpdateForm;
 import net.lab1024.sa.admin.module.consume.domain.vo.AccountDetailVO;
 import net.lab1024.sa.admin.module.consume.domain.vo.AccountTransactionVO;
 import net.lab1024.sa.admin.module.consume.domain.vo.AccountVO;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeSpendCounterManager;
 import net.lab1024.sa.admin.module.consume.service.AccountService;
 import net.lab1024.sa.admin.module.consume.service.cache.AccountCacheManager;
 import net.lab1024.sa.base.common.cache.CacheMetricsCollector;
@@ -68,9 +71,21 @@ public class AccountServiceImpl extends ServiceImpl<AccountDao, AccountEntity> i
     @jakarta.annotation.Resource
     private RedisUtil redisUtil;
 
+    @jakarta.annotation.Resource
+    private ConsumeSpendCounterManager consumeSpendCounterManager;
+
+    @jakarta.annotation.Resource
+    private TransactionTemplate transactionTemplate;
+
     @Value("${file.storage.local.upload-path:D:/Progect/mart-admin-master/upload/}")
     private String fileUploadPath;
 
+    @Value("${consume.deduct.max-retries:3}")
+    private int deductMaxRetries;
+
+    @Value("${consume.deduct.retry-backoff-ms:20}")
+    private long deductRetryBackoffMs;
+
     // 监控告警Redis Key前缀
     private static final String MONITOR_ALERT_PREFIX = "consume:monitor:alert:";
     private static final String MONITOR_METRICS_PREFIX = "consume:monitor:metrics:";
@@ -102,56 +117,86 @@ public class AccountServiceImpl extends ServiceImpl<AccountDao, AccountEntity> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public boolean deductBalance(Long accountId, BigDecimal amount, String orderNo) {
-        log.info("开始扣减账户余额: accountId={}, amount={}, orderNo={}", accountId, amount, orderNo);
-
-        try {
-            // 1. 获取账户信息（使用悲观锁）
-            AccountEntity account = this.getById(accountId);
-            if (account == null) {
-                log.error("账户不存在: accountId={}", accountId);
-                return false;
-            }
+        return deductBalanceAtomic(accountId, amount, orderNo) != null;
+    }
 
-            // 2. 验证账户状态
-            if (!"ACTIVE".equals(account.getStatus())) {
-                log.error("账户状态异常: accountId={}, status={}", accountId, account.getStatus());
-                return false;
-            }
+    /**
+     * 每次尝试为独立事务，重试与退避在事务之外进行，等待期间不占用连接和行锁
+     * <p>
+     * 调用方已开启事务时本次扣减加入调用方事务：失败的尝试已将其标记为只能回滚，且退避会占用调用方的连接与锁，
+     * 因此不重试，直接抛出由调用方的事务边界处理
+     */
+    @Override
+    public BigDecimal deductBalanceAtomic(Long accountId, BigDecimal amount, String orderNo) {
+        log.info("开始扣减账户余额: accountId={}, amount={}, orderNo={}", accountId, amount, orderNo);
 
-            // 3. 验证余额充足（优先使用缓存）
-            BigDecimal availableBalance = getAvailableBalance(accountId, account);
-            if (availableBalance.compareTo(amount) < 0) {
-                log.error("余额不足: accountId={}, balance={}, amount={}",
-                        accountId, availableBalance, amount);
-                return false;
+        boolean retryable = !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> deductBalanceOnce(accountId, amount));
+            } catch (PessimisticLockingFailureException e) {
+                // 行锁等待超时或死锁：本次尝试的事务已回滚，在新事务中重试
+                if (!retryable || attempt >= deductMaxRetries) {
+                    log.error("余额扣减行锁冲突，已重试{}次: accountId={}, orderNo={}",
+                            attempt, accountId, orderNo, e);
+                    throw e;
+                }
+                log.warn("余额扣减行锁冲突，重试: accountId={}, attempt={}", accountId, attempt + 1);
+                backoff(attempt);
             }
+        }
+    }
 
-            // 4. 使用乐观锁更新余额
-            BigDecimal newBalance = account.getBalance().subtract(amount);
-            int updateCount = this.baseMapper.deductBalanceWithVersion(
-                    accountId, account.getBalance(), newBalance, account.getVersion());
-
-            if (updateCount == 0) {
-                log.error("余额扣减失败，可能存在并发冲突: accountId={}", accountId);
-                return false;
-            }
+    /**
+     * 单次扣减，在事务内执行
+     */
+    private BigDecimal deductBalanceOnce(Long accountId, BigDecimal amount) {
+        // 1. 条件UPDATE一次完成校验与扣减（含累计消费统计）
+        int updateCount = this.baseMapper.deductBalanceAtomic(accountId, amount);
+        if (updateCount == 0) {
+            logDeductRejected(accountId, amount);
+            return null;
+        }
 
-            // 5. 同步更新缓存
-            syncCacheAfterBalanceUpdate(accountId, newBalance, null);
+        // 2. 同一事务内读取扣减后余额（行锁仍由本事务持有）
+        BigDecimal newBalance = this.baseMapper.selectBalance(accountId);
 
-            // 6. 更新统计信息
-            updateConsumeStatistics(accountId, amount);
+        // 3. 同步更新缓存
+        syncCacheAfterBalanceUpdate(accountId, newBalance, null);
 
-            log.info("余额扣减成功: accountId={}, amount={}, newBalance={}",
-                    accountId, amount, newBalance);
+        log.info("余额扣减成功: accountId={}, amount={}, newBalance={}", accountId, amount, newBalance);
+        return newBalance;
+    }
 
-            return true;
+    /**
+     * 扣减重试退避：指数增长并加随机抖动，避免多终端同时重试
+     */
+    private void backoff(int attempt) {
+        long delay = deductRetryBackoffMs << Math.min(attempt, 4);
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("余额扣减重试被中断", e);
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("余额扣减异常: accountId={}, amount={}", accountId, amount, e);
-            throw e;
+    /**
+     * 记录扣减被拒绝的原因（仅失败路径额外查询一次）
+     */
+    private void logDeductRejected(Long accountId, BigDecimal amount) {
+        AccountEntity account = this.getById(accountId);
+        if (account == null) {
+            log.error("账户不存在: accountId={}", accountId);
+        } else if (!"ACTIVE".equals(account.getStatus())) {
+            log.error("账户状态异常: accountId={}, status={}", accountId, account.getStatus());
+        } else if (account.getSingleLimit() != null && amount.compareTo(account.getSingleLimit()) > 0) {
+            log.error("超出单次消费限额: accountId={}, singleLimit={}, amount={}",
+                    accountId, account.getSingleLimit(), amount);
+        } else {
+            log.error("余额不足: accountId={}, balance={}, amount={}",
+                    accountId, calculateAvailableBalance(account), amount);
         }
     }
 
@@ -372,21 +417,12 @@ public class AccountServiceImpl extends ServiceImpl<AccountDao, AccountEntity> i
 
     @Override
     public BigDecimal getTodayConsumeAmount(Long personId) {
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
-
-        return this.baseMapper.getConsumeAmountByTimeRange(personId, startOfDay, endOfDay);
+        return consumeSpendCounterManager.getTodayAmount(personId);
     }
 
     @Override
     public BigDecimal getMonthlyConsumeAmount(Long personId) {
-        LocalDate today = LocalDate.now();
-        LocalDate startOfMonth = today.withDayOfMonth(1);
-        LocalDateTime startOfMonthTime = startOfMonth.atStartOfDay();
-        LocalDateTime endOfMonthTime = today.atTime(LocalTime.MAX);
-
-        return this.baseMapper.getConsumeAmountByTimeRange(personId, startOfMonthTime, endOfMonthTime);
+        return consumeSpendCounterManager.getMonthlyAmount(personId);
     }
 
     @Override
@@ -433,29 +469,6 @@ public class AccountServiceImpl extends ServiceImpl<AccountDao, AccountEntity> i
         return "ACC" + date + String.format("%06d", sequence);
     }
 
-    /**
-     * 更新消费统计信息
-     */
-    private void updateConsumeStatistics(Long accountId, BigDecimal amount) {
-        try {
-            // 更新累计消费金额
-            this.baseMapper.incrementTotalConsumeAmount(accountId, amount);
-
-            // 更新当前日度消费金额
-            this.baseMapper.incrementCurrentDailyAmount(accountId, amount);
-
-            // 更新当前月度消费金额
-            this.baseMapper.incrementCurrentMonthlyAmount(accountId, amount);
-
-            // 更新最后消费时间
-            this.baseMapper.updateLastConsumeTime(accountId, LocalDateTime.now());
-
-        } catch (Exception e) {
-            log.warn("更新消费统计失败: accountId={}", accountId, e);
-            // 统计更新失败不影响主业务流程
-        }
-    }
-
     /**
      * 更新充值统计信息
      * 使用原子性SQL操作，避免并发问题
@@ -477,39 +490,6 @@ public class AccountServiceImpl extends ServiceImpl<AccountDao, AccountEntity> i
         }
     }
 
-    /**
-     * 获取可用余额（优先从缓存获取）
-     */
-    private BigDecimal getAvailableBalance(Long accountId, AccountEntity account) {
-        try {
-            // 1. 优先从缓存获取可用余额
-            BigDecimal cachedAvailableBalance = cacheManager.getCachedAvailableBalance(accountId);
-            if (cachedAvailableBalance != null) {
-                log.debug("从缓存获取可用余额: accountId={}, availableBalance={}", accountId, cachedAvailableBalance);
-                return cachedAvailableBalance;
-            }
-
-            // 2. 缓存未命中，重新计算并缓存
-            BigDecimal availableBalance = calculateAvailableBalance(account);
-
-            // 3. 将计算结果缓存（异步缓存，不阻塞主流程）
-            try {
-                cacheManager.updateBalanceCache(accountId, account.getBalance());
-            } catch (Exception cacheException) {
-                log.warn("缓存可用余额失败: accountId={}", accountId, cacheException);
-                // 缓存失败不影响主业务流程
-            }
-
-            log.debug("重新计算可用余额: accountId={}, availableBalance={}", accountId, availableBalance);
-            return availableBalance;
-
-        } catch (Exception e) {
-            log.error("获取可用余额异常: accountId={}", accountId, e);
-            // 异常时降级为实时计算
-            return calculateAvailableBalance(account);
-        }
-    }
-
     /**
      * 计算可用余额
      * 可用余额 = 账户余额 + 信用额度 - 冻结金额
@@ -1,7 +1,10 @@
 package net.lab1024.sa.admin.module.consume.service.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.consume.counter.ConsumeSpendPeriod;
 import net.lab1024.sa.admin.module.consume.dao.ConsumeRecordDao;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeRollupManager;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeSpendCounterManager;
 import net.lab1024.sa.admin.module.consume.domain.entity.AccountEntity;
 import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
 import net.lab1024.sa.admin.module.consume.engine.ConsumeRequest;
@@ -53,6 +56,12 @@ public class ConsumeEngineServiceImpl implements ConsumeEngineService {
     @Resource
     private DataConsistencyManager consistencyManager;
 
+    @Resource
+    private ConsumeRollupManager consumeRollupManager;
+
+    @Resource
+    private ConsumeSpendCounterManager consumeSpendCounterManager;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public ConsumeResult processConsume(@Valid ConsumeRequest request) {
@@ -126,13 +135,8 @@ public class ConsumeEngineServiceImpl implements ConsumeEngineService {
                     String.format("余额不足，当前余额: %s，消费金额: %s", account.getBalance(), processedRequest.getAmount()));
             }
 
-            // 9. 执行核心消费逻辑（带数据一致性保障）
-            String lockKey = "consume:account:" + account.getAccountId();
-            String dataKey = "account:" + account.getAccountId();
-
-            ConsumeResult result = consistencyManager.executeTransactional(lockKey, dataKey, (currentVersion) ->
-                executeConsumeTransactionWithConsistency(account, processedRequest, currentVersion)
-            );
+            // 9. 执行核心消费逻辑（余额条件原子扣减，同一账户多终端并发无需分布式锁）
+            ConsumeResult result = executeConsumeTransactionWithConsistency(account, processedRequest);
 
             log.info("消费处理成功: orderNo={}, amount={}, balanceAfter={}",
                     result.getOrderNo(), result.getAmount(), result.getBalanceAfter());
@@ -258,43 +262,64 @@ public class ConsumeEngineServiceImpl implements ConsumeEngineService {
     /**
      * 执行带一致性保障的核心消费交易
      */
-    private ConsumeResult executeConsumeTransactionWithConsistency(AccountEntity account, ConsumeRequest request, long currentVersion) {
-        log.debug("执行一致性保障消费交易: accountId={}, orderNo={}, version={}",
-                 account.getAccountId(), request.getOrderNo(), currentVersion);
+    private ConsumeResult executeConsumeTransactionWithConsistency(AccountEntity account, ConsumeRequest request) {
+        log.debug("执行一致性保障消费交易: accountId={}, orderNo={}", account.getAccountId(), request.getOrderNo());
 
-        BigDecimal balanceBefore = account.getBalance();
         BigDecimal amount = request.getAmount();
-        BigDecimal balanceAfter = balanceBefore.subtract(amount);
-
-        // 1. 验证账户版本（确保数据没有被其他操作修改）
-        if (!consistencyManager.validateDataVersion("account:" + account.getAccountId(), currentVersion)) {
-            throw new SmartException("账户数据已被修改，请重试");
-        }
-
-        // 2. 扣减账户余额（带乐观锁检查）
-        boolean deductSuccess = accountService.deductBalanceWithVersion(
-            account.getAccountId(), amount, request.getOrderNo(), currentVersion
-        );
-        if (!deductSuccess) {
-            throw new SmartException("余额扣减失败，可能数据已被修改");
+        String dataKey = "account:" + account.getAccountId();
+
+        // 0. 按日/周/月限额原子预占本次金额，并发支付不会同时通过限额校验
+        ConsumeSpendCounterManager.SpendReservation reservation = consumeSpendCounterManager.reserve(
+                account.getPersonId(), amount, securityManager.getSpendLimits(account));
+        if (!reservation.isAccepted()) {
+            ConsumeSpendPeriod period = reservation.getExceededPeriod();
+            log.warn("消费限额预占失败: personId={}, period={}, amount={}", account.getPersonId(), period, amount);
+            switch (period) {
+                case DAY:
+                    return ConsumeResult.failure("DAILY_LIMIT_EXCEEDED", "超出日度消费限额");
+                case WEEK:
+                    return ConsumeResult.failure("WEEKLY_LIMIT_EXCEEDED", "超出周度消费限额");
+                default:
+                    return ConsumeResult.failure("MONTHLY_LIMIT_EXCEEDED", "超出月度消费限额");
+            }
         }
 
-        // 3. 创建消费记录
-        ConsumeRecordEntity record = createConsumeRecordWithVersion(account, request, balanceBefore, balanceAfter, currentVersion);
+        boolean recorded = false;
+        ConsumeRecordEntity record;
+        BigDecimal balanceBefore;
+        BigDecimal balanceAfter;
         try {
-            int insertResult = consumeRecordDao.insert(record);
-            if (insertResult <= 0) {
+            // 1-2. 条件原子扣减账户余额，前后余额以扣减结果为准（并发终端下读取时的余额可能已过期）
+            balanceAfter = accountService.deductBalanceAtomic(account.getAccountId(), amount,
+                    request.getOrderNo());
+            if (balanceAfter == null) {
+                throw new SmartException("余额扣减失败：余额不足或账户状态异常");
+            }
+            balanceBefore = balanceAfter.add(amount);
+            long currentVersion = consistencyManager.getDataVersion(dataKey);
+
+            // 3. 创建消费记录
+            record = createConsumeRecordWithVersion(account, request, balanceBefore, balanceAfter, currentVersion);
+            try {
+                int insertResult = consumeRecordDao.insert(record);
+                if (insertResult <= 0) {
+                    throw new SmartException("消费记录创建失败");
+                }
+            } catch (Exception e) {
+                // 记录创建失败，补偿余额
+                log.error("消费记录创建失败，进行余额补偿: orderNo={}", request.getOrderNo(), e);
+                accountService.addBalance(account.getAccountId(), amount, "COMPENSATE_" + request.getOrderNo());
                 throw new SmartException("消费记录创建失败");
             }
-        } catch (Exception e) {
-            // 记录创建失败，补偿余额
-            log.error("消费记录创建失败，进行余额补偿: orderNo={}", request.getOrderNo(), e);
-            accountService.addBalance(account.getAccountId(), amount, "COMPENSATE_" + request.getOrderNo());
-            throw new SmartException("消费记录创建失败");
+            recorded = true;
+        } finally {
+            // 失败立即释放预占；成功后由事务结果决定确认或释放
+            reservation.complete(recorded);
         }
+        consumeRollupManager.onConsumeRecorded(record);
 
         // 4. 更新数据版本号
-        long newVersion = consistencyManager.getDataVersion("account:" + account.getAccountId());
+        long newVersion = consistencyManager.getDataVersion(dataKey);
 
         // 5. 安全检测：异常操作检测
         try {
@@ -331,15 +356,15 @@ public class ConsumeEngineServiceImpl implements ConsumeEngineService {
      */
     @Transactional(rollbackFor = Exception.class)
     private ConsumeResult executeConsumeTransaction(AccountEntity account, ConsumeRequest request) {
-        BigDecimal balanceBefore = account.getBalance();
         BigDecimal amount = request.getAmount();
-        BigDecimal balanceAfter = balanceBefore.subtract(amount);
 
         // 1. 扣减账户余额
-        boolean deductSuccess = accountService.deductBalance(account.getAccountId(), amount, request.getOrderNo());
-        if (!deductSuccess) {
+        BigDecimal balanceAfter = accountService.deductBalanceAtomic(account.getAccountId(), amount,
+                request.getOrderNo());
+        if (balanceAfter == null) {
             throw new SmartException("余额扣减失败");
         }
+        BigDecimal balanceBefore = balanceAfter.add(amount);
 
         // 2. 创建消费记录
         ConsumeRecordEntity record = createConsumeRecord(account, request, balanceBefore, balanceAfter);
@@ -354,6 +379,8 @@ public class ConsumeEngineServiceImpl implements ConsumeEngineService {
             accountService.addBalance(account.getAccountId(), amount, "COMPENSATE_" + request.getOrderNo());
             throw new SmartException("消费记录创建失败");
         }
+        consumeRollupManager.onConsumeRecorded(record);
+        consumeSpendCounterManager.onConsumeRecorded(record);
 
         // 3. 安全检测：异常操作检测
         try {
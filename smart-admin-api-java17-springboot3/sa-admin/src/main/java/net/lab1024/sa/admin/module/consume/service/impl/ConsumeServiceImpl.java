@@ -1,7 +1,10 @@
 package net.lab1024.sa.admin.module.consume.service.impl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -16,12 +19,20 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 
 import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.common.export.ExportCompression;
+import net.lab1024.sa.admin.common.export.ExportFormat;
+import net.lab1024.sa.admin.common.export.StreamingExporter;
 import net.lab1024.sa.admin.module.consume.dao.ConsumeRecordDao;
 import net.lab1024.sa.admin.module.consume.domain.dto.ConsumeRequestDTO;
 import net.lab1024.sa.admin.module.consume.domain.dto.ConsumeResultDTO;
 import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
 import net.lab1024.sa.admin.module.consume.manager.AccountSecurityManager;
+import net.lab1024.sa.admin.module.consume.manager.ConsumePipelineManager;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeRecordExportManager;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeRollupManager;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeSpendCounterManager;
 import net.lab1024.sa.admin.module.consume.manager.ConsumptionModeEngineManager;
 import net.lab1024.sa.admin.module.consume.manager.DataConsistencyManager;
 import net.lab1024.sa.admin.module.consume.service.ConsumeCacheService;
@@ -30,6 +41,7 @@ import net.lab1024.sa.admin.module.consume.service.ConsumeService;
 import net.lab1024.sa.base.common.domain.PageParam;
 import net.lab1024.sa.base.common.domain.PageResult;
 import net.lab1024.sa.base.common.domain.ResponseDTO;
+import net.lab1024.sa.base.common.util.SmartResponseUtil;
 
 @Service
 @Slf4j
@@ -50,6 +62,18 @@ public class ConsumeServiceImpl extends ServiceImpl<ConsumeRecordDao, ConsumeRec
     @Resource
     private DataConsistencyManager dataConsistencyManager;
 
+    @Resource
+    private ConsumePipelineManager consumePipelineManager;
+
+    @Resource
+    private ConsumeRollupManager consumeRollupManager;
+
+    @Resource
+    private ConsumeSpendCounterManager consumeSpendCounterManager;
+
+    @Resource
+    private ConsumeRecordExportManager consumeRecordExportManager;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public ResponseDTO<String> pay(Long personId, String personName, BigDecimal amount, String payMethod, Long deviceId,
@@ -67,6 +91,8 @@ public class ConsumeServiceImpl extends ServiceImpl<ConsumeRecordDao, ConsumeRec
             rec.setDeviceId(deviceId);
             rec.setRemark(remark);
             this.save(rec);
+            consumeRollupManager.onConsumeRecorded(rec);
+            consumeSpendCounterManager.onConsumeRecorded(rec);
             return ResponseDTO.okMsg("扣费成功");
         } catch (Exception e) {
             log.error("扣费失败", e);
@@ -98,6 +124,10 @@ public class ConsumeServiceImpl extends ServiceImpl<ConsumeRecordDao, ConsumeRec
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> processConsume(Map<String, Object> consumeRequest) {
+        return consumePipelineManager.time(ConsumePipelineManager.STAGE_TOTAL, () -> doProcessConsume(consumeRequest));
+    }
+
+    private Map<String, Object> doProcessConsume(Map<String, Object> consumeRequest) {
         Map<String, Object> result = new HashMap<>();
 
         try {
@@ -111,33 +141,22 @@ public class ConsumeServiceImpl extends ServiceImpl<ConsumeRecordDao, ConsumeRec
                 consumeRequestDTO.setConsumeMode(consumeMode);
             }
 
-            // 3. 账户安全检查（支付密码验证、风险检测）
-            AccountSecurityManager.RiskDetectionResult riskResult = accountSecurityManager.detectAnomalousOperation(
-                    consumeRequestDTO.getUserId(),
-                    consumeRequestDTO.getAmount(),
-                    consumeRequestDTO.getDeviceId());
-
-            // 高风险交易拒绝
-            if ("HIGH".equals(riskResult.getRiskLevel())) {
-                result.put("success", false);
-                result.put("message", "检测到高风险交易：" + riskResult.getMessage());
-                result.put("riskLevel", riskResult.getRiskLevel());
-                return result;
-            }
-
-            // 4. 权限验证
-            ResponseDTO<Boolean> permissionCheck = consumePermissionService.checkConsumePermission(
-                    consumeRequestDTO.getUserId(),
-                    consumeRequestDTO.getAmount());
-            if (!permissionCheck.getOk()) {
+            // 3. 风险检测与权限验证并行执行，任一拒绝立即返回
+            ConsumePipelineManager.PreCheckResult preCheck = consumePipelineManager.time(
+                    ConsumePipelineManager.STAGE_PRE_CHECK, () -> consumePipelineManager.preCheck(consumeRequestDTO));
+            if (!preCheck.isPassed()) {
                 result.put("success", false);
-                result.put("message", permissionCheck.getMsg());
+                result.put("message", preCheck.getMessage());
+                if (preCheck.getRiskLevel() != null) {
+                    result.put("riskLevel", preCheck.getRiskLevel());
+                }
                 return result;
             }
 
-            // 5. 使用消费模式引擎管理器处理消费
-            ConsumeResultDTO consumeResult = consumptionModeEngineManager.processConsume(consumeRequestDTO,
-                    consumeMode);
+            // 4. 使用消费模式引擎管理器处理消费
+            String mode = consumeMode;
+            ConsumeResultDTO consumeResult = consumePipelineManager.time(ConsumePipelineManager.STAGE_MODE_ENGINE,
+                    () -> consumptionModeEngineManager.processConsume(consumeRequestDTO, mode));
 
             if (!consumeResult.isSuccess()) {
                 result.put("success", false);
@@ -145,37 +164,28 @@ public class ConsumeServiceImpl extends ServiceImpl<ConsumeRecordDao, ConsumeRec
                 return result;
             }
 
-            // 6. 数据一致性验证
-            DataConsistencyManager.ConsistencyValidationResult validationResult = dataConsistencyManager
-                    .validateDataConsistency(consumeRequestDTO.getUserId());
-
-            if ("ERROR".equals(validationResult.getStatus())) {
-                log.error("数据一致性验证失败: {}", validationResult.getMessage());
-                // 尝试修复数据不一致
-                DataConsistencyManager.ConsistencyRepairResult repairResult = dataConsistencyManager
-                        .repairDataInconsistency(consumeRequestDTO.getUserId());
-
-                if (!"SUCCESS".equals(repairResult.getStatus())) {
-                    result.put("success", false);
-                    result.put("message", "数据一致性验证失败：" + validationResult.getMessage());
-                    return result;
-                }
-            }
-
-            // 7. 创建并保存消费记录
-            ConsumeRecordEntity consumeRecord = createConsumeRecordFromDTO(consumeRequestDTO, consumeResult);
-            this.save(consumeRecord);
-
-            // 8. 缓存消费记录
-            consumeCacheService.cacheConsumeRecord(consumeRecord);
-
-            // 9. 更新缓存中的余额
-            BigDecimal newBalance = consumeCacheService.updateBalanceCache(
-                    consumeRequestDTO.getUserId(),
-                    consumeResult.getAmount(),
-                    "SUBTRACT");
-
-            // 10. 构建返回结果
+            // 5. 创建并保存消费记录
+            ConsumeRecordEntity consumeRecord = consumePipelineManager.time(ConsumePipelineManager.STAGE_PERSIST, () -> {
+                ConsumeRecordEntity record = createConsumeRecordFromDTO(consumeRequestDTO, consumeResult);
+                this.save(record);
+                consumeRollupManager.onConsumeRecorded(record);
+                consumeSpendCounterManager.onConsumeRecorded(record);
+                return record;
+            });
+
+            // 6. 缓存消费记录并更新缓存中的余额
+            BigDecimal newBalance = consumePipelineManager.time(ConsumePipelineManager.STAGE_CACHE, () -> {
+                consumeCacheService.cacheConsumeRecord(consumeRecord);
+                return consumeCacheService.updateBalanceCache(
+                        consumeRequestDTO.getUserId(),
+                        consumeResult.getAmount(),
+                        "SUBTRACT");
+            });
+
+            // 7. 数据一致性验证移出支付链路，事务提交后异步执行
+            consumePipelineManager.verifyAfterCommit(consumeRequestDTO.getUserId());
+
+            // 8. 构建返回结果
             result.put("success", true);
             result.put("message", consumeResult.getMessage());
             result.put("orderId", consumeRecord.getId());
@@ -183,8 +193,8 @@ public class ConsumeServiceImpl extends ServiceImpl<ConsumeRecordDao, ConsumeRec
             result.put("newBalance", newBalance != null ? newBalance : consumeResult.getNewBalance());
             result.put("consumeTime", consumeRecord.getPayTime());
             result.put("consumeMode", consumeMode);
-            result.put("riskLevel", riskResult.getRiskLevel());
-            result.put("dataConsistency", validationResult.getStatus());
+            result.put("riskLevel", preCheck.getRiskLevel());
+            result.put("dataConsistency", ConsumePipelineManager.CONSISTENCY_PENDING);
 
         } catch (Exception e) {
             log.error("消费处理失败", e);
@@ -582,4 +592,35 @@ public class ConsumeServiceImpl extends ServiceImpl<ConsumeRecordDao, ConsumeRec
             return errorResult;
         }
     }
+
+    @Override
+    public String exportRecords(Long personId, String orderNo, Long deviceId, String consumeMode,
+            String status, LocalDateTime startTime, LocalDateTime endTime, String format) {
+        try {
+            return consumeRecordExportManager.exportToFile(consumeRecordExportManager.buildQuery(personId, orderNo,
+                    deviceId, consumeMode, status, startTime, endTime), format);
+        } catch (IOException e) {
+            log.error("导出消费记录失败", e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void downloadRecords(Long personId, String orderNo, Long deviceId, String consumeMode,
+            String status, LocalDateTime startTime, LocalDateTime endTime, String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        ExportCompression compression = ExportCompression.of(format);
+        String baseName = "consume_record_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String fileName = StreamingExporter.fileName(baseName, exportFormat, compression);
+
+        SmartResponseUtil.setDownloadFileHeader(response, fileName);
+        response.setContentType(compression.getContentType() != null
+                ? compression.getContentType()
+                : exportFormat.getContentType());
+        consumeRecordExportManager.exportTo(response.getOutputStream(), baseName,
+                consumeRecordExportManager.buildQuery(personId, orderNo, deviceId, consumeMode, status, startTime,
+                        endTime),
+                format);
+    }
 }
@@ -25,7 +25,12 @@ import lombok.extern.slf4j.Slf4j;
 import net.lab1024.sa.admin.module.consume.dao.ConsumeRecordDao;
 import net.lab1024.sa.admin.module.consume.dao.RechargeRecordDao;
 import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRollupEntity;
 import net.lab1024.sa.admin.module.consume.domain.entity.RechargeRecordEntity;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeRecordExportManager;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeRollupManager;
+import net.lab1024.sa.admin.module.consume.rollup.ConsumeRollupAggregator;
+import net.lab1024.sa.admin.module.consume.rollup.ConsumeRollupDimension;
 import net.lab1024.sa.admin.module.consume.service.ConsumeCacheService;
 import net.lab1024.sa.admin.module.consume.service.ReportService;
 import net.lab1024.sa.base.common.domain.PageParam;
@@ -51,6 +56,12 @@ public class ReportServiceImpl implements ReportService {
     @Resource
     private ConsumeCacheService consumeCacheService;
 
+    @Resource
+    private ConsumeRollupManager consumeRollupManager;
+
+    @Resource
+    private ConsumeRecordExportManager consumeRecordExportManager;
+
     @Value("${file.storage.local.upload-path:D:/Progect/mart-admin-master/upload/}")
     private String fileUploadPath;
 
@@ -447,6 +458,18 @@ public class ReportServiceImpl implements ReportService {
         log.info("导出报表: reportType={}, format={}", reportType, format);
 
         try {
+            // 消费明细不经过内存汇总，直接游标流式写文件
+            if ("CONSUME_DETAIL".equalsIgnoreCase(reportType)) {
+                return consumeRecordExportManager.exportToFile(consumeRecordExportManager.buildQuery(
+                        params.get("userId") != null ? ((Number) params.get("userId")).longValue() : null,
+                        null,
+                        params.get("deviceId") != null ? ((Number) params.get("deviceId")).longValue() : null,
+                        (String) params.get("consumeMode"),
+                        null,
+                        (LocalDateTime) params.get("startTime"),
+                        (LocalDateTime) params.get("endTime")), format);
+            }
+
             // 1. 根据报表类型生成报表数据
             Map<String, Object> reportData = null;
             switch (reportType.toUpperCase()) {
@@ -814,6 +837,18 @@ public class ReportServiceImpl implements ReportService {
                 return cachedResult;
             }
 
+            // 0.2. 范围已被预聚合覆盖时直接读取小时汇总
+            List<ConsumeRollupEntity> rollupRows = consumeRollupManager.queryBuckets(deviceId, consumeMode,
+                    startTime, endTime);
+            if (rollupRows != null) {
+                Map<String, Object> result = ConsumeRollupAggregator.summary(rollupRows, timeDimension);
+                result.put("timeDimension", timeDimension);
+                result.put("startTime", startTime);
+                result.put("endTime", endTime);
+                consumeCacheService.setCachedValue(cacheKey, result, SUMMARY_CACHE_TTL);
+                return result;
+            }
+
             // 1. 构建查询条件
             LambdaQueryWrapper<ConsumeRecordEntity> wrapper = new LambdaQueryWrapper<>();
             wrapper.eq(ConsumeRecordEntity::getStatus, "SUCCESS");
@@ -950,6 +985,16 @@ public class ReportServiceImpl implements ReportService {
                 return cachedResult;
             }
 
+            // 0.2. 范围已被预聚合覆盖时直接读取小时汇总
+            List<ConsumeRollupEntity> rollupRows = consumeRollupManager.queryBuckets(deviceId, consumeMode,
+                    startTime, endTime);
+            if (rollupRows != null) {
+                List<Map<String, Object>> trendData = ConsumeRollupAggregator.trend(rollupRows, timeDimension,
+                        trendType);
+                consumeCacheService.setCachedValue(cacheKey, trendData, REPORT_CACHE_TTL);
+                return trendData;
+            }
+
             // 1. 构建查询条件
             LambdaQueryWrapper<ConsumeRecordEntity> wrapper = new LambdaQueryWrapper<>();
             wrapper.eq(ConsumeRecordEntity::getStatus, "SUCCESS");
@@ -1124,6 +1169,16 @@ public class ReportServiceImpl implements ReportService {
                 return cachedResult;
             }
 
+            // 0.2. 范围已被预聚合覆盖时按设备合计小时汇总
+            List<ConsumeRollupEntity> rollupTotals = consumeRollupManager
+                    .queryTotalsByKey(ConsumeRollupDimension.DEVICE, startTime, endTime);
+            if (rollupTotals != null) {
+                List<Map<String, Object>> ranking = ConsumeRollupAggregator.ranking(rollupTotals, "deviceId",
+                        rankingType, limit);
+                consumeCacheService.setCachedValue(cacheKey, ranking, REPORT_CACHE_TTL);
+                return ranking;
+            }
+
             // 1. 构建查询条件
             LambdaQueryWrapper<ConsumeRecordEntity> wrapper = new LambdaQueryWrapper<>();
             wrapper.eq(ConsumeRecordEntity::getStatus, "SUCCESS")
@@ -1219,6 +1274,16 @@ public class ReportServiceImpl implements ReportService {
                 return cachedResult;
             }
 
+            // 0.2. 范围已被预聚合覆盖时按人员合计天汇总
+            List<ConsumeRollupEntity> rollupTotals = consumeRollupManager
+                    .queryTotalsByKey(ConsumeRollupDimension.PERSON, startTime, endTime);
+            if (rollupTotals != null) {
+                List<Map<String, Object>> ranking = ConsumeRollupAggregator.ranking(rollupTotals, "userId",
+                        rankingType, limit);
+                consumeCacheService.setCachedValue(cacheKey, ranking, REPORT_CACHE_TTL);
+                return ranking;
+            }
+
             // 1. 构建查询条件
             LambdaQueryWrapper<ConsumeRecordEntity> wrapper = new LambdaQueryWrapper<>();
             wrapper.eq(ConsumeRecordEntity::getStatus, "SUCCESS")
@@ -1297,6 +1362,13 @@ public class ReportServiceImpl implements ReportService {
         log.info("获取时段分布: startTime={}, endTime={}, deviceId={}", startTime, endTime, deviceId);
 
         try {
+            // 0. 范围已被预聚合覆盖时直接读取小时汇总
+            List<ConsumeRollupEntity> rollupRows = consumeRollupManager.queryBuckets(deviceId, null, startTime,
+                    endTime);
+            if (rollupRows != null) {
+                return ConsumeRollupAggregator.hourDistribution(rollupRows);
+            }
+
             // 1. 构建查询条件
             LambdaQueryWrapper<ConsumeRecordEntity> wrapper = new LambdaQueryWrapper<>();
             wrapper.eq(ConsumeRecordEntity::getStatus, "SUCCESS")
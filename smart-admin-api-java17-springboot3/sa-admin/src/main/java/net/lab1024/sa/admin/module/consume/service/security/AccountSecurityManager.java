@@ -6,8 +6,12 @@ import net.lab1024.sa.base.common.exception.SmartException;
 import net.lab1024.sa.base.common.exception.UserErrorCode;
 import net.lab1024.sa.base.common.util.SmartRedisUtil;
 import net.lab1024.sa.base.module.support.heartbeat.core.HeartBeatManager;
+import net.lab1024.sa.admin.module.consume.counter.ConsumeSpendPeriod;
 import net.lab1024.sa.admin.module.consume.domain.entity.AccountEntity;
 import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+import net.lab1024.sa.admin.module.consume.domain.vo.ConsumeLimitConfig;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeSpendCounterManager;
+import net.lab1024.sa.admin.module.consume.service.ConsumeLimitConfigService;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
@@ -18,6 +22,7 @@ import java.time.LocalTime;
 import java.util.concurrent.TimeUnit;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.concurrent.ConcurrentHashMap;
@@ -44,6 +49,12 @@ public class AccountSecurityManager {
     @Resource
     private HeartBeatManager heartBeatManager;
 
+    @Resource
+    private ConsumeSpendCounterManager consumeSpendCounterManager;
+
+    @Resource
+    private ConsumeLimitConfigService consumeLimitConfigService;
+
     // 缓存键前缀
     private static final String PAY_PWD_PREFIX = "security:pay_pwd:";
     private static final String LIMIT_PREFIX = "security:limit:";
@@ -53,6 +64,7 @@ public class AccountSecurityManager {
     // 默认限额配置
     private static final BigDecimal DEFAULT_SINGLE_LIMIT = new BigDecimal("1000.00");
     private static final BigDecimal DEFAULT_DAILY_LIMIT = new BigDecimal("5000.00");
+    private static final BigDecimal DEFAULT_WEEKLY_LIMIT = new BigDecimal("10000.00");
     private static final BigDecimal DEFAULT_MONTHLY_LIMIT = new BigDecimal("20000.00");
 
     // 风险检测阈值
@@ -217,6 +229,26 @@ public class AccountSecurityManager {
         }
     }
 
+    /**
+     * 账户的日度、周度、月度消费限额，供扣款前原子预占使用
+     * <p>
+     * 账户表没有周度限额，取人员限额配置中的周度限额
+     *
+     * @param account 账户信息
+     * @return 各周期限额
+     */
+    public Map<ConsumeSpendPeriod, BigDecimal> getSpendLimits(AccountEntity account) {
+        Map<ConsumeSpendPeriod, BigDecimal> limits = new EnumMap<>(ConsumeSpendPeriod.class);
+        limits.put(ConsumeSpendPeriod.DAY, account.getDailyLimit() != null ?
+            account.getDailyLimit() : DEFAULT_DAILY_LIMIT);
+        ConsumeLimitConfig limitConfig = consumeLimitConfigService.getUserLimitConfig(account.getPersonId());
+        limits.put(ConsumeSpendPeriod.WEEK, limitConfig != null && limitConfig.getWeeklyLimit() != null ?
+            limitConfig.getWeeklyLimit() : DEFAULT_WEEKLY_LIMIT);
+        limits.put(ConsumeSpendPeriod.MONTH, account.getMonthlyLimit() != null ?
+            account.getMonthlyLimit() : DEFAULT_MONTHLY_LIMIT);
+        return limits;
+    }
+
     /**
      * 检测异常操作
      *
@@ -406,13 +438,11 @@ public class AccountSecurityManager {
     }
 
     private BigDecimal getTodayConsumeAmount(Long personId) {
-        // TODO: 查询今日消费金额
-        return BigDecimal.ZERO;
+        return consumeSpendCounterManager.getTodayAmount(personId);
     }
 
     private BigDecimal getMonthlyConsumeAmount(Long personId) {
-        // TODO: 查询本月消费金额
-        return BigDecimal.ZERO;
+        return consumeSpendCounterManager.getMonthlyAmount(personId);
     }
 
     private boolean isWithinConsumeTimeLimit(Long personId) {
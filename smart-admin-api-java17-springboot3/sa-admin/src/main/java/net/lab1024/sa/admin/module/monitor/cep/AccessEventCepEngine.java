@@ -0,0 +1,271 @@
+package net.lab1024.sa.admin.module.monitor.cep;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 门禁事件复杂事件处理引擎
+ * <p>
+ * - 规则注册时编译并按设备/区域/验证结果建立索引，事件只评估索引命中的规则和无索引规则
+ * - 每个（规则，分组键）一份状态：COUNT规则为分桶滑动窗口计数器，REPEAT规则为上一次取值，均无锁更新
+ * - 状态总数不超过 max-keys，空闲超过窗口的状态定期回收；满额时先回收一次，仍满则丢弃新分组并计数
+ * - COUNT规则同一分组在一个窗口内最多告警一次，告警后清零重新计数
+ * <p>
+ * 配置项（monitor.cep.*）：max-keys、window-buckets
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class AccessEventCepEngine {
+
+    /**
+     * 满额时两次回收的最小间隔
+     */
+    private static final long SWEEP_INTERVAL_MILLIS = 1000L;
+
+    @Value("${monitor.cep.max-keys:100000}")
+    private int maxKeys = 100000;
+
+    @Value("${monitor.cep.window-buckets:12}")
+    private int windowBuckets = 12;
+
+    private volatile RuleIndex ruleIndex = RuleIndex.EMPTY;
+
+    private final ConcurrentHashMap<StateKey, KeyState> states = new ConcurrentHashMap<>();
+
+    private final AtomicInteger stateCount = new AtomicInteger();
+
+    private final AtomicLong lastSweep = new AtomicLong();
+
+    private final AtomicLong eventCount = new AtomicLong();
+
+    private final AtomicLong matchCount = new AtomicLong();
+
+    private final AtomicLong droppedKeys = new AtomicLong();
+
+    /**
+     * 替换全部规则，已有窗口状态清空
+     */
+    public void register(Collection<CepRule> rules) {
+        ruleIndex = new RuleIndex(rules);
+        states.clear();
+        stateCount.set(0);
+        log.info("复杂事件规则注册完成，规则数量: {}", rules.size());
+    }
+
+    /**
+     * 处理一条事件，返回命中的规则
+     */
+    public List<CepMatch> onEvent(CepEvent event) {
+        eventCount.incrementAndGet();
+        RuleIndex index = ruleIndex;
+        List<CepMatch> matches = null;
+        matches = evaluate(index.byDevice.get(event.getDeviceId()), event, matches);
+        matches = evaluate(index.byArea.get(event.getArea()), event, matches);
+        matches = evaluate(index.byVerifyResult.get(event.getVerifyResult()), event, matches);
+        matches = evaluate(index.unindexed, event, matches);
+        return matches != null ? matches : Collections.emptyList();
+    }
+
+    private List<CepMatch> evaluate(CepRule[] rules, CepEvent event, List<CepMatch> matches) {
+        if (rules == null) {
+            return matches;
+        }
+        for (CepRule rule : rules) {
+            if (!rule.matches(event)) {
+                continue;
+            }
+            CepMatch match = apply(rule, event);
+            if (match != null) {
+                matchCount.incrementAndGet();
+                if (matches == null) {
+                    matches = new ArrayList<>(2);
+                }
+                matches.add(match);
+            }
+        }
+        return matches;
+    }
+
+    private CepMatch apply(CepRule rule, CepEvent event) {
+        long now = event.getTimestamp();
+        if (rule.getType() == CepRule.Type.MATCH) {
+            return new CepMatch(rule.getRuleId(), rule.groupKey(event), 1, now);
+        }
+
+        String groupKey = rule.groupKey(event);
+        KeyState state = state(rule, groupKey, now);
+        if (state == null) {
+            return null;
+        }
+        state.lastSeen = now;
+
+        if (rule.getType() == CepRule.Type.COUNT) {
+            long count = state.counter.incrementAndSum(now);
+            if (count < rule.getThreshold()) {
+                return null;
+            }
+            long fired = state.lastFired.get();
+            if (now - fired < rule.getWindowMillis() || !state.lastFired.compareAndSet(fired, now)) {
+                return null;
+            }
+            state.counter.reset();
+            return new CepMatch(rule.getRuleId(), groupKey, count, now);
+        }
+
+        String value = rule.getRepeatField().extract(event);
+        if (value == null) {
+            return null;
+        }
+        LastValue previous = state.lastValue.getAndSet(new LastValue(value, now));
+        if (previous != null && value.equals(previous.value) && now - previous.timestamp <= rule.getWindowMillis()) {
+            return new CepMatch(rule.getRuleId(), groupKey, 1, now);
+        }
+        return null;
+    }
+
+    private KeyState state(CepRule rule, String groupKey, long now) {
+        StateKey key = new StateKey(rule.getRuleId(), groupKey);
+        KeyState state = states.get(key);
+        if (state != null) {
+            return state;
+        }
+        if (stateCount.get() >= maxKeys) {
+            sweepIfDue(now);
+            if (stateCount.get() >= maxKeys) {
+                droppedKeys.incrementAndGet();
+                return null;
+            }
+        }
+        return states.computeIfAbsent(key, k -> {
+            stateCount.incrementAndGet();
+            return new KeyState(rule, windowBuckets);
+        });
+    }
+
+    /**
+     * 按墙钟限流，积压或回放时事件时间推进很快，不能按事件时间触发全表扫描
+     */
+    private void sweepIfDue(long now) {
+        long wallClock = System.currentTimeMillis();
+        long last = lastSweep.get();
+        if (wallClock - last >= SWEEP_INTERVAL_MILLIS && lastSweep.compareAndSet(last, wallClock)) {
+            evictExpired(now);
+        }
+    }
+
+    /**
+     * 回收空闲超过窗口长度的分组状态
+     *
+     * @return 回收数量
+     */
+    public int evictExpired(long now) {
+        int evicted = 0;
+        for (Map.Entry<StateKey, KeyState> entry : states.entrySet()) {
+            KeyState state = entry.getValue();
+            if (now - state.lastSeen > state.windowMillis && states.remove(entry.getKey(), state)) {
+                stateCount.decrementAndGet();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("复杂事件窗口状态回收: evicted={}, remaining={}", evicted, stateCount.get());
+        }
+        return evicted;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("ruleCount", ruleIndex.size);
+        statistics.put("stateCount", stateCount.get());
+        statistics.put("eventCount", eventCount.get());
+        statistics.put("matchCount", matchCount.get());
+        statistics.put("droppedKeys", droppedKeys.get());
+        return statistics;
+    }
+
+    /**
+     * 规则索引，注册后不再修改
+     */
+    private static final class RuleIndex {
+
+        static final RuleIndex EMPTY = new RuleIndex(Collections.emptyList());
+
+        final Map<String, CepRule[]> byDevice = new HashMap<>();
+
+        final Map<String, CepRule[]> byArea = new HashMap<>();
+
+        final Map<String, CepRule[]> byVerifyResult = new HashMap<>();
+
+        final CepRule[] unindexed;
+
+        final int size;
+
+        RuleIndex(Collection<CepRule> rules) {
+            Map<String, List<CepRule>> device = new HashMap<>();
+            Map<String, List<CepRule>> area = new HashMap<>();
+            Map<String, List<CepRule>> verifyResult = new HashMap<>();
+            List<CepRule> others = new ArrayList<>();
+            for (CepRule rule : rules) {
+                if (rule.getIndexField() == null) {
+                    others.add(rule);
+                    continue;
+                }
+                Map<String, List<CepRule>> target = switch (rule.getIndexField()) {
+                    case DEVICE -> device;
+                    case AREA -> area;
+                    default -> verifyResult;
+                };
+                for (String value : rule.getIndexValues()) {
+                    target.computeIfAbsent(value, k -> new ArrayList<>()).add(rule);
+                }
+            }
+            device.forEach((k, v) -> byDevice.put(k, v.toArray(new CepRule[0])));
+            area.forEach((k, v) -> byArea.put(k, v.toArray(new CepRule[0])));
+            verifyResult.forEach((k, v) -> byVerifyResult.put(k, v.toArray(new CepRule[0])));
+            unindexed = others.toArray(new CepRule[0]);
+            size = rules.size();
+        }
+    }
+
+    private record StateKey(String ruleId, String groupKey) {
+    }
+
+    private record LastValue(String value, long timestamp) {
+    }
+
+    private static final class KeyState {
+
+        final long windowMillis;
+
+        final SlidingWindowCounter counter;
+
+        final AtomicReference<LastValue> lastValue;
+
+        final AtomicLong lastFired = new AtomicLong(Long.MIN_VALUE / 2);
+
+        volatile long lastSeen;
+
+        KeyState(CepRule rule, int buckets) {
+            this.windowMillis = rule.getWindowMillis();
+            this.counter = rule.getType() == CepRule.Type.COUNT
+                    ? new SlidingWindowCounter(rule.getWindowMillis(), buckets) : null;
+            this.lastValue = rule.getType() == CepRule.Type.REPEAT ? new AtomicReference<>() : null;
+        }
+    }
+}
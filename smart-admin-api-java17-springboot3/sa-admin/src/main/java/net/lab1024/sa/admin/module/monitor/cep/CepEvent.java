@@ -0,0 +1,53 @@
+package net.lab1024.sa.admin.module.monitor.cep;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import lombok.Getter;
+
+/**
+ * 规则引擎输入事件
+ * <p>
+ * 由门禁事件转换而来，时间在构造时换算为毫秒时间戳与当日分钟数，规则匹配时不再做日期计算
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Getter
+public class CepEvent {
+
+    private final String deviceId;
+
+    private final String area;
+
+    private final String userId;
+
+    private final String verifyResult;
+
+    private final String verifyMethod;
+
+    private final String direction;
+
+    /**
+     * 事件时间（毫秒时间戳）
+     */
+    private final long timestamp;
+
+    /**
+     * 事件时间在当日的分钟数（0-1439）
+     */
+    private final int minuteOfDay;
+
+    public CepEvent(String deviceId, String area, String userId, String verifyResult, String verifyMethod,
+            String direction, LocalDateTime eventTime) {
+        this.deviceId = deviceId;
+        this.area = area;
+        this.userId = userId;
+        this.verifyResult = verifyResult;
+        this.verifyMethod = verifyMethod;
+        this.direction = direction;
+        LocalDateTime time = eventTime != null ? eventTime : LocalDateTime.now();
+        this.timestamp = time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        this.minuteOfDay = time.getHour() * 60 + time.getMinute();
+    }
+}
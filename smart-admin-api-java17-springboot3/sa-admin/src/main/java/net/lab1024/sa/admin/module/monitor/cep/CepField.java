@@ -0,0 +1,50 @@
+package net.lab1024.sa.admin.module.monitor.cep;
+
+import java.util.function.Function;
+
+/**
+ * 规则条件中可引用的事件字段
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public enum CepField {
+
+    DEVICE("device", CepEvent::getDeviceId),
+
+    AREA("area", CepEvent::getArea),
+
+    USER("user", CepEvent::getUserId),
+
+    VERIFY_RESULT("verify_result", CepEvent::getVerifyResult),
+
+    VERIFY_METHOD("verify_method", CepEvent::getVerifyMethod),
+
+    DIRECTION("direction", CepEvent::getDirection);
+
+    private final String code;
+
+    private final Function<CepEvent, String> extractor;
+
+    CepField(String code, Function<CepEvent, String> extractor) {
+        this.code = code;
+        this.extractor = extractor;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String extract(CepEvent event) {
+        return extractor.apply(event);
+    }
+
+    public static CepField of(String code) {
+        for (CepField field : values()) {
+            if (field.code.equals(code)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("未知的事件字段: " + code);
+    }
+}
@@ -0,0 +1,31 @@
+package net.lab1024.sa.admin.module.monitor.cep;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 规则命中结果
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CepMatch {
+
+    private final String ruleId;
+
+    /**
+     * 命中的分组键，如设备ID、“人员|区域”
+     */
+    private final String groupKey;
+
+    /**
+     * COUNT规则为窗口内事件数，其余为1
+     */
+    private final long count;
+
+    private final long timestamp;
+}
@@ -0,0 +1,216 @@
+package net.lab1024.sa.admin.module.monitor.cep;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lombok.Getter;
+
+/**
+ * 编译后的告警规则
+ * <p>
+ * 条件字符串在注册时编译一次，子句以 {@code &&} 连接：
+ * <pre>
+ * verify_result=failed                       字段等值，多值用 | 分隔，不等用 !=
+ * time_range=00:00-06:00                     事件时间段，支持跨零点
+ * count>=5 within 60s by device              窗口内匹配事件数达到阈值
+ * repeat(direction) within 12h by user,area  同一分组内字段值与上一次相同（如反潜回）
+ * </pre>
+ * 不含 count/repeat 子句的规则对每个匹配事件触发。时长单位支持 ms、s、m、h
+ * <p>
+ * 例：{@code verify_result=failed && count>=5 within 60s by device} 表示同一门60秒内验证失败5次
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Getter
+public final class CepRule {
+
+    /**
+     * 规则类型
+     */
+    public enum Type {
+        MATCH, COUNT, REPEAT
+    }
+
+    private static final Pattern COUNT_CLAUSE = Pattern.compile(
+            "count\\s*>=\\s*(\\d+)\\s+within\\s+(\\d+)(ms|s|m|h)\\s+by\\s+([\\w,\\s]+)");
+
+    private static final Pattern REPEAT_CLAUSE = Pattern.compile(
+            "repeat\\((\\w+)\\)\\s+within\\s+(\\d+)(ms|s|m|h)\\s+by\\s+([\\w,\\s]+)");
+
+    private static final Pattern TIME_RANGE = Pattern.compile("(\\d{1,2}):(\\d{2})-(\\d{1,2}):(\\d{2})");
+
+    /**
+     * 索引优先级：设备 > 区域 > 验证结果
+     */
+    private static final List<CepField> INDEX_FIELDS = List.of(CepField.DEVICE, CepField.AREA, CepField.VERIFY_RESULT);
+
+    private final String ruleId;
+
+    private final String condition;
+
+    private final Type type;
+
+    private final Predicate<CepEvent> filter;
+
+    private final long threshold;
+
+    private final long windowMillis;
+
+    private final CepField[] groupBy;
+
+    private final CepField repeatField;
+
+    /**
+     * 索引字段及取值；为null时规则对所有事件生效
+     */
+    private final CepField indexField;
+
+    private final Set<String> indexValues;
+
+    private CepRule(String ruleId, String condition, Type type, Predicate<CepEvent> filter, long threshold,
+            long windowMillis, CepField[] groupBy, CepField repeatField, CepField indexField, Set<String> indexValues) {
+        this.ruleId = ruleId;
+        this.condition = condition;
+        this.type = type;
+        this.filter = filter;
+        this.threshold = threshold;
+        this.windowMillis = windowMillis;
+        this.groupBy = groupBy;
+        this.repeatField = repeatField;
+        this.indexField = indexField;
+        this.indexValues = indexValues;
+    }
+
+    /**
+     * 编译规则条件
+     *
+     * @throws IllegalArgumentException 条件语法错误
+     */
+    public static CepRule compile(String ruleId, String condition) {
+        if (condition == null || condition.isBlank()) {
+            throw new IllegalArgumentException("规则条件为空: " + ruleId);
+        }
+        Type type = Type.MATCH;
+        long threshold = 0;
+        long windowMillis = 0;
+        CepField[] groupBy = new CepField[0];
+        CepField repeatField = null;
+        List<Predicate<CepEvent>> predicates = new ArrayList<>();
+        CepField indexField = null;
+        Set<String> indexValues = null;
+        int indexRank = INDEX_FIELDS.size();
+
+        for (String raw : condition.split("&&")) {
+            String clause = raw.trim();
+            Matcher count = COUNT_CLAUSE.matcher(clause);
+            Matcher repeat = REPEAT_CLAUSE.matcher(clause);
+            if (count.matches() || repeat.matches()) {
+                if (type != Type.MATCH) {
+                    throw new IllegalArgumentException("规则只能包含一个count/repeat子句: " + condition);
+                }
+                Matcher matched = count.matches() ? count : repeat;
+                windowMillis = toMillis(Long.parseLong(matched.group(2)), matched.group(3));
+                groupBy = parseFields(matched.group(4));
+                if (matched == count) {
+                    type = Type.COUNT;
+                    threshold = Long.parseLong(count.group(1));
+                } else {
+                    type = Type.REPEAT;
+                    repeatField = CepField.of(repeat.group(1));
+                }
+                continue;
+            }
+
+            if (clause.startsWith("time_range=")) {
+                predicates.add(timeRange(clause.substring("time_range=".length())));
+                continue;
+            }
+
+            boolean negate = clause.contains("!=");
+            String[] parts = clause.split(negate ? "!=" : "=", 2);
+            if (parts.length != 2 || parts[1].isBlank()) {
+                throw new IllegalArgumentException("无法解析的条件子句: " + clause);
+            }
+            CepField field = CepField.of(parts[0].trim());
+            // 不可变Set.of不接受contains(null)，字段可能为空
+            Set<String> values = new HashSet<>(Arrays.asList(parts[1].split("\\s*\\|\\s*")));
+            values.remove("");
+            predicates.add(negate
+                    ? event -> !values.contains(field.extract(event))
+                    : event -> values.contains(field.extract(event)));
+
+            int rank = INDEX_FIELDS.indexOf(field);
+            if (!negate && rank >= 0 && rank < indexRank) {
+                indexRank = rank;
+                indexField = field;
+                indexValues = values;
+            }
+        }
+
+        Predicate<CepEvent> filter = predicates.stream().reduce(Predicate::and).orElse(event -> true);
+        return new CepRule(ruleId, condition, type, filter, threshold, windowMillis, groupBy, repeatField,
+                indexField, indexValues);
+    }
+
+    public boolean matches(CepEvent event) {
+        return filter.test(event);
+    }
+
+    /**
+     * 分组键，字段为空时记为“-”
+     */
+    public String groupKey(CepEvent event) {
+        if (groupBy.length == 1) {
+            return valueOrDash(groupBy[0].extract(event));
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < groupBy.length; i++) {
+            if (i > 0) {
+                key.append('|');
+            }
+            key.append(valueOrDash(groupBy[i].extract(event)));
+        }
+        return key.toString();
+    }
+
+    private static String valueOrDash(String value) {
+        return value != null ? value : "-";
+    }
+
+    private static CepField[] parseFields(String fields) {
+        return Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(CepField::of)
+                .toArray(CepField[]::new);
+    }
+
+    private static long toMillis(long amount, String unit) {
+        return switch (unit) {
+            case "ms" -> amount;
+            case "s" -> amount * 1000L;
+            case "m" -> amount * 60_000L;
+            default -> amount * 3_600_000L;
+        };
+    }
+
+    private static Predicate<CepEvent> timeRange(String range) {
+        Matcher matcher = TIME_RANGE.matcher(range.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("无法解析的时间段: " + range);
+        }
+        int start = Integer.parseInt(matcher.group(1)) * 60 + Integer.parseInt(matcher.group(2));
+        int end = Integer.parseInt(matcher.group(3)) * 60 + Integer.parseInt(matcher.group(4));
+        if (start <= end) {
+            return event -> event.getMinuteOfDay() >= start && event.getMinuteOfDay() < end;
+        }
+        return event -> event.getMinuteOfDay() >= start || event.getMinuteOfDay() < end;
+    }
+}
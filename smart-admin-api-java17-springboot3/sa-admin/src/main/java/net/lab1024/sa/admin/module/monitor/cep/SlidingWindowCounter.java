@@ -0,0 +1,96 @@
+package net.lab1024.sa.admin.module.monitor.cep;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分桶滑动窗口计数器
+ * <p>
+ * 窗口均分为固定数量的时间桶，环形复用，内存与事件量无关。每个桶用一个long同时保存
+ * 桶序号（高42位）和计数（低22位），切换桶与累加在同一次CAS内完成，不加锁。
+ * 窗口边界精度为一个桶宽
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 22;
+
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long bucketMillis;
+
+    private final int bucketCount;
+
+    private final AtomicLongArray buckets;
+
+    public SlidingWindowCounter(long windowMillis, int bucketCount) {
+        if (windowMillis <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("窗口长度与桶数必须为正数");
+        }
+        this.bucketCount = bucketCount;
+        this.bucketMillis = Math.max(1L, (windowMillis + bucketCount - 1) / bucketCount);
+        this.buckets = new AtomicLongArray(bucketCount);
+    }
+
+    /**
+     * 计入一次事件并返回窗口内（含本次）的事件数
+     */
+    public long incrementAndSum(long timestamp) {
+        add(timestamp);
+        return sum(timestamp);
+    }
+
+    /**
+     * 计入一次事件；早于整个窗口的迟到事件被忽略
+     */
+    public void add(long timestamp) {
+        long epoch = timestamp / bucketMillis;
+        int index = (int) (epoch % bucketCount);
+        while (true) {
+            long current = buckets.get(index);
+            long currentEpoch = current >>> COUNT_BITS;
+            long next;
+            if (currentEpoch == epoch) {
+                if ((current & COUNT_MASK) == COUNT_MASK) {
+                    return;
+                }
+                next = current + 1;
+            } else if (currentEpoch > epoch) {
+                return;
+            } else {
+                next = (epoch << COUNT_BITS) | 1L;
+            }
+            if (buckets.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 截至指定时间窗口内的事件数
+     */
+    public long sum(long timestamp) {
+        long nowEpoch = timestamp / bucketMillis;
+        long oldestEpoch = nowEpoch - bucketCount;
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long value = buckets.get(i);
+            long epoch = value >>> COUNT_BITS;
+            if (epoch > oldestEpoch && epoch <= nowEpoch) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    public void reset() {
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.set(i, 0L);
+        }
+    }
+
+    public long getWindowMillis() {
+        return bucketMillis * bucketCount;
+    }
+}
@@ -7,10 +7,12 @@ import jakarta.annotation.Resource;
 import jakarta.websocket.*;
 import jakarta.websocket.server.PathParam;
 import jakarta.websocket.server.ServerEndpoint;
+import net.lab1024.sa.admin.module.monitor.websocket.FanoutMessage;
 import net.lab1024.sa.admin.module.monitor.websocket.WebSocketSessionManager;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -32,6 +34,9 @@ import lombok.extern.slf4j.Slf4j;
 @ServerEndpoint("/api/websocket/access-monitor/{userId}/{userType}")
 public class AccessMonitorWebSocketEndpoint {
 
+    // 会话属性中保存会话管理器使用的会话ID
+    private static final String SESSION_ID_PROPERTY = "accessMonitorSessionId";
+
     // 使用静态变量注入Spring Bean
     private static WebSocketSessionManager sessionManager;
 
@@ -49,6 +54,7 @@ public class AccessMonitorWebSocketEndpoint {
                       @PathParam("userType") String userType) {
         try {
             String sessionId = UUID.randomUUID().toString();
+            session.getUserProperties().put(SESSION_ID_PROPERTY, sessionId);
 
             // 获取客户端信息
             String clientInfo = buildClientInfo(session);
@@ -64,7 +70,7 @@ public class AccessMonitorWebSocketEndpoint {
             welcomeMessage.put("serverTime", LocalDateTime.now().toString());
             welcomeMessage.put("message", "门禁实时监控连接已建立");
 
-            session.getAsyncRemote().sendText(welcomeMessage.toJSONString());
+            sessionManager.sendToSession(sessionId, welcomeMessage.toJSONString());
 
             // 推送初始数据
             pushInitialData(session, userId, userType);
@@ -146,8 +152,7 @@ public class AccessMonitorWebSocketEndpoint {
      */
     private void handleHeartbeat(Session session, String userId) {
         // 更新心跳时间
-        String sessionId = session.getId();
-        sessionManager.updateHeartbeat(sessionId);
+        sessionManager.updateHeartbeat(resolveSessionId(session));
 
         // 发送心跳响应
         JSONObject heartbeatResponse = new JSONObject();
@@ -155,22 +160,27 @@ public class AccessMonitorWebSocketEndpoint {
         heartbeatResponse.put("status", "alive");
         heartbeatResponse.put("timestamp", System.currentTimeMillis());
 
-        session.getAsyncRemote().sendText(heartbeatResponse.toJSONString());
+        sendToSession(session, heartbeatResponse.toJSONString());
     }
 
     /**
      * 处理订阅请求
+     * <p>
+     * subscribeType 为 area 或 device，targets 为区域名称/设备ID列表，为空表示接收全部
      */
     private void handleSubscribe(Session session, String userId, JSONObject message) {
         String subscribeType = message.getString("subscribeType");
+        List<String> targets = message.getList("targets", String.class);
+        boolean updated = sessionManager.subscribe(resolveSessionId(session), subscribeType, targets);
 
         JSONObject response = new JSONObject();
         response.put("type", "subscribe");
         response.put("subscribeType", subscribeType);
-        response.put("status", "success");
-        response.put("message", "订阅成功");
+        response.put("targets", targets);
+        response.put("status", updated ? "success" : "error");
+        response.put("message", updated ? "订阅成功" : "不支持的订阅类型: " + subscribeType);
 
-        session.getAsyncRemote().sendText(response.toJSONString());
+        sendToSession(session, response.toJSONString());
 
         log.info("用户订阅成功，userId: {}, subscribeType: {}", userId, subscribeType);
     }
@@ -180,14 +190,17 @@ public class AccessMonitorWebSocketEndpoint {
      */
     private void handleUnsubscribe(Session session, String userId, JSONObject message) {
         String subscribeType = message.getString("subscribeType");
+        List<String> targets = message.getList("targets", String.class);
+        boolean updated = sessionManager.unsubscribe(resolveSessionId(session), subscribeType, targets);
 
         JSONObject response = new JSONObject();
         response.put("type", "unsubscribe");
         response.put("subscribeType", subscribeType);
-        response.put("status", "success");
-        response.put("message", "取消订阅成功");
+        response.put("targets", targets);
+        response.put("status", updated ? "success" : "error");
+        response.put("message", updated ? "取消订阅成功" : "不支持的订阅类型: " + subscribeType);
 
-        session.getAsyncRemote().sendText(response.toJSONString());
+        sendToSession(session, response.toJSONString());
 
         log.info("用户取消订阅成功，userId: {}, subscribeType: {}", userId, subscribeType);
     }
@@ -202,7 +215,7 @@ public class AccessMonitorWebSocketEndpoint {
         response.put("status", "success");
         response.put("data", new JSONObject()); // 实际设备数据
 
-        session.getAsyncRemote().sendText(response.toJSONString());
+        sendToSession(session, response.toJSONString());
     }
 
     /**
@@ -214,7 +227,7 @@ public class AccessMonitorWebSocketEndpoint {
             JSONObject statsMessage = new JSONObject();
             statsMessage.put("type", "stats");
             statsMessage.put("data", sessionManager.getSessionStats());
-            session.getAsyncRemote().sendText(statsMessage.toJSONString());
+            sendToSession(session, statsMessage.toJSONString());
 
             // 推送设备状态概览
             JSONObject deviceOverviewMessage = new JSONObject();
@@ -224,7 +237,7 @@ public class AccessMonitorWebSocketEndpoint {
             deviceData.put("onlineDevices", 0);
             deviceData.put("offlineDevices", 0);
             deviceOverviewMessage.put("data", deviceData);
-            session.getAsyncRemote().sendText(deviceOverviewMessage.toJSONString());
+            sendToSession(session, deviceOverviewMessage.toJSONString());
 
             log.debug("初始数据推送完成，userId: {}, userType: {}", userId, userType);
 
@@ -244,13 +257,28 @@ public class AccessMonitorWebSocketEndpoint {
             errorResponse.put("message", errorMessage);
             errorResponse.put("timestamp", LocalDateTime.now().toString());
 
-            session.getAsyncRemote().sendText(errorResponse.toJSONString());
+            sendToSession(session, errorResponse.toJSONString());
 
         } catch (Exception e) {
             log.error("发送错误消息失败", e);
         }
     }
 
+    /**
+     * 发送应答，经会话发送队列与推送消息统一合批，不直接调用容器发送
+     */
+    private void sendToSession(Session session, String message) {
+        sessionManager.sendToSession(resolveSessionId(session), message);
+    }
+
+    /**
+     * 获取会话管理器中的会话ID
+     */
+    private String resolveSessionId(Session session) {
+        Object sessionId = session.getUserProperties().get(SESSION_ID_PROPERTY);
+        return sessionId != null ? sessionId.toString() : session.getId();
+    }
+
     /**
      * 构建客户端信息
      */
@@ -266,6 +294,13 @@ public class AccessMonitorWebSocketEndpoint {
      * 推送门禁事件
      */
     public static void pushAccessEvent(String eventType, Object eventData) {
+        pushAccessEvent(eventType, eventData, null, null);
+    }
+
+    /**
+     * 推送门禁事件，按区域/设备投递给订阅的会话
+     */
+    public static void pushAccessEvent(String eventType, Object eventData, String area, String deviceId) {
         try {
             if (sessionManager != null) {
                 JSONObject message = new JSONObject();
@@ -274,7 +309,11 @@ public class AccessMonitorWebSocketEndpoint {
                 message.put("timestamp", LocalDateTime.now().toString());
                 message.put("data", eventData);
 
-                sessionManager.broadcast(message.toJSONString());
+                sessionManager.publish(FanoutMessage.builder()
+                        .payload(message.toJSONString())
+                        .area(area)
+                        .deviceId(deviceId)
+                        .build());
 
                 log.debug("门禁事件已推送，eventType: {}", eventType);
             }
@@ -296,7 +335,12 @@ public class AccessMonitorWebSocketEndpoint {
                 message.put("timestamp", LocalDateTime.now().toString());
                 message.put("details", details);
 
-                sessionManager.broadcast(message.toJSONString());
+                // 同一设备只保留最新状态
+                sessionManager.publish(FanoutMessage.builder()
+                        .payload(message.toJSONString())
+                        .deviceId(deviceId)
+                        .mergeKey("device_status:" + deviceId)
+                        .build());
 
                 log.debug("设备状态变化已推送，deviceId: {}, status: {}", deviceId, status);
             }
@@ -319,7 +363,10 @@ public class AccessMonitorWebSocketEndpoint {
                 alertMessage.put("timestamp", LocalDateTime.now().toString());
                 alertMessage.put("details", details);
 
-                sessionManager.broadcast(alertMessage.toJSONString());
+                sessionManager.publish(FanoutMessage.builder()
+                        .payload(alertMessage.toJSONString())
+                        .critical(true)
+                        .build());
 
                 log.info("系统告警已推送，alertLevel: {}, title: {}", alertLevel, title);
             }
@@ -339,7 +386,10 @@ public class AccessMonitorWebSocketEndpoint {
                 message.put("timestamp", LocalDateTime.now().toString());
                 message.put("data", stats);
 
-                sessionManager.broadcast(message.toJSONString());
+                sessionManager.publish(FanoutMessage.builder()
+                        .payload(message.toJSONString())
+                        .mergeKey("real_time_stats")
+                        .build());
 
                 log.debug("实时统计数据已推送");
             }
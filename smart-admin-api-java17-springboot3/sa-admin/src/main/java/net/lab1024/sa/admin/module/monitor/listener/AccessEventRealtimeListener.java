@@ -19,7 +19,12 @@ import com.alibaba.fastjson2.JSONObject;
 import jakarta.annotation.Resource;
 import net.lab1024.sa.admin.module.access.dao.AccessDeviceDao;
 import net.lab1024.sa.admin.module.access.dao.AccessEventDao;
+import net.lab1024.sa.admin.module.monitor.cep.AccessEventCepEngine;
+import net.lab1024.sa.admin.module.monitor.cep.CepEvent;
+import net.lab1024.sa.admin.module.monitor.cep.CepMatch;
+import net.lab1024.sa.admin.module.monitor.cep.CepRule;
 import net.lab1024.sa.admin.module.monitor.endpoint.AccessMonitorWebSocketEndpoint;
+import net.lab1024.sa.admin.module.system.device.heartbeat.DeviceOnlineStatusEvent;
 import net.lab1024.sa.base.common.cache.RedisUtil;
 
 /**
@@ -48,6 +53,9 @@ public class AccessEventRealtimeListener {
     @Resource
     private RedisUtil redisUtil;
 
+    @Resource
+    private AccessEventCepEngine cepEngine;
+
     // 设备状态缓存
     private final Map<String, DeviceStatus> deviceStatusCache = new ConcurrentHashMap<>();
 
@@ -57,6 +65,9 @@ public class AccessEventRealtimeListener {
     // 告警规则缓存
     private final List<AlertRule> alertRules = new ArrayList<>();
 
+    // 事件触发类告警规则，按规则名索引，由复杂事件引擎评估
+    private final Map<String, AlertRule> eventAlertRules = new ConcurrentHashMap<>();
+
     // 定时任务执行器
     private ScheduledExecutorService scheduledExecutor;
 
@@ -117,10 +128,11 @@ public class AccessEventRealtimeListener {
      */
     public static class EventStatistics {
         private String date;
-        private Map<String, Integer> eventTypeCount = new HashMap<>();
-        private Map<String, Integer> deviceEventCount = new HashMap<>();
-        private Map<String, Integer> areaEventCount = new HashMap<>();
-        private Map<String, Integer> statusCount = new HashMap<>();
+        // 多个@Async线程并发累加，使用ConcurrentHashMap.merge保证原子性
+        private Map<String, Integer> eventTypeCount = new ConcurrentHashMap<>();
+        private Map<String, Integer> deviceEventCount = new ConcurrentHashMap<>();
+        private Map<String, Integer> areaEventCount = new ConcurrentHashMap<>();
+        private Map<String, Integer> statusCount = new ConcurrentHashMap<>();
 
         public EventStatistics(String date) {
             this.date = date;
@@ -156,15 +168,23 @@ public class AccessEventRealtimeListener {
         }
 
         public void incrementEventType(String eventType) {
-            eventTypeCount.put(eventType, eventTypeCount.getOrDefault(eventType, 0) + 1);
+            eventTypeCount.merge(keyOf(eventType), 1, Integer::sum);
         }
 
         public void incrementDeviceEvent(String deviceId) {
-            deviceEventCount.put(deviceId, deviceEventCount.getOrDefault(deviceId, 0) + 1);
+            deviceEventCount.merge(keyOf(deviceId), 1, Integer::sum);
+        }
+
+        public void incrementAreaEvent(String areaName) {
+            areaEventCount.merge(keyOf(areaName), 1, Integer::sum);
         }
 
         public void incrementStatusCount(String status) {
-            statusCount.put(status, statusCount.getOrDefault(status, 0) + 1);
+            statusCount.merge(keyOf(status), 1, Integer::sum);
+        }
+
+        private static String keyOf(String value) {
+            return value != null ? value : "unknown";
         }
 
         /**
@@ -259,10 +279,39 @@ public class AccessEventRealtimeListener {
         alertRules.add(new AlertRule("高失败率告警", "high_failure_rate", "failure_rate>50", "critical"));
         alertRules.add(new AlertRule("异常访问告警", "abnormal_access", "time_range=00:00-06:00", "warning"));
         alertRules.add(new AlertRule("黑名单访问告警", "blacklist_access", "blacklist=true", "critical"));
+        alertRules.add(new AlertRule("同门连续验证失败告警", "access_event",
+                "verify_result=failed && count>=5 within 60s by device", "warning"));
+        alertRules.add(new AlertRule("尾随通行告警", "access_event",
+                "verify_result=success && direction=in && count>=2 within 2s by device", "warning"));
+        alertRules.add(new AlertRule("反潜回告警", "access_event",
+                "verify_result=success && repeat(direction) within 12h by user,area", "critical"));
+
+        compileEventAlertRules();
 
         log.info("告警规则初始化完成，规则数量: {}", alertRules.size());
     }
 
+    /**
+     * 编译事件触发类告警规则并注册到复杂事件引擎
+     */
+    private void compileEventAlertRules() {
+        List<CepRule> compiled = new ArrayList<>();
+        eventAlertRules.clear();
+        for (AlertRule rule : alertRules) {
+            if (!"access_event".equals(rule.getTriggerType())) {
+                continue;
+            }
+            try {
+                compiled.add(CepRule.compile(rule.getRuleName(), rule.getCondition()));
+                eventAlertRules.put(rule.getRuleName(), rule);
+            } catch (IllegalArgumentException e) {
+                log.error("告警规则条件编译失败，已忽略: rule={}, condition={}, error={}",
+                        rule.getRuleName(), rule.getCondition(), e.getMessage());
+            }
+        }
+        cepEngine.register(compiled);
+    }
+
     /**
      * 启动定时任务
      */
@@ -276,6 +325,10 @@ public class AccessEventRealtimeListener {
         // 每10分钟检查告警条件
         scheduledExecutor.scheduleAtFixedRate(this::checkAlertConditions, 10, 10, TimeUnit.MINUTES);
 
+        // 每30秒回收复杂事件引擎中空闲的窗口状态
+        scheduledExecutor.scheduleAtFixedRate(
+                () -> cepEngine.evictExpired(System.currentTimeMillis()), 30, 30, TimeUnit.SECONDS);
+
         // 每小时清理过期缓存
         scheduledExecutor.scheduleAtFixedRate(this::cleanExpiredCache, 1, 1, TimeUnit.HOURS);
 
@@ -317,6 +370,20 @@ public class AccessEventRealtimeListener {
         }
     }
 
+    /**
+     * 监听设备心跳在线状态变化（心跳超时离线、恢复在线），转为设备状态变化推送
+     */
+    @EventListener
+    @Async
+    public void handleDeviceOnlineStatus(DeviceOnlineStatusEvent event) {
+        Map<String, Object> details = new HashMap<>();
+        details.put("deviceType", event.getDeviceType());
+        details.put("lastHeartbeatTime", event.getLastHeartbeatTime());
+        details.put("source", "heartbeat");
+        handleDeviceStatusChange(new DeviceStatusChangeEvent(String.valueOf(event.getDeviceId()),
+                event.getDeviceName(), event.isOnline() ? "online" : "offline", details));
+    }
+
     /**
      * 监听门禁事件
      */
@@ -332,8 +399,8 @@ public class AccessEventRealtimeListener {
             // 推送实时事件
             pushAccessEvent(event);
 
-            // 检查告警条件
-            checkAlertCondition(event.getDeviceId(), "access_event", event);
+            // 复杂事件规则评估
+            evaluateEventAlertRules(event);
 
             // 特殊事件处理
             if ("blacklist".equals(event.getVerifyResult())) {
@@ -486,7 +553,31 @@ public class AccessEventRealtimeListener {
         eventData.put("direction", event.getDirection());
         eventData.put("eventTime", event.getEventTime().toString());
 
-        AccessMonitorWebSocketEndpoint.pushAccessEvent("access_event", eventData);
+        AccessMonitorWebSocketEndpoint.pushAccessEvent("access_event", eventData, event.getAreaName(),
+                event.getDeviceId());
+    }
+
+    /**
+     * 复杂事件规则评估，命中即告警
+     */
+    private void evaluateEventAlertRules(AccessEventMessage event) {
+        CepEvent cepEvent = new CepEvent(event.getDeviceId(), event.getAreaName(), event.getUserId(),
+                event.getVerifyResult(), event.getVerifyMethod(), event.getDirection(), event.getEventTime());
+        for (CepMatch match : cepEngine.onEvent(cepEvent)) {
+            AlertRule rule = eventAlertRules.get(match.getRuleId());
+            if (rule == null || !rule.isEnabled()) {
+                continue;
+            }
+            Map<String, Object> eventData = new HashMap<>();
+            eventData.put("groupKey", match.getGroupKey());
+            eventData.put("count", match.getCount());
+            eventData.put("eventId", event.getEventId());
+            eventData.put("deviceName", event.getDeviceName());
+            eventData.put("areaName", event.getAreaName());
+            eventData.put("userId", event.getUserId());
+            eventData.put("userName", event.getUserName());
+            triggerAlert(rule, event.getDeviceId(), eventData);
+        }
     }
 
     /**
@@ -498,6 +589,7 @@ public class AccessEventRealtimeListener {
 
         stats.incrementEventType(event.getVerifyMethod());
         stats.incrementDeviceEvent(event.getDeviceId());
+        stats.incrementAreaEvent(event.getAreaName());
         stats.incrementStatusCount(event.getVerifyResult());
 
         // 存储到Redis
@@ -601,6 +693,9 @@ public class AccessEventRealtimeListener {
                 case "blacklist_access":
                     // 黑名单访问告警已在事件处理中实时触发，这里不需要定时检查
                     break;
+                case "access_event":
+                    // 事件触发类规则由复杂事件引擎逐事件评估
+                    break;
                 default:
                     log.warn("未知的告警规则类型: triggerType={}", triggerType);
             }
@@ -845,6 +940,7 @@ public class AccessEventRealtimeListener {
             statistics.put("todayDeviceEvents", todayStats.getDeviceEventCount());
         }
 
+        statistics.put("cep", cepEngine.getStatistics());
         statistics.put("timestamp", LocalDateTime.now().toString());
 
         return statistics;
@@ -870,6 +966,8 @@ public class AccessEventRealtimeListener {
         deviceStatusCache.clear();
         eventStatisticsCache.clear();
         alertRules.clear();
+        eventAlertRules.clear();
+        cepEngine.register(new ArrayList<>());
 
         log.info("门禁事件实时监听器已销毁");
     }
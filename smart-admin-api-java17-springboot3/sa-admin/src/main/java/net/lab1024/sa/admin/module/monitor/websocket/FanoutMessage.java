@@ -0,0 +1,51 @@
+package net.lab1024.sa.admin.module.monitor.websocket;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * 待分发的WebSocket消息
+ * <p>
+ * 消息体在发布时序列化一次，所有会话共享同一份文本
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Getter
+@Builder
+public class FanoutMessage {
+
+    /**
+     * 已序列化的JSON消息体
+     */
+    private final String payload;
+
+    /**
+     * 所属区域，用于按区域订阅过滤；为空表示不按区域过滤
+     */
+    private final String area;
+
+    /**
+     * 所属设备，用于按设备订阅过滤；为空表示不按设备过滤
+     */
+    private final String deviceId;
+
+    /**
+     * 仅发送给该用户类型的会话；为空表示全部
+     */
+    private final String userType;
+
+    /**
+     * 合并键：队列中已有相同合并键的消息时原位替换为最新内容（如设备状态、实时统计）
+     */
+    private final String mergeKey;
+
+    /**
+     * 关键消息（告警、点对点回复）不因队列满被丢弃
+     */
+    private final boolean critical;
+
+    public static FanoutMessage of(String payload) {
+        return FanoutMessage.builder().payload(payload).build();
+    }
+}
@@ -0,0 +1,177 @@
+package net.lab1024.sa.admin.module.monitor.websocket;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个WebSocket会话的待发送队列
+ * <p>
+ * - 有界队列，满时丢弃最早的非关键消息并计数，下一批次通过 dropped 字段告知客户端
+ * - 队列中全是关键消息时不再入队，标记为溢出，由会话管理器关闭该慢客户端，队列不会超出容量
+ * - 带合并键的消息在队列中原位替换，只保留最新内容
+ * - 每个会话同一时刻最多一个在途发送，慢客户端只会积压自己的队列，不占用容器发送缓冲
+ * <p>
+ * 批次帧格式：单条且无丢弃时直接发送原消息，否则为
+ * {@code {"type":"batch","count":N,"dropped":D,"messages":[...]}}
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class SessionOutbox {
+
+    private final int capacity;
+
+    private final ArrayDeque<Slot> queue = new ArrayDeque<>();
+
+    private final Map<String, Slot> mergeIndex = new HashMap<>();
+
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+
+    private volatile boolean overflowed;
+
+    private int pendingDropped;
+
+    private long totalDropped;
+
+    private long totalMerged;
+
+    public SessionOutbox(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * 入队
+     *
+     * @return 新消息被丢弃时返回false；关键消息被丢弃时同时标记溢出
+     */
+    public synchronized boolean offer(FanoutMessage message) {
+        String mergeKey = message.getMergeKey();
+        if (mergeKey != null) {
+            Slot existing = mergeIndex.get(mergeKey);
+            if (existing != null) {
+                existing.message = message;
+                totalMerged++;
+                return true;
+            }
+        }
+        if (queue.size() >= capacity && !evictOldest()) {
+            dropped();
+            if (message.isCritical()) {
+                overflowed = true;
+            }
+            return false;
+        }
+        Slot slot = new Slot(message);
+        queue.addLast(slot);
+        if (mergeKey != null) {
+            mergeIndex.put(mergeKey, slot);
+        }
+        return true;
+    }
+
+    /**
+     * 丢弃最早的非关键消息
+     *
+     * @return 没有可丢弃的消息时返回false
+     */
+    private boolean evictOldest() {
+        Iterator<Slot> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            Slot slot = iterator.next();
+            if (!slot.message.isCritical()) {
+                iterator.remove();
+                if (slot.message.getMergeKey() != null) {
+                    mergeIndex.remove(slot.message.getMergeKey());
+                }
+                dropped();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dropped() {
+        pendingDropped++;
+        totalDropped++;
+    }
+
+    /**
+     * 取出至多 maxMessages 条消息组成一帧，队列为空且无待通知的丢弃时返回null
+     */
+    public synchronized String drainBatch(int maxMessages) {
+        if (queue.isEmpty() && pendingDropped == 0) {
+            return null;
+        }
+        int dropped = pendingDropped;
+        pendingDropped = 0;
+        if (queue.size() == 1 && dropped == 0) {
+            return take().getPayload();
+        }
+        int count = Math.min(queue.size(), Math.max(1, maxMessages));
+        StringBuilder frame = new StringBuilder(64 + count * 256);
+        frame.append("{\"type\":\"batch\",\"count\":").append(count)
+                .append(",\"dropped\":").append(dropped)
+                .append(",\"messages\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                frame.append(',');
+            }
+            frame.append(take().getPayload());
+        }
+        return frame.append("]}").toString();
+    }
+
+    private FanoutMessage take() {
+        Slot slot = queue.pollFirst();
+        if (slot.message.getMergeKey() != null) {
+            mergeIndex.remove(slot.message.getMergeKey());
+        }
+        return slot.message;
+    }
+
+    /**
+     * 占用发送权，已有在途发送时返回false
+     */
+    public boolean tryBeginSend() {
+        return sending.compareAndSet(false, true);
+    }
+
+    public void endSend() {
+        sending.set(false);
+    }
+
+    /**
+     * 是否有关键消息因队列已满被丢弃，客户端消费过慢，应关闭连接
+     */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    public synchronized boolean hasPending() {
+        return !queue.isEmpty() || pendingDropped > 0;
+    }
+
+    public synchronized long getTotalDropped() {
+        return totalDropped;
+    }
+
+    public synchronized long getTotalMerged() {
+        return totalMerged;
+    }
+
+    private static final class Slot {
+
+        FanoutMessage message;
+
+        Slot(FanoutMessage message) {
+            this.message = message;
+        }
+    }
+}
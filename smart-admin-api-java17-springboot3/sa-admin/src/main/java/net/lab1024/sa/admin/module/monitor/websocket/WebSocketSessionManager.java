@@ -1,9 +1,12 @@
 package net.lab1024.sa.admin.module.monitor.websocket;
 
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import jakarta.websocket.CloseReason;
 import jakarta.websocket.Session;
 import net.lab1024.sa.base.common.cache.RedisUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -13,6 +16,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * WebSocket会话管理器
@@ -22,6 +26,14 @@ import java.util.concurrent.TimeUnit;
  * - 提供连接状态监控
  * - 实现心跳检测机制
  * - 支持消息广播和单发
+ * <p>
+ * 推送消息统一进入各会话的 {@link SessionOutbox}，由分发线程按 batch-window-ms 合批发送：
+ * 消息只序列化一次，每个会话最多一个在途发送，慢客户端只积压并丢弃自己的消息；
+ * 队列满到连关键消息都放不下时关闭该连接，由客户端重连后重新拉取初始数据。
+ * 端点对单个会话的应答也经 {@link #sendToSession} 进入队列，不直接调用容器发送。
+ * 会话可按区域/设备订阅，只接收所展示范围内的事件
+ * <p>
+ * 配置项（monitor.websocket.*）：batch-window-ms、queue-capacity、max-batch-size
  *
  * @author SmartAdmin Team
  * @since 2025-11-16
@@ -43,6 +55,24 @@ public class WebSocketSessionManager {
     // 心跳检测任务
     private ScheduledExecutorService heartbeatExecutor;
 
+    // 合批分发任务
+    private ScheduledExecutorService fanoutExecutor;
+
+    @Value("${monitor.websocket.batch-window-ms:50}")
+    private long batchWindowMs = 50;
+
+    @Value("${monitor.websocket.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    @Value("${monitor.websocket.max-batch-size:200}")
+    private int maxBatchSize = 200;
+
+    // 分发统计
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong sendFailureCount = new AtomicLong();
+    private final AtomicLong slowConsumerCloseCount = new AtomicLong();
+
     @Resource
     private RedisUtil redisUtil;
 
@@ -61,8 +91,13 @@ public class WebSocketSessionManager {
         private final LocalDateTime connectTime;
         private LocalDateTime lastHeartbeatTime;
         private final String clientInfo;
+        private final SessionOutbox outbox;
+        // 订阅范围，为null表示不过滤
+        private volatile Set<String> subscribedAreas;
+        private volatile Set<String> subscribedDevices;
 
-        public WebSocketSession(String sessionId, Session session, String userId, String userType, String clientInfo) {
+        public WebSocketSession(String sessionId, Session session, String userId, String userType, String clientInfo,
+                                int queueCapacity) {
             this.sessionId = sessionId;
             this.session = session;
             this.userId = userId;
@@ -70,6 +105,7 @@ public class WebSocketSessionManager {
             this.clientInfo = clientInfo;
             this.connectTime = LocalDateTime.now();
             this.lastHeartbeatTime = LocalDateTime.now();
+            this.outbox = new SessionOutbox(queueCapacity);
         }
 
         // Getters
@@ -80,6 +116,24 @@ public class WebSocketSessionManager {
         public LocalDateTime getConnectTime() { return connectTime; }
         public LocalDateTime getLastHeartbeatTime() { return lastHeartbeatTime; }
         public String getClientInfo() { return clientInfo; }
+        public SessionOutbox getOutbox() { return outbox; }
+        public Set<String> getSubscribedAreas() { return subscribedAreas; }
+        public Set<String> getSubscribedDevices() { return subscribedDevices; }
+
+        /**
+         * 消息是否在本会话的用户类型与订阅范围内
+         */
+        public boolean accepts(FanoutMessage message) {
+            if (message.getUserType() != null && !message.getUserType().equals(userType)) {
+                return false;
+            }
+            Set<String> areas = subscribedAreas;
+            if (areas != null && message.getArea() != null && !areas.contains(message.getArea())) {
+                return false;
+            }
+            Set<String> devices = subscribedDevices;
+            return devices == null || message.getDeviceId() == null || devices.contains(message.getDeviceId());
+        }
 
         public void updateHeartbeat() {
             this.lastHeartbeatTime = LocalDateTime.now();
@@ -94,6 +148,23 @@ public class WebSocketSessionManager {
         }
     }
 
+    /**
+     * 启动合批分发任务
+     */
+    @PostConstruct
+    public synchronized void startFanoutTask() {
+        if (fanoutExecutor != null) {
+            return;
+        }
+        fanoutExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "websocket-fanout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        fanoutExecutor.scheduleWithFixedDelay(this::flush, batchWindowMs, batchWindowMs, TimeUnit.MILLISECONDS);
+        log.info("WebSocket合批分发任务已启动，batchWindowMs: {}, queueCapacity: {}", batchWindowMs, queueCapacity);
+    }
+
     /**
      * 启动心跳检测任务
      */
@@ -117,7 +188,8 @@ public class WebSocketSessionManager {
      * 添加会话
      */
     public void addSession(String sessionId, Session session, String userId, String userType, String clientInfo) {
-        WebSocketSession webSocketSession = new WebSocketSession(sessionId, session, userId, userType, clientInfo);
+        WebSocketSession webSocketSession = new WebSocketSession(sessionId, session, userId, userType, clientInfo,
+                queueCapacity);
 
         // 存储到内存
         activeSessions.put(sessionId, webSocketSession);
@@ -221,52 +293,147 @@ public class WebSocketSessionManager {
      * 广播消息给指定用户类型的会话
      */
     public void broadcast(String message, String userType) {
-        List<String> failedSessionIds = new ArrayList<>();
+        publish(FanoutMessage.builder().payload(message).userType(userType).build());
+    }
 
-        for (Map.Entry<String, WebSocketSession> entry : activeSessions.entrySet()) {
-            WebSocketSession session = entry.getValue();
+    /**
+     * 发布消息：按用户类型与订阅范围投递到各会话队列，由分发线程合批发送
+     */
+    public void publish(FanoutMessage message) {
+        publishedCount.incrementAndGet();
+        for (WebSocketSession session : activeSessions.values()) {
+            if (session.accepts(message)) {
+                session.getOutbox().offer(message);
+            }
+        }
+    }
+
+    /**
+     * 发送消息给指定用户
+     */
+    public boolean sendToUser(String userId, String message) {
+        WebSocketSession session = getSessionByUserId(userId);
+        if (session != null && session.isActive()) {
+            boolean queued = session.getOutbox().offer(FanoutMessage.builder().payload(message).critical(true).build());
+            log.debug("WebSocket消息已发送给用户，userId: {}, queued: {}", userId, queued);
+            return queued;
+        }
+        return false;
+    }
+
+    /**
+     * 设置会话订阅范围
+     *
+     * @param subscribeType area 或 device
+     * @param targets       订阅目标，为空表示取消该维度的过滤（接收全部）
+     */
+    public boolean subscribe(String sessionId, String subscribeType, Collection<String> targets) {
+        WebSocketSession session = activeSessions.get(sessionId);
+        if (session == null) {
+            return false;
+        }
+        Set<String> filter = targets == null || targets.isEmpty() ? null : Set.copyOf(targets);
+        if ("area".equals(subscribeType)) {
+            session.subscribedAreas = filter;
+        } else if ("device".equals(subscribeType)) {
+            session.subscribedDevices = filter;
+        } else {
+            return false;
+        }
+        log.info("WebSocket会话订阅已更新，sessionId: {}, subscribeType: {}, targets: {}", sessionId, subscribeType, filter);
+        return true;
+    }
+
+    /**
+     * 取消会话订阅中的部分目标，targets为空时恢复接收全部
+     */
+    public boolean unsubscribe(String sessionId, String subscribeType, Collection<String> targets) {
+        WebSocketSession session = activeSessions.get(sessionId);
+        if (session == null) {
+            return false;
+        }
+        Set<String> current = "area".equals(subscribeType) ? session.subscribedAreas
+                : "device".equals(subscribeType) ? session.subscribedDevices : null;
+        Set<String> remaining = null;
+        if (current != null && targets != null && !targets.isEmpty()) {
+            remaining = new HashSet<>(current);
+            remaining.removeAll(targets);
+        }
+        // 全部取消时恢复为不过滤
+        return subscribe(sessionId, subscribeType, remaining);
+    }
 
-            // 检查用户类型过滤
-            if (userType != null && !userType.equals(session.getUserType())) {
+    /**
+     * 合批发送各会话队列中的消息
+     */
+    void flush() {
+        List<String> failedSessionIds = null;
+        for (WebSocketSession session : activeSessions.values()) {
+            SessionOutbox outbox = session.getOutbox();
+            if (outbox.isOverflowed()) {
+                closeSlowConsumer(session);
+                failedSessionIds = addFailed(failedSessionIds, session.getSessionId());
+                continue;
+            }
+            if (!outbox.hasPending()) {
+                continue;
+            }
+            if (!session.isActive()) {
+                failedSessionIds = addFailed(failedSessionIds, session.getSessionId());
+                continue;
+            }
+            if (!outbox.tryBeginSend()) {
+                // 上一批尚未发送完成，本轮跳过，消息继续在队列中合并或丢弃
+                continue;
+            }
+            String frame = outbox.drainBatch(maxBatchSize);
+            if (frame == null) {
+                outbox.endSend();
                 continue;
             }
-
             try {
-                if (session.isActive()) {
-                    session.getSession().getAsyncRemote().sendText(message);
-                } else {
-                    failedSessionIds.add(entry.getKey());
-                }
+                session.getSession().getAsyncRemote().sendText(frame, result -> {
+                    outbox.endSend();
+                    if (!result.isOK()) {
+                        sendFailureCount.incrementAndGet();
+                        log.warn("WebSocket批量发送失败，sessionId: {}", session.getSessionId(), result.getException());
+                    }
+                });
+                batchCount.incrementAndGet();
             } catch (Exception e) {
-                log.error("发送WebSocket消息失败，sessionId: {}", entry.getKey(), e);
-                failedSessionIds.add(entry.getKey());
+                outbox.endSend();
+                sendFailureCount.incrementAndGet();
+                log.error("发送WebSocket消息失败，sessionId: {}", session.getSessionId(), e);
+                failedSessionIds = addFailed(failedSessionIds, session.getSessionId());
             }
         }
 
         // 清理失败的会话
-        for (String sessionId : failedSessionIds) {
-            removeSession(sessionId);
+        if (failedSessionIds != null) {
+            failedSessionIds.forEach(this::removeSession);
         }
-
-        log.info("WebSocket广播消息完成，消息长度: {}, 失败数量: {}", message.length(), failedSessionIds.size());
     }
 
     /**
-     * 发送消息给指定用户
+     * 关闭发送队列溢出的慢客户端
      */
-    public boolean sendToUser(String userId, String message) {
-        WebSocketSession session = getSessionByUserId(userId);
-        if (session != null && session.isActive()) {
-            try {
-                session.getSession().getAsyncRemote().sendText(message);
-                log.debug("WebSocket消息已发送给用户，userId: {}", userId);
-                return true;
-            } catch (Exception e) {
-                log.error("发送WebSocket消息给用户失败，userId: {}", userId, e);
-                return false;
+    private void closeSlowConsumer(WebSocketSession session) {
+        slowConsumerCloseCount.incrementAndGet();
+        log.warn("WebSocket客户端消费过慢，发送队列已满，关闭连接，sessionId: {}, userId: {}",
+                session.getSessionId(), session.getUserId());
+        try {
+            if (session.isActive()) {
+                session.getSession().close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "发送队列已满"));
             }
+        } catch (IOException e) {
+            log.warn("关闭WebSocket连接失败，sessionId: {}", session.getSessionId(), e);
         }
-        return false;
+    }
+
+    private static List<String> addFailed(List<String> failedSessionIds, String sessionId) {
+        List<String> result = failedSessionIds != null ? failedSessionIds : new ArrayList<>();
+        result.add(sessionId);
+        return result;
     }
 
     /**
@@ -345,6 +512,23 @@ public class WebSocketSessionManager {
         // 实时统计
         stats.put("realTimeTotalSessions", activeSessions.size());
         stats.put("realTimeTotalUsers", userSessions.size());
+
+        // 分发统计
+        long queued = 0;
+        long dropped = 0;
+        long merged = 0;
+        for (WebSocketSession session : activeSessions.values()) {
+            queued += session.getOutbox().size();
+            dropped += session.getOutbox().getTotalDropped();
+            merged += session.getOutbox().getTotalMerged();
+        }
+        stats.put("publishedMessages", publishedCount.get());
+        stats.put("sentBatches", batchCount.get());
+        stats.put("sendFailures", sendFailureCount.get());
+        stats.put("slowConsumerCloses", slowConsumerCloseCount.get());
+        stats.put("queuedMessages", queued);
+        stats.put("droppedMessages", dropped);
+        stats.put("mergedMessages", merged);
         stats.put("timestamp", LocalDateTime.now().toString());
 
         return stats;
@@ -376,21 +560,18 @@ public class WebSocketSessionManager {
      *
      * @param sessionId 会话ID
      * @param message   消息内容
+     * @return 是否已入队；队列已满时返回false，该会话会在下一轮分发时被关闭
      */
-    public void sendToSession(String sessionId, String message) {
+    public boolean sendToSession(String sessionId, String message) {
         WebSocketSession webSocketSession = activeSessions.get(sessionId);
         if (webSocketSession != null && webSocketSession.isActive()) {
-            try {
-                webSocketSession.getSession().getAsyncRemote().sendText(message);
-                log.debug("消息已发送到会话: {}", sessionId);
-            } catch (Exception e) {
-                log.error("发送消息到会话失败，sessionId: {}, message: {}", sessionId, message, e);
-                // 发送失败，移除会话
-                removeSession(sessionId);
-            }
-        } else {
-            log.warn("会话不存在或已断开: {}", sessionId);
+            boolean queued = webSocketSession.getOutbox().offer(
+                    FanoutMessage.builder().payload(message).critical(true).build());
+            log.debug("消息已发送到会话: {}, queued: {}", sessionId, queued);
+            return queued;
         }
+        log.warn("会话不存在或已断开: {}", sessionId);
+        return false;
     }
 
     /**
@@ -404,6 +585,14 @@ public class WebSocketSessionManager {
             removeSession(sessionId);
         }
 
+        // 停止合批分发任务
+        synchronized (this) {
+            if (fanoutExecutor != null) {
+                fanoutExecutor.shutdownNow();
+                fanoutExecutor = null;
+            }
+        }
+
         // 停止心跳检测任务
         if (heartbeatExecutor != null) {
             heartbeatExecutor.shutdown();
@@ -32,6 +32,7 @@ import net.lab1024.sa.admin.module.oa.document.domain.form.DocumentSearchForm;
 import net.lab1024.sa.admin.module.oa.document.domain.form.DocumentUpdateForm;
 import net.lab1024.sa.admin.module.oa.document.domain.form.DocumentVersionCreateForm;
 import net.lab1024.sa.admin.module.oa.document.domain.vo.DocumentPermissionVO;
+import net.lab1024.sa.admin.module.oa.document.domain.vo.DocumentSearchVO;
 import net.lab1024.sa.admin.module.oa.document.domain.vo.DocumentVO;
 import net.lab1024.sa.admin.module.oa.document.domain.vo.DocumentVersionVO;
 import net.lab1024.sa.admin.module.oa.document.service.DocumentService;
@@ -419,6 +420,33 @@ public class DocumentController {
         return ResponseDTO.ok(voPage);
     }
 
+    @Operation(summary = "全文检索文档（相关度排序、高亮、标签分面）")
+    @PostMapping("/search/fulltext")
+    @SaCheckPermission("oa:document:search")
+    public ResponseDTO<DocumentSearchVO> fullTextSearch(
+            @Valid @RequestBody DocumentSearchForm searchForm) {
+        PageParam page = new PageParam();
+        page.setPageNum(searchForm.getPageNum().longValue());
+        page.setPageSize(searchForm.getPageSize().longValue());
+        return documentService.fullTextSearch(searchForm.getKeyword(), searchForm.getCategoryId(),
+                searchForm.getDocumentType(), searchForm.getTags(), searchForm.getStartDate(),
+                searchForm.getEndDate(), page);
+    }
+
+    @Operation(summary = "重建文档全文索引")
+    @PostMapping("/search/reindex")
+    @SaCheckPermission("oa:document:reindex")
+    public ResponseDTO<String> rebuildSearchIndex() {
+        return documentService.rebuildSearchIndex();
+    }
+
+    @Operation(summary = "历史版本转换为差量存储")
+    @PostMapping("/versions/compact")
+    @SaCheckPermission("oa:document:version:compact")
+    public ResponseDTO<String> compactDocumentVersions() {
+        return documentService.compactDocumentVersions();
+    }
+
     @Operation(summary = "获取文档统计")
     @GetMapping("/statistics")
     @SaCheckPermission("oa:document:statistics")
@@ -65,10 +65,25 @@ public class DocumentVersionEntity extends BaseEntity {
     private LocalDateTime createdTime;
 
     /**
-     * 文档内容
+     * 文档内容（按 storageType 存储为明文、压缩全文或压缩差量，读取需经 DocumentVersionContentManager 还原）
      */
     private String content;
 
+    /**
+     * 内容存储类型 (FULL-关键帧压缩全文, DELTA-相对上一版本的压缩差量, 为空-历史明文)
+     */
+    private String storageType;
+
+    /**
+     * 所属关键帧的版本号
+     */
+    private Integer baseVersionNumber;
+
+    /**
+     * 内容原始大小(UTF-8字节)
+     */
+    private Long contentSize;
+
     /**
      * 文件路径
      */
@@ -0,0 +1,18 @@
+package net.lab1024.sa.admin.module.oa.document.domain.vo;
+
+import java.util.Map;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import net.lab1024.sa.base.common.domain.PageResult;
+
+@Data
+@Schema(description = "文档全文检索结果VO")
+public class DocumentSearchVO {
+
+    @Schema(description = "按相关度排序的分页结果")
+    private PageResult<DocumentVO> page;
+
+    @Schema(description = "标签分布：标签 → 命中文档数")
+    private Map<String, Integer> tagFacets;
+}
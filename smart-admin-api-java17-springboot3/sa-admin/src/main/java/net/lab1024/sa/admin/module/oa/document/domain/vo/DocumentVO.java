@@ -14,6 +14,12 @@ public class DocumentVO {
     private Long categoryId;
     private String author;
     private LocalDateTime createTime;
+
+    @Schema(description = "标题高亮片段（全文检索时返回）")
+    private String titleHighlight;
+
+    @Schema(description = "正文高亮片段（全文检索时返回）")
+    private String contentHighlight;
 }
 
 
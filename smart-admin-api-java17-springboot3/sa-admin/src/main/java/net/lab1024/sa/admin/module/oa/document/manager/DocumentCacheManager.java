@@ -132,6 +132,12 @@ public class DocumentCacheManager extends BaseCacheManager {
 
         return this.getCache(cacheKey, () -> {
             List<DocumentVersionEntity> versions = documentVersionDao.selectByDocumentId(documentId);
+            // 版本列表不返回内容，压缩/差量编码的内容需通过版本详情还原
+            versions.forEach(version -> {
+                if (version.getStorageType() != null) {
+                    version.setContent(null);
+                }
+            });
             log.debug("从数据库查询文档版本历史: documentId={}, versionCount={}", documentId, versions.size());
             return versions;
         });
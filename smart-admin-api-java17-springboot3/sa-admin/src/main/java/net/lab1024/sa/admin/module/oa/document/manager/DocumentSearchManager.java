@@ -0,0 +1,472 @@
+package net.lab1024.sa.admin.module.oa.document.manager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.FileSystemUtils;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.oa.document.dao.DocumentDao;
+import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentEntity;
+import net.lab1024.sa.admin.module.oa.document.search.DocumentIndex;
+import net.lab1024.sa.admin.module.oa.document.search.DocumentSearchQuery;
+import net.lab1024.sa.admin.module.oa.document.search.DocumentSearchResult;
+
+/**
+ * 文档全文检索管理器
+ * <p>
+ * - 索引是节点本地的（默认 ./data/document-index），只由本节点的事务提交回调增量写入，未提交的事务不会进入索引；
+ *   多实例部署时其他节点的新增、修改、删除不会实时进入本节点索引，要到下一次全量重建（每天 reindex-cron）才补齐，
+ *   期间本节点的关键字搜索可能搜不到其他节点新建的文档，已在其他节点删除的文档在回表时跳过
+ * - 写入每 refresh-interval-ms 对搜索可见，每 commit-interval-ms 落盘一次
+ * - 每次全量重建写入 index-dir 下新的代目录，写完并提交后原子切换，CURRENT 文件记录当前代；重建失败时删除新目录，
+ *   原索引不受影响，搜索也不会看到写了一半的索引。重建期间的增量变更照常写入原索引，并记下文档ID，切换前按数据库最新状态补写到新索引
+ * - 启动时没有可用的索引则异步全量重建，重建完成前 {@link #isReady()} 为false，调用方回退到数据库查询
+ * <p>
+ * 配置项（document.search.*）：enabled、index-dir、refresh-interval-ms、commit-interval-ms、reindex-batch-size、reindex-cron
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class DocumentSearchManager {
+
+    /**
+     * 记录当前代目录名的文件
+     */
+    private static final String CURRENT_FILE = "CURRENT";
+
+    private static final String GENERATION_PREFIX = "gen-";
+
+    @Resource
+    private DocumentDao documentDao;
+
+    @Value("${document.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${document.search.index-dir:./data/document-index}")
+    private String indexDir;
+
+    @Value("${document.search.refresh-interval-ms:1000}")
+    private long refreshIntervalMs;
+
+    @Value("${document.search.commit-interval-ms:30000}")
+    private long commitIntervalMs;
+
+    @Value("${document.search.reindex-batch-size:1000}")
+    private int reindexBatchSize;
+
+    private volatile boolean started;
+
+    private volatile DocumentIndex index;
+
+    private volatile String generation;
+
+    /**
+     * 重建期间发生增量变更的文档ID，非重建期间为null；与索引切换一起由 {@link #swapLock} 保护
+     */
+    private Set<Long> rebuildPending;
+
+    private final Object swapLock = new Object();
+
+    private final AtomicBoolean reindexing = new AtomicBoolean();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "document-index-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 重建单独一个线程，避免重建期间原索引停止刷新和落盘
+     */
+    private final ExecutorService reindexExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "document-index-rebuilder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("文档全文检索未启用，关键字搜索使用数据库查询");
+            return;
+        }
+        Path root = Path.of(indexDir);
+        try {
+            Files.createDirectories(root);
+            String current = readCurrentGeneration(root);
+            if (current != null) {
+                index = new DocumentIndex(FSDirectory.open(root.resolve(current)));
+                generation = current;
+            }
+        } catch (IOException | RuntimeException e) {
+            // 索引目录不可用（权限、被其他进程锁定）时不影响启动，关键字搜索回退到数据库
+            log.error("打开文档索引失败，关键字搜索回退到数据库查询: indexDir={}", indexDir, e);
+            return;
+        }
+        // 清理上次重建中断留下的代目录
+        deleteStaleGenerations(root, generation);
+        started = true;
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::commit, commitIntervalMs, commitIntervalMs, TimeUnit.MILLISECONDS);
+        DocumentIndex current = index;
+        if (current != null && current.numDocs() > 0) {
+            log.info("文档索引已加载: indexDir={}, generation={}, numDocs={}", indexDir, generation, current.numDocs());
+        } else {
+            reindexAsync();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+        reindexExecutor.shutdownNow();
+        DocumentIndex current;
+        synchronized (swapLock) {
+            started = false;
+            current = index;
+            index = null;
+        }
+        closeQuietly(current);
+    }
+
+    /**
+     * 索引是否可用于检索
+     */
+    public boolean isReady() {
+        return index != null;
+    }
+
+    // ========== 增量同步 ==========
+
+    /**
+     * 当前事务提交后写入索引；无事务时立即写入。已删除的文档从索引中移除
+     */
+    public void indexAfterCommit(DocumentEntity document) {
+        if (!started || document == null) {
+            return;
+        }
+        afterCommit(target -> target.index(document), document.getDocumentId());
+    }
+
+    /**
+     * 当前事务提交后从索引中移除；无事务时立即移除
+     */
+    public void deleteAfterCommit(Long documentId) {
+        if (!started || documentId == null) {
+            return;
+        }
+        afterCommit(target -> target.delete(documentId), documentId);
+    }
+
+    private void afterCommit(IndexAction action, Long documentId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(action, documentId);
+                }
+            });
+        } else {
+            apply(action, documentId);
+        }
+    }
+
+    /**
+     * 写入当前索引；重建期间同时记下文档ID，切换前补写到新索引。与切换互斥，切换后的变更直接写入新索引
+     */
+    private void apply(IndexAction action, Long documentId) {
+        synchronized (swapLock) {
+            if (rebuildPending != null) {
+                rebuildPending.add(documentId);
+            }
+            DocumentIndex current = index;
+            if (current == null) {
+                return;
+            }
+            try {
+                action.run(current);
+            } catch (IOException | RuntimeException e) {
+                // 索引写入失败不影响业务，由定时重建补齐
+                log.warn("文档索引同步失败: documentId={}", documentId, e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexAction {
+        void run(DocumentIndex target) throws IOException;
+    }
+
+    // ========== 检索 ==========
+
+    /**
+     * 全文检索，调用前应确认 {@link #isReady()}
+     *
+     * @param offset 跳过的命中数
+     * @param limit  返回的命中数
+     */
+    public DocumentSearchResult search(DocumentSearchQuery query, int offset, int limit) throws IOException {
+        DocumentIndex current = index;
+        if (current == null) {
+            return DocumentSearchResult.empty();
+        }
+        try {
+            return current.search(query, offset, limit);
+        } catch (AlreadyClosedException e) {
+            // 检索期间重建完成，旧索引已关闭，改用新索引
+            DocumentIndex swapped = index;
+            if (swapped == null || swapped == current) {
+                throw e;
+            }
+            return swapped.search(query, offset, limit);
+        }
+    }
+
+    // ========== 全量重建 ==========
+
+    @Scheduled(cron = "${document.search.reindex-cron:0 30 3 * * ?}")
+    public void scheduledReindex() {
+        if (started) {
+            reindexAsync();
+        }
+    }
+
+    /**
+     * 提交异步全量重建
+     *
+     * @return 已有重建在执行或索引未启用时返回false
+     */
+    public boolean reindexAsync() {
+        if (!started || reindexing.get()) {
+            return false;
+        }
+        try {
+            reindexExecutor.execute(this::reindex);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 从数据库全量重建索引：写入新的代目录，完成后原子切换；失败时删除新目录，原索引继续使用
+     *
+     * @return 写入索引的文档数，已有重建在执行或重建失败时返回-1
+     */
+    public int reindex() {
+        if (!started || !reindexing.compareAndSet(false, true)) {
+            return -1;
+        }
+        long start = System.currentTimeMillis();
+        Path root = Path.of(indexDir);
+        String newGeneration = GENERATION_PREFIX + start;
+        DocumentIndex fresh = null;
+        DocumentIndex old = null;
+        boolean swapped = false;
+        int count = 0;
+        try {
+            fresh = new DocumentIndex(FSDirectory.open(root.resolve(newGeneration)));
+            // 先开始记录增量变更再读库：记录开始前已提交的变更，分批读取时一定能读到
+            synchronized (swapLock) {
+                rebuildPending = ConcurrentHashMap.newKeySet();
+            }
+            Long lastId = null;
+            while (true) {
+                LambdaQueryWrapper<DocumentEntity> wrapper = new LambdaQueryWrapper<DocumentEntity>()
+                        .eq(DocumentEntity::getDeletedFlag, 0)
+                        .gt(lastId != null, DocumentEntity::getDocumentId, lastId)
+                        .orderByAsc(DocumentEntity::getDocumentId)
+                        .last("LIMIT " + reindexBatchSize);
+                List<DocumentEntity> batch = documentDao.selectList(wrapper);
+                for (DocumentEntity document : batch) {
+                    fresh.index(document);
+                    count++;
+                }
+                if (batch.size() < reindexBatchSize) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getDocumentId();
+            }
+            fresh.commit();
+
+            synchronized (swapLock) {
+                if (!started) {
+                    throw new IllegalStateException("文档索引已关闭");
+                }
+                // 分批读取期间有变更的文档可能读到旧版本，按数据库当前状态补写；补写与切换期间的新变更等待锁释放后写入新索引
+                int replayed = replayPending(fresh, rebuildPending);
+                fresh.commit();
+                fresh.refresh();
+                writeCurrentGeneration(root, newGeneration);
+                old = index;
+                index = fresh;
+                generation = newGeneration;
+                rebuildPending = null;
+                swapped = true;
+                log.info("文档索引重建完成: generation={}, count={}, replayed={}, costMs={}", newGeneration, count,
+                        replayed, System.currentTimeMillis() - start);
+            }
+            return count;
+        } catch (IOException | RuntimeException e) {
+            log.error("文档索引重建失败，继续使用原索引: generation={}, indexed={}", newGeneration, count, e);
+            return -1;
+        } finally {
+            if (!swapped) {
+                synchronized (swapLock) {
+                    rebuildPending = null;
+                }
+                closeQuietly(fresh);
+            }
+            closeQuietly(old);
+            deleteStaleGenerations(root, generation);
+            reindexing.set(false);
+        }
+    }
+
+    /**
+     * 按数据库当前状态重写重建期间有变更的文档，已删除或不存在的从新索引移除
+     */
+    private int replayPending(DocumentIndex fresh, Set<Long> documentIds) throws IOException {
+        if (documentIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(documentIds);
+        for (int from = 0; from < ids.size(); from += reindexBatchSize) {
+            List<Long> batchIds = ids.subList(from, Math.min(ids.size(), from + reindexBatchSize));
+            Map<Long, DocumentEntity> documents = new HashMap<>();
+            for (DocumentEntity document : documentDao.selectBatchIds(batchIds)) {
+                documents.put(document.getDocumentId(), document);
+            }
+            for (Long documentId : batchIds) {
+                DocumentEntity document = documents.get(documentId);
+                if (document != null) {
+                    fresh.index(document);
+                } else {
+                    fresh.delete(documentId);
+                }
+            }
+        }
+        return ids.size();
+    }
+
+    // ========== 代目录 ==========
+
+    private static String readCurrentGeneration(Path root) throws IOException {
+        Path currentFile = root.resolve(CURRENT_FILE);
+        if (!Files.exists(currentFile)) {
+            return null;
+        }
+        String name = Files.readString(currentFile, StandardCharsets.UTF_8).trim();
+        if (name.startsWith(GENERATION_PREFIX) && Files.isDirectory(root.resolve(name))) {
+            try (FSDirectory directory = FSDirectory.open(root.resolve(name))) {
+                if (DirectoryReader.indexExists(directory)) {
+                    return name;
+                }
+            }
+        }
+        log.warn("文档索引当前代不可用，将全量重建: generation={}", name);
+        return null;
+    }
+
+    /**
+     * 先写临时文件再原子改名，进程中途退出时 CURRENT 要么是旧值要么是新值
+     */
+    private static void writeCurrentGeneration(Path root, String name) throws IOException {
+        Path tmp = root.resolve(CURRENT_FILE + ".tmp");
+        Files.writeString(tmp, name, StandardCharsets.UTF_8);
+        Files.move(tmp, root.resolve(CURRENT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void deleteStaleGenerations(Path root, String keep) {
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, GENERATION_PREFIX + "*")) {
+            for (Path dir : dirs) {
+                if (!dir.getFileName().toString().equals(keep)) {
+                    FileSystemUtils.deleteRecursively(dir);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理文档索引旧目录失败: indexDir={}", root, e);
+        }
+    }
+
+    private static void closeQuietly(DocumentIndex target) {
+        if (target == null) {
+            return;
+        }
+        try {
+            target.close();
+        } catch (IOException | RuntimeException e) {
+            log.warn("关闭文档索引失败", e);
+        }
+    }
+
+    // ========== 后台任务 ==========
+
+    private void refresh() {
+        DocumentIndex current = index;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.refresh();
+        } catch (IOException | RuntimeException e) {
+            log.warn("文档索引刷新失败", e);
+        }
+    }
+
+    private void commit() {
+        DocumentIndex current = index;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.commit();
+        } catch (IOException | RuntimeException e) {
+            log.warn("文档索引提交失败", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        DocumentIndex current = index;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", isReady());
+        stats.put("reindexing", reindexing.get());
+        stats.put("generation", generation);
+        stats.put("numDocs", current != null ? current.numDocs() : 0);
+        return stats;
+    }
+}
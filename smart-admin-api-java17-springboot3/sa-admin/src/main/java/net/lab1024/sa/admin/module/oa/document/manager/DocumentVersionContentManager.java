@@ -0,0 +1,295 @@
+package net.lab1024.sa.admin.module.oa.document.manager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.oa.document.dao.DocumentVersionDao;
+import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentVersionEntity;
+import net.lab1024.sa.admin.module.oa.document.version.VersionContentCodec;
+
+/**
+ * 文档版本内容管理器
+ * <p>
+ * - 版本内容按关键帧 + 差量存储：每 keyframe-interval 个版本保存一次压缩全文，其余版本只保存相对上一版本的压缩差量
+ * - 读取时从关键帧开始依次应用差量还原，还原结果按版本ID缓存（cache-size 条），
+ *   链上有已缓存的中间版本时从该版本开始还原
+ * - 历史明文数据可直接读取，{@link #compactLegacyVersionsAsync()} 将其批量转换为差量存储
+ * <p>
+ * 配置项（document.version.*）：keyframe-interval、cache-size、max-diff-lines
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class DocumentVersionContentManager {
+
+    private static final int COMPACT_DOCUMENT_BATCH = 100;
+
+    @Resource
+    private DocumentVersionDao documentVersionDao;
+
+    @Value("${document.version.keyframe-interval:10}")
+    private int keyframeInterval;
+
+    @Value("${document.version.cache-size:512}")
+    private long cacheSize;
+
+    @Value("${document.version.max-diff-lines:2000}")
+    private int maxDiffLines;
+
+    /**
+     * 版本ID → 还原后的内容
+     */
+    private Cache<Long, String> contentCache;
+
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "document-version-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        contentCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        compactor.shutdownNow();
+    }
+
+    /**
+     * 编码并保存新版本，version.content 传入明文；保存后 content 恢复为明文，便于调用方继续使用
+     */
+    public void insert(DocumentVersionEntity version) {
+        String content = version.getContent();
+        DocumentVersionEntity previous = selectPrevious(version.getDocumentId(), version.getVersionNumber());
+        String previousContent = previous != null ? loadContent(previous) : null;
+        VersionContentCodec.encode(version, content, previous, previousContent, keyframeInterval, maxDiffLines);
+        documentVersionDao.insert(version);
+        version.setContent(content);
+        if (version.getVersionId() != null && content != null) {
+            contentCache.put(version.getVersionId(), content);
+        }
+    }
+
+    /**
+     * 读取版本的完整内容
+     */
+    public String loadContent(DocumentVersionEntity version) {
+        if (version == null) {
+            return null;
+        }
+        if (version.getStorageType() == null) {
+            return version.getContent();
+        }
+        Long versionId = version.getVersionId();
+        String cached = versionId != null ? contentCache.getIfPresent(versionId) : null;
+        if (cached != null) {
+            return cached;
+        }
+        String content = VersionContentCodec.isSelfContained(version)
+                ? VersionContentCodec.readFull(version)
+                : reconstruct(version);
+        if (versionId != null && content != null) {
+            contentCache.put(versionId, content);
+        }
+        return content;
+    }
+
+    /**
+     * 将版本的 content 替换为还原后的完整内容，用于返回给调用方或版本对比；
+     * 替换后的实体只用于读取，不能再用于更新数据库
+     */
+    public DocumentVersionEntity hydrate(DocumentVersionEntity version) {
+        if (version != null) {
+            version.setContent(loadContent(version));
+        }
+        return version;
+    }
+
+    /**
+     * 按版本号从关键帧读取到目标版本并还原；链上有已缓存的中间版本时从该版本开始
+     */
+    private String reconstruct(DocumentVersionEntity version) {
+        List<DocumentVersionEntity> chain = selectChain(version);
+        int last = chain.size() - 1;
+        if (last < 0 || !chain.get(last).getVersionNumber().equals(version.getVersionNumber())) {
+            throw new IllegalStateException("版本链不完整: versionId=" + version.getVersionId());
+        }
+        for (int i = last - 1; i >= 0; i--) {
+            DocumentVersionEntity candidate = chain.get(i);
+            String cached = candidate.getVersionId() != null ? contentCache.getIfPresent(candidate.getVersionId()) : null;
+            if (cached != null) {
+                return VersionContentCodec.replay(cached, chain.subList(i + 1, last + 1));
+            }
+            if (VersionContentCodec.isSelfContained(candidate)) {
+                break;
+            }
+        }
+        return VersionContentCodec.reconstruct(chain);
+    }
+
+    /**
+     * 读取 [所属关键帧, 目标版本] 区间的版本；历史明文转换后关键帧可能前移，区间起点不是完整内容时继续向前扩展
+     */
+    private List<DocumentVersionEntity> selectChain(DocumentVersionEntity version) {
+        int from = version.getBaseVersionNumber() != null ? version.getBaseVersionNumber() : 1;
+        while (true) {
+            List<DocumentVersionEntity> chain = documentVersionDao.selectList(
+                    new LambdaQueryWrapper<DocumentVersionEntity>()
+                            .eq(DocumentVersionEntity::getDocumentId, version.getDocumentId())
+                            .ge(DocumentVersionEntity::getVersionNumber, from)
+                            .le(DocumentVersionEntity::getVersionNumber, version.getVersionNumber())
+                            .orderByAsc(DocumentVersionEntity::getVersionNumber));
+            if (chain.isEmpty() || VersionContentCodec.isSelfContained(chain.get(0))) {
+                return chain;
+            }
+            Integer base = chain.get(0).getBaseVersionNumber();
+            if (base == null || base >= from) {
+                return chain;
+            }
+            from = base;
+        }
+    }
+
+    private DocumentVersionEntity selectPrevious(Long documentId, Integer versionNumber) {
+        if (documentId == null || versionNumber == null) {
+            return null;
+        }
+        return documentVersionDao.selectOne(new LambdaQueryWrapper<DocumentVersionEntity>()
+                .eq(DocumentVersionEntity::getDocumentId, documentId)
+                .lt(DocumentVersionEntity::getVersionNumber, versionNumber)
+                .orderByDesc(DocumentVersionEntity::getVersionNumber)
+                .last("LIMIT 1"));
+    }
+
+    // ========== 历史数据转换 ==========
+
+    /**
+     * 提交异步任务，将明文存储的历史版本转换为关键帧 + 差量存储
+     *
+     * @return 已有转换任务在执行时返回false
+     */
+    public boolean compactLegacyVersionsAsync() {
+        if (!compacting.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            compactor.execute(() -> {
+                try {
+                    compactLegacyVersions();
+                } finally {
+                    compacting.set(false);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            compacting.set(false);
+            return false;
+        }
+    }
+
+    /**
+     * 按文档逐个转换明文版本，每个版本单独更新，转换过程中所有版本始终可读
+     *
+     * @return 转换的版本数
+     */
+    public int compactLegacyVersions() {
+        int rows = 0;
+        long rawBytes = 0;
+        long storedBytes = 0;
+        while (true) {
+            List<Object> documentIds = documentVersionDao.selectObjs(new QueryWrapper<DocumentVersionEntity>()
+                    .select("DISTINCT document_id")
+                    .isNull("storage_type")
+                    .last("LIMIT " + COMPACT_DOCUMENT_BATCH));
+            if (documentIds.isEmpty()) {
+                break;
+            }
+            int before = rows;
+            for (Object documentId : documentIds) {
+                long[] result = compactDocument(((Number) documentId).longValue());
+                rows += (int) result[0];
+                rawBytes += result[1];
+                storedBytes += result[2];
+            }
+            if (rows == before) {
+                // 剩余明文版本都无法转换（如版本号缺失），避免死循环
+                log.warn("部分历史版本无法转换为差量存储: documentIds={}", documentIds);
+                break;
+            }
+        }
+        log.info("历史版本转换完成: rows={}, rawBytes={}, storedBytes={}", rows, rawBytes, storedBytes);
+        return rows;
+    }
+
+    /**
+     * @return [转换行数, 原始字节数, 存储字节数]
+     */
+    private long[] compactDocument(Long documentId) {
+        List<DocumentVersionEntity> versions = documentVersionDao.selectList(
+                new LambdaQueryWrapper<DocumentVersionEntity>()
+                        .eq(DocumentVersionEntity::getDocumentId, documentId)
+                        .isNotNull(DocumentVersionEntity::getVersionNumber)
+                        .orderByAsc(DocumentVersionEntity::getVersionNumber));
+        long[] result = new long[3];
+        DocumentVersionEntity previous = null;
+        String previousContent = null;
+        for (DocumentVersionEntity version : versions) {
+            String content = VersionContentCodec.replay(previousContent, List.of(version));
+            if (version.getStorageType() == null) {
+                DocumentVersionEntity update = new DocumentVersionEntity();
+                update.setVersionId(version.getVersionId());
+                update.setVersionNumber(version.getVersionNumber());
+                VersionContentCodec.encode(update, content, previous, previousContent, keyframeInterval, maxDiffLines);
+                update.setVersionNumber(null);
+                documentVersionDao.updateById(update);
+                version.setStorageType(update.getStorageType());
+                version.setBaseVersionNumber(update.getBaseVersionNumber());
+                version.setContent(update.getContent());
+                result[0]++;
+                result[1] += update.getContentSize();
+                result[2] += update.getContent().length();
+            }
+            previous = version;
+            previousContent = content;
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = contentCache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("cacheSize", contentCache.estimatedSize());
+        result.put("cacheHitRate", stats.hitRate());
+        result.put("cacheHits", stats.hitCount());
+        result.put("cacheMisses", stats.missCount());
+        result.put("compacting", compacting.get());
+        return result;
+    }
+}
@@ -0,0 +1,430 @@
+package net.lab1024.sa.admin.module.oa.document.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.Directory;
+
+import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentEntity;
+
+/**
+ * 文档全文索引
+ * <p>
+ * 标题、摘要、正文用 SmartChineseAnalyzer 分词建立倒排索引并按BM25打分，标题、摘要权重高于正文；
+ * 分类、类型、状态、标签、创建人、创建时间作为过滤字段，不参与打分；标签同时写入SortedSet DocValues用于分面统计。
+ * <p>
+ * 写入对搜索不立即可见，需调用 {@link #refresh()}（近实时，通常秒级）；{@link #commit()} 后才落盘，进程异常退出时未提交的变更由重建任务补齐。
+ * <p>
+ * 线程安全：写入、刷新、搜索可并发调用
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class DocumentIndex implements Closeable {
+
+    static final String FIELD_ID = "id";
+
+    static final String FIELD_TITLE = "title";
+
+    static final String FIELD_SUMMARY = "summary";
+
+    static final String FIELD_CONTENT = "content";
+
+    static final String FIELD_TYPE = "documentType";
+
+    static final String FIELD_STATUS = "status";
+
+    static final String FIELD_TAG = "tag";
+
+    static final String FIELD_CATEGORY = "categoryId";
+
+    static final String FIELD_CREATED_BY = "createdById";
+
+    static final String FIELD_CREATE_TIME = "createTime";
+
+    private static final String FACET_TAGS = "tags";
+
+    /**
+     * 关键字匹配字段及权重
+     */
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(FIELD_TITLE, 4f, FIELD_SUMMARY, 2f, FIELD_CONTENT, 1f);
+
+    private static final Set<String> ID_ONLY = Set.of(FIELD_ID);
+
+    private static final int FACET_TOP_N = 20;
+
+    private final Directory directory;
+
+    private final Analyzer analyzer;
+
+    private final IndexWriter writer;
+
+    private final SearcherManager searcherManager;
+
+    private final FacetsConfig facetsConfig;
+
+    /**
+     * 分面统计依赖的全局序号表，构建成本与标签总数成正比，按reader缓存，索引刷新后重建
+     */
+    private volatile FacetState facetState;
+
+    private record FacetState(IndexReader reader, SortedSetDocValuesReaderState state) {
+    }
+
+    /**
+     * 打开索引，目录中已有索引时追加，否则新建
+     */
+    public DocumentIndex(Directory directory) throws IOException {
+        this.directory = directory;
+        this.analyzer = new SmartChineseAnalyzer();
+        this.facetsConfig = new FacetsConfig();
+        this.facetsConfig.setMultiValued(FACET_TAGS, true);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this.writer = new IndexWriter(directory, config);
+        try {
+            this.searcherManager = new SearcherManager(writer, new SearcherFactory());
+        } catch (IOException | RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    // ========== 写入 ==========
+
+    /**
+     * 写入或覆盖文档；已删除的文档从索引中移除
+     */
+    public void index(DocumentEntity document) throws IOException {
+        if (document == null || document.getDocumentId() == null) {
+            return;
+        }
+        Term idTerm = idTerm(document.getDocumentId());
+        if (!isIndexable(document)) {
+            writer.deleteDocuments(idTerm);
+            return;
+        }
+        writer.updateDocument(idTerm, toDocument(document));
+    }
+
+    public void delete(Long documentId) throws IOException {
+        if (documentId != null) {
+            writer.deleteDocuments(idTerm(documentId));
+        }
+    }
+
+    /**
+     * 使已写入的变更对搜索可见，无变更时直接返回
+     */
+    public void refresh() throws IOException {
+        searcherManager.maybeRefresh();
+    }
+
+    /**
+     * 有未提交的变更时落盘
+     *
+     * @return 是否执行了提交
+     */
+    public boolean commit() throws IOException {
+        if (!writer.hasUncommittedChanges()) {
+            return false;
+        }
+        writer.commit();
+        return true;
+    }
+
+    /**
+     * 索引中的文档数（含未刷新的写入）
+     */
+    public int numDocs() {
+        return writer.getDocStats().numDocs;
+    }
+
+    // ========== 检索 ==========
+
+    /**
+     * 检索文档：有关键字时按相关度排序并返回高亮片段，无关键字时按索引顺序返回；标签分面统计覆盖全部命中文档
+     *
+     * @param offset 跳过的命中数
+     * @param limit  返回的命中数
+     */
+    public DocumentSearchResult search(DocumentSearchQuery query, int offset, int limit) throws IOException {
+        Query luceneQuery = buildQuery(query);
+        int topN = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, (long) offset + limit));
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            FacetsCollector facetsCollector = new FacetsCollector();
+            TopDocs topDocs = FacetsCollector.search(searcher, luceneQuery, topN, facetsCollector);
+            ScoreDoc[] page = offset < topDocs.scoreDocs.length
+                    ? Arrays.copyOfRange(topDocs.scoreDocs, offset, Math.min(topDocs.scoreDocs.length, offset + limit))
+                    : new ScoreDoc[0];
+            return new DocumentSearchResult(topDocs.totalHits.value, toHits(searcher, luceneQuery, topDocs, page),
+                    tagFacets(searcher, facetsCollector));
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    Query buildQuery(DocumentSearchQuery query) throws IOException {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        if (hasText(query.keyword())) {
+            builder.add(keywordQuery(query.keyword()), Occur.MUST);
+        } else {
+            builder.add(new MatchAllDocsQuery(), Occur.MUST);
+        }
+        if (query.categoryId() != null) {
+            builder.add(LongPoint.newExactQuery(FIELD_CATEGORY, query.categoryId()), Occur.FILTER);
+        }
+        if (query.createdById() != null) {
+            builder.add(LongPoint.newExactQuery(FIELD_CREATED_BY, query.createdById()), Occur.FILTER);
+        }
+        addTermFilter(builder, FIELD_TYPE, query.documentType());
+        addTermFilter(builder, FIELD_STATUS, query.status());
+        addTermFilter(builder, FIELD_TAG, query.tag() != null ? query.tag().trim() : null);
+        if (query.startTime() != null || query.endTime() != null) {
+            long lower = query.startTime() != null ? toMillis(query.startTime()) : Long.MIN_VALUE;
+            long upper = query.endTime() != null ? toMillis(query.endTime()) : Long.MAX_VALUE;
+            builder.add(LongPoint.newRangeQuery(FIELD_CREATE_TIME, lower, upper), Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 关键字分词后每个词都必须出现，可出现在标题、摘要、正文任一字段；不解析查询语法，用户输入的特殊字符按普通文本处理
+     */
+    private Query keywordQuery(String keyword) throws IOException {
+        List<String> terms = analyze(keyword);
+        if (terms.isEmpty()) {
+            return new MatchNoDocsQuery("关键字分词后为空");
+        }
+        BooleanQuery.Builder all = new BooleanQuery.Builder();
+        for (String term : terms) {
+            BooleanQuery.Builder any = new BooleanQuery.Builder();
+            for (Map.Entry<String, Float> field : FIELD_BOOSTS.entrySet()) {
+                any.add(new BoostQuery(new TermQuery(new Term(field.getKey(), term)), field.getValue()), Occur.SHOULD);
+            }
+            all.add(any.build(), Occur.MUST);
+        }
+        return all.build();
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        Set<String> terms = new LinkedHashSet<>();
+        try (TokenStream stream = analyzer.tokenStream(FIELD_CONTENT, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private List<DocumentSearchResult.Hit> toHits(IndexSearcher searcher, Query query, TopDocs topDocs,
+            ScoreDoc[] page) throws IOException {
+        if (page.length == 0) {
+            return List.of();
+        }
+        UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                .withFormatter(new DefaultPassageFormatter("<em>", "</em>", "...", true))
+                // 字段未命中时不返回开头片段，由调用方回退到原文
+                .withMaxNoHighlightPassages(0)
+                .build();
+        Map<String, String[]> highlights = highlighter.highlightFields(
+                new String[] {FIELD_TITLE, FIELD_CONTENT, FIELD_SUMMARY}, query,
+                new TopDocs(topDocs.totalHits, page), new int[] {1, 2, 1});
+        String[] titles = highlights.get(FIELD_TITLE);
+        String[] contents = highlights.get(FIELD_CONTENT);
+        String[] summaries = highlights.get(FIELD_SUMMARY);
+
+        StoredFields storedFields = searcher.storedFields();
+        List<DocumentSearchResult.Hit> hits = new ArrayList<>(page.length);
+        for (int i = 0; i < page.length; i++) {
+            Long documentId = Long.valueOf(storedFields.document(page[i].doc, ID_ONLY).get(FIELD_ID));
+            String content = contents[i] != null ? contents[i] : summaries[i];
+            hits.add(new DocumentSearchResult.Hit(documentId, page[i].score, titles[i], content));
+        }
+        return hits;
+    }
+
+    private Map<String, Integer> tagFacets(IndexSearcher searcher, FacetsCollector facetsCollector)
+            throws IOException {
+        SortedSetDocValuesReaderState state = facetState(searcher.getIndexReader());
+        if (state == null) {
+            return Map.of();
+        }
+        FacetResult result;
+        try {
+            result = new SortedSetDocValuesFacetCounts(state, facetsCollector).getTopChildren(FACET_TOP_N, FACET_TAGS);
+        } catch (IllegalArgumentException e) {
+            // 当前索引中没有任何文档带标签
+            return Map.of();
+        }
+        if (result == null) {
+            return Map.of();
+        }
+        Map<String, Integer> facets = new LinkedHashMap<>();
+        for (LabelAndValue labelValue : result.labelValues) {
+            facets.put(labelValue.label, labelValue.value.intValue());
+        }
+        return facets;
+    }
+
+    private SortedSetDocValuesReaderState facetState(IndexReader reader) throws IOException {
+        FacetState current = facetState;
+        if (current != null && current.reader() == reader) {
+            return current.state();
+        }
+        SortedSetDocValuesReaderState state;
+        try {
+            state = new DefaultSortedSetDocValuesReaderState(reader, facetsConfig);
+        } catch (IllegalArgumentException e) {
+            state = null;
+        }
+        facetState = new FacetState(reader, state);
+        return state;
+    }
+
+    // ========== 文档映射 ==========
+
+    static boolean isIndexable(DocumentEntity document) {
+        return (document.getDeletedFlag() == null || document.getDeletedFlag() == 0)
+                && !"DELETED".equals(document.getStatus());
+    }
+
+    private Document toDocument(DocumentEntity entity) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_ID, String.valueOf(entity.getDocumentId()), Field.Store.YES));
+        // 高亮需要原文，文本字段存储
+        addText(doc, FIELD_TITLE, entity.getTitle());
+        addText(doc, FIELD_SUMMARY, entity.getSummary());
+        addText(doc, FIELD_CONTENT, entity.getContent());
+        addKeyword(doc, FIELD_TYPE, entity.getDocumentType());
+        addKeyword(doc, FIELD_STATUS, entity.getStatus());
+        if (entity.getCategoryId() != null) {
+            doc.add(new LongPoint(FIELD_CATEGORY, entity.getCategoryId()));
+        }
+        if (entity.getCreatedById() != null) {
+            doc.add(new LongPoint(FIELD_CREATED_BY, entity.getCreatedById()));
+        }
+        LocalDateTime createTime = entity.getCreateTime() != null ? entity.getCreateTime() : LocalDateTime.now();
+        doc.add(new LongPoint(FIELD_CREATE_TIME, toMillis(createTime)));
+        for (String tag : parseTags(entity.getTags())) {
+            doc.add(new StringField(FIELD_TAG, tag, Field.Store.NO));
+            doc.add(new SortedSetDocValuesFacetField(FACET_TAGS, tag));
+        }
+        return facetsConfig.build(doc);
+    }
+
+    /**
+     * 解析标签字段，兼容JSON数组（["a","b"]）、List.toString（[a, b]）与逗号分隔三种存储格式
+     */
+    static List<String> parseTags(String tags) {
+        if (tags == null || tags.isBlank()) {
+            return List.of();
+        }
+        String value = tags.trim();
+        if (value.startsWith("[") && value.endsWith("]")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        Set<String> result = new LinkedHashSet<>();
+        for (String part : value.split(",")) {
+            String tag = part.trim();
+            if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                tag = tag.substring(1, tag.length() - 1).trim();
+            }
+            if (!tag.isEmpty()) {
+                result.add(tag);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static void addText(Document doc, String field, String value) {
+        if (hasText(value)) {
+            doc.add(new TextField(field, value, Field.Store.YES));
+        }
+    }
+
+    private static void addKeyword(Document doc, String field, String value) {
+        if (hasText(value)) {
+            doc.add(new StringField(field, value, Field.Store.NO));
+        }
+    }
+
+    private static void addTermFilter(BooleanQuery.Builder builder, String field, String value) {
+        if (hasText(value)) {
+            builder.add(new TermQuery(new Term(field, value)), Occur.FILTER);
+        }
+    }
+
+    private static Term idTerm(Long documentId) {
+        return new Term(FIELD_ID, String.valueOf(documentId));
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            searcherManager.close();
+            // IndexWriter默认关闭时提交
+            writer.close();
+        } finally {
+            analyzer.close();
+            directory.close();
+        }
+    }
+}
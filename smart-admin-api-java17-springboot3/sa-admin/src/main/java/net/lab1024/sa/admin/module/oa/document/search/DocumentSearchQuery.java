@@ -0,0 +1,26 @@
+package net.lab1024.sa.admin.module.oa.document.search;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文档全文检索条件
+ *
+ * @param keyword      关键字，匹配标题、摘要、正文
+ * @param categoryId   分类ID，可为空
+ * @param documentType 文档类型，可为空
+ * @param status       文档状态，可为空
+ * @param tag          标签，精确匹配，可为空
+ * @param createdById  创建人ID，可为空
+ * @param startTime    创建时间下限（含），可为空
+ * @param endTime      创建时间上限（含），可为空
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public record DocumentSearchQuery(String keyword, Long categoryId, String documentType, String status, String tag,
+                                  Long createdById, LocalDateTime startTime, LocalDateTime endTime) {
+
+    public static DocumentSearchQuery of(String keyword) {
+        return new DocumentSearchQuery(keyword, null, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,30 @@
+package net.lab1024.sa.admin.module.oa.document.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文档全文检索结果
+ *
+ * @param total     命中总数
+ * @param hits      当前页命中，按相关度降序
+ * @param tagFacets 全部命中文档的标签分布（标签 → 文档数），按数量降序
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public record DocumentSearchResult(long total, List<Hit> hits, Map<String, Integer> tagFacets) {
+
+    /**
+     * 单条命中
+     *
+     * @param titleHighlight   标题高亮片段，关键字以 &lt;em&gt; 包裹，标题未命中时为null
+     * @param contentHighlight 正文（无命中时取摘要）高亮片段，均未命中时为null
+     */
+    public record Hit(Long documentId, float score, String titleHighlight, String contentHighlight) {
+    }
+
+    public static DocumentSearchResult empty() {
+        return new DocumentSearchResult(0, List.of(), Map.of());
+    }
+}
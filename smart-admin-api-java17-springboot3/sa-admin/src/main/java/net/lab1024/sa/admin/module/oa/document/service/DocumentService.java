@@ -6,6 +6,7 @@ import net.lab1024.sa.base.common.domain.ResponseDTO;
 import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentEntity;
 import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentVersionEntity;
 import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentPermissionEntity;
+import net.lab1024.sa.admin.module.oa.document.domain.vo.DocumentSearchVO;
 
 import org.springframework.web.multipart.MultipartFile;
 
@@ -256,6 +257,36 @@ public interface DocumentService {
                                                             String startDate, String endDate,
                                                             PageParam pageParam);
 
+    /**
+     * 基于全文索引搜索文档：按相关度排序，返回高亮片段与标签分面统计
+     *
+     * @param keyword 关键词
+     * @param categoryId 分类ID(可选)
+     * @param documentType 文档类型(可选)
+     * @param tag 标签(可选，精确匹配)
+     * @param startDate 开始日期(可选)
+     * @param endDate 结束日期(可选)
+     * @param pageParam 分页参数
+     * @return 搜索结果
+     */
+    ResponseDTO<DocumentSearchVO> fullTextSearch(String keyword, Long categoryId, String documentType,
+                                                 String tag, String startDate, String endDate,
+                                                 PageParam pageParam);
+
+    /**
+     * 异步全量重建文档全文索引
+     *
+     * @return 操作结果
+     */
+    ResponseDTO<String> rebuildSearchIndex();
+
+    /**
+     * 异步将明文存储的历史版本转换为关键帧 + 差量存储
+     *
+     * @return 操作结果
+     */
+    ResponseDTO<String> compactDocumentVersions();
+
     /**
      * 高级搜索文档
      *
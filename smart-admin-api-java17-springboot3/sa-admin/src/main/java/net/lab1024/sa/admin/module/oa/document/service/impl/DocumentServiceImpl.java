@@ -1,5 +1,6 @@
 package net.lab1024.sa.admin.module.oa.document.service.impl;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -19,7 +20,13 @@ import net.lab1024.sa.admin.module.oa.document.dao.DocumentVersionDao;
 import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentEntity;
 import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentPermissionEntity;
 import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentVersionEntity;
+import net.lab1024.sa.admin.module.oa.document.domain.vo.DocumentSearchVO;
+import net.lab1024.sa.admin.module.oa.document.domain.vo.DocumentVO;
 import net.lab1024.sa.admin.module.oa.document.manager.DocumentCacheManager;
+import net.lab1024.sa.admin.module.oa.document.manager.DocumentSearchManager;
+import net.lab1024.sa.admin.module.oa.document.manager.DocumentVersionContentManager;
+import net.lab1024.sa.admin.module.oa.document.search.DocumentSearchQuery;
+import net.lab1024.sa.admin.module.oa.document.search.DocumentSearchResult;
 import net.lab1024.sa.admin.module.oa.document.service.DocumentService;
 import net.lab1024.sa.base.common.domain.PageParam;
 import net.lab1024.sa.base.common.domain.PageResult;
@@ -48,6 +55,12 @@ public class DocumentServiceImpl implements DocumentService {
     @Resource
     private DocumentCacheManager documentCacheManager;
 
+    @Resource
+    private DocumentSearchManager documentSearchManager;
+
+    @Resource
+    private DocumentVersionContentManager documentVersionContentManager;
+
     /**
      * 上传文档并创建初始版本
      *
@@ -123,6 +136,7 @@ public class DocumentServiceImpl implements DocumentService {
 
             // 7. 缓存文档信息
             documentCacheManager.setDocument(document);
+            documentSearchManager.indexAfterCommit(document);
 
             log.info("文档上传成功: documentId={}, title={}", document.getDocumentId(), title);
             return SmartResponseUtil.success(document.getDocumentId());
@@ -194,6 +208,7 @@ public class DocumentServiceImpl implements DocumentService {
 
             // 5. 缓存文档信息
             documentCacheManager.setDocument(document);
+            documentSearchManager.indexAfterCommit(document);
 
             log.info("文档创建成功: documentId={}, title={}", document.getDocumentId(), title);
             return SmartResponseUtil.success(document.getDocumentId());
@@ -215,8 +230,8 @@ public class DocumentServiceImpl implements DocumentService {
      * @param categoryId 分类ID，可为空
      * @param documentType 文档类型，可为空（如：TEXT/MD/HTML/PDF等）
      * @param status 文档状态，可为空（如：ACTIVE/DRAFT/ARCHIVED 等）
-     * @param keyword 关键字，匹配标题、内容、摘要，可为空
-     * @param tags 标签字符串，模糊匹配，可为空
+     * @param keyword 关键字，匹配标题、内容、摘要，可为空；索引就绪且未指定标签时按全文索引相关度排序
+     * @param tags 标签字符串，模糊匹配，可为空；指定时始终查询数据库
      * @param startDate 开始日期时间字符串（格式由 SmartVerificationUtil 解析），可为空
      * @param endDate 结束日期时间字符串（格式由 SmartVerificationUtil 解析），可为空
      * @return ResponseDTO<PageResult<DocumentEntity>> 成功返回分页数据；失败返回错误信息
@@ -246,6 +261,16 @@ public class DocumentServiceImpl implements DocumentService {
             LocalDateTime startDateTime = parseLocalDateTimeLocal(startDate);
             LocalDateTime endDateTime = parseLocalDateTimeLocal(endDate);
 
+            // 有关键字时走全文索引，按相关度排序；索引未就绪时回退到数据库模糊匹配。
+            // 索引中的标签只能精确匹配，带标签条件时仍走数据库，保持标签模糊匹配的语义
+            if (isNotBlankLocal(keyword) && !isNotBlankLocal(tags) && documentSearchManager.isReady()) {
+                DocumentSearchQuery query = new DocumentSearchQuery(keyword, categoryId, documentType,
+                        status, null, null, startDateTime, endDateTime);
+                DocumentSearchResult searchResult = searchIndex(query, pageParam);
+                return SmartResponseUtil.success(toPageResult(searchResult,
+                        loadInRankOrder(searchResult), pageParam));
+            }
+
             // 2. 从数据库查询
             Page<DocumentEntity> page = new Page<>(pageParam.getPageNum(), pageParam.getPageSize());
             LambdaQueryWrapper<DocumentEntity> wrapper = new LambdaQueryWrapper<>();
@@ -415,8 +440,9 @@ public class DocumentServiceImpl implements DocumentService {
                 createNewVersion(document, "内容更新");
             }
 
-            // 7. 更新缓存
+            // 7. 更新缓存与索引
             documentCacheManager.setDocument(document);
+            documentSearchManager.indexAfterCommit(document);
 
             // 8. 清除相关缓存
             documentCacheManager.clearDocumentVersionCache(documentId);
@@ -476,9 +502,10 @@ public class DocumentServiceImpl implements DocumentService {
             // 4. 删除所有权限
             documentPermissionDao.deleteByDocumentId(documentId);
 
-            // 5. 清除缓存
+            // 5. 清除缓存与索引
             documentCacheManager.clearDocumentCache(documentId);
             documentCacheManager.clearUserAllCache(userId);
+            documentSearchManager.deleteAfterCommit(documentId);
 
             log.info("文档删除成功: documentId={}", documentId);
             return SmartResponseUtil.success("文档删除成功");
@@ -607,7 +634,7 @@ public class DocumentServiceImpl implements DocumentService {
             version.setCreatedTime(LocalDateTime.now());
 
             // 5. 保存版本
-            documentVersionDao.insert(version);
+            documentVersionContentManager.insert(version);
 
             // 6. 更新文档信息
             document.setVersion(newVersion);
@@ -615,8 +642,9 @@ public class DocumentServiceImpl implements DocumentService {
             document.setLastModifiedTime(LocalDateTime.now());
             documentDao.updateById(document);
 
-            // 7. 更新缓存
+            // 7. 更新缓存与索引
             documentCacheManager.setDocument(document);
+            documentSearchManager.indexAfterCommit(document);
             documentCacheManager.clearDocumentVersionCache(documentId);
 
             log.info("文档版本创建成功: versionId={}, versionNumber={}", version.getVersionId(),
@@ -686,7 +714,7 @@ public class DocumentServiceImpl implements DocumentService {
                 return ResponseDTO.error("版本不存在");
             }
 
-            return SmartResponseUtil.success(version);
+            return SmartResponseUtil.success(documentVersionContentManager.hydrate(version));
 
         } catch (Exception e) {
             log.error("获取版本详情失败", e);
@@ -710,8 +738,9 @@ public class DocumentServiceImpl implements DocumentService {
         try {
             log.info("开始恢复到指定版本: documentId={}, versionId={}", documentId, versionId);
 
-            // 1. 获取版本信息
-            DocumentVersionEntity version = documentVersionDao.selectById(versionId);
+            // 1. 获取版本信息并还原内容
+            DocumentVersionEntity version = documentVersionContentManager.hydrate(
+                    documentVersionDao.selectById(versionId));
             if (version == null) {
                 return ResponseDTO.error("版本不存在");
             }
@@ -736,8 +765,9 @@ public class DocumentServiceImpl implements DocumentService {
             // 6. 创建新版本记录恢复操作
             createRestoreVersion(document, version);
 
-            // 7. 更新缓存
+            // 7. 更新缓存与索引
             documentCacheManager.setDocument(document);
+            documentSearchManager.indexAfterCommit(document);
             documentCacheManager.clearDocumentVersionCache(documentId);
 
             log.info("恢复到指定版本成功: documentId={}, versionId={}", documentId, versionId);
@@ -773,8 +803,9 @@ public class DocumentServiceImpl implements DocumentService {
                 return ResponseDTO.error("版本不存在");
             }
 
-            // 2. 执行差异对比
-            Map<String, Object> diffResult = performDiff(version1, version2);
+            // 2. 还原内容后执行差异对比
+            Map<String, Object> diffResult = performDiff(documentVersionContentManager.hydrate(version1),
+                    documentVersionContentManager.hydrate(version2));
 
             return SmartResponseUtil.success(diffResult);
 
@@ -1382,8 +1413,145 @@ public class DocumentServiceImpl implements DocumentService {
         }
     }
 
+    /**
+     * 基于全文索引搜索文档
+     *
+     * <p>
+     * 关键字经中文分词后每个词都需命中标题、摘要或正文之一，按相关度排序（标题权重最高）；
+     * 返回当前页文档的高亮片段以及全部命中文档的标签分布。索引未就绪时返回错误，调用方可改用分页查询。
+     * </p>
+     *
+     * @param keyword 关键字，不能为空
+     * @param categoryId 分类ID，可为空
+     * @param documentType 文档类型，可为空
+     * @param tag 标签，精确匹配，可为空
+     * @param startDate 起始时间字符串，可为空
+     * @param endDate 截止时间字符串，可为空
+     * @param pageParam 分页参数，不能为空
+     * @return ResponseDTO<DocumentSearchVO> 成功返回分页结果与标签分面；失败返回错误信息
+     */
+    @Override
+    public ResponseDTO<DocumentSearchVO> fullTextSearch(String keyword, Long categoryId,
+            String documentType, String tag, String startDate, String endDate,
+            PageParam pageParam) {
+        try {
+            if (!isNotBlankLocal(keyword)) {
+                return ResponseDTO.error("搜索关键字不能为空");
+            }
+            if (!documentSearchManager.isReady()) {
+                return ResponseDTO.error("文档索引正在构建，请稍后再试");
+            }
+            DocumentSearchQuery query = new DocumentSearchQuery(keyword, categoryId, documentType,
+                    null, tag, null, parseLocalDateTimeLocal(startDate),
+                    parseLocalDateTimeLocal(endDate));
+            DocumentSearchResult searchResult = searchIndex(query, pageParam);
+            List<DocumentEntity> documents = loadInRankOrder(searchResult);
+
+            Map<Long, DocumentSearchResult.Hit> hits = new HashMap<>();
+            for (DocumentSearchResult.Hit hit : searchResult.hits()) {
+                hits.put(hit.documentId(), hit);
+            }
+            List<DocumentVO> voList = new ArrayList<>(documents.size());
+            for (DocumentEntity document : documents) {
+                DocumentSearchResult.Hit hit = hits.get(document.getDocumentId());
+                DocumentVO vo = new DocumentVO();
+                vo.setDocumentId(document.getDocumentId());
+                vo.setTitle(document.getTitle());
+                vo.setDocumentType(document.getDocumentType());
+                vo.setStatus(document.getStatus());
+                vo.setCategoryId(document.getCategoryId());
+                vo.setAuthor(document.getCreatedByName());
+                vo.setCreateTime(document.getCreateTime());
+                vo.setTitleHighlight(hit.titleHighlight());
+                vo.setContentHighlight(hit.contentHighlight());
+                voList.add(vo);
+            }
+
+            PageResult<DocumentVO> page = new PageResult<>();
+            page.setList(voList);
+            page.setTotal(searchResult.total());
+            page.setPageNum(pageParam.getPageNum());
+            page.setPageSize(pageParam.getPageSize());
+            DocumentSearchVO result = new DocumentSearchVO();
+            result.setPage(page);
+            result.setTagFacets(searchResult.tagFacets());
+
+            log.debug("全文检索完成: keyword={}, total={}", keyword, searchResult.total());
+            return SmartResponseUtil.success(result);
+
+        } catch (Exception e) {
+            log.error("全文检索文档失败", e);
+            return ResponseDTO.error("全文检索文档失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 异步全量重建文档全文索引
+     *
+     * @return ResponseDTO<String> 已提交返回成功；已有重建任务或索引未启用时返回错误信息
+     */
+    @Override
+    public ResponseDTO<String> rebuildSearchIndex() {
+        if (!documentSearchManager.reindexAsync()) {
+            return ResponseDTO.error("索引未启用或正在重建");
+        }
+        return SmartResponseUtil.success("索引重建已提交");
+    }
+
+    @Override
+    public ResponseDTO<String> compactDocumentVersions() {
+        if (!documentVersionContentManager.compactLegacyVersionsAsync()) {
+            return ResponseDTO.error("历史版本转换正在执行");
+        }
+        return SmartResponseUtil.success("历史版本转换已提交");
+    }
+
     // ==================== 私有辅助方法 ====================
 
+    /**
+     * 按页码换算偏移量查询全文索引
+     */
+    private DocumentSearchResult searchIndex(DocumentSearchQuery query, PageParam pageParam)
+            throws IOException {
+        int offset = Math.toIntExact((pageParam.getPageNum() - 1) * pageParam.getPageSize());
+        return documentSearchManager.search(query, offset, Math.toIntExact(pageParam.getPageSize()));
+    }
+
+    /**
+     * 按命中顺序批量加载文档；索引刷新存在秒级延迟，已从数据库删除的文档直接跳过
+     */
+    private List<DocumentEntity> loadInRankOrder(DocumentSearchResult searchResult) {
+        if (searchResult.hits().isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> documentIds = new ArrayList<>(searchResult.hits().size());
+        for (DocumentSearchResult.Hit hit : searchResult.hits()) {
+            documentIds.add(hit.documentId());
+        }
+        Map<Long, DocumentEntity> documents = new HashMap<>();
+        for (DocumentEntity document : documentDao.selectBatchIds(documentIds)) {
+            documents.put(document.getDocumentId(), document);
+        }
+        List<DocumentEntity> ordered = new ArrayList<>(documentIds.size());
+        for (Long documentId : documentIds) {
+            DocumentEntity document = documents.get(documentId);
+            if (document != null) {
+                ordered.add(document);
+            }
+        }
+        return ordered;
+    }
+
+    private PageResult<DocumentEntity> toPageResult(DocumentSearchResult searchResult,
+            List<DocumentEntity> documents, PageParam pageParam) {
+        PageResult<DocumentEntity> result = new PageResult<>();
+        result.setList(documents);
+        result.setTotal(searchResult.total());
+        result.setPageNum(pageParam.getPageNum());
+        result.setPageSize(pageParam.getPageSize());
+        return result;
+    }
+
     /**
      * 生成文档编号
      */
@@ -1518,7 +1686,7 @@ public class DocumentServiceImpl implements DocumentService {
         version.setCreatedByName("系统管理员"); // TODO: 获取实际用户名
         version.setCreatedTime(LocalDateTime.now());
 
-        documentVersionDao.insert(version);
+        documentVersionContentManager.insert(version);
     }
 
     /**
@@ -1546,7 +1714,7 @@ public class DocumentServiceImpl implements DocumentService {
         version.setCreatedByName("系统管理员"); // TODO: 获取实际用户名
         version.setCreatedTime(LocalDateTime.now());
 
-        documentVersionDao.insert(version);
+        documentVersionContentManager.insert(version);
     }
 
     /**
@@ -1572,7 +1740,7 @@ public class DocumentServiceImpl implements DocumentService {
         version.setCreatedByName("系统管理员"); // TODO: 获取实际用户名
         version.setCreatedTime(LocalDateTime.now());
 
-        documentVersionDao.insert(version);
+        documentVersionContentManager.insert(version);
     }
 
     /**
@@ -0,0 +1,297 @@
+package net.lab1024.sa.admin.module.oa.document.version;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文本行级差量
+ * <p>
+ * 按行（保留换行符）计算 base → target 的最短编辑脚本（Myers算法，先裁掉公共前后缀），编码为两种指令：
+ * COPY(base起始行, 行数) 复制基准版本的连续行，INSERT(行...) 写入新行。删除的行不出现在脚本中。
+ * 应用差量时按指令顺序拼接即得到目标文本，结果与原文逐字符一致。
+ * <p>
+ * 编码格式：版本号(1字节) + 指令数(变长整数) + 指令序列；COPY = 0, 起始行, 行数；INSERT = 1, 行数, (字节长度, UTF-8字节)...
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public final class TextDelta {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int OP_COPY = 0;
+
+    private static final int OP_INSERT = 1;
+
+    private TextDelta() {
+    }
+
+    /**
+     * 计算差量
+     *
+     * @param maxEdits 允许的最大编辑行数（插入+删除），超过时放弃差量，避免大幅改写时计算量与内存随编辑距离平方增长
+     * @return 编码后的差量，编辑行数超过 maxEdits 时返回null
+     */
+    public static byte[] diff(String base, String target, int maxEdits) {
+        List<String> baseLines = splitLines(base);
+        List<String> targetLines = splitLines(target);
+        int[][] ids = toIds(baseLines, targetLines);
+        int[] a = ids[0];
+        int[] b = ids[1];
+
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix] == b[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix] == b[b.length - 1 - suffix]) {
+            suffix++;
+        }
+
+        // targetToBase[j]：目标第j行对应的基准行号，-1 表示新插入的行
+        int[] targetToBase = new int[b.length];
+        Arrays.fill(targetToBase, -1);
+        for (int i = 0; i < prefix; i++) {
+            targetToBase[i] = i;
+        }
+        for (int i = 0; i < suffix; i++) {
+            targetToBase[b.length - 1 - i] = a.length - 1 - i;
+        }
+        int[] middleA = Arrays.copyOfRange(a, prefix, a.length - suffix);
+        int[] middleB = Arrays.copyOfRange(b, prefix, b.length - suffix);
+        if (!matchMiddle(middleA, middleB, prefix, targetToBase, maxEdits)) {
+            return null;
+        }
+        return encode(targetLines, targetToBase);
+    }
+
+    /**
+     * 对基准文本应用差量
+     *
+     * @throws IllegalArgumentException 差量格式错误或与基准文本不匹配
+     */
+    public static String apply(String base, byte[] delta) {
+        List<String> baseLines = splitLines(base);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta))) {
+            int format = in.readUnsignedByte();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalArgumentException("不支持的差量格式: " + format);
+            }
+            StringBuilder result = new StringBuilder(base.length() + delta.length);
+            int ops = readVarInt(in);
+            for (int op = 0; op < ops; op++) {
+                int type = in.readUnsignedByte();
+                if (type == OP_COPY) {
+                    int start = readVarInt(in);
+                    int count = readVarInt(in);
+                    if (start + count > baseLines.size()) {
+                        throw new IllegalArgumentException("差量与基准版本不匹配");
+                    }
+                    for (int i = start; i < start + count; i++) {
+                        result.append(baseLines.get(i));
+                    }
+                } else if (type == OP_INSERT) {
+                    int count = readVarInt(in);
+                    for (int i = 0; i < count; i++) {
+                        byte[] bytes = new byte[readVarInt(in)];
+                        in.readFully(bytes);
+                        result.append(new String(bytes, StandardCharsets.UTF_8));
+                    }
+                } else {
+                    throw new IllegalArgumentException("未知的差量指令: " + type);
+                }
+            }
+            return result.toString();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("差量数据损坏", e);
+        }
+    }
+
+    /**
+     * 按行切分，每行保留行尾的换行符，拼接后与原文一致
+     */
+    static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return lines;
+        }
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    /**
+     * 行内容映射为整数，比较时不再逐字符比较字符串
+     */
+    private static int[][] toIds(List<String> baseLines, List<String> targetLines) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        int[] a = new int[baseLines.size()];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = dictionary.computeIfAbsent(baseLines.get(i), k -> dictionary.size());
+        }
+        int[] b = new int[targetLines.size()];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = dictionary.computeIfAbsent(targetLines.get(i), k -> dictionary.size());
+        }
+        return new int[][] {a, b};
+    }
+
+    /**
+     * Myers贪心算法求最短编辑脚本，回溯得到公共子序列并写入 targetToBase
+     * <p>
+     * 每一步只保存对角线 [-d, d] 范围内的最远到达点，内存为 O(D²)
+     *
+     * @return 编辑行数超过 maxEdits 时返回false
+     */
+    private static boolean matchMiddle(int[] a, int[] b, int offset, int[] targetToBase, int maxEdits) {
+        int n = a.length;
+        int m = b.length;
+        if (n == 0 || m == 0) {
+            return n + m <= maxEdits;
+        }
+        int max = Math.min(n + m, maxEdits);
+        int[] v = new int[2 * max + 3];
+        int center = max + 1;
+        List<int[]> trace = new ArrayList<>();
+        int found = -1;
+        for (int d = 0; d <= max && found < 0; d++) {
+            // 保存第d步开始前（即第d-1步结束后）对角线 [-(d-1), d-1] 的状态
+            trace.add(d == 0 ? new int[0] : Arrays.copyOfRange(v, center - d + 1, center + d));
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[center + k - 1] < v[center + k + 1])) {
+                    x = v[center + k + 1];
+                } else {
+                    x = v[center + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                v[center + k] = x;
+                if (x >= n && y >= m) {
+                    found = d;
+                    break;
+                }
+            }
+        }
+        if (found < 0) {
+            return false;
+        }
+
+        int x = n;
+        int y = m;
+        for (int d = found; d > 0; d--) {
+            int[] previous = trace.get(d);
+            int k = x - y;
+            boolean down = k == -d || (k != d && at(previous, d - 1, k - 1) < at(previous, d - 1, k + 1));
+            int previousK = down ? k + 1 : k - 1;
+            int previousX = at(previous, d - 1, previousK);
+            int previousY = previousX - previousK;
+            // 编辑之后的对角线段为匹配行
+            int startX = down ? previousX : previousX + 1;
+            while (x > startX && y > previousY + (down ? 1 : 0)) {
+                x--;
+                y--;
+                targetToBase[offset + y] = offset + x;
+            }
+            x = previousX;
+            y = previousY;
+        }
+        while (x > 0 && y > 0) {
+            x--;
+            y--;
+            targetToBase[offset + y] = offset + x;
+        }
+        return true;
+    }
+
+    private static int at(int[] snapshot, int d, int k) {
+        return snapshot[k + d];
+    }
+
+    private static byte[] encode(List<String> targetLines, int[] targetToBase) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            int ops = 0;
+            int j = 0;
+            while (j < targetToBase.length) {
+                if (targetToBase[j] >= 0) {
+                    int start = targetToBase[j];
+                    int count = 1;
+                    while (j + count < targetToBase.length && targetToBase[j + count] == start + count) {
+                        count++;
+                    }
+                    out.writeByte(OP_COPY);
+                    writeVarInt(out, start);
+                    writeVarInt(out, count);
+                    j += count;
+                } else {
+                    int count = 1;
+                    while (j + count < targetToBase.length && targetToBase[j + count] < 0) {
+                        count++;
+                    }
+                    out.writeByte(OP_INSERT);
+                    writeVarInt(out, count);
+                    for (int i = j; i < j + count; i++) {
+                        byte[] line = targetLines.get(i).getBytes(StandardCharsets.UTF_8);
+                        writeVarInt(out, line.length);
+                        out.write(line);
+                    }
+                    j += count;
+                }
+                ops++;
+            }
+            out.flush();
+            DataOutputStream header = new DataOutputStream(bytes);
+            header.writeByte(FORMAT_VERSION);
+            writeVarInt(header, ops);
+            body.writeTo(header);
+            header.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("变长整数格式错误");
+    }
+}
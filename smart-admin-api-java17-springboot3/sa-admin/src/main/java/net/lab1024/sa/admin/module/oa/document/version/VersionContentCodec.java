@@ -0,0 +1,165 @@
+package net.lab1024.sa.admin.module.oa.document.version;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentVersionEntity;
+
+/**
+ * 文档版本内容编解码
+ * <p>
+ * 版本内容按存储类型保存在 content 字段：
+ * - FULL 关键帧：全文UTF-8字节Deflate压缩后Base64编码
+ * - DELTA 差量：相对上一版本的 {@link TextDelta} 差量，Deflate压缩后Base64编码
+ * - 存储类型为空：历史数据，content 为明文
+ * <p>
+ * 重建某一版本时，从其所属关键帧开始依次应用差量
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public final class VersionContentCodec {
+
+    public static final String STORAGE_FULL = "FULL";
+
+    public static final String STORAGE_DELTA = "DELTA";
+
+    private VersionContentCodec() {
+    }
+
+    public static String compressText(String text) {
+        return compress(text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decompressText(String payload) {
+        return new String(decompress(payload), StandardCharsets.UTF_8);
+    }
+
+    public static String compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return Base64.getEncoder().encodeToString(out.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static byte[] decompress(String payload) {
+        byte[] data = Base64.getDecoder().decode(payload);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("版本内容压缩数据不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("版本内容压缩数据损坏", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 是否为完整内容（关键帧或历史明文），可不依赖其他版本直接读取
+     */
+    public static boolean isSelfContained(DocumentVersionEntity version) {
+        return !STORAGE_DELTA.equals(version.getStorageType());
+    }
+
+    /**
+     * 读取完整内容的版本
+     */
+    public static String readFull(DocumentVersionEntity version) {
+        if (version.getStorageType() == null) {
+            return version.getContent();
+        }
+        if (!STORAGE_FULL.equals(version.getStorageType())) {
+            throw new IllegalArgumentException("版本不是完整内容: versionId=" + version.getVersionId());
+        }
+        return version.getContent() == null ? null : decompressText(version.getContent());
+    }
+
+    /**
+     * 编码版本内容：距所属关键帧达到 keyframeInterval 个版本、无上一版本、差量计算放弃或差量超过原文一半时保存为关键帧，
+     * 否则保存相对上一版本的差量。写入 content、storageType、baseVersionNumber、contentSize
+     *
+     * @param previous        上一版本（按版本号），可为空
+     * @param previousContent 上一版本还原后的内容
+     * @param maxDiffLines    差量计算允许的最大编辑行数
+     */
+    public static void encode(DocumentVersionEntity version, String content, DocumentVersionEntity previous,
+            String previousContent, int keyframeInterval, int maxDiffLines) {
+        byte[] raw = content == null ? new byte[0] : content.getBytes(StandardCharsets.UTF_8);
+        version.setContentSize((long) raw.length);
+        if (previous != null && previous.getVersionNumber() != null && version.getVersionNumber() != null) {
+            int base = isSelfContained(previous) || previous.getBaseVersionNumber() == null
+                    ? previous.getVersionNumber() : previous.getBaseVersionNumber();
+            if (version.getVersionNumber() - base < keyframeInterval) {
+                byte[] delta = TextDelta.diff(previousContent == null ? "" : previousContent,
+                        content == null ? "" : content, maxDiffLines);
+                if (delta != null && delta.length <= raw.length / 2) {
+                    version.setStorageType(STORAGE_DELTA);
+                    version.setBaseVersionNumber(base);
+                    version.setContent(compress(delta));
+                    return;
+                }
+            }
+        }
+        version.setStorageType(STORAGE_FULL);
+        version.setBaseVersionNumber(version.getVersionNumber());
+        version.setContent(compress(raw));
+    }
+
+    /**
+     * 重建版本链最后一个版本的内容
+     *
+     * @param chain 按版本号升序排列、以目标版本结尾的版本，需包含目标版本之前最近的完整内容版本
+     * @throws IllegalArgumentException 版本链中没有完整内容版本或差量与基准不匹配
+     */
+    public static String reconstruct(List<DocumentVersionEntity> chain) {
+        int start = chain.size() - 1;
+        while (start >= 0 && !isSelfContained(chain.get(start))) {
+            start--;
+        }
+        if (start < 0) {
+            throw new IllegalArgumentException("版本链缺少关键帧");
+        }
+        return replay(readFull(chain.get(start)), chain.subList(start + 1, chain.size()));
+    }
+
+    /**
+     * 从已知内容开始依次应用后续版本，遇到完整内容版本时以其内容为准
+     *
+     * @param content  versions 第一个版本的上一版本内容
+     * @param versions 按版本号升序排列的后续版本
+     */
+    public static String replay(String content, List<DocumentVersionEntity> versions) {
+        for (DocumentVersionEntity version : versions) {
+            if (isSelfContained(version)) {
+                content = readFull(version);
+            } else {
+                content = TextDelta.apply(content == null ? "" : content, decompress(version.getContent()));
+            }
+        }
+        return content;
+    }
+}
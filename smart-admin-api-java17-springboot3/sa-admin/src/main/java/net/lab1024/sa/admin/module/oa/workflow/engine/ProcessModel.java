@@ -0,0 +1,310 @@
+package net.lab1024.sa.admin.module.oa.workflow.engine;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import net.lab1024.sa.common.workflow.ConditionExpression;
+
+/**
+ * 编译后的流程模型
+ * <p>
+ * 流程定义加载时由BPMN XML解析一次：节点按ID索引，连线按来源节点分组，连线条件预编译为 {@link ConditionExpression}。
+ * 流转时只取当前节点的出线求值，不再遍历全部连线。
+ * <p>
+ * 支持的元素：startEvent、endEvent、userTask（assignee、candidateGroups、candidateUsers，忽略命名空间前缀）、
+ * exclusiveGateway（default 默认出线）、parallelGateway、inclusiveGateway、sequenceFlow（conditionExpression）
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public final class ProcessModel {
+
+    /**
+     * 网关连续穿越的最大深度，防止网关之间成环时死循环
+     */
+    private static final int MAX_GATEWAY_DEPTH = 32;
+
+    public enum NodeType {
+        START_EVENT, END_EVENT, USER_TASK, EXCLUSIVE_GATEWAY, PARALLEL_GATEWAY, INCLUSIVE_GATEWAY
+    }
+
+    /**
+     * 流程节点
+     *
+     * @param candidateGroups 候选组，逗号分隔
+     * @param candidateUsers  候选人ID，逗号分隔
+     * @param defaultFlowId   网关的默认出线
+     */
+    public record FlowNode(String id, String name, NodeType type, String assignee, String candidateGroups,
+                           String candidateUsers, String defaultFlowId) {
+
+        public boolean isGateway() {
+            return type == NodeType.EXCLUSIVE_GATEWAY || type == NodeType.PARALLEL_GATEWAY
+                    || type == NodeType.INCLUSIVE_GATEWAY;
+        }
+    }
+
+    /**
+     * 连线
+     *
+     * @param condition 编译后的条件，无条件时为null
+     */
+    public record Transition(String id, String sourceId, String targetId, ConditionExpression condition) {
+
+        public boolean matches(Map<String, Object> variables) {
+            return condition == null || condition.evaluate(variables);
+        }
+    }
+
+    private final Map<String, FlowNode> nodes;
+
+    private final Map<String, List<Transition>> outgoing;
+
+    private final Map<String, Integer> incomingCount;
+
+    private final FlowNode startNode;
+
+    private ProcessModel(Map<String, FlowNode> nodes, Map<String, List<Transition>> outgoing,
+            Map<String, Integer> incomingCount, FlowNode startNode) {
+        this.nodes = nodes;
+        this.outgoing = outgoing;
+        this.incomingCount = incomingCount;
+        this.startNode = startNode;
+    }
+
+    /**
+     * 解析并编译BPMN流程定义
+     *
+     * @throws IllegalArgumentException XML无法解析、缺少开始节点、连线引用不存在的节点或条件表达式错误
+     */
+    public static ProcessModel parse(String bpmnXml) {
+        if (bpmnXml == null || bpmnXml.isBlank()) {
+            throw new IllegalArgumentException("流程定义为空");
+        }
+        Element process = findProcess(readDocument(bpmnXml).getDocumentElement());
+        if (process == null) {
+            throw new IllegalArgumentException("流程定义缺少process元素");
+        }
+
+        Map<String, FlowNode> nodes = new LinkedHashMap<>();
+        List<Element> flows = new ArrayList<>();
+        FlowNode startNode = null;
+        NodeList children = process.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (!(children.item(i) instanceof Element element)) {
+                continue;
+            }
+            String tag = localName(element);
+            if ("sequenceFlow".equals(tag)) {
+                flows.add(element);
+                continue;
+            }
+            NodeType type = nodeType(tag);
+            if (type == null) {
+                continue;
+            }
+            FlowNode node = new FlowNode(element.getAttribute("id"), element.getAttribute("name"), type,
+                    attribute(element, "assignee"), attribute(element, "candidateGroups"),
+                    attribute(element, "candidateUsers"), attribute(element, "default"));
+            nodes.put(node.id(), node);
+            if (type == NodeType.START_EVENT && startNode == null) {
+                startNode = node;
+            }
+        }
+        if (startNode == null) {
+            throw new IllegalArgumentException("流程定义缺少开始节点");
+        }
+
+        Map<String, List<Transition>> outgoing = new HashMap<>();
+        Map<String, Integer> incomingCount = new HashMap<>();
+        for (Element flow : flows) {
+            String id = flow.getAttribute("id");
+            String sourceId = flow.getAttribute("sourceRef");
+            String targetId = flow.getAttribute("targetRef");
+            if (!nodes.containsKey(sourceId) || !nodes.containsKey(targetId)) {
+                throw new IllegalArgumentException("连线引用了不存在的节点: " + id);
+            }
+            String conditionText = conditionText(flow);
+            ConditionExpression condition = conditionText != null ? ConditionExpression.compile(conditionText) : null;
+            outgoing.computeIfAbsent(sourceId, k -> new ArrayList<>())
+                    .add(new Transition(id, sourceId, targetId, condition));
+            incomingCount.merge(targetId, 1, Integer::sum);
+        }
+        outgoing.replaceAll((k, v) -> List.copyOf(v));
+        return new ProcessModel(Collections.unmodifiableMap(nodes), outgoing, incomingCount, startNode);
+    }
+
+    public FlowNode getStartNode() {
+        return startNode;
+    }
+
+    public FlowNode getNode(String nodeId) {
+        return nodes.get(nodeId);
+    }
+
+    public List<Transition> getOutgoing(String nodeId) {
+        return outgoing.getOrDefault(nodeId, List.of());
+    }
+
+    /**
+     * 指定节点是否直接流入并行汇聚网关（多条入线的并行网关），此时需等待其他分支的任务完成后才能继续流转
+     */
+    public boolean isJoining(String nodeId) {
+        for (Transition transition : getOutgoing(nodeId)) {
+            FlowNode target = nodes.get(transition.targetId());
+            if (target.type() == NodeType.PARALLEL_GATEWAY && incomingCount.getOrDefault(target.id(), 0) > 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 计算从指定节点离开后到达的用户任务或结束节点，途经的网关按条件自动穿越
+     * <p>
+     * 排他网关取第一条满足条件的非默认出线，都不满足时走默认出线；其他节点走所有满足条件的出线
+     *
+     * @return 到达的节点（USER_TASK 或 END_EVENT），无可达节点时为空
+     */
+    public List<FlowNode> resolveNext(String fromNodeId, Map<String, Object> variables) {
+        List<FlowNode> result = new ArrayList<>();
+        collectNext(fromNodeId, variables != null ? variables : Map.of(), result, 0);
+        return result;
+    }
+
+    private void collectNext(String nodeId, Map<String, Object> variables, List<FlowNode> result, int depth) {
+        if (depth > MAX_GATEWAY_DEPTH) {
+            throw new IllegalStateException("流程网关嵌套过深或成环: " + nodeId);
+        }
+        FlowNode node = nodes.get(nodeId);
+        for (Transition transition : selectTransitions(node, variables)) {
+            FlowNode target = nodes.get(transition.targetId());
+            if (target.isGateway()) {
+                collectNext(target.id(), variables, result, depth + 1);
+            } else if (!result.contains(target)) {
+                result.add(target);
+            }
+        }
+    }
+
+    private List<Transition> selectTransitions(FlowNode node, Map<String, Object> variables) {
+        List<Transition> candidates = getOutgoing(node.id());
+        if (node.type() != NodeType.EXCLUSIVE_GATEWAY) {
+            List<Transition> selected = new ArrayList<>(candidates.size());
+            for (Transition transition : candidates) {
+                if (transition.matches(variables)) {
+                    selected.add(transition);
+                }
+            }
+            return selected;
+        }
+        Transition fallback = null;
+        for (Transition transition : candidates) {
+            if (transition.id().equals(node.defaultFlowId())) {
+                fallback = transition;
+            } else if (transition.matches(variables)) {
+                return List.of(transition);
+            }
+        }
+        return fallback != null ? List.of(fallback) : List.of();
+    }
+
+    // ========== XML解析 ==========
+
+    private static Document readDocument(String xml) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            // 流程定义来自用户上传，禁用DTD与外部实体
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            // 解析错误以异常返回，不输出到标准错误
+            builder.setErrorHandler(new DefaultHandler());
+            return builder.parse(new InputSource(new StringReader(xml)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("流程定义XML解析失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static Element findProcess(Element root) {
+        if ("process".equals(localName(root))) {
+            return root;
+        }
+        NodeList children = root.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i) instanceof Element element && "process".equals(localName(element))) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private static NodeType nodeType(String tag) {
+        switch (tag) {
+            case "startEvent":
+                return NodeType.START_EVENT;
+            case "endEvent":
+                return NodeType.END_EVENT;
+            case "userTask":
+                return NodeType.USER_TASK;
+            case "exclusiveGateway":
+                return NodeType.EXCLUSIVE_GATEWAY;
+            case "parallelGateway":
+                return NodeType.PARALLEL_GATEWAY;
+            case "inclusiveGateway":
+                return NodeType.INCLUSIVE_GATEWAY;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 按本地名取属性，兼容 flowable:assignee、activiti:assignee 等带前缀的写法
+     */
+    private static String attribute(Element element, String name) {
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            String attributeName = attribute.getLocalName() != null ? attribute.getLocalName() : attribute.getNodeName();
+            if (name.equals(attributeName)) {
+                String value = attribute.getNodeValue();
+                return value == null || value.isBlank() ? null : value.trim();
+            }
+        }
+        return null;
+    }
+
+    private static String conditionText(Element flow) {
+        NodeList children = flow.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i) instanceof Element element && "conditionExpression".equals(localName(element))) {
+                String text = element.getTextContent();
+                return text == null || text.isBlank() ? null : text.trim();
+            }
+        }
+        return null;
+    }
+
+    private static String localName(Node node) {
+        return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+    }
+}
@@ -0,0 +1,209 @@
+package net.lab1024.sa.admin.module.oa.workflow.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import net.lab1024.sa.admin.module.oa.workflow.domain.entity.WorkflowTaskEntity;
+
+/**
+ * 待办任务索引
+ * <p>
+ * 只保存ACTIVE状态的任务，按处理人、候选组、候选人建立倒排索引，查询用户待办时只访问该用户相关的任务，
+ * 与待办总量无关。数据库仍是任务的唯一存储，索引在启动时由数据库重建，任务创建、完成、转办时同步维护。
+ * <p>
+ * 线程安全；同一任务的并发更新由调用方按任务串行
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class WorkflowTaskIndex {
+
+    /**
+     * 待办排序：优先级高的在前，同优先级按创建时间先后
+     */
+    private static final Comparator<WorkflowTaskEntity> TODO_ORDER = Comparator
+            .comparing((WorkflowTaskEntity t) -> t.getPriority() != null ? t.getPriority() : 0, Comparator.reverseOrder())
+            .thenComparing(WorkflowTaskEntity::getCreateTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(WorkflowTaskEntity::getTaskId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Map<Long, WorkflowTaskEntity> tasks = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> byAssignee = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Long>> byCandidateGroup = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> byCandidateUser = new ConcurrentHashMap<>();
+
+    /**
+     * 加入或更新任务，非ACTIVE状态的任务从索引中移除
+     */
+    public void put(WorkflowTaskEntity task) {
+        if (task == null || task.getTaskId() == null) {
+            return;
+        }
+        remove(task.getTaskId());
+        if (!"ACTIVE".equals(task.getStatus())) {
+            return;
+        }
+        tasks.put(task.getTaskId(), task);
+        if (task.getAssigneeId() != null) {
+            link(byAssignee, task.getAssigneeId(), task.getTaskId());
+        }
+        for (String group : split(task.getCandidateGroups())) {
+            link(byCandidateGroup, group, task.getTaskId());
+        }
+        for (String user : split(task.getCandidateUsers())) {
+            Long userId = parseUserId(user);
+            if (userId != null) {
+                link(byCandidateUser, userId, task.getTaskId());
+            }
+        }
+    }
+
+    public void putAll(Collection<WorkflowTaskEntity> activeTasks) {
+        activeTasks.forEach(this::put);
+    }
+
+    public WorkflowTaskEntity remove(Long taskId) {
+        WorkflowTaskEntity task = taskId != null ? tasks.remove(taskId) : null;
+        if (task == null) {
+            return null;
+        }
+        if (task.getAssigneeId() != null) {
+            unlink(byAssignee, task.getAssigneeId(), taskId);
+        }
+        for (String group : split(task.getCandidateGroups())) {
+            unlink(byCandidateGroup, group, taskId);
+        }
+        for (String user : split(task.getCandidateUsers())) {
+            Long userId = parseUserId(user);
+            if (userId != null) {
+                unlink(byCandidateUser, userId, taskId);
+            }
+        }
+        return task;
+    }
+
+    public WorkflowTaskEntity get(Long taskId) {
+        return taskId != null ? tasks.get(taskId) : null;
+    }
+
+    /**
+     * 用户的待办任务：指派给该用户的任务
+     */
+    public List<WorkflowTaskEntity> getAssignedTasks(Long userId) {
+        return collect(byAssignee.get(userId), null);
+    }
+
+    /**
+     * 用户可处理的任务：指派给该用户的任务，加上未指派且候选人包含该用户或候选组包含其所在组的任务
+     *
+     * @param groups 用户所在的候选组（角色编码、部门编码等，与流程定义中的candidateGroups一致）
+     */
+    public List<WorkflowTaskEntity> getUserTasks(Long userId, Collection<String> groups) {
+        Set<Long> taskIds = new LinkedHashSet<>();
+        Set<Long> candidateIds = new LinkedHashSet<>();
+        addAll(taskIds, byAssignee.get(userId));
+        addAll(candidateIds, byCandidateUser.get(userId));
+        if (groups != null) {
+            for (String group : groups) {
+                addAll(candidateIds, byCandidateGroup.get(group));
+            }
+        }
+        candidateIds.removeAll(taskIds);
+        List<WorkflowTaskEntity> result = collect(taskIds, null);
+        // 候选任务被他人认领后不再属于该用户
+        result.addAll(collect(candidateIds, task -> task.getAssigneeId() == null));
+        result.sort(TODO_ORDER);
+        return result;
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * 当前索引中的任务ID快照
+     */
+    public Set<Long> taskIds() {
+        return new HashSet<>(tasks.keySet());
+    }
+
+    public void clear() {
+        tasks.clear();
+        byAssignee.clear();
+        byCandidateGroup.clear();
+        byCandidateUser.clear();
+    }
+
+    private List<WorkflowTaskEntity> collect(Set<Long> taskIds, Predicate<WorkflowTaskEntity> filter) {
+        if (taskIds == null || taskIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<WorkflowTaskEntity> result = new ArrayList<>(taskIds.size());
+        for (Long taskId : taskIds) {
+            WorkflowTaskEntity task = tasks.get(taskId);
+            if (task != null && (filter == null || filter.test(task))) {
+                result.add(task);
+            }
+        }
+        if (filter == null) {
+            result.sort(TODO_ORDER);
+        }
+        return result;
+    }
+
+    private static void addAll(Set<Long> target, Set<Long> source) {
+        if (source != null) {
+            target.addAll(source);
+        }
+    }
+
+    /**
+     * 增删都在compute中完成，避免与移除空集合并发时丢失
+     */
+    private static <K> void link(Map<K, Set<Long>> index, K key, Long taskId) {
+        index.compute(key, (k, ids) -> {
+            Set<Long> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            result.add(taskId);
+            return result;
+        });
+    }
+
+    private static <K> void unlink(Map<K, Set<Long>> index, K key, Long taskId) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(taskId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        List<String> parts = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String trimmed = part.trim();
+            if (!trimmed.isEmpty()) {
+                parts.add(trimmed);
+            }
+        }
+        return parts;
+    }
+
+    private static Long parseUserId(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package net.lab1024.sa.admin.module.oa.workflow.manager;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import net.lab1024.sa.admin.module.oa.workflow.dao.WorkflowDefinitionDao;
@@ -17,6 +29,9 @@ import net.lab1024.sa.admin.module.oa.workflow.dao.WorkflowTaskDao;
 import net.lab1024.sa.admin.module.oa.workflow.domain.entity.WorkflowDefinitionEntity;
 import net.lab1024.sa.admin.module.oa.workflow.domain.entity.WorkflowInstanceEntity;
 import net.lab1024.sa.admin.module.oa.workflow.domain.entity.WorkflowTaskEntity;
+import net.lab1024.sa.admin.module.oa.workflow.engine.ProcessModel;
+import net.lab1024.sa.admin.module.oa.workflow.engine.WorkflowTaskIndex;
+import net.lab1024.sa.base.common.cache.CacheInvalidationBus;
 import net.lab1024.sa.base.common.manager.BaseCacheManager;
 
 /**
@@ -28,8 +43,12 @@ import net.lab1024.sa.base.common.manager.BaseCacheManager;
  *
  * 缓存Key规范: - workflow:definition:{definitionId} - 流程定义 -
  * workflow:instance:{instanceId} - 流程实例 -
- * workflow:task:{taskId} - 任务信息 - workflow:user:tasks:{userId} - 用户待办任务列表 -
- * workflow:variables:{instanceId} - 流程变量
+ * workflow:task:{taskId} - 任务信息 - workflow:variables:{instanceId} - 流程变量
+ *
+ * 待办任务由 {@link WorkflowTaskIndex} 按处理人/候选组/候选人索引，启动时由数据库重建；
+ * 任务变更在事务提交后经 {@link CacheInvalidationBus} 广播任务ID，其他节点按数据库最新状态更新本节点索引，
+ * 并每隔 workflow.task-index.resync-minutes 分钟与数据库对账一次，补上丢失的广播；
+ * 流程定义编译为 {@link ProcessModel} 后缓存，流转时按当前节点的出线与预编译条件计算下一节点
  *
  * @author SmartAdmin Team
  * @since 2025-11-16
@@ -38,6 +57,9 @@ import net.lab1024.sa.base.common.manager.BaseCacheManager;
 @Component
 public class WorkflowEngineManager extends BaseCacheManager {
 
+    /** 待办任务变更广播区域，键为任务ID */
+    private static final String TASK_REGION = "workflow:task";
+
     @Resource
     private WorkflowDefinitionDao workflowDefinitionDao;
 
@@ -47,9 +69,46 @@ public class WorkflowEngineManager extends BaseCacheManager {
     @Resource
     private WorkflowTaskDao workflowTaskDao;
 
+    @Resource
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${workflow.task-index.resync-minutes:10}")
+    private long resyncMinutes;
+
     // 运行中的流程实例缓存
     private final Map<Long, WorkflowInstanceEntity> runningInstances = new ConcurrentHashMap<>();
 
+    // 待办任务索引
+    private final WorkflowTaskIndex taskIndex = new WorkflowTaskIndex();
+
+    // 编译后的流程模型，按流程定义ID缓存
+    private final Map<Long, ProcessModel> processModels = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService taskIndexExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "workflow-task-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 由数据库重建待办任务索引，订阅其他节点的任务变更
+     */
+    @PostConstruct
+    public void init() {
+        // 回查数据库放到索引线程执行，不占用广播监听线程
+        cacheInvalidationBus.subscribe(TASK_REGION, key -> taskIndexExecutor.execute(
+                key == null ? this::resyncTaskIndex : () -> refreshTask(Long.valueOf(key))));
+        resyncTaskIndex();
+        log.info("待办任务索引加载完成: activeTasks={}", taskIndex.size());
+        taskIndexExecutor.scheduleWithFixedDelay(this::resyncTaskIndex, resyncMinutes, resyncMinutes,
+                TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        taskIndexExecutor.shutdownNow();
+    }
+
     @Override
     protected String getCachePrefix() {
         return "workflow:";
@@ -97,7 +156,7 @@ public class WorkflowEngineManager extends BaseCacheManager {
             workflowInstanceDao.insert(instance);
 
             // 3. 创建第一个任务
-            createFirstTask(instance, variables);
+            createFirstTask(definition, instance, variables);
 
             // 4. 缓存实例信息
             String instanceKey = buildCacheKey(instance.getInstanceId(), ":instance");
@@ -159,6 +218,8 @@ public class WorkflowEngineManager extends BaseCacheManager {
             }
 
             workflowTaskDao.updateById(task);
+            taskIndex.remove(taskId);
+            publishTaskChange(taskId);
 
             // 4. 更新流程实例变量
             WorkflowInstanceEntity instance = getInstance(task.getInstanceId());
@@ -171,7 +232,6 @@ public class WorkflowEngineManager extends BaseCacheManager {
 
             // 6. 清除相关缓存
             clearTaskCache(taskId);
-            clearUserTaskCache(assigneeId);
 
             log.info("任务完成成功: taskId={}", taskId);
             return true;
@@ -209,16 +269,50 @@ public class WorkflowEngineManager extends BaseCacheManager {
     /**
      * 获取用户待办任务列表
      */
-    @SuppressWarnings("unchecked")
     public List<WorkflowTaskEntity> getUserTasks(Long userId) {
-        String cacheKey = buildCacheKey(userId, ":user:tasks");
-        return getCache(cacheKey, () -> {
-            LambdaQueryWrapper<WorkflowTaskEntity> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(WorkflowTaskEntity::getAssigneeId, userId)
-                    .eq(WorkflowTaskEntity::getStatus, "ACTIVE")
-                    .orderByAsc(WorkflowTaskEntity::getCreateTime);
-            return workflowTaskDao.selectList(wrapper);
-        });
+        return taskIndex.getAssignedTasks(userId);
+    }
+
+    /**
+     * 获取用户可处理的任务：指派给用户的任务及用户作为候选人、所在候选组可认领的任务
+     *
+     * @param groups 用户所在的候选组
+     */
+    public List<WorkflowTaskEntity> getUserTasks(Long userId, Collection<String> groups) {
+        return taskIndex.getUserTasks(userId, groups);
+    }
+
+    /**
+     * 获取编译后的流程模型，流程定义无BPMN或解析失败时返回null（按简化流转处理）
+     */
+    public ProcessModel getProcessModel(Long definitionId) {
+        if (definitionId == null) {
+            return null;
+        }
+        ProcessModel model = processModels.get(definitionId);
+        if (model != null) {
+            return model;
+        }
+        WorkflowDefinitionEntity definition = getDefinition(definitionId);
+        if (definition == null || definition.getBpmnXml() == null || definition.getBpmnXml().isBlank()) {
+            return null;
+        }
+        try {
+            model = ProcessModel.parse(definition.getBpmnXml());
+        } catch (IllegalArgumentException e) {
+            log.warn("流程定义解析失败，按简化流转处理: definitionId={}, {}", definitionId, e.getMessage());
+            return null;
+        }
+        processModels.put(definitionId, model);
+        return model;
+    }
+
+    /**
+     * 流程定义变更后移除编译缓存
+     */
+    public void evictProcessModel(Long definitionId) {
+        processModels.remove(definitionId);
+        removeCache(buildCacheKey(definitionId, ":definition"));
     }
 
     // ========== 私有方法 ==========
@@ -231,9 +325,20 @@ public class WorkflowEngineManager extends BaseCacheManager {
     }
 
     /**
-     * 创建第一个任务
+     * 创建第一个任务：有流程模型时按开始节点的出线创建，否则创建发起人的"开始"任务
      */
-    private void createFirstTask(WorkflowInstanceEntity instance, Map<String, Object> variables) {
+    private void createFirstTask(WorkflowDefinitionEntity definition, WorkflowInstanceEntity instance,
+            Map<String, Object> variables) {
+        ProcessModel model = getProcessModel(definition.getDefinitionId());
+        if (model != null) {
+            Map<String, Object> flowVariables = buildFlowVariables(instance, variables, null);
+            List<ProcessModel.FlowNode> nextNodes = model.resolveNext(model.getStartNode().id(), flowVariables);
+            if (!nextNodes.isEmpty()) {
+                enterNodes(instance, nextNodes, flowVariables);
+                return;
+            }
+        }
+
         WorkflowTaskEntity task = new WorkflowTaskEntity();
         task.setInstanceId(instance.getInstanceId());
         task.setTaskName("开始");
@@ -248,6 +353,114 @@ public class WorkflowEngineManager extends BaseCacheManager {
         }
 
         workflowTaskDao.insert(task);
+        taskIndex.put(task);
+        publishTaskChange(task.getTaskId());
+    }
+
+    /**
+     * 进入下一批节点：用户任务创建待办，到达结束节点且无其他待办时结束流程实例
+     */
+    private void enterNodes(WorkflowInstanceEntity instance, List<ProcessModel.FlowNode> nodes,
+            Map<String, Object> flowVariables) {
+        boolean reachedEnd = false;
+        for (ProcessModel.FlowNode node : nodes) {
+            if (node.type() == ProcessModel.NodeType.USER_TASK) {
+                createNodeTask(instance, node, flowVariables);
+                instance.setCurrentActivityId(node.id());
+                instance.setCurrentActivityName(node.name());
+            } else if (node.type() == ProcessModel.NodeType.END_EVENT) {
+                reachedEnd = true;
+            }
+        }
+        if (reachedEnd && !hasActiveTasks(instance.getInstanceId())) {
+            completeInstance(instance);
+        } else {
+            workflowInstanceDao.updateById(instance);
+        }
+    }
+
+    /**
+     * 按用户任务节点创建待办，assignee 支持用户ID或 ${变量名}（如 ${startUserId}）
+     */
+    private void createNodeTask(WorkflowInstanceEntity instance, ProcessModel.FlowNode node,
+            Map<String, Object> flowVariables) {
+        WorkflowTaskEntity task = new WorkflowTaskEntity();
+        task.setInstanceId(instance.getInstanceId());
+        task.setDefinitionId(instance.getDefinitionId());
+        task.setProcessKey(instance.getProcessKey());
+        task.setInstanceName(instance.getInstanceName());
+        task.setStartUserId(instance.getStartUserId());
+        task.setTaskName(node.name());
+        task.setTaskKey(node.id());
+        task.setAssigneeId(resolveAssignee(node.assignee(), flowVariables));
+        task.setCandidateGroups(node.candidateGroups());
+        task.setCandidateUsers(node.candidateUsers());
+        task.setStatus("ACTIVE");
+        task.setCreateTime(LocalDateTime.now());
+        task.setStartTime(LocalDateTime.now());
+
+        workflowTaskDao.insert(task);
+        taskIndex.put(task);
+        publishTaskChange(task.getTaskId());
+    }
+
+    private Long resolveAssignee(String assignee, Map<String, Object> flowVariables) {
+        if (assignee == null) {
+            return null;
+        }
+        Object value = assignee;
+        if (assignee.startsWith("${") && assignee.endsWith("}")) {
+            value = flowVariables.get(assignee.substring(2, assignee.length() - 1).trim());
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return value != null ? Long.valueOf(value.toString().trim()) : null;
+        } catch (NumberFormatException e) {
+            log.warn("无法解析任务处理人: {}", assignee);
+            return null;
+        }
+    }
+
+    /**
+     * 流转使用的变量：流程实例变量 + 本次提交的变量 + 发起人、处理结果
+     */
+    private Map<String, Object> buildFlowVariables(WorkflowInstanceEntity instance, Map<String, Object> variables,
+            String outcome) {
+        Map<String, Object> flowVariables = new HashMap<>();
+        if (instance.getProcessVariables() != null && !instance.getProcessVariables().isBlank()) {
+            try {
+                flowVariables.putAll(com.alibaba.fastjson.JSON.parseObject(instance.getProcessVariables()));
+            } catch (Exception e) {
+                log.warn("流程变量解析失败: instanceId={}", instance.getInstanceId(), e);
+            }
+        }
+        if (variables != null) {
+            flowVariables.putAll(variables);
+        }
+        flowVariables.put("startUserId", instance.getStartUserId());
+        if (outcome != null) {
+            flowVariables.put("outcome", outcome);
+        }
+        return flowVariables;
+    }
+
+    private boolean hasActiveTasks(Long instanceId) {
+        LambdaQueryWrapper<WorkflowTaskEntity> activeWrapper = new LambdaQueryWrapper<>();
+        activeWrapper.eq(WorkflowTaskEntity::getInstanceId, instanceId)
+                .eq(WorkflowTaskEntity::getStatus, "ACTIVE");
+        return workflowTaskDao.selectCount(activeWrapper) > 0;
+    }
+
+    private void completeInstance(WorkflowInstanceEntity instance) {
+        instance.setStatus("COMPLETED");
+        instance.setEndTime(LocalDateTime.now());
+        workflowInstanceDao.updateById(instance);
+
+        // 清除实例缓存
+        String instanceKey = buildCacheKey(instance.getInstanceId(), ":instance");
+        removeCache(instanceKey);
     }
 
     /**
@@ -255,27 +468,27 @@ public class WorkflowEngineManager extends BaseCacheManager {
      */
     private void executeProcessFlow(WorkflowInstanceEntity instance, WorkflowTaskEntity currentTask,
             String outcome, Map<String, Object> variables) {
-        // 简化的流程流转逻辑
-        // 实际实现需要根据BPMN定义进行复杂的状态流转
-
         log.debug("执行流程流转: instanceId={}, taskId={}, outcome={}", instance.getInstanceId(),
                 currentTask.getTaskId(), outcome);
 
-        // 检查是否所有任务都已完成
-        LambdaQueryWrapper<WorkflowTaskEntity> activeWrapper = new LambdaQueryWrapper<>();
-        activeWrapper.eq(WorkflowTaskEntity::getInstanceId, instance.getInstanceId())
-                .eq(WorkflowTaskEntity::getStatus, "ACTIVE");
-        List<WorkflowTaskEntity> activeTasks = workflowTaskDao.selectList(activeWrapper);
-
-        if (activeTasks.isEmpty()) {
-            // 所有任务完成，结束流程实例
-            instance.setStatus("COMPLETED");
-            instance.setEndTime(LocalDateTime.now());
-            workflowInstanceDao.updateById(instance);
+        // 按流程模型流转：只对当前节点的出线求值
+        ProcessModel model = getProcessModel(instance.getDefinitionId());
+        if (model != null && model.getNode(currentTask.getTaskKey()) != null) {
+            // 并行汇聚：其他分支仍有待办时等待
+            if (model.isJoining(currentTask.getTaskKey()) && hasActiveTasks(instance.getInstanceId())) {
+                return;
+            }
+            Map<String, Object> flowVariables = buildFlowVariables(instance, variables, outcome);
+            List<ProcessModel.FlowNode> nextNodes = model.resolveNext(currentTask.getTaskKey(), flowVariables);
+            if (!nextNodes.isEmpty()) {
+                enterNodes(instance, nextNodes, flowVariables);
+                return;
+            }
+        }
 
-            // 清除实例缓存
-            String instanceKey = buildCacheKey(instance.getInstanceId(), ":instance");
-            removeCache(instanceKey);
+        // 无流程模型（或无后续节点）时：所有任务完成即结束流程实例
+        if (!hasActiveTasks(instance.getInstanceId())) {
+            completeInstance(instance);
         }
     }
 
@@ -285,8 +498,10 @@ public class WorkflowEngineManager extends BaseCacheManager {
     private void updateInstanceVariables(WorkflowInstanceEntity instance,
             Map<String, Object> variables) {
         try {
-            // 简化实现，实际需要合并现有变量
-            instance.setProcessVariables(convertToJson(variables));
+            // 合并到现有变量，流转条件可引用之前节点提交的变量
+            Map<String, Object> merged = buildFlowVariables(instance, variables, null);
+            merged.remove("startUserId");
+            instance.setProcessVariables(convertToJson(merged));
             workflowInstanceDao.updateById(instance);
         } catch (Exception e) {
             log.warn("更新实例变量失败: instanceId={}", instance.getInstanceId(), e);
@@ -313,14 +528,6 @@ public class WorkflowEngineManager extends BaseCacheManager {
         removeCache(taskKey);
     }
 
-    /**
-     * 清除用户任务缓存
-     */
-    private void clearUserTaskCache(Long userId) {
-        String userTaskKey = buildCacheKey(userId, ":user:tasks");
-        removeCache(userTaskKey);
-    }
-
     /**
      * 获取流程统计信息
      */
@@ -343,10 +550,7 @@ public class WorkflowEngineManager extends BaseCacheManager {
             stats.put("completedToday", completedToday);
 
             // 待处理任务数
-            LambdaQueryWrapper<WorkflowTaskEntity> taskCountWrapper = new LambdaQueryWrapper<>();
-            taskCountWrapper.eq(WorkflowTaskEntity::getStatus, "ACTIVE");
-            long activeTasks = workflowTaskDao.selectCount(taskCountWrapper);
-            stats.put("activeTasks", activeTasks);
+            stats.put("activeTasks", taskIndex.size());
 
         } catch (Exception e) {
             log.error("获取流程统计信息失败", e);
@@ -354,4 +558,61 @@ public class WorkflowEngineManager extends BaseCacheManager {
 
         return stats;
     }
+
+    /**
+     * 按数据库状态与索引对账：加入全部待办，索引中已不在待办列表里的任务逐个回查数据库
+     */
+    private void resyncTaskIndex() {
+        try {
+            LambdaQueryWrapper<WorkflowTaskEntity> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(WorkflowTaskEntity::getStatus, "ACTIVE");
+            List<WorkflowTaskEntity> activeTasks = workflowTaskDao.selectList(wrapper);
+            Set<Long> activeIds = activeTasks.stream().map(WorkflowTaskEntity::getTaskId)
+                    .collect(Collectors.toSet());
+            taskIndex.putAll(activeTasks);
+            for (Long taskId : taskIndex.taskIds()) {
+                if (!activeIds.contains(taskId)) {
+                    refreshTask(taskId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("待办任务索引对账失败", e);
+        }
+    }
+
+    /**
+     * 按数据库最新状态更新单个任务的索引，非ACTIVE或已删除的任务移出
+     */
+    private void refreshTask(Long taskId) {
+        try {
+            WorkflowTaskEntity task = workflowTaskDao.selectById(taskId);
+            if (task != null) {
+                taskIndex.put(task);
+            } else {
+                taskIndex.remove(taskId);
+            }
+        } catch (Exception e) {
+            log.warn("刷新待办任务索引失败: taskId={}", taskId, e);
+        }
+    }
+
+    /**
+     * 事务提交后广播任务变更，无事务时立即广播
+     */
+    private void publishTaskChange(Long taskId) {
+        if (taskId == null) {
+            return;
+        }
+        String key = String.valueOf(taskId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheInvalidationBus.publish(TASK_REGION, key);
+                }
+            });
+        } else {
+            cacheInvalidationBus.publish(TASK_REGION, key);
+        }
+    }
 }
@@ -0,0 +1,233 @@
+package net.lab1024.sa.admin.module.smart.access.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.lab1024.sa.admin.module.smart.access.domain.dto.TimeSlotConfig;
+
+/**
+ * 预编译时间段计划（不可变）
+ * <p>
+ * 将 {@link TimeSlotConfig} 一次性展开为按分钟的位图：
+ * - 周一至周日各一张1440位的分钟位图（weekday/weekend类型）
+ * - 节假日/特定日期按日期单独一张分钟位图
+ * <p>
+ * 时间范围语义与逐条解析完全一致：开始、结束均为闭区间，结束时刻仅在整分（秒和纳秒为0）时命中，
+ * 因此每张位图额外维护一份"结束整分"位图。判定只需一次位运算，不再解析JSON和字符串
+ *
+ * @author IOE-DREAM Team
+ * @since 2025-11-25
+ */
+public final class CompiledTimeSchedule {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final int WORDS_PER_DAY = (MINUTES_PER_DAY + 63) >>> 6;
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /**
+     * 全天允许（空配置）
+     */
+    public static final CompiledTimeSchedule ALLOW_ALL = new CompiledTimeSchedule(true, new DayMask[8], Map.of());
+
+    /**
+     * 全天拒绝（配置无法解析）
+     */
+    public static final CompiledTimeSchedule DENY_ALL = new CompiledTimeSchedule(false, new DayMask[8], Map.of());
+
+    private final boolean allowAll;
+
+    /** 下标1-7对应周一至周日，未配置为null */
+    private final DayMask[] weekdays;
+
+    /** 特定日期（节假日/特定日期类型） */
+    private final Map<LocalDate, DayMask> dates;
+
+    private CompiledTimeSchedule(boolean allowAll, DayMask[] weekdays, Map<LocalDate, DayMask> dates) {
+        this.allowAll = allowAll;
+        this.weekdays = weekdays;
+        this.dates = dates;
+    }
+
+    /**
+     * 编译时间段配置
+     *
+     * @param config 已解析的配置，为空或无时间段时返回 {@link #ALLOW_ALL}
+     */
+    public static CompiledTimeSchedule compile(TimeSlotConfig config) {
+        if (config == null || config.getTimeSlots() == null || config.getTimeSlots().isEmpty()) {
+            return ALLOW_ALL;
+        }
+
+        DayMask[] weekdays = new DayMask[8];
+        Map<LocalDate, DayMask> dates = new HashMap<>();
+        for (TimeSlotConfig.TimeSlot timeSlot : config.getTimeSlots()) {
+            if (timeSlot == null || timeSlot.getType() == null) {
+                continue;
+            }
+            switch (timeSlot.getType().toLowerCase()) {
+                case "weekday":
+                    compileDays(timeSlot, weekdays, 1, 5);
+                    break;
+                case "weekend":
+                    compileDays(timeSlot, weekdays, 6, 7);
+                    break;
+                case "holiday":
+                case "specific":
+                    compileDates(timeSlot, dates);
+                    break;
+                default:
+                    // 未知类型不产生任何允许时段，与逐条解析时的行为一致
+                    break;
+            }
+        }
+        return new CompiledTimeSchedule(false, weekdays, dates);
+    }
+
+    /**
+     * 判定时间是否落在允许时段内
+     */
+    public boolean matches(LocalDateTime time) {
+        if (allowAll) {
+            return true;
+        }
+        int minute = time.getHour() * 60 + time.getMinute();
+        boolean onMinute = time.getSecond() == 0 && time.getNano() == 0;
+
+        DayMask weekday = weekdays[time.getDayOfWeek().getValue()];
+        if (weekday != null && weekday.matches(minute, onMinute)) {
+            return true;
+        }
+        if (dates.isEmpty()) {
+            return false;
+        }
+        DayMask date = dates.get(time.toLocalDate());
+        return date != null && date.matches(minute, onMinute);
+    }
+
+    private static void compileDays(TimeSlotConfig.TimeSlot timeSlot, DayMask[] weekdays, int defaultFrom,
+                                    int defaultTo) {
+        DayMask mask = DayMask.of(timeSlot.getTimeRanges());
+        List<Integer> days = timeSlot.getDays();
+        if (days != null && !days.isEmpty()) {
+            for (Integer day : days) {
+                if (day != null && day >= 1 && day <= 7) {
+                    weekdays[day] = DayMask.or(weekdays[day], mask);
+                }
+            }
+        } else {
+            for (int day = defaultFrom; day <= defaultTo; day++) {
+                weekdays[day] = DayMask.or(weekdays[day], mask);
+            }
+        }
+    }
+
+    private static void compileDates(TimeSlotConfig.TimeSlot timeSlot, Map<LocalDate, DayMask> dates) {
+        if (timeSlot.getDates() == null || timeSlot.getDates().isEmpty()) {
+            return;
+        }
+        DayMask mask = DayMask.of(timeSlot.getTimeRanges());
+        for (String dateStr : timeSlot.getDates()) {
+            LocalDate date = parseDate(dateStr);
+            if (date != null) {
+                dates.put(date, DayMask.or(dates.get(date), mask));
+            }
+        }
+    }
+
+    /**
+     * 只接受与 yyyy-MM-dd 格式化结果完全相同的日期串，保持与字符串比较一致
+     */
+    private static LocalDate parseDate(String dateStr) {
+        if (dateStr == null) {
+            return null;
+        }
+        try {
+            LocalDate date = LocalDate.parse(dateStr, DATE_FORMATTER);
+            return date.format(DATE_FORMATTER).equals(dateStr) ? date : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static int parseMinute(String timeStr) {
+        LocalTime time = LocalTime.parse(timeStr, TIME_FORMATTER);
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * 单日分钟位图
+     */
+    private static final class DayMask {
+
+        /** [开始, 结束) 内的分钟 */
+        private final long[] minutes = new long[WORDS_PER_DAY];
+
+        /** 结束整分（闭区间端点） */
+        private final long[] endpoints = new long[WORDS_PER_DAY];
+
+        private static DayMask of(List<TimeSlotConfig.TimeRange> timeRanges) {
+            DayMask mask = new DayMask();
+            if (timeRanges == null || timeRanges.isEmpty()) {
+                // 未配置时间范围，全天允许
+                mask.set(0, MINUTES_PER_DAY);
+                return mask;
+            }
+            for (TimeSlotConfig.TimeRange timeRange : timeRanges) {
+                if (timeRange == null || timeRange.getStart() == null || timeRange.getEnd() == null) {
+                    continue;
+                }
+                int start;
+                int end;
+                try {
+                    start = parseMinute(timeRange.getStart());
+                    end = parseMinute(timeRange.getEnd());
+                } catch (Exception e) {
+                    // 非法时间范围不产生允许时段
+                    continue;
+                }
+                if (end <= start) {
+                    // 跨天：当天 [start, 24:00) 与 [00:00, end]
+                    mask.set(start, MINUTES_PER_DAY);
+                    mask.set(0, end);
+                } else {
+                    mask.set(start, end);
+                }
+                mask.endpoints[end >>> 6] |= 1L << end;
+            }
+            return mask;
+        }
+
+        private static DayMask or(DayMask left, DayMask right) {
+            if (left == null) {
+                return right;
+            }
+            DayMask merged = new DayMask();
+            for (int i = 0; i < WORDS_PER_DAY; i++) {
+                merged.minutes[i] = left.minutes[i] | right.minutes[i];
+                merged.endpoints[i] = left.endpoints[i] | right.endpoints[i];
+            }
+            return merged;
+        }
+
+        private void set(int from, int to) {
+            for (int minute = from; minute < to; minute++) {
+                minutes[minute >>> 6] |= 1L << minute;
+            }
+        }
+
+        private boolean matches(int minute, boolean onMinute) {
+            long bit = 1L << minute;
+            int word = minute >>> 6;
+            return (minutes[word] & bit) != 0 || (onMinute && (endpoints[word] & bit) != 0);
+        }
+    }
+}
@@ -6,10 +6,13 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.util.StringUtils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import lombok.extern.slf4j.Slf4j;
 import net.lab1024.sa.admin.module.smart.access.domain.dto.TimeSlotConfig;
@@ -28,6 +31,9 @@ import net.lab1024.sa.admin.module.smart.access.domain.dto.TimeSlotConfig;
  * - 支持特定日期时间段配置
  * - 支持多个时间段组合
  * - 时间段重叠处理
+ * <p>
+ * 性能：配置JSON首次出现时编译为 {@link CompiledTimeSchedule} 并按内容缓存，
+ * 后续判定只做位图查找；编译失败时回退到逐条解析
  *
  * @author IOE-DREAM Team
  * @since 2025-11-19
@@ -46,6 +52,14 @@ public class TimeSlotValidator {
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    /**
+     * 编译结果缓存：key为配置JSON原文，不同权限共用同一份时间段配置时只编译一次
+     */
+    private static final Cache<String, CompiledTimeSchedule> SCHEDULE_CACHE = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
     /**
      * 验证当前时间是否在允许的时间段内
      *
@@ -60,10 +74,55 @@ public class TimeSlotValidator {
             return true;
         }
 
+        CompiledTimeSchedule schedule = getCompiledSchedule(timePeriodsJson);
+        if (schedule != null) {
+            return schedule.matches(currentTime);
+        }
+        return validateByParsing(timePeriodsJson, currentTime);
+    }
+
+    /**
+     * 获取预编译时间段计划
+     *
+     * @param timePeriodsJson 时间段配置JSON字符串
+     * @return 编译结果，编译失败返回null
+     */
+    public static CompiledTimeSchedule getCompiledSchedule(String timePeriodsJson) {
+        if (!StringUtils.hasText(timePeriodsJson)) {
+            return CompiledTimeSchedule.ALLOW_ALL;
+        }
+        try {
+            return SCHEDULE_CACHE.get(timePeriodsJson, json -> {
+                TimeSlotConfig config = parseTimeSlotConfig(json);
+                // JSON无法解析时按安全策略拒绝访问
+                return config == null ? CompiledTimeSchedule.DENY_ALL : CompiledTimeSchedule.compile(config);
+            });
+        } catch (Exception e) {
+            log.warn("时间段配置编译失败，回退逐条解析，timePeriodsJson: {}", timePeriodsJson, e);
+            return null;
+        }
+    }
+
+    /**
+     * 逐条解析验证（编译失败时的回退路径）
+     *
+     * @param timePeriodsJson 时间段配置JSON字符串
+     * @param currentTime     当前时间
+     * @return 是否在允许的时间段内
+     */
+    static boolean validateByParsing(String timePeriodsJson, LocalDateTime currentTime) {
+        if (!StringUtils.hasText(timePeriodsJson)) {
+            return true;
+        }
+
         try {
             // 解析JSON配置
             TimeSlotConfig config = parseTimeSlotConfig(timePeriodsJson);
-            if (config == null || config.getTimeSlots() == null || config.getTimeSlots().isEmpty()) {
+            if (config == null) {
+                log.debug("时间段配置无法解析，拒绝访问");
+                return false;
+            }
+            if (config.getTimeSlots() == null || config.getTimeSlots().isEmpty()) {
                 log.debug("时间段配置为空，默认允许访问");
                 return true;
             }
@@ -2,6 +2,10 @@ package net.lab1024.sa.admin.module.smart.biometric.engine;
 
 import lombok.extern.slf4j.Slf4j;
 import net.lab1024.sa.admin.module.smart.biometric.constant.BiometricTypeEnum;
+import net.lab1024.sa.admin.module.smart.biometric.engine.index.FaceFeatureIndex;
+import net.lab1024.sa.admin.module.smart.biometric.engine.index.FaceMatch;
+import net.lab1024.sa.admin.module.smart.biometric.engine.index.FlatFaceFeatureIndex;
+import net.lab1024.sa.admin.module.smart.biometric.engine.index.IvfFaceFeatureIndex;
 
 import java.awt.image.BufferedImage;
 import java.util.*;
@@ -42,6 +46,18 @@ public class FaceRecognitionEngine implements BiometricAlgorithm {
     /** 算法超时时间（毫秒） */
     private static final long ALGORITHM_TIMEOUT_MS = 5000;
 
+    /** 默认特征维度 */
+    private static final int DEFAULT_FEATURE_DIMENSION = 128;
+
+    /** 默认1:N识别返回候选数 */
+    private static final int DEFAULT_IDENTIFY_TOP_K = 5;
+
+    /** 1:N索引类型：暴力检索 */
+    private static final String INDEX_TYPE_FLAT = "FLAT";
+
+    /** 1:N索引类型：倒排聚类近似检索 */
+    private static final String INDEX_TYPE_IVF = "IVF";
+
     // ================================
     // 核心组件
     // ================================
@@ -70,6 +86,9 @@ public class FaceRecognitionEngine implements BiometricAlgorithm {
     /** 模板存储 */
     private final Map<String, FaceTemplate> templateStore;
 
+    /** 1:N识别特征索引 */
+    private volatile FaceFeatureIndex featureIndex;
+
     /** 性能统计 */
     private final PerformanceStats performanceStats;
 
@@ -172,9 +191,10 @@ public class FaceRecognitionEngine implements BiometricAlgorithm {
             // 生成模板ID
             String templateId = generateTemplateId(userId, deviceId);
 
-            // 存储模板
+            // 存储模板并写入1:N索引
             FaceTemplate template = new FaceTemplate(templateId, userId, deviceId, feature);
             templateStore.put(templateId, template);
+            featureIndex.add(templateId, userId, toFloatVector(feature));
 
             // 记录性能
             long processingTime = System.currentTimeMillis() - startTime;
@@ -206,6 +226,7 @@ public class FaceRecognitionEngine implements BiometricAlgorithm {
             }
 
             FaceTemplate removed = templateStore.remove(templateId);
+            featureIndex.remove(templateId);
             if (removed == null) {
                 performanceStats.incrementFailureCalls();
                 return new BiometricResult(false, 0.0, System.currentTimeMillis() - startTime,
@@ -304,6 +325,96 @@ public class FaceRecognitionEngine implements BiometricAlgorithm {
         }
     }
 
+    /**
+     * 1:N人脸识别
+     *
+     * 不指定用户，在全部已注册模板中检索最相似的候选，
+     * 用于无读卡器的闸机等场景
+     *
+     * @param deviceId      设备ID
+     * @param biometricData 人脸图像数据
+     * @param topK          返回候选数量，小于等于0时使用默认值
+     * @return 识别结果，extraData中包含userId与candidates（按得分降序）
+     */
+    public BiometricResult identify(String deviceId, byte[] biometricData, int topK) {
+        long startTime = System.currentTimeMillis();
+        performanceStats.incrementTotalCalls();
+
+        try {
+            if (algorithmStatus.get() != AlgorithmStatus.READY) {
+                return new BiometricResult(false, 0.0, System.currentTimeMillis() - startTime,
+                    "算法未就绪");
+            }
+
+            // 解码图像数据
+            BufferedImage image = decodeImage(biometricData);
+            if (image == null) {
+                performanceStats.incrementFailureCalls();
+                return new BiometricResult(false, 0.0, System.currentTimeMillis() - startTime,
+                    "图像解码失败");
+            }
+
+            // 人脸检测
+            List<FaceDetectionResult> faces = faceDetector.detectFaces(image);
+            if (faces.isEmpty()) {
+                performanceStats.incrementFailureCalls();
+                return new BiometricResult(false, 0.0, System.currentTimeMillis() - startTime,
+                    "未检测到人脸");
+            }
+
+            // 活体检测
+            if (isLivenessCheckEnabled()) {
+                boolean isLive = livenessDetector.checkLiveness(image, faces.get(0));
+                if (!isLive) {
+                    performanceStats.incrementFailureCalls();
+                    return new BiometricResult(false, 0.0, System.currentTimeMillis() - startTime,
+                        "活体检测失败");
+                }
+            }
+
+            // 特征提取
+            FaceFeature currentFeature = featureExtractor.extractFeature(image, faces.get(0));
+            if (currentFeature == null) {
+                performanceStats.incrementFailureCalls();
+                return new BiometricResult(false, 0.0, System.currentTimeMillis() - startTime,
+                    "特征提取失败");
+            }
+
+            // 索引检索
+            List<FaceMatch> candidates = featureIndex.search(toFloatVector(currentFeature),
+                    topK > 0 ? topK : DEFAULT_IDENTIFY_TOP_K);
+            if (candidates.isEmpty()) {
+                performanceStats.incrementFailureCalls();
+                return new BiometricResult(false, 0.0, System.currentTimeMillis() - startTime,
+                    "人脸库为空");
+            }
+
+            FaceMatch best = candidates.get(0);
+            boolean success = best.getScore() >= getConfidenceThreshold();
+            double confidence = success ? best.getScore() : 0.0;
+
+            long processingTime = System.currentTimeMillis() - startTime;
+            performanceStats.recordSuccess(processingTime, confidence);
+
+            log.info("人脸1:N识别结果: deviceId={}, bestUserId={}, score={}, threshold={}, result={}",
+                    deviceId, best.getUserId(), best.getScore(), getConfidenceThreshold(), success);
+
+            BiometricResult result = new BiometricResult(success, confidence, processingTime,
+                    success ? "识别成功" : "未识别到匹配人员", success ? best.getTemplateId() : null);
+            if (success) {
+                result.getExtraData().put("userId", best.getUserId());
+            }
+            result.getExtraData().put("candidates", candidates);
+            return result;
+
+        } catch (Exception e) {
+            performanceStats.incrementFailureCalls();
+            long processingTime = System.currentTimeMillis() - startTime;
+            log.error("人脸1:N识别失败: deviceId={}", deviceId, e);
+            return new BiometricResult(false, 0.0, processingTime, "识别失败: " + e.getMessage());
+        }
+    }
+
     @Override
     public BiometricBatchResult batchAuthenticate(Long userId, String deviceId, byte[][] biometricDataArray) {
         long startTime = System.currentTimeMillis();
@@ -426,6 +537,9 @@ public class FaceRecognitionEngine implements BiometricAlgorithm {
 
             // 清空存储
             templateStore.clear();
+            if (featureIndex != null) {
+                featureIndex.clear();
+            }
 
             log.info("人脸识别引擎已清理");
 
@@ -447,6 +561,10 @@ public class FaceRecognitionEngine implements BiometricAlgorithm {
         config.put("enableLivenessCheck", true);
         config.put("maxConcurrentProcesses", MAX_CONCURRENT_PROCESSES);
         config.put("algorithmTimeout", ALGORITHM_TIMEOUT_MS);
+        config.put("featureDimension", DEFAULT_FEATURE_DIMENSION);
+        config.put("identifyIndexType", INDEX_TYPE_FLAT);
+        config.put("identifyIvfNlist", IvfFaceFeatureIndex.DEFAULT_NLIST);
+        config.put("identifyIvfNprobe", IvfFaceFeatureIndex.DEFAULT_NPROBE);
     }
 
     /**
@@ -468,6 +586,49 @@ public class FaceRecognitionEngine implements BiometricAlgorithm {
         // 初始化活体检测器
         this.livenessDetector = new RuleBasedLivenessDetector(config);
         this.livenessDetector.initialize();
+
+        // 初始化1:N识别索引，重新初始化时回灌已有模板
+        FaceFeatureIndex index = createFeatureIndex();
+        for (FaceTemplate template : templateStore.values()) {
+            index.add(template.getTemplateId(), template.getUserId(), toFloatVector(template.getFeature()));
+        }
+        this.featureIndex = index;
+    }
+
+    /**
+     * 按配置创建1:N识别索引
+     */
+    private FaceFeatureIndex createFeatureIndex() {
+        int dimension = getIntConfig("featureDimension", DEFAULT_FEATURE_DIMENSION);
+        Object indexType = config.get("identifyIndexType");
+        if (INDEX_TYPE_IVF.equals(indexType)) {
+            int nlist = getIntConfig("identifyIvfNlist", IvfFaceFeatureIndex.DEFAULT_NLIST);
+            int nprobe = getIntConfig("identifyIvfNprobe", IvfFaceFeatureIndex.DEFAULT_NPROBE);
+            log.info("人脸1:N识别使用IVF近似索引: dimension={}, nlist={}, nprobe={}", dimension, nlist, nprobe);
+            return new IvfFaceFeatureIndex(dimension, nlist, nprobe, executorService);
+        }
+        log.info("人脸1:N识别使用暴力检索索引: dimension={}", dimension);
+        return new FlatFaceFeatureIndex(dimension);
+    }
+
+    /**
+     * 特征向量转为float数组供索引使用
+     */
+    private float[] toFloatVector(FaceFeature feature) {
+        double[] source = feature.getFeatureVector();
+        float[] vector = new float[source.length];
+        for (int i = 0; i < source.length; i++) {
+            vector[i] = (float) source[i];
+        }
+        return vector;
+    }
+
+    /**
+     * 获取整型配置
+     */
+    private int getIntConfig(String key, int defaultValue) {
+        Object value = config.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
     }
 
     /**
@@ -0,0 +1,56 @@
+package net.lab1024.sa.admin.module.smart.biometric.engine.index;
+
+import java.util.List;
+
+/**
+ * 人脸特征检索索引（1:N识别）
+ *
+ * 所有写入的特征向量在入库时做L2归一化，检索得分即为余弦相似度，
+ * 与1:1验证使用的阈值口径保持一致
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+public interface FaceFeatureIndex {
+
+    /**
+     * 新增或覆盖模板特征
+     *
+     * @param templateId 模板ID
+     * @param userId     用户ID
+     * @param vector     特征向量（维度必须与索引维度一致）
+     */
+    void add(String templateId, Long userId, float[] vector);
+
+    /**
+     * 删除模板特征
+     *
+     * @param templateId 模板ID
+     * @return 是否存在并已删除
+     */
+    boolean remove(String templateId);
+
+    /**
+     * 检索最相似的前K个模板
+     *
+     * @param query 查询特征向量
+     * @param topK  返回数量
+     * @return 按得分降序排列的候选列表
+     */
+    List<FaceMatch> search(float[] query, int topK);
+
+    /**
+     * 当前索引中的模板数量
+     */
+    int size();
+
+    /**
+     * 特征维度
+     */
+    int dimension();
+
+    /**
+     * 清空索引
+     */
+    void clear();
+}
@@ -0,0 +1,24 @@
+package net.lab1024.sa.admin.module.smart.biometric.engine.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 人脸1:N检索候选结果
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@Data
+@AllArgsConstructor
+public class FaceMatch {
+
+    /** 模板ID */
+    private String templateId;
+
+    /** 用户ID */
+    private Long userId;
+
+    /** 余弦相似度得分 */
+    private double score;
+}
@@ -0,0 +1,171 @@
+package net.lab1024.sa.admin.module.smart.biometric.engine.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 紧凑特征矩阵
+ *
+ * 行优先存储在单个float[]中，删除时用末行填补空位，保证扫描区间始终连续，
+ * 内积计算采用4路展开，便于JIT自动向量化。非线程安全，由持有者负责加锁
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+class FeatureMatrix {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int dimension;
+
+    private float[] data;
+
+    private String[] templateIds;
+
+    private Long[] userIds;
+
+    private int size;
+
+    /** 模板ID -> 行号 */
+    private final Map<String, Integer> rowIndex;
+
+    FeatureMatrix(int dimension) {
+        this(dimension, INITIAL_CAPACITY);
+    }
+
+    FeatureMatrix(int dimension, int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.dimension = dimension;
+        this.data = new float[capacity * dimension];
+        this.templateIds = new String[capacity];
+        this.userIds = new Long[capacity];
+        this.rowIndex = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * 写入已归一化的特征向量，模板已存在时原位覆盖
+     */
+    void upsert(String templateId, Long userId, float[] normalized) {
+        Integer row = rowIndex.get(templateId);
+        if (row == null) {
+            ensureCapacity(size + 1);
+            row = size++;
+            rowIndex.put(templateId, row);
+        }
+        System.arraycopy(normalized, 0, data, row * dimension, dimension);
+        templateIds[row] = templateId;
+        userIds[row] = userId;
+    }
+
+    boolean remove(String templateId) {
+        Integer row = rowIndex.remove(templateId);
+        if (row == null) {
+            return false;
+        }
+        int last = --size;
+        if (row != last) {
+            System.arraycopy(data, last * dimension, data, row * dimension, dimension);
+            templateIds[row] = templateIds[last];
+            userIds[row] = userIds[last];
+            rowIndex.put(templateIds[row], row);
+        }
+        templateIds[last] = null;
+        userIds[last] = null;
+        return true;
+    }
+
+    boolean contains(String templateId) {
+        return rowIndex.containsKey(templateId);
+    }
+
+    /**
+     * 暴力扫描全部行，结果写入收集器
+     */
+    void scan(float[] query, TopKCollector collector) {
+        for (int row = 0; row < size; row++) {
+            collector.offer(dot(data, row * dimension, query, dimension), this, row);
+        }
+    }
+
+    /**
+     * 复制指定行到目标数组
+     */
+    void copyRow(int row, float[] target) {
+        System.arraycopy(data, row * dimension, target, 0, dimension);
+    }
+
+    String templateIdAt(int row) {
+        return templateIds[row];
+    }
+
+    Long userIdAt(int row) {
+        return userIds[row];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(templateIds, 0, size, null);
+        Arrays.fill(userIds, 0, size, null);
+        rowIndex.clear();
+        size = 0;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= templateIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, templateIds.length << 1);
+        data = Arrays.copyOf(data, capacity * dimension);
+        templateIds = Arrays.copyOf(templateIds, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+    }
+
+    // ================================
+    // 向量工具
+    // ================================
+
+    /**
+     * 内积，4路展开以减少循环依赖链
+     */
+    static float dot(float[] matrix, int offset, float[] query, int dimension) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        int bound = dimension & ~3;
+        for (; i < bound; i += 4) {
+            s0 += matrix[offset + i] * query[i];
+            s1 += matrix[offset + i + 1] * query[i + 1];
+            s2 += matrix[offset + i + 2] * query[i + 2];
+            s3 += matrix[offset + i + 3] * query[i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += matrix[offset + i] * query[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * L2归一化，返回新数组；零向量返回全零
+     */
+    static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += (double) v * v;
+        }
+        float[] result = new float[vector.length];
+        if (norm == 0.0) {
+            return result;
+        }
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = vector[i] * inv;
+        }
+        return result;
+    }
+}
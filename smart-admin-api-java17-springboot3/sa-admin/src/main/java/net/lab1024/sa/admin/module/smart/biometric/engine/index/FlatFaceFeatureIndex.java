@@ -0,0 +1,101 @@
+package net.lab1024.sa.admin.module.smart.biometric.engine.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 暴力检索人脸索引
+ *
+ * 全量特征存放在连续的float矩阵中，检索为精确的全表扫描，
+ * 适用于10万以下规模的人脸库
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+public class FlatFaceFeatureIndex implements FaceFeatureIndex {
+
+    private final int dimension;
+
+    private final FeatureMatrix matrix;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FlatFaceFeatureIndex(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("特征维度必须大于0");
+        }
+        this.dimension = dimension;
+        this.matrix = new FeatureMatrix(dimension);
+    }
+
+    @Override
+    public void add(String templateId, Long userId, float[] vector) {
+        checkDimension(vector);
+        float[] normalized = FeatureMatrix.normalize(vector);
+        lock.writeLock().lock();
+        try {
+            matrix.upsert(templateId, userId, normalized);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String templateId) {
+        lock.writeLock().lock();
+        try {
+            return matrix.remove(templateId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FaceMatch> search(float[] query, int topK) {
+        checkDimension(query);
+        if (topK <= 0) {
+            return Collections.emptyList();
+        }
+        float[] normalized = FeatureMatrix.normalize(query);
+        TopKCollector collector = new TopKCollector(topK);
+        lock.readLock().lock();
+        try {
+            matrix.scan(normalized, collector);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return collector.toList();
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return matrix.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            matrix.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkDimension(float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("特征维度不匹配, 期望: " + dimension);
+        }
+    }
+}
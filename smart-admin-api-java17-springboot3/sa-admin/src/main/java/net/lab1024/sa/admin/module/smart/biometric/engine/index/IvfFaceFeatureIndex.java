@@ -0,0 +1,421 @@
+package net.lab1024.sa.admin.module.smart.biometric.engine.index;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 倒排聚类（IVF）近似人脸索引
+ *
+ * 以球面K-Means将特征划分为nlist个簇，检索时只扫描与查询最接近的nprobe个簇，
+ * 面向10万以上规模的园区人脸库。未达到训练阈值前退化为单簇暴力扫描，结果与
+ * {@link FlatFaceFeatureIndex}一致
+ *
+ * 聚类训练在快照上离线进行，训练期间的增删操作会记录下来并在切换时重放，
+ * 检索仅在切换瞬间短暂阻塞
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@Slf4j
+public class IvfFaceFeatureIndex implements FaceFeatureIndex {
+
+    /** 默认簇数量 */
+    public static final int DEFAULT_NLIST = 256;
+
+    /** 默认探测簇数量 */
+    public static final int DEFAULT_NPROBE = 16;
+
+    /** 每簇最少样本数，达到 nlist * 该值 才开始训练 */
+    private static final int MIN_POINTS_PER_CENTROID = 39;
+
+    /** 每簇最多训练样本数 */
+    private static final int MAX_POINTS_PER_CENTROID = 64;
+
+    /** K-Means迭代次数 */
+    private static final int KMEANS_ITERATIONS = 8;
+
+    /** 规模增长到上次训练的倍数时重新训练 */
+    private static final int RETRAIN_GROWTH_FACTOR = 2;
+
+    private final int dimension;
+
+    private final int nlist;
+
+    private final int nprobe;
+
+    private final Executor trainExecutor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 聚类中心（nlist * dimension），未训练时为null */
+    private float[] centroids;
+
+    /** 倒排列表，未训练时仅有一个 */
+    private FeatureMatrix[] lists;
+
+    /** 模板ID -> 所在倒排列表 */
+    private Map<String, Integer> assignment;
+
+    /** 上次训练时的规模 */
+    private volatile int trainedSize;
+
+    /** 训练进行中标志 */
+    private final AtomicBoolean training = new AtomicBoolean(false);
+
+    /** 训练期间的增删记录，切换时重放 */
+    private final List<PendingOp> pendingOps = new ArrayList<>();
+
+    public IvfFaceFeatureIndex(int dimension) {
+        this(dimension, DEFAULT_NLIST, DEFAULT_NPROBE, Runnable::run);
+    }
+
+    public IvfFaceFeatureIndex(int dimension, int nlist, int nprobe, Executor trainExecutor) {
+        if (dimension <= 0 || nlist <= 0 || nprobe <= 0) {
+            throw new IllegalArgumentException("IVF索引参数必须大于0");
+        }
+        this.dimension = dimension;
+        this.nlist = nlist;
+        this.nprobe = Math.min(nprobe, nlist);
+        this.trainExecutor = trainExecutor;
+        this.lists = new FeatureMatrix[]{new FeatureMatrix(dimension)};
+        this.assignment = new HashMap<>();
+    }
+
+    @Override
+    public void add(String templateId, Long userId, float[] vector) {
+        checkDimension(vector);
+        float[] normalized = FeatureMatrix.normalize(vector);
+        int size;
+        lock.writeLock().lock();
+        try {
+            upsert(lists, centroids, assignment, templateId, userId, normalized);
+            if (training.get()) {
+                pendingOps.add(new PendingOp(templateId, userId, normalized));
+            }
+            size = assignment.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        triggerTrainIfNeeded(size);
+    }
+
+    @Override
+    public boolean remove(String templateId) {
+        lock.writeLock().lock();
+        try {
+            Integer listNo = assignment.remove(templateId);
+            if (listNo == null) {
+                return false;
+            }
+            lists[listNo].remove(templateId);
+            if (training.get()) {
+                pendingOps.add(new PendingOp(templateId, null, null));
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FaceMatch> search(float[] query, int topK) {
+        checkDimension(query);
+        if (topK <= 0) {
+            return Collections.emptyList();
+        }
+        float[] normalized = FeatureMatrix.normalize(query);
+        TopKCollector collector = new TopKCollector(topK);
+        lock.readLock().lock();
+        try {
+            if (centroids == null) {
+                lists[0].scan(normalized, collector);
+            } else {
+                for (int listNo : nearestCentroids(centroids, normalized, nprobe)) {
+                    lists[listNo].scan(normalized, collector);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return collector.toList();
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return assignment.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            centroids = null;
+            lists = new FeatureMatrix[]{new FeatureMatrix(dimension)};
+            assignment = new HashMap<>();
+            trainedSize = 0;
+            pendingOps.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 是否已完成聚类训练
+     */
+    public boolean isTrained() {
+        lock.readLock().lock();
+        try {
+            return centroids != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 立即训练聚类并重建倒排列表（同步执行）
+     */
+    public void train() {
+        if (!training.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            doTrain();
+        } finally {
+            training.set(false);
+        }
+    }
+
+    // ================================
+    // 私有方法
+    // ================================
+
+    private void triggerTrainIfNeeded(int size) {
+        int threshold = trainedSize == 0 ? nlist * MIN_POINTS_PER_CENTROID : trainedSize * RETRAIN_GROWTH_FACTOR;
+        if (size < threshold || training.get()) {
+            return;
+        }
+        if (!training.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            trainExecutor.execute(() -> {
+                try {
+                    doTrain();
+                } catch (Exception e) {
+                    log.error("IVF人脸索引训练失败", e);
+                } finally {
+                    training.set(false);
+                }
+            });
+        } catch (Exception e) {
+            training.set(false);
+            log.error("提交IVF人脸索引训练任务失败", e);
+        }
+    }
+
+    private void doTrain() {
+        long startTime = System.currentTimeMillis();
+
+        // 1. 读锁下获取快照
+        int total;
+        float[] vectors;
+        String[] templateIds;
+        Long[] userIds;
+        lock.readLock().lock();
+        try {
+            pendingOps.clear();
+            total = assignment.size();
+            vectors = new float[total * dimension];
+            templateIds = new String[total];
+            userIds = new Long[total];
+            float[] row = new float[dimension];
+            int n = 0;
+            for (FeatureMatrix list : lists) {
+                for (int i = 0; i < list.size(); i++) {
+                    list.copyRow(i, row);
+                    System.arraycopy(row, 0, vectors, n * dimension, dimension);
+                    templateIds[n] = list.templateIdAt(i);
+                    userIds[n] = list.userIdAt(i);
+                    n++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (total < nlist) {
+            return;
+        }
+
+        // 2. 锁外训练聚类中心并构建新倒排列表
+        float[] newCentroids = kmeans(vectors, total);
+        FeatureMatrix[] newLists = new FeatureMatrix[nlist];
+        int expected = Math.max(total / nlist, 1) * 2;
+        for (int i = 0; i < nlist; i++) {
+            newLists[i] = new FeatureMatrix(dimension, expected);
+        }
+        Map<String, Integer> newAssignment = new HashMap<>(total * 2);
+        float[] row = new float[dimension];
+        for (int n = 0; n < total; n++) {
+            System.arraycopy(vectors, n * dimension, row, 0, dimension);
+            upsert(newLists, newCentroids, newAssignment, templateIds[n], userIds[n], row);
+        }
+
+        // 3. 写锁下重放训练期间的变更并切换
+        lock.writeLock().lock();
+        try {
+            for (PendingOp op : pendingOps) {
+                if (op.vector == null) {
+                    Integer listNo = newAssignment.remove(op.templateId);
+                    if (listNo != null) {
+                        newLists[listNo].remove(op.templateId);
+                    }
+                } else {
+                    upsert(newLists, newCentroids, newAssignment, op.templateId, op.userId, op.vector);
+                }
+            }
+            pendingOps.clear();
+            centroids = newCentroids;
+            lists = newLists;
+            assignment = newAssignment;
+            trainedSize = newAssignment.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("IVF人脸索引训练完成: size={}, nlist={}, 耗时={}ms",
+                trainedSize, nlist, System.currentTimeMillis() - startTime);
+    }
+
+    private void upsert(FeatureMatrix[] targetLists, float[] targetCentroids, Map<String, Integer> targetAssignment,
+                        String templateId, Long userId, float[] normalized) {
+        int listNo = targetCentroids == null ? 0 : nearestCentroids(targetCentroids, normalized, 1)[0];
+        Integer previous = targetAssignment.put(templateId, listNo);
+        if (previous != null && previous != listNo) {
+            targetLists[previous].remove(templateId);
+        }
+        targetLists[listNo].upsert(templateId, userId, normalized);
+    }
+
+    /**
+     * 球面K-Means，返回归一化后的聚类中心
+     */
+    private float[] kmeans(float[] vectors, int total) {
+        Random random = new Random(42L);
+        int sampleCount = Math.min(total, nlist * MAX_POINTS_PER_CENTROID);
+        int[] sample = sampleRows(total, sampleCount, random);
+
+        float[] result = new float[nlist * dimension];
+        for (int c = 0; c < nlist; c++) {
+            System.arraycopy(vectors, sample[c] * dimension, result, c * dimension, dimension);
+        }
+
+        int[] assign = new int[sampleCount];
+        float[] sums = new float[nlist * dimension];
+        int[] counts = new int[nlist];
+        float[] row = new float[dimension];
+        for (int iter = 0; iter < KMEANS_ITERATIONS; iter++) {
+            Arrays.fill(sums, 0f);
+            Arrays.fill(counts, 0);
+            for (int s = 0; s < sampleCount; s++) {
+                System.arraycopy(vectors, sample[s] * dimension, row, 0, dimension);
+                int c = nearestCentroids(result, row, 1)[0];
+                assign[s] = c;
+                counts[c]++;
+                int base = c * dimension;
+                for (int d = 0; d < dimension; d++) {
+                    sums[base + d] += row[d];
+                }
+            }
+            for (int c = 0; c < nlist; c++) {
+                float[] centroid = new float[dimension];
+                if (counts[c] == 0) {
+                    // 空簇重新随机取样
+                    System.arraycopy(vectors, sample[random.nextInt(sampleCount)] * dimension, centroid, 0, dimension);
+                } else {
+                    System.arraycopy(sums, c * dimension, centroid, 0, dimension);
+                }
+                System.arraycopy(FeatureMatrix.normalize(centroid), 0, result, c * dimension, dimension);
+            }
+        }
+        return result;
+    }
+
+    private int[] sampleRows(int total, int sampleCount, Random random) {
+        int[] rows = new int[total];
+        for (int i = 0; i < total; i++) {
+            rows[i] = i;
+        }
+        for (int i = 0; i < sampleCount; i++) {
+            int j = i + random.nextInt(total - i);
+            int tmp = rows[i];
+            rows[i] = rows[j];
+            rows[j] = tmp;
+        }
+        return Arrays.copyOf(rows, sampleCount);
+    }
+
+    /**
+     * 选出与查询内积最大的count个聚类中心
+     */
+    private int[] nearestCentroids(float[] centroidMatrix, float[] query, int count) {
+        int[] best = new int[count];
+        float[] bestScores = new float[count];
+        Arrays.fill(bestScores, Float.NEGATIVE_INFINITY);
+        for (int c = 0; c < nlist; c++) {
+            float score = FeatureMatrix.dot(centroidMatrix, c * dimension, query, dimension);
+            if (score <= bestScores[count - 1]) {
+                continue;
+            }
+            int pos = count - 1;
+            while (pos > 0 && bestScores[pos - 1] < score) {
+                bestScores[pos] = bestScores[pos - 1];
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            bestScores[pos] = score;
+            best[pos] = c;
+        }
+        return best;
+    }
+
+    private void checkDimension(float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("特征维度不匹配, 期望: " + dimension);
+        }
+    }
+
+    /**
+     * 训练期间的增删记录，vector为null表示删除
+     */
+    private static class PendingOp {
+        private final String templateId;
+        private final Long userId;
+        private final float[] vector;
+
+        PendingOp(String templateId, Long userId, float[] vector) {
+            this.templateId = templateId;
+            this.userId = userId;
+            this.vector = vector;
+        }
+    }
+}
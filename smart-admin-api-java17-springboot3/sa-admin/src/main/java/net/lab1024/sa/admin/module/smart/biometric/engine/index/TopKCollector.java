@@ -0,0 +1,103 @@
+package net.lab1024.sa.admin.module.smart.biometric.engine.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 定长TopK收集器
+ *
+ * 基于原始数组的小顶堆，扫描过程中不产生对象分配，仅在输出时物化结果
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+class TopKCollector {
+
+    private final int k;
+
+    private final float[] scores;
+
+    private final String[] templateIds;
+
+    private final Long[] userIds;
+
+    private int size;
+
+    TopKCollector(int k) {
+        this.k = Math.max(k, 1);
+        this.scores = new float[this.k];
+        this.templateIds = new String[this.k];
+        this.userIds = new Long[this.k];
+    }
+
+    /**
+     * 尝试收录候选行
+     */
+    void offer(float score, FeatureMatrix matrix, int row) {
+        if (size < k) {
+            scores[size] = score;
+            templateIds[size] = matrix.templateIdAt(row);
+            userIds[size] = matrix.userIdAt(row);
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            scores[0] = score;
+            templateIds[0] = matrix.templateIdAt(row);
+            userIds[0] = matrix.userIdAt(row);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * 按得分降序输出
+     */
+    List<FaceMatch> toList() {
+        List<FaceMatch> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new FaceMatch(templateIds[i], userIds[i], scores[i]));
+        }
+        result.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        return result;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                break;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = (index << 1) + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && scores[right] < scores[left]) {
+                smallest = right;
+            }
+            if (scores[index] <= scores[smallest]) {
+                break;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+        String templateId = templateIds[i];
+        templateIds[i] = templateIds[j];
+        templateIds[j] = templateId;
+        Long userId = userIds[i];
+        userIds[i] = userIds[j];
+        userIds[j] = userId;
+    }
+}
@@ -5,6 +5,7 @@ import net.lab1024.sa.admin.module.system.device.domain.entity.UnifiedDeviceEnti
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
 import java.util.Map;
@@ -248,9 +249,9 @@ public interface UnifiedDeviceDao extends BaseMapper<UnifiedDeviceEntity> {
      * @param onlineStatus 在线状态
      * @return 更新行数
      */
-    @Select({
+    @Update({
         "<script>",
-        "SELECT COUNT(*) FROM t_unified_device",
+        "UPDATE t_unified_device SET online_status = #{onlineStatus}",
         "WHERE deleted_flag = 0",
         "  AND device_id IN",
         "  <foreach item='id' collection='deviceIds' open='(' separator=',' close=')'>",
@@ -260,6 +261,54 @@ public interface UnifiedDeviceDao extends BaseMapper<UnifiedDeviceEntity> {
     })
     long batchUpdateOnlineStatus(@Param("deviceIds") List<Long> deviceIds, @Param("onlineStatus") Integer onlineStatus);
 
+    /**
+     * 批量写入心跳时间并置为在线，离线中的设备恢复为正常状态
+     *
+     * @param heartbeats 设备心跳（deviceId、lastHeartbeatTime）
+     * @return 更新行数
+     */
+    @Update({
+        "<script>",
+        "UPDATE t_unified_device",
+        "SET last_heartbeat_time = CASE device_id",
+        "  <foreach item='item' collection='heartbeats'>",
+        "    WHEN #{item.deviceId} THEN #{item.lastHeartbeatTime}",
+        "  </foreach>",
+        "  END,",
+        "  online_status = 1,",
+        "  device_status = CASE WHEN device_status = 'OFFLINE' THEN 'NORMAL' ELSE device_status END",
+        "WHERE deleted_flag = 0",
+        "  AND device_id IN",
+        "  <foreach item='item' collection='heartbeats' open='(' separator=',' close=')'>",
+        "    #{item.deviceId}",
+        "  </foreach>",
+        "</script>"
+    })
+    int batchUpdateHeartbeatTime(@Param("heartbeats") List<UnifiedDeviceEntity> heartbeats);
+
+    /**
+     * 批量置为离线，库中心跳时间晚于判定依据的设备跳过，避免覆盖其他节点刚写入的心跳
+     *
+     * @param devices 设备（deviceId、判定离线时的最后心跳时间 lastHeartbeatTime，可为空）
+     * @return 更新行数
+     */
+    @Update({
+        "<script>",
+        "UPDATE t_unified_device SET online_status = 0",
+        "WHERE deleted_flag = 0",
+        "  AND (",
+        "  <foreach item='item' collection='devices' separator=' OR '>",
+        "    (device_id = #{item.deviceId} AND (last_heartbeat_time IS NULL",
+        "    <if test='item.lastHeartbeatTime != null'>",
+        "      OR last_heartbeat_time &lt;= #{item.lastHeartbeatTime}",
+        "    </if>",
+        "    ))",
+        "  </foreach>",
+        "  )",
+        "</script>"
+    })
+    int batchUpdateOffline(@Param("devices") List<UnifiedDeviceEntity> devices);
+
     /**
      * 批量更新设备状态
      *
@@ -0,0 +1,299 @@
+package net.lab1024.sa.admin.module.system.device.dispatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 设备命令批量并发下发
+ * <p>
+ * - 任务按分组（协议适配器/设备类型）排队，每组在途调用数受全局信号量限制，多个批次共享同一上限
+ * - 许可在设备调用真正返回时才释放：阻塞在socket读写上的调用无法被中断，超时后仍占用许可，
+ *   重试需重新获取许可，因此同组实际在途调用永远不超过上限
+ * - 超时与异常按指数退避加随机抖动重试，设备明确返回失败不重试
+ * - 工作线程池与调用线程池均有界，线程池已满时拒绝（调用被拒绝按异常重试，批次无法排队时直接失败）
+ * - 每台设备得出结果即回调，批次全部完成后按提交顺序返回结果列表
+ * <p>
+ * 指标（tag group=分组）：
+ * - device.command.latency 单台设备耗时（tag outcome=success/failure）
+ * - device.command.failures 失败次数（tag reason=失败原因）
+ * - device.command.retries 重试次数
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+public class DeviceCommandDispatcher {
+
+    private final DeviceDispatchOptions options;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 分组工作线程：从分组队列取任务并等待调用结果
+     */
+    private final ThreadPoolExecutor workerExecutor;
+
+    /**
+     * 设备调用线程：调用超时后继续运行到返回为止，不影响工作线程处理下一台设备
+     */
+    private final ThreadPoolExecutor callExecutor;
+
+    private final Map<String, Semaphore> groupPermits = new ConcurrentHashMap<>();
+
+    public DeviceCommandDispatcher(DeviceDispatchOptions options, MeterRegistry meterRegistry) {
+        this.options = options;
+        this.meterRegistry = meterRegistry;
+        this.workerExecutor = new ThreadPoolExecutor(options.getMaxWorkerThreads(), options.getMaxWorkerThreads(),
+                60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(options.getWorkerQueueCapacity()),
+                daemonThreads("device-dispatch-worker"), new ThreadPoolExecutor.AbortPolicy());
+        this.workerExecutor.allowCoreThreadTimeOut(true);
+        this.callExecutor = new ThreadPoolExecutor(0, options.getMaxCallThreads(), 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemonThreads("device-dispatch-call"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 并发下发一批任务
+     *
+     * @param tasks    下发任务
+     * @param onResult 每台设备得出结果时回调（在工作线程中执行），可为null
+     * @return 全部完成后按提交顺序返回结果
+     */
+    public CompletableFuture<List<DeviceCommandResult>> dispatch(List<DeviceCommandTask> tasks,
+                                                                 Consumer<DeviceCommandResult> onResult) {
+        CompletableFuture<List<DeviceCommandResult>> completion = new CompletableFuture<>();
+        if (tasks.isEmpty()) {
+            completion.complete(new ArrayList<>());
+            return completion;
+        }
+
+        Map<String, Queue<Indexed>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            DeviceCommandTask task = tasks.get(i);
+            groups.computeIfAbsent(task.group(), k -> new ConcurrentLinkedQueue<>()).add(new Indexed(i, task));
+        }
+
+        Batch batch = new Batch(tasks.size(), onResult, completion);
+        for (Map.Entry<String, Queue<Indexed>> group : groups.entrySet()) {
+            Semaphore permits = groupPermits.computeIfAbsent(group.getKey(),
+                    k -> new Semaphore(options.concurrencyOf(k)));
+            int workers = Math.min(options.concurrencyOf(group.getKey()), group.getValue().size());
+            int started = 0;
+            for (int i = 0; i < workers; i++) {
+                try {
+                    workerExecutor.execute(() -> drain(group.getValue(), permits, batch));
+                    started++;
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+            }
+            if (started == 0) {
+                // 已启动的工作线程会处理完整个分组队列，一个都没有时直接失败
+                log.warn("设备下发工作线程池已满，分组：{}，设备数：{}", group.getKey(), group.getValue().size());
+                reject(group.getValue(), batch);
+            }
+        }
+        return completion;
+    }
+
+    public void shutdown() {
+        workerExecutor.shutdownNow();
+        callExecutor.shutdownNow();
+    }
+
+    private void reject(Queue<Indexed> queue, Batch batch) {
+        Indexed item;
+        while ((item = queue.poll()) != null) {
+            batch.complete(item.index(), failure(item.task(), DeviceCommandResult.REASON_REJECTED, 0,
+                    System.nanoTime(), "下发任务过多，请稍后重试"));
+        }
+    }
+
+    private void drain(Queue<Indexed> queue, Semaphore permits, Batch batch) {
+        Indexed item;
+        while ((item = queue.poll()) != null) {
+            DeviceCommandResult result;
+            try {
+                result = execute(item.task(), permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result = failure(item.task(), DeviceCommandResult.REASON_INTERRUPTED, 0, System.nanoTime(),
+                        "下发已中断");
+            }
+            batch.complete(item.index(), result);
+        }
+    }
+
+    private DeviceCommandResult execute(DeviceCommandTask task, Semaphore permits) throws InterruptedException {
+        long start = System.nanoTime();
+        String reason = null;
+        String message = null;
+        int attempt = 0;
+        while (attempt <= options.getMaxRetries()) {
+            if (attempt > 0) {
+                counter("device.command.retries", task.group(), null).increment();
+                long bound = options.getRetryBackoffMs() << Math.min(attempt - 1, 16);
+                Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+            }
+            attempt++;
+            CompletableFuture<Map<String, Object>> future = submit(task, permits);
+            try {
+                Map<String, Object> response = future.get(options.getTimeoutMs(), TimeUnit.MILLISECONDS);
+                if (response != null && DeviceCommandResult.STATUS_SUCCESS.equals(response.get("status"))) {
+                    return success(task, attempt, start, response);
+                }
+                // 设备已应答但返回失败，重试无意义
+                return new DeviceCommandResult(task.deviceId(), task.group(), false,
+                        DeviceCommandResult.REASON_ERROR_RESPONSE, attempt, record(task, start, false,
+                        DeviceCommandResult.REASON_ERROR_RESPONSE),
+                        response != null ? response : DeviceCommandResult.errorResponse("设备无响应内容"));
+            } catch (TimeoutException e) {
+                // 不中断调用线程：阻塞在socket读写上的调用无法被中断，由调用返回时自行释放许可
+                reason = DeviceCommandResult.REASON_TIMEOUT;
+                message = "设备响应超时（" + options.getTimeoutMs() + "ms）";
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof RejectedExecutionException) {
+                    reason = DeviceCommandResult.REASON_REJECTED;
+                    message = "设备调用线程池已满";
+                } else {
+                    reason = DeviceCommandResult.REASON_EXCEPTION;
+                    message = "通信失败：" + cause.getMessage();
+                }
+                log.debug("设备调用异常，设备ID：{}，第{}次", task.deviceId(), attempt, cause);
+            }
+        }
+        log.warn("设备命令下发失败，设备ID：{}，分组：{}，原因：{}，调用次数：{}", task.deviceId(), task.group(), reason, attempt);
+        return failure(task, reason, attempt, start, message);
+    }
+
+    /**
+     * 获取分组许可后提交设备调用，许可在调用返回（无论是否已超时）时释放
+     */
+    private CompletableFuture<Map<String, Object>> submit(DeviceCommandTask task, Semaphore permits)
+            throws InterruptedException {
+        permits.acquire();
+        CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+        try {
+            callExecutor.execute(() -> {
+                try {
+                    future.complete(task.call().call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private DeviceCommandResult success(DeviceCommandTask task, int attempts, long start,
+                                        Map<String, Object> response) {
+        long latencyMs = record(task, start, true, null);
+        return new DeviceCommandResult(task.deviceId(), task.group(), true, null, attempts, latencyMs, response);
+    }
+
+    private DeviceCommandResult failure(DeviceCommandTask task, String reason, int attempts, long start,
+                                        String message) {
+        long latencyMs = record(task, start, false, reason);
+        return new DeviceCommandResult(task.deviceId(), task.group(), false, reason, attempts, latencyMs,
+                DeviceCommandResult.errorResponse(message));
+    }
+
+    private long record(DeviceCommandTask task, long start, boolean success, String reason) {
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("device.command.latency")
+                .tag("group", task.group())
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        if (!success) {
+            counter("device.command.failures", task.group(), reason).increment();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(elapsed);
+    }
+
+    private Counter counter(String name, String group, String reason) {
+        Counter.Builder builder = Counter.builder(name).tag("group", group);
+        if (reason != null) {
+            builder.tag("reason", reason);
+        }
+        return builder.register(meterRegistry);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Indexed(int index, DeviceCommandTask task) {
+    }
+
+    /**
+     * 单个批次的结果收集
+     */
+    private static final class Batch {
+
+        private final DeviceCommandResult[] results;
+
+        private final AtomicInteger remaining;
+
+        private final Consumer<DeviceCommandResult> onResult;
+
+        private final CompletableFuture<List<DeviceCommandResult>> completion;
+
+        Batch(int size, Consumer<DeviceCommandResult> onResult,
+              CompletableFuture<List<DeviceCommandResult>> completion) {
+            this.results = new DeviceCommandResult[size];
+            this.remaining = new AtomicInteger(size);
+            this.onResult = onResult;
+            this.completion = completion;
+        }
+
+        void complete(int index, DeviceCommandResult result) {
+            results[index] = result;
+            if (onResult != null) {
+                try {
+                    onResult.accept(result);
+                } catch (Exception e) {
+                    log.warn("设备下发结果回调异常，设备ID：{}", result.getDeviceId(), e);
+                }
+            }
+            // 计数递减对之前写入的结果建立happens-before，最后一个完成者可见全部结果
+            if (remaining.decrementAndGet() == 0) {
+                completion.complete(new ArrayList<>(Arrays.asList(results)));
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package net.lab1024.sa.admin.module.system.device.dispatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 单台设备的下发结果
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class DeviceCommandResult {
+
+    public static final String STATUS_SUCCESS = "SUCCESS";
+
+    public static final String STATUS_ERROR = "ERROR";
+
+    /** 设备不存在 */
+    public static final String REASON_NOT_FOUND = "NOT_FOUND";
+
+    /** 设备离线 */
+    public static final String REASON_OFFLINE = "OFFLINE";
+
+    /** 设备返回失败 */
+    public static final String REASON_ERROR_RESPONSE = "ERROR_RESPONSE";
+
+    /** 调用超时 */
+    public static final String REASON_TIMEOUT = "TIMEOUT";
+
+    /** 调用异常 */
+    public static final String REASON_EXCEPTION = "EXCEPTION";
+
+    /** 下发被中断（服务关闭） */
+    public static final String REASON_INTERRUPTED = "INTERRUPTED";
+
+    /** 线程池已满，下发被拒绝 */
+    public static final String REASON_REJECTED = "REJECTED";
+
+    private final Long deviceId;
+
+    private final String group;
+
+    private final boolean success;
+
+    /**
+     * 失败原因，成功时为null
+     */
+    private final String failureReason;
+
+    /**
+     * 实际调用次数（含重试），未调用为0
+     */
+    private final int attempts;
+
+    /**
+     * 从开始调用到得出结果的耗时（毫秒），含重试等待
+     */
+    private final long latencyMs;
+
+    /**
+     * 设备响应，失败时为错误响应
+     */
+    private final Map<String, Object> response;
+
+    /**
+     * 未调用设备即失败（不存在、离线等）
+     */
+    public static DeviceCommandResult rejected(Long deviceId, String group, String reason, String message) {
+        return new DeviceCommandResult(deviceId, group, false, reason, 0, 0L, errorResponse(message));
+    }
+
+    public static Map<String, Object> errorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", STATUS_ERROR);
+        response.put("message", message);
+        response.put("timestamp", System.currentTimeMillis());
+        return response;
+    }
+
+    /**
+     * 转为批量通信接口的结果格式：设备响应 + deviceId/attempts/latencyMs/failureReason
+     */
+    public Map<String, Object> toResponseMap() {
+        Map<String, Object> map = new HashMap<>(response);
+        map.put("deviceId", deviceId);
+        map.put("attempts", attempts);
+        map.put("latencyMs", latencyMs);
+        if (failureReason != null) {
+            map.put("failureReason", failureReason);
+        }
+        return map;
+    }
+}
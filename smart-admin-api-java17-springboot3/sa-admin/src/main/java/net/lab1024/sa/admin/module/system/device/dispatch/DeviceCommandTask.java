@@ -0,0 +1,16 @@
+package net.lab1024.sa.admin.module.system.device.dispatch;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 单台设备的下发任务
+ *
+ * @param deviceId 设备ID
+ * @param group    分组（协议适配器），同组共享并发上限
+ * @param call     设备调用，返回设备响应，status=SUCCESS 视为成功
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public record DeviceCommandTask(Long deviceId, String group, Callable<Map<String, Object>> call) {
+}
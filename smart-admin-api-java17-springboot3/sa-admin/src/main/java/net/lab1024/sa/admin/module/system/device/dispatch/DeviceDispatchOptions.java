@@ -0,0 +1,78 @@
+package net.lab1024.sa.admin.module.system.device.dispatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * 设备批量下发配置
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Data
+public class DeviceDispatchOptions {
+
+    /**
+     * 未单独配置的分组（设备类型）并发上限
+     */
+    private int defaultConcurrency = 32;
+
+    /**
+     * 各分组并发上限，所有批次共享
+     */
+    private Map<String, Integer> groupConcurrency = new HashMap<>();
+
+    /**
+     * 单台设备单次调用超时（毫秒）
+     */
+    private long timeoutMs = 10000L;
+
+    /**
+     * 超时或异常后的最大重试次数
+     */
+    private int maxRetries = 2;
+
+    /**
+     * 重试退避基数（毫秒），第n次重试在 [0, base * 2^(n-1)] 内随机等待
+     */
+    private long retryBackoffMs = 200L;
+
+    /**
+     * 工作线程数上限（所有批次、分组共享）
+     */
+    private int maxWorkerThreads = 128;
+
+    /**
+     * 工作线程全忙时可排队的分组任务数，超出后拒绝
+     */
+    private int workerQueueCapacity = 1000;
+
+    /**
+     * 设备调用线程数上限，超时未返回的调用也占用线程，超出后拒绝
+     */
+    private int maxCallThreads = 256;
+
+    public int concurrencyOf(String group) {
+        Integer concurrency = groupConcurrency.get(group);
+        return Math.max(1, concurrency != null ? concurrency : defaultConcurrency);
+    }
+
+    /**
+     * 解析 {@code ACCESS=64,VIDEO=16} 形式的分组并发配置
+     */
+    public static Map<String, Integer> parseGroupConcurrency(String value) {
+        Map<String, Integer> result = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return result;
+        }
+        for (String item : value.split(",")) {
+            String[] pair = item.split("=");
+            if (pair.length == 2 && !pair[0].isBlank()) {
+                result.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+            }
+        }
+        return result;
+    }
+}
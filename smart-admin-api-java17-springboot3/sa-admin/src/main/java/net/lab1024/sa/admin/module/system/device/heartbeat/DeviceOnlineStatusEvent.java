@@ -0,0 +1,32 @@
+package net.lab1024.sa.admin.module.system.device.heartbeat;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 设备心跳在线状态变化事件：心跳超时离线、离线后恢复心跳
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class DeviceOnlineStatusEvent {
+
+    private final Long deviceId;
+
+    private final String deviceName;
+
+    private final String deviceType;
+
+    private final boolean online;
+
+    /**
+     * 最后一次心跳时间，从未收到心跳时为null
+     */
+    private final LocalDateTime lastHeartbeatTime;
+}
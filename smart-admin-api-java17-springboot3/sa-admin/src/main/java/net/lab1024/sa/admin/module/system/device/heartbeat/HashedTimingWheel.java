@@ -0,0 +1,166 @@
+package net.lab1024.sa.admin.module.system.device.heartbeat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 哈希时间轮
+ * <p>
+ * - 按绝对时间分槽：槽位 = (到期时间 / tickMs) & (槽数 - 1)，每个键只占一个条目
+ * - 到期时调用 {@link ExpiryHandler}，返回新的到期时间即在轮中续期，返回0或负数则移除
+ * - 续期采用惰性方式：心跳只更新调用方自己的最后心跳时间，条目到期时由回调判断是否真正超时，
+ *   每台设备每个超时周期最多续期一次，心跳路径不触碰时间轮
+ * <p>
+ * {@link #schedule} 可在任意线程调用（先进入无锁队列）；{@link #advance} 只能由单一推进线程调用，槽位只被该线程访问
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class HashedTimingWheel {
+
+    /**
+     * 到期回调
+     */
+    @FunctionalInterface
+    public interface ExpiryHandler {
+
+        /**
+         * @param key   到期的键
+         * @param nowMs 当前时间
+         * @return 新的到期时间（毫秒）续期，0或负数表示移除
+         */
+        long onExpiry(long key, long nowMs);
+    }
+
+    private final long tickMs;
+
+    private final int mask;
+
+    private final List<Entry>[] buckets;
+
+    private final Queue<Entry> incoming = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 下一个待处理的刻度（绝对刻度 = 时间 / tickMs），仅推进线程访问
+     */
+    private long nextTick;
+
+    /**
+     * @param tickMs    刻度（毫秒），即到期检测精度
+     * @param wheelSize 槽数，向上取整为2的幂
+     * @param startMs   起始时间
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive");
+        }
+        int slots = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMs = tickMs;
+        this.mask = slots - 1;
+        this.buckets = new List[slots];
+        for (int i = 0; i < slots; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.nextTick = startMs / tickMs;
+    }
+
+    /**
+     * 加入一个键，同一键重复加入会产生多个条目，由调用方保证键不在轮中时才加入
+     */
+    public void schedule(long key, long deadlineMs) {
+        size.incrementAndGet();
+        incoming.add(new Entry(key, deadlineMs / tickMs));
+    }
+
+    /**
+     * 推进到指定时间，依次处理经过的每个刻度
+     *
+     * @return 本次触发的到期回调次数
+     */
+    public int advance(long nowMs, ExpiryHandler handler) {
+        Entry entry;
+        while ((entry = incoming.poll()) != null) {
+            place(entry);
+        }
+        int fired = 0;
+        long targetTick = nowMs / tickMs;
+        while (nextTick <= targetTick) {
+            fired += processBucket(nextTick, nowMs, handler);
+            nextTick++;
+        }
+        return fired;
+    }
+
+    /**
+     * 轮中条目数（含待加入的条目）
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    private int processBucket(long tick, long nowMs, ExpiryHandler handler) {
+        int index = (int) (tick & mask);
+        List<Entry> bucket = buckets[index];
+        int count = bucket.size();
+        int kept = 0;
+        int fired = 0;
+        for (int i = 0; i < count; i++) {
+            Entry entry = bucket.get(i);
+            if (entry.deadlineTick > tick) {
+                // 尚未到期（还需再转若干圈）
+                bucket.set(kept++, entry);
+                continue;
+            }
+            fired++;
+            long next;
+            try {
+                next = handler.onExpiry(entry.key, nowMs);
+            } catch (RuntimeException e) {
+                next = 0L;
+            }
+            if (next <= 0) {
+                size.decrementAndGet();
+                continue;
+            }
+            // 续期不早于下一个刻度，避免在本刻度内重复触发
+            entry.deadlineTick = Math.max(next / tickMs, tick + 1);
+            if ((entry.deadlineTick & mask) == index) {
+                bucket.set(kept++, entry);
+            } else {
+                buckets[(int) (entry.deadlineTick & mask)].add(entry);
+            }
+        }
+        bucket.subList(kept, count).clear();
+        return fired;
+    }
+
+    private void place(Entry entry) {
+        // 已过期的条目放到下一个待处理刻度，立即触发
+        if (entry.deadlineTick < nextTick) {
+            entry.deadlineTick = nextTick;
+        }
+        buckets[(int) (entry.deadlineTick & mask)].add(entry);
+    }
+
+    private static final class Entry {
+
+        private final long key;
+
+        private long deadlineTick;
+
+        Entry(long key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
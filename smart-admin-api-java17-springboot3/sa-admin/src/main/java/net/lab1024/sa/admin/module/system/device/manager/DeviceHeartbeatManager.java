@@ -0,0 +1,658 @@
+package net.lab1024.sa.admin.module.system.device.manager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.admin.module.system.device.dao.UnifiedDeviceDao;
+import net.lab1024.sa.admin.module.system.device.domain.entity.UnifiedDeviceEntity;
+import net.lab1024.sa.admin.module.system.device.heartbeat.DeviceOnlineStatusEvent;
+import net.lab1024.sa.admin.module.system.device.heartbeat.HashedTimingWheel;
+
+/**
+ * 设备心跳管理器
+ * <p>
+ * - 心跳只更新内存中的最后心跳时间，由 {@link HashedTimingWheel} 按设备跟踪超时（心跳间隔 × 3）
+ * - 多实例部署时设备可能连到任一节点，每个节点都跟踪全部设备，只有部分节点收到某台设备的心跳。
+ *   各节点按 flush-interval-ms 把收到的最后心跳时间合并写入Redis（last-seen，只增不减），在线状态也保存在Redis（status）：
+ *   本地到期时先用Lua脚本读取全集群的最后心跳，仍未超时则按其续期；确已超时时由脚本原子地把状态置为离线，
+ *   只有置位成功的节点发布离线事件 {@link DeviceOnlineStatusEvent}，其他节点只更新本地标记。
+ *   离线设备再次心跳时同样由把状态置回在线的节点发布恢复事件。
+ *   因其他节点的心跳最多延迟 flush-interval-ms 才可见，flush-interval-ms 须小于心跳间隔 × 2，否则会误判离线
+ * - 离线设备仍留在时间轮中，每个超时周期复查一次全集群最后心跳，其他节点收到心跳后本地标记随之恢复
+ * - 心跳时间与离线状态按 flush-interval-ms 合并批量写库；离线只在库中心跳时间不晚于判定依据时写入，不会覆盖其他节点刚写入的心跳
+ * - 启动时从数据库加载启用的设备；已超时的设备在第一个tick按同样规则判定并写库离线，库中本已离线的不再发布事件
+ * - 未知、已删除或已停用设备的心跳在 negative-cache-ms 内直接拒绝，不再逐次查库
+ * - Redis不可用时退化为按本节点心跳判定
+ * <p>
+ * 配置项（device.heartbeat.*）：tick-ms、wheel-size、flush-interval-ms、flush-batch-size、negative-cache-ms、negative-cache-size
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class DeviceHeartbeatManager {
+
+    /** 超时判定为心跳间隔的倍数，与原数据库查询一致 */
+    private static final int TIMEOUT_MULTIPLIER = 3;
+
+    /** 哈希标签保证脚本涉及的键在集群中落在同一槽 */
+    private static final String KEY_PREFIX = "device:heartbeat:{state}:";
+
+    /** 设备ID -> 全集群最后心跳时间戳（毫秒） */
+    private static final String LAST_SEEN_KEY = KEY_PREFIX + "last-seen";
+
+    /** 设备ID -> 在线状态，1在线 0离线 */
+    private static final String STATUS_KEY = KEY_PREFIX + "status";
+
+    private static final String ONLINE = "1";
+
+    private static final String OFFLINE = "0";
+
+    /** 离线判定：全集群仍未超时 */
+    private static final long OFFLINE_ALIVE = 0L;
+
+    /** 离线判定：其他节点已置为离线 */
+    private static final long OFFLINE_ALREADY = -1L;
+
+    /** 离线判定：本节点置为离线，由本节点发布事件 */
+    private static final long OFFLINE_OWNER = -2L;
+
+    /**
+     * 离线判定
+     * KEYS: last-seen, status；ARGV: 设备ID, 当前时间戳, 超时毫秒数
+     * 仍未超时时返回全集群最后心跳时间戳（大于0），否则返回 -1（已离线）或 -2（本次置为离线）
+     */
+    private static final RedisScript<Long> OFFLINE_SCRIPT = RedisScript.of(
+            "local last = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0') "
+                    + "if last + tonumber(ARGV[3]) > tonumber(ARGV[2]) then return last end "
+                    + "if redis.call('HGET', KEYS[2], ARGV[1]) == '0' then return -1 end "
+                    + "redis.call('HSET', KEYS[2], ARGV[1], '0') "
+                    + "return -2", Long.class);
+
+    /**
+     * 离线设备恢复心跳
+     * KEYS: last-seen, status；ARGV: 设备ID, 心跳时间戳
+     * 返回1表示本次置为在线，由本节点发布恢复事件
+     */
+    private static final RedisScript<Long> ONLINE_SCRIPT = RedisScript.of(
+            "local last = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0') "
+                    + "if tonumber(ARGV[2]) > last then redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) end "
+                    + "if redis.call('HGET', KEYS[2], ARGV[1]) == '1' then return 0 end "
+                    + "redis.call('HSET', KEYS[2], ARGV[1], '1') "
+                    + "return 1", Long.class);
+
+    /**
+     * 批量写入最后心跳
+     * KEYS: last-seen, status；ARGV: 当前时间戳, 之后每三个一组：设备ID, 心跳时间戳, 超时毫秒数
+     * 心跳仍在超时范围内且状态为离线的设备置为在线，返回这些设备ID，由本节点发布恢复事件
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LAST_SEEN_SCRIPT = RedisScript.of(
+            "local now = tonumber(ARGV[1]) "
+                    + "local recovered = {} "
+                    + "for i = 2, #ARGV, 3 do "
+                    + "  local id = ARGV[i] "
+                    + "  local ts = tonumber(ARGV[i + 1]) "
+                    + "  local last = tonumber(redis.call('HGET', KEYS[1], id) or '0') "
+                    + "  if ts > last then redis.call('HSET', KEYS[1], id, ARGV[i + 1]) end "
+                    + "  if ts + tonumber(ARGV[i + 2]) > now then "
+                    + "    local status = redis.call('HGET', KEYS[2], id) "
+                    + "    if status ~= '1' then "
+                    + "      redis.call('HSET', KEYS[2], id, '1') "
+                    + "      if status == '0' then table.insert(recovered, id) end "
+                    + "    end "
+                    + "  end "
+                    + "end "
+                    + "return recovered", List.class);
+
+    private static final List<String> SCRIPT_KEYS = List.of(LAST_SEEN_KEY, STATUS_KEY);
+
+    @Resource
+    private UnifiedDeviceDao unifiedDeviceDao;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${device.heartbeat.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${device.heartbeat.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${device.heartbeat.flush-interval-ms:10000}")
+    private long flushIntervalMs;
+
+    @Value("${device.heartbeat.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${device.heartbeat.negative-cache-ms:60000}")
+    private long negativeCacheMs;
+
+    @Value("${device.heartbeat.negative-cache-size:10000}")
+    private int negativeCacheSize;
+
+    private final Map<Long, DeviceState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 待写库的设备，集合语义即合并：刷盘时读取设备的最新状态
+     */
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 在时间轮中有条目的设备，保证每台设备最多一个条目
+     */
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 查库后拒绝的设备ID -> 拒绝截止时间，期间的心跳不再查库；设备更新时清除
+     */
+    private final Map<Long, Long> rejectedUntil = new ConcurrentHashMap<>();
+
+    private final AtomicLong heartbeatCount = new AtomicLong();
+
+    private final AtomicLong offlineCount = new AtomicLong();
+
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    private final AtomicLong rejectedHeartbeats = new AtomicLong();
+
+    private HashedTimingWheel wheel;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "device-heartbeat-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "device-heartbeat-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        long now = System.currentTimeMillis();
+        wheel = new HashedTimingWheel(tickMs, wheelSize, now);
+        loadDevices(now);
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ticker.shutdownNow();
+        flusher.shutdownNow();
+        flush();
+    }
+
+    /**
+     * 处理设备心跳
+     *
+     * @return 设备不存在、已删除或已停用时返回false
+     */
+    public boolean onHeartbeat(Long deviceId) {
+        if (deviceId == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        DeviceState state = states.get(deviceId);
+        if (state == null) {
+            Long until = rejectedUntil.get(deviceId);
+            if (until != null && until > now) {
+                rejectedHeartbeats.incrementAndGet();
+                return false;
+            }
+            state = register(deviceId);
+            if (state == null) {
+                reject(deviceId, now);
+                return false;
+            }
+            rejectedUntil.remove(deviceId);
+        }
+        heartbeatCount.incrementAndGet();
+        state.lastHeartbeatMs = now;
+        state.silentOffline = false;
+        dirty.add(deviceId);
+        // 先写心跳时间再读超时标记，与到期回调中先置标记再复查心跳时间配对，保证心跳不会被误判离线
+        if (state.timedOut) {
+            boolean recovered = false;
+            synchronized (state) {
+                if (state.timedOut) {
+                    state.timedOut = false;
+                    recovered = true;
+                    scheduleIfAbsent(state, now + state.timeoutMs);
+                }
+            }
+            // 集群中可能已有其他节点先恢复并发布了事件
+            if (recovered && markOnline(deviceId, now)) {
+                publish(state, true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 设备是否心跳超时
+     *
+     * @return 未跟踪的设备返回null
+     */
+    public Boolean isTimedOut(Long deviceId) {
+        DeviceState state = deviceId != null ? states.get(deviceId) : null;
+        return state != null ? state.timedOut : null;
+    }
+
+    /**
+     * 内存中的最后心跳时间，未跟踪或从未心跳返回null
+     */
+    public LocalDateTime getLastHeartbeatTime(Long deviceId) {
+        DeviceState state = deviceId != null ? states.get(deviceId) : null;
+        return state != null ? toDateTime(state.lastHeartbeatMs) : null;
+    }
+
+    /**
+     * 心跳超时的设备ID，按最后心跳时间升序（从未心跳的在前）
+     *
+     * @param deviceType 设备类型，为空时不过滤
+     */
+    public List<Long> getTimedOutDeviceIds(String deviceType) {
+        List<DeviceState> timedOut = new ArrayList<>();
+        for (DeviceState state : states.values()) {
+            if (state.timedOut && (deviceType == null || deviceType.isEmpty()
+                    || deviceType.equals(state.deviceType))) {
+                timedOut.add(state);
+            }
+        }
+        timedOut.sort(Comparator.comparingLong(s -> s.lastHeartbeatMs));
+        List<Long> deviceIds = new ArrayList<>(timedOut.size());
+        for (DeviceState state : timedOut) {
+            deviceIds.add(state.deviceId);
+        }
+        return deviceIds;
+    }
+
+    /**
+     * 设备信息变更后重新加载心跳间隔等配置，保留内存中的心跳时间
+     */
+    public void reload(Long deviceId) {
+        rejectedUntil.remove(deviceId);
+        DeviceState previous = states.remove(deviceId);
+        DeviceState state = register(deviceId);
+        if (previous != null && state != null) {
+            synchronized (state) {
+                raiseLastHeartbeat(state, previous.lastHeartbeatMs);
+                // 已判定离线且仍未恢复的保持离线，时间轮中的条目到期时复查
+                state.timedOut = previous.timedOut && state.timeoutMs > 0
+                        && state.lastHeartbeatMs + state.timeoutMs <= System.currentTimeMillis();
+                state.silentOffline = previous.silentOffline;
+            }
+        }
+    }
+
+    /**
+     * 设备删除后停止跟踪，时间轮中的条目在到期时移除
+     */
+    public void forget(Long deviceId) {
+        states.remove(deviceId);
+        dirty.remove(deviceId);
+    }
+
+    public Map<String, Object> getStats() {
+        long timedOut = states.values().stream().filter(s -> s.timedOut).count();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("trackedDevices", states.size());
+        stats.put("timedOutDevices", timedOut);
+        stats.put("wheelEntries", wheel.size());
+        stats.put("scheduledDevices", scheduled.size());
+        stats.put("pendingWrites", dirty.size());
+        stats.put("heartbeats", heartbeatCount.get());
+        stats.put("offlineEvents", offlineCount.get());
+        stats.put("flushedRows", flushedRows.get());
+        stats.put("rejectedHeartbeats", rejectedHeartbeats.get());
+        stats.put("negativeCacheSize", rejectedUntil.size());
+        return stats;
+    }
+
+    /**
+     * 将待写的心跳时间与离线状态批量写库
+     */
+    public void flush() {
+        long now = System.currentTimeMillis();
+        rejectedUntil.values().removeIf(until -> until <= now);
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<DeviceState> beating = new ArrayList<>();
+        List<UnifiedDeviceEntity> heartbeats = new ArrayList<>();
+        List<UnifiedDeviceEntity> offline = new ArrayList<>();
+        Iterator<Long> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            Long deviceId = iterator.next();
+            iterator.remove();
+            DeviceState state = states.get(deviceId);
+            if (state == null) {
+                continue;
+            }
+            UnifiedDeviceEntity device = new UnifiedDeviceEntity();
+            device.setDeviceId(deviceId);
+            device.setLastHeartbeatTime(toDateTime(state.lastHeartbeatMs));
+            if (state.timedOut) {
+                offline.add(device);
+            } else if (state.lastHeartbeatMs > 0) {
+                beating.add(state);
+                heartbeats.add(device);
+            }
+        }
+        // 先写Redis，让其他节点尽快看到本节点收到的心跳
+        for (int from = 0; from < beating.size(); from += flushBatchSize) {
+            publishLastSeen(beating.subList(from, Math.min(from + flushBatchSize, beating.size())), now);
+        }
+        for (int from = 0; from < heartbeats.size(); from += flushBatchSize) {
+            List<UnifiedDeviceEntity> batch = heartbeats.subList(from, Math.min(from + flushBatchSize, heartbeats.size()));
+            try {
+                flushedRows.addAndGet(unifiedDeviceDao.batchUpdateHeartbeatTime(batch));
+            } catch (Exception e) {
+                log.error("批量写入设备心跳失败，数量：{}", batch.size(), e);
+                batch.forEach(device -> dirty.add(device.getDeviceId()));
+            }
+        }
+        for (int from = 0; from < offline.size(); from += flushBatchSize) {
+            List<UnifiedDeviceEntity> batch = offline.subList(from, Math.min(from + flushBatchSize, offline.size()));
+            try {
+                flushedRows.addAndGet(unifiedDeviceDao.batchUpdateOffline(batch));
+            } catch (Exception e) {
+                log.error("批量更新设备离线状态失败，数量：{}", batch.size(), e);
+                batch.forEach(device -> dirty.add(device.getDeviceId()));
+            }
+        }
+    }
+
+    /**
+     * 合并写入全集群最后心跳；其他节点已判定离线、而本节点期间收到过心跳的设备由本节点发布恢复事件
+     */
+    private void publishLastSeen(List<DeviceState> batch, long now) {
+        List<String> args = new ArrayList<>(batch.size() * 3 + 1);
+        args.add(String.valueOf(now));
+        for (DeviceState state : batch) {
+            args.add(String.valueOf(state.deviceId));
+            args.add(String.valueOf(state.lastHeartbeatMs));
+            args.add(String.valueOf(state.timeoutMs));
+        }
+        List<?> recovered;
+        try {
+            recovered = stringRedisTemplate.execute(LAST_SEEN_SCRIPT, SCRIPT_KEYS, args.toArray());
+        } catch (Exception e) {
+            log.warn("写入设备最后心跳到Redis失败，数量：{}", batch.size(), e);
+            return;
+        }
+        if (recovered == null) {
+            return;
+        }
+        for (Object deviceId : recovered) {
+            DeviceState state = states.get(Long.valueOf(String.valueOf(deviceId)));
+            if (state != null) {
+                publish(state, true);
+            }
+        }
+    }
+
+    private void tick() {
+        try {
+            wheel.advance(System.currentTimeMillis(), this::onExpiry);
+        } catch (Exception e) {
+            log.error("设备心跳时间轮推进异常", e);
+        }
+    }
+
+    /**
+     * 时间轮到期回调：期间有心跳则按最新心跳续期，否则判定离线
+     */
+    private long onExpiry(long deviceId, long now) {
+        DeviceState state = states.get(deviceId);
+        if (state == null || state.timeoutMs <= 0) {
+            scheduled.remove(deviceId);
+            // 移除期间设备被重新注册且未能入轮时，由本条目继续跟踪
+            DeviceState current = states.get(deviceId);
+            if (current != null && current.timeoutMs > 0 && scheduled.add(deviceId)) {
+                return current.lastHeartbeatMs + current.timeoutMs;
+            }
+            return 0L;
+        }
+        long deadline = state.lastHeartbeatMs + state.timeoutMs;
+        if (deadline > now) {
+            return deadline;
+        }
+        if (state.timedOut) {
+            // 已离线：复查其他节点是否收到心跳，收到则由那个节点发布恢复事件，本节点只更新标记
+            long shared = sharedLastHeartbeat(deviceId);
+            if (shared + state.timeoutMs > now) {
+                synchronized (state) {
+                    raiseLastHeartbeat(state, shared);
+                    state.timedOut = false;
+                }
+                return state.lastHeartbeatMs + state.timeoutMs;
+            }
+            return now + state.timeoutMs;
+        }
+        long result = markOffline(state, now);
+        if (result > OFFLINE_ALIVE) {
+            // 其他节点仍在收到心跳
+            raiseLastHeartbeat(state, result);
+            return Math.max(state.lastHeartbeatMs + state.timeoutMs, now + tickMs);
+        }
+        synchronized (state) {
+            if (state.timedOut) {
+                return now + state.timeoutMs;
+            }
+            state.timedOut = true;
+            // 复查：置标记前到达的心跳可能未看到标记，由这里续期
+            deadline = state.lastHeartbeatMs + state.timeoutMs;
+            if (deadline > now) {
+                state.timedOut = false;
+                return deadline;
+            }
+        }
+        // 各节点都写库，写入按心跳时间做了保护，重复写入无副作用
+        dirty.add(deviceId);
+        boolean silent = state.silentOffline;
+        state.silentOffline = false;
+        if (result == OFFLINE_OWNER && !silent) {
+            offlineCount.incrementAndGet();
+            log.warn("设备心跳超时，判定离线，设备ID：{}，最后心跳：{}", deviceId, toDateTime(state.lastHeartbeatMs));
+            publish(state, false);
+        }
+        // 离线设备留在时间轮中，按超时周期复查其他节点的心跳
+        return now + state.timeoutMs;
+    }
+
+    /**
+     * 在Redis中把设备置为离线
+     *
+     * @return 全集群仍未超时时返回最后心跳时间戳，否则返回 {@link #OFFLINE_ALREADY} 或 {@link #OFFLINE_OWNER}；
+     *         Redis不可用时按本节点判定，视为本节点置位
+     */
+    private long markOffline(DeviceState state, long now) {
+        try {
+            Long result = stringRedisTemplate.execute(OFFLINE_SCRIPT, SCRIPT_KEYS, String.valueOf(state.deviceId),
+                    String.valueOf(now), String.valueOf(state.timeoutMs));
+            return result != null ? result : OFFLINE_OWNER;
+        } catch (Exception e) {
+            log.warn("读取设备集群心跳失败，按本节点心跳判定，设备ID：{}", state.deviceId, e);
+            return OFFLINE_OWNER;
+        }
+    }
+
+    /**
+     * 在Redis中把设备置为在线
+     *
+     * @return 是否由本节点置位；Redis不可用时返回true
+     */
+    private boolean markOnline(Long deviceId, long now) {
+        try {
+            Long result = stringRedisTemplate.execute(ONLINE_SCRIPT, SCRIPT_KEYS, String.valueOf(deviceId),
+                    String.valueOf(now));
+            return result == null || result == 1L;
+        } catch (Exception e) {
+            log.warn("更新设备集群在线状态失败，设备ID：{}", deviceId, e);
+            return true;
+        }
+    }
+
+    /**
+     * 全集群最后心跳时间戳，无记录或Redis不可用时返回0
+     */
+    private long sharedLastHeartbeat(long deviceId) {
+        try {
+            Object value = stringRedisTemplate.opsForHash().get(LAST_SEEN_KEY, String.valueOf(deviceId));
+            return value != null ? Long.parseLong(value.toString()) : 0L;
+        } catch (Exception e) {
+            log.warn("读取设备集群心跳失败，设备ID：{}", deviceId, e);
+            return 0L;
+        }
+    }
+
+    private static void raiseLastHeartbeat(DeviceState state, long heartbeatMs) {
+        if (heartbeatMs > state.lastHeartbeatMs) {
+            state.lastHeartbeatMs = heartbeatMs;
+        }
+    }
+
+    /**
+     * 记录被拒绝的设备，超过容量时不再缓存，避免伪造的设备ID撑满内存
+     */
+    private void reject(Long deviceId, long now) {
+        if (negativeCacheMs > 0 && rejectedUntil.size() < negativeCacheSize) {
+            rejectedUntil.put(deviceId, now + negativeCacheMs);
+        }
+    }
+
+    private void loadDevices(long now) {
+        LambdaQueryWrapper<UnifiedDeviceEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(UnifiedDeviceEntity::getDeviceId, UnifiedDeviceEntity::getDeviceName,
+                UnifiedDeviceEntity::getDeviceType, UnifiedDeviceEntity::getHeartbeatInterval,
+                UnifiedDeviceEntity::getLastHeartbeatTime, UnifiedDeviceEntity::getOnlineStatus);
+        queryWrapper.eq(UnifiedDeviceEntity::getDeletedFlag, 0);
+        queryWrapper.eq(UnifiedDeviceEntity::getEnabled, 1);
+        int timedOut = 0;
+        for (UnifiedDeviceEntity device : unifiedDeviceDao.selectList(queryWrapper)) {
+            DeviceState state = track(device, now);
+            if (state.timeoutMs > 0 && state.lastHeartbeatMs + state.timeoutMs <= now) {
+                timedOut++;
+            }
+        }
+        log.info("设备心跳跟踪初始化完成，设备数：{}，按库中心跳已超时：{}", states.size(), timedOut);
+    }
+
+    private DeviceState register(Long deviceId) {
+        UnifiedDeviceEntity device = unifiedDeviceDao.selectById(deviceId);
+        if (device == null || Integer.valueOf(1).equals(device.getDeletedFlag())
+                || !Integer.valueOf(1).equals(device.getEnabled())) {
+            return null;
+        }
+        DeviceState state = track(device, System.currentTimeMillis());
+        return states.get(state.deviceId);
+    }
+
+    private DeviceState track(UnifiedDeviceEntity device, long now) {
+        Integer interval = device.getHeartbeatInterval();
+        long timeoutMs = interval != null && interval > 0 ? TimeUnit.SECONDS.toMillis(interval) * TIMEOUT_MULTIPLIER : 0L;
+        long lastHeartbeatMs = device.getLastHeartbeatTime() != null
+                ? device.getLastHeartbeatTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+        DeviceState state = new DeviceState(device.getDeviceId(), device.getDeviceName(), device.getDeviceType(),
+                timeoutMs, lastHeartbeatMs);
+        // 库中已是离线的设备，首次判定离线时不再发布事件
+        state.silentOffline = Integer.valueOf(0).equals(device.getOnlineStatus());
+        DeviceState existing = states.putIfAbsent(device.getDeviceId(), state);
+        if (existing != null) {
+            return existing;
+        }
+        // 已超时的设备在下一个tick到期，按集群心跳判定离线并写库
+        scheduleIfAbsent(state, Math.max(lastHeartbeatMs + timeoutMs, now));
+        return state;
+    }
+
+    /**
+     * 设备已有条目时不重复加入，到期回调读取最新状态，条目可跨重新加载复用
+     */
+    private void scheduleIfAbsent(DeviceState state, long deadlineMs) {
+        if (state.timeoutMs > 0 && scheduled.add(state.deviceId)) {
+            wheel.schedule(state.deviceId, deadlineMs);
+        }
+    }
+
+    private void publish(DeviceState state, boolean online) {
+        try {
+            eventPublisher.publishEvent(new DeviceOnlineStatusEvent(state.deviceId, state.deviceName,
+                    state.deviceType, online, toDateTime(state.lastHeartbeatMs)));
+        } catch (Exception e) {
+            log.error("发布设备在线状态事件失败，设备ID：{}", state.deviceId, e);
+        }
+    }
+
+    private static LocalDateTime toDateTime(long epochMilli) {
+        return epochMilli > 0 ? LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault()) : null;
+    }
+
+    /**
+     * 单台设备的心跳状态
+     */
+    private static final class DeviceState {
+
+        private final Long deviceId;
+
+        private final String deviceName;
+
+        private final String deviceType;
+
+        /**
+         * 超时时长，0表示未配置心跳间隔、不做超时判定
+         */
+        private final long timeoutMs;
+
+        private volatile long lastHeartbeatMs;
+
+        private volatile boolean timedOut;
+
+        /**
+         * 下次判定离线时不发布事件：库中已是离线，状态并未变化
+         */
+        private volatile boolean silentOffline;
+
+        DeviceState(Long deviceId, String deviceName, String deviceType, long timeoutMs, long lastHeartbeatMs) {
+            this.deviceId = deviceId;
+            this.deviceName = deviceName;
+            this.deviceType = deviceType;
+            this.timeoutMs = timeoutMs;
+            this.lastHeartbeatMs = lastHeartbeatMs;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import net.lab1024.sa.base.common.domain.ResponseDTO;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * 统一设备管理器
@@ -250,6 +252,17 @@ public interface UnifiedDeviceManager {
      */
     List<Map<String, Object>> batchCommunicateWithDevices(List<Long> deviceIds, Map<String, Object> request);
 
+    /**
+     * 批量设备通信（按设备类型分组并发下发，逐台回调结果）
+     *
+     * @param deviceIds 设备ID列表
+     * @param request 请求数据
+     * @param onResult 单台设备得出结果时回调，可为null
+     * @return 全部完成后按设备ID列表顺序返回响应结果
+     */
+    CompletableFuture<List<Map<String, Object>>> dispatchToDevices(List<Long> deviceIds, Map<String, Object> request,
+                                                                   Consumer<Map<String, Object>> onResult);
+
     /**
      * 获取设备通信日志
      *
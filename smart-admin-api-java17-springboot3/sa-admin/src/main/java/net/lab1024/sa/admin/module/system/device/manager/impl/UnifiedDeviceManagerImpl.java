@@ -2,21 +2,36 @@ package net.lab1024.sa.admin.module.system.device.manager.impl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import net.lab1024.sa.admin.module.system.device.dao.UnifiedDeviceDao;
+import net.lab1024.sa.admin.module.system.device.dispatch.DeviceCommandDispatcher;
+import net.lab1024.sa.admin.module.system.device.dispatch.DeviceCommandResult;
+import net.lab1024.sa.admin.module.system.device.dispatch.DeviceCommandTask;
+import net.lab1024.sa.admin.module.system.device.dispatch.DeviceDispatchOptions;
 import net.lab1024.sa.admin.module.system.device.domain.entity.UnifiedDeviceEntity;
+import net.lab1024.sa.admin.module.system.device.manager.DeviceHeartbeatManager;
 import net.lab1024.sa.admin.module.system.device.manager.UnifiedDeviceManager;
 import net.lab1024.sa.base.common.cache.RedisUtil;
 import net.lab1024.sa.base.common.code.SystemErrorCode;
 import net.lab1024.sa.base.common.domain.ResponseDTO;
 import net.lab1024.sa.base.common.exception.SmartException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 统一设备管理器实现类
@@ -26,6 +41,8 @@ import java.util.*;
  * - 事件驱动架构支持
  * - 缓存管理和性能优化
  * - 设备控制核心逻辑
+ * - 批量通信由 {@link DeviceCommandDispatcher} 按设备类型分组并发下发，
+ *   配置项（device.dispatch.*）：default-concurrency、group-concurrency、timeout-ms、max-retries、retry-backoff-ms
  *
  * @author SmartAdmin Team
  * @since 2025-11-16
@@ -43,6 +60,39 @@ public class UnifiedDeviceManagerImpl implements UnifiedDeviceManager {
     @Resource
     private ApplicationEventPublisher eventPublisher;
 
+    @Resource
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Resource
+    private DeviceHeartbeatManager deviceHeartbeatManager;
+
+    @Value("${device.dispatch.default-concurrency:32}")
+    private int dispatchDefaultConcurrency;
+
+    /** 分组并发上限，格式 ACCESS=64,VIDEO=16 */
+    @Value("${device.dispatch.group-concurrency:ACCESS=64,VIDEO=16}")
+    private String dispatchGroupConcurrency;
+
+    @Value("${device.dispatch.timeout-ms:" + DEVICE_COMMUNICATION_TIMEOUT + "}")
+    private long dispatchTimeoutMs;
+
+    @Value("${device.dispatch.max-retries:2}")
+    private int dispatchMaxRetries;
+
+    @Value("${device.dispatch.retry-backoff-ms:200}")
+    private long dispatchRetryBackoffMs;
+
+    @Value("${device.dispatch.max-worker-threads:128}")
+    private int dispatchMaxWorkerThreads;
+
+    @Value("${device.dispatch.worker-queue-capacity:1000}")
+    private int dispatchWorkerQueueCapacity;
+
+    @Value("${device.dispatch.max-call-threads:256}")
+    private int dispatchMaxCallThreads;
+
+    private DeviceCommandDispatcher commandDispatcher;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // 缓存键前缀
@@ -53,6 +103,26 @@ public class UnifiedDeviceManagerImpl implements UnifiedDeviceManager {
     // 设备通信超时时间（毫秒）
     private static final int DEVICE_COMMUNICATION_TIMEOUT = 10000;
 
+    @PostConstruct
+    public void init() {
+        DeviceDispatchOptions options = new DeviceDispatchOptions();
+        options.setDefaultConcurrency(dispatchDefaultConcurrency);
+        options.setGroupConcurrency(DeviceDispatchOptions.parseGroupConcurrency(dispatchGroupConcurrency));
+        options.setTimeoutMs(dispatchTimeoutMs);
+        options.setMaxRetries(dispatchMaxRetries);
+        options.setRetryBackoffMs(dispatchRetryBackoffMs);
+        options.setMaxWorkerThreads(dispatchMaxWorkerThreads);
+        options.setWorkerQueueCapacity(dispatchWorkerQueueCapacity);
+        options.setMaxCallThreads(dispatchMaxCallThreads);
+        commandDispatcher = new DeviceCommandDispatcher(options,
+                meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        commandDispatcher.shutdown();
+    }
+
     @Override
     public Map<String, Object> getDeviceStatusStatistics(String deviceType) {
         try {
@@ -608,12 +678,19 @@ public class UnifiedDeviceManagerImpl implements UnifiedDeviceManager {
         try {
             log.debug("获取心跳超时的设备列表，设备类型：{}", deviceType);
 
-            List<UnifiedDeviceEntity> devices = unifiedDeviceDao.selectHeartbeatTimeoutDevices(deviceType);
-
-            // 过滤出真正心跳超时的设备
-            List<UnifiedDeviceEntity> result = new ArrayList<>();
-            for (UnifiedDeviceEntity device : devices) {
-                if (isDeviceHeartbeatTimeout(device)) {
+            // 超时判定由心跳管理器在内存中维护，只按ID回表取设备信息
+            List<Long> deviceIds = deviceHeartbeatManager.getTimedOutDeviceIds(deviceType);
+            if (deviceIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+            Map<Long, UnifiedDeviceEntity> deviceMap = unifiedDeviceDao.selectBatchIds(deviceIds).stream()
+                    .collect(Collectors.toMap(UnifiedDeviceEntity::getDeviceId, Function.identity()));
+            List<UnifiedDeviceEntity> result = new ArrayList<>(deviceIds.size());
+            for (Long deviceId : deviceIds) {
+                UnifiedDeviceEntity device = deviceMap.get(deviceId);
+                if (device != null) {
+                    // 数据库中的心跳时间可能尚未刷新，以内存为准
+                    device.setLastHeartbeatTime(deviceHeartbeatManager.getLastHeartbeatTime(deviceId));
                     result.add(device);
                 }
             }
@@ -662,13 +739,18 @@ public class UnifiedDeviceManagerImpl implements UnifiedDeviceManager {
             return false; // 没有设置心跳间隔，不算超时
         }
 
-        // 检查最后心跳时间
-        if (device.getLastHeartbeatTime() == null) {
+        // 检查最后心跳时间，数据库中的心跳时间批量刷新，取内存中较新的值
+        LocalDateTime lastHeartbeatTime = device.getLastHeartbeatTime();
+        LocalDateTime trackedHeartbeatTime = deviceHeartbeatManager.getLastHeartbeatTime(device.getDeviceId());
+        if (trackedHeartbeatTime != null && (lastHeartbeatTime == null || trackedHeartbeatTime.isAfter(lastHeartbeatTime))) {
+            lastHeartbeatTime = trackedHeartbeatTime;
+        }
+        if (lastHeartbeatTime == null) {
             return true; // 没有心跳记录，算作超时
         }
 
         // 检查心跳是否超时（允许3个心跳周期的误差）
-        LocalDateTime timeoutTime = device.getLastHeartbeatTime().plusSeconds(device.getHeartbeatInterval() * 3);
+        LocalDateTime timeoutTime = lastHeartbeatTime.plusSeconds(device.getHeartbeatInterval() * 3);
         return timeoutTime.isBefore(LocalDateTime.now());
     }
 
@@ -835,28 +917,7 @@ public class UnifiedDeviceManagerImpl implements UnifiedDeviceManager {
                 return createErrorResponse("设备离线");
             }
 
-            // 根据设备类型进行通信处理
-            Map<String, Object> response;
-            switch (device.getDeviceType()) {
-                case "ACCESS":
-                    response = communicateWithAccessDevice(device, request);
-                    break;
-                case "VIDEO":
-                    response = communicateWithVideoDevice(device, request);
-                    break;
-                case "CONSUME":
-                    response = communicateWithConsumeDevice(device, request);
-                    break;
-                case "ATTENDANCE":
-                    response = communicateWithAttendanceDevice(device, request);
-                    break;
-                case "SMART":
-                    response = communicateWithSmartDevice(device, request);
-                    break;
-                default:
-                    response = createErrorResponse("不支持的设备类型");
-                    break;
-            }
+            Map<String, Object> response = communicateWithLoadedDevice(device, request);
 
             log.debug("与设备通信完成，设备ID：{}，响应：{}", deviceId, response);
             return response;
@@ -867,30 +928,101 @@ public class UnifiedDeviceManagerImpl implements UnifiedDeviceManager {
         }
     }
 
+    /**
+     * 按设备类型选择通信实现
+     */
+    private Map<String, Object> communicateWithLoadedDevice(UnifiedDeviceEntity device, Map<String, Object> request) {
+        Map<String, Object> response;
+        switch (device.getDeviceType()) {
+            case "ACCESS":
+                response = communicateWithAccessDevice(device, request);
+                break;
+            case "VIDEO":
+                response = communicateWithVideoDevice(device, request);
+                break;
+            case "CONSUME":
+                response = communicateWithConsumeDevice(device, request);
+                break;
+            case "ATTENDANCE":
+                response = communicateWithAttendanceDevice(device, request);
+                break;
+            case "SMART":
+                response = communicateWithSmartDevice(device, request);
+                break;
+            default:
+                response = createErrorResponse("不支持的设备类型");
+                break;
+        }
+        return response;
+    }
+
     @Override
     public List<Map<String, Object>> batchCommunicateWithDevices(List<Long> deviceIds, Map<String, Object> request) {
         try {
-            log.info("批量与设备通信，设备数量：{}", deviceIds.size());
-
-            List<Map<String, Object>> results = new ArrayList<>();
-            for (Long deviceId : deviceIds) {
-                Map<String, Object> response = communicateWithDevice(deviceId, request);
-                response.put("deviceId", deviceId);
-                results.add(response);
-            }
-
-            log.info("批量与设备通信完成，成功：{}，失败：{}",
-                    results.stream().mapToLong(r -> "SUCCESS".equals(r.get("status")) ? 1 : 0).sum(),
-                    results.stream().mapToLong(r -> !"SUCCESS".equals(r.get("status")) ? 1 : 0).sum());
-
-            return results;
-
+            return dispatchToDevices(deviceIds, request, null).join();
         } catch (Exception e) {
             log.error("批量与设备通信失败", e);
             return new ArrayList<>();
         }
     }
 
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> dispatchToDevices(List<Long> deviceIds, Map<String, Object> request,
+                                                                          Consumer<Map<String, Object>> onResult) {
+        log.info("批量与设备通信，设备数量：{}", deviceIds.size());
+        long start = System.currentTimeMillis();
+
+        // 一次查询加载全部设备，不存在或离线的设备不参与下发
+        Map<Long, UnifiedDeviceEntity> devices = deviceIds.isEmpty() ? Map.of()
+                : unifiedDeviceDao.selectBatchIds(deviceIds).stream()
+                        .collect(Collectors.toMap(UnifiedDeviceEntity::getDeviceId, Function.identity(), (a, b) -> a));
+
+        Consumer<DeviceCommandResult> resultConsumer = onResult == null ? null
+                : result -> onResult.accept(result.toResponseMap());
+        List<DeviceCommandResult> rejected = new ArrayList<>();
+        List<DeviceCommandTask> tasks = new ArrayList<>();
+        // 结果位置：非负为下发任务下标，负数为 -(拒绝列表下标 + 1)
+        int[] positions = new int[deviceIds.size()];
+        for (int i = 0; i < deviceIds.size(); i++) {
+            Long deviceId = deviceIds.get(i);
+            UnifiedDeviceEntity device = devices.get(deviceId);
+            String group = device != null && device.getDeviceType() != null ? device.getDeviceType() : "UNKNOWN";
+            DeviceCommandResult rejection = null;
+            if (device == null) {
+                rejection = DeviceCommandResult.rejected(deviceId, group, DeviceCommandResult.REASON_NOT_FOUND, "设备不存在");
+            } else if (!Integer.valueOf(1).equals(device.getOnlineStatus())) {
+                rejection = DeviceCommandResult.rejected(deviceId, group, DeviceCommandResult.REASON_OFFLINE, "设备离线");
+            }
+            if (rejection != null) {
+                rejected.add(rejection);
+                positions[i] = -rejected.size();
+                if (resultConsumer != null) {
+                    resultConsumer.accept(rejection);
+                }
+                continue;
+            }
+            Map<String, Object> deviceRequest = new HashMap<>(request);
+            deviceRequest.put("deviceId", deviceId);
+            positions[i] = tasks.size();
+            tasks.add(new DeviceCommandTask(deviceId, group, () -> communicateWithLoadedDevice(device, deviceRequest)));
+        }
+
+        return commandDispatcher.dispatch(tasks, resultConsumer).thenApply(dispatched -> {
+            List<Map<String, Object>> results = new ArrayList<>(deviceIds.size());
+            int success = 0;
+            for (int position : positions) {
+                DeviceCommandResult result = position >= 0 ? dispatched.get(position) : rejected.get(-position - 1);
+                if (result.isSuccess()) {
+                    success++;
+                }
+                results.add(result.toResponseMap());
+            }
+            log.info("批量与设备通信完成，成功：{}，失败：{}，耗时：{}ms", success, results.size() - success,
+                    System.currentTimeMillis() - start);
+            return results;
+        });
+    }
+
     @Override
     public List<Map<String, Object>> getDeviceCommunicationLogs(Long deviceId, String startTime, String endTime) {
         try {
@@ -8,6 +8,7 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import net.lab1024.sa.admin.module.system.device.dao.UnifiedDeviceDao;
 import net.lab1024.sa.admin.module.system.device.domain.entity.UnifiedDeviceEntity;
+import net.lab1024.sa.admin.module.system.device.manager.DeviceHeartbeatManager;
 import net.lab1024.sa.admin.module.system.device.manager.UnifiedDeviceManager;
 import net.lab1024.sa.admin.module.system.device.service.UnifiedDeviceService;
 import net.lab1024.sa.base.common.domain.PageParam;
@@ -41,6 +42,9 @@ public class UnifiedDeviceServiceImpl extends ServiceImpl<UnifiedDeviceDao, Unif
     @Resource
     private UnifiedDeviceManager unifiedDeviceManager;
 
+    @Resource
+    private DeviceHeartbeatManager deviceHeartbeatManager;
+
     @Override
     public PageResult<UnifiedDeviceEntity> queryDevicePage(PageParam pageParam, String deviceType,
                                                            String deviceStatus, String deviceName, Long areaId) {
@@ -165,6 +169,9 @@ public class UnifiedDeviceServiceImpl extends ServiceImpl<UnifiedDeviceDao, Unif
                 return ResponseDTO.error(SystemErrorCode.SYSTEM_ERROR, "设备更新失败");
             }
 
+            // 心跳间隔、启用状态可能变化，重新加载心跳跟踪
+            deviceHeartbeatManager.reload(deviceEntity.getDeviceId());
+
             // 发布设备配置变更事件
             publishDeviceConfigChangeEvent(deviceEntity.getDeviceId(), getDeviceConfigMap(deviceEntity));
 
@@ -195,6 +202,7 @@ public class UnifiedDeviceServiceImpl extends ServiceImpl<UnifiedDeviceDao, Unif
             if (!success) {
                 return ResponseDTO.error(SystemErrorCode.SYSTEM_ERROR, "设备删除失败");
             }
+            deviceHeartbeatManager.forget(deviceId);
 
             log.info("设备删除成功，设备ID：{}", deviceId);
             return ResponseDTO.ok("设备删除成功");
@@ -326,29 +334,12 @@ public class UnifiedDeviceServiceImpl extends ServiceImpl<UnifiedDeviceDao, Unif
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public boolean deviceHeartbeat(Long deviceId) {
         try {
             log.debug("设备心跳，设备ID：{}", deviceId);
 
-            UnifiedDeviceEntity device = this.getById(deviceId);
-            if (device == null || device.getDeletedFlag() == 1) {
-                return false;
-            }
-
-            String oldStatus = device.getDeviceStatus();
-
-            // 更新心跳时间和在线状态
-            device.setLastHeartbeatTime(LocalDateTime.now());
-            device.setOnlineStatus(1);
-
-            // 如果设备之前是离线状态，现在更新为在线状态，发布状态变更事件
-            if ("OFFLINE".equals(oldStatus)) {
-                device.setDeviceStatus("NORMAL");
-                publishDeviceStatusChangeEvent(deviceId, oldStatus, "NORMAL");
-            }
-
-            return this.updateById(device);
+            // 心跳只更新内存，心跳时间、在线状态及OFFLINE→NORMAL由心跳管理器批量写库，恢复在线时发布事件
+            return deviceHeartbeatManager.onHeartbeat(deviceId);
 
         } catch (Exception e) {
             log.error("设备心跳处理失败，设备ID：{}", deviceId, e);
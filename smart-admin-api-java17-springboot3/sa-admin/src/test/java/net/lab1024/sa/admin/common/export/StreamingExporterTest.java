@@ -0,0 +1,146 @@
+package net.lab1024.sa.admin.common.export;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式导出测试
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+public class StreamingExporterTest {
+
+    private static final List<ExportColumn<Row>> COLUMNS = List.of(
+            ExportColumn.of("编号", Row::getId),
+            ExportColumn.of("名称", Row::getName),
+            ExportColumn.of("金额", Row::getAmount),
+            ExportColumn.of("时间", Row::getTime));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("CSV输出BOM、表头并正确转义")
+    void testCsvEscaping() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingExporter<Row> exporter = new StreamingExporter<>(out, "rows.csv", ExportFormat.CSV,
+                ExportCompression.NONE, COLUMNS, null)) {
+            exporter.write(new Row(1, "a,b", new BigDecimal("1E+1"), LocalDateTime.of(2025, 1, 15, 8, 30)));
+            exporter.write(new Row(2, "say \"hi\"\nbye", null, null));
+        }
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertEquals("\uFEFF编号,名称,金额,时间\n"
+                + "1,\"a,b\",10,2025-01-15 08:30:00\n"
+                + "2,\"say \"\"hi\"\"\nbye\",,\n", csv);
+    }
+
+    @Test
+    @DisplayName("gzip压缩导出可完整还原")
+    void testGzipRoundTrip() throws Exception {
+        Path file = tempDir.resolve(StreamingExporter.fileName("rows", ExportFormat.CSV, ExportCompression.GZIP));
+        try (StreamingExporter<Row> exporter = StreamingExporter.toFile(file, ExportFormat.CSV,
+                ExportCompression.GZIP, COLUMNS, null)) {
+            for (int i = 0; i < 50_000; i++) {
+                exporter.write(new Row(i, "name" + i, BigDecimal.valueOf(i, 2), null));
+            }
+        }
+
+        assertEquals("rows.csv.gz", file.getFileName().toString());
+        String csv;
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+            csv = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = csv.split("\n");
+        assertEquals(50_001, lines.length);
+        assertEquals("49999,name49999,499.99,", lines[50_000]);
+    }
+
+    @Test
+    @DisplayName("zip压缩导出只包含一个同名条目")
+    void testZipEntry() throws Exception {
+        Path file = tempDir.resolve(StreamingExporter.fileName("rows", ExportFormat.CSV, ExportCompression.ZIP));
+        try (StreamingExporter<Row> exporter = StreamingExporter.toFile(file, ExportFormat.CSV,
+                ExportCompression.ZIP, COLUMNS, null)) {
+            exporter.write(new Row(1, "a", BigDecimal.ONE, null));
+        }
+
+        try (ZipInputStream input = new ZipInputStream(Files.newInputStream(file))) {
+            ZipEntry entry = input.getNextEntry();
+            assertNotNull(entry);
+            assertEquals("rows.csv", entry.getName());
+            assertEquals("\uFEFF编号,名称,金额,时间\n1,a,1,\n",
+                    new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            assertNull(input.getNextEntry());
+        }
+    }
+
+    @Test
+    @DisplayName("按间隔回调进度并在结束时回调最终行数")
+    void testProgress() throws Exception {
+        List<String> events = new ArrayList<>();
+        StreamingExporter<Row> exporter = new StreamingExporter<>(new ByteArrayOutputStream(), "rows.csv",
+                ExportFormat.CSV, ExportCompression.NONE, COLUMNS,
+                (rowCount, finished) -> events.add(rowCount + ":" + finished), 100);
+        for (int i = 0; i < 250; i++) {
+            exporter.write(new Row(i, null, null, null));
+        }
+        exporter.close();
+        exporter.close();
+
+        assertEquals(List.of("100:false", "200:false", "250:true"), events);
+        assertEquals(250, exporter.getRowCount());
+        assertThrows(IllegalStateException.class, () -> exporter.write(new Row(0, null, null, null)));
+    }
+
+    public static class Row {
+
+        private final long id;
+
+        private final String name;
+
+        private final BigDecimal amount;
+
+        private final LocalDateTime time;
+
+        public Row(long id, String name, BigDecimal amount, LocalDateTime time) {
+            this.id = id;
+            this.name = name;
+            this.amount = amount;
+            this.time = time;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+    }
+}
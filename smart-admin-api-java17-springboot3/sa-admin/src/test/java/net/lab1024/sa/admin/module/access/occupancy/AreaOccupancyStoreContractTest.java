@@ -0,0 +1,232 @@
+package net.lab1024.sa.admin.module.access.occupancy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.lab1024.sa.admin.module.access.occupancy.AreaOccupancyStore.Admission;
+import net.lab1024.sa.admin.module.access.occupancy.AreaOccupancyStore.Passage;
+
+import static net.lab1024.sa.admin.module.access.occupancy.AreaOccupancyStore.DIRECTION_IN;
+import static net.lab1024.sa.admin.module.access.occupancy.AreaOccupancyStore.DIRECTION_OUT;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 区域在场状态存储行为测试，本地与Redis实现共用同一组用例
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public abstract class AreaOccupancyStoreContractTest {
+
+    protected static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    private static final long AREA_A = 10L;
+
+    private static final long AREA_B = 20L;
+
+    private long base;
+
+    private LocalDate today;
+
+    protected AreaOccupancyStore store;
+
+    protected abstract AreaOccupancyStore createStore();
+
+    @BeforeEach
+    void setUp() {
+        store = createStore();
+        base = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10);
+        today = Instant.ofEpochMilli(base).atZone(ZONE).toLocalDate();
+    }
+
+    @Test
+    @DisplayName("进入与离开更新在场人数和进出次数")
+    void testEntryAndExit() {
+        assertTrue(store.apply(new Passage(1L, AREA_A, DIRECTION_IN, base)));
+        assertTrue(store.apply(new Passage(2L, AREA_A, DIRECTION_IN, base + 1)));
+        assertEquals(2, occupancy(AREA_A));
+
+        assertTrue(store.apply(new Passage(1L, AREA_A, DIRECTION_OUT, base + 2)));
+        assertEquals(1, occupancy(AREA_A));
+        assertEquals(2L, entries(AREA_A));
+
+        // 未进入直接外出不会把人数减成负数
+        assertTrue(store.apply(new Passage(3L, AREA_A, DIRECTION_OUT, base + 3)));
+        assertEquals(1, occupancy(AREA_A));
+        assertEquals(3L, store.personCount());
+    }
+
+    @Test
+    @DisplayName("进入新区域即离开原区域，重复进入同一区域不重复计数")
+    void testMoveAndRepeat() {
+        store.apply(new Passage(1L, AREA_A, DIRECTION_IN, base));
+        store.apply(new Passage(1L, AREA_A, DIRECTION_IN, base + 1));
+        assertEquals(1, occupancy(AREA_A));
+
+        store.apply(new Passage(1L, AREA_B, DIRECTION_IN, base + 2));
+        assertEquals(0, occupancy(AREA_A));
+        assertEquals(1, occupancy(AREA_B));
+    }
+
+    @Test
+    @DisplayName("不晚于已记录时间的事件被忽略")
+    void testStaleEventIgnored() {
+        store.apply(new Passage(1L, AREA_A, DIRECTION_IN, base + 10));
+
+        assertFalse(store.apply(new Passage(1L, AREA_A, DIRECTION_OUT, base + 5)));
+        assertFalse(store.apply(new Passage(1L, AREA_A, DIRECTION_IN, base + 10)));
+        assertEquals(1, occupancy(AREA_A));
+        assertEquals(1L, entries(AREA_A));
+    }
+
+    @Test
+    @DisplayName("清理长时间无记录的人员并扣减在场人数")
+    void testExpiry() {
+        store.apply(new Passage(1L, AREA_A, DIRECTION_IN, base));
+        store.apply(new Passage(2L, AREA_A, DIRECTION_IN, base + 100));
+        store.apply(new Passage(3L, AREA_B, DIRECTION_OUT, base + 10));
+
+        assertEquals(2, store.expireBefore(base + 50));
+        assertEquals(1, occupancy(AREA_A));
+        assertEquals(1L, store.personCount());
+
+        // 被清理的人员再次外出不影响计数
+        store.apply(new Passage(1L, AREA_A, DIRECTION_OUT, base + 200));
+        assertEquals(1, occupancy(AREA_A));
+    }
+
+    @Test
+    @DisplayName("区域已满时拒绝进入，已在区域内或有人离开后放行")
+    void testCapacity() {
+        assertEquals(Admission.ACCEPTED, store.admit(1L, AREA_A, DIRECTION_IN, base, 2, false));
+        assertEquals(Admission.ACCEPTED, store.admit(2L, AREA_A, DIRECTION_IN, base, 2, false));
+        assertEquals(Admission.AREA_FULL, store.admit(3L, AREA_A, DIRECTION_IN, base, 2, false));
+        assertEquals(2, occupancy(AREA_A));
+
+        // 已在区域内的人员再次进入不占用新名额
+        assertEquals(Admission.ACCEPTED, store.admit(1L, AREA_A, DIRECTION_IN, base + 1, 2, false));
+        assertEquals(2, occupancy(AREA_A));
+
+        assertEquals(Admission.ACCEPTED, store.admit(2L, AREA_A, DIRECTION_OUT, base + 2, 2, false));
+        assertEquals(Admission.ACCEPTED, store.admit(3L, AREA_A, DIRECTION_IN, base + 3, 2, false));
+        assertEquals(2, occupancy(AREA_A));
+
+        // 不限容量
+        assertEquals(Admission.ACCEPTED, store.admit(4L, AREA_B, DIRECTION_IN, base, 0, false));
+        assertEquals(1, occupancy(AREA_B));
+    }
+
+    @Test
+    @DisplayName("反潜回：同区域同方向重复通行被拒绝，被拒绝时状态不变")
+    void testAntiPassback() {
+        assertEquals(Admission.ACCEPTED, store.admit(1L, AREA_A, DIRECTION_IN, base, 0, true));
+        assertEquals(Admission.ANTI_PASSBACK, store.admit(1L, AREA_A, DIRECTION_IN, base + 1, 0, true));
+        assertEquals(1, occupancy(AREA_A));
+
+        assertEquals(Admission.ACCEPTED, store.admit(1L, AREA_A, DIRECTION_OUT, base + 2, 0, true));
+        assertEquals(Admission.ANTI_PASSBACK, store.admit(1L, AREA_A, DIRECTION_OUT, base + 3, 0, true));
+        assertEquals(0, occupancy(AREA_A));
+
+        // 没有记录的人员不拦截外出
+        assertEquals(Admission.ACCEPTED, store.admit(2L, AREA_A, DIRECTION_OUT, base, 0, true));
+    }
+
+    @Test
+    @DisplayName("放行预占的状态由随后的事件认领，只补记进出次数")
+    void testAdmittedPassageClaimedByEvent() {
+        assertEquals(Admission.ACCEPTED, store.admit(1L, AREA_A, DIRECTION_IN, base + 10, 1, false));
+        assertEquals(1, occupancy(AREA_A));
+        assertEquals(0L, entries(AREA_A));
+
+        // 设备时间早于判定时间也能认领
+        assertTrue(store.apply(new Passage(1L, AREA_A, DIRECTION_IN, base + 5)));
+        assertEquals(1, occupancy(AREA_A));
+        assertEquals(1L, entries(AREA_A));
+
+        // 已认领后同一事件重复到达被忽略
+        assertFalse(store.apply(new Passage(1L, AREA_A, DIRECTION_IN, base + 5)));
+        assertEquals(1L, entries(AREA_A));
+    }
+
+    @Test
+    @DisplayName("并发进入不超出容量")
+    void testConcurrentAdmitsRespectCapacity() throws Exception {
+        int capacity = 10;
+        int persons = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Admission>> futures = new ArrayList<>();
+            for (int i = 0; i < persons; i++) {
+                long personId = 1000L + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return store.admit(personId, AREA_A, DIRECTION_IN, base, capacity, false);
+                }));
+            }
+            start.countDown();
+            int accepted = 0;
+            for (Future<Admission> future : futures) {
+                if (future.get(30, TimeUnit.SECONDS) == Admission.ACCEPTED) {
+                    accepted++;
+                }
+            }
+            assertEquals(capacity, accepted);
+            assertEquals(capacity, occupancy(AREA_A));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("批量记录与逐条记录结果一致")
+    void testApplyAll() {
+        List<Passage> passages = List.of(
+                new Passage(1L, AREA_A, DIRECTION_IN, base),
+                new Passage(2L, AREA_A, DIRECTION_IN, base),
+                new Passage(1L, AREA_B, DIRECTION_IN, base + 1),
+                new Passage(2L, AREA_A, DIRECTION_IN, base));
+
+        assertEquals(3, store.applyAll(passages));
+        assertEquals(1, occupancy(AREA_A));
+        assertEquals(1, occupancy(AREA_B));
+        assertEquals(0, store.applyAll(List.of()));
+    }
+
+    @Test
+    @DisplayName("重建清空状态后回放，回放中重复的事件不重复计数")
+    void testRebuild() {
+        store.apply(new Passage(9L, AREA_B, DIRECTION_IN, base));
+        List<Passage> history = List.of(
+                new Passage(1L, AREA_A, DIRECTION_IN, base),
+                new Passage(2L, AREA_A, DIRECTION_IN, base + 1),
+                new Passage(2L, AREA_A, DIRECTION_IN, base + 1),
+                new Passage(1L, AREA_A, DIRECTION_OUT, base + 2));
+
+        assertTrue(store.rebuild(sink -> history.forEach(sink)));
+        assertTrue(store.isReady());
+        assertEquals(1, occupancy(AREA_A));
+        assertEquals(0, occupancy(AREA_B));
+        assertEquals(2L, entries(AREA_A));
+    }
+
+    private int occupancy(long areaId) {
+        return store.getOccupancies(List.of(areaId)).get(areaId);
+    }
+
+    private long entries(long areaId) {
+        return store.getEntries(List.of(areaId), today).get(areaId);
+    }
+}
@@ -0,0 +1,15 @@
+package net.lab1024.sa.admin.module.access.occupancy;
+
+/**
+ * 进程内区域在场状态存储测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class LocalAreaOccupancyStoreTest extends AreaOccupancyStoreContractTest {
+
+    @Override
+    protected AreaOccupancyStore createStore() {
+        return new LocalAreaOccupancyStore(8, ZONE);
+    }
+}
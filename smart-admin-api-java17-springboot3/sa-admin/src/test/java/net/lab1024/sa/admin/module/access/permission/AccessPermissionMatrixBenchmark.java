@@ -0,0 +1,134 @@
+package net.lab1024.sa.admin.module.access.permission;
+
+import net.lab1024.sa.admin.module.access.domain.entity.AccessAreaEntity;
+import net.lab1024.sa.admin.module.access.domain.entity.AccessDeviceEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 门禁权限矩阵判定基准测试
+ *
+ * 采样模式输出判定耗时分布（p50/p99/p99.9），验收标准：p99 低于 50µs。
+ * 模拟园区规模：园区 -> 楼栋 -> 楼层 -> 房间四级区域，每个房间一台门禁，
+ * 人员按楼栋/楼层/房间混合授权。运行main方法，结果写入 target/access-permission-benchmark.json
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AccessPermissionMatrixBenchmark {
+
+    private static final int BUILDINGS = 20;
+
+    private static final int FLOORS_PER_BUILDING = 20;
+
+    private static final int ROOMS_PER_FLOOR = 10;
+
+    private static final int SAMPLE_COUNT = 4096;
+
+    @Param({"10000", "100000"})
+    private int personCount;
+
+    private AccessPermissionMatrix matrix;
+
+    private long[] samplePersons;
+
+    private long[] sampleDevices;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(20251125L);
+        List<AccessAreaEntity> areas = new ArrayList<>();
+        List<AccessDeviceEntity> devices = new ArrayList<>();
+        List<Long> buildingIds = new ArrayList<>();
+        List<Long> floorIds = new ArrayList<>();
+        List<Long> roomIds = new ArrayList<>();
+
+        long nextId = 1L;
+        long campusId = nextId++;
+        areas.add(AccessPermissionMatrixTest.area(campusId, 0L, "0," + campusId));
+        for (int b = 0; b < BUILDINGS; b++) {
+            long buildingId = nextId++;
+            String buildingPath = "0," + campusId + "," + buildingId;
+            areas.add(AccessPermissionMatrixTest.area(buildingId, campusId, buildingPath));
+            buildingIds.add(buildingId);
+            for (int f = 0; f < FLOORS_PER_BUILDING; f++) {
+                long floorId = nextId++;
+                String floorPath = buildingPath + "," + floorId;
+                areas.add(AccessPermissionMatrixTest.area(floorId, buildingId, floorPath));
+                floorIds.add(floorId);
+                for (int r = 0; r < ROOMS_PER_FLOOR; r++) {
+                    long roomId = nextId++;
+                    areas.add(AccessPermissionMatrixTest.area(roomId, floorId, floorPath + "," + roomId));
+                    roomIds.add(roomId);
+                    devices.add(AccessPermissionMatrixTest.device(100000L + roomId, roomId));
+                }
+            }
+        }
+
+        LongObjectHashMap<long[]> assignments = new LongObjectHashMap<>(personCount);
+        for (long personId = 1; personId <= personCount; personId++) {
+            long[] granted = new long[]{
+                    buildingIds.get(random.nextInt(buildingIds.size())),
+                    floorIds.get(random.nextInt(floorIds.size())),
+                    roomIds.get(random.nextInt(roomIds.size()))
+            };
+            assignments.put(personId, granted);
+        }
+        matrix = AccessPermissionMatrix.build(areas, devices, assignments);
+
+        samplePersons = new long[SAMPLE_COUNT];
+        sampleDevices = new long[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            samplePersons[i] = 1 + random.nextInt(personCount);
+            sampleDevices[i] = devices.get(random.nextInt(devices.size())).getDeviceId();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Benchmark
+    public AccessPermissionMatrix.Decision check(Cursor cursor) {
+        int i = cursor.index = (cursor.index + 1) & (SAMPLE_COUNT - 1);
+        return matrix.check(samplePersons[i], sampleDevices[i]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AccessPermissionMatrixBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/access-permission-benchmark.json")
+                .build();
+        new Runner(options).run();
+    }
+}
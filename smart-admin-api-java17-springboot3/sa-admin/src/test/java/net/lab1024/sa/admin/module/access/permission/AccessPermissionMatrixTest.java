@@ -0,0 +1,135 @@
+package net.lab1024.sa.admin.module.access.permission;
+
+import net.lab1024.sa.admin.module.access.domain.entity.AccessAreaEntity;
+import net.lab1024.sa.admin.module.access.domain.entity.AccessDeviceEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 门禁预编译权限矩阵测试
+ *
+ * 区域结构：园区(1) -> 楼栋(2) -> 楼层(3)，园区(1) -> 食堂(4)
+ * 设备：101在楼层3，102在食堂4，103在园区1，104未绑定区域
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class AccessPermissionMatrixTest {
+
+    private List<AccessAreaEntity> areas;
+
+    private List<AccessDeviceEntity> devices;
+
+    @BeforeEach
+    void setUp() {
+        areas = new ArrayList<>();
+        areas.add(area(1L, 0L, "0,1"));
+        areas.add(area(2L, 1L, "0,1,2"));
+        areas.add(area(3L, 2L, "0,1,2,3"));
+        // 路径缺失时依赖parentId链
+        areas.add(area(4L, 1L, null));
+
+        devices = new ArrayList<>();
+        devices.add(device(101L, 3L));
+        devices.add(device(102L, 4L));
+        devices.add(device(103L, 1L));
+        devices.add(device(104L, null));
+    }
+
+    @Test
+    @DisplayName("上级区域授权继承到全部子孙区域")
+    void testInheritFromAncestor() {
+        LongObjectHashMap<long[]> assignments = new LongObjectHashMap<>();
+        assignments.put(1000L, new long[]{1L});
+        assignments.put(2000L, new long[]{2L});
+
+        AccessPermissionMatrix matrix = AccessPermissionMatrix.build(areas, devices, assignments);
+
+        assertEquals(AccessPermissionMatrix.Decision.ALLOWED, matrix.check(1000L, 101L));
+        assertEquals(AccessPermissionMatrix.Decision.ALLOWED, matrix.check(1000L, 102L));
+        assertEquals(AccessPermissionMatrix.Decision.ALLOWED, matrix.check(1000L, 103L));
+
+        assertEquals(AccessPermissionMatrix.Decision.ALLOWED, matrix.check(2000L, 101L));
+        assertEquals(AccessPermissionMatrix.Decision.NO_PERMISSION, matrix.check(2000L, 102L));
+        assertEquals(AccessPermissionMatrix.Decision.NO_PERMISSION, matrix.check(2000L, 103L));
+
+        assertEquals(AccessPermissionMatrix.Decision.NO_PERMISSION, matrix.check(3000L, 101L));
+        assertEquals(AccessPermissionMatrix.Decision.UNKNOWN_DEVICE, matrix.check(1000L, 104L));
+        assertTrue(matrix.canEnterArea(2000L, 3L));
+        assertFalse(matrix.canEnterArea(2000L, 4L));
+
+        assertEquals(3L, matrix.areaOf(101L));
+        assertEquals(1L, matrix.areaOf(103L));
+        assertNull(matrix.areaOf(104L));
+    }
+
+    @Test
+    @DisplayName("增量替换人员授权不影响旧快照")
+    void testWithPersons() {
+        LongObjectHashMap<long[]> assignments = new LongObjectHashMap<>();
+        assignments.put(1000L, new long[]{4L});
+        AccessPermissionMatrix original = AccessPermissionMatrix.build(areas, devices, assignments);
+
+        LongObjectHashMap<long[]> changes = new LongObjectHashMap<>();
+        changes.put(1000L, new long[0]);
+        changes.put(2000L, new long[]{3L});
+        AccessPermissionMatrix updated = original.withPersons(changes);
+
+        assertEquals(AccessPermissionMatrix.Decision.ALLOWED, original.check(1000L, 102L));
+        assertEquals(AccessPermissionMatrix.Decision.NO_PERMISSION, updated.check(1000L, 102L));
+        assertEquals(AccessPermissionMatrix.Decision.ALLOWED, updated.check(2000L, 101L));
+        assertEquals(1, updated.personCount());
+    }
+
+    @Test
+    @DisplayName("区域移动后重编译拓扑沿用人员授权")
+    void testWithTopology() {
+        LongObjectHashMap<long[]> assignments = new LongObjectHashMap<>();
+        assignments.put(2000L, new long[]{2L});
+        AccessPermissionMatrix matrix = AccessPermissionMatrix.build(areas, devices, assignments);
+        assertEquals(AccessPermissionMatrix.Decision.NO_PERMISSION, matrix.check(2000L, 102L));
+
+        // 食堂(4)移动到楼栋(2)下
+        areas.set(3, area(4L, 2L, "0,1,2,4"));
+        AccessPermissionMatrix moved = matrix.withTopology(areas, devices);
+
+        assertEquals(AccessPermissionMatrix.Decision.ALLOWED, moved.check(2000L, 102L));
+    }
+
+    @Test
+    @DisplayName("long键哈希表删除后回填保持可查")
+    void testLongObjectHashMapRemove() {
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>(4);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 64L, i);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals(i, map.remove(i * 64L));
+        }
+        assertEquals(500, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get(i * 64L));
+        }
+    }
+
+    static AccessAreaEntity area(Long areaId, Long parentId, String path) {
+        AccessAreaEntity area = new AccessAreaEntity();
+        area.setAreaId(areaId);
+        area.setParentId(parentId);
+        area.setPath(path);
+        return area;
+    }
+
+    static AccessDeviceEntity device(Long deviceId, Long areaId) {
+        AccessDeviceEntity device = new AccessDeviceEntity();
+        device.setDeviceId(deviceId);
+        device.setAccessAreaId(areaId);
+        return device;
+    }
+}
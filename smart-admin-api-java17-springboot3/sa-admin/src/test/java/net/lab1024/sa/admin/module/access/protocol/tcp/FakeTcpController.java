@@ -0,0 +1,152 @@
+package net.lab1024.sa.admin.module.access.protocol.tcp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地模拟门禁控制器：每收到一条指令回复 {@code OK:指令}（指令自带的CRLF结尾原样带回）
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+class FakeTcpController implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * 回复后是否主动关闭连接（模拟短连接设备）
+     */
+    private volatile boolean closeAfterReply;
+
+    /**
+     * 回复是否分两次发送（模拟响应被拆成多个TCP分段）
+     */
+    private volatile boolean splitReply;
+
+    /**
+     * 回复后是否再推送一条多余数据（模拟上一次请求的迟到响应）
+     */
+    private volatile boolean lateReply;
+
+    FakeTcpController() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "fake-controller-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    String host() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    int acceptedConnections() {
+        return accepted.get();
+    }
+
+    int activeConnections() {
+        return active.get();
+    }
+
+    void setCloseAfterReply(boolean closeAfterReply) {
+        this.closeAfterReply = closeAfterReply;
+    }
+
+    void setSplitReply(boolean splitReply) {
+        this.splitReply = splitReply;
+    }
+
+    void setLateReply(boolean lateReply) {
+        this.lateReply = lateReply;
+    }
+
+    /**
+     * 模拟设备端空闲超时，关闭所有已建立的连接
+     */
+    void dropConnections() throws IOException {
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                accepted.incrementAndGet();
+                active.incrementAndGet();
+                clients.add(client);
+                Thread handler = new Thread(() -> serve(client), "fake-controller-" + accepted.get());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (Socket socket = client) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            byte[] buffer = new byte[1024];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) > 0) {
+                // 回复前确定是否关闭，避免客户端收到回复后修改开关影响本条连接
+                boolean close = closeAfterReply;
+                String command = new String(buffer, 0, bytesRead, StandardCharsets.UTF_8);
+                if (splitReply) {
+                    out.write("OK:".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    sleep(20);
+                }
+                out.write(("OK:" + command).substring(splitReply ? 3 : 0).getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (lateReply) {
+                    sleep(20);
+                    out.write("LATE\r\n".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+                if (close) {
+                    break;
+                }
+            }
+        } catch (IOException ignored) {
+            // 客户端断开
+        } finally {
+            clients.remove(client);
+            active.decrementAndGet();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
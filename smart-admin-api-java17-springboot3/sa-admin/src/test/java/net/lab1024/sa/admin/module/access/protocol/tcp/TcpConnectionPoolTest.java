@@ -0,0 +1,179 @@
+package net.lab1024.sa.admin.module.access.protocol.tcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TCP设备连接池测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class TcpConnectionPoolTest {
+
+    private FakeTcpController controller;
+
+    private TcpConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        controller = new FakeTcpController();
+        pool = new TcpConnectionPool(options(60000L));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.shutdown();
+        controller.close();
+    }
+
+    @Test
+    @DisplayName("连续指令复用同一条连接")
+    void testReuseConnection() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            assertEquals("OK:OPEN:" + i, send("OPEN:" + i));
+        }
+        assertEquals(1, controller.acceptedConnections());
+        assertEquals(49L, pool.getStats().get("reused"));
+    }
+
+    @Test
+    @DisplayName("设备关闭空闲连接后自动换新连接")
+    void testReconnectAfterPeerClose() throws Exception {
+        assertEquals("OK:A", send("A"));
+        controller.dropConnections();
+        assertEquals("OK:B", send("B"));
+
+        controller.setCloseAfterReply(true);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("OK:C" + i, send("C" + i));
+        }
+        assertEquals(6, controller.acceptedConnections());
+    }
+
+    @Test
+    @DisplayName("响应被拆成多个分段时读满一帧")
+    void testFragmentedResponse() throws Exception {
+        controller.setSplitReply(true);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("OK:SPLIT:" + i, send("SPLIT:" + i));
+        }
+        assertEquals(1, controller.acceptedConnections());
+    }
+
+    @Test
+    @DisplayName("借出时连接上有未读数据则丢弃该连接")
+    void testDiscardUnreadData() throws Exception {
+        pool.shutdown();
+        TcpPoolOptions options = options(60000L);
+        // 不做空闲探测，只依赖借出时的未读数据检查
+        options.setValidateAfterIdleMs(60000L);
+        pool = new TcpConnectionPool(options);
+
+        controller.setLateReply(true);
+        assertEquals("OK:A", send("A"));
+        controller.setLateReply(false);
+        Thread.sleep(100);
+
+        assertEquals("OK:B", send("B"));
+        assertEquals(2, controller.acceptedConnections());
+        assertEquals(1L, pool.getStats().get("broken"));
+    }
+
+    @Test
+    @DisplayName("长度前缀分帧")
+    void testLengthPrefixedFraming() throws Exception {
+        TcpFraming framing = TcpFraming.lengthPrefixed(2);
+        byte[] frame = framing.encode("OPEN".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(new byte[] {0, 4, 'O', 'P', 'E', 'N'}, frame);
+
+        byte[] buffer = new byte[16];
+        System.arraycopy(frame, 0, buffer, 0, frame.length);
+        assertEquals(-1, framing.frameLength(buffer, 1));
+        assertEquals(-1, framing.frameLength(buffer, 5));
+        assertEquals(6, framing.frameLength(buffer, 8));
+        assertEquals("OPEN", new String(framing.payload(buffer, 6), StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> TcpFraming.lengthPrefixed(1).encode(new byte[256]));
+    }
+
+    @Test
+    @DisplayName("并发请求不超过单设备连接上限")
+    void testMaxConnectionsPerDevice() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String command = "CMD:" + i;
+                futures.add(executor.submit(() -> send(command)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals("OK:CMD:" + i, futures.get(i).get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(controller.acceptedConnections() <= 2, "连接数超出上限: " + controller.acceptedConnections());
+    }
+
+    @Test
+    @DisplayName("空闲连接超时回收，不可达设备检查失败")
+    void testIdleEvictionAndReachability() throws Exception {
+        pool.shutdown();
+        pool = new TcpConnectionPool(options(200L));
+        assertTrue(pool.isReachable(controller.host(), controller.port()));
+        assertTrue(waitUntil(() -> controller.activeConnections() == 1));
+
+        assertTrue(waitUntil(() -> controller.activeConnections() == 0), "空闲连接未被回收");
+        assertEquals(1, controller.acceptedConnections());
+        assertEquals(1L, pool.getStats().get("evicted"));
+
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        assertFalse(pool.isReachable("127.0.0.1", closedPort));
+    }
+
+    private static boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private static TcpPoolOptions options(long idleTimeoutMs) {
+        TcpPoolOptions options = new TcpPoolOptions();
+        options.setMaxConnectionsPerDevice(2);
+        options.setConnectTimeoutMs(1000);
+        options.setReadTimeoutMs(1000);
+        options.setIdleTimeoutMs(idleTimeoutMs);
+        options.setValidateAfterIdleMs(0L);
+        options.setEvictionIntervalMs(50L);
+        return options;
+    }
+
+    private String send(String command) throws IOException {
+        byte[] response = pool.exchange(controller.host(), controller.port(), command.getBytes(StandardCharsets.UTF_8));
+        return new String(response, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,170 @@
+package net.lab1024.sa.admin.module.access.writebehind;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 异步写后缓冲测试
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+public class WriteBehindBufferTest {
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    @DisplayName("攒批写入且全部数据写库")
+    void testBatchedWrite() throws Exception {
+        List<Item> written = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger batches = new AtomicInteger();
+        List<Item> persisted = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindBuffer<Item> buffer = new WriteBehindBuffer<>("item", Item.class,
+                batch -> {
+                    batches.incrementAndGet();
+                    assertTrue(batch.size() <= 100);
+                    written.addAll(batch);
+                },
+                persisted::addAll, options(100), new SimpleMeterRegistry());
+        buffer.start();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(buffer.submit(new Item(i)));
+        }
+        assertFalse(buffer.submit(null));
+        buffer.shutdown();
+
+        assertEquals(1000, written.size());
+        assertEquals(1000, persisted.size());
+        assertTrue(batches.get() >= 10 && batches.get() < 1000, "batches=" + batches.get());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, written.get(i).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("写库失败时落盘，恢复后回放且不重复")
+    void testSpillAndReplay() throws Exception {
+        AtomicBoolean databaseDown = new AtomicBoolean(true);
+        List<Item> written = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindBuffer<Item> buffer = new WriteBehindBuffer<>("item", Item.class,
+                batch -> {
+                    if (databaseDown.get()) {
+                        throw new IllegalStateException("database down");
+                    }
+                    written.addAll(batch);
+                },
+                batch -> { }, options(50), new SimpleMeterRegistry());
+        buffer.start();
+
+        for (int i = 0; i < 200; i++) {
+            buffer.submit(new Item(i));
+        }
+        waitUntil(() -> (long) buffer.getStatistics().get("spilledCount") == 200L);
+        assertTrue(written.isEmpty());
+        assertTrue(spillFileCount() > 0);
+
+        databaseDown.set(false);
+        waitUntil(() -> written.size() == 200);
+        buffer.shutdown();
+
+        assertEquals(200, written.stream().map(Item::getId).distinct().count());
+        assertEquals(0, spillFileCount());
+    }
+
+    @Test
+    @DisplayName("重启后回放历史落盘文件")
+    void testReplayOnStart() throws Exception {
+        WriteBehindBuffer<Item> failing = new WriteBehindBuffer<>("item", Item.class,
+                batch -> {
+                    throw new IllegalStateException("database down");
+                },
+                batch -> { }, options(50), new SimpleMeterRegistry());
+        failing.start();
+        for (int i = 0; i < 30; i++) {
+            failing.submit(new Item(i));
+        }
+        failing.shutdown();
+        assertTrue(spillFileCount() > 0);
+
+        List<Item> written = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindBuffer<Item> restarted = new WriteBehindBuffer<>("item", Item.class, written::addAll,
+                batch -> { }, options(50), new SimpleMeterRegistry());
+        restarted.start();
+        waitUntil(() -> written.size() == 30);
+        restarted.shutdown();
+        assertEquals(0, spillFileCount());
+    }
+
+    @Test
+    @DisplayName("落盘目录不可用时启动失败")
+    void testStartFailsWithoutSpillDir() throws Exception {
+        Path file = Files.createFile(spillDir.resolve("not-a-directory"));
+        WriteBehindOptions options = options(50);
+        options.setSpillDir(file);
+        WriteBehindBuffer<Item> buffer = new WriteBehindBuffer<>("item", Item.class, batch -> { },
+                batch -> { }, options, new SimpleMeterRegistry());
+
+        assertThrows(IllegalStateException.class, buffer::start);
+    }
+
+    private WriteBehindOptions options(int batchSize) {
+        WriteBehindOptions options = new WriteBehindOptions();
+        options.setCapacity(256);
+        options.setBatchSize(batchSize);
+        options.setFlushIntervalMs(20);
+        options.setOfferTimeoutMs(1000);
+        options.setRetryBackoffMs(50);
+        options.setSpillDir(spillDir);
+        return options;
+    }
+
+    private long spillFileCount() throws Exception {
+        try (Stream<Path> files = Files.list(spillDir)) {
+            return files.count();
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+
+    public static class Item {
+
+        private long id;
+
+        public Item() {
+        }
+
+        public Item(long id) {
+            this.id = id;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+    }
+}
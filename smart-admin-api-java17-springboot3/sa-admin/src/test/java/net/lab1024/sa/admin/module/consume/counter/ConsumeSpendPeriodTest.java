@@ -0,0 +1,66 @@
+package net.lab1024.sa.admin.module.consume.counter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 消费累计计数周期测试
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+public class ConsumeSpendPeriodTest {
+
+    @Test
+    @DisplayName("周期区间与SUM查询的闭区间一致")
+    void testPeriodRange() {
+        LocalDate date = LocalDate.of(2025, 1, 15);
+
+        assertEquals(LocalDateTime.of(2025, 1, 15, 0, 0), ConsumeSpendPeriod.DAY.startTime(date));
+        assertEquals(LocalDate.of(2025, 1, 15).atTime(LocalTime.MAX), ConsumeSpendPeriod.DAY.endTime(date));
+
+        // 2025-01-15为周三
+        assertEquals(LocalDateTime.of(2025, 1, 13, 0, 0), ConsumeSpendPeriod.WEEK.startTime(date));
+        assertEquals(LocalDate.of(2025, 1, 19).atTime(LocalTime.MAX), ConsumeSpendPeriod.WEEK.endTime(date));
+
+        assertEquals(LocalDateTime.of(2025, 1, 1, 0, 0), ConsumeSpendPeriod.MONTH.startTime(date));
+        assertEquals(LocalDate.of(2025, 1, 31).atTime(LocalTime.MAX), ConsumeSpendPeriod.MONTH.endTime(date));
+        assertEquals(LocalDate.of(2024, 2, 29).atTime(LocalTime.MAX),
+                ConsumeSpendPeriod.MONTH.endTime(LocalDate.of(2024, 2, 10)));
+    }
+
+    @Test
+    @DisplayName("同一周期内的日期映射到同一计数器键，且可从键解析")
+    void testKey() {
+        String monday = ConsumeSpendPeriod.WEEK.key(1001L, LocalDate.of(2025, 1, 13));
+        String sunday = ConsumeSpendPeriod.WEEK.key(1001L, LocalDate.of(2025, 1, 19));
+        String nextMonday = ConsumeSpendPeriod.WEEK.key(1001L, LocalDate.of(2025, 1, 20));
+
+        assertEquals("consume:spend:1001:W:20250113", monday);
+        assertEquals(monday, sunday);
+        assertNotEquals(monday, nextMonday);
+
+        String month = ConsumeSpendPeriod.MONTH.key(1001L, LocalDate.of(2025, 1, 31));
+        assertEquals(ConsumeSpendPeriod.MONTH, ConsumeSpendPeriod.ofKey(month));
+        assertEquals(Long.valueOf(1001L), ConsumeSpendPeriod.personIdOfKey(month));
+        assertEquals(LocalDate.of(2025, 1, 1), ConsumeSpendPeriod.dateOfKey(month));
+        assertNull(ConsumeSpendPeriod.ofKey("consume:spend:other"));
+    }
+
+    @Test
+    @DisplayName("金额与分互转无精度损失")
+    void testCents() {
+        assertEquals(1234L, ConsumeSpendPeriod.toCents(new BigDecimal("12.34")));
+        assertEquals(1235L, ConsumeSpendPeriod.toCents(new BigDecimal("12.345")));
+        assertEquals(-50L, ConsumeSpendPeriod.toCents(new BigDecimal("-0.5")));
+        assertEquals(0L, ConsumeSpendPeriod.toCents(null));
+        assertEquals(0, new BigDecimal("12.34").compareTo(ConsumeSpendPeriod.ofCents(1234L)));
+    }
+}
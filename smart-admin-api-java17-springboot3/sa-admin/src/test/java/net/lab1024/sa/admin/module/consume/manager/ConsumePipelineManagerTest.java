@@ -0,0 +1,64 @@
+package net.lab1024.sa.admin.module.consume.manager;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 消费流水线前置检查短路测试
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+public class ConsumePipelineManagerTest {
+
+    @Test
+    @DisplayName("任一检查拒绝即返回，不等待其余检查")
+    void testShortCircuit() throws Exception {
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture<String> rejected = new CompletableFuture<>();
+
+        CompletableFuture<String> result = ConsumePipelineManager.firstRejection(List.of(slow, rejected));
+        assertFalse(result.isDone());
+
+        rejected.complete("无权限");
+        assertEquals("无权限", result.get(1, TimeUnit.SECONDS));
+        assertFalse(slow.isDone());
+    }
+
+    @Test
+    @DisplayName("全部通过时返回null，最后完成的检查给出拒绝时不被覆盖")
+    void testAllPassed() throws Exception {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        CompletableFuture<String> result = ConsumePipelineManager.firstRejection(List.of(first, second));
+        first.complete(null);
+        second.complete(null);
+        assertNull(result.get(1, TimeUnit.SECONDS));
+
+        CompletableFuture<String> passed = new CompletableFuture<>();
+        CompletableFuture<String> last = new CompletableFuture<>();
+        CompletableFuture<String> rejection = ConsumePipelineManager.firstRejection(List.of(passed, last));
+        passed.complete(null);
+        last.complete("高风险");
+        assertEquals("高风险", rejection.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("检查异常时异常完成")
+    void testFailure() {
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> result = ConsumePipelineManager.firstRejection(List.of(failed, pending));
+
+        failed.completeExceptionally(new IllegalStateException("redis down"));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+}
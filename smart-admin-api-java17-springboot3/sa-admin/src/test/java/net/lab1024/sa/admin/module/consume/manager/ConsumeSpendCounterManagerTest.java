@@ -0,0 +1,322 @@
+package net.lab1024.sa.admin.module.consume.manager;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.lab1024.sa.admin.module.consume.counter.ConsumeSpendPeriod;
+import net.lab1024.sa.admin.module.consume.dao.AccountDao;
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+import net.lab1024.sa.admin.module.consume.manager.ConsumeSpendCounterManager.SpendReservation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 消费累计计数器测试，在真实Redis上执行预占、调整、对账脚本；无Docker环境时跳过
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class ConsumeSpendCounterManagerTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static final Long PERSON_ID = 1001L;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate stringRedisTemplate;
+
+    private AccountDao accountDao;
+
+    private ConsumeSpendCounterManager manager;
+
+    private LocalDate today;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        today = LocalDate.now();
+        accountDao = mock(AccountDao.class);
+        // 数据库中日/周/月已分别消费 10/30/100 元
+        when(accountDao.getConsumeAmountByTimeRange(anyLong(), any(), any())).thenAnswer(invocation -> {
+            LocalDateTime startTime = invocation.getArgument(1);
+            if (startTime.equals(ConsumeSpendPeriod.DAY.startTime(today))) {
+                return new BigDecimal("10.00");
+            }
+            return startTime.equals(ConsumeSpendPeriod.WEEK.startTime(today))
+                    ? new BigDecimal("30.00") : new BigDecimal("100.00");
+        });
+
+        manager = new ConsumeSpendCounterManager();
+        ReflectionTestUtils.setField(manager, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(manager, "accountDao", accountDao);
+        ReflectionTestUtils.setField(manager, "enabled", true);
+        ReflectionTestUtils.setField(manager, "reconcileBatchSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("预占：计数器未初始化时按数据库汇总初始化后累加三个周期，并记进行中")
+    void testReserveInitializesAndIncrements() {
+        SpendReservation reservation = manager.reserve(PERSON_ID, new BigDecimal("5.50"), limits("100", "200", "500"));
+
+        assertTrue(reservation.isAccepted());
+        assertEquals(1550L, counter(ConsumeSpendPeriod.DAY));
+        assertEquals(3550L, counter(ConsumeSpendPeriod.WEEK));
+        assertEquals(10550L, counter(ConsumeSpendPeriod.MONTH));
+        assertEquals("1", inflight());
+        assertTrue(stringRedisTemplate.getExpire(ConsumeSpendPeriod.DAY.key(PERSON_ID, today)) > 0);
+
+        reservation.complete(true);
+        assertEquals(1550L, counter(ConsumeSpendPeriod.DAY));
+        assertNull(inflight());
+
+        // 重复完成不再调整
+        reservation.complete(false);
+        assertEquals(1550L, counter(ConsumeSpendPeriod.DAY));
+    }
+
+    @Test
+    @DisplayName("预占：任一周期超限时返回该周期，计数器与进行中标记均不变")
+    void testReserveExceeded() {
+        assertEquals(ConsumeSpendPeriod.DAY,
+                manager.reserve(PERSON_ID, new BigDecimal("90.01"), limits("100", null, null)).getExceededPeriod());
+        assertEquals(ConsumeSpendPeriod.WEEK,
+                manager.reserve(PERSON_ID, new BigDecimal("20.00"), limits("100", "49.99", "500")).getExceededPeriod());
+        SpendReservation monthly = manager.reserve(PERSON_ID, new BigDecimal("20.00"), limits(null, null, "119.99"));
+        assertEquals(ConsumeSpendPeriod.MONTH, monthly.getExceededPeriod());
+
+        assertEquals(1000L, counter(ConsumeSpendPeriod.DAY));
+        assertEquals(3000L, counter(ConsumeSpendPeriod.WEEK));
+        assertEquals(10000L, counter(ConsumeSpendPeriod.MONTH));
+        assertNull(inflight());
+
+        // 超限的预占无需释放
+        monthly.complete(false);
+        assertEquals(10000L, counter(ConsumeSpendPeriod.MONTH));
+
+        // 恰好等于限额放行
+        assertTrue(manager.reserve(PERSON_ID, new BigDecimal("90.00"), limits("100", null, null)).isAccepted());
+    }
+
+    @Test
+    @DisplayName("预占：扣款失败立即释放，计数器恢复原值")
+    void testReserveReleasedOnFailure() {
+        manager.getAmounts(PERSON_ID, today);
+        SpendReservation first = manager.reserve(PERSON_ID, new BigDecimal("3.00"), limits("100", "200", "500"));
+        SpendReservation second = manager.reserve(PERSON_ID, new BigDecimal("4.00"), limits("100", "200", "500"));
+        assertEquals("2", inflight());
+
+        first.complete(false);
+        assertEquals(1400L, counter(ConsumeSpendPeriod.DAY));
+        assertEquals("1", inflight());
+
+        second.complete(false);
+        assertEquals(1000L, counter(ConsumeSpendPeriod.DAY));
+        assertEquals(3000L, counter(ConsumeSpendPeriod.WEEK));
+        assertEquals(10000L, counter(ConsumeSpendPeriod.MONTH));
+        assertNull(inflight());
+    }
+
+    @Test
+    @DisplayName("预占：事务内成功写入等待事务结束，回滚时计数器恢复原值，提交时保留")
+    void testReserveCompletedAfterTransaction() {
+        manager.getAmounts(PERSON_ID, today);
+
+        TransactionSynchronizationManager.initSynchronization();
+        SpendReservation rolledBack = manager.reserve(PERSON_ID, new BigDecimal("8.00"), limits("100", "200", "500"));
+        rolledBack.complete(true);
+        assertEquals(1800L, counter(ConsumeSpendPeriod.DAY));
+        assertEquals("1", inflight());
+        finishTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(1000L, counter(ConsumeSpendPeriod.DAY));
+        assertEquals(3000L, counter(ConsumeSpendPeriod.WEEK));
+        assertEquals(10000L, counter(ConsumeSpendPeriod.MONTH));
+        assertNull(inflight());
+
+        TransactionSynchronizationManager.initSynchronization();
+        manager.reserve(PERSON_ID, new BigDecimal("8.00"), limits("100", "200", "500")).complete(true);
+        finishTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(1800L, counter(ConsumeSpendPeriod.DAY));
+        assertEquals(3800L, counter(ConsumeSpendPeriod.WEEK));
+        assertEquals(10800L, counter(ConsumeSpendPeriod.MONTH));
+        assertNull(inflight());
+    }
+
+    @Test
+    @DisplayName("写入后调整：只调整已存在的计数器，缺失的按数据库汇总初始化，回滚时反向调整")
+    void testAdjustAfterWrite() {
+        stringRedisTemplate.opsForValue().set(ConsumeSpendPeriod.DAY.key(PERSON_ID, today), "1000");
+
+        TransactionSynchronizationManager.initSynchronization();
+        manager.onConsumeRecorded(record("SUCCESS", "2.00"));
+        assertEquals(1200L, counter(ConsumeSpendPeriod.DAY));
+        // 周、月计数器在写入后初始化，汇总结果视为已包含本次记录
+        assertEquals(3000L, counter(ConsumeSpendPeriod.WEEK));
+        assertEquals(10000L, counter(ConsumeSpendPeriod.MONTH));
+        assertEquals("1", inflight());
+        finishTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(1000L, counter(ConsumeSpendPeriod.DAY));
+        assertEquals(2800L, counter(ConsumeSpendPeriod.WEEK));
+        assertEquals(9800L, counter(ConsumeSpendPeriod.MONTH));
+        assertNull(inflight());
+
+        // 事务外的退款立即扣减，不记进行中；非成功记录忽略
+        manager.onConsumeReversed(record("SUCCESS", "1.00"));
+        manager.onConsumeRecorded(record("FAILED", "50.00"));
+        assertEquals(900L, counter(ConsumeSpendPeriod.DAY));
+        assertEquals(2700L, counter(ConsumeSpendPeriod.WEEK));
+        assertNull(inflight());
+    }
+
+    @Test
+    @DisplayName("对账：按批汇总数据库，修正不一致的计数器，跳过有进行中事务的人员")
+    void testReconcileInBatches() {
+        Map<Long, String> databaseTotals = new HashMap<>();
+        databaseTotals.put(1L, "10.00");
+        databaseTotals.put(2L, "25.00");
+        databaseTotals.put(4L, "99.00");
+        when(accountDao.sumConsumeAmountByPersons(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            Collection<Long> personIds = invocation.getArgument(0);
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Long personId : personIds) {
+                if (databaseTotals.containsKey(personId)) {
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("personId", personId);
+                    row.put("totalAmount", new BigDecimal(databaseTotals.get(personId)));
+                    rows.add(row);
+                }
+            }
+            return rows;
+        });
+
+        // 1 一致；2 偏大需修正；3 数据库无记录需归零；4 不一致但有进行中事务
+        setCounters(1L, "1000");
+        setCounters(2L, "3000");
+        setCounters(3L, "500");
+        setCounters(4L, "100");
+        stringRedisTemplate.opsForValue().set(ConsumeSpendPeriod.KEY_PREFIX + "4:inflight", "1");
+        // 非当前周期的计数器不参与对账
+        stringRedisTemplate.opsForValue().set(ConsumeSpendPeriod.DAY.key(5L, today.minusDays(1)), "700");
+
+        manager.reconcile();
+
+        for (ConsumeSpendPeriod period : ConsumeSpendPeriod.values()) {
+            assertEquals("1000", stringRedisTemplate.opsForValue().get(period.key(1L, today)));
+            assertEquals("2500", stringRedisTemplate.opsForValue().get(period.key(2L, today)));
+            assertEquals("0", stringRedisTemplate.opsForValue().get(period.key(3L, today)));
+            assertEquals("100", stringRedisTemplate.opsForValue().get(period.key(4L, today)));
+            // 修正保留原过期时间
+            assertTrue(stringRedisTemplate.getExpire(period.key(2L, today)) > 0);
+        }
+        assertEquals("700", stringRedisTemplate.opsForValue().get(ConsumeSpendPeriod.DAY.key(5L, today.minusDays(1))));
+
+        // 每个周期4人、每批2人：共 3 x 2 次分组汇总
+        verify(accountDao, times(6)).sumConsumeAmountByPersons(anyCollection(), any(), any());
+        verify(accountDao, never()).getConsumeAmountByTimeRange(anyLong(), any(), any());
+    }
+
+    private Map<ConsumeSpendPeriod, BigDecimal> limits(String day, String week, String month) {
+        Map<ConsumeSpendPeriod, BigDecimal> limits = new EnumMap<>(ConsumeSpendPeriod.class);
+        if (day != null) {
+            limits.put(ConsumeSpendPeriod.DAY, new BigDecimal(day));
+        }
+        if (week != null) {
+            limits.put(ConsumeSpendPeriod.WEEK, new BigDecimal(week));
+        }
+        if (month != null) {
+            limits.put(ConsumeSpendPeriod.MONTH, new BigDecimal(month));
+        }
+        return limits;
+    }
+
+    private ConsumeRecordEntity record(String status, String amount) {
+        ConsumeRecordEntity record = new ConsumeRecordEntity();
+        record.setPersonId(PERSON_ID);
+        record.setAmount(new BigDecimal(amount));
+        record.setStatus(status);
+        record.setPayTime(LocalDateTime.now());
+        return record;
+    }
+
+    private void setCounters(Long personId, String cents) {
+        for (ConsumeSpendPeriod period : ConsumeSpendPeriod.values()) {
+            stringRedisTemplate.opsForValue().set(period.key(personId, today), cents, period.getTtl());
+        }
+    }
+
+    private long counter(ConsumeSpendPeriod period) {
+        return Long.parseLong(stringRedisTemplate.opsForValue().get(period.key(PERSON_ID, today)));
+    }
+
+    private String inflight() {
+        return stringRedisTemplate.opsForValue().get(ConsumeSpendPeriod.KEY_PREFIX + PERSON_ID + ":inflight");
+    }
+
+    /**
+     * 模拟事务结束，触发已注册的同步回调
+     */
+    private void finishTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(status);
+        }
+    }
+}
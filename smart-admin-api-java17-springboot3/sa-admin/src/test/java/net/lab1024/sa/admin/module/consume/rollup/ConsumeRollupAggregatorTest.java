@@ -0,0 +1,163 @@
+package net.lab1024.sa.admin.module.consume.rollup;
+
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRollupEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 消费预聚合计算测试
+ *
+ * 预聚合结果必须与按明细统计的结果一致
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+public class ConsumeRollupAggregatorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static final String[] MODES = {"FIXED_AMOUNT", "FREE_AMOUNT", "PRODUCT"};
+
+    @Test
+    @DisplayName("汇总与趋势与明细统计一致")
+    void testSummaryAndTrendMatchRecords() {
+        List<ConsumeRecordEntity> records = randomRecords(5000, 30, new Random(1L));
+        List<ConsumeRollupEntity> rows = ConsumeRollupAggregator.rollup(records, ConsumeRollupDimension.ALL);
+        assertTrue(rows.size() <= 30 * 24);
+
+        Map<String, Object> summary = ConsumeRollupAggregator.summary(rows, "DAY");
+        assertEquals(0, sum(records).compareTo((BigDecimal) summary.get("totalAmount")));
+        assertEquals((long) records.size(), summary.get("totalCount"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> details = (Map<String, Object>) summary.get("details");
+        Map<String, List<ConsumeRecordEntity>> byDay = groupBy(records, "yyyy-MM-dd");
+        assertEquals(byDay.keySet(), details.keySet());
+        byDay.forEach((day, list) -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> stats = (Map<String, Object>) details.get(day);
+            assertEquals(0, sum(list).compareTo((BigDecimal) stats.get("amount")));
+            assertEquals(list.size(), stats.get("count"));
+        });
+
+        List<Map<String, Object>> trend = ConsumeRollupAggregator.trend(rows, "HOUR", "COUNT");
+        Map<String, List<ConsumeRecordEntity>> byHour = groupBy(records, "yyyy-MM-dd HH");
+        assertEquals(byHour.size(), trend.size());
+        for (Map<String, Object> item : trend) {
+            assertEquals(byHour.get((String) item.get("time")).size(), item.get("value"));
+        }
+    }
+
+    @Test
+    @DisplayName("时段分布与设备排行与明细统计一致")
+    void testHourDistributionAndRanking() {
+        List<ConsumeRecordEntity> records = randomRecords(5000, 30, new Random(2L));
+
+        List<Map<String, Object>> distribution = ConsumeRollupAggregator.hourDistribution(
+                ConsumeRollupAggregator.rollup(records, ConsumeRollupDimension.ALL));
+        assertEquals(24, distribution.size());
+        for (Map<String, Object> item : distribution) {
+            int hour = (int) item.get("hour");
+            List<ConsumeRecordEntity> list = records.stream()
+                    .filter(r -> r.getPayTime().getHour() == hour)
+                    .collect(Collectors.toList());
+            assertEquals(list.size(), item.get("count"));
+            assertEquals(0, sum(list).compareTo((BigDecimal) item.get("amount")));
+        }
+
+        List<ConsumeRollupEntity> totals = ConsumeRollupAggregator.totalsByKey(
+                ConsumeRollupAggregator.rollup(records, ConsumeRollupDimension.DEVICE));
+        List<Map<String, Object>> ranking = ConsumeRollupAggregator.ranking(totals, "deviceId", "AMOUNT", 5);
+        assertEquals(5, ranking.size());
+        BigDecimal previous = null;
+        for (int i = 0; i < ranking.size(); i++) {
+            Map<String, Object> item = ranking.get(i);
+            Long deviceId = (Long) item.get("deviceId");
+            List<ConsumeRecordEntity> list = records.stream()
+                    .filter(r -> deviceId.equals(r.getDeviceId()))
+                    .collect(Collectors.toList());
+            BigDecimal amount = (BigDecimal) item.get("amount");
+            assertEquals(0, sum(list).compareTo(amount));
+            assertEquals(list.size(), item.get("count"));
+            assertEquals(i + 1, item.get("rank"));
+            assertTrue(previous == null || previous.compareTo(amount) >= 0);
+            previous = amount;
+        }
+    }
+
+    @Test
+    @DisplayName("冲减后分组消失，空金额计入笔数")
+    void testReversalAndNullAmount() {
+        ConsumeRecordEntity paid = record(START.plusHours(8).plusMinutes(5), 1L, "FIXED_AMOUNT", new BigDecimal("12.50"));
+        ConsumeRecordEntity free = record(START.plusHours(9), 1L, "FIXED_AMOUNT", null);
+
+        Map<String, ConsumeRollupEntity> buckets = new HashMap<>();
+        ConsumeRollupAggregator.accumulate(buckets, paid, 1);
+        ConsumeRollupAggregator.accumulate(buckets, free, 1);
+        ConsumeRollupAggregator.accumulate(buckets, paid, -1);
+
+        List<ConsumeRollupEntity> all = buckets.values().stream()
+                .filter(row -> ConsumeRollupDimension.ALL.name().equals(row.getDimType()))
+                .collect(Collectors.toList());
+        Map<String, Object> summary = ConsumeRollupAggregator.summary(all, "DAY");
+        assertEquals(1L, summary.get("totalCount"));
+        assertEquals(0, BigDecimal.ZERO.compareTo((BigDecimal) summary.get("totalAmount")));
+
+        List<Map<String, Object>> trend = ConsumeRollupAggregator.trend(all, "HOUR", "COUNT");
+        assertEquals(1, trend.size());
+        assertEquals("2025-01-01 09", trend.get(0).get("time"));
+
+        assertTrue(buckets.containsKey("DAY|PERSON|1|" + START));
+        assertTrue(buckets.containsKey("HOUR|DEVICE_MODE|1:FIXED_AMOUNT|" + START.plusHours(8)));
+    }
+
+    static List<ConsumeRecordEntity> randomRecords(int count, int days, Random random) {
+        List<ConsumeRecordEntity> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime payTime = START.plusSeconds(random.nextInt(days * 24 * 3600));
+            BigDecimal amount = BigDecimal.valueOf(100 + random.nextInt(5000), 2);
+            ConsumeRecordEntity record = record(payTime, (long) random.nextInt(50), MODES[random.nextInt(MODES.length)],
+                    amount);
+            record.setPersonId((long) random.nextInt(2000));
+            record.setRegionId("R" + random.nextInt(8));
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static ConsumeRecordEntity record(LocalDateTime payTime, Long deviceId, String mode, BigDecimal amount) {
+        ConsumeRecordEntity record = new ConsumeRecordEntity();
+        record.setStatus("SUCCESS");
+        record.setPayTime(payTime);
+        record.setDeviceId(deviceId);
+        record.setConsumptionMode(mode);
+        record.setAmount(amount);
+        record.setPersonId(1L);
+        return record;
+    }
+
+    private static Map<String, List<ConsumeRecordEntity>> groupBy(List<ConsumeRecordEntity> records, String pattern) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+        return records.stream().collect(Collectors.groupingBy(r -> r.getPayTime().format(formatter)));
+    }
+
+    private static BigDecimal sum(List<ConsumeRecordEntity> records) {
+        return records.stream()
+                .filter(r -> r.getAmount() != null)
+                .map(ConsumeRecordEntity::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
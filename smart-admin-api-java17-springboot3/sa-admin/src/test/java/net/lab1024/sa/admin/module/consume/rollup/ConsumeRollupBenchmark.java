@@ -0,0 +1,103 @@
+package net.lab1024.sa.admin.module.consume.rollup;
+
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRecordEntity;
+import net.lab1024.sa.admin.module.consume.domain.entity.ConsumeRollupEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 消费报表30天汇总基准测试
+ *
+ * 对比按明细分组统计（原实现）与读取小时预聚合两种方式生成按天汇总的耗时，
+ * 只衡量应用侧计算，明细方式实际还要额外传输全部记录，差距更大。
+ * 运行方式：执行main方法，结果写入 target/consume-rollup-benchmark.json
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsumeRollupBenchmark {
+
+    private static final int DAYS = 30;
+
+    @Param({"100000", "1000000"})
+    private int recordCount;
+
+    private List<ConsumeRecordEntity> records;
+
+    private List<ConsumeRollupEntity> rollupRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = ConsumeRollupAggregatorTest.randomRecords(recordCount, DAYS, new Random(20250115L));
+        rollupRows = ConsumeRollupAggregator.rollup(records, ConsumeRollupDimension.ALL);
+    }
+
+    @Benchmark
+    public Map<String, Object> summaryFromRecords() {
+        Map<String, Object> details = new HashMap<>(records.stream()
+                .collect(Collectors.groupingBy(
+                        r -> r.getPayTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
+                        Collectors.collectingAndThen(Collectors.toList(), list -> {
+                            Map<String, Object> dayStats = new HashMap<>();
+                            dayStats.put("amount", list.stream()
+                                    .filter(r -> r.getAmount() != null)
+                                    .map(ConsumeRecordEntity::getAmount)
+                                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+                            dayStats.put("count", list.size());
+                            return dayStats;
+                        }))));
+        BigDecimal totalAmount = records.stream()
+                .filter(r -> r.getAmount() != null)
+                .map(ConsumeRecordEntity::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalAmount", totalAmount);
+        result.put("totalCount", (long) records.size());
+        result.put("details", details);
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, Object> summaryFromRollup() {
+        return ConsumeRollupAggregator.summary(rollupRows, "DAY");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ConsumeRollupBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/consume-rollup-benchmark.json")
+                .build();
+        new Runner(options).run();
+    }
+}
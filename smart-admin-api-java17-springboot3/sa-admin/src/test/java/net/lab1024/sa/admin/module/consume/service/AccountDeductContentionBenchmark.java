@@ -0,0 +1,235 @@
+package net.lab1024.sa.admin.module.consume.service;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同一账户多终端并发扣款基准测试
+ *
+ * 每次调用模拟 terminals 台POS终端同时对同一账户各扣款一笔，对比：
+ * - readCheckCas：原实现，先查询余额和版本号再按版本号更新，版本冲突即拒绝
+ * - conditionalUpdate：一条条件UPDATE完成校验与扣减（与 AccountDao.deductBalanceAtomic 相同的SQL）
+ * 结果中 approved/declined 为每秒成功/被拒笔数，账户余额充足，declined 全部为并发冲突造成的误拒。
+ * 需要可用的MySQL，通过系统属性 benchmark.jdbc.url、benchmark.jdbc.username、benchmark.jdbc.password 指定，
+ * 测试表 t_consume_account_benchmark 由基准测试自行创建和删除。
+ * 运行方式：执行main方法，结果写入 target/account-deduct-contention-benchmark.json
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AccountDeductContentionBenchmark {
+
+    private static final String TABLE = "t_consume_account_benchmark";
+
+    private static final long ACCOUNT_ID = 1L;
+
+    private static final BigDecimal AMOUNT = new BigDecimal("12.50");
+
+    private static final String SELECT_SQL = "SELECT balance, credit_limit, frozen_amount, version FROM " + TABLE
+            + " WHERE account_id = ? AND status = 'ACTIVE' AND deleted_flag = 0";
+
+    private static final String CAS_UPDATE_SQL = "UPDATE " + TABLE + " SET balance = ?, version = version + 1,"
+            + " update_time = NOW(), current_daily_amount = current_daily_amount + ?,"
+            + " current_monthly_amount = current_monthly_amount + ?, total_consume_amount = total_consume_amount + ?,"
+            + " last_consume_time = NOW() WHERE account_id = ? AND balance = ? AND version = ? AND deleted_flag = 0";
+
+    private static final String CONDITIONAL_UPDATE_SQL = "UPDATE " + TABLE + " SET balance = balance - ?,"
+            + " version = version + 1, update_time = NOW(), current_daily_amount = current_daily_amount + ?,"
+            + " current_monthly_amount = current_monthly_amount + ?, total_consume_amount = total_consume_amount + ?,"
+            + " last_consume_time = NOW() WHERE account_id = ? AND status = 'ACTIVE' AND deleted_flag = 0"
+            + " AND balance + credit_limit - frozen_amount >= ? AND (single_limit IS NULL OR single_limit >= ?)";
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    private int terminals;
+
+    private List<Connection> connections;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " ("
+                    + "account_id BIGINT NOT NULL PRIMARY KEY,"
+                    + "balance DECIMAL(16,2) NOT NULL,"
+                    + "frozen_amount DECIMAL(12,2) NOT NULL DEFAULT 0.00,"
+                    + "credit_limit DECIMAL(12,2) NOT NULL DEFAULT 0.00,"
+                    + "status VARCHAR(16) NOT NULL DEFAULT 'ACTIVE',"
+                    + "single_limit DECIMAL(12,2) NULL,"
+                    + "current_daily_amount DECIMAL(16,2) NOT NULL DEFAULT 0.00,"
+                    + "current_monthly_amount DECIMAL(16,2) NOT NULL DEFAULT 0.00,"
+                    + "total_consume_amount DECIMAL(16,2) NOT NULL DEFAULT 0.00,"
+                    + "last_consume_time DATETIME NULL,"
+                    + "update_time DATETIME NULL,"
+                    + "deleted_flag TINYINT NOT NULL DEFAULT 0,"
+                    + "version INT NOT NULL DEFAULT 0) ENGINE=InnoDB");
+            statement.execute("INSERT INTO " + TABLE + " (account_id, balance) VALUES (" + ACCOUNT_ID
+                    + ", 100000000000.00)");
+        }
+        connections = new ArrayList<>(terminals);
+        for (int i = 0; i < terminals; i++) {
+            connections.add(connect());
+        }
+        executor = Executors.newFixedThreadPool(terminals);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        executor.shutdownNow();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+        }
+    }
+
+    @Benchmark
+    public void readCheckCas(Outcome outcome) throws Exception {
+        round(outcome, this::deductWithVersion);
+    }
+
+    @Benchmark
+    public void conditionalUpdate(Outcome outcome) throws Exception {
+        round(outcome, this::deductConditionally);
+    }
+
+    /**
+     * 所有终端同时扣款一笔
+     */
+    private void round(Outcome outcome, Deduction deduction) throws Exception {
+        List<Callable<Boolean>> tasks = new ArrayList<>(terminals);
+        for (Connection connection : connections) {
+            tasks.add(() -> deduction.deduct(connection));
+        }
+        for (Future<Boolean> future : executor.invokeAll(tasks)) {
+            if (future.get()) {
+                outcome.approved++;
+            } else {
+                outcome.declined++;
+            }
+        }
+    }
+
+    private boolean deductWithVersion(Connection connection) throws SQLException {
+        BigDecimal balance;
+        int version;
+        try (PreparedStatement select = connection.prepareStatement(SELECT_SQL)) {
+            select.setLong(1, ACCOUNT_ID);
+            try (ResultSet resultSet = select.executeQuery()) {
+                if (!resultSet.next()) {
+                    return false;
+                }
+                balance = resultSet.getBigDecimal(1);
+                BigDecimal available = balance.add(resultSet.getBigDecimal(2)).subtract(resultSet.getBigDecimal(3));
+                if (available.compareTo(AMOUNT) < 0) {
+                    return false;
+                }
+                version = resultSet.getInt(4);
+            }
+        }
+        try (PreparedStatement update = connection.prepareStatement(CAS_UPDATE_SQL)) {
+            update.setBigDecimal(1, balance.subtract(AMOUNT));
+            update.setBigDecimal(2, AMOUNT);
+            update.setBigDecimal(3, AMOUNT);
+            update.setBigDecimal(4, AMOUNT);
+            update.setLong(5, ACCOUNT_ID);
+            update.setBigDecimal(6, balance);
+            update.setInt(7, version);
+            return update.executeUpdate() == 1;
+        }
+    }
+
+    private boolean deductConditionally(Connection connection) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(CONDITIONAL_UPDATE_SQL)) {
+            update.setBigDecimal(1, AMOUNT);
+            update.setBigDecimal(2, AMOUNT);
+            update.setBigDecimal(3, AMOUNT);
+            update.setBigDecimal(4, AMOUNT);
+            update.setLong(5, ACCOUNT_ID);
+            update.setBigDecimal(6, AMOUNT);
+            update.setBigDecimal(7, AMOUNT);
+            return update.executeUpdate() == 1;
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url", "jdbc:mysql://127.0.0.1:3306/smart_admin_v3"
+                        + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=Asia/Shanghai"),
+                System.getProperty("benchmark.jdbc.username", "root"),
+                System.getProperty("benchmark.jdbc.password", ""));
+    }
+
+    @FunctionalInterface
+    private interface Deduction {
+
+        boolean deduct(Connection connection) throws SQLException;
+    }
+
+    /**
+     * 成功/被拒笔数，按每秒输出
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+
+        public long approved;
+
+        public long declined;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            approved = 0;
+            declined = 0;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AccountDeductContentionBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/account-deduct-contention-benchmark.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,105 @@
+package net.lab1024.sa.admin.module.consume.service.impl;
+
+import net.lab1024.sa.admin.module.consume.dao.AccountDao;
+import net.lab1024.sa.admin.module.consume.service.cache.AccountCacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 余额条件扣减重试测试：每次尝试为独立事务，失败的尝试回滚后在事务外退避重试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@DisplayName("余额条件扣减重试测试")
+class AccountServiceImplDeductTest {
+
+    private static final Long ACCOUNT_ID = 1L;
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private AccountDao accountDao;
+
+    private PlatformTransactionManager transactionManager;
+
+    private AccountServiceImpl accountService;
+
+    @BeforeEach
+    void setUp() {
+        accountDao = mock(AccountDao.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+
+        accountService = new AccountServiceImpl();
+        ReflectionTestUtils.setField(accountService, "baseMapper", accountDao);
+        ReflectionTestUtils.setField(accountService, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(accountService, "cacheManager", mock(AccountCacheManager.class));
+        ReflectionTestUtils.setField(accountService, "deductMaxRetries", 2);
+        ReflectionTestUtils.setField(accountService, "deductRetryBackoffMs", 1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    @DisplayName("行锁冲突后在新事务中重试，成功返回扣减后余额")
+    void testRetryThenSuccess() {
+        when(accountDao.deductBalanceAtomic(ACCOUNT_ID, AMOUNT))
+                .thenThrow(new CannotAcquireLockException("lock wait timeout"))
+                .thenThrow(new PessimisticLockingFailureException("deadlock"))
+                .thenReturn(1);
+        when(accountDao.selectBalance(ACCOUNT_ID)).thenReturn(new BigDecimal("90.00"));
+
+        BigDecimal balance = accountService.deductBalanceAtomic(ACCOUNT_ID, AMOUNT, "ORDER001");
+
+        assertEquals(new BigDecimal("90.00"), balance);
+        verify(accountDao, times(3)).deductBalanceAtomic(ACCOUNT_ID, AMOUNT);
+        // 每次尝试各开启一个事务：两次失败回滚，最后一次提交
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("重试次数用尽后抛出，所有尝试均已回滚")
+    void testGiveUpAfterMaxRetries() {
+        when(accountDao.deductBalanceAtomic(ACCOUNT_ID, AMOUNT))
+                .thenThrow(new CannotAcquireLockException("lock wait timeout"));
+
+        assertThrows(CannotAcquireLockException.class,
+                () -> accountService.deductBalanceAtomic(ACCOUNT_ID, AMOUNT, "ORDER001"));
+
+        verify(accountDao, times(3)).deductBalanceAtomic(ACCOUNT_ID, AMOUNT);
+        verify(transactionManager, times(3)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(accountDao, never()).selectBalance(anyLong());
+    }
+
+    @Test
+    @DisplayName("在调用方事务内不重试，直接抛出")
+    void testNoRetryInsideCallerTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        when(accountDao.deductBalanceAtomic(ACCOUNT_ID, AMOUNT))
+                .thenThrow(new CannotAcquireLockException("lock wait timeout"));
+
+        assertThrows(CannotAcquireLockException.class,
+                () -> accountService.deductBalanceAtomic(ACCOUNT_ID, AMOUNT, "ORDER001"));
+
+        verify(accountDao, times(1)).deductBalanceAtomic(ACCOUNT_ID, AMOUNT);
+    }
+}
@@ -0,0 +1,133 @@
+package net.lab1024.sa.admin.module.monitor.cep;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 门禁事件复杂事件处理引擎测试
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+public class AccessEventCepEngineTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 15, 9, 0);
+
+    @Test
+    @DisplayName("同门窗口内失败达到阈值告警一次，窗口外事件不计入")
+    void testCountRule() {
+        AccessEventCepEngine engine = new AccessEventCepEngine();
+        engine.register(List.of(CepRule.compile("failed", "verify_result=failed && count>=5 within 60s by device")));
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(engine.onEvent(event("D1", "U" + i, "failed", "in", i * 10)).isEmpty());
+        }
+        // 其他门和成功事件不影响D1计数
+        assertTrue(engine.onEvent(event("D2", "U9", "failed", "in", 41)).isEmpty());
+        assertTrue(engine.onEvent(event("D1", "U9", "success", "in", 42)).isEmpty());
+
+        List<CepMatch> matches = engine.onEvent(event("D1", "U5", "failed", "in", 45));
+        assertEquals(1, matches.size());
+        assertEquals("failed", matches.get(0).getRuleId());
+        assertEquals("D1", matches.get(0).getGroupKey());
+        assertEquals(5, matches.get(0).getCount());
+
+        // 告警后清零，同一窗口内不重复告警
+        assertTrue(engine.onEvent(event("D1", "U6", "failed", "in", 50)).isEmpty());
+
+        // 相隔超过窗口的失败不累计
+        AccessEventCepEngine sparse = new AccessEventCepEngine();
+        sparse.register(List.of(CepRule.compile("failed", "verify_result=failed && count>=5 within 60s by device")));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(sparse.onEvent(event("D1", "U1", "failed", "in", i * 30)).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("反潜回：同一人员同一区域连续两次进入告警，进出交替不告警")
+    void testRepeatRule() {
+        AccessEventCepEngine engine = new AccessEventCepEngine();
+        engine.register(List.of(CepRule.compile("apb", "verify_result=success && repeat(direction) within 12h by user,area")));
+
+        assertTrue(engine.onEvent(event("D1", "U1", "success", "in", 0)).isEmpty());
+        assertTrue(engine.onEvent(event("D2", "U1", "success", "out", 600)).isEmpty());
+        assertTrue(engine.onEvent(event("D1", "U1", "success", "in", 1200)).isEmpty());
+        // 其他人员不影响
+        assertTrue(engine.onEvent(event("D1", "U2", "success", "in", 1300)).isEmpty());
+
+        List<CepMatch> matches = engine.onEvent(event("D3", "U1", "success", "in", 1800));
+        assertEquals(1, matches.size());
+        assertEquals("U1|A1", matches.get(0).getGroupKey());
+    }
+
+    @Test
+    @DisplayName("规则编译：索引字段、时间段与语法错误")
+    void testCompile() {
+        CepRule rule = CepRule.compile("r", "area=A1|A2 && verify_result=failed && time_range=22:00-06:00");
+        assertEquals(CepRule.Type.MATCH, rule.getType());
+        assertEquals(CepField.AREA, rule.getIndexField());
+        assertTrue(rule.getIndexValues().contains("A2"));
+
+        CepEvent night = new CepEvent("D1", "A2", "U1", "failed", "card", "in", BASE.withHour(23));
+        CepEvent day = new CepEvent("D1", "A2", "U1", "failed", "card", "in", BASE.withHour(12));
+        CepEvent noArea = new CepEvent("D1", null, "U1", "failed", "card", "in", BASE.withHour(23));
+        assertTrue(rule.matches(night));
+        assertFalse(rule.matches(day));
+        assertFalse(rule.matches(noArea));
+
+        assertThrows(IllegalArgumentException.class, () -> CepRule.compile("r", "unknown_field=1"));
+        assertThrows(IllegalArgumentException.class, () -> CepRule.compile("r", "count>=5 within 60x by device"));
+        assertThrows(IllegalArgumentException.class,
+                () -> CepRule.compile("r", "count>=1 within 1s by device && repeat(direction) within 1s by user"));
+    }
+
+    @Test
+    @DisplayName("分组状态达到上限后丢弃新分组，空闲状态可回收")
+    void testBoundedState() {
+        AccessEventCepEngine engine = new AccessEventCepEngine();
+        ReflectionTestUtils.setField(engine, "maxKeys", 3);
+        engine.register(List.of(CepRule.compile("c", "count>=100 within 10s by user")));
+
+        for (int i = 0; i < 5; i++) {
+            engine.onEvent(event("D1", "U" + i, "success", "in", 0));
+        }
+        assertEquals(3, engine.getStatistics().get("stateCount"));
+        assertEquals(2L, engine.getStatistics().get("droppedKeys"));
+
+        long later = event("D1", "U0", "success", "in", 60).getTimestamp();
+        assertEquals(3, engine.evictExpired(later));
+        assertEquals(0, engine.getStatistics().get("stateCount"));
+    }
+
+    @Test
+    @DisplayName("滑动窗口计数并发累加不丢失")
+    void testConcurrentCounter() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60_000, 12);
+        long now = System.currentTimeMillis();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.add(now);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, counter.sum(now));
+        assertEquals(0, counter.sum(now + 61_000));
+    }
+
+    private static CepEvent event(String deviceId, String userId, String verifyResult, String direction,
+            int offsetSeconds) {
+        return new CepEvent(deviceId, "A1", userId, verifyResult, "card", direction, BASE.plusSeconds(offsetSeconds));
+    }
+}
@@ -0,0 +1,94 @@
+package net.lab1024.sa.admin.module.monitor.websocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+
+/**
+ * WebSocket会话发送队列测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class SessionOutboxTest {
+
+    @Test
+    @DisplayName("单条消息原样发送，多条消息合为一帧")
+    void testBatchFrame() {
+        SessionOutbox outbox = new SessionOutbox(10);
+        outbox.offer(FanoutMessage.of("{\"id\":1}"));
+        assertEquals("{\"id\":1}", outbox.drainBatch(100));
+        assertNull(outbox.drainBatch(100));
+
+        outbox.offer(FanoutMessage.of("{\"id\":2}"));
+        outbox.offer(FanoutMessage.of("{\"id\":3}"));
+        outbox.offer(FanoutMessage.of("{\"id\":4}"));
+        JSONObject frame = JSON.parseObject(outbox.drainBatch(2));
+        assertEquals("batch", frame.getString("type"));
+        assertEquals(2, frame.getIntValue("count"));
+        assertEquals(2, frame.getJSONArray("messages").getJSONObject(0).getIntValue("id"));
+        assertEquals(1, outbox.size());
+    }
+
+    @Test
+    @DisplayName("队列满时丢弃最早的非关键消息，下一帧携带丢弃数量")
+    void testDropOldest() {
+        SessionOutbox outbox = new SessionOutbox(2);
+        outbox.offer(FanoutMessage.builder().payload("{\"id\":1}").critical(true).build());
+        outbox.offer(FanoutMessage.of("{\"id\":2}"));
+        assertTrue(outbox.offer(FanoutMessage.of("{\"id\":3}")));
+        assertEquals(2, outbox.size());
+
+        JSONObject frame = JSON.parseObject(outbox.drainBatch(10));
+        assertEquals(1, frame.getIntValue("dropped"));
+        assertEquals(1, frame.getJSONArray("messages").getJSONObject(0).getIntValue("id"));
+        assertEquals(3, frame.getJSONArray("messages").getJSONObject(1).getIntValue("id"));
+        assertEquals(1L, outbox.getTotalDropped());
+    }
+
+    @Test
+    @DisplayName("队列全是关键消息时不超出容量，关键消息被拒绝时标记溢出")
+    void testCriticalOverflow() {
+        SessionOutbox outbox = new SessionOutbox(1);
+        outbox.offer(FanoutMessage.builder().payload("{\"id\":1}").critical(true).build());
+        assertFalse(outbox.offer(FanoutMessage.of("{\"id\":2}")));
+        assertFalse(outbox.isOverflowed());
+
+        assertFalse(outbox.offer(FanoutMessage.builder().payload("{\"id\":3}").critical(true).build()));
+        assertTrue(outbox.isOverflowed());
+        assertEquals(1, outbox.size());
+        assertEquals(2L, outbox.getTotalDropped());
+    }
+
+    @Test
+    @DisplayName("相同合并键的消息原位替换为最新内容")
+    void testMerge() {
+        SessionOutbox outbox = new SessionOutbox(10);
+        outbox.offer(FanoutMessage.builder().payload("{\"status\":\"online\"}").mergeKey("device:1").build());
+        outbox.offer(FanoutMessage.of("{\"id\":1}"));
+        outbox.offer(FanoutMessage.builder().payload("{\"status\":\"offline\"}").mergeKey("device:1").build());
+
+        assertEquals(2, outbox.size());
+        assertEquals(1L, outbox.getTotalMerged());
+        JSONObject frame = JSON.parseObject(outbox.drainBatch(10));
+        assertEquals("offline", frame.getJSONArray("messages").getJSONObject(0).getString("status"));
+
+        // 已发送后相同合并键重新入队
+        outbox.offer(FanoutMessage.builder().payload("{\"status\":\"online\"}").mergeKey("device:1").build());
+        assertEquals(1, outbox.size());
+    }
+
+    @Test
+    @DisplayName("同一时刻只允许一个在途发送")
+    void testSingleInFlight() {
+        SessionOutbox outbox = new SessionOutbox(10);
+        assertTrue(outbox.tryBeginSend());
+        assertFalse(outbox.tryBeginSend());
+        outbox.endSend();
+        assertTrue(outbox.tryBeginSend());
+    }
+}
@@ -0,0 +1,155 @@
+package net.lab1024.sa.admin.module.oa.document.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentEntity;
+
+/**
+ * 文档全文索引测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class DocumentIndexTest {
+
+    private DocumentIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new DocumentIndex(new ByteBuffersDirectory());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("标题命中排在正文命中之前，并返回高亮片段")
+    void rankedSearchWithHighlight() throws IOException {
+        index.index(document(1L, "年度工作总结", "本年度完成了数据库迁移方案的评审与实施", "[总结]", 10L));
+        index.index(document(2L, "数据库迁移方案", "描述从旧系统迁移到新集群的步骤", "[方案, 数据库]", 10L));
+        index.index(document(3L, "团建活动通知", "周五下午组织户外活动", "[通知]", 20L));
+        index.refresh();
+
+        DocumentSearchResult result = index.search(DocumentSearchQuery.of("迁移方案"), 0, 10);
+
+        assertEquals(2, result.total());
+        assertEquals(List.of(2L, 1L), ids(result));
+        DocumentSearchResult.Hit top = result.hits().get(0);
+        assertNotNull(top.titleHighlight());
+        assertTrue(top.titleHighlight().contains("<em>"));
+        assertNotNull(result.hits().get(1).contentHighlight());
+        assertNull(result.hits().get(1).titleHighlight());
+    }
+
+    @Test
+    @DisplayName("分类、标签、时间过滤与标签分面统计")
+    void filtersAndFacets() throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        DocumentEntity api = document(1L, "接口设计规范", "接口命名与版本规范", "[\"规范\",\"研发\"]", 10L);
+        api.setCreateTime(now.minusDays(10));
+        DocumentEntity review = document(2L, "代码评审规范", "评审流程与检查清单", "[\"规范\",\"研发\"]", 10L);
+        review.setCreateTime(now.minusDays(1));
+        DocumentEntity expense = document(3L, "报销规范", "差旅报销标准", "[\"规范\",\"财务\"]", 20L);
+        expense.setCreateTime(now.minusDays(1));
+        index.index(api);
+        index.index(review);
+        index.index(expense);
+        index.refresh();
+
+        DocumentSearchResult all = index.search(DocumentSearchQuery.of("规范"), 0, 10);
+        assertEquals(3, all.total());
+        assertEquals(3, all.tagFacets().get("规范"));
+        assertEquals(2, all.tagFacets().get("研发"));
+        assertEquals(1, all.tagFacets().get("财务"));
+
+        DocumentSearchResult byCategory = index.search(
+                new DocumentSearchQuery("规范", 10L, null, null, null, null, null, null), 0, 10);
+        assertEquals(2, byCategory.total());
+        assertNull(byCategory.tagFacets().get("财务"));
+
+        DocumentSearchResult byTag = index.search(
+                new DocumentSearchQuery("规范", null, null, null, "财务", null, null, null), 0, 10);
+        assertEquals(List.of(3L), ids(byTag));
+
+        DocumentSearchResult recent = index.search(
+                new DocumentSearchQuery("规范", null, null, null, null, null, now.minusDays(2), null), 0, 10);
+        assertEquals(2, recent.total());
+    }
+
+    @Test
+    @DisplayName("更新覆盖旧内容，删除与软删除从索引移除")
+    void incrementalUpdates() throws IOException {
+        index.index(document(1L, "采购合同模板", "合同条款", "[]", 10L));
+        index.index(document(2L, "采购流程说明", "申请审批流程", "[]", 10L));
+        index.refresh();
+        assertEquals(2, index.search(DocumentSearchQuery.of("采购"), 0, 10).total());
+
+        index.index(document(1L, "销售合同模板", "合同条款", "[]", 10L));
+        index.delete(2L);
+        index.refresh();
+        assertEquals(0, index.search(DocumentSearchQuery.of("采购"), 0, 10).total());
+        assertEquals(List.of(1L), ids(index.search(DocumentSearchQuery.of("销售"), 0, 10)));
+
+        index.index(document(1L, "销售合同模板", "合同条款", "[]", 10L).setStatus("DELETED"));
+        index.refresh();
+        assertEquals(0, index.search(DocumentSearchQuery.of("销售"), 0, 10).total());
+        // 无关键字时匹配全部文档
+        assertEquals(0, index.search(DocumentSearchQuery.of(null), 0, 10).total());
+    }
+
+    @Test
+    @DisplayName("分页按偏移截取，特殊字符按普通文本处理")
+    void pagingAndSpecialCharacters() throws IOException {
+        for (long i = 1; i <= 25; i++) {
+            index.index(document(i, "会议纪要第" + i + "期", "讨论项目进度", "[]", 10L));
+        }
+        index.refresh();
+
+        DocumentSearchResult page = index.search(DocumentSearchQuery.of("会议纪要"), 20, 10);
+        assertEquals(25, page.total());
+        assertEquals(5, page.hits().size());
+        assertEquals(0, index.search(DocumentSearchQuery.of("会议纪要"), 30, 10).hits().size());
+
+        assertDoesNotThrow(() -> index.search(DocumentSearchQuery.of("会议 AND (纪要 OR \"*"), 0, 10));
+        assertEquals(0, index.search(DocumentSearchQuery.of("，。！"), 0, 10).total());
+    }
+
+    @Test
+    @DisplayName("标签字段兼容多种存储格式")
+    void parseTags() {
+        assertEquals(List.of("a", "b"), DocumentIndex.parseTags("[\"a\", \"b\"]"));
+        assertEquals(List.of("方案", "V1"), DocumentIndex.parseTags("[方案, V1, 方案]"));
+        assertEquals(List.of("x", "y"), DocumentIndex.parseTags("x,y"));
+        assertEquals(List.of(), DocumentIndex.parseTags("[]"));
+        assertEquals(List.of(), DocumentIndex.parseTags(null));
+    }
+
+    private static DocumentEntity document(Long id, String title, String content, String tags, Long categoryId) {
+        DocumentEntity document = new DocumentEntity();
+        document.setDocumentId(id);
+        document.setTitle(title);
+        document.setContent(content);
+        document.setTags(tags);
+        document.setCategoryId(categoryId);
+        document.setDocumentType("MD");
+        document.setStatus("ACTIVE");
+        document.setDeletedFlag(0);
+        return document;
+    }
+
+    private static List<Long> ids(DocumentSearchResult result) {
+        return result.hits().stream().map(DocumentSearchResult.Hit::documentId).toList();
+    }
+}
@@ -0,0 +1,101 @@
+package net.lab1024.sa.admin.module.oa.document.version;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 文本行级差量测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class TextDeltaTest {
+
+    @Test
+    @DisplayName("插入、删除、修改行后还原结果与原文一致")
+    void roundTrip() {
+        String base = "第一行\n第二行\n第三行\n第四行\n";
+        assertRoundTrip(base, "第一行\n第二行（修改）\n第三行\n第四行\n");
+        assertRoundTrip(base, "新增首行\n第一行\n第二行\n第三行\n第四行\n");
+        assertRoundTrip(base, "第一行\n第四行\n");
+        assertRoundTrip(base, "第一行\n第二行\n第三行\n第四行");
+        assertRoundTrip(base, "");
+        assertRoundTrip("", base);
+        assertRoundTrip("a\r\nb\r\n", "a\r\nc\r\nb\r\n");
+    }
+
+    @Test
+    @DisplayName("随机编辑的还原结果与原文一致")
+    void randomRoundTrip() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                lines.add("L" + random.nextInt(8) + "\n");
+            }
+            String base = String.join("", lines);
+            for (int edits = random.nextInt(6); edits > 0; edits--) {
+                int position = lines.isEmpty() ? 0 : random.nextInt(lines.size());
+                if (random.nextBoolean() || lines.isEmpty()) {
+                    lines.add(position, "N" + random.nextInt(8) + "\n");
+                } else {
+                    lines.remove(position);
+                }
+            }
+            assertRoundTrip(base, String.join("", lines));
+        }
+    }
+
+    @Test
+    @DisplayName("少量修改的大文本差量只包含变化的行")
+    void smallDeltaForSmallEdit() {
+        StringBuilder base = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            base.append("这是文档的第").append(i).append("行内容\n");
+        }
+        String target = base.toString().replace("第100行内容", "第100行内容（已修改）")
+                .replace("第4000行内容\n", "");
+
+        byte[] delta = TextDelta.diff(base.toString(), target, 100);
+
+        assertNotNull(delta);
+        assertTrue(delta.length < 128, "delta=" + delta.length);
+        assertEquals(target, TextDelta.apply(base.toString(), delta));
+    }
+
+    @Test
+    @DisplayName("编辑行数超过上限时放弃差量")
+    void maxEdits() {
+        assertNull(TextDelta.diff("a\nb\nc\n", "x\ny\nz\n", 4));
+        assertNotNull(TextDelta.diff("a\nb\nc\n", "x\ny\nz\n", 6));
+        assertNotNull(TextDelta.diff("a\nb\nc\n", "a\nb\nc\n", 0));
+    }
+
+    @Test
+    @DisplayName("差量与基准不匹配时抛出异常")
+    void mismatchedBase() {
+        byte[] delta = TextDelta.diff("a\nb\nc\n", "a\nb\nc\nd\n", 10);
+        assertThrows(IllegalArgumentException.class, () -> TextDelta.apply("a\n", delta));
+        assertThrows(IllegalArgumentException.class, () -> TextDelta.apply("a\n", new byte[] {9}));
+    }
+
+    @Test
+    @DisplayName("按行切分保留换行符")
+    void splitLines() {
+        assertEquals(List.of("a\n", "\n", "b"), TextDelta.splitLines("a\n\nb"));
+        assertEquals(List.of(), TextDelta.splitLines(""));
+        assertEquals(List.of(), TextDelta.splitLines(null));
+    }
+
+    private static void assertRoundTrip(String base, String target) {
+        byte[] delta = TextDelta.diff(base, target, Integer.MAX_VALUE / 4);
+        assertNotNull(delta);
+        assertEquals(target, TextDelta.apply(base, delta));
+    }
+}
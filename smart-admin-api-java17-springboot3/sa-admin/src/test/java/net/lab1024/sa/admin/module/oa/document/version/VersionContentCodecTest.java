@@ -0,0 +1,126 @@
+package net.lab1024.sa.admin.module.oa.document.version;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentVersionEntity;
+
+/**
+ * 文档版本内容编解码测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class VersionContentCodecTest {
+
+    private static final int KEYFRAME_INTERVAL = 4;
+
+    private static final int MAX_DIFF_LINES = 100;
+
+    @Test
+    @DisplayName("按关键帧间隔交替保存全文与差量，任一版本可还原")
+    void keyframesAndDeltas() {
+        List<String> contents = new ArrayList<>();
+        List<DocumentVersionEntity> versions = encodeHistory(10, contents);
+
+        for (int i = 0; i < versions.size(); i++) {
+            DocumentVersionEntity version = versions.get(i);
+            String expected = i % KEYFRAME_INTERVAL == 0 ? VersionContentCodec.STORAGE_FULL
+                    : VersionContentCodec.STORAGE_DELTA;
+            assertEquals(expected, version.getStorageType(), "v" + version.getVersionNumber());
+            assertEquals(i / KEYFRAME_INTERVAL * KEYFRAME_INTERVAL + 1, version.getBaseVersionNumber());
+            assertEquals(contents.get(i), VersionContentCodec.reconstruct(versions.subList(0, i + 1)));
+        }
+        assertEquals(contents.get(6), VersionContentCodec.reconstruct(versions.subList(4, 7)));
+    }
+
+    @Test
+    @DisplayName("差量超过原文一半时保存为关键帧")
+    void largeChangeStoredAsKeyframe() {
+        DocumentVersionEntity first = version(1);
+        VersionContentCodec.encode(first, lines("a", 50), null, null, KEYFRAME_INTERVAL, MAX_DIFF_LINES);
+        DocumentVersionEntity second = version(2);
+        VersionContentCodec.encode(second, lines("b", 50), first, lines("a", 50), KEYFRAME_INTERVAL, MAX_DIFF_LINES);
+
+        assertEquals(VersionContentCodec.STORAGE_FULL, second.getStorageType());
+        assertEquals(2, second.getBaseVersionNumber());
+        assertEquals(lines("b", 50), VersionContentCodec.readFull(second));
+        assertEquals((long) lines("b", 50).length(), second.getContentSize());
+    }
+
+    @Test
+    @DisplayName("历史明文版本可直接读取并作为差量基准")
+    void legacyPlaintext() {
+        DocumentVersionEntity legacy = version(1).setContent(lines("a", 30));
+        assertTrue(VersionContentCodec.isSelfContained(legacy));
+        assertEquals(lines("a", 30), VersionContentCodec.readFull(legacy));
+
+        String content = lines("a", 30) + "追加一行\n";
+        DocumentVersionEntity next = version(2);
+        VersionContentCodec.encode(next, content, legacy, legacy.getContent(), KEYFRAME_INTERVAL, MAX_DIFF_LINES);
+
+        assertEquals(VersionContentCodec.STORAGE_DELTA, next.getStorageType());
+        assertEquals(1, next.getBaseVersionNumber());
+        assertEquals(content, VersionContentCodec.reconstruct(List.of(legacy, next)));
+        assertEquals(content, VersionContentCodec.replay(legacy.getContent(), List.of(next)));
+    }
+
+    @Test
+    @DisplayName("版本链缺少关键帧或压缩数据损坏时抛出异常")
+    void brokenChain() {
+        List<DocumentVersionEntity> versions = encodeHistory(3, new ArrayList<>());
+        assertThrows(IllegalArgumentException.class, () -> VersionContentCodec.reconstruct(versions.subList(1, 3)));
+        assertThrows(IllegalArgumentException.class, () -> VersionContentCodec.decompressText("AAAA"));
+    }
+
+    @Test
+    @DisplayName("空内容可编码还原")
+    void emptyContent() {
+        DocumentVersionEntity version = version(1);
+        VersionContentCodec.encode(version, null, null, null, KEYFRAME_INTERVAL, MAX_DIFF_LINES);
+        assertEquals(VersionContentCodec.STORAGE_FULL, version.getStorageType());
+        assertEquals("", VersionContentCodec.readFull(version));
+        assertEquals(0L, version.getContentSize());
+    }
+
+    /**
+     * 生成 count 个版本，每个版本在上一版本基础上修改一行
+     */
+    private static List<DocumentVersionEntity> encodeHistory(int count, List<String> contents) {
+        List<DocumentVersionEntity> versions = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            lines.add("段落" + i + "：文档版本内容\n");
+        }
+        DocumentVersionEntity previous = null;
+        String previousContent = null;
+        for (int number = 1; number <= count; number++) {
+            lines.set(number % lines.size(), "段落" + number + "：第" + number + "次修改\n");
+            String content = String.join("", lines);
+            DocumentVersionEntity version = version(number);
+            VersionContentCodec.encode(version, content, previous, previousContent, KEYFRAME_INTERVAL, MAX_DIFF_LINES);
+            versions.add(version);
+            contents.add(content);
+            previous = version;
+            previousContent = content;
+        }
+        return versions;
+    }
+
+    private static DocumentVersionEntity version(int number) {
+        return new DocumentVersionEntity().setVersionId((long) number).setDocumentId(1L).setVersionNumber(number);
+    }
+
+    private static String lines(String prefix, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(prefix).append(i).append("\n");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package net.lab1024.sa.admin.module.oa.workflow.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 流程模型解析与流转测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class ProcessModelTest {
+
+    /**
+     * 请假流程：提交 → 经理审批 → 金额/天数排他网关（>3天需HR会签与总监并行审批）→ 结束
+     */
+    private static final String LEAVE_PROCESS = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <definitions xmlns="http://www.omg.org/spec/BPMN/20100524/MODEL"
+                         xmlns:flowable="http://flowable.org/bpmn">
+              <process id="leave" name="请假">
+                <startEvent id="start"/>
+                <userTask id="submit" name="提交申请" flowable:assignee="${startUserId}"/>
+                <userTask id="manager" name="经理审批" flowable:candidateGroups="MANAGER"/>
+                <exclusiveGateway id="daysGateway" default="toEnd"/>
+                <parallelGateway id="fork"/>
+                <userTask id="hr" name="HR审批" flowable:candidateGroups="HR,ADMIN"/>
+                <userTask id="director" name="总监审批" flowable:candidateUsers="9001,9002"/>
+                <parallelGateway id="join"/>
+                <endEvent id="end"/>
+                <sequenceFlow id="f1" sourceRef="start" targetRef="submit"/>
+                <sequenceFlow id="f2" sourceRef="submit" targetRef="manager"/>
+                <sequenceFlow id="f3" sourceRef="manager" targetRef="daysGateway"/>
+                <sequenceFlow id="rejected" sourceRef="daysGateway" targetRef="submit">
+                  <conditionExpression>${outcome == 'reject'}</conditionExpression>
+                </sequenceFlow>
+                <sequenceFlow id="longLeave" sourceRef="daysGateway" targetRef="fork">
+                  <conditionExpression><![CDATA[${days > 3}]]></conditionExpression>
+                </sequenceFlow>
+                <sequenceFlow id="toEnd" sourceRef="daysGateway" targetRef="end"/>
+                <sequenceFlow id="f4" sourceRef="fork" targetRef="hr"/>
+                <sequenceFlow id="f5" sourceRef="fork" targetRef="director"/>
+                <sequenceFlow id="f6" sourceRef="hr" targetRef="join"/>
+                <sequenceFlow id="f7" sourceRef="director" targetRef="join"/>
+                <sequenceFlow id="f8" sourceRef="join" targetRef="end"/>
+              </process>
+            </definitions>
+            """;
+
+    @Test
+    @DisplayName("解析节点属性并按来源节点分组连线")
+    void parseNodesAndTransitions() {
+        ProcessModel model = ProcessModel.parse(LEAVE_PROCESS);
+
+        assertEquals("start", model.getStartNode().id());
+        ProcessModel.FlowNode submit = model.getNode("submit");
+        assertEquals(ProcessModel.NodeType.USER_TASK, submit.type());
+        assertEquals("${startUserId}", submit.assignee());
+        assertEquals("HR,ADMIN", model.getNode("hr").candidateGroups());
+        assertEquals("9001,9002", model.getNode("director").candidateUsers());
+
+        assertEquals(3, model.getOutgoing("daysGateway").size());
+        assertNotNull(model.getOutgoing("daysGateway").get(1).condition());
+        assertTrue(model.getOutgoing("end").isEmpty());
+    }
+
+    @Test
+    @DisplayName("排他网关按条件选择出线，均不满足时走默认出线")
+    void exclusiveGateway() {
+        ProcessModel model = ProcessModel.parse(LEAVE_PROCESS);
+
+        assertEquals(List.of("submit"), ids(model.resolveNext("start", Map.of())));
+        assertEquals(List.of("submit"), ids(model.resolveNext("manager", Map.of("outcome", "reject", "days", 5))));
+        assertEquals(List.of("end"), ids(model.resolveNext("manager", Map.of("outcome", "approve", "days", 2))));
+    }
+
+    @Test
+    @DisplayName("并行网关分支到所有出线，汇聚节点可识别")
+    void parallelGateway() {
+        ProcessModel model = ProcessModel.parse(LEAVE_PROCESS);
+
+        assertEquals(List.of("hr", "director"),
+                ids(model.resolveNext("manager", Map.of("outcome", "approve", "days", 5))));
+        assertTrue(model.isJoining("hr"));
+        assertTrue(model.isJoining("director"));
+        assertFalse(model.isJoining("manager"));
+        assertEquals(List.of("end"), ids(model.resolveNext("hr", Map.of())));
+    }
+
+    @Test
+    @DisplayName("非法流程定义在解析时拒绝")
+    void invalidDefinitions() {
+        assertThrows(IllegalArgumentException.class, () -> ProcessModel.parse("<definitions/>"));
+        assertThrows(IllegalArgumentException.class, () -> ProcessModel.parse(
+                "<process id='p'><userTask id='a'/></process>"));
+        assertThrows(IllegalArgumentException.class, () -> ProcessModel.parse(
+                "<process id='p'><startEvent id='s'/><sequenceFlow id='f' sourceRef='s' targetRef='x'/></process>"));
+        assertThrows(IllegalArgumentException.class, () -> ProcessModel.parse(
+                "<process id='p'><startEvent id='s'/><endEvent id='e'/>"
+                        + "<sequenceFlow id='f' sourceRef='s' targetRef='e'><conditionExpression>${a >}</conditionExpression>"
+                        + "</sequenceFlow></process>"));
+        // 禁止DTD，防止外部实体注入
+        assertThrows(IllegalArgumentException.class, () -> ProcessModel.parse(
+                "<!DOCTYPE process [<!ENTITY x SYSTEM 'file:///etc/passwd'>]><process id='p'><startEvent id='s' name='&x;'/></process>"));
+    }
+
+    private static List<String> ids(List<ProcessModel.FlowNode> nodes) {
+        return nodes.stream().map(ProcessModel.FlowNode::id).toList();
+    }
+}
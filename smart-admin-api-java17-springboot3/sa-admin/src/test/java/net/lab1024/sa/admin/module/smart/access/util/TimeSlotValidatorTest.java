@@ -1,9 +1,12 @@
 package net.lab1024.sa.admin.module.smart.access.util;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDateTime;
+import java.util.Random;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -276,4 +279,67 @@ class TimeSlotValidatorTest {
         // 无效JSON应该返回false（安全策略：验证失败时不允许访问）
         assertFalse(TimeSlotValidator.validate(invalidJson, now), "无效JSON应该返回false");
     }
+
+    /**
+     * 测试结束时间点的秒级精度 - 与逐条解析保持一致
+     */
+    @Test
+    @DisplayName("测试结束时间点的秒级精度")
+    void testValidateEndBoundarySeconds() {
+        String timePeriodsJson = """
+                {"timeSlots": [{"type": "weekday", "timeRanges": [{"start": "08:00", "end": "18:00"}]}]}
+                """;
+
+        assertTrue(TimeSlotValidator.validate(timePeriodsJson, LocalDateTime.of(2025, 11, 17, 17, 59, 59)));
+        assertTrue(TimeSlotValidator.validate(timePeriodsJson, LocalDateTime.of(2025, 11, 17, 18, 0, 0)));
+        assertFalse(TimeSlotValidator.validate(timePeriodsJson, LocalDateTime.of(2025, 11, 17, 18, 0, 1)),
+                "结束时间点之后的秒不应该允许");
+    }
+
+    /**
+     * 测试相同配置只编译一次
+     */
+    @Test
+    @DisplayName("测试相同配置只编译一次")
+    void testCompiledScheduleCached() {
+        String timePeriodsJson = """
+                {"timeSlots": [{"type": "weekend", "timeRanges": [{"start": "09:00", "end": "17:00"}]}]}
+                """;
+
+        CompiledTimeSchedule first = TimeSlotValidator.getCompiledSchedule(timePeriodsJson);
+        CompiledTimeSchedule second = TimeSlotValidator.getCompiledSchedule(new String(timePeriodsJson));
+        assertSame(first, second, "相同内容的配置应该命中缓存");
+    }
+
+    /**
+     * 测试预编译判定与逐条解析判定结果一致
+     */
+    @Test
+    @DisplayName("测试预编译判定与逐条解析判定结果一致")
+    void testCompiledMatchesParsing() {
+        String timePeriodsJson = """
+                {
+                  "timeSlots": [
+                    {"type": "weekday", "days": [1, 3, 5], "timeRanges": [{"start": "07:30", "end": "11:45"}, {"start": "13:00", "end": "13:00"}]},
+                    {"type": "weekday", "timeRanges": [{"start": "21:10", "end": "05:20"}]},
+                    {"type": "weekend", "timeRanges": [{"start": "10:00", "end": "10:01"}]},
+                    {"type": "holiday", "dates": ["2025-01-01", "2025-5-1"], "timeRanges": []},
+                    {"type": "specific", "dates": ["2025-11-22"], "timeRanges": [{"start": "23:59", "end": "00:00"}, {"start": "bad", "end": "12:00"}]},
+                    {"type": "unknown", "timeRanges": [{"start": "00:00", "end": "23:59"}]}
+                  ]
+                }
+                """;
+
+        CompiledTimeSchedule schedule = TimeSlotValidator.getCompiledSchedule(timePeriodsJson);
+        Random random = new Random(20251119L);
+        LocalDateTime base = LocalDateTime.of(2024, 12, 25, 0, 0);
+        for (int i = 0; i < 20000; i++) {
+            LocalDateTime time = base.plusMinutes(random.nextInt(400 * 24 * 60));
+            if (random.nextBoolean()) {
+                time = time.plusSeconds(random.nextInt(2));
+            }
+            assertEquals(TimeSlotValidator.validateByParsing(timePeriodsJson, time), schedule.matches(time),
+                    "判定结果不一致: " + time);
+        }
+    }
 }
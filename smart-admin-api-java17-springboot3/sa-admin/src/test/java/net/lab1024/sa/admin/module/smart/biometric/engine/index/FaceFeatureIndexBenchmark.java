@@ -0,0 +1,110 @@
+package net.lab1024.sa.admin.module.smart.biometric.engine.index;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 人脸1:N检索基准测试
+ *
+ * 输出不同人脸库规模下暴力检索与IVF近似检索的每秒查询数，
+ * 运行方式：执行main方法，结果写入 target/face-index-benchmark.json
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FaceFeatureIndexBenchmark {
+
+    private static final int DIMENSION = 128;
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    private int gallerySize;
+
+    @Param({"FLAT", "IVF"})
+    private String indexType;
+
+    private FaceFeatureIndex index;
+
+    private float[][] queries;
+
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(20250115L);
+        if ("IVF".equals(indexType)) {
+            int nlist = Math.max(16, (int) Math.sqrt(gallerySize));
+            IvfFaceFeatureIndex ivf = new IvfFaceFeatureIndex(DIMENSION, nlist, Math.max(4, nlist / 16), Runnable::run);
+            index = ivf;
+        } else {
+            index = new FlatFaceFeatureIndex(DIMENSION);
+        }
+
+        float[][] gallery = FaceFeatureIndexTest.randomVectors(gallerySize, random);
+        for (int i = 0; i < gallerySize; i++) {
+            index.add("FACE_" + i, (long) i, gallery[i]);
+        }
+        if (index instanceof IvfFaceFeatureIndex) {
+            ((IvfFaceFeatureIndex) index).train();
+        }
+
+        queries = new float[QUERY_COUNT][];
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            float[] query = gallery[random.nextInt(gallerySize)].clone();
+            for (int d = 0; d < DIMENSION; d++) {
+                query[d] += (float) (random.nextGaussian() * 0.2);
+            }
+            queries[q] = query;
+        }
+    }
+
+    @Benchmark
+    public List<FaceMatch> searchTop1() {
+        return index.search(nextQuery(), 1);
+    }
+
+    @Benchmark
+    public List<FaceMatch> searchTop10() {
+        return index.search(nextQuery(), 10);
+    }
+
+    private float[] nextQuery() {
+        cursor = (cursor + 1) & (QUERY_COUNT - 1);
+        return queries[cursor];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FaceFeatureIndexBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/face-index-benchmark.json")
+                .build();
+        new Runner(options).run();
+    }
+}
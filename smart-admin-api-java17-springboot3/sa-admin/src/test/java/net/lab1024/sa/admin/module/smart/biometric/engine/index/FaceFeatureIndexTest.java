@@ -0,0 +1,107 @@
+package net.lab1024.sa.admin.module.smart.biometric.engine.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 人脸1:N检索索引测试
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+public class FaceFeatureIndexTest {
+
+    private static final int DIMENSION = 128;
+
+    @Test
+    @DisplayName("暴力索引返回按得分降序的TopK结果")
+    void testFlatSearchTopK() {
+        FlatFaceFeatureIndex index = new FlatFaceFeatureIndex(DIMENSION);
+        float[][] gallery = randomVectors(500, new Random(7));
+        for (int i = 0; i < gallery.length; i++) {
+            index.add("FACE_" + i, (long) i, gallery[i]);
+        }
+
+        List<FaceMatch> matches = index.search(gallery[42], 5);
+
+        assertEquals(5, matches.size());
+        assertEquals("FACE_42", matches.get(0).getTemplateId());
+        assertEquals(42L, matches.get(0).getUserId());
+        assertEquals(1.0, matches.get(0).getScore(), 1e-4);
+        for (int i = 1; i < matches.size(); i++) {
+            assertTrue(matches.get(i - 1).getScore() >= matches.get(i).getScore());
+        }
+    }
+
+    @Test
+    @DisplayName("删除与覆盖后索引保持一致")
+    void testFlatRemoveAndUpsert() {
+        FlatFaceFeatureIndex index = new FlatFaceFeatureIndex(DIMENSION);
+        float[][] gallery = randomVectors(10, new Random(11));
+        for (int i = 0; i < gallery.length; i++) {
+            index.add("FACE_" + i, (long) i, gallery[i]);
+        }
+
+        assertTrue(index.remove("FACE_3"));
+        assertFalse(index.remove("FACE_3"));
+        assertEquals(9, index.size());
+        assertNotEquals("FACE_3", index.search(gallery[3], 1).get(0).getTemplateId());
+
+        index.add("FACE_0", 100L, gallery[3]);
+        assertEquals(9, index.size());
+        FaceMatch best = index.search(gallery[3], 1).get(0);
+        assertEquals("FACE_0", best.getTemplateId());
+        assertEquals(100L, best.getUserId());
+    }
+
+    @Test
+    @DisplayName("IVF索引训练后保持高召回率")
+    void testIvfRecallAfterTraining() {
+        Random random = new Random(3);
+        IvfFaceFeatureIndex index = new IvfFaceFeatureIndex(DIMENSION, 32, 8, Runnable::run);
+        float[][] gallery = randomVectors(32 * 50, random);
+        for (int i = 0; i < gallery.length; i++) {
+            index.add("FACE_" + i, (long) i, gallery[i]);
+        }
+        assertTrue(index.isTrained());
+        assertEquals(gallery.length, index.size());
+
+        int hit = 0;
+        int queries = 100;
+        for (int q = 0; q < queries; q++) {
+            float[] query = gallery[q].clone();
+            for (int d = 0; d < DIMENSION; d++) {
+                query[d] += (float) (random.nextGaussian() * 0.2);
+            }
+            if (("FACE_" + q).equals(index.search(query, 1).get(0).getTemplateId())) {
+                hit++;
+            }
+        }
+        assertTrue(hit >= queries * 0.9, "recall@1=" + hit);
+
+        assertTrue(index.remove("FACE_0"));
+        assertEquals(gallery.length - 1, index.size());
+    }
+
+    @Test
+    @DisplayName("维度不匹配时拒绝写入")
+    void testDimensionMismatch() {
+        FlatFaceFeatureIndex index = new FlatFaceFeatureIndex(DIMENSION);
+        assertThrows(IllegalArgumentException.class, () -> index.add("FACE_1", 1L, new float[64]));
+    }
+
+    static float[][] randomVectors(int count, Random random) {
+        float[][] vectors = new float[count][DIMENSION];
+        for (float[] vector : vectors) {
+            for (int d = 0; d < DIMENSION; d++) {
+                vector[d] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,170 @@
+package net.lab1024.sa.admin.module.system.device.dispatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 设备命令批量并发下发测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class DeviceCommandDispatcherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DeviceCommandDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        DeviceDispatchOptions options = new DeviceDispatchOptions();
+        options.setDefaultConcurrency(8);
+        options.setGroupConcurrency(DeviceDispatchOptions.parseGroupConcurrency("ACCESS=4, VIDEO=2"));
+        options.setTimeoutMs(200L);
+        options.setMaxRetries(2);
+        options.setRetryBackoffMs(10L);
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new DeviceCommandDispatcher(options, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("同组并发不超过上限，结果按提交顺序返回并逐台回调")
+    void testGroupConcurrencyLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<DeviceCommandTask> tasks = new ArrayList<>();
+        for (long i = 0; i < 40; i++) {
+            tasks.add(new DeviceCommandTask(i, "ACCESS", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(10);
+                running.decrementAndGet();
+                return success();
+            }));
+        }
+        ConcurrentLinkedQueue<Long> streamed = new ConcurrentLinkedQueue<>();
+
+        List<DeviceCommandResult> results = dispatcher.dispatch(tasks, r -> streamed.add(r.getDeviceId()))
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(40, results.size());
+        assertEquals(40, streamed.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(Long.valueOf(i), results.get(i).getDeviceId());
+            assertTrue(results.get(i).isSuccess());
+        }
+        assertTrue(maxRunning.get() <= 4, "并发数超出分组上限: " + maxRunning.get());
+        assertTrue(maxRunning.get() > 1, "同组任务未并发执行");
+    }
+
+    @Test
+    @DisplayName("超时后重试，重试成功计为成功")
+    void testTimeoutRetry() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        DeviceCommandTask task = new DeviceCommandTask(1L, "VIDEO", () -> {
+            if (calls.incrementAndGet() == 1) {
+                Thread.sleep(5000);
+            }
+            return success();
+        });
+
+        DeviceCommandResult result = dispatcher.dispatch(List.of(task), null).get(10, TimeUnit.SECONDS).get(0);
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getAttempts());
+        assertEquals(1.0, meterRegistry.get("device.command.retries").tag("group", "VIDEO").counter().count());
+    }
+
+    @Test
+    @DisplayName("超时未返回的调用继续占用许可，重试等到调用返回后才执行")
+    void testTimedOutCallHoldsPermit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<DeviceCommandTask> tasks = new ArrayList<>();
+        for (long i = 0; i < 2; i++) {
+            tasks.add(new DeviceCommandTask(i, "VIDEO", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    if (calls.incrementAndGet() <= 2) {
+                        // 模拟无法被中断的socket读
+                        release.await();
+                    }
+                    return success();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }));
+        }
+
+        CompletableFuture<List<DeviceCommandResult>> future = dispatcher.dispatch(tasks, null);
+        Thread.sleep(600);
+        assertEquals(2, calls.get());
+        assertFalse(future.isDone());
+
+        release.countDown();
+        List<DeviceCommandResult> results = future.get(10, TimeUnit.SECONDS);
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(2, results.get(0).getAttempts());
+        assertTrue(maxRunning.get() <= 2, "在途调用超出分组上限: " + maxRunning.get());
+    }
+
+    @Test
+    @DisplayName("异常重试耗尽后失败，设备返回失败不重试")
+    void testFailureReasons() throws Exception {
+        AtomicInteger errorCalls = new AtomicInteger();
+        List<DeviceCommandTask> tasks = List.of(
+                new DeviceCommandTask(1L, "ACCESS", () -> {
+                    throw new IllegalStateException("connection refused");
+                }),
+                new DeviceCommandTask(2L, "ACCESS", () -> {
+                    errorCalls.incrementAndGet();
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("status", "ERROR");
+                    response.put("message", "门已常开");
+                    return response;
+                }));
+
+        List<DeviceCommandResult> results = dispatcher.dispatch(tasks, null).get(10, TimeUnit.SECONDS);
+
+        assertFalse(results.get(0).isSuccess());
+        assertEquals(DeviceCommandResult.REASON_EXCEPTION, results.get(0).getFailureReason());
+        assertEquals(3, results.get(0).getAttempts());
+
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(DeviceCommandResult.REASON_ERROR_RESPONSE, results.get(1).getFailureReason());
+        assertEquals(1, errorCalls.get());
+        assertEquals("门已常开", results.get(1).toResponseMap().get("message"));
+
+        assertEquals(1.0, meterRegistry.get("device.command.failures")
+                .tag("group", "ACCESS").tag("reason", DeviceCommandResult.REASON_EXCEPTION).counter().count());
+    }
+
+    private static Map<String, Object> success() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "SUCCESS");
+        return response;
+    }
+}
@@ -0,0 +1,132 @@
+package net.lab1024.sa.admin.module.system.device.heartbeat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 哈希时间轮测试，使用模拟时间推进
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class HashedTimingWheelTest {
+
+    private static final long TICK_MS = 100L;
+
+    @Test
+    @DisplayName("条目在到期刻度触发，之前不触发")
+    void firesAtDeadline() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK_MS, 8, 0L);
+        List<Long> expired = new ArrayList<>();
+        wheel.schedule(1L, 500L);
+
+        wheel.advance(400L, (key, now) -> {
+            expired.add(key);
+            return 0L;
+        });
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(500L, (key, now) -> {
+            expired.add(key);
+            return 0L;
+        });
+        assertEquals(List.of(1L), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("超过一圈的到期时间在正确的圈数触发")
+    void deadlineBeyondOneRevolution() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK_MS, 4, 0L);
+        List<Long> firedAt = new ArrayList<>();
+        // 4个槽每圈400ms，1000ms到期需转两圈多
+        wheel.schedule(7L, 1000L);
+
+        for (long now = 0L; now <= 1200L; now += TICK_MS) {
+            long current = now;
+            wheel.advance(now, (key, ts) -> {
+                firedAt.add(current);
+                return 0L;
+            });
+        }
+        assertEquals(List.of(1000L), firedAt);
+    }
+
+    @Test
+    @DisplayName("惰性续期：回调返回新的到期时间则在轮中续期")
+    void lazyRenewal() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK_MS, 8, 0L);
+        Map<Long, Long> lastBeat = new HashMap<>();
+        List<Long> offlineAt = new ArrayList<>();
+        long timeout = 300L;
+        lastBeat.put(1L, 0L);
+        wheel.schedule(1L, timeout);
+
+        HashedTimingWheel.ExpiryHandler handler = (key, now) -> {
+            long deadline = lastBeat.get(key) + timeout;
+            if (deadline > now) {
+                return deadline;
+            }
+            offlineAt.add(now);
+            return 0L;
+        };
+        for (long now = 0L; now <= 2000L; now += TICK_MS) {
+            // 前1000ms每200ms心跳一次，之后停止
+            if (now <= 1000L && now % 200L == 0) {
+                lastBeat.put(1L, now);
+            }
+            wheel.advance(now, handler);
+        }
+        assertEquals(List.of(1300L), offlineAt);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("已过期的条目在下一个待处理刻度触发，续期不早于下一刻度")
+    void overdueEntryFiresOnNextAdvance() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK_MS, 8, 0L);
+        wheel.advance(1000L, (key, now) -> 0L);
+        wheel.schedule(3L, 200L);
+
+        int[] calls = {0};
+        // 1000ms所在刻度已处理，过期条目落在下一刻度
+        int fired = wheel.advance(1100L, (key, now) -> {
+            calls[0]++;
+            // 返回过去的时间，不应在本刻度内重复触发
+            return 1L;
+        });
+        assertEquals(1, fired);
+        assertEquals(1, calls[0]);
+        assertEquals(1, wheel.size());
+
+        fired = wheel.advance(1200L, (key, now) -> 0L);
+        assertEquals(1, fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("回调异常时移除条目，不影响同槽其他条目")
+    void handlerExceptionDropsEntry() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK_MS, 8, 0L);
+        wheel.schedule(1L, 100L);
+        wheel.schedule(2L, 100L);
+        List<Long> handled = new ArrayList<>();
+
+        wheel.advance(100L, (key, now) -> {
+            if (key == 1L) {
+                throw new IllegalStateException("boom");
+            }
+            handled.add(key);
+            return 0L;
+        });
+        assertEquals(List.of(2L), handled);
+        assertEquals(0, wheel.size());
+    }
+}
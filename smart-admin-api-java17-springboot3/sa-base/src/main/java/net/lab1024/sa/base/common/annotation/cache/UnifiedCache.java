@@ -76,6 +76,19 @@ public @interface UnifiedCache {
      */
     boolean async() default false;
 
+    /**
+     * 是否为批量方法
+     * 方法参数为ID集合、返回 Map&lt;ID, 值&gt;，每个ID单独缓存，只有未命中的ID传给原方法；
+     * key 只能为空（取第一个集合参数）或 '#参数名' 指定ID集合参数
+     */
+    boolean batch() default false;
+
+    /**
+     * 批量方法中单个ID的缓存键前缀，键为 前缀 + ID
+     * 与单值方法共用缓存时须与其键一致，如单值方法 key = "'area:' + #areaId" 对应前缀 "area:"
+     */
+    String batchKeyPrefix() default "";
+
     /**
      * 是否启用缓存穿透保护
      */
@@ -1,21 +1,30 @@
 package net.lab1024.sa.base.common.aspect;
 
 import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.Order;
 import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +39,9 @@ import net.lab1024.sa.base.common.cache.UnifiedCacheManager;
  * - 支持SpEL表达式
  * - 异步缓存操作支持
  * - 异常处理和日志记录
+ * <p>
+ * 启动时为所有带注解的方法预解析 {@link UnifiedCacheOperation}（编译SpEL、取参数名与返回类型），
+ * 调用时不再解析表达式或反射方法签名；批量方法只把未命中的ID传给原方法
  *
  * @author SmartAdmin Team
  * @since 2025-11-16
@@ -38,12 +50,40 @@ import net.lab1024.sa.base.common.cache.UnifiedCacheManager;
 @Aspect
 @Component
 @Order(1) // 确保在其他切面之前执行
-public class UnifiedCacheAspect {
+public class UnifiedCacheAspect implements SmartInitializingSingleton {
 
     @Resource
     private UnifiedCacheManager unifiedCacheManager;
 
-    private final ExpressionParser expressionParser = new SpelExpressionParser();
+    @Resource
+    private ApplicationContext applicationContext;
+
+    /**
+     * 表达式在第二次求值后即编译为字节码
+     */
+    private final ExpressionParser expressionParser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, UnifiedCacheAspect.class.getClassLoader()));
+
+    private final Map<Method, UnifiedCacheOperation> operations = new ConcurrentHashMap<>();
+
+    /**
+     * 预解析所有Bean中带 {@link UnifiedCache} 的方法，批量方法配置错误时启动失败
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : applicationContext.getBeanDefinitionNames()) {
+            Class<?> beanType = applicationContext.getType(beanName, false);
+            if (beanType == null) {
+                continue;
+            }
+            Map<Method, UnifiedCache> annotated = MethodIntrospector.selectMethods(ClassUtils.getUserClass(beanType),
+                    (MethodIntrospector.MetadataLookup<UnifiedCache>) method -> AnnotatedElementUtils
+                            .findMergedAnnotation(method, UnifiedCache.class));
+            annotated.forEach((method, unifiedCache) -> operations.computeIfAbsent(method,
+                    m -> UnifiedCacheOperation.of(m, unifiedCache, expressionParser)));
+        }
+        log.info("统一缓存方法预解析完成: {}个", operations.size());
+    }
 
     /**
      * 处理缓存注解
@@ -53,21 +93,29 @@ public class UnifiedCacheAspect {
         long startTime = System.currentTimeMillis();
 
         try {
-            // 解析缓存键
-            String cacheKey = parseCacheKey(joinPoint, unifiedCache);
+            UnifiedCacheOperation operation = operation(joinPoint);
+            Object[] args = joinPoint.getArgs();
+            EvaluationContext context = operation.createEvaluationContext(args, joinPoint.getTarget());
 
             // 检查条件表达式
-            if (!shouldCache(joinPoint, unifiedCache)) {
-                log.debug("缓存条件不满足，直接执行方法: key={}", cacheKey);
+            if (!operation.shouldCache(context)) {
+                log.debug("缓存条件不满足，直接执行方法: {}", joinPoint.getSignature());
                 return joinPoint.proceed();
             }
 
+            if (operation.isBatch()) {
+                return handleBatch(joinPoint, operation, args);
+            }
+
+            // 解析缓存键
+            String cacheKey = operation.key(args, context);
+
             // 尝试从缓存获取
-            UnifiedCacheManager.CacheResult<Object> cacheResult = getFromCache(joinPoint, unifiedCache, cacheKey);
+            UnifiedCacheManager.CacheResult<Object> cacheResult = getFromCache(operation, cacheKey);
 
             if (cacheResult.isSuccess()) {
                 log.debug("缓存命中: namespace={}, key={}, hitTime={}ms",
-                        unifiedCache.namespace().getPrefix(), cacheKey, System.currentTimeMillis() - startTime);
+                        operation.getNamespace().getPrefix(), cacheKey, System.currentTimeMillis() - startTime);
                 return cacheResult.getData();
             }
 
@@ -75,18 +123,18 @@ public class UnifiedCacheAspect {
             Object result = joinPoint.proceed();
 
             // 检查是否应该缓存结果
-            if (shouldCacheResult(result, unifiedCache)) {
-                if (unifiedCache.async()) {
+            if (shouldCacheResult(result, operation)) {
+                if (operation.isAsyncSet()) {
                     // 异步设置缓存
-                    setCacheAsync(unifiedCache, cacheKey, result);
+                    setCacheAsync(operation, cacheKey, result);
                 } else {
                     // 同步设置缓存
-                    setCache(unifiedCache, cacheKey, result);
+                    setCache(operation, cacheKey, result);
                 }
             }
 
             log.debug("方法执行完成并缓存结果: namespace={}, key={}, executionTime={}ms",
-                    unifiedCache.namespace().getPrefix(), cacheKey, System.currentTimeMillis() - startTime);
+                    operation.getNamespace().getPrefix(), cacheKey, System.currentTimeMillis() - startTime);
 
             return result;
 
@@ -97,128 +145,81 @@ public class UnifiedCacheAspect {
     }
 
     /**
-     * 解析缓存键
+     * 批量方法：逐个ID批量查缓存，只以未命中的ID调用原方法，返回结果合并命中值
      */
-    private String parseCacheKey(ProceedingJoinPoint joinPoint, UnifiedCache unifiedCache) {
-        String keyExpression = unifiedCache.key();
-
-        if (keyExpression == null || keyExpression.trim().isEmpty()) {
-            // 生成默认缓存键
-            return generateDefaultKey(joinPoint);
+    private Object handleBatch(ProceedingJoinPoint joinPoint, UnifiedCacheOperation operation, Object[] args)
+            throws Throwable {
+        Collection<?> ids = operation.ids(args);
+        if (ids == null || ids.isEmpty()) {
+            return joinPoint.proceed();
         }
 
-        try {
-            // 解析SpEL表达式
-            EvaluationContext context = createEvaluationContext(joinPoint);
-            Expression expression = expressionParser.parseExpression(keyExpression);
-            Object keyValue = expression.getValue(context);
-
-            if (keyValue == null) {
-                return generateDefaultKey(joinPoint);
+        Map<String, Object> idsByKey = new LinkedHashMap<>(ids.size() * 2);
+        for (Object id : ids) {
+            if (id != null) {
+                idsByKey.putIfAbsent(operation.idKey(id), id);
             }
-
-            return String.valueOf(keyValue);
-
-        } catch (Exception e) {
-            log.warn("解析缓存键表达式失败: {}, 使用默认键", keyExpression, e);
-            return generateDefaultKey(joinPoint);
         }
-    }
-
-    /**
-     * 生成默认缓存键
-     */
-    private String generateDefaultKey(ProceedingJoinPoint joinPoint) {
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        String className = signature.getDeclaringType().getSimpleName();
-        String methodName = signature.getMethod().getName();
-        Object[] args = joinPoint.getArgs();
-
-        StringBuilder keyBuilder = new StringBuilder();
-        keyBuilder.append(className).append(":").append(methodName);
-
-        if (args != null && args.length > 0) {
-            keyBuilder.append(":");
-            for (int i = 0; i < args.length; i++) {
-                if (i > 0) {
-                    keyBuilder.append(",");
-                }
-                keyBuilder.append(args[i] != null ? args[i].toString() : "null");
+        List<String> keys = new ArrayList<>(idsByKey.keySet());
+        List<? extends UnifiedCacheManager.CacheResult<?>> cached = unifiedCacheManager
+                .mGet(operation.getNamespace(), keys, operation.getValueType()).getResults();
+
+        Map<Object, Object> result = new LinkedHashMap<>(ids.size() * 2);
+        List<Object> missIds = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Object id = idsByKey.get(keys.get(i));
+            UnifiedCacheManager.CacheResult<?> cacheResult = cached.get(i);
+            if (cacheResult.isSuccess()) {
+                result.put(id, cacheResult.getData());
+            } else {
+                missIds.add(id);
             }
         }
+        if (missIds.isEmpty()) {
+            log.debug("批量缓存全部命中: namespace={}, 数量={}", operation.getNamespace().getPrefix(), keys.size());
+            return result;
+        }
 
-        return keyBuilder.toString();
-    }
-
-    /**
-     * 创建SpEL表达式上下文
-     */
-    private EvaluationContext createEvaluationContext(ProceedingJoinPoint joinPoint) {
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        Object[] args = joinPoint.getArgs();
-        String[] paramNames = signature.getParameterNames();
-
-        StandardEvaluationContext context = new StandardEvaluationContext();
-
-        // 添加方法参数
-        if (paramNames != null) {
-            for (int i = 0; i < paramNames.length; i++) {
-                context.setVariable(paramNames[i], args[i]);
+        Map<?, ?> loaded = (Map<?, ?>) joinPoint.proceed(operation.withIds(args, missIds));
+        if (loaded != null && !loaded.isEmpty()) {
+            Map<String, Object> toCache = new LinkedHashMap<>(loaded.size() * 2);
+            loaded.forEach((id, value) -> {
+                result.put(id, value);
+                if (id != null && value != null) {
+                    toCache.put(operation.idKey(id), value);
+                }
+            });
+            if (operation.isAsyncSet()) {
+                CompletableFuture.runAsync(() -> setBatchCache(operation, toCache));
+            } else {
+                setBatchCache(operation, toCache);
             }
         }
 
-        // 添加参数数组
-        context.setVariable("args", args);
-        context.setVariable("method", method);
-        context.setVariable("target", joinPoint.getTarget());
-
-        return context;
+        log.debug("批量缓存: namespace={}, 总数={}, 未命中={}", operation.getNamespace().getPrefix(), keys.size(),
+                missIds.size());
+        return result;
     }
 
     /**
-     * 检查是否应该缓存
+     * 取方法的预解析信息，启动时未覆盖的方法（如非Spring Bean上的方法）首次调用时解析
      */
-    private boolean shouldCache(ProceedingJoinPoint joinPoint, UnifiedCache unifiedCache) {
-        // 检查条件表达式
-        String condition = unifiedCache.condition();
-        if (condition != null && !condition.trim().isEmpty()) {
-            try {
-                EvaluationContext context = createEvaluationContext(joinPoint);
-                Expression expression = expressionParser.parseExpression(condition);
-                Boolean result = expression.getValue(context, Boolean.class);
-                if (result != null && !result) {
-                    return false;
-                }
-            } catch (Exception e) {
-                log.warn("解析缓存条件表达式失败: {}", condition, e);
-            }
-        }
-
-        // 检查排除条件
-        String unless = unifiedCache.unless();
-        if (unless != null && !unless.trim().isEmpty()) {
-            try {
-                EvaluationContext context = createEvaluationContext(joinPoint);
-                Expression expression = expressionParser.parseExpression(unless);
-                Boolean result = expression.getValue(context, Boolean.class);
-                if (result != null && result) {
-                    return false;
-                }
-            } catch (Exception e) {
-                log.warn("解析缓存排除条件表达式失败: {}", unless, e);
-            }
+    private UnifiedCacheOperation operation(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        UnifiedCacheOperation operation = operations.get(method);
+        if (operation != null) {
+            return operation;
         }
-
-        return true;
+        return operations.computeIfAbsent(method, m -> UnifiedCacheOperation.of(m,
+                AnnotatedElementUtils.findMergedAnnotation(m, UnifiedCache.class), expressionParser));
     }
 
     /**
      * 检查是否应该缓存结果
      */
-    private boolean shouldCacheResult(Object result, UnifiedCache unifiedCache) {
+    private boolean shouldCacheResult(Object result, UnifiedCacheOperation operation) {
         // 检查null值缓存设置
-        if (result == null && !unifiedCache.cacheNull()) {
+        if (result == null && !operation.isCacheNull()) {
             return false;
         }
 
@@ -228,85 +229,69 @@ public class UnifiedCacheAspect {
     /**
      * 从缓存获取数据
      */
-    private UnifiedCacheManager.CacheResult<Object> getFromCache(ProceedingJoinPoint joinPoint,
-            UnifiedCache unifiedCache, String cacheKey) {
+    private UnifiedCacheManager.CacheResult<Object> getFromCache(UnifiedCacheOperation operation, String cacheKey) {
         try {
-            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-            Method method = signature.getMethod();
-            Type returnType = method.getGenericReturnType();
-
-            // 处理泛型返回类型
-            if (returnType instanceof ParameterizedType) {
-                ParameterizedType parameterizedType = (ParameterizedType) returnType;
-                Type rawType = parameterizedType.getRawType();
-
-                // 处理CompletableFuture异步返回类型
-                if (rawType.equals(CompletableFuture.class)) {
-                    // 异步类型暂不直接支持缓存
-                    return UnifiedCacheManager.CacheResult.failure(cacheKey, unifiedCache.namespace(),
-                            "Async type not supported for direct cache");
-                }
-
-                // 其他泛型类型可以使用TypeReference
-                // 使用Object.class作为类型参数，避免泛型类型约束问题
-                UnifiedCacheManager.CacheResult<?> result = unifiedCacheManager.get(unifiedCache.namespace(), cacheKey,
-                        Object.class);
-                @SuppressWarnings("unchecked")
-                UnifiedCacheManager.CacheResult<Object> castResult = (UnifiedCacheManager.CacheResult<Object>) result;
-                return castResult;
-            } else {
-                // 普通类型
-                Class<?> returnClass = (Class<?>) returnType;
-                UnifiedCacheManager.CacheResult<?> result = unifiedCacheManager.get(unifiedCache.namespace(), cacheKey,
-                        returnClass);
-                // 转换为CacheResult<Object>以匹配返回类型
-                @SuppressWarnings("unchecked")
-                UnifiedCacheManager.CacheResult<Object> castResult = (UnifiedCacheManager.CacheResult<Object>) result;
-                return castResult;
+            // 处理CompletableFuture异步返回类型
+            if (operation.isAsyncReturn()) {
+                // 异步类型暂不直接支持缓存
+                return UnifiedCacheManager.CacheResult.failure(cacheKey, operation.getNamespace(),
+                        "Async type not supported for direct cache");
             }
 
+            UnifiedCacheManager.CacheResult<?> result = unifiedCacheManager.get(operation.getNamespace(), cacheKey,
+                    operation.getValueType());
+            // 转换为CacheResult<Object>以匹配返回类型
+            @SuppressWarnings("unchecked")
+            UnifiedCacheManager.CacheResult<Object> castResult = (UnifiedCacheManager.CacheResult<Object>) result;
+            return castResult;
+
         } catch (Exception e) {
-            log.error("从缓存获取数据失败: namespace={}, key={}", unifiedCache.namespace().getPrefix(), cacheKey, e);
-            return UnifiedCacheManager.CacheResult.failure(cacheKey, unifiedCache.namespace(), e.getMessage());
+            log.error("从缓存获取数据失败: namespace={}, key={}", operation.getNamespace().getPrefix(), cacheKey, e);
+            return UnifiedCacheManager.CacheResult.failure(cacheKey, operation.getNamespace(), e.getMessage());
         }
     }
 
     /**
      * 设置缓存
      */
-    private void setCache(UnifiedCache unifiedCache, String cacheKey, Object result) {
+    private void setCache(UnifiedCacheOperation operation, String cacheKey, Object result) {
         try {
-            long ttl = unifiedCache.ttl();
+            long ttl = operation.getTtl();
             if (ttl > 0) {
-                unifiedCacheManager.set(unifiedCache.namespace(), cacheKey, result, ttl, unifiedCache.timeUnit());
+                unifiedCacheManager.set(operation.getNamespace(), cacheKey, result, ttl, operation.getTimeUnit());
             } else {
-                unifiedCacheManager.set(unifiedCache.namespace(), cacheKey, result);
+                unifiedCacheManager.set(operation.getNamespace(), cacheKey, result);
             }
 
         } catch (Exception e) {
-            log.error("设置缓存失败: namespace={}, key={}", unifiedCache.namespace().getPrefix(), cacheKey, e);
+            log.error("设置缓存失败: namespace={}, key={}", operation.getNamespace().getPrefix(), cacheKey, e);
         }
     }
 
     /**
      * 异步设置缓存
      */
-    private void setCacheAsync(UnifiedCache unifiedCache, String cacheKey, Object result) {
+    private void setCacheAsync(UnifiedCacheOperation operation, String cacheKey, Object result) {
         CompletableFuture.runAsync(() -> {
-            try {
-                long ttl = unifiedCache.ttl();
-                if (ttl > 0) {
-                    unifiedCacheManager.set(unifiedCache.namespace(), cacheKey, result, ttl, unifiedCache.timeUnit());
-                } else {
-                    unifiedCacheManager.set(unifiedCache.namespace(), cacheKey, result);
-                }
-
-                log.debug("异步缓存设置完成: namespace={}, key={}", unifiedCache.namespace().getPrefix(), cacheKey);
+            setCache(operation, cacheKey, result);
+            log.debug("异步缓存设置完成: namespace={}, key={}", operation.getNamespace().getPrefix(), cacheKey);
+        });
+    }
 
-            } catch (Exception e) {
-                log.error("异步设置缓存失败: namespace={}, key={}", unifiedCache.namespace().getPrefix(), cacheKey, e);
+    /**
+     * 批量设置缓存
+     */
+    private void setBatchCache(UnifiedCacheOperation operation, Map<String, Object> keyValues) {
+        try {
+            long ttl = operation.getTtl();
+            if (ttl > 0) {
+                unifiedCacheManager.mSet(operation.getNamespace(), keyValues, ttl, operation.getTimeUnit());
+            } else {
+                unifiedCacheManager.mSet(operation.getNamespace(), keyValues);
             }
-        });
+        } catch (Exception e) {
+            log.error("批量设置缓存失败: namespace={}, 数量={}", operation.getNamespace().getPrefix(), keyValues.size(), e);
+        }
     }
 
 }
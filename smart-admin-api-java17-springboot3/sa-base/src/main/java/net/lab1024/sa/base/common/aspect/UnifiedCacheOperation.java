@@ -0,0 +1,291 @@
+package net.lab1024.sa.base.common.aspect;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.ResolvableType;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.ClassUtils;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.base.common.annotation.cache.UnifiedCache;
+import net.lab1024.sa.base.common.cache.CacheNamespace;
+
+/**
+ * {@link UnifiedCache} 方法的预解析信息
+ * <p>
+ * 每个方法只解析一次（启动时或首次调用时）：参数名、返回类型等反射信息只取一次，
+ * SpEL表达式只解析一次并由解析器编译为字节码。缓存键按表达式形式选择构造方式：
+ * - 未指定：类名:方法名[:参数1,参数2...]，类名、方法名部分预先拼好
+ * - 单个参数引用（如 '#userId'）：直接取参数值，不经过SpEL
+ * - 其他表达式：编译后的SpEL
+ * <p>
+ * 批量方法（{@link UnifiedCache#batch()}）的ID集合参数、返回值类型在解析时校验，配置错误启动即失败
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+final class UnifiedCacheOperation {
+
+    private static final Pattern PARAMETER_REFERENCE = Pattern.compile("#([A-Za-z_$][\\w$]*)");
+
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final Method method;
+
+    private final CacheNamespace namespace;
+
+    private final long ttl;
+
+    private final TimeUnit timeUnit;
+
+    private final boolean cacheNull;
+
+    private final boolean asyncSet;
+
+    private final String batchKeyPrefix;
+
+    private final String[] parameterNames;
+
+    private final String defaultKeyPrefix;
+
+    /**
+     * 缓存键直接取自的参数下标，-1表示不适用
+     */
+    private final int keyParameterIndex;
+
+    private final Expression keyExpression;
+
+    private final Expression conditionExpression;
+
+    private final Expression unlessExpression;
+
+    /**
+     * 缓存值类型：普通方法为返回类型，批量方法为返回Map的值类型
+     */
+    private final Class<?> valueType;
+
+    private final boolean asyncReturn;
+
+    /**
+     * 批量方法的ID集合参数下标，非批量方法为-1
+     */
+    private final int idsParameterIndex;
+
+    private final boolean idsAsSet;
+
+    private UnifiedCacheOperation(Method method, UnifiedCache annotation, ExpressionParser parser) {
+        this.method = method;
+        this.namespace = annotation.namespace();
+        this.ttl = annotation.ttl();
+        this.timeUnit = annotation.timeUnit();
+        this.cacheNull = annotation.cacheNull();
+        this.asyncSet = annotation.async();
+        this.batchKeyPrefix = annotation.batchKeyPrefix();
+        this.parameterNames = parameterNames(method);
+        this.defaultKeyPrefix = method.getDeclaringClass().getSimpleName() + ":" + method.getName();
+
+        String key = annotation.key().trim();
+        int referenced = referencedParameter(key);
+        this.keyParameterIndex = referenced;
+        this.keyExpression = key.isEmpty() || referenced >= 0 ? null : parser.parseExpression(key);
+        this.conditionExpression = parse(parser, annotation.condition());
+        this.unlessExpression = parse(parser, annotation.unless());
+
+        Class<?> returnType = method.getReturnType();
+        this.asyncReturn = CompletableFuture.class.isAssignableFrom(returnType);
+
+        if (annotation.batch()) {
+            if (!Map.class.isAssignableFrom(returnType) || !returnType.isAssignableFrom(LinkedHashMap.class)) {
+                throw new IllegalStateException("批量缓存方法须返回Map: " + method);
+            }
+            int index = referenced >= 0 ? referenced : key.isEmpty() ? firstCollectionParameter(method) : -1;
+            if (index < 0 || !Collection.class.isAssignableFrom(method.getParameterTypes()[index])) {
+                throw new IllegalStateException("批量缓存方法须有ID集合参数，key只能为空或 '#参数名': " + method);
+            }
+            Class<?> idsType = method.getParameterTypes()[index];
+            if (!idsType.isAssignableFrom(ArrayList.class) && !idsType.isAssignableFrom(LinkedHashSet.class)) {
+                throw new IllegalStateException("批量缓存方法的ID集合参数须为List、Set或Collection: " + method);
+            }
+            this.idsParameterIndex = index;
+            this.idsAsSet = !idsType.isAssignableFrom(ArrayList.class);
+            this.valueType = ClassUtils.resolvePrimitiveIfNecessary(
+                    ResolvableType.forMethodReturnType(method).asMap().getGeneric(1).resolve(Object.class));
+        } else {
+            this.idsParameterIndex = -1;
+            this.idsAsSet = false;
+            this.valueType = ClassUtils.resolvePrimitiveIfNecessary(returnType);
+        }
+    }
+
+    static UnifiedCacheOperation of(Method method, UnifiedCache annotation, ExpressionParser parser) {
+        return new UnifiedCacheOperation(method, annotation, parser);
+    }
+
+    CacheNamespace getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * 过期时间，不大于0时使用命名空间默认值
+     */
+    long getTtl() {
+        return ttl;
+    }
+
+    TimeUnit getTimeUnit() {
+        return timeUnit;
+    }
+
+    boolean isCacheNull() {
+        return cacheNull;
+    }
+
+    boolean isAsyncSet() {
+        return asyncSet;
+    }
+
+    Class<?> getValueType() {
+        return valueType;
+    }
+
+    boolean isAsyncReturn() {
+        return asyncReturn;
+    }
+
+    boolean isBatch() {
+        return idsParameterIndex >= 0;
+    }
+
+    /**
+     * 创建SpEL上下文，所有表达式都不需要SpEL时返回null
+     */
+    EvaluationContext createEvaluationContext(Object[] args, Object target) {
+        if (keyExpression == null && conditionExpression == null && unlessExpression == null) {
+            return null;
+        }
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        for (int i = 0; i < parameterNames.length && i < args.length; i++) {
+            context.setVariable(parameterNames[i], args[i]);
+        }
+        context.setVariable("args", args);
+        context.setVariable("method", method);
+        context.setVariable("target", target);
+        return context;
+    }
+
+    /**
+     * 条件满足且未被排除时返回true，表达式求值失败视为不限制
+     */
+    boolean shouldCache(EvaluationContext context) {
+        if (conditionExpression != null && Boolean.FALSE.equals(evaluate(conditionExpression, context))) {
+            return false;
+        }
+        return unlessExpression == null || !Boolean.TRUE.equals(evaluate(unlessExpression, context));
+    }
+
+    /**
+     * 单值方法的缓存键，表达式结果为null或求值失败时使用默认键
+     */
+    String key(Object[] args, EvaluationContext context) {
+        Object keyValue = null;
+        if (keyParameterIndex >= 0) {
+            keyValue = args[keyParameterIndex];
+        } else if (keyExpression != null) {
+            keyValue = evaluate(keyExpression, context);
+        }
+        return keyValue != null ? String.valueOf(keyValue) : defaultKey(args);
+    }
+
+    Collection<?> ids(Object[] args) {
+        return (Collection<?>) args[idsParameterIndex];
+    }
+
+    /**
+     * 批量方法中单个ID的缓存键
+     */
+    String idKey(Object id) {
+        return batchKeyPrefix + id;
+    }
+
+    /**
+     * 以未命中的ID替换ID集合参数
+     */
+    Object[] withIds(Object[] args, Collection<Object> ids) {
+        Object[] replaced = args.clone();
+        replaced[idsParameterIndex] = idsAsSet ? new LinkedHashSet<>(ids) : new ArrayList<>(ids);
+        return replaced;
+    }
+
+    private String defaultKey(Object[] args) {
+        if (args.length == 0) {
+            return defaultKeyPrefix;
+        }
+        StringBuilder keyBuilder = new StringBuilder(defaultKeyPrefix.length() + 16 * args.length);
+        keyBuilder.append(defaultKeyPrefix).append(':');
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                keyBuilder.append(',');
+            }
+            keyBuilder.append(args[i]);
+        }
+        return keyBuilder.toString();
+    }
+
+    private Object evaluate(Expression expression, EvaluationContext context) {
+        try {
+            return expression.getValue(context);
+        } catch (Exception e) {
+            log.warn("缓存表达式求值失败: method={}, expression={}", method,
+                    expression.getExpressionString(), e);
+            return null;
+        }
+    }
+
+    private int referencedParameter(String key) {
+        Matcher matcher = PARAMETER_REFERENCE.matcher(key);
+        if (!matcher.matches()) {
+            return -1;
+        }
+        String name = matcher.group(1);
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (parameterNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Expression parse(ExpressionParser parser, String expression) {
+        return expression == null || expression.trim().isEmpty() ? null : parser.parseExpression(expression);
+    }
+
+    private static String[] parameterNames(Method method) {
+        String[] names = PARAMETER_NAMES.getParameterNames(method);
+        return names != null ? names : new String[0];
+    }
+
+    private static int firstCollectionParameter(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (Collection.class.isAssignableFrom(types[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
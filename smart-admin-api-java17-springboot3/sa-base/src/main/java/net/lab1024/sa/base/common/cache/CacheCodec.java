@@ -0,0 +1,28 @@
+package net.lab1024.sa.base.common.cache;
+
+/**
+ * 缓存值二进制编解码器
+ * <p>
+ * 由 {@link CacheValueSerializer} 调用，编号随值写入Redis编码头，读取时按编号选择编解码器。
+ * 已发布的编号不能修改或复用
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public interface CacheCodec {
+
+    /**
+     * 编解码器编号（1~255）
+     */
+    byte id();
+
+    /**
+     * 编码缓存值
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码 data[offset, offset + length)
+     */
+    Object decode(byte[] data, int offset, int length);
+}
@@ -0,0 +1,157 @@
+package net.lab1024.sa.base.common.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+
+/**
+ * 统一缓存的代际计数（命名空间/标签版本）
+ * <p>
+ * 以递增代际代替按模式删除，清空操作只需一次 INCR，不遍历键空间：
+ * - 命名空间代际拼入每个缓存键，清空命名空间后旧键不再被访问，随TTL自然过期
+ * - 标签代际随值写入（{@link TaggedValue}），读取时与当前代际比对，不一致视为未命中；
+ *   失效某一天、某个用户等一组缓存时递增对应标签即可
+ * <p>
+ * 代际在本节点缓存 {@link #LOCAL_TTL_SECONDS} 秒，递增后通过 {@link CacheInvalidationBus} 通知其他节点丢弃，
+ * 广播丢失时最迟在本地TTL到期后读到新代际。
+ * 标签代际键过期时间为 {@link #TAG_GENERATION_TTL_SECONDS}，每次递增续期；带标签的值TTL不应超过该时长，
+ * 否则代际键过期归零后可能与早先写入的版本重合
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Component
+public class CacheGenerations {
+
+    static final String KEY_PREFIX = "unified:cache:gen:";
+
+    static final String REGION = "unified:gen";
+
+    static final long TAG_GENERATION_TTL_SECONDS = 7 * 24 * 60 * 60;
+
+    private static final long LOCAL_TTL_SECONDS = 30;
+
+    @Resource
+    private RedisUtil redisUtil;
+
+    @Resource
+    private CacheInvalidationBus invalidationBus;
+
+    private final Cache<String, Long> local = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(LOCAL_TTL_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    /**
+     * 订阅其他节点的代际变更
+     */
+    @PostConstruct
+    public void subscribeInvalidation() {
+        if (invalidationBus == null) {
+            return;
+        }
+        invalidationBus.subscribe(REGION, key -> {
+            if (key == null) {
+                local.invalidateAll();
+            } else {
+                local.invalidate(key);
+            }
+        });
+    }
+
+    /**
+     * 命名空间当前代际，从未清空过为0
+     */
+    public long namespaceGeneration(CacheNamespace namespace) {
+        return current(namespaceKey(namespace));
+    }
+
+    /**
+     * 标签当前代际，从未失效过为0
+     */
+    public long tagGeneration(CacheNamespace namespace, String tag) {
+        return current(tagKey(namespace, tag));
+    }
+
+    /**
+     * 写入带标签的值前取各标签的当前代际
+     */
+    public Map<String, Long> stamp(CacheNamespace namespace, Collection<String> tags) {
+        Map<String, Long> stamps = new HashMap<>(tags.size() * 2);
+        for (String tag : tags) {
+            stamps.put(tag, tagGeneration(namespace, tag));
+        }
+        return stamps;
+    }
+
+    /**
+     * 写入时记录的标签代际是否仍是当前代际
+     */
+    public boolean isCurrent(CacheNamespace namespace, Map<String, Long> stamps) {
+        if (stamps == null) {
+            return true;
+        }
+        for (Map.Entry<String, Long> entry : stamps.entrySet()) {
+            Long stamp = entry.getValue();
+            if (stamp == null || stamp != tagGeneration(namespace, entry.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 递增命名空间代际，使命名空间下所有键失效
+     */
+    public long bumpNamespace(CacheNamespace namespace) {
+        return bump(namespaceKey(namespace), false);
+    }
+
+    /**
+     * 递增标签代际，使写入时带该标签的值失效
+     */
+    public long bumpTag(CacheNamespace namespace, String tag) {
+        return bump(tagKey(namespace, tag), true);
+    }
+
+    private long current(String key) {
+        return local.get(key, this::load);
+    }
+
+    private long load(String key) {
+        Object value = redisUtil.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    private long bump(String key, boolean expire) {
+        long generation = redisUtil.incr(key, 1);
+        if (expire) {
+            redisUtil.expire(key, TAG_GENERATION_TTL_SECONDS);
+        }
+        local.invalidate(key);
+        if (invalidationBus != null) {
+            invalidationBus.publish(REGION, key);
+        }
+        return generation;
+    }
+
+    private static String namespaceKey(CacheNamespace namespace) {
+        return KEY_PREFIX + namespace.getPrefix();
+    }
+
+    private static String tagKey(CacheNamespace namespace, String tag) {
+        return KEY_PREFIX + namespace.getPrefix() + ":tag:" + tag;
+    }
+}
@@ -0,0 +1,148 @@
+package net.lab1024.sa.base.common.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 本地缓存失效广播
+ * <p>
+ * 各节点的本地缓存（{@link NearCache}、业务模块自建的Caffeine缓存）在数据变更后通过 Redis pub/sub 通知其他节点失效，
+ * 监听容器见 UnifiedCacheConfig。消息格式：节点ID、区域、键（可多个），以换行分隔，键为空表示清空整个区域；
+ * 本节点发出的消息会被忽略，发布方应自行失效本地缓存。
+ * <p>
+ * 广播失败只记录日志，其他节点的本地缓存最迟在本地TTL到期后更新
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "unified:cache:invalidation";
+
+    private static final char SEPARATOR = '\n';
+
+    private final String nodeId = UUID.randomUUID().toString().replace("-", "");
+
+    private final Map<String, List<Consumer<String>>> handlers = new ConcurrentHashMap<>();
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 订阅区域的失效通知
+     *
+     * @param handler 参数为失效的键，null表示清空整个区域
+     */
+    public void subscribe(String region, Consumer<String> handler) {
+        handlers.computeIfAbsent(region, k -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * 通知其他节点失效
+     *
+     * @param key 失效的键，null表示清空整个区域
+     */
+    public void publish(String region, String key) {
+        String payload = nodeId + SEPARATOR + region + SEPARATOR + (key == null ? "" : key);
+        try {
+            send(payload);
+        } catch (Exception e) {
+            log.warn("广播缓存失效失败: region={}, key={}", region, key, e);
+        }
+    }
+
+    /**
+     * 批量通知其他节点失效，所有键合并为一条消息
+     */
+    public void publishAll(String region, Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        StringBuilder payload = new StringBuilder(nodeId).append(SEPARATOR).append(region);
+        for (String key : keys) {
+            payload.append(SEPARATOR).append(key);
+        }
+        try {
+            send(payload.toString());
+        } catch (Exception e) {
+            log.warn("广播缓存失效失败: region={}, keys={}", region, keys.size(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        receive(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 处理收到的失效消息
+     */
+    void receive(String payload) {
+        int first = payload.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : payload.indexOf(SEPARATOR, first + 1);
+        if (second < 0) {
+            log.warn("无法识别的缓存失效消息: {}", payload);
+            return;
+        }
+        if (payload.regionMatches(0, nodeId, 0, first) && first == nodeId.length()) {
+            return;
+        }
+        String region = payload.substring(first + 1, second);
+        List<Consumer<String>> regionHandlers = handlers.get(region);
+        if (regionHandlers == null) {
+            return;
+        }
+        if (second + 1 == payload.length()) {
+            dispatch(regionHandlers, region, null);
+            return;
+        }
+        int start = second + 1;
+        while (start <= payload.length()) {
+            int end = payload.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = payload.length();
+            }
+            dispatch(regionHandlers, region, payload.substring(start, end));
+            start = end + 1;
+        }
+    }
+
+    private void dispatch(List<Consumer<String>> regionHandlers, String region, String key) {
+        for (Consumer<String> handler : regionHandlers) {
+            try {
+                handler.accept(key);
+            } catch (Exception e) {
+                log.warn("处理缓存失效消息失败: region={}, key={}", region, key, e);
+            }
+        }
+    }
+
+    /**
+     * 发送消息，未配置Redis时（单机或测试）不发送
+     */
+    protected void send(String payload) {
+        if (stringRedisTemplate != null) {
+            stringRedisTemplate.convertAndSend(CHANNEL, payload);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -93,6 +93,33 @@ public class CacheMetricsCollector {
         log.debug("记录缓存未命中: namespace={}", namespace.getPrefix());
     }
 
+    /**
+     * 记录L1本地缓存命中（同时计为一次缓存命中）
+     */
+    public void recordLocalHit(CacheNamespace namespace) {
+        NamespaceMetrics metrics = getOrCreateNamespaceMetrics(namespace);
+        metrics.recordLocalHit();
+
+        totalRequests.incrementAndGet();
+        totalHits.incrementAndGet();
+    }
+
+    /**
+     * 记录L1本地缓存未命中（随后的L2结果另行记录）
+     */
+    public void recordLocalMiss(CacheNamespace namespace) {
+        getOrCreateNamespaceMetrics(namespace).recordLocalMiss();
+    }
+
+    /**
+     * 记录L1本地缓存失效
+     *
+     * @param remote 是否由其他节点的失效通知触发
+     */
+    public void recordLocalInvalidation(CacheNamespace namespace, boolean remote) {
+        getOrCreateNamespaceMetrics(namespace).recordLocalInvalidation(remote);
+    }
+
     /**
      * 记录缓存错误
      */
@@ -414,6 +441,10 @@ public class CacheMetricsCollector {
         private final AtomicLong errors = new AtomicLong(0);
         private final AtomicLong sets = new AtomicLong(0);
         private final AtomicLong deletes = new AtomicLong(0);
+        private final AtomicLong localHits = new AtomicLong(0);
+        private final AtomicLong localMisses = new AtomicLong(0);
+        private final AtomicLong localInvalidations = new AtomicLong(0);
+        private final AtomicLong remoteInvalidations = new AtomicLong(0);
 
         // 响应时间统计
         private final AtomicReference<ResponseTimeStats> responseTimeStats = new AtomicReference<>(
@@ -439,6 +470,20 @@ public class CacheMetricsCollector {
             misses.incrementAndGet();
         }
 
+        public void recordLocalHit() {
+            requests.incrementAndGet();
+            hits.incrementAndGet();
+            localHits.incrementAndGet();
+        }
+
+        public void recordLocalMiss() {
+            localMisses.incrementAndGet();
+        }
+
+        public void recordLocalInvalidation(boolean remote) {
+            (remote ? remoteInvalidations : localInvalidations).incrementAndGet();
+        }
+
         public void recordError() {
             requests.incrementAndGet();
             errors.incrementAndGet();
@@ -460,6 +505,10 @@ public class CacheMetricsCollector {
             errors.set(0);
             sets.set(0);
             deletes.set(0);
+            localHits.set(0);
+            localMisses.set(0);
+            localInvalidations.set(0);
+            remoteInvalidations.set(0);
 
             responseTimeStats.set(ResponseTimeStats.builder()
                     .minTime(Long.MAX_VALUE)
@@ -536,6 +585,14 @@ public class CacheMetricsCollector {
             map.put("errors", errorsCount);
             map.put("sets", sets.get());
             map.put("deletes", deletes.get());
+            long localHitCount = localHits.get();
+            long localRequests = localHitCount + localMisses.get();
+            map.put("localHits", localHitCount);
+            map.put("localMisses", localMisses.get());
+            map.put("localHitRate", localRequests > 0
+                    ? Math.round((double) localHitCount / localRequests * 10000.0) / 100.0 : 0.0);
+            map.put("localInvalidations", localInvalidations.get());
+            map.put("remoteInvalidations", remoteInvalidations.get());
             map.put("hitRate", Math.round(hitRate * 10000.0) / 100.0);
             map.put("missRate", Math.round(missRate * 10000.0) / 100.0);
             map.put("errorRate", Math.round(errorRate * 10000.0) / 100.0);
@@ -1,6 +1,7 @@
 package net.lab1024.sa.base.common.cache;
 
 import lombok.Getter;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -22,71 +23,78 @@ public enum CacheNamespace {
     /**
      * 系统缓存
      */
-    SYSTEM("SYSTEM", 3600, 300),
+    SYSTEM("SYSTEM", 3600, 300, 2000),
 
     /**
      * 用户缓存
      */
-    USER("USER", 1800, 120),
+    USER("USER", 1800, 120, 10000),
 
     /**
      * 权限缓存
      */
-    PERMISSION("PERMISSION", 3600, 300),
+    PERMISSION("PERMISSION", 3600, 300, 5000),
 
     /**
      * 业务数据缓存
      */
-    BUSINESS("BUSINESS", 1800, 180),
+    BUSINESS("BUSINESS", 1800, 180, 5000),
 
     /**
      * 配置缓存
      */
-    CONFIG("CONFIG", 7200, 600),
+    CONFIG("CONFIG", 7200, 600, 1000),
 
     /**
      * 临时缓存
      */
-    TEMP("TEMP", 300, 60),
+    TEMP("TEMP", 300, 60, 1000),
 
     /**
      * 消费模块缓存
      */
-    CONSUME("CONSUME", 1200, 180),
+    CONSUME("CONSUME", 1200, 180, 5000),
 
     /**
      * 门禁系统缓存
      */
-    ACCESS("ACCESS", 600, 120),
+    ACCESS("ACCESS", 600, 120, 10000),
 
     /**
      * 考勤系统缓存
      */
-    ATTENDANCE("ATTENDANCE", 1800, 300),
+    ATTENDANCE("ATTENDANCE", 1800, 300, 5000),
 
     /**
      * 视频监控缓存
      */
-    VIDEO("VIDEO", 900, 120),
+    VIDEO("VIDEO", 900, 120, 2000),
 
     /**
      * 设备管理缓存
      */
-    DEVICE("DEVICE", 3600, 300),
+    DEVICE("DEVICE", 3600, 300, 5000),
 
     /**
      * 文档管理缓存
      */
-    DOCUMENT("DOCUMENT", 1800, 240);
+    DOCUMENT("DOCUMENT", 1800, 240, 2000);
+
+    /**
+     * TTL抖动上限占命名空间默认TTL的比例
+     */
+    private static final double TTL_JITTER_RATIO = 0.1;
 
     private final String prefix;
     private final long redisTtl;  // Redis缓存TTL（秒）
     private final long localTtl;  // 本地缓存TTL（毫秒）
+    private final long localMaxSize;  // 本地缓存最大条数
 
-    CacheNamespace(String prefix, long redisTtl, long localTtl) {
+    CacheNamespace(String prefix, long redisTtl, long localTtl, long localMaxSize) {
         this.prefix = prefix;
         this.redisTtl = redisTtl;
         this.localTtl = localTtl * 1000; // 转换为毫秒
+        this.localMaxSize = localMaxSize;
     }
 
     /**
@@ -122,6 +130,13 @@ public enum CacheNamespace {
         return localTtl;
     }
 
+    /**
+     * 获取本地缓存最大条数
+     */
+    public long getLocalMaxSize() {
+        return localMaxSize;
+    }
+
     /**
      * 获取默认TTL（秒）
      * 兼容UnifiedCacheManager的getDefaultTtl()方法
@@ -138,6 +153,16 @@ public enum CacheNamespace {
         return TimeUnit.SECONDS;
     }
 
+    /**
+     * 在TTL上叠加随机抖动（0 ~ 默认TTL的10%，至少1秒），避免同一时刻写入的一批键同时过期
+     *
+     * @param ttlSeconds 基础TTL（秒）
+     */
+    public long jitterTtl(long ttlSeconds) {
+        long bound = Math.max(1, (long) (redisTtl * TTL_JITTER_RATIO));
+        return ttlSeconds + ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
     /**
      * 获取命名空间描述
      */
@@ -0,0 +1,184 @@
+package net.lab1024.sa.base.common.cache;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 统一缓存的Redis值序列化器（JSON与二进制双格式）
+ * <p>
+ * 写入：经 {@link #binary} 标记的值用 {@link CacheCodec} 编码，其余值仍按 GenericJackson2JsonRedisSerializer 写JSON。
+ * 二进制格式为 [{@link #MAGIC}][编解码器编号][标志位][数据]，编码结果超过压缩阈值时以Deflate压缩，
+ * 此时数据前另有4字节原始长度。
+ * <p>
+ * 读取：首字节为 {@link #MAGIC} 按编码头解码，否则按JSON解码。JSON以ASCII字符开头，不会与 MAGIC 冲突，
+ * 两种格式可以在同一Redis中共存。迁移时先在所有节点部署本序列化器（仍写JSON），
+ * 再按命名空间开启二进制写入（cache.codec.binary-namespaces），旧值随TTL淘汰；
+ * 回退时关闭配置即可，已写入的二进制值照常可读
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xC5;
+
+    private static final byte FLAG_DEFLATE = 1;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+
+    private final CacheCodec[] codecs = new CacheCodec[256];
+
+    private final CacheCodec writeCodec;
+
+    private final int compressThreshold;
+
+    /**
+     * @param writeCodec        二进制写入使用的编解码器
+     * @param compressThreshold 压缩阈值（字节），不大于0时不压缩
+     * @param readCodecs        只用于读取的编解码器，切换写入编解码器后保留旧的以读取存量值
+     */
+    public CacheValueSerializer(CacheCodec writeCodec, int compressThreshold, CacheCodec... readCodecs) {
+        this.writeCodec = writeCodec;
+        this.compressThreshold = compressThreshold;
+        for (CacheCodec codec : readCodecs) {
+            codecs[codec.id() & 0xFF] = codec;
+        }
+        codecs[writeCodec.id() & 0xFF] = writeCodec;
+    }
+
+    /**
+     * 标记以二进制编码写入的值，只在序列化时使用，读取得到原值
+     */
+    public static Object binary(Object value) {
+        return value == null ? null : new Binary(value);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!(value instanceof Binary)) {
+            return json.serialize(value);
+        }
+        byte[] payload = writeCodec.encode(((Binary) value).value);
+        if (compressThreshold > 0 && payload.length > compressThreshold) {
+            byte[] compressed = deflate(payload);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        byte[] bytes = new byte[HEADER_LENGTH + payload.length];
+        writeHeader(bytes, (byte) 0);
+        System.arraycopy(payload, 0, bytes, HEADER_LENGTH, payload.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return json.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("缓存值编码头不完整");
+        }
+        CacheCodec codec = codecs[bytes[1] & 0xFF];
+        if (codec == null) {
+            throw new SerializationException("未知的缓存编解码器: " + (bytes[1] & 0xFF));
+        }
+        if ((bytes[2] & FLAG_DEFLATE) != 0) {
+            byte[] payload = inflate(bytes);
+            return codec.decode(payload, 0, payload.length);
+        }
+        return codec.decode(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+    }
+
+    private void writeHeader(byte[] bytes, byte flags) {
+        bytes[0] = MAGIC;
+        bytes[1] = writeCodec.id();
+        bytes[2] = flags;
+    }
+
+    /**
+     * 压缩后的完整编码，压缩后不比原数据小时返回null
+     */
+    private byte[] deflate(byte[] payload) {
+        int offset = HEADER_LENGTH + 4;
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            // 只接受比原数据小的结果，输出缓冲按原长度分配，写满即放弃
+            byte[] bytes = new byte[offset + payload.length];
+            int length = offset;
+            while (!deflater.finished() && length < bytes.length) {
+                length += deflater.deflate(bytes, length, bytes.length - length);
+            }
+            if (!deflater.finished() || length >= HEADER_LENGTH + payload.length) {
+                return null;
+            }
+            writeHeader(bytes, FLAG_DEFLATE);
+            writeInt(bytes, HEADER_LENGTH, payload.length);
+            return Arrays.copyOf(bytes, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        int offset = HEADER_LENGTH + 4;
+        if (bytes.length < offset) {
+            throw new SerializationException("缓存值压缩数据不完整");
+        }
+        byte[] payload = new byte[readInt(bytes, HEADER_LENGTH)];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            int length = 0;
+            while (length < payload.length) {
+                int n = inflater.inflate(payload, length, payload.length - length);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("缓存值压缩数据不完整");
+                }
+                length += n;
+            }
+            return payload;
+        } catch (DataFormatException e) {
+            throw new SerializationException("缓存值压缩数据损坏", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8 | (bytes[offset + 3] & 0xFF);
+    }
+
+    /**
+     * 二进制写入标记
+     */
+    private static final class Binary {
+
+        private final Object value;
+
+        private Binary(Object value) {
+            this.value = value;
+        }
+    }
+}
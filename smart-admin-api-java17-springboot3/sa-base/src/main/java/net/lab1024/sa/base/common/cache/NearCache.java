@@ -0,0 +1,156 @@
+package net.lab1024.sa.base.common.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * 统一缓存的L1本地缓存（单个命名空间）
+ * <p>
+ * - 容量与TTL取自 {@link CacheNamespace}，写入时TTL不超过对应Redis值的TTL
+ * - 版本戳防止回填旧值：读L2前取 {@link #stamp(String)}，回填时若期间发生过失效（本地写、远程失效通知、整体清空）则放弃回填。
+ *   版本按键的哈希分段计数，失效先递增版本再删除条目，回填先写入再复核版本，两者任意交错都不会留下旧值
+ * - 缓存的是对象引用，调用方不应修改取出的对象
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class NearCache {
+
+    private static final int STRIPES = 1024;
+
+    private final CacheNamespace namespace;
+
+    private final Cache<String, Entry> cache;
+
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    /**
+     * 整体清空次数，计入每个键的版本戳
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    public NearCache(CacheNamespace namespace) {
+        this.namespace = namespace;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(namespace.getLocalMaxSize())
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 读取本地值，不存在时返回null
+     */
+    public Object get(String key) {
+        Entry entry = cache.getIfPresent(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * 当前版本戳，读L2之前获取，回填时传给 {@link #putIfUnchanged}
+     */
+    public long stamp(String key) {
+        return epoch.get() + versions.get(stripe(key));
+    }
+
+    /**
+     * 用L2读到的值回填，期间发生过失效时放弃
+     */
+    public void putIfUnchanged(String key, Object value, long stamp) {
+        if (value == null || stamp(key) != stamp) {
+            return;
+        }
+        Entry entry = new Entry(value, namespace.getLocalTtl());
+        cache.put(key, entry);
+        if (stamp(key) != stamp) {
+            // 写入与失效交错，只移除自己写入的条目
+            cache.asMap().remove(key, entry);
+        }
+    }
+
+    /**
+     * 本节点写入新值（L2已写入成功之后调用）
+     *
+     * @param ttlMillis 对应L2值的TTL，本地TTL取两者较小值
+     */
+    public void put(String key, Object value, long ttlMillis) {
+        versions.incrementAndGet(stripe(key));
+        if (value == null) {
+            cache.invalidate(key);
+            return;
+        }
+        long localTtl = ttlMillis > 0 ? Math.min(ttlMillis, namespace.getLocalTtl()) : namespace.getLocalTtl();
+        cache.put(key, new Entry(value, localTtl));
+    }
+
+    /**
+     * 失效单个键
+     */
+    public void invalidate(String key) {
+        versions.incrementAndGet(stripe(key));
+        cache.invalidate(key);
+    }
+
+    /**
+     * 失效全部键
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    public CacheNamespace getNamespace() {
+        return namespace;
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * 本地条目，按对象身份比较，保证 remove(key, entry) 只移除自己写入的条目
+     */
+    private static final class Entry {
+
+        private final Object value;
+
+        private final long ttlNanos;
+
+        private Entry(Object value, long ttlMillis) {
+            this.value = value;
+            this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        }
+    }
+
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
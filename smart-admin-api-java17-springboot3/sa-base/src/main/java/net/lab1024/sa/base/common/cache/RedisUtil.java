@@ -1,12 +1,18 @@
 package net.lab1024.sa.base.common.cache;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.Resource;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -38,6 +44,11 @@ public class RedisUtil {
      */
     public static final long NOT_EXPIRE = -1;
 
+    /**
+     * 批量命令（MGET、管道SET、UNLINK、SCAN）每批的键数量，避免单条命令或单次管道过大阻塞Redis
+     */
+    public static final int BATCH_SIZE = 500;
+
     /**
      * 根据key获取过期时间
      *
@@ -103,21 +114,52 @@ public class RedisUtil {
         }
     }
 
+    /**
+     * 批量删除key（UNLINK，由Redis后台线程释放内存），按 {@link #BATCH_SIZE} 分批
+     *
+     * @param keys 键集合
+     * @return 删除的key数量
+     */
+    public long unlink(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return 0;
+        }
+        long deleted = 0;
+        List<String> keyList = keys instanceof List ? (List<String>) keys : new ArrayList<>(keys);
+        for (int from = 0; from < keyList.size(); from += BATCH_SIZE) {
+            Long count = redisTemplate.unlink(keyList.subList(from, Math.min(from + BATCH_SIZE, keyList.size())));
+            deleted += count != null ? count : 0;
+        }
+        return deleted;
+    }
+
     /**
      * 根据模式删除key
+     * <p>
+     * 使用 SCAN 游标分批遍历并 UNLINK，不会像 KEYS 那样长时间阻塞Redis，但耗时仍与键空间大小成正比；
+     * 需要频繁按组失效的缓存应改用代际失效（见 {@link CacheGenerations}）
      *
      * @param pattern 模式
      * @return 删除的key数量
      */
     public int deleteByPattern(String pattern) {
-        if (pattern != null && !pattern.isEmpty()) {
-            java.util.Set<String> keys = redisTemplate.keys(pattern);
-            if (keys != null && !keys.isEmpty()) {
-                Long deletedCount = redisTemplate.delete(keys);
-                return deletedCount != null ? deletedCount.intValue() : 0;
+        if (pattern == null || pattern.isEmpty()) {
+            return 0;
+        }
+        long deleted = 0;
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(BATCH_SIZE).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= BATCH_SIZE) {
+                    deleted += unlink(batch);
+                    batch.clear();
+                }
             }
         }
-        return 0;
+        deleted += unlink(batch);
+        return (int) deleted;
     }
 
     // ============================String=============================
@@ -194,6 +236,80 @@ public class RedisUtil {
         }
     }
 
+    /**
+     * 键不存在时设置（SET NX），用于短期租约
+     *
+     * @return true 设置成功，false 键已存在或异常
+     */
+    public boolean setIfAbsent(String key, Object value, long time, TimeUnit timeUnit) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, time, timeUnit));
+        } catch (Exception e) {
+            log.error("设置缓存异常", e);
+            return false;
+        }
+    }
+
+    /**
+     * 批量获取（MGET），按 {@link #BATCH_SIZE} 分批，每批一次往返
+     *
+     * @param keys 键列表
+     * @return 与键一一对应的值，不存在的键对应null
+     */
+    public List<Object> multiGet(List<String> keys) {
+        List<Object> values = new ArrayList<>(keys.size());
+        for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+            List<String> batch = keys.subList(from, Math.min(from + BATCH_SIZE, keys.size()));
+            List<Object> batchValues = redisTemplate.opsForValue().multiGet(batch);
+            if (batchValues == null) {
+                batchValues = Collections.nCopies(batch.size(), null);
+            }
+            values.addAll(batchValues);
+        }
+        return values;
+    }
+
+    /**
+     * 批量放入并设置时间
+     * <p>
+     * MSET 不支持过期时间，这里以管道发送 SET EX，按 {@link #BATCH_SIZE} 分批，每批一次往返
+     *
+     * @param keyValues 键值
+     * @param time      时间 小于等于0 将设置无限期
+     * @param timeUnit  时间单位
+     * @return true成功 false失败
+     */
+    public boolean multiSet(Map<String, Object> keyValues, long time, TimeUnit timeUnit) {
+        if (keyValues == null || keyValues.isEmpty()) {
+            return true;
+        }
+        try {
+            List<Map.Entry<String, Object>> entries = new ArrayList<>(keyValues.entrySet());
+            for (int from = 0; from < entries.size(); from += BATCH_SIZE) {
+                List<Map.Entry<String, Object>> batch = entries.subList(from, Math.min(from + BATCH_SIZE, entries.size()));
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        ValueOperations<String, Object> ops = (ValueOperations<String, Object>) operations.opsForValue();
+                        for (Map.Entry<String, Object> entry : batch) {
+                            if (time > 0) {
+                                ops.set(entry.getKey(), entry.getValue(), time, timeUnit);
+                            } else {
+                                ops.set(entry.getKey(), entry.getValue());
+                            }
+                        }
+                        return null;
+                    }
+                });
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("批量设置缓存异常", e);
+            return false;
+        }
+    }
+
     /**
      * 递增
      *
@@ -0,0 +1,36 @@
+package net.lab1024.sa.base.common.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 带逻辑过期时间的缓存值
+ * <p>
+ * 由 {@link UnifiedCacheManager#getOrSet} 写入。Redis过期时间比逻辑过期时间多出一段宽限期：
+ * 逻辑过期前按加载耗时概率性提前刷新，逻辑过期后宽限期内返回旧值并在后台刷新，
+ * 只有宽限期也过去才同步加载。宽限期只对 getOrSet 生效，其他读取把逻辑过期的值视为未命中
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshableValue {
+
+    /**
+     * 业务值
+     */
+    private Object value;
+
+    /**
+     * 逻辑过期时间戳（毫秒）
+     */
+    private long refreshAt;
+
+    /**
+     * 上次加载耗时（毫秒），加载越慢越早开始刷新
+     */
+    private long loadMillis;
+}
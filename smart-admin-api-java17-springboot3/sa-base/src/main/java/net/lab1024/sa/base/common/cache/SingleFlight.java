@@ -0,0 +1,93 @@
+package net.lab1024.sa.base.common.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 按键合并并发加载（single-flight）
+ * <p>
+ * 同一键同一时刻只有一个调用执行加载函数，其余调用等待并共享其结果或异常；
+ * 加载结束即移除，不缓存结果，缓存仍由调用方负责
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 执行加载，已有同键加载进行中时等待其结果
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 提交后台加载，已有同键加载进行中时不再提交
+     *
+     * @return 是否提交了新的加载
+     */
+    public boolean loadAsync(K key, Supplier<V> loader, Executor executor) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, mine) != null) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    mine.complete(loader.get());
+                } catch (Throwable e) {
+                    mine.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            return false;
+        }
+    }
+
+    /**
+     * 键是否有加载进行中
+     */
+    public boolean isLoading(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
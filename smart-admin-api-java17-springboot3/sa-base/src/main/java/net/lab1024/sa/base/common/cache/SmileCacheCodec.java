@@ -0,0 +1,181 @@
+package net.lab1024.sa.base.common.cache;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Smile二进制编解码器（带类别名表）
+ * <p>
+ * Smile是Jackson的二进制JSON格式，同一值内重复的属性名以回引用代替，数字按变长整数写入；
+ * 类型信息只写在声明类型不能确定实际类型处（DefaultTyping.NON_FINAL，根对象按Object处理），
+ * 不像 GenericJackson2JsonRedisSerializer 为每个Long、每个final类字段都写类型；
+ * {@link #register} 注册过的类以短别名代替全限定类名。
+ * <p>
+ * 别名随值写入Redis，发布后不能修改或改指其他类；未注册的类照常写类名，读取时两者都支持。
+ * 别名不能含 "."，以与类名区分
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class SmileCacheCodec implements CacheCodec {
+
+    public static final byte ID = 1;
+
+    private static final String TYPE_PROPERTY = "@t";
+
+    private final Map<Class<?>, String> aliases = new ConcurrentHashMap<>();
+
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+    private final ObjectMapper mapper;
+
+    private final ObjectWriter writer;
+
+    public SmileCacheCodec() {
+        PolymorphicTypeValidator validator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType(Object.class)
+                .build();
+
+        mapper = new ObjectMapper(new SmileFactory());
+        mapper.findAndRegisterModules();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        // 实体增删字段后旧缓存值仍可读
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.setDefaultTyping(new ClassTableTypeResolverBuilder(validator)
+                .init(JsonTypeInfo.Id.CLASS, null)
+                .inclusion(JsonTypeInfo.As.PROPERTY)
+                .typeProperty(TYPE_PROPERTY));
+        // 根对象按Object写入，Long、final类等也带上类型
+        writer = mapper.writerFor(Object.class);
+
+        register("TV", TaggedValue.class);
+        register("RV", RefreshableValue.class);
+        register("AL", ArrayList.class);
+        register("HM", HashMap.class);
+        register("LHM", LinkedHashMap.class);
+        register("HS", HashSet.class);
+        register("L", Long.class);
+        register("BD", BigDecimal.class);
+        register("LD", LocalDate.class);
+        register("LDT", LocalDateTime.class);
+    }
+
+    /**
+     * 注册类别名
+     *
+     * @throws IllegalArgumentException 别名含 "." 或已被其他类占用
+     */
+    public SmileCacheCodec register(String alias, Class<?> type) {
+        if (alias == null || alias.isEmpty() || alias.indexOf('.') >= 0) {
+            throw new IllegalArgumentException("缓存类别名不能为空或包含'.': " + alias);
+        }
+        Class<?> existing = classes.putIfAbsent(alias, type);
+        if (existing != null && existing != type) {
+            throw new IllegalArgumentException("缓存类别名已被占用: " + alias + " -> " + existing.getName());
+        }
+        aliases.put(type, alias);
+        return this;
+    }
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Smile编码失败: " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] data, int offset, int length) {
+        try {
+            return mapper.readValue(data, offset, length, Object.class);
+        } catch (IOException e) {
+            throw new SerializationException("Smile解码失败", e);
+        }
+    }
+
+    /**
+     * 默认类型信息使用类别名表
+     */
+    private final class ClassTableTypeResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+
+        private static final long serialVersionUID = 1L;
+
+        ClassTableTypeResolverBuilder(PolymorphicTypeValidator validator) {
+            super(ObjectMapper.DefaultTyping.NON_FINAL, validator);
+        }
+
+        @Override
+        protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType,
+                PolymorphicTypeValidator subtypeValidator, Collection<NamedType> subtypes, boolean forSer,
+                boolean forDeser) {
+            return new ClassTableIdResolver(baseType, config.getTypeFactory(), subtypeValidator);
+        }
+    }
+
+    /**
+     * 已注册的类写别名，其余写类名
+     */
+    private final class ClassTableIdResolver extends ClassNameIdResolver {
+
+        ClassTableIdResolver(JavaType baseType, TypeFactory typeFactory, PolymorphicTypeValidator validator) {
+            super(baseType, typeFactory, validator);
+        }
+
+        @Override
+        public String idFromValue(Object value) {
+            String alias = aliases.get(value.getClass());
+            return alias != null ? alias : super.idFromValue(value);
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> type) {
+            String alias = aliases.get(type);
+            return alias != null ? alias : super.idFromValueAndType(value, type);
+        }
+
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+            Class<?> type = classes.get(id);
+            if (type != null) {
+                return _typeFactory.constructSpecializedType(_baseType, type);
+            }
+            return super.typeFromId(context, id);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package net.lab1024.sa.base.common.cache;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 带标签代际的缓存值
+ * <p>
+ * 由 {@link UnifiedCacheManager#setWithTags} 写入，读取时若任一标签的代际已变化则视为未命中，
+ * 见 {@link CacheGenerations}
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaggedValue {
+
+    /**
+     * 业务值
+     */
+    private Object value;
+
+    /**
+     * 写入时各标签的代际
+     */
+    private Map<String, Long> tags;
+}
@@ -1,17 +1,30 @@
 package net.lab1024.sa.base.common.cache;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import net.lab1024.sa.base.common.code.UserErrorCode;
@@ -26,6 +39,24 @@ import net.lab1024.sa.base.common.exception.SmartException;
  * - 自动缓存失效和刷新机制
  * - 性能监控和统计
  * - 支持异步和批量操作
+ * <p>
+ * L1为各命名空间独立的 {@link NearCache}（cache.local.enabled 控制，默认开启），显式写入和删除在L2完成后
+ * 通过 {@link CacheInvalidationBus} 通知其他节点失效本地副本；{@link #getOrSet} 回源或后台刷新写入的值
+ * 只是同一数据的新副本，不广播，其他节点的本地副本到逻辑过期时各自刷新
+ * <p>
+ * 清空采用代际失效（{@link CacheGenerations}）：命名空间代际拼入缓存键，{@link #clearNamespace} 只递增代际；
+ * 需要成组失效的值用 {@link #setWithTags} 写入，{@link #invalidateTag} 递增标签代际，均不扫描键空间。
+ * 批量读写按批走 MGET / 管道 SET，每批一次往返
+ * <p>
+ * {@link #getOrSet} 防击穿：同键回源经 {@link SingleFlight} 合并（可选Redis租约跨节点互斥），
+ * 写入带逻辑过期时间的 {@link RefreshableValue}，临近过期概率性提前刷新、过期后宽限期内先返回旧值再后台刷新，
+ * TTL按 {@link CacheNamespace#jitterTtl} 叠加抖动。宽限期只对 {@link #getOrSet} 生效（有加载器可刷新），
+ * {@link #get}、{@link #exists}、{@link #mGet} 把逻辑过期的值视为未命中
+ * <p>
+ * {@link CacheGenerations} 不可用时键固定为0代，清空命名空间退化为按模式删除，标签失效退化为清空命名空间
+ * <p>
+ * cache.codec.binary-namespaces 中的命名空间以二进制格式写入Redis（{@link CacheValueSerializer}），
+ * 读取不区分格式
  *
  * @author SmartAdmin Team
  * @since 2025-11-16
@@ -40,6 +71,97 @@ public class UnifiedCacheManager {
     @Resource
     private CacheMetricsCollector metricsCollector;
 
+    @Resource
+    private CacheInvalidationBus invalidationBus;
+
+    @Resource
+    private CacheGenerations generations;
+
+    private static final long DEFAULT_GENERATION = 0;
+
+    /**
+     * 逻辑过期后继续返回旧值的宽限期，占TTL的比例
+     */
+    private static final double STALE_RATIO = 0.5;
+
+    /**
+     * 提前刷新系数（XFetch算法的beta），越大越早刷新
+     */
+    private static final double EARLY_REFRESH_BETA = 1.0;
+
+    private static final long LEASE_MILLIS = 3000;
+
+    private static final long LEASE_POLL_MILLIS = 20;
+
+    @Value("${cache.local.enabled:true}")
+    private boolean localCacheEnabled = true;
+
+    /**
+     * 回源时是否以Redis短期租约在节点间互斥
+     */
+    @Value("${cache.load.lease.enabled:false}")
+    private boolean loadLeaseEnabled;
+
+    /**
+     * 未取得租约的节点等待持有者写入的最长时间，超时后自行回源
+     */
+    @Value("${cache.load.lease.wait-millis:500}")
+    private long leaseWaitMillis = 500;
+
+    /**
+     * 以二进制格式写入Redis的命名空间前缀，逗号分隔，如 ACCESS,CONSUME
+     */
+    @Value("${cache.codec.binary-namespaces:}")
+    private String binaryNamespaces = "";
+
+    private final Set<CacheNamespace> binaryCodecNamespaces = EnumSet.noneOf(CacheNamespace.class);
+
+    private final SingleFlight<String, Object> loads = new SingleFlight<>();
+
+    private final Map<CacheNamespace, NearCache> nearCaches = new EnumMap<>(CacheNamespace.class);
+
+    {
+        for (CacheNamespace namespace : CacheNamespace.values()) {
+            nearCaches.put(namespace, new NearCache(namespace));
+        }
+    }
+
+    /**
+     * 订阅其他节点的失效通知
+     */
+    @PostConstruct
+    public void subscribeInvalidation() {
+        if (invalidationBus == null) {
+            return;
+        }
+        for (NearCache nearCache : nearCaches.values()) {
+            CacheNamespace namespace = nearCache.getNamespace();
+            invalidationBus.subscribe(invalidationRegion(namespace), key -> {
+                if (key == null) {
+                    nearCache.invalidateAll();
+                } else {
+                    nearCache.invalidate(key);
+                }
+                metricsCollector.recordLocalInvalidation(namespace, true);
+            });
+        }
+    }
+
+    /**
+     * 解析二进制写入的命名空间
+     */
+    @PostConstruct
+    public void initBinaryCodec() {
+        for (String prefix : binaryNamespaces.split(",")) {
+            if (!prefix.isBlank()) {
+                binaryCodecNamespaces.add(CacheNamespace.valueOfPrefix(prefix.trim()));
+            }
+        }
+        if (!binaryCodecNamespaces.isEmpty()) {
+            log.info("统一缓存二进制写入命名空间: {}", binaryCodecNamespaces);
+        }
+    }
+
     // 缓存操作结果
     @lombok.Data
     @lombok.Builder
@@ -103,22 +225,11 @@ public class UnifiedCacheManager {
      */
     public <T> CacheResult<T> get(CacheNamespace namespace, String key, Class<T> clazz) {
         try {
-            String fullKey = buildKey(namespace, key);
-            long startTime = System.currentTimeMillis();
-
-            T value = redisUtil.getBean(fullKey, clazz);
-
-            long hitTime = System.currentTimeMillis() - startTime;
-
-            if (value != null) {
-                metricsCollector.recordHit(namespace, hitTime);
-                log.debug("缓存命中: namespace={}, key={}, hitTime={}ms", namespace.getPrefix(), key, hitTime);
-                return CacheResult.success(value, key, namespace);
-            } else {
-                metricsCollector.recordMiss(namespace);
-                log.debug("缓存未命中: namespace={}, key={}", namespace.getPrefix(), key);
-                return CacheResult.failure(key, namespace, "Cache miss");
+            Object value = unwrapFresh(namespace, lookup(namespace, key, false));
+            if (clazz.isInstance(value)) {
+                return CacheResult.success(clazz.cast(value), key, namespace);
             }
+            return CacheResult.failure(key, namespace, "Cache miss");
 
         } catch (Exception e) {
             log.error("获取缓存失败: namespace={}, key={}", namespace.getPrefix(), key, e);
@@ -130,31 +241,15 @@ public class UnifiedCacheManager {
     /**
      * 获取缓存值（带类型引用）
      */
+    @SuppressWarnings("unchecked")
     public <T> CacheResult<T> get(CacheNamespace namespace, String key, TypeReference<T> typeReference) {
         try {
-            String fullKey = buildKey(namespace, key);
-            long startTime = System.currentTimeMillis();
-
-            // RedisUtil没有直接支持TypeReference的方法，需要使用其他方式处理
-            Object valueObj = redisUtil.get(fullKey);
-            T value = null;
-            if (valueObj != null) {
-                // 这里需要根据具体实现来处理TypeReference
-                // 简化处理，实际应该使用Jackson进行转换
-                value = (T) valueObj;
-            }
-
-            long hitTime = System.currentTimeMillis() - startTime;
-
+            // 值由序列化器按写入时的类型还原，这里直接转换
+            Object value = unwrapFresh(namespace, lookup(namespace, key, false));
             if (value != null) {
-                metricsCollector.recordHit(namespace, hitTime);
-                log.debug("缓存命中: namespace={}, key={}, hitTime={}ms", namespace.getPrefix(), key, hitTime);
-                return CacheResult.success(value, key, namespace);
-            } else {
-                metricsCollector.recordMiss(namespace);
-                log.debug("缓存未命中: namespace={}, key={}", namespace.getPrefix(), key);
-                return CacheResult.failure(key, namespace, "Cache miss");
+                return CacheResult.success((T) value, key, namespace);
             }
+            return CacheResult.failure(key, namespace, "Cache miss");
 
         } catch (Exception e) {
             log.error("获取缓存失败: namespace={}, key={}", namespace.getPrefix(), key, e);
@@ -164,10 +259,10 @@ public class UnifiedCacheManager {
     }
 
     /**
-     * 设置缓存值（使用默认过期时间）
+     * 设置缓存值（使用默认过期时间，叠加抖动）
      */
     public <T> CacheResult<T> set(CacheNamespace namespace, String key, T value) {
-        return set(namespace, key, value, namespace.getDefaultTtl(), namespace.getTimeUnit());
+        return set(namespace, key, value, namespace.jitterTtl(namespace.getDefaultTtl()), namespace.getTimeUnit());
     }
 
     /**
@@ -181,15 +276,51 @@ public class UnifiedCacheManager {
      * 设置缓存值（自定义过期时间）
      */
     public <T> CacheResult<T> set(CacheNamespace namespace, String key, T value, long ttl, TimeUnit timeUnit) {
+        return write(namespace, key, value, null, ttl, timeUnit, true);
+    }
+
+    /**
+     * 设置带标签的缓存值（使用默认过期时间）
+     * <p>
+     * 标签用于成组失效，如 "date:2025-11-25"、"user:1"：{@link #invalidateTag} 一次即可使所有带该标签的值失效，
+     * 无需按模式删除。读取方式与普通值相同
+     */
+    public <T> CacheResult<T> setWithTags(CacheNamespace namespace, String key, T value, String... tags) {
+        List<String> tagList = Arrays.asList(tags);
+        if (!tagList.isEmpty() && generations == null) {
+            log.warn("缓存代际不可用，标签失效将清空整个命名空间: namespace={}, key={}", namespace.getPrefix(), key);
+        }
+        Function<Object, Object> envelope = tagList.isEmpty() || generations == null ? null
+                : v -> new TaggedValue(v, generations.stamp(namespace, tagList));
+        return write(namespace, key, value, envelope, namespace.jitterTtl(namespace.getDefaultTtl()),
+                namespace.getTimeUnit(), true);
+    }
+
+    /**
+     * 写入L2并更新本地缓存
+     *
+     * @param envelope 存储前对值的包装（{@link TaggedValue}、{@link RefreshableValue}），为null时原样存储
+     * @param publish  是否通知其他节点失效本地副本，回源填充不通知
+     */
+    private <T> CacheResult<T> write(CacheNamespace namespace, String key, T value, Function<Object, Object> envelope,
+            long ttl, TimeUnit timeUnit, boolean publish) {
         try {
             String fullKey = buildKey(namespace, key);
             long startTime = System.currentTimeMillis();
 
-            boolean success = redisUtil.set(fullKey, value, ttl, timeUnit);
+            Object stored = envelope == null ? value : envelope.apply(value);
+            boolean success = redisUtil.set(fullKey, encoded(namespace, stored), ttl, timeUnit);
 
             long hitTime = System.currentTimeMillis() - startTime;
 
             if (success) {
+                NearCache nearCache = nearCache(namespace);
+                if (nearCache != null) {
+                    nearCache.put(key, stored, timeUnit.toMillis(ttl));
+                    if (publish) {
+                        publishInvalidation(namespace, key);
+                    }
+                }
                 metricsCollector.recordSet(namespace, hitTime);
                 log.debug("设置缓存成功: namespace={}, key={}, ttl={}{}", namespace.getPrefix(), key, ttl, timeUnit);
                 return CacheResult.success(value, key, namespace);
@@ -214,6 +345,12 @@ public class UnifiedCacheManager {
             String fullKey = buildKey(namespace, key);
             boolean result = redisUtil.delete(fullKey);
 
+            NearCache nearCache = nearCache(namespace);
+            if (nearCache != null) {
+                nearCache.invalidate(key);
+                publishInvalidation(namespace, key);
+            }
+
             if (result) {
                 metricsCollector.recordDelete(namespace);
                 log.debug("删除缓存成功: namespace={}, key={}", namespace.getPrefix(), key);
@@ -235,8 +372,13 @@ public class UnifiedCacheManager {
      */
     public boolean exists(CacheNamespace namespace, String key) {
         try {
+            NearCache nearCache = nearCache(namespace);
+            if (nearCache != null && unwrapFresh(namespace, nearCache.get(key)) != null) {
+                return true;
+            }
             String fullKey = buildKey(namespace, key);
-            boolean result = redisUtil.hasKey(fullKey);
+            // 带标签的值需要比对代际、可刷新的值需要比对逻辑过期时间，不能只看键是否存在
+            boolean result = unwrapFresh(namespace, redisUtil.get(fullKey)) != null;
             log.debug("检查缓存存在: namespace={}, key={}, exists={}", namespace.getPrefix(), key, result);
             return result;
 
@@ -260,25 +402,49 @@ public class UnifiedCacheManager {
      */
     public <T> CacheResult<T> getOrSet(CacheNamespace namespace, String key, Class<T> clazz, Supplier<T> dataLoader,
             long ttlSeconds) {
-        // 先尝试从缓存获取
-        CacheResult<T> cacheResult = get(namespace, key, clazz);
+        return getOrLoad(namespace, key, dataLoader, ttlSeconds,
+                value -> clazz.isInstance(value) ? clazz.cast(value) : null);
+    }
+
+    /**
+     * 获取或设置缓存（带类型引用）
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CacheResult<T> getOrSet(CacheNamespace namespace, String key, Supplier<T> dataLoader,
+            TypeReference<T> typeReference) {
+        return getOrLoad(namespace, key, dataLoader, namespace.getDefaultTtl(), value -> (T) value);
+    }
 
-        if (cacheResult.isSuccess()) {
-            return cacheResult;
+    /**
+     * 读取或回源
+     * <p>
+     * - 命中：值临近逻辑过期时按XFetch概率提前刷新，逻辑过期后（宽限期内）先返回旧值，均提交后台刷新，同键只刷新一次
+     * - 未命中：同键回源经 {@link SingleFlight} 合并，并发请求共享同一次加载结果
+     */
+    private <T> CacheResult<T> getOrLoad(CacheNamespace namespace, String key, Supplier<T> dataLoader,
+            long ttlSeconds, Function<Object, T> caster) {
+        Object stored = null;
+        try {
+            stored = lookup(namespace, key, true);
+        } catch (Exception e) {
+            log.error("获取缓存失败: namespace={}, key={}", namespace.getPrefix(), key, e);
+            metricsCollector.recordError(namespace);
+        }
+        Object value = unwrap(namespace, stored);
+        T cached = value == null ? null : caster.apply(value);
+        if (cached != null) {
+            if (stored instanceof RefreshableValue && shouldRefresh((RefreshableValue) stored)) {
+                refreshAsync(namespace, key, dataLoader, ttlSeconds);
+            }
+            return CacheResult.success(cached, key, namespace);
         }
 
         // 缓存未命中，加载数据
         try {
-            T data = dataLoader.get();
+            T data = caster.apply(loads.load(flightKey(namespace, key),
+                    () -> loadAndSet(namespace, key, dataLoader, ttlSeconds, false)));
             if (data != null) {
-                // 加载成功，设置缓存
-                CacheResult<T> setResult = set(namespace, key, data, ttlSeconds);
-                if (setResult.isSuccess()) {
-                    return CacheResult.success(data, key, namespace);
-                } else {
-                    log.warn("设置缓存失败，但数据加载成功: namespace={}, key={}", namespace.getPrefix(), key);
-                    return CacheResult.success(data, key, namespace);
-                }
+                return CacheResult.success(data, key, namespace);
             } else {
                 log.warn("数据加载器返回null: namespace={}, key={}", namespace.getPrefix(), key);
                 return CacheResult.failure(key, namespace, "Data loader returned null");
@@ -290,53 +456,178 @@ public class UnifiedCacheManager {
         }
     }
 
+    private void refreshAsync(CacheNamespace namespace, String key, Supplier<?> dataLoader, long ttlSeconds) {
+        loads.loadAsync(flightKey(namespace, key), () -> {
+            try {
+                return loadAndSet(namespace, key, dataLoader, ttlSeconds, true);
+            } catch (RuntimeException e) {
+                log.warn("后台刷新缓存失败: namespace={}, key={}", namespace.getPrefix(), key, e);
+                return null;
+            }
+        }, ForkJoinPool.commonPool());
+    }
+
     /**
-     * 获取或设置缓存（带类型引用）
+     * 回源并写入 {@link RefreshableValue}
+     * <p>
+     * 开启租约时先 SET NX 抢占租约：未抢到的同步加载等待持有者写入（最长 leaseWaitMillis，超时后自行回源），
+     * 后台刷新直接放弃并返回当前缓存值。租约只用于减少重复回源，不保证严格互斥
+     *
+     * @param refresh 是否为后台刷新
+     * @return 加载（或由其他节点写入）的业务值
      */
-    public <T> CacheResult<T> getOrSet(CacheNamespace namespace, String key, Supplier<T> dataLoader,
-            TypeReference<T> typeReference) {
-        // 先尝试从缓存获取
-        CacheResult<T> cacheResult = get(namespace, key, typeReference);
-
-        if (cacheResult.isSuccess()) {
-            return cacheResult;
+    private Object loadAndSet(CacheNamespace namespace, String key, Supplier<?> dataLoader, long ttlSeconds,
+            boolean refresh) {
+        String leaseKey = leaseKey(namespace, key);
+        String token = null;
+        if (loadLeaseEnabled) {
+            token = UUID.randomUUID().toString();
+            if (!redisUtil.setIfAbsent(leaseKey, token, LEASE_MILLIS, TimeUnit.MILLISECONDS)) {
+                token = null;
+                Object loaded = awaitLoaded(namespace, key, refresh ? 0 : leaseWaitMillis);
+                if (loaded != null || refresh) {
+                    return loaded;
+                }
+            }
         }
-
-        // 缓存未命中，加载数据
         try {
-            T data = dataLoader.get();
+            long startTime = System.currentTimeMillis();
+            Object data = dataLoader.get();
+            long loadMillis = System.currentTimeMillis() - startTime;
             if (data != null) {
-                // 加载成功，设置缓存
-                CacheResult<T> setResult = set(namespace, key, data);
-                if (setResult.isSuccess()) {
-                    return CacheResult.success(data, key, namespace);
-                } else {
+                long ttl = namespace.jitterTtl(ttlSeconds);
+                long refreshAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl);
+                CacheResult<Object> setResult = write(namespace, key, data,
+                        value -> new RefreshableValue(value, refreshAt, loadMillis),
+                        ttl + (long) (ttl * STALE_RATIO), TimeUnit.SECONDS, false);
+                if (!setResult.isSuccess()) {
                     log.warn("设置缓存失败，但数据加载成功: namespace={}, key={}", namespace.getPrefix(), key);
-                    return CacheResult.success(data, key, namespace);
                 }
-            } else {
-                log.warn("数据加载器返回null: namespace={}, key={}", namespace.getPrefix(), key);
-                return CacheResult.failure(key, namespace, "Data loader returned null");
             }
+            return data;
+        } finally {
+            if (token != null) {
+                releaseLease(leaseKey, token);
+            }
+        }
+    }
+
+    /**
+     * 轮询L2等待其他节点写入，返回业务值，超时返回null
+     * <p>
+     * 读到其他节点写入的新值时失效本节点的本地副本，下次读取从L2取新值，避免旧副本反复触发刷新
+     */
+    private Object awaitLoaded(CacheNamespace namespace, String key, long waitMillis) {
+        String fullKey = buildKey(namespace, key);
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            Object value = unwrapFresh(namespace, redisUtil.get(fullKey));
+            if (value != null) {
+                NearCache nearCache = nearCache(namespace);
+                if (nearCache != null) {
+                    nearCache.invalidate(key);
+                }
+                return value;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return null;
+            }
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
 
+    private void releaseLease(String leaseKey, String token) {
+        try {
+            // 只释放自己持有的租约，超时后被他人抢占的不动
+            if (token.equals(redisUtil.get(leaseKey))) {
+                redisUtil.delete(leaseKey);
+            }
         } catch (Exception e) {
-            log.error("数据加载失败: namespace={}, key={}", namespace.getPrefix(), key, e);
-            return CacheResult.failure(key, namespace, "Data loader failed: " + e.getMessage());
+            log.warn("释放缓存加载租约失败: key={}", leaseKey, e);
+        }
+    }
+
+    /**
+     * XFetch：越接近逻辑过期、上次加载越慢，提前刷新的概率越高；逻辑过期后必定刷新
+     */
+    private static boolean shouldRefresh(RefreshableValue stored) {
+        long now = System.currentTimeMillis();
+        if (now >= stored.getRefreshAt()) {
+            return true;
         }
+        double gap = Math.max(1, stored.getLoadMillis()) * EARLY_REFRESH_BETA
+                * -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        return now + gap >= stored.getRefreshAt();
     }
 
     // ========== 批量操作 ==========
 
     /**
      * 批量获取缓存
+     * <p>
+     * 先查L1，未命中的键按批 MGET，每批一次往返；结果与keys顺序一致
      */
     public <T> BatchCacheResult<T> mGet(CacheNamespace namespace, List<String> keys, Class<T> clazz) {
         long startTime = System.currentTimeMillis();
-        List<CacheResult<T>> results = new ArrayList<>();
+        List<CacheResult<T>> results = new ArrayList<>(Collections.nCopies(keys.size(), null));
+
+        NearCache nearCache = nearCache(namespace);
+        List<Integer> missIndexes = new ArrayList<>();
+        long[] stamps = new long[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            if (nearCache != null) {
+                Object local = unwrapFresh(namespace, nearCache.get(key));
+                if (clazz.isInstance(local)) {
+                    metricsCollector.recordLocalHit(namespace);
+                    results.set(i, CacheResult.success(clazz.cast(local), key, namespace));
+                    continue;
+                }
+                metricsCollector.recordLocalMiss(namespace);
+                stamps[i] = nearCache.stamp(key);
+            }
+            missIndexes.add(i);
+        }
 
-        for (String key : keys) {
-            CacheResult<T> result = get(namespace, key, clazz);
-            results.add(result);
+        if (!missIndexes.isEmpty()) {
+            try {
+                String keyPrefix = keyPrefix(namespace);
+                List<String> fullKeys = new ArrayList<>(missIndexes.size());
+                for (int index : missIndexes) {
+                    fullKeys.add(keyPrefix + keys.get(index));
+                }
+                long redisStart = System.currentTimeMillis();
+                List<Object> values = redisUtil.multiGet(fullKeys);
+                long hitTime = (System.currentTimeMillis() - redisStart) / missIndexes.size();
+
+                for (int j = 0; j < missIndexes.size(); j++) {
+                    int index = missIndexes.get(j);
+                    String key = keys.get(index);
+                    Object stored = values.get(j);
+                    Object value = unwrapFresh(namespace, stored);
+                    if (clazz.isInstance(value)) {
+                        if (nearCache != null) {
+                            nearCache.putIfUnchanged(key, stored, stamps[index]);
+                        }
+                        metricsCollector.recordHit(namespace, hitTime);
+                        results.set(index, CacheResult.success(clazz.cast(value), key, namespace));
+                    } else {
+                        metricsCollector.recordMiss(namespace);
+                        results.set(index, CacheResult.failure(key, namespace, "Cache miss"));
+                    }
+                }
+            } catch (Exception e) {
+                log.error("批量获取缓存失败: namespace={}, 数量={}", namespace.getPrefix(), missIndexes.size(), e);
+                metricsCollector.recordError(namespace);
+                for (int index : missIndexes) {
+                    results.set(index, CacheResult.failure(keys.get(index), namespace, e.getMessage()));
+                }
+            }
         }
 
         long totalTime = System.currentTimeMillis() - startTime;
@@ -359,18 +650,53 @@ public class UnifiedCacheManager {
 
     /**
      * 批量设置缓存
+     * <p>
+     * 按批以管道发送 SET EX，每批一次往返；其他节点的本地副本通过一条广播失效
      */
     public <T> BatchCacheResult<T> mSet(CacheNamespace namespace, Map<String, T> keyValues) {
+        return mSet(namespace, keyValues, namespace.getDefaultTtl(), namespace.getTimeUnit());
+    }
+
+    /**
+     * 批量设置缓存（指定过期时间）
+     */
+    public <T> BatchCacheResult<T> mSet(CacheNamespace namespace, Map<String, T> keyValues, long ttl,
+            TimeUnit timeUnit) {
         long startTime = System.currentTimeMillis();
-        List<CacheResult<T>> results = new ArrayList<>();
+        List<CacheResult<T>> results = new ArrayList<>(keyValues.size());
 
+        boolean success;
+        try {
+            String keyPrefix = keyPrefix(namespace);
+            Map<String, Object> fullKeyValues = new LinkedHashMap<>(keyValues.size() * 2);
+            keyValues.forEach((key, value) -> fullKeyValues.put(keyPrefix + key, encoded(namespace, value)));
+            success = redisUtil.multiSet(fullKeyValues, ttl, timeUnit);
+        } catch (Exception e) {
+            log.error("批量设置缓存失败: namespace={}, 数量={}", namespace.getPrefix(), keyValues.size(), e);
+            success = false;
+        }
+
+        long setTime = keyValues.isEmpty() ? 0 : (System.currentTimeMillis() - startTime) / keyValues.size();
+        NearCache nearCache = success ? nearCache(namespace) : null;
         for (Map.Entry<String, T> entry : keyValues.entrySet()) {
-            CacheResult<T> result = set(namespace, entry.getKey(), entry.getValue());
-            results.add(result);
+            if (success) {
+                if (nearCache != null) {
+                    nearCache.put(entry.getKey(), entry.getValue(), timeUnit.toMillis(ttl));
+                }
+                metricsCollector.recordSet(namespace, setTime);
+                results.add(CacheResult.success(entry.getValue(), entry.getKey(), namespace));
+            } else {
+                results.add(CacheResult.failure(entry.getKey(), namespace, "Set operation failed"));
+            }
+        }
+        if (!success) {
+            metricsCollector.recordError(namespace);
+        } else if (nearCache != null) {
+            publishInvalidation(namespace, keyValues.keySet());
         }
 
         long totalTime = System.currentTimeMillis() - startTime;
-        int successCount = (int) results.stream().mapToLong(r -> r.isSuccess() ? 1 : 0).sum();
+        int successCount = success ? keyValues.size() : 0;
         int failureCount = results.size() - successCount;
 
         BatchCacheResult<T> batchResult = BatchCacheResult.<T>builder()
@@ -388,16 +714,33 @@ public class UnifiedCacheManager {
     }
 
     /**
-     * 批量删除缓存
+     * 批量删除缓存（按批 UNLINK）
      */
     public int mDelete(CacheNamespace namespace, List<String> keys) {
         long startTime = System.currentTimeMillis();
         int successCount = 0;
 
-        for (String key : keys) {
-            if (delete(namespace, key)) {
-                successCount++;
+        try {
+            String keyPrefix = keyPrefix(namespace);
+            List<String> fullKeys = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                fullKeys.add(keyPrefix + key);
+            }
+            successCount = (int) redisUtil.unlink(fullKeys);
+            for (int i = 0; i < successCount; i++) {
+                metricsCollector.recordDelete(namespace);
+            }
+        } catch (Exception e) {
+            log.error("批量删除缓存失败: namespace={}, 数量={}", namespace.getPrefix(), keys.size(), e);
+            metricsCollector.recordError(namespace);
+        }
+
+        NearCache nearCache = nearCache(namespace);
+        if (nearCache != null) {
+            for (String key : keys) {
+                nearCache.invalidate(key);
             }
+            publishInvalidation(namespace, keys);
         }
 
         long totalTime = System.currentTimeMillis() - startTime;
@@ -411,12 +754,28 @@ public class UnifiedCacheManager {
 
     /**
      * 根据模式删除缓存
+     * <p>
+     * "*" 等同于 {@link #clearNamespace}，只递增代际；其他模式在当前代际内 SCAN 删除，耗时与键数量成正比，
+     * 需要成组失效的缓存应使用标签（{@link #setWithTags} / {@link #invalidateTag}）
+     *
+     * @return 删除的键数量，递增代际时为0
      */
     public int deleteByPattern(CacheNamespace namespace, String pattern) {
+        if ("*".equals(pattern)) {
+            clearNamespace(namespace);
+            return 0;
+        }
         try {
             String fullPattern = buildKey(namespace, pattern);
             int deletedCount = redisUtil.deleteByPattern(fullPattern);
 
+            // 本地缓存不做模式匹配，整体失效
+            NearCache nearCache = nearCache(namespace);
+            if (nearCache != null) {
+                nearCache.invalidateAll();
+                publishInvalidation(namespace, (String) null);
+            }
+
             log.debug("模式删除缓存完成: namespace={}, pattern={}, 删除数量={}",
                     namespace.getPrefix(), pattern, deletedCount);
 
@@ -445,7 +804,7 @@ public class UnifiedCacheManager {
     }
 
     /**
-     * 异步获取或设置缓存
+     * 异步获取或设置缓存（与 {@link #getOrSet} 共用单飞合并与提前刷新）
      */
     public <T> CompletableFuture<CacheResult<T>> getOrSetAsync(CacheNamespace namespace, String key,
             Supplier<T> dataLoader, Class<T> clazz) {
@@ -469,13 +828,64 @@ public class UnifiedCacheManager {
 
     /**
      * 清理命名空间下所有缓存
+     * <p>
+     * 递增命名空间代际，旧代际的键不再被访问，随TTL自然过期
      */
     public void clearNamespace(CacheNamespace namespace) {
-        log.info("开始清理命名空间缓存: namespace={}", namespace.getPrefix());
+        if (generations == null) {
+            deleteNamespaceKeys(namespace);
+            return;
+        }
+        try {
+            long generation = generations.bumpNamespace(namespace);
+
+            NearCache nearCache = nearCache(namespace);
+            if (nearCache != null) {
+                nearCache.invalidateAll();
+                publishInvalidation(namespace, (String) null);
+            }
 
-        int deletedCount = deleteByPattern(namespace, "*");
+            log.info("命名空间缓存清理完成: namespace={}, 代际={}", namespace.getPrefix(), generation);
+        } catch (Exception e) {
+            log.error("清理命名空间缓存失败: namespace={}", namespace.getPrefix(), e);
+            metricsCollector.recordError(namespace);
+        }
+    }
 
-        log.info("命名空间缓存清理完成: namespace={}, 删除数量={}", namespace.getPrefix(), deletedCount);
+    /**
+     * 失效命名空间下带指定标签的所有缓存（递增标签代际）
+     */
+    public void invalidateTag(CacheNamespace namespace, String tag) {
+        if (generations == null) {
+            // 未记录标签代际，只能整体失效
+            clearNamespace(namespace);
+            return;
+        }
+        try {
+            long generation = generations.bumpTag(namespace, tag);
+            log.debug("标签缓存失效: namespace={}, tag={}, 代际={}", namespace.getPrefix(), tag, generation);
+        } catch (Exception e) {
+            log.error("标签缓存失效失败: namespace={}, tag={}", namespace.getPrefix(), tag, e);
+            metricsCollector.recordError(namespace);
+        }
+    }
+
+    /**
+     * 缓存代际不可用时清空命名空间：SCAN 删除当前键前缀下的所有键
+     */
+    private void deleteNamespaceKeys(CacheNamespace namespace) {
+        try {
+            int deletedCount = redisUtil.deleteByPattern(keyPrefix(namespace) + "*");
+            NearCache nearCache = nearCache(namespace);
+            if (nearCache != null) {
+                nearCache.invalidateAll();
+                publishInvalidation(namespace, (String) null);
+            }
+            log.info("命名空间缓存清理完成（按模式删除）: namespace={}, 删除数量={}", namespace.getPrefix(), deletedCount);
+        } catch (Exception e) {
+            log.error("清理命名空间缓存失败: namespace={}", namespace.getPrefix(), e);
+            metricsCollector.recordError(namespace);
+        }
     }
 
     // ========== 缓存统计和监控 ==========
@@ -484,7 +894,10 @@ public class UnifiedCacheManager {
      * 获取缓存统计信息
      */
     public Map<String, Object> getCacheStatistics(CacheNamespace namespace) {
-        return metricsCollector.getStatistics(namespace);
+        Map<String, Object> statistics = new HashMap<>(metricsCollector.getStatistics(namespace));
+        NearCache nearCache = nearCache(namespace);
+        statistics.put("localSize", nearCache != null ? nearCache.size() : 0L);
+        return statistics;
     }
 
     /**
@@ -519,22 +932,143 @@ public class UnifiedCacheManager {
     }
 
     /**
-     * 清理过期的本地缓存
-     * 注意：当前实现使用Redis作为缓存，本地缓存清理功能暂未实现
+     * 清理过期的本地缓存（Caffeine也会在读写时顺带清理，这里用于定时任务主动回收）
      */
     public void cleanExpiredLocalCache() {
-        // 当前实现使用Redis作为缓存，没有本地缓存需要清理
-        // 如果需要实现本地缓存，可以在这里添加清理逻辑
-        log.debug("清理过期本地缓存：当前实现使用Redis，无需清理本地缓存");
+        for (NearCache nearCache : nearCaches.values()) {
+            nearCache.cleanUp();
+        }
+        log.debug("清理过期本地缓存完成");
     }
 
     // ========== 私有辅助方法 ==========
 
+    /**
+     * 命名空间的本地缓存，未启用时返回null
+     */
+    private NearCache nearCache(CacheNamespace namespace) {
+        return localCacheEnabled ? nearCaches.get(namespace) : null;
+    }
+
+    /**
+     * 通知其他节点失效本地缓存
+     *
+     * @param key 为null时失效整个命名空间
+     */
+    private void publishInvalidation(CacheNamespace namespace, String key) {
+        metricsCollector.recordLocalInvalidation(namespace, false);
+        if (invalidationBus != null) {
+            invalidationBus.publish(invalidationRegion(namespace), key);
+        }
+    }
+
+    /**
+     * 批量通知其他节点失效本地缓存
+     */
+    private void publishInvalidation(CacheNamespace namespace, Collection<String> keys) {
+        metricsCollector.recordLocalInvalidation(namespace, false);
+        if (invalidationBus != null) {
+            invalidationBus.publishAll(invalidationRegion(namespace), keys);
+        }
+    }
+
+    private static String invalidationRegion(CacheNamespace namespace) {
+        return "unified:" + namespace.getPrefix();
+    }
+
+    /**
+     * 写入Redis前按命名空间选择编码格式
+     */
+    private Object encoded(CacheNamespace namespace, Object stored) {
+        return binaryCodecNamespaces.contains(namespace) ? CacheValueSerializer.binary(stored) : stored;
+    }
+
+    /**
+     * 依次查L1、L2，返回存储的原始值（可能带 {@link TaggedValue}、{@link RefreshableValue} 包装），
+     * L2命中时回填L1；未命中返回null
+     *
+     * @param allowStale 是否接受逻辑过期（宽限期内）的值，不接受时L1的过期副本继续查L2（其他节点可能已刷新）
+     */
+    private Object lookup(CacheNamespace namespace, String key, boolean allowStale) {
+        NearCache nearCache = nearCache(namespace);
+        long stamp = 0;
+        if (nearCache != null) {
+            Object local = nearCache.get(key);
+            if ((allowStale ? unwrap(namespace, local) : unwrapFresh(namespace, local)) != null) {
+                metricsCollector.recordLocalHit(namespace);
+                return local;
+            }
+            metricsCollector.recordLocalMiss(namespace);
+            stamp = nearCache.stamp(key);
+        }
+
+        long startTime = System.currentTimeMillis();
+        Object stored = redisUtil.get(buildKey(namespace, key));
+        long hitTime = System.currentTimeMillis() - startTime;
+
+        if ((allowStale ? unwrap(namespace, stored) : unwrapFresh(namespace, stored)) != null) {
+            if (nearCache != null) {
+                nearCache.putIfUnchanged(key, stored, stamp);
+            }
+            metricsCollector.recordHit(namespace, hitTime);
+            log.debug("缓存命中: namespace={}, key={}, hitTime={}ms", namespace.getPrefix(), key, hitTime);
+            return stored;
+        }
+        metricsCollector.recordMiss(namespace);
+        log.debug("缓存未命中: namespace={}, key={}", namespace.getPrefix(), key);
+        return null;
+    }
+
+    /**
+     * 取出缓存值：带标签的值在任一标签代际变化后返回null
+     */
+    private Object unwrap(CacheNamespace namespace, Object stored) {
+        if (stored instanceof RefreshableValue) {
+            return ((RefreshableValue) stored).getValue();
+        }
+        if (stored instanceof TaggedValue) {
+            TaggedValue tagged = (TaggedValue) stored;
+            return generations == null || generations.isCurrent(namespace, tagged.getTags()) ? tagged.getValue()
+                    : null;
+        }
+        return stored;
+    }
+
+    /**
+     * 取出未逻辑过期的缓存值：宽限期内的 {@link RefreshableValue} 只有 {@link #getOrSet} 能触发刷新，其他读取视为未命中
+     */
+    private Object unwrapFresh(CacheNamespace namespace, Object stored) {
+        if (stored instanceof RefreshableValue
+                && System.currentTimeMillis() >= ((RefreshableValue) stored).getRefreshAt()) {
+            return null;
+        }
+        return unwrap(namespace, stored);
+    }
+
+    private static String flightKey(CacheNamespace namespace, String key) {
+        return namespace.getPrefix() + ":" + key;
+    }
+
+    /**
+     * 回源租约键，不带代际，清空命名空间不影响进行中的回源
+     */
+    private static String leaseKey(CacheNamespace namespace, String key) {
+        return "unified:cache:lease:" + namespace.getPrefix() + ":" + key;
+    }
+
     /**
      * 构建完整的缓存键
      */
     private String buildKey(CacheNamespace namespace, String key) {
-        return String.format("unified:cache:%s:%s", namespace.getPrefix(), key);
+        return keyPrefix(namespace) + key;
+    }
+
+    /**
+     * 命名空间当前代际的键前缀：unified:cache:{namespace}:g{generation}:
+     */
+    private String keyPrefix(CacheNamespace namespace) {
+        long generation = generations != null ? generations.namespaceGeneration(namespace) : DEFAULT_GENERATION;
+        return "unified:cache:" + namespace.getPrefix() + ":g" + generation + ":";
     }
 
     /**
@@ -1,8 +1,13 @@
 package net.lab1024.sa.base.common.manager;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.scheduling.annotation.Async;
 
 import com.github.benmanes.caffeine.cache.Cache;
@@ -12,6 +17,7 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import lombok.Data;
 import lombok.Builder;
+import net.lab1024.sa.base.common.cache.SingleFlight;
 
 /**
  * 基础缓存管理器
@@ -48,16 +54,31 @@ public abstract class BaseCacheManager {
             .recordStats()
             .build();
 
+    /**
+     * 同一缓存键的并发回源合并为一次数据库加载
+     */
+    private final SingleFlight<String, Object> loads = new SingleFlight<>();
+
     /**
      * L2 Redis缓存过期时间(分钟)
      */
     protected static final long REDIS_EXPIRE_MINUTES = 30;
 
+    /**
+     * L2过期时间随机抖动上限(秒),为过期时间的10%,避免同一批写入的键同时过期
+     */
+    private static final long REDIS_EXPIRE_JITTER_SECONDS = REDIS_EXPIRE_MINUTES * 6;
+
     /**
      * 双删策略延迟时间(毫秒)
      */
     protected static final long DOUBLE_DELETE_DELAY_MS = 500;
 
+    /**
+     * 模式清除时每批SCAN/UNLINK的键数量
+     */
+    private static final int SCAN_BATCH_SIZE = 500;
+
     /**
      * 获取缓存键前缀
      * 子类必须实现,用于区分不同业务的缓存
@@ -109,13 +130,18 @@ public abstract class BaseCacheManager {
             log.warn("Redis访问异常, cacheKey: {}, error: {}", cacheKey, e.getMessage());
         }
 
-        // 3. 查数据库
+        // 3. 查数据库,并发未命中只加载一次,其余请求共享结果
         if (dbLoader != null) {
-            data = dbLoader.load();
-            if (data != null) {
-                // 4. 异步写入缓存
-                setCacheAsync(cacheKey, data);
-            }
+            @SuppressWarnings("unchecked")
+            T loaded = (T) loads.load(cacheKey, () -> {
+                T value = dbLoader.load();
+                if (value != null) {
+                    // 4. 异步写入缓存
+                    setCacheAsync(cacheKey, value);
+                }
+                return value;
+            });
+            data = loaded;
         }
 
         return data;
@@ -131,7 +157,7 @@ public abstract class BaseCacheManager {
     protected void setCache(String cacheKey, Object data) {
         try {
             localCache.put(cacheKey, data);
-            redisTemplate.opsForValue().set(cacheKey, data, REDIS_EXPIRE_MINUTES, TimeUnit.MINUTES);
+            redisTemplate.opsForValue().set(cacheKey, data, redisExpireSeconds(), TimeUnit.SECONDS);
             log.debug("缓存设置成功, cacheKey: {}", cacheKey);
         } catch (Exception e) {
             log.warn("缓存设置失败, cacheKey: {}, error: {}", cacheKey, e.getMessage());
@@ -149,7 +175,7 @@ public abstract class BaseCacheManager {
     protected void setCacheAsync(String cacheKey, Object data) {
         try {
             localCache.put(cacheKey, data);
-            redisTemplate.opsForValue().set(cacheKey, data, REDIS_EXPIRE_MINUTES, TimeUnit.MINUTES);
+            redisTemplate.opsForValue().set(cacheKey, data, redisExpireSeconds(), TimeUnit.SECONDS);
             log.debug("缓存异步设置成功, cacheKey: {}", cacheKey);
         } catch (Exception e) {
             log.warn("缓存异步设置失败, cacheKey: {}, error: {}", cacheKey, e.getMessage());
@@ -199,12 +225,25 @@ public abstract class BaseCacheManager {
             localCache.invalidateAll();
             log.debug("L1缓存全部清除");
 
-            // 清除L2缓存(模式匹配)
-            var keys = redisTemplate.keys(pattern);
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.debug("L2缓存批量清除, pattern: {}, count: {}", pattern, keys.size());
+            // 清除L2缓存(SCAN分批遍历后UNLINK,避免KEYS阻塞Redis)
+            long count = 0;
+            List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+            try (Cursor<String> cursor = redisTemplate.scan(
+                    ScanOptions.scanOptions().match(pattern).count(SCAN_BATCH_SIZE).build())) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() >= SCAN_BATCH_SIZE) {
+                        redisTemplate.unlink(batch);
+                        count += batch.size();
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                redisTemplate.unlink(batch);
+                count += batch.size();
             }
+            log.debug("L2缓存批量清除, pattern: {}, count: {}", pattern, count);
         } catch (Exception e) {
             log.error("批量清除缓存失败, pattern: {}", pattern, e);
         }
@@ -226,6 +265,14 @@ public abstract class BaseCacheManager {
                 .build();
     }
 
+    /**
+     * L2过期时间(秒),在 {@link #REDIS_EXPIRE_MINUTES} 上叠加随机抖动
+     */
+    private static long redisExpireSeconds() {
+        return TimeUnit.MINUTES.toSeconds(REDIS_EXPIRE_MINUTES)
+                + ThreadLocalRandom.current().nextLong(REDIS_EXPIRE_JITTER_SECONDS + 1);
+    }
+
     /**
      * 数据加载函数接口
      *
@@ -6,6 +6,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,6 +15,8 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -23,8 +26,11 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
 import lombok.extern.slf4j.Slf4j;
+import net.lab1024.sa.base.common.cache.CacheInvalidationBus;
 import net.lab1024.sa.base.common.cache.CacheMetricsCollector;
 import net.lab1024.sa.base.common.cache.CacheNamespace;
+import net.lab1024.sa.base.common.cache.CacheValueSerializer;
+import net.lab1024.sa.base.common.cache.SmileCacheCodec;
 import net.lab1024.sa.base.common.cache.UnifiedCacheManager;
 
 /**
@@ -103,11 +109,21 @@ public class UnifiedCacheConfig {
         return cacheManager;
     }
 
+    /**
+     * 缓存值二进制编解码器，各模块可在启动时注册类别名
+     */
+    @Bean
+    public SmileCacheCodec smileCacheCodec() {
+        return new SmileCacheCodec();
+    }
+
     /**
      * RedisTemplate配置
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+            SmileCacheCodec smileCacheCodec,
+            @Value("${cache.codec.compress-threshold:1024}") int compressThreshold) {
         log.info("配置RedisTemplate");
 
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -118,10 +134,10 @@ public class UnifiedCacheConfig {
         template.setKeySerializer(stringSerializer);
         template.setHashKeySerializer(stringSerializer);
 
-        // 使用Jackson序列化器序列化value
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
-        template.setValueSerializer(jsonSerializer);
-        template.setHashValueSerializer(jsonSerializer);
+        // value默认仍写JSON，统一缓存中 cache.codec.binary-namespaces 的命名空间写Smile二进制，两种格式均可读
+        CacheValueSerializer valueSerializer = new CacheValueSerializer(smileCacheCodec, compressThreshold);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
 
         template.afterPropertiesSet();
 
@@ -148,6 +164,24 @@ public class UnifiedCacheConfig {
         return cache;
     }
 
+    /**
+     * 本地缓存失效广播监听
+     * <p>
+     * 与 cache.local.enabled 无关：关闭统一缓存L1后，业务模块自建的本地缓存（权限矩阵、任务索引等）仍依赖该广播，
+     * 仅在 cache.invalidation.enabled=false 时不创建
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+            CacheInvalidationBus cacheInvalidationBus) {
+        log.info("配置本地缓存失效广播监听: channel={}", CacheInvalidationBus.CHANNEL);
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(CacheInvalidationBus.CHANNEL));
+        return container;
+    }
+
     /**
      * 缓存监控配置
      */
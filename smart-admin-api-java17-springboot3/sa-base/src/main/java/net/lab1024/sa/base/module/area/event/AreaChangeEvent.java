@@ -0,0 +1,21 @@
+package net.lab1024.sa.base.module.area.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 区域变更事件
+ * 区域新增、修改、移动、删除后发布，供依赖区域层级的下游组件刷新
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Getter
+@AllArgsConstructor
+public class AreaChangeEvent {
+
+    /**
+     * 发生变更的区域ID，为null表示全部区域
+     */
+    private final Long areaId;
+}
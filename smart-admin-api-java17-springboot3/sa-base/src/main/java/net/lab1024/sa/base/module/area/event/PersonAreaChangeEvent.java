@@ -0,0 +1,21 @@
+package net.lab1024.sa.base.module.area.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 人员区域关联变更事件
+ * 人员区域关联新增、修改、删除后发布，供门禁权限矩阵等下游组件增量刷新
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@Getter
+@AllArgsConstructor
+public class PersonAreaChangeEvent {
+
+    /**
+     * 发生变更的人员ID
+     */
+    private final Long personId;
+}
@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
@@ -20,6 +21,7 @@ import net.lab1024.sa.base.module.area.domain.vo.AreaTreeVO;
 import net.lab1024.sa.base.module.area.domain.vo.AreaVO;
 import net.lab1024.sa.base.common.util.SmartBeanUtil;
 import net.lab1024.sa.base.module.area.enums.AreaTypeEnum;
+import net.lab1024.sa.base.module.area.event.AreaChangeEvent;
 import com.alibaba.fastjson2.JSON;
 
 /**
@@ -42,6 +44,9 @@ public class AreaCacheManager {
     @Resource
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
     // 缓存键前缀
     private static final String CACHE_PREFIX = "area:";
     private static final String CACHE_PREFIX_ENTITY = CACHE_PREFIX + "entity:";
@@ -412,6 +417,7 @@ public class AreaCacheManager {
         } catch (Exception e) {
             log.error("删除区域缓存失败, areaId: {}", areaId, e);
         }
+        publishAreaChange(areaId);
     }
 
     /**
@@ -428,6 +434,20 @@ public class AreaCacheManager {
         } catch (Exception e) {
             log.error("清除所有区域缓存失败", e);
         }
+        publishAreaChange(null);
+    }
+
+    /**
+     * 发布区域变更事件
+     *
+     * @param areaId 区域ID，null表示全部区域
+     */
+    private void publishAreaChange(Long areaId) {
+        try {
+            eventPublisher.publishEvent(new AreaChangeEvent(areaId));
+        } catch (Exception e) {
+            log.error("发布区域变更事件失败, areaId: {}", areaId, e);
+        }
     }
 
     /**
@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
@@ -17,6 +18,7 @@ import lombok.extern.slf4j.Slf4j;
 import net.lab1024.sa.base.module.area.dao.PersonAreaRelationDao;
 import net.lab1024.sa.base.module.area.domain.entity.PersonAreaRelationEntity;
 import net.lab1024.sa.base.module.area.domain.vo.PersonAreaRelationVO;
+import net.lab1024.sa.base.module.area.event.PersonAreaChangeEvent;
 import net.lab1024.sa.base.common.util.SmartBeanUtil;
 import com.alibaba.fastjson2.JSON;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
@@ -38,6 +40,9 @@ public class PersonAreaCacheManager {
     @Resource
     private PersonAreaRelationDao personAreaRelationDao;
 
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
     private static final String CACHE_PREFIX = "person_area:";
     private static final long CACHE_TTL = 30L; // 30分钟
     private static final long CACHE_TTL_HOURS = 30L; // 30分钟，兼容性常量
@@ -132,6 +137,20 @@ public class PersonAreaCacheManager {
         } catch (Exception e) {
             log.error("批量清除人员区域关联缓存失败", e);
         }
+        personIds.forEach(this::publishPersonAreaChange);
+    }
+
+    /**
+     * 发布人员区域关联变更事件
+     *
+     * @param personId 人员ID
+     */
+    private void publishPersonAreaChange(Long personId) {
+        try {
+            eventPublisher.publishEvent(new PersonAreaChangeEvent(personId));
+        } catch (Exception e) {
+            log.error("发布人员区域关联变更事件失败，personId: {}", personId, e);
+        }
     }
 
     /**
@@ -160,6 +179,7 @@ public class PersonAreaCacheManager {
         } catch (Exception e) {
             log.error("清理指定人员区域关联缓存失败，personId: {}", personId, e);
         }
+        publishPersonAreaChange(personId);
     }
 
     /**
@@ -4,12 +4,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.springframework.stereotype.Component;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
+import net.lab1024.sa.base.common.cache.CacheInvalidationBus;
 import net.lab1024.sa.base.common.util.RedisUtil;
 import net.lab1024.sa.base.module.biometric.entity.PersonBiometricEntity;
 import net.lab1024.sa.base.module.biometric.entity.BiometricTemplateEntity;
@@ -19,6 +21,7 @@ import net.lab1024.sa.base.module.biometric.entity.BiometricRecordEntity;
 import lombok.extern.slf4j.Slf4j;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
 
 /**
  * 生物特征缓存管理器
@@ -31,6 +34,8 @@ import jakarta.annotation.PreDestroy;
  * - 人员生物特征档案：1小时过期，1000个条目
  * - 生物特征模板：30分钟过期，5000个条目
  * - 设备生物特征映射：2小时过期，2000个条目
+ *
+ * 本地缓存变更后通过 {@link CacheInvalidationBus} 通知其他节点失效，避免模板更新后其他节点继续使用旧模板
  * </p>
  *
  * @author SmartAdmin Team
@@ -51,6 +56,17 @@ public class BiometricCacheManager {
     private static final String UNIFIED_BIOMETRIC_PREFIX = CACHE_PREFIX + "unified:";
     private static final String REDIS_BIOMETRIC_KEY_PREFIX = "biometric:";
 
+    // ==================== 失效广播区域 ====================
+
+    private static final String REGION_PERSON_BIOMETRIC = "biometric:person";
+    private static final String REGION_BIOMETRIC_TEMPLATE = "biometric:template";
+    private static final String REGION_DEVICE_MAPPING = "biometric:device";
+    private static final String REGION_PERSON_TEMPLATES = "biometric:person_templates";
+    private static final String REGION_UNIFIED_BIOMETRIC = "biometric:unified";
+
+    @Resource
+    private CacheInvalidationBus cacheInvalidationBus;
+
     // ==================== L1本地缓存 ====================
 
     private Cache<Long, PersonBiometricEntity> personBiometricLocalCache;
@@ -131,6 +147,8 @@ public class BiometricCacheManager {
                 })
                 .build();
 
+        subscribeInvalidation();
+
         log.info("生物特征缓存管理器初始化完成");
     }
 
@@ -214,6 +232,7 @@ public class BiometricCacheManager {
         } catch (Exception e) {
             log.warn("缓存人员生物特征到Redis失败: personId={}", personId, e);
         }
+        broadcastInvalidation(REGION_PERSON_BIOMETRIC, personId);
 
         // 清除相关的模板列表缓存
         removePersonTemplates(personId);
@@ -239,6 +258,7 @@ public class BiometricCacheManager {
         } catch (Exception e) {
             log.warn("删除Redis人员生物特征缓存失败: personId={}", personId, e);
         }
+        broadcastInvalidation(REGION_PERSON_BIOMETRIC, personId);
 
         // 清除相关的模板列表缓存
         removePersonTemplates(personId);
@@ -302,6 +322,7 @@ public class BiometricCacheManager {
         } catch (Exception e) {
             log.warn("缓存生物特征模板到Redis失败: templateId={}", templateId, e);
         }
+        broadcastInvalidation(REGION_BIOMETRIC_TEMPLATE, templateId);
 
         // 清除相关的模板列表缓存
         if (personId != null) {
@@ -332,6 +353,7 @@ public class BiometricCacheManager {
         } catch (Exception e) {
             log.warn("删除Redis生物特征模板缓存失败: templateId={}", templateId, e);
         }
+        broadcastInvalidation(REGION_BIOMETRIC_TEMPLATE, templateId);
 
         // 清除相关的模板列表缓存
         if (template != null && template.getPersonId() != null) {
@@ -399,6 +421,7 @@ public class BiometricCacheManager {
         } catch (Exception e) {
             log.warn("缓存人员模板列表到Redis失败: personId={}", personId, e);
         }
+        broadcastInvalidation(REGION_PERSON_TEMPLATES, cacheKey);
     }
 
     /**
@@ -422,6 +445,7 @@ public class BiometricCacheManager {
         } catch (Exception e) {
             log.warn("删除Redis人员模板列表缓存失败: personId={}", personId, e);
         }
+        broadcastInvalidation(REGION_PERSON_TEMPLATES, cacheKey);
     }
 
     // ==================== 设备生物特征映射缓存 ====================
@@ -481,6 +505,7 @@ public class BiometricCacheManager {
         } catch (Exception e) {
             log.warn("缓存设备生物特征映射到Redis失败: deviceId={}", deviceId, e);
         }
+        broadcastInvalidation(REGION_DEVICE_MAPPING, deviceId);
 
         // 清除相关的设备需求缓存
         removeDeviceRequirements(deviceId);
@@ -506,6 +531,7 @@ public class BiometricCacheManager {
         } catch (Exception e) {
             log.warn("删除Redis设备生物特征映射缓存失败: deviceId={}", deviceId, e);
         }
+        broadcastInvalidation(REGION_DEVICE_MAPPING, deviceId);
 
         // 清除相关的设备需求缓存
         removeDeviceRequirements(deviceId);
@@ -600,6 +626,7 @@ public class BiometricCacheManager {
         } catch (Exception e) {
             log.warn("清除Redis生物特征缓存失败", e);
         }
+        broadcastClearAll();
 
         log.info("所有生物特征缓存清除完成");
     }
@@ -631,6 +658,7 @@ public class BiometricCacheManager {
                     } catch (Exception e) {
                         log.warn("删除Redis模板缓存失败: templateId={}", template.getId(), e);
                     }
+                    broadcastInvalidation(REGION_BIOMETRIC_TEMPLATE, template.getId());
                 }
             }
         }
@@ -768,6 +796,7 @@ public class BiometricCacheManager {
             } catch (Exception e) {
                 log.warn("缓存统一生物特征数据到Redis异常: personId={}", personId, e);
             }
+            broadcastInvalidation(REGION_UNIFIED_BIOMETRIC, cacheKey);
 
             log.debug("缓存统一生物特征数据: personId={}", personId);
         } catch (Exception e) {
@@ -798,6 +827,7 @@ public class BiometricCacheManager {
             } catch (Exception e) {
                 log.warn("删除Redis统一生物特征数据缓存失败: personId={}", personId, e);
             }
+            broadcastInvalidation(REGION_UNIFIED_BIOMETRIC, cacheKey);
 
             log.debug("移除统一生物特征数据缓存: personId={}", personId);
         } catch (Exception e) {
@@ -835,10 +865,56 @@ public class BiometricCacheManager {
             } catch (Exception redisEx) {
                 log.warn("清理Redis生物特征缓存失败", redisEx);
             }
+            broadcastClearAll();
 
             log.info("生物特征缓存清理完成");
         } catch (Exception e) {
             log.error("清理生物特征缓存异常", e);
         }
     }
-}
\ No newline at end of file
+
+    // ==================== 跨节点失效 ====================
+
+    /**
+     * 订阅其他节点的失效通知，只失效本地缓存，L2已由发起节点处理
+     */
+    private void subscribeInvalidation() {
+        if (cacheInvalidationBus == null) {
+            return;
+        }
+        cacheInvalidationBus.subscribe(REGION_PERSON_BIOMETRIC,
+                key -> invalidateLocal(personBiometricLocalCache, key, Long::valueOf));
+        cacheInvalidationBus.subscribe(REGION_BIOMETRIC_TEMPLATE,
+                key -> invalidateLocal(biometricTemplateLocalCache, key, Long::valueOf));
+        cacheInvalidationBus.subscribe(REGION_DEVICE_MAPPING,
+                key -> invalidateLocal(deviceMappingLocalCache, key, Long::valueOf));
+        cacheInvalidationBus.subscribe(REGION_PERSON_TEMPLATES,
+                key -> invalidateLocal(personTemplatesLocalCache, key, Function.identity()));
+        cacheInvalidationBus.subscribe(REGION_UNIFIED_BIOMETRIC,
+                key -> invalidateLocal(unifiedBiometricLocalCache, key, Function.identity()));
+    }
+
+    private static <K> void invalidateLocal(Cache<K, ?> cache, String key, Function<String, K> keyParser) {
+        if (key == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(keyParser.apply(key));
+        }
+    }
+
+    private void broadcastInvalidation(String region, Object key) {
+        if (cacheInvalidationBus != null) {
+            cacheInvalidationBus.publish(region, String.valueOf(key));
+        }
+    }
+
+    private void broadcastClearAll() {
+        if (cacheInvalidationBus == null) {
+            return;
+        }
+        for (String region : List.of(REGION_PERSON_BIOMETRIC, REGION_BIOMETRIC_TEMPLATE, REGION_DEVICE_MAPPING,
+                REGION_PERSON_TEMPLATES, REGION_UNIFIED_BIOMETRIC)) {
+            cacheInvalidationBus.publish(region, null);
+        }
+    }
+}
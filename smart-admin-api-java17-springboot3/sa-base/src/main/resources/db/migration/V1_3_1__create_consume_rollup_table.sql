@@ -0,0 +1,17 @@
+-- 消费预聚合表（按小时/按天滚动汇总，报表查询直接读取，不再扫描明细）
+-- granularity: HOUR 小时桶 / DAY 天桶 / META 元数据（COVERAGE 行记录预聚合完整覆盖的起始时间，
+--              DIRTY 行标记需从明细重建的天，total_count 为标记版本号）
+-- dim_type: ALL 全量 / DEVICE 设备 / MODE 消费模式 / DEVICE_MODE 设备+消费模式 / AREA 区域 / PERSON 人员（天桶）
+CREATE TABLE IF NOT EXISTS `t_consume_rollup` (
+  `rollup_id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `granularity` VARCHAR(8) NOT NULL COMMENT '时间粒度 HOUR/DAY/META',
+  `bucket_time` DATETIME NOT NULL COMMENT '时间桶起始时间',
+  `dim_type` VARCHAR(16) NOT NULL COMMENT '维度类型 ALL/DEVICE/MODE/DEVICE_MODE/AREA/PERSON/COVERAGE/DIRTY',
+  `dim_key` VARCHAR(128) NOT NULL COMMENT '维度取值（ALL为*，DEVICE_MODE为 设备ID:消费模式）',
+  `total_amount` DECIMAL(16,2) NOT NULL DEFAULT 0.00 COMMENT '成功消费金额合计',
+  `total_count` BIGINT NOT NULL DEFAULT 0 COMMENT '成功消费笔数合计',
+  `update_time` DATETIME NULL COMMENT '更新时间',
+  PRIMARY KEY (`rollup_id`),
+  UNIQUE KEY `uk_rollup_bucket` (`granularity`, `dim_type`, `dim_key`, `bucket_time`),
+  KEY `idx_rollup_time` (`granularity`, `dim_type`, `bucket_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消费预聚合表';
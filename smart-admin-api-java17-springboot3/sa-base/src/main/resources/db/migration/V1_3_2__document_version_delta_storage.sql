@@ -0,0 +1,6 @@
+-- 文档版本差量存储：每 N 个版本保存一个压缩全文关键帧，其余版本保存相对上一版本的压缩差量
+-- storage_type: FULL 关键帧 / DELTA 差量 / NULL 历史明文（读取时兼容，可由版本压缩任务批量转换）
+ALTER TABLE `t_document_version`
+  ADD COLUMN `storage_type` VARCHAR(8) NULL COMMENT '内容存储类型 FULL/DELTA，为空表示明文',
+  ADD COLUMN `base_version_number` INT NULL COMMENT '所属关键帧的版本号',
+  ADD COLUMN `content_size` BIGINT NULL COMMENT '内容原始大小(UTF-8字节)';
@@ -0,0 +1,152 @@
+package net.lab1024.sa.base.common.aspect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import net.lab1024.sa.base.common.annotation.cache.UnifiedCache;
+import net.lab1024.sa.base.common.cache.CacheNamespace;
+
+/**
+ * 统一缓存方法预解析测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+class UnifiedCacheOperationTest {
+
+    private final ExpressionParser parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, getClass().getClassLoader()));
+
+    @Test
+    @DisplayName("单个参数引用直接取参数值，不创建SpEL上下文")
+    void parameterReferenceSkipsSpel() throws Exception {
+        UnifiedCacheOperation operation = operation("getArea", Long.class);
+        Object[] args = {42L};
+
+        EvaluationContext context = operation.createEvaluationContext(args, new AreaService());
+
+        assertNull(context);
+        assertEquals("42", operation.key(args, context));
+        assertEquals(String.class, operation.getValueType());
+    }
+
+    @Test
+    @DisplayName("SpEL键多次求值（编译后）结果不变，结果为null时使用默认键")
+    void compiledExpressionKey() throws Exception {
+        UnifiedCacheOperation operation = operation("getAreaByCode", String.class, Integer.class);
+        for (int i = 0; i < 3; i++) {
+            Object[] args = {"A" + i, 2};
+            assertEquals("code:A" + i + ":2", operation.key(args, operation.createEvaluationContext(args, null)));
+        }
+
+        Object[] nullArgs = {null, 2};
+        assertEquals("AreaService:getAreaByCode:null,2",
+                operation.key(nullArgs, operation.createEvaluationContext(nullArgs, null)));
+    }
+
+    @Test
+    @DisplayName("未指定键时按类名:方法名:参数生成")
+    void defaultKey() throws Exception {
+        UnifiedCacheOperation operation = operation("countAreas");
+        assertEquals("AreaService:countAreas", operation.key(new Object[0], null));
+        assertEquals(Integer.class, operation.getValueType());
+    }
+
+    @Test
+    @DisplayName("条件不满足或命中排除条件时不缓存")
+    void conditionAndUnless() throws Exception {
+        UnifiedCacheOperation operation = operation("getAreaByCode", String.class, Integer.class);
+
+        Object[] cached = {"A1", 2};
+        Object[] belowLevel = {"A1", 0};
+        Object[] excluded = {"TMP1", 2};
+
+        assertTrue(operation.shouldCache(operation.createEvaluationContext(cached, null)));
+        assertFalse(operation.shouldCache(operation.createEvaluationContext(belowLevel, null)));
+        assertFalse(operation.shouldCache(operation.createEvaluationContext(excluded, null)));
+    }
+
+    @Test
+    @DisplayName("批量方法解析ID集合参数与Map值类型，未命中ID保持集合类型")
+    void batchOperation() throws Exception {
+        UnifiedCacheOperation operation = operation("getAreas", String.class, Set.class);
+        Object[] args = {"tenant", new LinkedHashSet<>(List.of(1L, 2L, 3L))};
+
+        assertTrue(operation.isBatch());
+        assertEquals(String.class, operation.getValueType());
+        assertEquals(3, operation.ids(args).size());
+        assertEquals("area:2", operation.idKey(2L));
+
+        Object[] missArgs = operation.withIds(args, new ArrayList<>(List.of(2L)));
+        assertEquals("tenant", missArgs[0]);
+        assertEquals(Set.of(2L), assertInstanceOf(LinkedHashSet.class, missArgs[1]));
+        assertEquals(3, operation.ids(args).size());
+    }
+
+    @Test
+    @DisplayName("批量方法不返回Map或没有ID集合参数时解析失败")
+    void invalidBatchOperation() {
+        assertThrows(IllegalStateException.class, () -> operation("listAreas", List.class));
+        assertThrows(IllegalStateException.class, () -> operation("getAreasByCode", String.class));
+    }
+
+    private UnifiedCacheOperation operation(String name, Class<?>... parameterTypes) throws Exception {
+        Method method = AreaService.class.getDeclaredMethod(name, parameterTypes);
+        return UnifiedCacheOperation.of(method, AnnotatedElementUtils.findMergedAnnotation(method, UnifiedCache.class),
+                parser);
+    }
+
+    static class AreaService {
+
+        @UnifiedCache(namespace = CacheNamespace.ACCESS, key = "#areaId")
+        public String getArea(Long areaId) {
+            return "area-" + areaId;
+        }
+
+        @UnifiedCache(namespace = CacheNamespace.ACCESS, value = "#code == null ? null : 'code:' + #code + ':' + #level",
+                condition = "#level > 0", unless = "#code.startsWith('TMP')")
+        public String getAreaByCode(String code, Integer level) {
+            return code;
+        }
+
+        @UnifiedCache(namespace = CacheNamespace.ACCESS)
+        public int countAreas() {
+            return 0;
+        }
+
+        @UnifiedCache(namespace = CacheNamespace.ACCESS, key = "#areaIds", batch = true, batchKeyPrefix = "area:")
+        public Map<Long, String> getAreas(String tenant, Set<Long> areaIds) {
+            return Map.of();
+        }
+
+        @UnifiedCache(namespace = CacheNamespace.ACCESS, batch = true)
+        public List<String> listAreas(List<Long> areaIds) {
+            return List.of();
+        }
+
+        @UnifiedCache(namespace = CacheNamespace.ACCESS, batch = true)
+        public Map<Long, String> getAreasByCode(String code) {
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package net.lab1024.sa.base.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 命名空间/标签代际失效测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+class CacheGenerationsTest {
+
+    private final MapRedisUtil redis = new MapRedisUtil();
+
+    @Test
+    @DisplayName("递增标签代际后旧版本戳失效，其他标签不受影响")
+    void bumpTagInvalidatesStampedValues() {
+        CacheGenerations generations = node(null);
+        Map<String, Long> stamps = generations.stamp(CacheNamespace.ACCESS, List.of("date:2025-11-25", "user:1"));
+        assertTrue(generations.isCurrent(CacheNamespace.ACCESS, stamps));
+
+        generations.bumpTag(CacheNamespace.ACCESS, "date:2025-11-25");
+
+        assertFalse(generations.isCurrent(CacheNamespace.ACCESS, stamps));
+        assertTrue(generations.isCurrent(CacheNamespace.ACCESS,
+                generations.stamp(CacheNamespace.ACCESS, List.of("user:1"))));
+        assertEquals(1L, generations.tagGeneration(CacheNamespace.ACCESS, "date:2025-11-25"));
+        assertEquals(0L, generations.tagGeneration(CacheNamespace.ATTENDANCE, "date:2025-11-25"));
+    }
+
+    @Test
+    @DisplayName("其他节点递增代际后本节点丢弃本地缓存的代际")
+    void bumpOnOtherNodeReachesLocalGeneration() {
+        LoopbackBus busA = new LoopbackBus();
+        LoopbackBus busB = new LoopbackBus();
+        busA.peer = busB;
+        busB.peer = busA;
+        CacheGenerations nodeA = node(busA);
+        CacheGenerations nodeB = node(busB);
+
+        assertEquals(0L, nodeB.namespaceGeneration(CacheNamespace.USER));
+        nodeA.bumpNamespace(CacheNamespace.USER);
+
+        assertEquals(1L, nodeB.namespaceGeneration(CacheNamespace.USER));
+    }
+
+    private CacheGenerations node(CacheInvalidationBus bus) {
+        CacheGenerations generations = new CacheGenerations();
+        ReflectionTestUtils.setField(generations, "redisUtil", redis);
+        ReflectionTestUtils.setField(generations, "invalidationBus", bus);
+        generations.subscribeInvalidation();
+        return generations;
+    }
+
+    /**
+     * 只实现代际用到的命令
+     */
+    private static class MapRedisUtil extends RedisUtil {
+
+        private final Map<String, Long> values = new ConcurrentHashMap<>();
+
+        @Override
+        public Object get(String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public long incr(String key, long delta) {
+            return values.merge(key, delta, Long::sum);
+        }
+
+        @Override
+        public boolean expire(String key, long time) {
+            return true;
+        }
+    }
+
+    private static class LoopbackBus extends CacheInvalidationBus {
+
+        private LoopbackBus peer;
+
+        @Override
+        protected void send(String payload) {
+            receive(payload);
+            peer.receive(payload);
+        }
+    }
+}
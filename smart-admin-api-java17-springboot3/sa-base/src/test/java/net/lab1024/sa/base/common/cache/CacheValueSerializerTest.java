@@ -0,0 +1,79 @@
+package net.lab1024.sa.base.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 缓存值JSON/二进制双格式序列化测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+class CacheValueSerializerTest {
+
+    private final CacheValueSerializer serializer = new CacheValueSerializer(new SmileCacheCodec(), 1024);
+
+    @Test
+    @DisplayName("未标记的值仍写JSON，旧序列化器写入的值可以读取")
+    void readsLegacyJson() {
+        TaggedValue stored = new TaggedValue(7L, new HashMap<>(Map.of("user:1", 2L)));
+        byte[] legacy = new GenericJackson2JsonRedisSerializer().serialize(stored);
+
+        TaggedValue value = assertInstanceOf(TaggedValue.class, serializer.deserialize(legacy));
+        assertEquals(7L, value.getValue());
+        assertEquals(2L, value.getTags().get("user:1"));
+        assertEquals(legacy.length, serializer.serialize(stored).length);
+    }
+
+    @Test
+    @DisplayName("二进制写入的值按原类型读回，且比JSON小")
+    void binaryRoundTrip() {
+        RefreshableValue stored = new RefreshableValue(new ArrayList<>(List.of(1L, 2L, 3L)), 1_764_000_000_000L, 12);
+
+        byte[] binary = serializer.serialize(CacheValueSerializer.binary(stored));
+        RefreshableValue value = assertInstanceOf(RefreshableValue.class, serializer.deserialize(binary));
+
+        assertEquals(CacheValueSerializer.MAGIC, binary[0]);
+        assertEquals(List.of(1L, 2L, 3L), value.getValue());
+        assertEquals(stored.getRefreshAt(), value.getRefreshAt());
+        assertTrue(binary.length < serializer.serialize(stored).length);
+    }
+
+    @Test
+    @DisplayName("超过阈值的值压缩写入")
+    void compressesLargeValues() {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rows.add("area-" + i + "-门禁区域");
+        }
+
+        byte[] plain = new CacheValueSerializer(new SmileCacheCodec(), 0).serialize(CacheValueSerializer.binary(rows));
+        byte[] compressed = serializer.serialize(CacheValueSerializer.binary(rows));
+
+        assertEquals(1, compressed[2]);
+        assertTrue(compressed.length < plain.length / 2);
+        assertEquals(rows, serializer.deserialize(compressed));
+        assertEquals(rows, serializer.deserialize(plain));
+    }
+
+    @Test
+    @DisplayName("未知编解码器编号读取失败")
+    void rejectsUnknownCodec() {
+        byte[] binary = serializer.serialize(CacheValueSerializer.binary(1L));
+        binary[1] = 9;
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(binary));
+    }
+}
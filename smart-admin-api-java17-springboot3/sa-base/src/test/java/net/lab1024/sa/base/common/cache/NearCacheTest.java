@@ -0,0 +1,113 @@
+package net.lab1024.sa.base.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * L1本地缓存版本戳与跨节点失效测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+class NearCacheTest {
+
+    @Test
+    @DisplayName("回填期间键被失效时放弃回填")
+    void putIfUnchangedSkipsAfterInvalidation() {
+        NearCache cache = new NearCache(CacheNamespace.USER);
+        long stamp = cache.stamp("u1");
+
+        cache.invalidate("u1");
+        cache.putIfUnchanged("u1", "stale", stamp);
+
+        assertNull(cache.get("u1"));
+    }
+
+    @Test
+    @DisplayName("回填期间本节点写入新值时保留新值")
+    void putIfUnchangedKeepsNewerLocalWrite() {
+        NearCache cache = new NearCache(CacheNamespace.USER);
+        long stamp = cache.stamp("u1");
+
+        cache.put("u1", "fresh", 60_000);
+        cache.putIfUnchanged("u1", "stale", stamp);
+
+        assertEquals("fresh", cache.get("u1"));
+    }
+
+    @Test
+    @DisplayName("整体清空使所有进行中的回填失效")
+    void invalidateAllBumpsEveryStamp() {
+        NearCache cache = new NearCache(CacheNamespace.USER);
+        long stamp = cache.stamp("u2");
+
+        cache.invalidateAll();
+        cache.putIfUnchanged("u2", "stale", stamp);
+        assertNull(cache.get("u2"));
+
+        cache.putIfUnchanged("u2", "loaded", cache.stamp("u2"));
+        assertEquals("loaded", cache.get("u2"));
+    }
+
+    @Test
+    @DisplayName("失效消息只投递到其他节点")
+    void invalidationReachesOtherNodesOnly() {
+        LoopbackBus nodeA = new LoopbackBus();
+        LoopbackBus nodeB = new LoopbackBus();
+        nodeA.peer = nodeB;
+        nodeB.peer = nodeA;
+
+        AtomicReference<String> receivedByA = new AtomicReference<>("none");
+        AtomicReference<String> receivedByB = new AtomicReference<>("none");
+        nodeA.subscribe("unified:USER", receivedByA::set);
+        nodeB.subscribe("unified:USER", receivedByB::set);
+
+        nodeA.publish("unified:USER", "user:1");
+        assertEquals("user:1", receivedByB.get());
+        assertEquals("none", receivedByA.get());
+
+        nodeA.publish("unified:USER", null);
+        assertNull(receivedByB.get());
+    }
+
+    @Test
+    @DisplayName("批量失效合并为一条消息，逐个键投递")
+    void publishAllDeliversEveryKey() {
+        LoopbackBus nodeA = new LoopbackBus();
+        LoopbackBus nodeB = new LoopbackBus();
+        nodeA.peer = nodeB;
+        nodeB.peer = nodeA;
+
+        List<String> receivedByB = new ArrayList<>();
+        nodeB.subscribe("unified:USER", receivedByB::add);
+
+        nodeA.publishAll("unified:USER", List.of("user:1", "user:2", "user:3"));
+
+        assertEquals(List.of("user:1", "user:2", "user:3"), receivedByB);
+        assertEquals(1, nodeA.sent);
+    }
+
+    /**
+     * 两个节点直接互投消息，代替Redis pub/sub（Redis会回送给发布者自身，这里一并模拟）
+     */
+    private static class LoopbackBus extends CacheInvalidationBus {
+
+        private LoopbackBus peer;
+
+        private int sent;
+
+        @Override
+        protected void send(String payload) {
+            sent++;
+            receive(payload);
+            peer.receive(payload);
+        }
+    }
+}
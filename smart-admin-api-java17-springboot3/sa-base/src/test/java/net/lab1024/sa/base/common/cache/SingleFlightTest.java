@@ -0,0 +1,106 @@
+package net.lab1024.sa.base.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 按键合并并发加载测试
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("同键并发加载只执行一次，所有调用得到同一结果")
+    void concurrentLoadsShareOneCall() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object loaded = new Object();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> flight.load("area:1", () -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return loaded;
+                })));
+            }
+            while (!flight.isLoading("area:1")) {
+                Thread.sleep(1);
+            }
+            // 等其余线程挂到进行中的加载上
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Object> result : results) {
+                assertSame(loaded, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertFalse(flight.isLoading("area:1"));
+    }
+
+    @Test
+    @DisplayName("加载异常抛给调用方，之后可重新加载")
+    void failureIsNotRemembered() {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> flight.load("k", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("ok", flight.load("k", () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("已有加载进行中时不再提交后台加载")
+    void loadAsyncSkipsWhileInFlight() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(flight.loadAsync("k", () -> {
+                await(release);
+                done.countDown();
+                return "v1";
+            }, executor));
+            assertFalse(flight.loadAsync("k", () -> "v2", executor));
+
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        assertFalse(flight.isLoading("k"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package net.lab1024.sa.admin.module.access.protocol.tcp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TCP设备指令吞吐基准测试
+ *
+ * 进程内模拟控制器（每条指令回复 OK:指令），对比连接池复用长连接与原先每条指令新建连接的吞吐量，
+ * 单位为指令/秒。4个线程对同一台设备发送，连接池单设备连接上限与线程数一致
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class TcpConnectionPoolBenchmark {
+
+    private static final byte[] COMMAND = "OPEN:1001:1732500000000".getBytes(StandardCharsets.UTF_8);
+
+    private ServerSocket serverSocket;
+
+    private TcpConnectionPool pool;
+
+    private String host;
+
+    private int port;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        host = serverSocket.getInetAddress().getHostAddress();
+        port = serverSocket.getLocalPort();
+        Thread acceptor = new Thread(this::acceptLoop, "bench-controller-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        TcpPoolOptions options = new TcpPoolOptions();
+        options.setMaxConnectionsPerDevice(4);
+        pool = new TcpConnectionPool(options);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        serverSocket.close();
+    }
+
+    @Benchmark
+    public byte[] pooled() throws IOException {
+        return pool.exchange(host, port, COMMAND);
+    }
+
+    /**
+     * 原 TcpProtocolAdapter 的做法：每条指令新建连接、新分配缓冲区
+     */
+    @Benchmark
+    public byte[] connectPerCommand() throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), 5000);
+            socket.setSoTimeout(3000);
+            OutputStream out = socket.getOutputStream();
+            out.write(COMMAND);
+            out.flush();
+            byte[] buffer = new byte[1024];
+            int bytesRead = socket.getInputStream().read(buffer);
+            return bytesRead > 0 ? Arrays.copyOf(buffer, bytesRead) : new byte[0];
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                Thread handler = new Thread(() -> serve(client), "bench-controller");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private static void serve(Socket client) {
+        try (Socket socket = client) {
+            socket.setTcpNoDelay(true);
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            byte[] buffer = new byte[1024];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) > 0) {
+                byte[] reply = new byte[bytesRead + 3];
+                reply[0] = 'O';
+                reply[1] = 'K';
+                reply[2] = ':';
+                System.arraycopy(buffer, 0, reply, 3, bytesRead);
+                out.write(reply);
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // 客户端断开
+        }
+    }
+}
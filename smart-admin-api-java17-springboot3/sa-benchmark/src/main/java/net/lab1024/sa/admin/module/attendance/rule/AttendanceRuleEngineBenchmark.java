@@ -0,0 +1,85 @@
+package net.lab1024.sa.admin.module.attendance.rule;
+
+import java.time.LocalTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.lab1024.sa.admin.module.attendance.domain.entity.AttendanceRecordEntity;
+import net.lab1024.sa.admin.module.attendance.domain.entity.AttendanceRuleEntity;
+
+/**
+ * 考勤规则分析基准测试
+ *
+ * 单条考勤记录的规则分析：状态判定（迟到/早退/旷工）、工作时长、加班时长，
+ * 即考勤汇总时对每条记录执行的计算。规则与记录在内存中构造，不访问数据库
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttendanceRuleEngineBenchmark {
+
+    private static final int RECORD_COUNT = 1024;
+
+    private AttendanceRuleEngine engine;
+
+    private AttendanceRuleEntity rule;
+
+    private AttendanceRecordEntity[] records;
+
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 分析方法只依赖入参，无需注入DAO
+        engine = new AttendanceRuleEngine();
+
+        rule = new AttendanceRuleEntity();
+        rule.setWorkStartTime(LocalTime.of(9, 0));
+        rule.setWorkEndTime(LocalTime.of(18, 0));
+        rule.setBreakStartTime(LocalTime.of(12, 0));
+        rule.setBreakEndTime(LocalTime.of(13, 0));
+        rule.setLateGraceMinutes(5);
+        rule.setEarlyLeaveGraceMinutes(5);
+
+        Random random = new Random(20250115L);
+        records = new AttendanceRecordEntity[RECORD_COUNT];
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            AttendanceRecordEntity record = new AttendanceRecordEntity();
+            record.setRecordId((long) i);
+            // 约5%缺卡，其余上班打卡在8:30-9:30、下班打卡在17:30-21:00之间
+            if (random.nextInt(20) != 0) {
+                record.setPunchInTime(LocalTime.of(8, 30).plusMinutes(random.nextInt(60)));
+                record.setPunchOutTime(LocalTime.of(17, 30).plusMinutes(random.nextInt(210)));
+            }
+            records[i] = record;
+        }
+    }
+
+    @Benchmark
+    public void analyze(Blackhole blackhole) {
+        AttendanceRecordEntity record = records[cursor];
+        cursor = (cursor + 1) & (RECORD_COUNT - 1);
+        blackhole.consume(engine.calculateAttendanceStatus(record, rule));
+        blackhole.consume(engine.calculateWorkHours(record, rule));
+        blackhole.consume(engine.calculateOvertimeHours(record, rule));
+    }
+}
@@ -0,0 +1,96 @@
+package net.lab1024.sa.admin.module.consume.engine.mode;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.lab1024.sa.admin.module.consume.engine.ConsumeModeRequest;
+import net.lab1024.sa.admin.module.consume.engine.ConsumeModeResult;
+
+/**
+ * 消费模式计算基准测试
+ *
+ * 自由金额（折扣+手续费）、计量（阶梯+时段优惠+服务费）、智能模式的单次 process 计算，
+ * 参数按各模式最复杂的分支构造。各模式实现的 process 签名与 ConsumptionMode 接口不一致，按具体类方法引用调用
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsumptionModeBenchmark {
+
+    @Param({"FREE_AMOUNT", "METERING", "SMART"})
+    private String mode;
+
+    private Function<ConsumeModeRequest, ConsumeModeResult> processor;
+
+    private ConsumeModeRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> params = new HashMap<>();
+        switch (mode) {
+            case "FREE_AMOUNT" -> {
+                processor = new FreeAmountMode()::process;
+                params.put("hasDiscount", true);
+                params.put("discountType", "PERCENTAGE");
+                params.put("discountRate", new BigDecimal("0.95"));
+                params.put("memberLevel", "GOLD");
+                params.put("hasFee", true);
+                params.put("feeType", "PERCENTAGE");
+                params.put("feeRate", new BigDecimal("0.01"));
+            }
+            case "METERING" -> {
+                processor = new MeteringMode()::process;
+                params.put("unitPrice", new BigDecimal("0.85"));
+                params.put("usage", new BigDecimal("36.5"));
+                params.put("meterType", "WATER");
+                params.put("hasTieredPricing", true);
+                params.put("hasTimeDiscount", true);
+                params.put("hasSeasonalAdjustment", true);
+                params.put("hasServiceFee", true);
+            }
+            case "SMART" -> {
+                processor = new SmartMode()::process;
+                params.put("hasDynamicDiscount", true);
+                params.put("hasValueAddedServices", false);
+                params.put("businessType", "CANTEEN");
+                params.put("timeOfDay", "LUNCH");
+            }
+            default -> throw new IllegalArgumentException("未知消费模式: " + mode);
+        }
+        request = ConsumeModeRequest.builder()
+                .personId(10001L)
+                .amount(new BigDecimal("25.80"))
+                .modeCode(mode)
+                .deviceId(1L)
+                .orderNo("BENCH_" + mode)
+                .modeParams(params)
+                .build();
+    }
+
+    @Benchmark
+    public ConsumeModeResult process() {
+        return processor.apply(request);
+    }
+}
@@ -0,0 +1,88 @@
+package net.lab1024.sa.admin.module.monitor.cep;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 门禁事件规则回放基准测试
+ *
+ * 逐条回放录制文件中的事件，吞吐量单位为事件/秒。eventFile 为空时生成10万条模拟录制，
+ * 指定 -p eventFile=/path/events.csv 可回放现场导出的事件（格式见 {@link AccessEventRecording}）。
+ * ruleCount 在监听器内置的三条事件规则之外追加按设备索引的规则，用于观察规则数量对单事件开销的影响
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessEventReplayBenchmark {
+
+    @Param({""})
+    private String eventFile;
+
+    @Param({"0", "500"})
+    private int ruleCount;
+
+    private AccessEventCepEngine engine;
+
+    private List<CepRule> rules;
+
+    private CepEvent[] events;
+
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path file;
+        if (eventFile.isEmpty()) {
+            file = Files.createTempFile("access-events", ".csv");
+            file.toFile().deleteOnExit();
+            AccessEventRecording.generate(file, 100_000, 2000, 20_000, 20250115L);
+        } else {
+            file = Path.of(eventFile);
+        }
+        events = AccessEventRecording.read(file).toArray(new CepEvent[0]);
+
+        rules = new ArrayList<>();
+        rules.add(CepRule.compile("failed", "verify_result=failed && count>=5 within 60s by device"));
+        rules.add(CepRule.compile("tailgating", "verify_result=success && direction=in && count>=2 within 2s by device"));
+        rules.add(CepRule.compile("anti_passback", "verify_result=success && repeat(direction) within 12h by user,area"));
+        for (int i = 0; i < ruleCount; i++) {
+            rules.add(CepRule.compile("device_" + i,
+                    "device=D" + i + " && verify_method=face && count>=20 within 5m by user"));
+        }
+        engine = new AccessEventCepEngine();
+        engine.register(rules);
+    }
+
+    @Benchmark
+    public List<CepMatch> replay() {
+        if (cursor == events.length) {
+            // 录制回放完一轮后从头开始，时间回退，重新注册以清空窗口状态
+            cursor = 0;
+            engine.register(rules);
+        }
+        return engine.onEvent(events[cursor++]);
+    }
+}
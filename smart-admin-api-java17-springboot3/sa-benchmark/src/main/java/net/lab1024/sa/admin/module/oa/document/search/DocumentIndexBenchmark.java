@@ -0,0 +1,177 @@
+package net.lab1024.sa.admin.module.oa.document.search;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.lucene.store.FSDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentEntity;
+
+/**
+ * 文档全文检索基准测试
+ *
+ * 100万篇文档（标题3个词、正文30个词，词表600个常用业务词），索引写入临时目录，对比：
+ * - 关键字检索：索引检索（相关度排序 + 高亮 + 标签分面，取前20条）vs 遍历全部文档做子串匹配（等价于 LIKE %kw% 全表扫描）
+ * - 增量写入：单篇文档更新并刷新可见
+ *
+ * 建索引耗时数分钟，只在Trial开始时执行一次
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DocumentIndexBenchmark {
+
+    private static final int DOCUMENT_COUNT = 1_000_000;
+
+    private static final int QUERY_COUNT = 256;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final String[] PREFIXES = {"项目", "合同", "采购", "财务", "人事", "行政", "研发", "测试", "运维", "销售",
+        "客户", "供应商", "预算", "报销", "考勤", "门禁", "消费", "访客", "会议", "培训"};
+
+    private static final String[] SUFFIXES = {"方案", "流程", "制度", "规范", "报告", "总结", "计划", "通知", "纪要", "模板",
+        "清单", "标准", "说明", "申请", "审批", "评审", "指南", "手册", "记录", "统计", "分析", "目标", "风险", "变更",
+        "验收", "交付", "需求", "设计", "部署", "巡检"};
+
+    private static final String[] TAGS = {"重要", "归档", "草稿", "公开", "内部", "财务", "研发", "人事", "合同", "制度"};
+
+    private Path indexPath;
+
+    private DocumentIndex index;
+
+    private String[] vocabulary;
+
+    private List<String> titles;
+
+    private List<String> contents;
+
+    private String[] keywords;
+
+    private Random random;
+
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        random = new Random(20251125L);
+        vocabulary = new String[PREFIXES.length * SUFFIXES.length];
+        int v = 0;
+        for (String prefix : PREFIXES) {
+            for (String suffix : SUFFIXES) {
+                vocabulary[v++] = prefix + suffix;
+            }
+        }
+
+        indexPath = Files.createTempDirectory("document-index-benchmark");
+        index = new DocumentIndex(FSDirectory.open(indexPath));
+        titles = new ArrayList<>(DOCUMENT_COUNT);
+        contents = new ArrayList<>(DOCUMENT_COUNT);
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            DocumentEntity document = randomDocument(i + 1L);
+            titles.add(document.getTitle());
+            contents.add(document.getContent());
+            index.index(document);
+        }
+        index.commit();
+        index.refresh();
+
+        keywords = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            keywords[i] = vocabulary[random.nextInt(vocabulary.length)];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        index.close();
+        try (Stream<Path> files = Files.walk(indexPath)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public DocumentSearchResult indexedSearch() throws IOException {
+        return index.search(DocumentSearchQuery.of(nextKeyword()), 0, PAGE_SIZE);
+    }
+
+    /**
+     * 原做法：LIKE %kw% 对标题、正文逐行子串匹配，需扫描全部文档才能得到总数
+     */
+    @Benchmark
+    public List<Integer> likeScan() {
+        String keyword = nextKeyword();
+        List<Integer> page = new ArrayList<>(PAGE_SIZE);
+        int total = 0;
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            if (titles.get(i).contains(keyword) || contents.get(i).contains(keyword)) {
+                if (page.size() < PAGE_SIZE) {
+                    page.add(i);
+                }
+                total++;
+            }
+        }
+        page.add(total);
+        return page;
+    }
+
+    @Benchmark
+    public void incrementalUpdate() throws IOException {
+        index.index(randomDocument(1L + random.nextInt(DOCUMENT_COUNT)));
+        index.refresh();
+    }
+
+    private DocumentEntity randomDocument(long id) {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            title.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            content.append(vocabulary[random.nextInt(vocabulary.length)]).append(i % 6 == 5 ? "。" : "，");
+        }
+        DocumentEntity document = new DocumentEntity();
+        document.setDocumentId(id);
+        document.setTitle(title.toString());
+        document.setContent(content.toString());
+        document.setTags("[" + TAGS[random.nextInt(TAGS.length)] + ", " + TAGS[random.nextInt(TAGS.length)] + "]");
+        document.setCategoryId((long) random.nextInt(50));
+        document.setDocumentType("MD");
+        document.setStatus("ACTIVE");
+        document.setDeletedFlag(0);
+        return document;
+    }
+
+    private String nextKeyword() {
+        String keyword = keywords[cursor];
+        cursor = (cursor + 1) & (QUERY_COUNT - 1);
+        return keyword;
+    }
+}
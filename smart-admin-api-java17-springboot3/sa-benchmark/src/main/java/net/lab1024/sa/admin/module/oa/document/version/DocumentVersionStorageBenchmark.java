@@ -0,0 +1,153 @@
+package net.lab1024.sa.admin.module.oa.document.version;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.lab1024.sa.admin.module.oa.document.domain.entity.DocumentVersionEntity;
+
+/**
+ * 文档版本存储基准测试
+ *
+ * 100篇文档，每篇200行、60个版本，每个版本随机修改/插入/删除1~3行，对比：
+ * - 存储空间：明文 vs 关键帧 + 差量（Setup时输出）
+ * - 读取耗时：明文直接读取 vs 从关键帧重建（不经缓存，即最坏情况）
+ * - 写入耗时：新版本编码（差量计算 + 压缩）
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentVersionStorageBenchmark {
+
+    private static final int DOCUMENT_COUNT = 100;
+
+    private static final int VERSION_COUNT = 60;
+
+    private static final int LINE_COUNT = 200;
+
+    private static final int MAX_DIFF_LINES = 2000;
+
+    @Param({"10", "30"})
+    private int keyframeInterval;
+
+    private List<List<String>> plaintext;
+
+    private List<List<DocumentVersionEntity>> encoded;
+
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(20251125L);
+        plaintext = new ArrayList<>(DOCUMENT_COUNT);
+        encoded = new ArrayList<>(DOCUMENT_COUNT);
+        long rawBytes = 0;
+        long storedBytes = 0;
+        for (int d = 0; d < DOCUMENT_COUNT; d++) {
+            List<String> lines = new ArrayList<>(LINE_COUNT);
+            for (int i = 0; i < LINE_COUNT; i++) {
+                lines.add(randomLine());
+            }
+            List<String> contents = new ArrayList<>(VERSION_COUNT);
+            List<DocumentVersionEntity> versions = new ArrayList<>(VERSION_COUNT);
+            DocumentVersionEntity previous = null;
+            for (int number = 1; number <= VERSION_COUNT; number++) {
+                if (number > 1) {
+                    edit(lines);
+                }
+                String content = String.join("", lines);
+                DocumentVersionEntity version = new DocumentVersionEntity()
+                        .setVersionId((long) d * VERSION_COUNT + number)
+                        .setDocumentId((long) d)
+                        .setVersionNumber(number);
+                VersionContentCodec.encode(version, content, previous,
+                        number > 1 ? contents.get(number - 2) : null, keyframeInterval, MAX_DIFF_LINES);
+                contents.add(content);
+                versions.add(version);
+                rawBytes += version.getContentSize();
+                storedBytes += version.getContent().length();
+                previous = version;
+            }
+            plaintext.add(contents);
+            encoded.add(versions);
+        }
+        System.out.printf("%n[keyframeInterval=%d] plaintext=%d bytes, stored=%d bytes, ratio=%.1f%%%n",
+                keyframeInterval, rawBytes, storedBytes, 100.0 * storedBytes / rawBytes);
+    }
+
+    @Benchmark
+    public String readPlaintext() {
+        return plaintext.get(random.nextInt(DOCUMENT_COUNT)).get(random.nextInt(VERSION_COUNT));
+    }
+
+    /**
+     * 从所属关键帧重建随机版本
+     */
+    @Benchmark
+    public String reconstruct() {
+        List<DocumentVersionEntity> versions = encoded.get(random.nextInt(DOCUMENT_COUNT));
+        DocumentVersionEntity target = versions.get(random.nextInt(VERSION_COUNT));
+        return VersionContentCodec.reconstruct(
+                versions.subList(target.getBaseVersionNumber() - 1, target.getVersionNumber()));
+    }
+
+    /**
+     * 在最新版本上修改后编码新版本
+     */
+    @Benchmark
+    public DocumentVersionEntity encodeNewVersion() {
+        int d = random.nextInt(DOCUMENT_COUNT);
+        List<DocumentVersionEntity> versions = encoded.get(d);
+        String latest = plaintext.get(d).get(VERSION_COUNT - 1);
+        List<String> lines = new ArrayList<>(TextDelta.splitLines(latest));
+        edit(lines);
+        DocumentVersionEntity version = new DocumentVersionEntity().setDocumentId((long) d)
+                .setVersionNumber(VERSION_COUNT + 1);
+        VersionContentCodec.encode(version, String.join("", lines), versions.get(VERSION_COUNT - 1), latest,
+                keyframeInterval, MAX_DIFF_LINES);
+        return version;
+    }
+
+    private void edit(List<String> lines) {
+        for (int edits = 1 + random.nextInt(3); edits > 0; edits--) {
+            int position = random.nextInt(lines.size());
+            switch (random.nextInt(3)) {
+                case 0 -> lines.set(position, randomLine());
+                case 1 -> lines.add(position, randomLine());
+                default -> {
+                    if (lines.size() > 1) {
+                        lines.remove(position);
+                    }
+                }
+            }
+        }
+    }
+
+    private String randomLine() {
+        StringBuilder line = new StringBuilder("第").append(random.nextInt(10000)).append("条：");
+        for (int i = 20 + random.nextInt(40); i > 0; i--) {
+            line.append((char) ('一' + random.nextInt(3000)));
+        }
+        return line.append('\n').toString();
+    }
+}
@@ -0,0 +1,181 @@
+package net.lab1024.sa.admin.module.oa.workflow.engine;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.lab1024.sa.admin.module.oa.workflow.domain.entity.WorkflowTaskEntity;
+
+/**
+ * 工作流待办查询与条件求值基准测试
+ *
+ * 10万条待办分布在1万个用户与200个候选组上，对比：
+ * - 待办查询：按索引取用户待办 vs 遍历全部待办按处理人/候选人/候选组过滤
+ * - 条件求值：预编译的条件 vs 每次流转对表达式做变量替换后重新解析
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowTaskIndexBenchmark {
+
+    private static final int TASK_COUNT = 100_000;
+
+    private static final int USER_COUNT = 10_000;
+
+    private static final int GROUP_COUNT = 200;
+
+    private static final int QUERY_COUNT = 1024;
+
+    private static final String CONDITION = "${amount > 5000 || days > 3 && level < 5}";
+
+    private WorkflowTaskIndex index;
+
+    private List<WorkflowTaskEntity> allTasks;
+
+    private long[] queryUsers;
+
+    private List<List<String>> queryGroups;
+
+    private ConditionExpression compiled;
+
+    private Map<String, Object> variables;
+
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(20251125L);
+        index = new WorkflowTaskIndex();
+        allTasks = new ArrayList<>(TASK_COUNT);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < TASK_COUNT; i++) {
+            WorkflowTaskEntity task = new WorkflowTaskEntity();
+            task.setTaskId((long) i + 1);
+            task.setStatus("ACTIVE");
+            task.setPriority(random.nextInt(3));
+            task.setCreateTime(now.minusMinutes(random.nextInt(100_000)));
+            // 约70%直接指派，其余为候选组或候选人任务
+            int kind = random.nextInt(10);
+            if (kind < 7) {
+                task.setAssigneeId((long) random.nextInt(USER_COUNT));
+            } else if (kind < 9) {
+                task.setCandidateGroups("G" + random.nextInt(GROUP_COUNT) + ",G" + random.nextInt(GROUP_COUNT));
+            } else {
+                task.setCandidateUsers(random.nextInt(USER_COUNT) + "," + random.nextInt(USER_COUNT));
+            }
+            allTasks.add(task);
+        }
+        index.putAll(allTasks);
+
+        queryUsers = new long[QUERY_COUNT];
+        queryGroups = new ArrayList<>(QUERY_COUNT);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queryUsers[i] = random.nextInt(USER_COUNT);
+            queryGroups.add(List.of("G" + random.nextInt(GROUP_COUNT), "G" + random.nextInt(GROUP_COUNT)));
+        }
+
+        compiled = ConditionExpression.compile(CONDITION);
+        variables = new HashMap<>();
+        variables.put("amount", 3200);
+        variables.put("days", 4);
+        variables.put("level", 2);
+        variables.put("deptId", 17);
+        variables.put("applicantId", 10086);
+    }
+
+    @Benchmark
+    public List<WorkflowTaskEntity> indexedUserTasks() {
+        int i = next();
+        return index.getUserTasks(queryUsers[i], queryGroups.get(i));
+    }
+
+    /**
+     * 原做法：遍历所有待办按处理人、候选人、候选组过滤
+     */
+    @Benchmark
+    public List<WorkflowTaskEntity> scanUserTasks() {
+        int i = next();
+        Long userId = queryUsers[i];
+        String user = String.valueOf(userId);
+        List<String> groups = queryGroups.get(i);
+        List<WorkflowTaskEntity> result = new ArrayList<>();
+        for (WorkflowTaskEntity task : allTasks) {
+            if (!"ACTIVE".equals(task.getStatus())) {
+                continue;
+            }
+            if (userId.equals(task.getAssigneeId())) {
+                result.add(task);
+            } else if (task.getAssigneeId() == null
+                    && (contains(task.getCandidateUsers(), user) || containsAny(task.getCandidateGroups(), groups))) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public boolean compiledCondition() {
+        return compiled.evaluate(variables);
+    }
+
+    /**
+     * 原做法：每次流转对每个变量做 ${var} 替换后重新解析表达式
+     */
+    @Benchmark
+    public boolean interpretedCondition() {
+        String expression = CONDITION.substring(2, CONDITION.length() - 1);
+        for (Map.Entry<String, Object> entry : variables.entrySet()) {
+            expression = expression.replace(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        return ConditionExpression.compile(expression).evaluate(Map.of());
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (cursor + 1) & (QUERY_COUNT - 1);
+        return i;
+    }
+
+    private static boolean contains(String csv, String value) {
+        if (csv == null) {
+            return false;
+        }
+        for (String part : csv.split(",")) {
+            if (part.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAny(String csv, List<String> values) {
+        for (String value : values) {
+            if (contains(csv, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
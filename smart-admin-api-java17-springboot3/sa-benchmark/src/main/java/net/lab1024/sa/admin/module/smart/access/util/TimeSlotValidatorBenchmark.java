@@ -0,0 +1,86 @@
+package net.lab1024.sa.admin.module.smart.access.util;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 门禁时间段校验基准测试
+ *
+ * 对比 TimeSlotValidator.validate（预编译计划，按配置JSON缓存）与逐条解析回退路径，
+ * 判定时刻在一周内轮换，覆盖命中与未命中两种分支
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeSlotValidatorBenchmark {
+
+    private static final String SIMPLE = "{\"timeSlots\":[{\"type\":\"weekday\",\"days\":[1,2,3,4,5],"
+            + "\"timeRanges\":[{\"start\":\"08:00\",\"end\":\"18:00\"}]}]}";
+
+    private static final String COMPLEX = "{\"timeSlots\":["
+            + "{\"type\":\"weekday\",\"days\":[1,2,3,4,5],\"timeRanges\":["
+            + "{\"start\":\"07:30\",\"end\":\"12:00\"},{\"start\":\"13:00\",\"end\":\"18:30\"},"
+            + "{\"start\":\"19:00\",\"end\":\"22:00\"}]},"
+            + "{\"type\":\"weekend\",\"days\":[6,7],\"timeRanges\":[{\"start\":\"10:00\",\"end\":\"16:00\"}]},"
+            + "{\"type\":\"holiday\",\"dates\":[\"2025-01-01\",\"2025-01-28\",\"2025-01-29\",\"2025-04-04\","
+            + "\"2025-05-01\",\"2025-05-31\",\"2025-10-01\",\"2025-10-06\"],"
+            + "\"timeRanges\":[{\"start\":\"09:00\",\"end\":\"17:00\"}]}]}";
+
+    private static final int SAMPLE_COUNT = 1024;
+
+    @Param({"SIMPLE", "COMPLEX"})
+    private String config;
+
+    private String json;
+
+    private LocalDateTime[] samples;
+
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        json = "SIMPLE".equals(config) ? SIMPLE : COMPLEX;
+        samples = new LocalDateTime[SAMPLE_COUNT];
+        LocalDateTime start = LocalDateTime.of(2025, 1, 13, 0, 0);
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            // 步长约9.8分钟，1024个样本覆盖一周的各个时段
+            samples[i] = start.plusMinutes(i * 7L * 24 * 60 / SAMPLE_COUNT);
+        }
+        TimeSlotValidator.validate(json, samples[0]);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return TimeSlotValidator.validate(json, next());
+    }
+
+    @Benchmark
+    public boolean validateByParsing() {
+        return TimeSlotValidator.validateByParsing(json, next());
+    }
+
+    private LocalDateTime next() {
+        LocalDateTime sample = samples[cursor];
+        cursor = (cursor + 1) & (SAMPLE_COUNT - 1);
+        return sample;
+    }
+}
@@ -0,0 +1,160 @@
+package net.lab1024.sa.base.common.aspect;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import net.lab1024.sa.base.common.annotation.cache.UnifiedCache;
+import net.lab1024.sa.base.common.cache.CacheGenerations;
+import net.lab1024.sa.base.common.cache.CacheMetricsCollector;
+import net.lab1024.sa.base.common.cache.CacheNamespace;
+import net.lab1024.sa.base.common.cache.RedisUtil;
+import net.lab1024.sa.base.common.cache.UnifiedCacheManager;
+import net.lab1024.sa.base.common.cache.UnifiedCacheManagerBenchmark.CachedUser;
+import net.lab1024.sa.benchmark.BenchmarkBeans;
+import net.lab1024.sa.benchmark.InMemoryRedis;
+
+/**
+ * 统一缓存切面开销基准测试
+ *
+ * 所有调用均命中L1本地缓存，测得的是切面本身的开销：
+ * - direct：直接调用 UnifiedCacheManager.get，作为基线
+ * - cachedCall：经切面代理调用，keyStyle 为键的写法
+ *   （param：'#userId'；spel：'user:' + #userId；default：未指定，按类名:方法名:参数）
+ * - batchCall：批量方法一次取 batchSize 个ID
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnifiedCacheAspectBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"param", "spel", "default"})
+    private String keyStyle;
+
+    @Param({"100"})
+    private int batchSize;
+
+    private UnifiedCacheManager cacheManager;
+
+    private Function<Long, CachedUser> cachedCall;
+
+    private UserService proxy;
+
+    private List<Long> batchIds;
+
+    private long cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisUtil redisUtil = BenchmarkBeans.inject(new RedisUtil(), "redisTemplate",
+                new InMemoryRedis(0).redisTemplate());
+        cacheManager = new UnifiedCacheManager();
+        BenchmarkBeans.inject(cacheManager, "redisUtil", redisUtil);
+        BenchmarkBeans.inject(cacheManager, "generations",
+                BenchmarkBeans.inject(new CacheGenerations(), "redisUtil", redisUtil));
+        BenchmarkBeans.inject(cacheManager, "metricsCollector", new CacheMetricsCollector());
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new UserService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(BenchmarkBeans.inject(new UnifiedCacheAspect(), "unifiedCacheManager", cacheManager));
+        proxy = factory.getProxy();
+
+        switch (keyStyle) {
+            case "param":
+                cachedCall = proxy::getByParam;
+                break;
+            case "spel":
+                cachedCall = proxy::getBySpel;
+                break;
+            default:
+                cachedCall = proxy::getByDefault;
+                break;
+        }
+
+        batchIds = new ArrayList<>(batchSize);
+        for (long i = 0; i < KEY_COUNT; i++) {
+            cachedCall.apply(i);
+            cacheManager.set(CacheNamespace.USER, "user:" + i, CachedUser.of((int) i));
+            if (i < batchSize) {
+                batchIds.add(i);
+            }
+        }
+        proxy.getUsers(batchIds);
+    }
+
+    @Benchmark
+    public UnifiedCacheManager.CacheResult<CachedUser> direct() {
+        return cacheManager.get(CacheNamespace.USER, "user:" + nextId(), CachedUser.class);
+    }
+
+    @Benchmark
+    public CachedUser cachedCall() {
+        return cachedCall.apply(nextId());
+    }
+
+    @Benchmark
+    public Map<Long, CachedUser> batchCall() {
+        return proxy.getUsers(batchIds);
+    }
+
+    private long nextId() {
+        long id = cursor;
+        cursor = (cursor + 1) & (KEY_COUNT - 1);
+        return id;
+    }
+
+    /**
+     * 被代理的服务，方法体只在未命中时执行
+     */
+    public static class UserService {
+
+        @UnifiedCache(namespace = CacheNamespace.USER, key = "#userId")
+        public CachedUser getByParam(Long userId) {
+            return CachedUser.of(userId.intValue());
+        }
+
+        @UnifiedCache(namespace = CacheNamespace.USER, key = "'user:' + #userId")
+        public CachedUser getBySpel(Long userId) {
+            return CachedUser.of(userId.intValue());
+        }
+
+        @UnifiedCache(namespace = CacheNamespace.USER)
+        public CachedUser getByDefault(Long userId) {
+            return CachedUser.of(userId.intValue());
+        }
+
+        @UnifiedCache(namespace = CacheNamespace.USER, batch = true, batchKeyPrefix = "user:")
+        public Map<Long, CachedUser> getUsers(List<Long> userIds) {
+            Map<Long, CachedUser> users = new LinkedHashMap<>();
+            for (Long userId : userIds) {
+                users.put(userId, CachedUser.of(userId.intValue()));
+            }
+            return users;
+        }
+    }
+}
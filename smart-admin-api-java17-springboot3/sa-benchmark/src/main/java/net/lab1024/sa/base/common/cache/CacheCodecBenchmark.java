@@ -0,0 +1,217 @@
+package net.lab1024.sa.base.common.cache;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.lab1024.sa.admin.config.CacheCodecConfig;
+import net.lab1024.sa.admin.module.access.domain.entity.AccessAreaEntity;
+import net.lab1024.sa.admin.module.consume.domain.entity.AccountBalanceEntity;
+import net.lab1024.sa.admin.module.smart.biometric.domain.entity.BiometricTemplateEntity;
+import net.lab1024.sa.benchmark.BenchmarkBeans;
+
+/**
+ * 缓存值编码基准测试
+ *
+ * 以实际缓存的实体对比三种写入格式（值按 getOrSet 的方式包装为 {@link RefreshableValue}）：
+ * - json：GenericJackson2JsonRedisSerializer，原有格式
+ * - smile：Smile二进制 + 类别名表（与 CacheCodecConfig 相同）
+ * - smile-deflate：在 smile 基础上对超过1KB的值压缩
+ *
+ * 编码后大小在Setup时输出；载荷：
+ * - biometricTemplate：单个生物特征模板，特征数据为2KB随机字节的Base64
+ * - areaTree：3层共157个门禁区域的树
+ * - accountBalances：50个账户余额快照
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    private static final int COMPRESS_THRESHOLD = 1024;
+
+    @Param({"json", "smile", "smile-deflate"})
+    private String codec;
+
+    @Param({"biometricTemplate", "areaTree", "accountBalances"})
+    private String payload;
+
+    private CacheValueSerializer serializer;
+
+    private Object input;
+
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SmileCacheCodec smileCacheCodec = new SmileCacheCodec();
+        BenchmarkBeans.inject(new CacheCodecConfig(), "smileCacheCodec", smileCacheCodec).registerClassTable();
+        serializer = new CacheValueSerializer(smileCacheCodec, "smile-deflate".equals(codec) ? COMPRESS_THRESHOLD : 0);
+
+        Random random = new Random(20251125L);
+        Object value;
+        switch (payload) {
+            case "biometricTemplate":
+                value = biometricTemplate(random);
+                break;
+            case "areaTree":
+                value = areaTree(random);
+                break;
+            default:
+                value = accountBalances(random);
+                break;
+        }
+        RefreshableValue stored = new RefreshableValue(value, System.currentTimeMillis() + 600_000, 8);
+        input = "json".equals(codec) ? stored : CacheValueSerializer.binary(stored);
+        encoded = serializer.serialize(input);
+        System.out.printf("%n[codec=%s, payload=%s] encoded=%d bytes%n", codec, payload, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(input);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(encoded);
+    }
+
+    private static BiometricTemplateEntity biometricTemplate(Random random) {
+        byte[] feature = new byte[2048];
+        random.nextBytes(feature);
+
+        BiometricTemplateEntity template = new BiometricTemplateEntity();
+        template.setTemplateId(100_001L);
+        template.setEmployeeId(20_001L);
+        template.setEmployeeName("张三");
+        template.setEmployeeCode("E20001");
+        template.setBiometricType("FACE");
+        template.setTemplateVersion("v3");
+        template.setTemplateData(Base64.getEncoder().encodeToString(feature));
+        template.setQualityMetrics("{\"imageQuality\":0.95,\"featureCount\":128,\"sharpness\":0.88}");
+        template.setEnrollDate(LocalDate.of(2025, 6, 1));
+        template.setLastUpdateDate(Timestamp.valueOf("2025-11-20 09:30:00"));
+        template.setTemplateStatus(1);
+        template.setFeatureDimension(512);
+        template.setAlgorithmVersion("arcface-2.1");
+        template.setDeviceInfo("{\"deviceId\":3001,\"model\":\"FR-200\"}");
+        template.setEnrollConfidence(new BigDecimal("0.9821"));
+        template.setValidityDays(365);
+        template.setExpireDate(LocalDate.of(2026, 6, 1));
+        template.setUsageCount(1342);
+        template.setAbnormalUsageCount(0);
+        template.setFrozenStatus(0);
+        template.setCreateTime(LocalDateTime.of(2025, 6, 1, 10, 0));
+        template.setUpdateTime(LocalDateTime.of(2025, 11, 20, 9, 30));
+        template.setDeletedFlag(0);
+        return template;
+    }
+
+    /**
+     * 1个园区 → 12栋楼 → 每栋12个区域
+     */
+    private static AccessAreaEntity areaTree(Random random) {
+        long nextId = 1;
+        AccessAreaEntity root = area(nextId++, null, "/1/", 1, "园区", random);
+        List<AccessAreaEntity> buildings = new ArrayList<>();
+        for (int b = 0; b < 12; b++) {
+            long buildingId = nextId++;
+            AccessAreaEntity building = area(buildingId, root, root.getPath() + buildingId + "/", 2, b + "号楼", random);
+            List<AccessAreaEntity> rooms = new ArrayList<>();
+            for (int r = 0; r < 12; r++) {
+                long roomId = nextId++;
+                rooms.add(area(roomId, building, building.getPath() + roomId + "/", 3, b + "号楼" + r + "区", random));
+            }
+            building.setAccessChildren(rooms);
+            building.setChildrenCount(rooms.size());
+            buildings.add(building);
+        }
+        root.setAccessChildren(buildings);
+        root.setChildrenCount(buildings.size());
+        return root;
+    }
+
+    private static AccessAreaEntity area(long areaId, AccessAreaEntity parent, String path, int level, String name,
+            Random random) {
+        AccessAreaEntity area = new AccessAreaEntity();
+        area.setAreaId(areaId);
+        area.setAreaCode("A" + areaId);
+        area.setAreaName(name);
+        area.setAreaType(level);
+        area.setParentId(parent == null ? 0L : parent.getAreaId());
+        area.setPath(path);
+        area.setLevel(level);
+        area.setSortOrder((int) areaId);
+        area.setStatus(1);
+        area.setLongitude(BigDecimal.valueOf(113.9 + random.nextDouble() / 100));
+        area.setLatitude(BigDecimal.valueOf(22.5 + random.nextDouble() / 100));
+        area.setCapacity(50 + random.nextInt(200));
+        area.setAccessEnabled(1);
+        area.setAccessLevel(1 + random.nextInt(3));
+        area.setAccessMode("CARD_FACE");
+        area.setValidTimeStart("06:00");
+        area.setValidTimeEnd("23:00");
+        area.setValidWeekdays("1,2,3,4,5,6,7");
+        area.setDeviceCount(random.nextInt(8));
+        area.setGuardRequired(false);
+        area.setVisitorAllowed(true);
+        area.setCreateTime(LocalDateTime.of(2025, 1, 1, 0, 0));
+        area.setDeletedFlag(0);
+        return area;
+    }
+
+    private static List<AccountBalanceEntity> accountBalances(Random random) {
+        List<AccountBalanceEntity> balances = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            BigDecimal balance = BigDecimal.valueOf(random.nextInt(100_000), 2);
+            AccountBalanceEntity entity = new AccountBalanceEntity();
+            entity.setBalanceId(300_000L + i);
+            entity.setAccountId(200_000L + i);
+            entity.setPersonId(20_000L + i);
+            entity.setPersonName("员工" + i);
+            entity.setAccountNo("AC" + (200_000 + i));
+            entity.setBalance(balance);
+            entity.setFrozenAmount(BigDecimal.ZERO);
+            entity.setAvailableBalance(balance);
+            entity.setCreditLimit(new BigDecimal("200.00"));
+            entity.setAccountType("STAFF");
+            entity.setStatus("ACTIVE");
+            entity.setLastBalance(balance.add(new BigDecimal("12.50")));
+            entity.setChangeAmount(new BigDecimal("-12.50"));
+            entity.setChangeType("CONSUME");
+            entity.setOrderNo("C202511250" + i);
+            entity.setChangeTime(LocalDateTime.of(2025, 11, 25, 12, i % 60));
+            entity.setConsistencyStatus("OK");
+            entity.setNeedRecalculate(0);
+            entity.setDeletedFlag(0);
+            balances.add(entity);
+        }
+        return balances;
+    }
+}
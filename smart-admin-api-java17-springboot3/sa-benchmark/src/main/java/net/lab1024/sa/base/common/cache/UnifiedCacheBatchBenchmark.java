@@ -0,0 +1,152 @@
+package net.lab1024.sa.base.common.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import net.lab1024.sa.base.common.cache.UnifiedCacheManagerBenchmark.CachedUser;
+import net.lab1024.sa.benchmark.BenchmarkBeans;
+import net.lab1024.sa.benchmark.InMemoryRedis;
+
+/**
+ * 统一缓存批量读写与清空基准测试
+ *
+ * - mGetLoop / mSetLoop：逐键 get/set，每键一次往返（原 mGet/mSet 的实现方式）
+ * - mGet / mSet：按批 MGET / 管道 SET，每批一次往返
+ * - patternDelete：KEYS 匹配后删除（原 deleteByPattern 的实现方式），耗时随整个键空间 keyspace 增长
+ * - clearNamespace：递增命名空间代际，与键空间大小无关
+ *
+ * L1本地缓存关闭，读取全部经过Redis；rttMicros 含义同 {@link UnifiedCacheManagerBenchmark}
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnifiedCacheBatchBenchmark {
+
+    @Param({"0", "200"})
+    private long rttMicros;
+
+    @Param({"100"})
+    private int batchSize;
+
+    @Param({"10000", "100000"})
+    private int keyspace;
+
+    private UnifiedCacheManager cacheManager;
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private List<String> keys;
+
+    private Map<String, CachedUser> keyValues;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        redisTemplate = new InMemoryRedis(rttMicros).redisTemplate();
+        populate();
+
+        RedisUtil redisUtil = BenchmarkBeans.inject(new RedisUtil(), "redisTemplate", redisTemplate);
+        cacheManager = new UnifiedCacheManager();
+        BenchmarkBeans.inject(cacheManager, "redisUtil", redisUtil);
+        BenchmarkBeans.inject(cacheManager, "generations",
+                BenchmarkBeans.inject(new CacheGenerations(), "redisUtil", redisUtil));
+        BenchmarkBeans.inject(cacheManager, "localCacheEnabled", false);
+        BenchmarkBeans.inject(cacheManager, "metricsCollector", new CacheMetricsCollector());
+
+        keys = new ArrayList<>(batchSize);
+        keyValues = new LinkedHashMap<>(batchSize * 2);
+        for (int i = 0; i < batchSize; i++) {
+            String key = "user:" + i;
+            keys.add(key);
+            keyValues.put(key, CachedUser.of(i));
+        }
+        cacheManager.mSet(CacheNamespace.USER, keyValues);
+    }
+
+    @Benchmark
+    public int mGetLoop() {
+        int hits = 0;
+        for (String key : keys) {
+            if (cacheManager.get(CacheNamespace.USER, key, CachedUser.class).isSuccess()) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int mGet() {
+        return cacheManager.mGet(CacheNamespace.USER, keys, CachedUser.class).getSuccessCount();
+    }
+
+    @Benchmark
+    public int mSetLoop() {
+        int success = 0;
+        for (Map.Entry<String, CachedUser> entry : keyValues.entrySet()) {
+            if (cacheManager.set(CacheNamespace.USER, entry.getKey(), entry.getValue()).isSuccess()) {
+                success++;
+            }
+        }
+        return success;
+    }
+
+    @Benchmark
+    public int mSet() {
+        return cacheManager.mSet(CacheNamespace.USER, keyValues).getSuccessCount();
+    }
+
+    @Benchmark
+    public int patternDelete() {
+        Set<String> matched = redisTemplate.keys("unified:cache:TEMP:*");
+        if (matched == null || matched.isEmpty()) {
+            return 0;
+        }
+        Long deleted = redisTemplate.delete(matched);
+        return deleted == null ? 0 : deleted.intValue();
+    }
+
+    @Benchmark
+    public void clearNamespace() {
+        cacheManager.clearNamespace(CacheNamespace.TEMP);
+    }
+
+    /**
+     * 以其他命名空间的键填充键空间，KEYS 需要逐个匹配
+     */
+    private void populate() {
+        Map<String, Object> filler = new LinkedHashMap<>();
+        for (int i = 0; i < keyspace; i++) {
+            filler.put("unified:cache:ACCESS:g0:record:" + i, i);
+            if (filler.size() == RedisUtil.BATCH_SIZE) {
+                redisTemplate.opsForValue().multiSet(filler);
+                filler.clear();
+            }
+        }
+        if (!filler.isEmpty()) {
+            redisTemplate.opsForValue().multiSet(filler);
+        }
+    }
+}
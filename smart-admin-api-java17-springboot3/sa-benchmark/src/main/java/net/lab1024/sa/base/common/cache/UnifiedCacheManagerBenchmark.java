@@ -0,0 +1,145 @@
+package net.lab1024.sa.base.common.cache;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.lab1024.sa.benchmark.BenchmarkBeans;
+import net.lab1024.sa.benchmark.InMemoryRedis;
+
+/**
+ * 统一缓存管理器读写基准测试
+ *
+ * Redis由进程内替身 {@link InMemoryRedis} 代替，键值序列化与 UnifiedCacheConfig 一致（Jackson），
+ * rttMicros 为每条Redis命令模拟的网络往返：0 只衡量应用侧开销，200 接近同机房一次往返；
+ * localCache 控制L1本地缓存，关闭时每次读取都经过Redis
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnifiedCacheManagerBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"0", "200"})
+    private long rttMicros;
+
+    @Param({"true", "false"})
+    private boolean localCache;
+
+    private UnifiedCacheManager cacheManager;
+
+    private List<String> keys;
+
+    private CachedUser value;
+
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRedis redis = new InMemoryRedis(rttMicros);
+        RedisUtil redisUtil = BenchmarkBeans.inject(new RedisUtil(), "redisTemplate", redis.redisTemplate());
+        cacheManager = new UnifiedCacheManager();
+        BenchmarkBeans.inject(cacheManager, "redisUtil", redisUtil);
+        BenchmarkBeans.inject(cacheManager, "generations",
+                BenchmarkBeans.inject(new CacheGenerations(), "redisUtil", redisUtil));
+        BenchmarkBeans.inject(cacheManager, "localCacheEnabled", localCache);
+        BenchmarkBeans.inject(cacheManager, "metricsCollector", new CacheMetricsCollector());
+
+        keys = new ArrayList<>(KEY_COUNT);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String key = "user:" + i;
+            keys.add(key);
+            cacheManager.set(CacheNamespace.USER, key, CachedUser.of(i));
+        }
+        value = CachedUser.of(KEY_COUNT);
+    }
+
+    @Benchmark
+    public UnifiedCacheManager.CacheResult<CachedUser> getHit() {
+        return cacheManager.get(CacheNamespace.USER, nextKey(), CachedUser.class);
+    }
+
+    @Benchmark
+    public UnifiedCacheManager.CacheResult<CachedUser> getMiss() {
+        return cacheManager.get(CacheNamespace.USER, "absent:" + nextKey(), CachedUser.class);
+    }
+
+    @Benchmark
+    public UnifiedCacheManager.CacheResult<CachedUser> set() {
+        return cacheManager.set(CacheNamespace.USER, nextKey(), value);
+    }
+
+    private String nextKey() {
+        String key = keys.get(cursor);
+        cursor = (cursor + 1) & (KEY_COUNT - 1);
+        return key;
+    }
+
+    /**
+     * 缓存值，字段规模与登录用户信息相当
+     */
+    public static class CachedUser {
+
+        private Long userId;
+
+        private String loginName;
+
+        private String actualName;
+
+        private String phone;
+
+        private Long departmentId;
+
+        private List<String> roleCodes;
+
+        private LocalDateTime lastLoginTime;
+
+        public static CachedUser of(int id) {
+            CachedUser user = new CachedUser();
+            user.userId = (long) id;
+            user.loginName = "user" + id;
+            user.actualName = "用户" + id;
+            user.phone = "138" + String.format("%08d", id);
+            user.departmentId = (long) (id % 50);
+            user.roleCodes = List.of("EMPLOYEE", "ACCESS_USER", "CONSUME_USER");
+            user.lastLoginTime = LocalDateTime.of(2025, 1, 15, 8, 30);
+            return user;
+        }
+
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+        public String getLoginName() { return loginName; }
+        public void setLoginName(String loginName) { this.loginName = loginName; }
+        public String getActualName() { return actualName; }
+        public void setActualName(String actualName) { this.actualName = actualName; }
+        public String getPhone() { return phone; }
+        public void setPhone(String phone) { this.phone = phone; }
+        public Long getDepartmentId() { return departmentId; }
+        public void setDepartmentId(Long departmentId) { this.departmentId = departmentId; }
+        public List<String> getRoleCodes() { return roleCodes; }
+        public void setRoleCodes(List<String> roleCodes) { this.roleCodes = roleCodes; }
+        public LocalDateTime getLastLoginTime() { return lastLoginTime; }
+        public void setLastLoginTime(LocalDateTime lastLoginTime) { this.lastLoginTime = lastLoginTime; }
+    }
+}
@@ -0,0 +1,74 @@
+package net.lab1024.sa.base.module.area.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.lab1024.sa.base.module.area.domain.entity.AreaEntity;
+import net.lab1024.sa.base.module.area.domain.vo.AreaTreeVO;
+
+/**
+ * 组织树构建基准测试
+ *
+ * 部门树目前没有落地实现（DepartmentCacheManager.getDepartmentTree 待接入DepartmentDao），
+ * 以同为“扁平列表组装父子树”的 AreaManager.buildAreaTree 作为组织树构建的基准。
+ * fanOut 为每个节点的子节点数，用于观察同级节点数对构建耗时的影响
+ *
+ * @author SmartAdmin Team
+ * @date 2025-01-15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AreaTreeBenchmark {
+
+    @Param({"1000", "10000"})
+    private int nodeCount;
+
+    @Param({"10", "100"})
+    private int fanOut;
+
+    private AreaManager areaManager;
+
+    private List<AreaEntity> areas;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // buildAreaTree 只处理入参列表，无需注入AreaDao
+        areaManager = new AreaManager();
+        areas = new ArrayList<>(nodeCount);
+        for (int i = 1; i <= nodeCount; i++) {
+            AreaEntity area = new AreaEntity();
+            area.setAreaId((long) i);
+            area.setAreaCode("AREA_" + i);
+            area.setAreaName("区域" + i);
+            area.setAreaType(i % 5 + 1);
+            // 按层序编号，第一个节点为根
+            area.setParentId(i == 1 ? 0L : (long) ((i - 2) / fanOut + 1));
+            area.setSortOrder(i);
+            area.setStatus(1);
+            areas.add(area);
+        }
+    }
+
+    @Benchmark
+    public List<AreaTreeVO> buildTree() {
+        return areaManager.buildAreaTree(areas);
+    }
+}
@@ -0,0 +1,32 @@
+package net.lab1024.sa.benchmark;
+
+import java.lang.reflect.Field;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * 基准测试中手工装配Spring组件
+ * <p>
+ * 被测组件使用 @Resource 字段注入，基准不启动Spring容器，按字段名直接赋值
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public final class BenchmarkBeans {
+
+    private BenchmarkBeans() {
+    }
+
+    /**
+     * 为目标对象（含父类）的指定字段赋值
+     */
+    public static <T> T inject(T target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException(target.getClass().getName() + " 不存在字段 " + fieldName);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+        return target;
+    }
+}
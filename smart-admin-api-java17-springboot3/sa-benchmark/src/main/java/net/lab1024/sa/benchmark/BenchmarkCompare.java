@@ -0,0 +1,99 @@
+package net.lab1024.sa.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * 两个版本的JMH JSON结果对比
+ * <p>
+ * 用法：BenchmarkCompare 基线.json 当前.json [阈值百分比，默认10]
+ * <p>
+ * 按“基准方法 + 参数”逐项输出得分与变化；吞吐量类（thrpt）下降、耗时类（avgt/sample/ss）上升超过阈值
+ * 且超出两次测量误差之和时记为退化，存在退化时进程以1退出，可直接用于流水线卡点
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class BenchmarkCompare {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: BenchmarkCompare <基线.json> <当前.json> [阈值百分比]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JSONObject> baseline = load(Path.of(args[0]));
+        Map<String, JSONObject> current = load(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JSONObject> entry : current.entrySet()) {
+            JSONObject now = entry.getValue();
+            JSONObject before = baseline.get(entry.getKey());
+            JSONObject metric = now.getJSONObject("primaryMetric");
+            String unit = metric.getString("scoreUnit");
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  %s%n", entry.getKey(), "-", metric.getDoubleValue("score"),
+                        "new", unit);
+                continue;
+            }
+            JSONObject beforeMetric = before.getJSONObject("primaryMetric");
+            double oldScore = beforeMetric.getDoubleValue("score");
+            double newScore = metric.getDoubleValue("score");
+            double change = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore * 100;
+            boolean higherIsBetter = "thrpt".equals(now.getString("mode"));
+            double worse = higherIsBetter ? -change : change;
+            double noise = errorOf(beforeMetric) + errorOf(metric);
+            boolean regressed = worse > threshold && Math.abs(newScore - oldScore) > noise;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), oldScore, newScore, change, unit,
+                    regressed ? "  <-- 退化" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-90s %14s %14s %9s%n", key, "", "-", "removed");
+            }
+        }
+        System.out.printf("%n共 %d 项退化（阈值 %.1f%%）%n", regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static Map<String, JSONObject> load(Path file) throws IOException {
+        JSONArray results = JSON.parseArray(Files.readString(file, StandardCharsets.UTF_8));
+        Map<String, JSONObject> byKey = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            byKey.put(key(result), result);
+        }
+        return byKey;
+    }
+
+    /**
+     * 基准方法全名 + 排序后的参数
+     */
+    private static String key(JSONObject result) {
+        StringBuilder key = new StringBuilder(result.getString("benchmark"));
+        JSONObject params = result.getJSONObject("params");
+        if (params != null && !params.isEmpty()) {
+            key.append(new TreeMap<>(params.getInnerMap()));
+        }
+        return key.toString();
+    }
+
+    private static double errorOf(JSONObject metric) {
+        double error = metric.getDoubleValue("scoreError");
+        // 单次迭代时JMH输出NaN
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
@@ -0,0 +1,52 @@
+package net.lab1024.sa.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基准测试启动入口
+ * <p>
+ * 构建：mvn -Pdev,benchmark -pl sa-benchmark -am package -DskipTests
+ * <p>
+ * 运行：java -jar sa-benchmark/target/benchmarks.jar [JMH参数]
+ * - 参数与 org.openjdk.jmh.Main 一致，如只运行缓存基准：java -jar benchmarks.jar UnifiedCacheManagerBenchmark
+ * - 未指定 -rf/-rff 时结果以JSON写入 benchmark-results/jmh-{版本号}.json，便于按版本保存
+ * <p>
+ * 版本对比：java -cp benchmarks.jar net.lab1024.sa.benchmark.BenchmarkCompare 旧版本.json 新版本.json
+ * <p>
+ * 所有基准均不依赖MySQL/Redis等外部服务，Redis由 {@link InMemoryRedis} 在进程内替代
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class BenchmarkMain {
+
+    public static final String RESULT_DIR = "benchmark-results";
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.add("-rf");
+            arguments.add("json");
+        }
+        if (!arguments.contains("-rff")) {
+            File dir = new File(RESULT_DIR);
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IllegalStateException("无法创建结果目录: " + dir.getAbsolutePath());
+            }
+            arguments.add("-rff");
+            arguments.add(new File(dir, "jmh-" + version() + ".json").getPath());
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+    }
+
+    /**
+     * 版本号取自jar清单，IDE中直接运行时为dev
+     */
+    private static String version() {
+        String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+        return version != null ? version : "dev";
+    }
+}
@@ -0,0 +1,345 @@
+package net.lab1024.sa.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+/**
+ * 进程内Redis替身
+ * <p>
+ * 以 {@link RedisConnectionFactory} 的形式接入，RedisTemplate 的键值序列化、连接获取释放等处理与生产一致，
+ * 只把网络往返和Redis服务端换成内存Map，基准结果反映的是应用侧开销。
+ * 可通过 rttMicros 为每条命令模拟一次网络往返耗时，管道内的命令在 closePipeline 时合计一次往返。
+ * <p>
+ * 支持字符串类命令（GET/SET/SETEX/PSETEX/MGET/MSET/SETNX/INCRBY）与 DEL/UNLINK/EXISTS/EXPIRE/KEYS，
+ * 其他命令抛出 UnsupportedOperationException，避免基准在不知情时走到空实现
+ *
+ * @author SmartAdmin Team
+ * @since 2025-11-25
+ */
+public class InMemoryRedis implements InvocationHandler {
+
+    private final Map<ByteBuffer, Entry> data = new ConcurrentHashMap<>();
+
+    private final long rttNanos;
+
+    /**
+     * 当前线程打开的管道中已执行命令的结果，未打开管道时为null
+     */
+    private final ThreadLocal<List<Object>> pipeline = new ThreadLocal<>();
+
+    public InMemoryRedis(long rttMicros) {
+        this.rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+    }
+
+    /**
+     * 连接工厂
+     */
+    public RedisConnectionFactory connectionFactory() {
+        RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {RedisConnection.class}, this);
+        return (RedisConnectionFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {RedisConnectionFactory.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getConnection":
+                            return connection;
+                        case "getConvertPipelineAndTxResults":
+                            return true;
+                        case "translateExceptionIfPossible":
+                            return null;
+                        case "toString":
+                            return "InMemoryRedisConnectionFactory";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * 与 UnifiedCacheConfig 相同序列化配置的 RedisTemplate
+     */
+    public RedisTemplate<String, Object> redisTemplate() {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory());
+        StringRedisSerializer stringSerializer = new StringRedisSerializer();
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+        template.setKeySerializer(stringSerializer);
+        template.setHashKeySerializer(stringSerializer);
+        template.setValueSerializer(jsonSerializer);
+        template.setHashValueSerializer(jsonSerializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    public StringRedisTemplate stringRedisTemplate() {
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public void flushAll() {
+        data.clear();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            // 连接生命周期
+            case "stringCommands":
+                return Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[] {RedisStringCommands.class}, this);
+            case "keyCommands":
+                return Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[] {RedisKeyCommands.class}, this);
+            case "openPipeline":
+                if (pipeline.get() == null) {
+                    pipeline.set(new ArrayList<>());
+                }
+                return null;
+            case "closePipeline": {
+                List<Object> results = pipeline.get();
+                pipeline.remove();
+                if (results == null || results.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                roundTrip();
+                return results;
+            }
+            case "isPipelined":
+                return pipeline.get() != null;
+            case "close":
+            case "multi":
+            case "discard":
+                return null;
+            case "isClosed":
+            case "isQueueing":
+                return false;
+            case "exec":
+                return Collections.emptyList();
+            case "getNativeConnection":
+                return null;
+            case "toString":
+                return "InMemoryRedisConnection";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                break;
+        }
+
+        List<Object> pipelined = pipeline.get();
+        if (pipelined == null) {
+            roundTrip();
+            return execute(method, args);
+        }
+        pipelined.add(execute(method, args));
+        return null;
+    }
+
+    private Object execute(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "get":
+                return value((byte[]) args[0]);
+            case "mGet": {
+                byte[][] keys = (byte[][]) args[0];
+                List<byte[]> values = new ArrayList<>(keys.length);
+                for (byte[] key : keys) {
+                    values.add(value(key));
+                }
+                return values;
+            }
+            case "set":
+                return set((byte[]) args[0], (byte[]) args[1], args.length > 2 ? (Expiration) args[2] : null,
+                        args.length > 3 ? args[3] : null);
+            case "setNX":
+                return putIfAbsent((byte[]) args[0], new Entry((byte[]) args[1], 0));
+            case "setEx":
+                data.put(key((byte[]) args[0]), new Entry((byte[]) args[2], deadline((Long) args[1] * 1000)));
+                return true;
+            case "pSetEx":
+                data.put(key((byte[]) args[0]), new Entry((byte[]) args[2], deadline((Long) args[1])));
+                return true;
+            case "mSet": {
+                @SuppressWarnings("unchecked")
+                Map<byte[], byte[]> tuples = (Map<byte[], byte[]>) args[0];
+                tuples.forEach((k, v) -> data.put(key(k), new Entry(v, 0)));
+                return true;
+            }
+            case "incrBy":
+                return incrBy((byte[]) args[0], ((Number) args[1]).longValue());
+            case "incr":
+                return incrBy((byte[]) args[0], 1);
+            case "keys": {
+                Pattern pattern = globPattern(new String((byte[]) args[0], StandardCharsets.UTF_8));
+                Set<byte[]> keys = new LinkedHashSet<>();
+                data.forEach((k, v) -> {
+                    byte[] key = new byte[k.remaining()];
+                    k.duplicate().get(key);
+                    if (!v.isExpired() && pattern.matcher(new String(key, StandardCharsets.UTF_8)).matches()) {
+                        keys.add(key);
+                    }
+                });
+                return keys;
+            }
+            case "unlink":
+            case "del": {
+                long removed = 0;
+                for (byte[] key : (byte[][]) args[0]) {
+                    if (data.remove(key(key)) != null) {
+                        removed++;
+                    }
+                }
+                return removed;
+            }
+            case "exists":
+                if (args[0] instanceof byte[]) {
+                    return value((byte[]) args[0]) != null;
+                }
+                long count = 0;
+                for (byte[] key : (byte[][]) args[0]) {
+                    if (value(key) != null) {
+                        count++;
+                    }
+                }
+                return count;
+            case "expire":
+                return expire((byte[]) args[0], (Long) args[1] * 1000);
+            case "pExpire":
+                return expire((byte[]) args[0], (Long) args[1]);
+            default:
+                throw new UnsupportedOperationException("InMemoryRedis不支持命令: " + method.getName());
+        }
+    }
+
+    private void roundTrip() {
+        if (rttNanos > 0) {
+            LockSupport.parkNanos(rttNanos);
+        }
+    }
+
+    /**
+     * Redis glob 转正则，只支持 * 与 ?，其他字符按字面匹配
+     */
+    private static Pattern globPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private Boolean set(byte[] key, byte[] value, Expiration expiration, Object option) {
+        long deadline = expiration == null || expiration.isPersistent() ? 0
+                : deadline(expiration.getExpirationTimeInMilliseconds());
+        Entry entry = new Entry(value, deadline);
+        String setOption = option != null ? option.toString() : "UPSERT";
+        if ("SET_IF_ABSENT".equals(setOption)) {
+            return putIfAbsent(key, entry);
+        }
+        if ("SET_IF_PRESENT".equals(setOption)) {
+            return data.computeIfPresent(key(key), (k, old) -> entry) != null;
+        }
+        data.put(key(key), entry);
+        return true;
+    }
+
+    private boolean putIfAbsent(byte[] key, Entry entry) {
+        boolean[] created = new boolean[1];
+        data.compute(key(key), (k, old) -> {
+            if (old == null || old.isExpired()) {
+                created[0] = true;
+                return entry;
+            }
+            return old;
+        });
+        return created[0];
+    }
+
+    private long incrBy(byte[] key, long delta) {
+        Entry updated = data.compute(key(key), (k, old) -> {
+            long current = old == null || old.isExpired() ? 0 : Long.parseLong(new String(old.value));
+            return new Entry(String.valueOf(current + delta).getBytes(), old == null ? 0 : old.deadline);
+        });
+        return Long.parseLong(new String(updated.value));
+    }
+
+    private boolean expire(byte[] key, long millis) {
+        return data.computeIfPresent(key(key), (k, old) -> new Entry(old.value, deadline(millis))) != null;
+    }
+
+    private byte[] value(byte[] key) {
+        Entry entry = data.get(key(key));
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            data.remove(key(key), entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private static ByteBuffer key(byte[] key) {
+        return ByteBuffer.wrap(key);
+    }
+
+    private static long deadline(long millis) {
+        return System.currentTimeMillis() + millis;
+    }
+
+    private static final class Entry {
+
+        private final byte[] value;
+
+        /**
+         * 过期时间戳（毫秒），0为不过期
+         */
+        private final long deadline;
+
+        private Entry(byte[] value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        private boolean isExpired() {
+            return deadline > 0 && System.currentTimeMillis() >= deadline;
+        }
+    }
+}
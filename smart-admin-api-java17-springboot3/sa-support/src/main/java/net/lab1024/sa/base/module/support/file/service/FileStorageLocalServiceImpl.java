@@ -9,7 +9,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
@@ -54,9 +53,9 @@ public class FileStorageLocalServiceImpl implements IFileStorageService {
                 Files.createDirectories(dirPath);
             }
 
-            // 保存文件
+            // 保存文件：容器已落盘的上传文件直接移动（transferTo(Path) 是流复制，这里使用 transferTo(File)）
             Path filePath = Paths.get(fullFilePath);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            file.transferTo(filePath.toFile());
 
             log.info("File uploaded successfully to local storage: {}", relativePath + "/" + fileKey);
             return relativePath + "/" + fileKey;